@@ -0,0 +1,466 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * End-to-end latency of the native call paths behind check-in, history and export, driven
+ * through the real plugins with a {@link SyntheticDataset}. Writes a JSON report with
+ * per-scenario percentiles and allocations.
+ *
+ * Lives outside src/test and only compiles with {@code -PloadHarness} (see app/build.gradle):
+ * the "smoke" profile is a small dataset, the power-user profile (300 habits, five years) runs
+ * with:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*LoadHarnessTest' -PloadHarness=power
+ *
+ * Latencies include the executor hop and the harness's response capture; the
+ * {@code bridge.ping} scenario measures that floor on the same machine.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LoadHarnessTest {
+    private static final long SEED = 20240501L;
+    private static final int PUT_CHUNK = 500;
+    private static final int EXPORT_CHUNK = 1000;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final class Profile {
+        final String name;
+        final int habits;
+        final int years;
+        final int warmup;
+        final int iterations;
+
+        Profile(String name, int habits, int years, int warmup, int iterations) {
+            this.name = name;
+            this.habits = habits;
+            this.years = years;
+            this.warmup = warmup;
+            this.iterations = iterations;
+        }
+
+        static Profile named(String name) {
+            if ("power".equals(name)) return new Profile("power", 300, 5, 50, 500);
+            return new Profile("smoke", 12, 1, 5, 40);
+        }
+    }
+
+    /** Latencies and allocations of one kind of call. */
+    private static final class Scenario {
+        final String name;
+        private long[] nanos = new long[64];
+        private long[] bytes = new long[64];
+        private int count;
+        private int failures;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        PluginHarness.Response record(PluginHarness.Response response) {
+            if (!response.ok()) {
+                failures++;
+                return response;
+            }
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+                bytes = Arrays.copyOf(bytes, count * 2);
+            }
+            nanos[count] = response.nanos;
+            bytes[count] = response.allocatedBytes;
+            count++;
+            return response;
+        }
+
+        void record(long elapsedNanos, long allocatedBytes) {
+            record(new PluginHarness.Response(null, null, elapsedNanos, allocatedBytes));
+        }
+
+        JSONObject toJson() throws Exception {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long n : sorted) total += n;
+            long allocated = 0;
+            boolean measured = true;
+            for (int i = 0; i < count; i++) {
+                if (bytes[i] < 0) measured = false;
+                allocated += Math.max(0, bytes[i]);
+            }
+            JSONObject out = new JSONObject();
+            out.put("name", name);
+            out.put("calls", count);
+            out.put("failures", failures);
+            out.put("p50Us", StartupTraceLog.percentile(sorted, 50) / 1000L);
+            out.put("p90Us", StartupTraceLog.percentile(sorted, 90) / 1000L);
+            out.put("p99Us", StartupTraceLog.percentile(sorted, 99) / 1000L);
+            out.put("maxUs", count > 0 ? sorted[count - 1] / 1000L : 0L);
+            out.put("meanUs", count > 0 ? total / count / 1000L : 0L);
+            out.put("allocBytesPerCall", measured && count > 0 ? allocated / count : JSONObject.NULL);
+            return out;
+        }
+    }
+
+    private final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+    private Profile profile;
+    private SyntheticDataset data;
+    private PluginHarness harness;
+    private String scope;
+    private HabitLogStorePlugin logStore;
+    private StreakEnginePlugin streaks;
+    private AutoFinalizePlugin autoFinalize;
+    private DailyRollupPlugin rollup;
+    private DataTransferPlugin transfer;
+    private NativeBatchPlugin batch;
+
+    @Before
+    public void setUp() {
+        profile = Profile.named(System.getProperty("loadHarness.profile", "smoke"));
+        data = SyntheticDataset.generate(SEED, profile.habits, profile.years, EpochDays.today());
+        harness = new PluginHarness(RuntimeEnvironment.getApplication(), 120_000L);
+        // Stores are cached per scope for the process; a fresh scope keeps runs independent.
+        scope = "harness_" + profile.name + "_" + System.nanoTime();
+        logStore = harness.load(new HabitLogStorePlugin());
+        streaks = harness.load(new StreakEnginePlugin());
+        autoFinalize = harness.load(new AutoFinalizePlugin());
+        rollup = harness.load(new DailyRollupPlugin());
+        transfer = harness.load(new DataTransferPlugin());
+        batch = harness.load(new NativeBatchPlugin());
+    }
+
+    @Test
+    public void checkInHistoryAndExport() throws Exception {
+        long started = System.currentTimeMillis();
+        calibrate();
+        seed();
+        checkIns();
+        history();
+        export();
+
+        for (Scenario scenario : scenarios.values()) {
+            assertEquals(scenario.name + " had failed calls", 0, scenario.failures);
+            assertTrue(scenario.name + " made no calls", scenario.count > 0);
+        }
+        File report = writeReport(System.currentTimeMillis() - started);
+        assertTrue("no report at " + report, report.isFile() && report.length() > 0);
+        JSONObject written = new JSONObject(new String(Files.readAllBytes(report.toPath()), UTF8));
+        assertEquals(scenarios.size(), written.getJSONArray("scenarios").length());
+    }
+
+    /** The cheapest round trip, for reading the other numbers against. */
+    private void calibrate() {
+        Scenario ping = scenario("bridge.ping");
+        JSObject args = new JSObject();
+        args.put("value", 1);
+        for (int i = 0; i < profile.warmup + profile.iterations; i++) {
+            PluginHarness.Response response = call("NativeBatch", "ping", batch::ping, args);
+            if (i >= profile.warmup) ping.record(response);
+        }
+    }
+
+    /** What a fresh install does after importing the user's backup. */
+    private void seed() throws Exception {
+        JSObject habits = scoped();
+        habits.put("habits", nativeHabits());
+        for (int i = 0; i < 3; i++) {
+            scenario("autoFinalize.syncHabits").record(
+                    call("AutoFinalize", "syncHabits", autoFinalize::syncHabits, habits));
+        }
+
+        Scenario put = scenario("habitLogStore.put." + PUT_CHUNK);
+        for (int from = 0; from < data.logs.size(); from += PUT_CHUNK) {
+            JSObject args = scoped();
+            args.put("logs", logsJson(from, Math.min(data.logs.size(), from + PUT_CHUNK), false));
+            put.record(call("HabitLogStore", "put", logStore::put, args));
+        }
+
+        JSObject all = new JSObject();
+        all.put("habits", nativeHabits());
+        all.put("logs", logsJson(0, data.logs.size(), false));
+        for (int i = 0; i < 3; i++) {
+            PluginHarness.Response response = scenario("streakEngine.load")
+                    .record(call("StreakEngine", "load", streaks::load, all));
+            assertEquals(data.habits.size(), response.data.getJSONArray("streaks").length());
+        }
+    }
+
+    /** Toggling today's entry on random habits: the store write, the streak, and both batched. */
+    private void checkIns() throws Exception {
+        Random random = new Random(SEED);
+        String today = EpochDays.format(data.today);
+        Scenario put = scenario("checkIn.habitLogStore.put");
+        Scenario streak = scenario("checkIn.streakEngine.putLog");
+        Scenario batched = scenario("checkIn.nativeBatch.run");
+        for (int i = 0; i < profile.warmup + profile.iterations; i++) {
+            boolean measured = i >= profile.warmup;
+            SyntheticDataset.Habit habit = data.habits.get(random.nextInt(data.habits.size()));
+            boolean completed = random.nextBoolean();
+            JSONObject log = logJson(habit.id, data.today, completed, System.currentTimeMillis(), false);
+
+            JSObject putArgs = scoped();
+            putArgs.put("logs", new JSArray().put(log));
+            PluginHarness.Response response = call("HabitLogStore", "put", logStore::put, putArgs);
+            if (measured) put.record(response);
+
+            JSObject streakArgs = new JSObject();
+            streakArgs.put("habitId", habit.id);
+            streakArgs.put("date", today);
+            streakArgs.put("completed", completed);
+            response = call("StreakEngine", "putLog", streaks::putLog, streakArgs);
+            if (measured) streak.record(response);
+
+            JSObject op = new JSObject();
+            op.put("target", "HabitLogStore.put");
+            op.put("args", putArgs);
+            JSObject batchArgs = new JSObject();
+            batchArgs.put("operations", new JSArray().put(op));
+            response = call("NativeBatch", "run", batch::run, batchArgs);
+            if (measured) {
+                batched.record(response);
+                assertTrue(response.data.getJSONArray("results").getJSONObject(0).getBoolean("ok"));
+            }
+        }
+    }
+
+    /** The history dialog: a habit's year of logs, and the rollup stats and charts. */
+    private void history() throws Exception {
+        String from = EpochDays.format(data.today - 364);
+        String to = EpochDays.format(data.today);
+        Scenario habitYear = scenario("history.habitLogStore.queryYear");
+        int queries = Math.min(data.habits.size(), profile.iterations);
+        for (int i = 0; i < queries + profile.warmup; i++) {
+            JSObject args = scoped();
+            args.put("habitId", data.habits.get(i % data.habits.size()).id);
+            args.put("from", from);
+            args.put("to", to);
+            PluginHarness.Response response = call("HabitLogStore", "query", logStore::query, args);
+            if (i >= profile.warmup) habitYear.record(response);
+        }
+
+        Scenario rollupYear = scenario("history.dailyRollup.year");
+        Scenario rollupAll = scenario("history.dailyRollup.allTime");
+        int rollups = Math.max(5, profile.iterations / 10);
+        for (int i = 0; i < rollups + profile.warmup; i++) {
+            JSObject year = scoped();
+            year.put("days", 365);
+            year.put("series", true);
+            PluginHarness.Response response = call("DailyRollup", "query", rollup::query, year);
+            if (i >= profile.warmup) rollupYear.record(response);
+
+            response = call("DailyRollup", "query", rollup::query, scoped());
+            if (i >= profile.warmup) {
+                rollupAll.record(response);
+                assertTrue(response.data.getJSONObject("totals").getInt("completions") > 0);
+            }
+        }
+    }
+
+    /** A full backup written through the streaming export session, twice (the first warms up). */
+    private void export() throws Exception {
+        Scenario append = scenario("export.dataTransfer.append." + EXPORT_CHUNK);
+        Scenario full = scenario("export.full");
+        AllocationMeter meter = AllocationMeter.create();
+        for (int run = 0; run < 2; run++) {
+            boolean measured = run > 0;
+            long allocatedBefore = meter != null ? meter.allThreads() : 0;
+            long start = System.nanoTime();
+
+            JSObject counts = new JSObject();
+            counts.put("habits", data.habits.size());
+            counts.put("logs", data.logs.size());
+            JSObject begin = new JSObject();
+            begin.put("fileName", "harness-export.json");
+            begin.put("gzip", true);
+            begin.put("exportedAt", iso(System.currentTimeMillis()));
+            begin.put("counts", counts);
+            PluginHarness.Response response = call("DataTransfer", "beginExport", transfer::beginExport, begin);
+            assertTrue(response.error, response.ok());
+            String sessionId = response.data.getString("sessionId");
+
+            JSObject habits = new JSObject();
+            habits.put("sessionId", sessionId);
+            habits.put("habits", exportHabits());
+            response = call("DataTransfer", "appendExport", transfer::appendExport, habits);
+            assertTrue(response.error, response.ok());
+            for (int from = 0; from < data.logs.size(); from += EXPORT_CHUNK) {
+                JSObject chunk = new JSObject();
+                chunk.put("sessionId", sessionId);
+                chunk.put("logs", logsJson(from, Math.min(data.logs.size(), from + EXPORT_CHUNK), true));
+                response = call("DataTransfer", "appendExport", transfer::appendExport, chunk);
+                if (measured) append.record(response);
+            }
+
+            JSObject finish = new JSObject();
+            finish.put("sessionId", sessionId);
+            finish.put("settings", exportSettings());
+            response = call("DataTransfer", "finishExport", transfer::finishExport, finish);
+            assertTrue(response.error, response.ok());
+            assertTrue(response.data.getLong("bytes") > 0);
+            if (measured) {
+                full.record(System.nanoTime() - start, meter != null ? meter.allThreads() - allocatedBefore : -1);
+            }
+        }
+    }
+
+    private PluginHarness.Response call(String pluginId, String method, PluginHarness.Method invoke, JSObject args) {
+        return harness.call(pluginId, method, invoke, args);
+    }
+
+    private Scenario scenario(String name) {
+        Scenario scenario = scenarios.get(name);
+        if (scenario == null) {
+            scenario = new Scenario(name);
+            scenarios.put(name, scenario);
+        }
+        return scenario;
+    }
+
+    private JSObject scoped() {
+        JSObject args = new JSObject();
+        args.put("scope", scope);
+        return args;
+    }
+
+    /** Habits as the web layer hands them to native code: dates in epoch millis. */
+    private JSArray nativeHabits() throws Exception {
+        JSArray out = new JSArray();
+        for (SyntheticDataset.Habit habit : data.habits) {
+            JSONObject json = new JSONObject();
+            json.put("id", habit.id);
+            json.put("name", habit.name);
+            json.put("type", habit.bad ? "bad" : "good");
+            json.put("createdAt", habit.createdAtMillis());
+            json.put("schedule", scheduleJson(habit));
+            out.put(json);
+        }
+        return out;
+    }
+
+    /** Habits in the export schema: ISO dates and a streak. */
+    private JSArray exportHabits() throws Exception {
+        JSArray out = new JSArray();
+        for (SyntheticDataset.Habit habit : data.habits) {
+            JSONObject json = new JSONObject();
+            json.put("id", habit.id);
+            json.put("name", habit.name);
+            json.put("type", habit.bad ? "bad" : "good");
+            json.put("streak", 0);
+            json.put("createdAt", iso(habit.createdAtMillis()));
+            json.put("schedule", scheduleJson(habit));
+            out.put(json);
+        }
+        return out;
+    }
+
+    private static JSONObject scheduleJson(SyntheticDataset.Habit habit) throws Exception {
+        JSONObject schedule = new JSONObject();
+        schedule.put("type", habit.scheduleType);
+        if ("interval".equals(habit.scheduleType)) schedule.put("intervalDays", habit.intervalDays);
+        if ("weekly".equals(habit.scheduleType)) {
+            JSONArray days = new JSONArray();
+            for (int day : habit.daysOfWeek) days.put(day);
+            schedule.put("daysOfWeek", days);
+        }
+        return schedule;
+    }
+
+    private JSArray logsJson(int from, int to, boolean exportSchema) throws Exception {
+        JSArray out = new JSArray();
+        for (int i = from; i < to; i++) {
+            SyntheticDataset.Log log = data.logs.get(i);
+            out.put(logJson(log.habitId, log.epochDay, log.completed, log.timestamp, exportSchema));
+        }
+        return out;
+    }
+
+    private static JSONObject logJson(String habitId, int day, boolean completed, long timestamp,
+                                      boolean exportSchema) throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("id", SyntheticDataset.logId(habitId, day));
+        json.put("habitId", habitId);
+        json.put("date", EpochDays.format(day));
+        json.put("completed", completed);
+        json.put("timestamp", exportSchema ? iso(timestamp) : timestamp);
+        json.put("source", "manual");
+        return json;
+    }
+
+    private static JSONObject exportSettings() throws Exception {
+        JSONObject settings = new JSONObject();
+        settings.put("darkMode", false);
+        settings.put("language", "en");
+        settings.put("motivatorPersonality", "positive");
+        settings.put("fullscreenMode", false);
+        return settings;
+    }
+
+    private static String iso(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+
+    private File writeReport(long wallMs) throws Exception {
+        JSONObject dataset = new JSONObject();
+        dataset.put("seed", data.seed);
+        dataset.put("habits", data.habits.size());
+        dataset.put("logs", data.logs.size());
+        dataset.put("firstDay", EpochDays.format(data.firstDay));
+        dataset.put("today", EpochDays.format(data.today));
+
+        JSONObject environment = new JSONObject();
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("processors", Runtime.getRuntime().availableProcessors());
+        environment.put("allocations", harness.measuresAllocations());
+
+        List<JSONObject> results = new ArrayList<>();
+        for (Scenario scenario : scenarios.values()) results.add(scenario.toJson());
+
+        JSONObject report = new JSONObject();
+        report.put("profile", profile.name);
+        report.put("generatedAt", iso(System.currentTimeMillis()));
+        report.put("wallMs", wallMs);
+        report.put("dataset", dataset);
+        report.put("environment", environment);
+        report.put("scenarios", new JSONArray(results));
+
+        File file = new File(System.getProperty("loadHarness.report", "build/reports/load-harness/report.json"));
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + parent);
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), UTF8)) {
+            out.write(report.toString(2));
+            out.write('\n');
+        }
+        return file;
+    }
+}
@@ -0,0 +1,136 @@
+package com.tgatb.habittracker;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.MessageHandler;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginResult;
+
+import org.json.JSONException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls Capacitor plugin methods the way the bridge does, minus the WebView: each call gets
+ * a {@link PluginCall} whose resolve/reject lands in a mocked {@link MessageHandler}, and
+ * {@link #call} blocks until then, so methods that hop to a plugin executor are timed end
+ * to end.
+ */
+final class PluginHarness {
+    interface Method {
+        void invoke(PluginCall call);
+    }
+
+    static final class Response {
+        final JSObject data;
+        /** Reject message, or null when resolved. */
+        final String error;
+        final long nanos;
+        final long allocatedBytes;
+
+        Response(JSObject data, String error, long nanos, long allocatedBytes) {
+            this.data = data;
+            this.error = error;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        boolean ok() {
+            return error == null;
+        }
+    }
+
+    private static final class Pending {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile PluginResult result;
+        volatile PluginResult error;
+    }
+
+    private final Context context;
+    private final Bridge bridge;
+    private final MessageHandler handler;
+    private final AllocationMeter meter = AllocationMeter.create();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+    private int nextCallbackId;
+
+    PluginHarness(Context context, long timeoutMs) {
+        this.context = context;
+        this.timeoutMs = timeoutMs;
+        bridge = mock(Bridge.class);
+        when(bridge.getContext()).thenReturn(context);
+        handler = mock(MessageHandler.class);
+        doAnswer(invocation -> {
+            PluginCall call = invocation.getArgument(0);
+            Pending p = pending.remove(call.getCallbackId());
+            if (p != null) {
+                p.result = invocation.getArgument(1);
+                p.error = invocation.getArgument(2);
+                p.done.countDown();
+            }
+            return null;
+        }).when(handler).sendResponseMessage(any(), any(), any());
+    }
+
+    boolean measuresAllocations() {
+        return meter != null;
+    }
+
+    <P extends Plugin> P load(P plugin) {
+        plugin.setBridge(bridge);
+        plugin.load();
+        return plugin;
+    }
+
+    Context context() {
+        return context;
+    }
+
+    /**
+     * Invokes {@code method} and waits for its response. Latency and allocations (across all
+     * threads, so executor work counts) run from the invocation to the resolve or reject.
+     */
+    Response call(String pluginId, String methodName, Method method, JSObject data) {
+        String callbackId = Integer.toString(++nextCallbackId);
+        Pending p = new Pending();
+        pending.put(callbackId, p);
+        PluginCall call = new PluginCall(handler, pluginId, callbackId, methodName, data);
+
+        long allocatedBefore = meter != null ? meter.allThreads() : 0;
+        long start = System.nanoTime();
+        method.invoke(call);
+        try {
+            if (!p.done.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                pending.remove(callbackId);
+                throw new AssertionError(pluginId + "." + methodName + " did not respond within " + timeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = meter != null ? meter.allThreads() - allocatedBefore : -1;
+
+        try {
+            if (p.error != null) {
+                JSObject error = new JSObject(p.error.toString());
+                return new Response(null, error.optString("message", "rejected"), nanos, allocated);
+            }
+            JSObject resolved = p.result != null ? new JSObject(p.result.toString()) : new JSObject();
+            return new Response(resolved, null, nanos, allocated);
+        } catch (JSONException e) {
+            throw new AssertionError("Unparseable response from " + pluginId + "." + methodName, e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.tgatb.habittracker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Size-bounded LRU of web assets held in direct {@link ByteBuffer}s.
+ *
+ * Buffers are filled once (during the splash) and then only read through duplicates, so
+ * concurrent requests for the same asset never copy or contend beyond the LRU lookup.
+ * A {@code .gz} sibling is preferred when the APK ships one: the smaller file is read and
+ * inflated once, and responses are served decoded.
+ */
+public final class AssetCache {
+    static final long DEFAULT_MAX_BYTES = 12L * 1024 * 1024;
+    /** Single assets above this are streamed as usual rather than pinned in memory. */
+    static final int MAX_ENTRY_BYTES = 2 * 1024 * 1024;
+    static final String GZIP_SUFFIX = ".gz";
+
+    /** Opens an asset by web path ({@code /_next/...}); throws if it does not exist. */
+    public interface Source {
+        InputStream open(String path) throws IOException;
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong precompressedLoads = new AtomicLong();
+
+    public AssetCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Read-only view positioned at the start, or null on a miss. Updates the counters. */
+    public ByteBuffer get(String path) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = entries.get(path);
+        }
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        bytesServed.addAndGet(buffer.capacity());
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public synchronized boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    /** Copies {@code data} into a direct buffer and evicts least-recently used entries to fit. */
+    public boolean put(String path, byte[] data, int length) {
+        if (length > MAX_ENTRY_BYTES || length > maxBytes) return false;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        buffer.put(data, 0, length);
+        buffer.flip();
+        synchronized (this) {
+            ByteBuffer previous = entries.put(path, buffer);
+            if (previous != null) totalBytes -= previous.capacity();
+            totalBytes += length;
+            Iterator<Map.Entry<String, ByteBuffer>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, ByteBuffer> eldest = it.next();
+                if (eldest.getKey().equals(path)) continue;
+                totalBytes -= eldest.getValue().capacity();
+                it.remove();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads {@code paths} in order until the next one no longer fits the budget. Returns
+     * how many were cached; missing or oversized assets are skipped.
+     */
+    public int warm(Iterable<String> paths, Source source) {
+        int loaded = 0;
+        byte[] scratch = new byte[64 * 1024];
+        for (String path : paths) {
+            if (contains(path)) continue;
+            try {
+                ByteArrayOutputStream bytes = read(path, source, scratch);
+                if (bytes == null) continue;
+                synchronized (this) {
+                    // Paths arrive hottest first; never evict them to make room for colder ones.
+                    if (totalBytes + bytes.size() > maxBytes) break;
+                }
+                if (put(path, bytes.toByteArray(), bytes.size())) loaded++;
+            } catch (IOException ignored) {
+                // Not in the APK (stale hot set); the bridge will serve or 404 it as before.
+            }
+        }
+        return loaded;
+    }
+
+    private ByteArrayOutputStream read(String path, Source source, byte[] scratch) throws IOException {
+        InputStream in;
+        try {
+            in = new GZIPInputStream(source.open(path + GZIP_SUFFIX), scratch.length);
+            precompressedLoads.incrementAndGet();
+        } catch (FileNotFoundException e) {
+            in = source.open(path);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            int n;
+            while ((n = in.read(scratch)) > 0) {
+                out.write(scratch, 0, n);
+                if (out.size() > MAX_ENTRY_BYTES) return null;
+            }
+            return out;
+        } finally {
+            in.close();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0L;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long bytesServed() {
+        return bytesServed.get();
+    }
+
+    public long precompressedLoads() {
+        return precompressedLoads.get();
+    }
+
+    /** Streams a buffer without copying it to the heap. */
+    public static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        public BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + k);
+            return k;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.os.SystemClock;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@CapacitorPlugin(name = "AssetCache")
+public class AssetCachePlugin extends Plugin {
+    private static final String ASSET_ROOT = "public";
+    private static final String HOT_SET_FILE = "hot_assets.txt";
+    /** Stop learning the hot set this long after warming started even if JS never reports ready. */
+    private static final long RECORD_WINDOW_MS = 15_000L;
+
+    private static final AssetCache CACHE = new AssetCache(AssetCache.DEFAULT_MAX_BYTES);
+    private static final AssetHotSet HOT_SET = new AssetHotSet();
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static volatile Context appContext;
+    private static volatile long warmStartedAt = -1L;
+    private static volatile long warmMs = -1L;
+    private static volatile int warmedCount;
+
+    public static AssetCache cache() {
+        return CACHE;
+    }
+
+    /**
+     * Fills the cache from last launch's hot set (or the hot part of the asset manifest on
+     * first run). Called from MainActivity before the bridge starts so it overlaps the splash.
+     */
+    public static void warm(Context context) {
+        final Context app = context.getApplicationContext();
+        if (appContext != null) return;
+        appContext = app;
+        warmStartedAt = SystemClock.uptimeMillis();
+        EXECUTOR.execute(() -> {
+            int span = StartupTracePlugin.begin("assetCacheWarm");
+            List<String> paths = AssetHotSet.read(hotSetFile(app));
+            if (paths.isEmpty()) {
+                paths = manifestHotSet(app);
+            }
+            final AssetManager assets = app.getAssets();
+            warmedCount = CACHE.warm(paths, path -> assets.open(ASSET_ROOT + path));
+            warmMs = SystemClock.uptimeMillis() - warmStartedAt;
+            StartupTracePlugin.end(span);
+        });
+    }
+
+    /** Called by the WebView client for every cacheable request; learns the next hot set. */
+    static void recordRequest(String path) {
+        if (HOT_SET.isFrozen()) return;
+        HOT_SET.record(path);
+        if (StartupTracePlugin.tracer().isFinished()
+                || SystemClock.uptimeMillis() - warmStartedAt > RECORD_WINDOW_MS) {
+            persistHotSet();
+        }
+    }
+
+    private static void persistHotSet() {
+        final List<String> paths = HOT_SET.freeze();
+        final Context app = appContext;
+        if (paths == null || app == null || paths.isEmpty()) return;
+        EXECUTOR.execute(() -> {
+            try {
+                AssetHotSet.write(hotSetFile(app), paths);
+            } catch (Exception ignored) {
+                // Next launch falls back to the manifest.
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("hits", CACHE.hits());
+        ret.put("misses", CACHE.misses());
+        ret.put("bytesServed", CACHE.bytesServed());
+        ret.put("entries", CACHE.size());
+        ret.put("bytes", CACHE.totalBytes());
+        ret.put("maxBytes", CACHE.maxBytes());
+        ret.put("precompressedLoads", CACHE.precompressedLoads());
+        ret.put("warmedCount", warmedCount);
+        ret.put("warmMs", warmMs);
+        call.resolve(ret);
+    }
+
+    /** Drops cached buffers and the learned hot set; the next launch relearns it. */
+    @PluginMethod
+    public void clear(PluginCall call) {
+        CACHE.clear();
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            hotSetFile(app).delete();
+            call.resolve();
+        });
+    }
+
+    /** Content type for assets worth caching; null for everything the bridge should serve. */
+    static String mimeType(String path) {
+        if (path == null) return null;
+        if (path.endsWith(".js") || path.endsWith(".mjs")) return "application/javascript";
+        if (path.endsWith(".css")) return "text/css";
+        if (path.endsWith(".woff2")) return "font/woff2";
+        if (path.endsWith(".woff")) return "font/woff";
+        if (path.endsWith(".ttf")) return "font/ttf";
+        if (path.endsWith(".json")) return "application/json";
+        if (path.endsWith(".svg")) return "image/svg+xml";
+        return null;
+    }
+
+    private static List<String> manifestHotSet(Context context) {
+        List<String> css = new ArrayList<>();
+        List<String> fonts = new ArrayList<>();
+        List<String> scripts = new ArrayList<>();
+        try (InputStream in = context.getAssets().open(ASSET_ROOT + "/" + WebAssetManifest.FILE_NAME)) {
+            for (WebAssetManifest.Entry entry : WebAssetManifest.parse(in).entries()) {
+                String path = entry.path;
+                if (!path.startsWith("/_next/static/") || entry.size > AssetCache.MAX_ENTRY_BYTES) continue;
+                if (path.endsWith(".css")) css.add(path);
+                else if (path.endsWith(".woff2")) fonts.add(path);
+                else if (path.endsWith(".js")) scripts.add(path);
+            }
+        } catch (Exception ignored) {
+            // No manifest: start cold and learn the set from this launch.
+        }
+        List<String> ordered = new ArrayList<>(css.size() + fonts.size() + scripts.size());
+        ordered.addAll(css);
+        ordered.addAll(fonts);
+        ordered.addAll(scripts);
+        return ordered;
+    }
+
+    private static File hotSetFile(Context context) {
+        return new File(new File(context.getFilesDir(), "web_assets"), HOT_SET_FILE);
+    }
+}
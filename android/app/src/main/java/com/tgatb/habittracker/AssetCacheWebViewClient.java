@@ -0,0 +1,58 @@
+package com.tgatb.habittracker;
+
+import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves warmed assets from {@link AssetCache} before falling back to Capacitor's local
+ * server. Only immutable static types are intercepted; HTML keeps going through the
+ * bridge so its script injection still happens.
+ */
+public class AssetCacheWebViewClient extends BridgeWebViewClient {
+    private final String localHost;
+
+    public AssetCacheWebViewClient(Bridge bridge) {
+        super(bridge);
+        this.localHost = Uri.parse(bridge.getLocalUrl()).getHost();
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        WebResourceResponse cached = serveCached(request);
+        return cached != null ? cached : super.shouldInterceptRequest(view, request);
+    }
+
+    private WebResourceResponse serveCached(WebResourceRequest request) {
+        Uri url = request.getUrl();
+        if (!"GET".equals(request.getMethod()) || url == null || localHost == null
+                || !localHost.equals(url.getHost())) {
+            return null;
+        }
+        String path = url.getPath();
+        String mime = AssetCachePlugin.mimeType(path);
+        if (mime == null || request.getRequestHeaders().containsKey("Range")) {
+            return null;
+        }
+        AssetCachePlugin.recordRequest(path);
+        ByteBuffer buffer = AssetCachePlugin.cache().get(path);
+        if (buffer == null) {
+            return null;
+        }
+        Map<String, String> headers = new HashMap<>(4);
+        headers.put("Cache-Control", "no-cache");
+        headers.put("Content-Length", Integer.toString(buffer.remaining()));
+        String encoding = mime.startsWith("text/") || mime.endsWith("javascript") || mime.endsWith("json")
+                ? "utf-8" : null;
+        return new WebResourceResponse(mime, encoding, 200, "OK", headers,
+                new AssetCache.BufferInputStream(buffer));
+    }
+}
@@ -0,0 +1,73 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Assets requested during startup, in first-request order, learned from the previous
+ * launch. Recording stops at {@link #freeze}, which returns the set to persist.
+ */
+public final class AssetHotSet {
+    static final int MAX_PATHS = 256;
+
+    private final Set<String> recorded = new LinkedHashSet<>();
+    private boolean frozen;
+
+    public synchronized void record(String path) {
+        if (!frozen && recorded.size() < MAX_PATHS) {
+            recorded.add(path);
+        }
+    }
+
+    public synchronized boolean isFrozen() {
+        return frozen;
+    }
+
+    /** Stops recording; returns the recorded paths the first time, null afterwards. */
+    public synchronized List<String> freeze() {
+        if (frozen) return null;
+        frozen = true;
+        return new ArrayList<>(recorded);
+    }
+
+    public static List<String> read(File file) {
+        if (!file.exists()) return Collections.emptyList();
+        List<String> paths = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            String line;
+            while ((line = in.readLine()) != null && paths.size() < MAX_PATHS) {
+                if (line.startsWith("/")) paths.add(line);
+            }
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        return paths;
+    }
+
+    public static void write(File file, List<String> paths) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8")) {
+            for (String path : paths) {
+                out.write(path);
+                out.write('\n');
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+}
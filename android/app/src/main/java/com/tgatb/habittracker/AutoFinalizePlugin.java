@@ -0,0 +1,181 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@CapacitorPlugin(name = "AutoFinalize")
+public class AutoFinalizePlugin extends Plugin {
+    static final String PREFS_NAME = "tgatb_native_state";
+    static final String PREF_ACTIVE_SCOPE = "active_scope";
+    private static final String EVENT_FINALIZED = "autoFinalized";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
+    private static volatile AutoFinalizePlugin instance;
+    private static volatile JSObject lastSummary;
+    /**
+     * Logs written by passes since the WebView last collected them through {@link #run},
+     * per scope. A pass that runs before the bridge is up (see {@link #schedule}) has no
+     * one to tell, and later passes find those days already finalized.
+     */
+    private static final Map<String, List<HabitLogStore.Entry>> PENDING = new HashMap<>();
+
+    @Override
+    public void load() {
+        instance = this;
+    }
+
+    /**
+     * Starts a backfill pass on the background executor. Called from MainActivity so
+     * returning users get finalized logs without waiting for the JS bundle. Overlapping
+     * requests coalesce into the pass already running.
+     */
+    public static void schedule(Context context) {
+        final Context app = context.getApplicationContext();
+        if (!RUNNING.compareAndSet(false, true)) return;
+        EXECUTOR.execute(() -> {
+            try {
+                runOnce(app);
+            } finally {
+                RUNNING.set(false);
+            }
+        });
+    }
+
+    /** Mirrors the JS habit list so the next native pass finalizes the right habits. */
+    @PluginMethod
+    public void syncHabits(PluginCall call) {
+        JSArray habits = call.getArray("habits");
+        if (habits == null) {
+            call.reject("habits is required");
+            return;
+        }
+        String scope = call.getString("scope", HabitLogStorePlugin.DEFAULT_SCOPE);
+        try {
+            TimeZone zone = TimeZone.getDefault();
+            List<HabitSnapshot.Habit> list = new ArrayList<>(habits.length());
+            for (int i = 0; i < habits.length(); i++) {
+                JSONObject habit = habits.getJSONObject(i);
+                list.add(new HabitSnapshot.Habit(
+                        habit.getString("id"),
+                        habit.optString("name", ""),
+                        "bad".equals(habit.optString("type")),
+                        EpochDays.fromMillis(habit.getLong("createdAt"), zone),
+                        StreakEnginePlugin.scheduleOf(habit)
+                ));
+            }
+            HabitSnapshot snapshot = new HabitSnapshot(list);
+            snapshot.write(snapshotFile(getContext(), scope));
+            HabitLogStorePlugin.rollupFor(getContext(), scope).setHabits(snapshot);
+            prefs(getContext()).edit().putString(PREF_ACTIVE_SCOPE, scope).apply();
+            call.resolve();
+        } catch (Exception e) {
+            call.reject("Failed to sync habits: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@code {scope?}} runs a pass for {@code scope} (default: the scope of the last
+     * {@link #syncHabits}). Unlike the {@code autoFinalized} event, the summary's
+     * {@code logs} also holds the logs of earlier passes not collected yet.
+     */
+    @PluginMethod
+    public void run(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        final String scope = call.getString("scope");
+        if (scope != null) prefs(app).edit().putString(PREF_ACTIVE_SCOPE, scope).apply();
+        EXECUTOR.execute(() -> {
+            JSObject summary = runOnce(app);
+            if (summary == null) {
+                call.reject("Auto-finalization failed");
+                return;
+            }
+            List<HabitLogStore.Entry> pending;
+            synchronized (PENDING) {
+                pending = PENDING.remove(summary.getString("scope"));
+            }
+            summary.put("logs", toJson(pending));
+            call.resolve(summary);
+        });
+    }
+
+    @PluginMethod
+    public void getLastSummary(PluginCall call) {
+        JSObject summary = lastSummary;
+        call.resolve(summary != null ? summary : new JSObject());
+    }
+
+    static File snapshotFile(Context context, String scope) {
+        return new File(HabitLogStorePlugin.storeDir(context, scope), HabitLogStorePlugin.sanitizeScope(scope) + ".habits");
+    }
+
+    static String activeScope(Context context) {
+        return prefs(context).getString(PREF_ACTIVE_SCOPE, HabitLogStorePlugin.DEFAULT_SCOPE);
+    }
+
+    private static JSArray toJson(List<HabitLogStore.Entry> logs) {
+        JSArray out = new JSArray();
+        if (logs != null) {
+            for (HabitLogStore.Entry log : logs) out.put(HabitLogStorePlugin.toJson(log));
+        }
+        return out;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static JSObject runOnce(Context context) {
+        try {
+            String scope = activeScope(context);
+            HabitSnapshot snapshot = HabitSnapshot.read(snapshotFile(context, scope));
+            HabitLogStore store = HabitLogStorePlugin.storeFor(context, scope);
+            int today = EpochDays.today();
+            AutoFinalizer.Summary result = AutoFinalizer.run(snapshot, store, today, TimeZone.getDefault());
+
+            JSObject summary = new JSObject();
+            summary.put("scope", scope);
+            summary.put("today", EpochDays.format(result.today));
+            summary.put("habitsScanned", result.habitsScanned);
+            summary.put("logsCreated", result.logsCreated);
+            summary.put("durationMs", result.durationMs);
+            summary.put("logs", toJson(result.logs));
+            lastSummary = summary;
+            if (!result.logs.isEmpty()) {
+                synchronized (PENDING) {
+                    List<HabitLogStore.Entry> pending = PENDING.get(scope);
+                    if (pending == null) PENDING.put(scope, pending = new ArrayList<>());
+                    pending.addAll(result.logs);
+                }
+            }
+
+            AutoFinalizePlugin plugin = instance;
+            if (plugin != null) {
+                // Retained so a listener attached after boot still receives the result.
+                plugin.notifyListeners(EVENT_FINALIZED, summary, true);
+            }
+            return summary;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tgatb.habittracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Native counterpart of {@code computeAutoLogs} in lib/auto-finalize.ts.
+ *
+ * Walks each habit from createdAt to yesterday in 64-day schedule words instead of
+ * per-day Date objects, and writes the missing expected days to the log store in one batch.
+ * Same guarantees as the JS version: today is never finalized, a day that already has a
+ * log is never touched, and missed bad habits are recorded as completed (indulged).
+ * Log ids are derived from habit and day ({@link #autoId}), so a day finalized twice, here
+ * or after a store rebuild, always yields the same log.
+ */
+public final class AutoFinalizer {
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    public static final class Summary {
+        public final int habitsScanned;
+        public final int logsCreated;
+        public final int today;
+        public final long durationMs;
+        /** The logs written, in the order they were computed. */
+        public final List<HabitLogStore.Entry> logs;
+
+        Summary(int habitsScanned, List<HabitLogStore.Entry> logs, int today, long durationMs) {
+            this.habitsScanned = habitsScanned;
+            this.logsCreated = logs.size();
+            this.today = today;
+            this.durationMs = durationMs;
+            this.logs = logs;
+        }
+    }
+
+    private AutoFinalizer() {}
+
+    /** Id of the auto log for {@code habitId} on {@code epochDay}. */
+    public static String autoId(String habitId, int epochDay) {
+        return "auto-" + habitId + "-" + EpochDays.format(epochDay);
+    }
+
+    /** Pure computation of the backfill logs; nothing is written. */
+    public static List<HabitLogStore.Entry> compute(HabitSnapshot snapshot, HabitLogStore store,
+                                                    int today, TimeZone zone) {
+        List<HabitLogStore.Entry> out = new ArrayList<>();
+        for (HabitSnapshot.Habit habit : snapshot.habits) {
+            HabitSchedule schedule = habit.schedule;
+            for (int first = habit.createdDay; first < today; first += 64) {
+                long expected = schedule.word(first);
+                int span = today - first;
+                if (span < 64) expected &= (1L << span) - 1; // stop before today
+                while (expected != 0) {
+                    int day = first + Long.numberOfTrailingZeros(expected);
+                    expected &= expected - 1;
+                    if (store.contains(habit.id, day)) continue;
+                    out.add(new HabitLogStore.Entry(
+                            autoId(habit.id, day),
+                            habit.id,
+                            day,
+                            habit.bad,
+                            EpochDays.startOfDayMillis(day + 1, zone) - MILLIS_PER_SECOND,
+                            "auto"
+                    ));
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Computes and persists the backfill, returning what was done. */
+    public static Summary run(HabitSnapshot snapshot, HabitLogStore store, int today, TimeZone zone)
+            throws IOException {
+        long start = System.nanoTime();
+        List<HabitLogStore.Entry> logs;
+        synchronized (store) {
+            logs = compute(snapshot, store, today, zone);
+            if (!logs.isEmpty()) {
+                store.putAll(logs);
+                store.flush();
+            }
+        }
+        long durationMs = (System.nanoTime() - start) / 1_000_000L;
+        return new Summary(snapshot.habits.size(), logs, today, durationMs);
+    }
+}
@@ -0,0 +1,27 @@
+package com.tgatb.habittracker;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Remote store for {@link DeltaBackup}: content-addressed chunk blobs plus one manifest.
+ * {@link DriveTransport} talks to Google Drive; tests use an in-memory stand-in.
+ */
+public interface BackupTransport {
+    /** Every stored chunk, chunk id to remote file id. */
+    Map<String, String> listChunks() throws IOException;
+
+    /** Stores a compressed chunk and returns its remote file id. */
+    String putChunk(String chunkId, byte[] compressed) throws IOException;
+
+    byte[] getChunk(String remoteId) throws IOException;
+
+    /** Deletes a stored chunk; one that is already gone is not an error. */
+    void deleteChunk(String remoteId) throws IOException;
+
+    /** Replaces the manifest; written last so a partial upload never becomes visible. */
+    void putManifest(byte[] manifest) throws IOException;
+
+    /** Current manifest, or null when no chunked backup exists. */
+    byte[] getManifest() throws IOException;
+}
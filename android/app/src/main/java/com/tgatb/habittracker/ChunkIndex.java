@@ -0,0 +1,87 @@
+package com.tgatb.habittracker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local record of chunks already uploaded (chunk id to remote file id), so a backup only
+ * lists the remote folder when the index is empty or a full check is requested.
+ *
+ * Stored as {@code <chunkId> <remoteId>} lines; new chunks are appended, and a torn last
+ * line after a crash is ignored (the chunk is simply uploaded again).
+ */
+public final class ChunkIndex {
+    private final File file;
+    private final Map<String, String> entries = new HashMap<>();
+
+    public ChunkIndex(File file) throws IOException {
+        this.file = file;
+        if (!file.exists()) return;
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), ExportStream.UTF_8)) {
+            char[] buffer = new char[8192];
+            int n;
+            while ((n = reader.read(buffer)) > 0) {
+                text.append(buffer, 0, n);
+            }
+        }
+        int start = 0;
+        int newline;
+        // Only newline-terminated lines count; a torn tail is dropped.
+        while ((newline = text.indexOf("\n", start)) >= 0) {
+            int space = text.indexOf(" ", start);
+            if (space > start && space < newline - 1) {
+                entries.put(text.substring(start, space), text.substring(space + 1, newline));
+            }
+            start = newline + 1;
+        }
+    }
+
+    public synchronized String remoteId(String chunkId) {
+        return entries.get(chunkId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Map<String, String> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(entries));
+    }
+
+    public synchronized void add(String chunkId, String remoteId) throws IOException {
+        ensureDir();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), ExportStream.UTF_8)) {
+            out.write(chunkId + " " + remoteId + "\n");
+        }
+        entries.put(chunkId, remoteId);
+    }
+
+    /** Replaces the index with the remote listing (drops chunks deleted remotely). */
+    public synchronized void replaceAll(Map<String, String> remote) throws IOException {
+        ensureDir();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), ExportStream.UTF_8)) {
+            for (Map.Entry<String, String> entry : remote.entrySet()) {
+                out.write(entry.getKey() + " " + entry.getValue() + "\n");
+            }
+        }
+        if (!tmp.renameTo(file)) throw new IOException("Cannot replace " + file);
+        entries.clear();
+        entries.putAll(remote);
+    }
+
+    private void ensureDir() throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+    }
+}
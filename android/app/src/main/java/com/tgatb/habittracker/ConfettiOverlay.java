@@ -0,0 +1,142 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * Transparent surface above the WebView that draws a {@link ConfettiSimulation}, one step
+ * per {@link Choreographer} frame on the UI thread. Kept GONE (no surface, nothing to
+ * composite) except while pieces are in flight. It never takes touches, so the celebration
+ * dialog underneath stays interactive.
+ */
+final class ConfettiOverlay extends SurfaceView implements SurfaceHolder.Callback, Choreographer.FrameCallback {
+    private static final float MAX_STEP_S = 1f / 20f;
+
+    private final ConfettiSimulation simulation = new ConfettiSimulation(System.nanoTime());
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float density;
+    private boolean surfaceReady;
+    private boolean running;
+    private int pendingCount;
+    private int surfaceWidth;
+    private int surfaceHeight;
+    private long lastFrameNanos;
+
+    ConfettiOverlay(Context context) {
+        super(context);
+        density = context.getResources().getDisplayMetrics().density;
+        setZOrderOnTop(true);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+        setFocusable(false);
+        setClickable(false);
+        setImportantForAccessibility(IMPORTANT_FOR_ACCESSIBILITY_NO);
+        setVisibility(GONE);
+    }
+
+    /** UI thread. Queues {@code count} pieces; they start with the next frame once the surface exists. */
+    void celebrate(int count) {
+        pendingCount += count;
+        if (getVisibility() != VISIBLE) {
+            setVisibility(VISIBLE);
+        } else if (surfaceReady) {
+            startPending();
+        }
+    }
+
+    /** UI thread. Drops every piece and hides the surface. */
+    void cancel() {
+        pendingCount = 0;
+        simulation.clear();
+        stop();
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        surfaceReady = true;
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        surfaceWidth = width;
+        surfaceHeight = height;
+        startPending();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        surfaceReady = false;
+        // Backgrounded mid-celebration: the moment has passed.
+        cancel();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        float dt = lastFrameNanos == 0 ? 1f / 60f : Math.min(MAX_STEP_S, (frameTimeNanos - lastFrameNanos) / 1e9f);
+        lastFrameNanos = frameTimeNanos;
+        int alive = simulation.step(dt);
+        draw(alive);
+        if (alive > 0) {
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            stop();
+        }
+    }
+
+    private void startPending() {
+        if (!surfaceReady || pendingCount == 0 || surfaceWidth == 0) return;
+        simulation.burst(pendingCount, surfaceWidth, surfaceHeight, density);
+        pendingCount = 0;
+        if (!running) {
+            running = true;
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void stop() {
+        if (running) Choreographer.getInstance().removeFrameCallback(this);
+        running = false;
+        if (surfaceReady) draw(0);
+        if (pendingCount == 0) setVisibility(GONE);
+    }
+
+    private void draw(int alive) {
+        SurfaceHolder holder = getHolder();
+        Canvas canvas;
+        try {
+            canvas = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ? holder.lockHardwareCanvas() : holder.lockCanvas();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            // Surface went away between frames.
+            return;
+        }
+        if (canvas == null) return;
+        try {
+            canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            for (int i = 0; i < alive; i++) {
+                float alpha = simulation.alpha(i);
+                if (alpha <= 0f) continue;
+                float half = simulation.width(i) / 2f;
+                paint.setColor(simulation.color(i));
+                paint.setAlpha((int) (alpha * 255));
+                canvas.save();
+                canvas.translate(simulation.x(i), simulation.y(i));
+                canvas.rotate(simulation.angle(i));
+                canvas.scale(1f, simulation.flip(i));
+                canvas.drawRect(-half, -half * 1.5f, half, half * 1.5f, paint);
+                canvas.restore();
+            }
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+}
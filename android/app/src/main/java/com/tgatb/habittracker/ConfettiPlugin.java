@@ -0,0 +1,78 @@
+package com.tgatb.habittracker;
+
+import android.app.Activity;
+import android.provider.Settings;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Celebration confetti drawn natively above the WebView, so the moment does not compete
+ * with DOM work for frames.
+ */
+@CapacitorPlugin(name = "Confetti")
+public class ConfettiPlugin extends Plugin {
+    // Only touched on the UI thread.
+    private static WeakReference<ConfettiOverlay> overlay = new WeakReference<>(null);
+
+    /** Called from MainActivity.onCreate once the bridge WebView exists. */
+    public static void install(Activity activity, WebView webView) {
+        if (!(webView.getParent() instanceof ViewGroup)) return;
+        ViewGroup parent = (ViewGroup) webView.getParent();
+        ConfettiOverlay view = new ConfettiOverlay(activity);
+        parent.addView(view, parent.indexOfChild(webView) + 1,
+                new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        overlay = new WeakReference<>(view);
+    }
+
+    /**
+     * Starts a burst sized by {@code count}, or by the {@code intensity} setting. Motion
+     * "reduced", or "system" with animations turned off, shows nothing.
+     */
+    @PluginMethod
+    public void celebrate(PluginCall call) {
+        String motion = call.getString("motion", "system");
+        Integer requested = call.getInt("count");
+        int count = requested != null ? requested : ConfettiSimulation.countFor(call.getString("intensity"));
+        boolean reduced = "reduced".equals(motion) || (!"full".equals(motion) && animationsDisabled());
+        Activity activity = getActivity();
+        boolean shown = !reduced && count > 0 && activity != null && overlay.get() != null;
+        if (shown) {
+            final int n = Math.min(count, ConfettiSimulation.CAPACITY);
+            activity.runOnUiThread(() -> {
+                ConfettiOverlay view = overlay.get();
+                if (view != null) view.celebrate(n);
+            });
+        }
+        JSObject ret = new JSObject();
+        ret.put("shown", shown);
+        ret.put("count", shown ? Math.min(count, ConfettiSimulation.CAPACITY) : 0);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        Activity activity = getActivity();
+        if (activity != null) {
+            activity.runOnUiThread(() -> {
+                ConfettiOverlay view = overlay.get();
+                if (view != null) view.cancel();
+            });
+        }
+        call.resolve();
+    }
+
+    /** The system-wide "remove animations" switch, which the WebView reports as reduced motion. */
+    private boolean animationsDisabled() {
+        float scale = Settings.Global.getFloat(getContext().getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        return scale == 0f;
+    }
+}
@@ -0,0 +1,175 @@
+package com.tgatb.habittracker;
+
+/**
+ * Confetti particle system behind the native celebration overlay. Particles live in a fixed
+ * pool of parallel arrays; {@link #burst} fills free slots and {@link #step} advances and
+ * retires them by swapping the last live particle into the hole, so a frame never allocates.
+ *
+ * Positions are pixels; physics constants are in dp and scaled by the burst's density. The
+ * look follows the WebView version: lanes across the width, a staggered start of up to
+ * 0.6 s, the same five colors, fading out as each piece leaves.
+ *
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class ConfettiSimulation {
+    public static final int CAPACITY = 256;
+    static final int[] PALETTE = {0xFF22C55E, 0xFF60A5FA, 0xFFF59E0B, 0xFFF43F5E, 0xFFA855F7};
+
+    private static final float GRAVITY_DP = 900f;
+    /** Linear drag per second; terminal velocity is GRAVITY_DP / DRAG. */
+    private static final float DRAG = 1.6f;
+    private static final float SWAY_DP = 36f;
+    private static final float MAX_DELAY_S = 0.6f;
+    private static final float FADE_IN_S = 0.1f;
+    private static final float FADE_OUT_S = 0.4f;
+    private static final float TWO_PI = (float) (2 * Math.PI);
+
+    private final float[] x = new float[CAPACITY];
+    private final float[] y = new float[CAPACITY];
+    private final float[] vx = new float[CAPACITY];
+    private final float[] vy = new float[CAPACITY];
+    private final float[] angle = new float[CAPACITY];
+    private final float[] spin = new float[CAPACITY];
+    private final float[] phase = new float[CAPACITY];
+    private final float[] phaseSpeed = new float[CAPACITY];
+    private final float[] width = new float[CAPACITY];
+    private final float[] age = new float[CAPACITY];
+    private final float[] ttl = new float[CAPACITY];
+    private final int[] color = new int[CAPACITY];
+    private int alive;
+    private long seed;
+    private float density = 1f;
+    private float bottom;
+
+    public ConfettiSimulation(long seed) {
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /** Confetti pieces for a {@code celebrationConfettiIntensity} setting, as in the WebView. */
+    public static int countFor(String intensity) {
+        if ("low".equals(intensity)) return 18;
+        if ("high".equals(intensity)) return 52;
+        return 32;
+    }
+
+    /** Adds up to {@code count} pieces falling across a surface; returns how many fit the pool. */
+    public int burst(int count, float widthPx, float heightPx, float density) {
+        int n = Math.max(0, Math.min(count, CAPACITY - alive));
+        this.density = density > 0 ? density : 1f;
+        bottom = heightPx;
+        float d = this.density;
+        for (int k = 0; k < n; k++) {
+            int i = alive++;
+            float lane = (k + 0.5f) / n * widthPx;
+            float jitter = (nextFloat() - 0.5f) * 0.08f * widthPx;
+            x[i] = Math.max(0.02f * widthPx, Math.min(0.98f * widthPx, lane + jitter));
+            y[i] = -(8f + nextFloat() * 40f) * d;
+            vx[i] = (nextFloat() - 0.5f) * 120f * d;
+            vy[i] = nextFloat() * 160f * d;
+            angle[i] = nextFloat() * 360f;
+            spin[i] = (nextFloat() - 0.5f) * 720f;
+            phase[i] = nextFloat() * TWO_PI;
+            phaseSpeed[i] = 4f + nextFloat() * 6f;
+            width[i] = (6f + nextFloat() * 4f) * d;
+            age[i] = -nextFloat() * MAX_DELAY_S;
+            ttl[i] = 2.2f + nextFloat();
+            color[i] = PALETTE[k % PALETTE.length];
+        }
+        return n;
+    }
+
+    /** Advances every piece by {@code dt} seconds; returns how many are still alive. */
+    public int step(float dt) {
+        float gravity = GRAVITY_DP * density;
+        float sway = SWAY_DP * density;
+        float drag = Math.max(0f, 1f - DRAG * dt);
+        for (int i = alive - 1; i >= 0; i--) {
+            float a = age[i] + dt;
+            age[i] = a;
+            if (a < 0f) continue;
+            vy[i] = (vy[i] + gravity * dt) * drag;
+            vx[i] *= drag;
+            phase[i] += phaseSpeed[i] * dt;
+            if (phase[i] > TWO_PI) phase[i] -= TWO_PI;
+            x[i] += (vx[i] + (float) Math.sin(phase[i]) * sway) * dt;
+            y[i] += vy[i] * dt;
+            angle[i] += spin[i] * dt;
+            if (a >= ttl[i] || y[i] - width[i] * 2 > bottom) remove(i);
+        }
+        return alive;
+    }
+
+    public void clear() {
+        alive = 0;
+    }
+
+    public int alive() {
+        return alive;
+    }
+
+    public boolean isIdle() {
+        return alive == 0;
+    }
+
+    public float x(int i) {
+        return x[i];
+    }
+
+    public float y(int i) {
+        return y[i];
+    }
+
+    public float angle(int i) {
+        return angle[i];
+    }
+
+    /** Piece width; pieces are 1.5 times as tall. */
+    public float width(int i) {
+        return width[i];
+    }
+
+    /** Vertical scale of the flutter, -1..1, as the piece turns over. */
+    public float flip(int i) {
+        return (float) Math.cos(phase[i]);
+    }
+
+    public int color(int i) {
+        return color[i];
+    }
+
+    /** 0 while the piece waits for its start, fading in and out around its lifetime. */
+    public float alpha(int i) {
+        float a = age[i];
+        if (a <= 0f) return 0f;
+        if (a < FADE_IN_S) return a / FADE_IN_S;
+        float left = ttl[i] - a;
+        return left < FADE_OUT_S ? Math.max(0f, left / FADE_OUT_S) : 1f;
+    }
+
+    private void remove(int i) {
+        int last = --alive;
+        if (i == last) return;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        angle[i] = angle[last];
+        spin[i] = spin[last];
+        phase[i] = phase[last];
+        phaseSpeed[i] = phaseSpeed[last];
+        width[i] = width[last];
+        age[i] = age[last];
+        ttl[i] = ttl[last];
+        color[i] = color[last];
+    }
+
+    /** xorshift64*, top 24 bits. */
+    private float nextFloat() {
+        long s = seed;
+        s ^= s >>> 12;
+        s ^= s << 25;
+        s ^= s >>> 27;
+        seed = s;
+        return ((s * 0x2545F4914F6CDD1DL) >>> 40) * 0x1.0p-24f;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tgatb.habittracker;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-defined chunking with a Gear rolling hash (FastCDC-style normalized cut points).
+ *
+ * A boundary depends only on the bytes just before it, so inserting or appending records
+ * in the export shifts at most the chunks around the edit; everything else hashes to the
+ * same chunk ids as the previous backup. Memory is one buffer of {@link #maxSize} bytes.
+ */
+public final class ContentChunker {
+    public static final int DEFAULT_MIN = 2 * 1024;
+    public static final int DEFAULT_AVG = 8 * 1024;
+    public static final int DEFAULT_MAX = 64 * 1024;
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // Fixed seed: the table is part of the chunk format and must never change.
+        long seed = 0x7467617462636463L;
+        for (int i = 0; i < GEAR.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    public interface Sink {
+        void chunk(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    final int minSize;
+    final int avgSize;
+    final int maxSize;
+    /** Harder to match before the average size, easier after, which narrows the size spread. */
+    private final long maskSmall;
+    private final long maskLarge;
+
+    public ContentChunker() {
+        this(DEFAULT_MIN, DEFAULT_AVG, DEFAULT_MAX);
+    }
+
+    public ContentChunker(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || avgSize <= minSize || maxSize <= avgSize || Integer.bitCount(avgSize) != 1) {
+            throw new IllegalArgumentException("Need 0 < min < avg < max with avg a power of two");
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = Integer.numberOfTrailingZeros(avgSize);
+        maskSmall = spreadMask(bits + 2);
+        maskLarge = spreadMask(bits - 2);
+    }
+
+    /** Splits {@code in} and hands each chunk to {@code sink}; the buffer is reused between calls. */
+    public void split(InputStream in, Sink sink) throws IOException {
+        byte[] buffer = new byte[maxSize];
+        int filled = 0;
+        boolean eof = false;
+        while (true) {
+            while (!eof && filled < maxSize) {
+                int n = in.read(buffer, filled, maxSize - filled);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    filled += n;
+                }
+            }
+            if (filled == 0) return;
+            int cut = cutPoint(buffer, filled);
+            sink.chunk(buffer, 0, cut);
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+        }
+    }
+
+    /** Length of the first chunk in {@code data[0, length)}. */
+    int cutPoint(byte[] data, int length) {
+        if (length <= minSize) return length;
+        int end = Math.min(length, maxSize);
+        int normal = Math.min(end, avgSize);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xff];
+            if ((hash & maskSmall) == 0) return i + 1;
+        }
+        for (; i < end; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xff];
+            if ((hash & maskLarge) == 0) return i + 1;
+        }
+        return end;
+    }
+
+    /** {@code bits} one-bits spread over the upper half of the word, where the Gear hash mixes best. */
+    private static long spreadMask(int bits) {
+        long mask = 0;
+        int step = Math.max(1, 48 / bits);
+        for (int i = 0, bit = 63; i < bits && bit >= 0; i++, bit -= step) {
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+}
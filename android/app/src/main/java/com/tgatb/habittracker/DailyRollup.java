@@ -0,0 +1,370 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Per-day outcome counters over every habit of one account, kept in step with the
+ * {@link HabitLogStore} so history and statistics screens read a range of days instead of
+ * rescanning every log of every habit.
+ *
+ * Each counter is one int array indexed by {@code epochDay - baseDay} that grows at either
+ * end. A write adjusts at most two slots; habit types and creation days come from the
+ * {@link HabitSnapshot}, and logs of habits missing from it are not counted. The file next
+ * to the log store remembers the store's record counts, so a rollup that missed writes
+ * (e.g. the process died before {@link #flush()}) is rebuilt when opened.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class DailyRollup implements HabitLogStore.Listener {
+    static final int MAGIC = 0x54474452; // "TGDR"
+    static final int VERSION = 1;
+
+    static final int GOOD_DONE = 0;
+    static final int BAD_AVOIDED = 1;
+    static final int BAD_DONE = 2;
+    static final int MISSED = 3;
+    /** Logs dated before their habit was created (manual backfills), and the positive ones. */
+    static final int EARLY = 4;
+    static final int EARLY_POSITIVE = 5;
+    private static final int KINDS = 6;
+
+    private static final int INITIAL_DAYS = 64;
+
+    private final File file;
+    private final HabitLogStore store;
+    private final Map<String, Habit> habits = new HashMap<>();
+    private int[][] counts = new int[KINDS][0];
+    private int baseDay;
+    private long savedRecords = -1;
+    private long savedLive = -1;
+    private boolean dirty;
+
+    private static final class Habit {
+        final boolean bad;
+        final int createdDay;
+
+        Habit(boolean bad, int createdDay) {
+            this.bad = bad;
+            this.createdDay = createdDay;
+        }
+
+        boolean sameAs(Habit other) {
+            return other != null && bad == other.bad && createdDay == other.createdDay;
+        }
+    }
+
+    /** Counters for {@code fromDay..toDay}, one slot per day. */
+    public static final class Range {
+        public final int fromDay;
+        public final int[] goodDone;
+        public final int[] badAvoided;
+        public final int[] badDone;
+        public final int[] missed;
+        /** Habits created on or before the day with no log for it. */
+        public final int[] untracked;
+        /** Positive outcomes of habits that existed on the day (what the stats screen counts). */
+        public final int[] completions;
+
+        Range(int fromDay, int days) {
+            this.fromDay = fromDay;
+            goodDone = new int[days];
+            badAvoided = new int[days];
+            badDone = new int[days];
+            missed = new int[days];
+            untracked = new int[days];
+            completions = new int[days];
+        }
+
+        public int days() {
+            return goodDone.length;
+        }
+
+        /** At least one good habit done or bad habit avoided. */
+        public boolean positive(int i) {
+            return goodDone[i] + badAvoided[i] > 0;
+        }
+
+        /** Something left untracked, or a good habit missed or bad habit done. */
+        public boolean negative(int i) {
+            return untracked[i] > 0 || missed[i] + badDone[i] > 0;
+        }
+
+        public static int sum(int[] series) {
+            int total = 0;
+            for (int value : series) total += value;
+            return total;
+        }
+    }
+
+    private DailyRollup(File file, HabitLogStore store) {
+        this.file = file;
+        this.store = store;
+    }
+
+    /**
+     * Loads the rollup saved next to {@code store}, rebuilding it when missing, unreadable or
+     * out of date, and subscribes it to the store's writes.
+     */
+    public static DailyRollup open(File file, HabitLogStore store, HabitSnapshot snapshot) {
+        DailyRollup rollup = new DailyRollup(file, store);
+        synchronized (store) {
+            boolean loaded;
+            try {
+                loaded = rollup.load()
+                        && rollup.savedRecords == store.recordCount()
+                        && rollup.savedLive == store.liveCount();
+            } catch (IOException e) {
+                loaded = false;
+            }
+            if (loaded) {
+                rollup.setHabits(snapshot);
+            } else {
+                rollup.rebuild(snapshot);
+            }
+            store.addListener(rollup);
+        }
+        return rollup;
+    }
+
+    /**
+     * Brings habit types and creation days in line with {@code snapshot}. Only habits that
+     * were added, removed or changed are recounted from their logs.
+     */
+    public void setHabits(HabitSnapshot snapshot) {
+        synchronized (store) {
+            synchronized (this) {
+                Map<String, Habit> next = new HashMap<>();
+                for (HabitSnapshot.Habit habit : snapshot.habits) {
+                    next.put(habit.id, new Habit(habit.bad, habit.createdDay));
+                }
+                Iterator<Map.Entry<String, Habit>> it = habits.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<String, Habit> e = it.next();
+                    Habit updated = next.get(e.getKey());
+                    if (e.getValue().sameAs(updated)) continue;
+                    countHabit(e.getKey(), e.getValue(), -1);
+                    it.remove();
+                }
+                for (Map.Entry<String, Habit> e : next.entrySet()) {
+                    if (habits.containsKey(e.getKey())) continue;
+                    habits.put(e.getKey(), e.getValue());
+                    countHabit(e.getKey(), e.getValue(), 1);
+                }
+            }
+        }
+    }
+
+    /** Recounts everything from the store. O(logs). */
+    public void rebuild(HabitSnapshot snapshot) {
+        synchronized (store) {
+            synchronized (this) {
+                habits.clear();
+                resetCounts();
+                setHabits(snapshot);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onLogChanged(String habitId, int epochDay, Boolean before, Boolean after) {
+        Habit habit = habits.get(habitId);
+        if (habit == null) return;
+        if (before != null) count(habit, epochDay, before, -1);
+        if (after != null) count(habit, epochDay, after, 1);
+    }
+
+    @Override
+    public synchronized void onCleared() {
+        resetCounts();
+    }
+
+    /** First day with a log or a habit creation; {@link Integer#MAX_VALUE} when empty. */
+    public synchronized int firstDay() {
+        int first = Integer.MAX_VALUE;
+        for (Habit habit : habits.values()) first = Math.min(first, habit.createdDay);
+        int length = counts[GOOD_DONE].length;
+        for (int i = 0; i < length && baseDay + i < first; i++) {
+            if (logged(i) > 0) return baseDay + i;
+        }
+        return first;
+    }
+
+    /** Last day with a log; {@link Integer#MIN_VALUE} when there are none. */
+    public synchronized int lastDay() {
+        for (int i = counts[GOOD_DONE].length - 1; i >= 0; i--) {
+            if (logged(i) > 0) return baseDay + i;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Counters for {@code fromDay..toDay}. Untracked habits are only reported up to
+     * {@code today}, since later days cannot be logged yet. O(days + habits).
+     */
+    public synchronized Range range(int fromDay, int toDay, int today) {
+        if (toDay < fromDay) throw new IllegalArgumentException("toDay before fromDay");
+        Range out = new Range(fromDay, toDay - fromDay + 1);
+
+        int[] created = new int[habits.size()];
+        int n = 0;
+        for (Habit habit : habits.values()) created[n++] = habit.createdDay;
+        Arrays.sort(created);
+        int existing = 0;
+
+        int length = counts[GOOD_DONE].length;
+        for (int d = 0; d < out.days(); d++) {
+            int day = fromDay + d;
+            while (existing < created.length && created[existing] <= day) existing++;
+            int i = day - baseDay;
+            if (i < 0 || i >= length) {
+                if (day <= today) out.untracked[d] = existing;
+                continue;
+            }
+            out.goodDone[d] = counts[GOOD_DONE][i];
+            out.badAvoided[d] = counts[BAD_AVOIDED][i];
+            out.badDone[d] = counts[BAD_DONE][i];
+            out.missed[d] = counts[MISSED][i];
+            out.completions[d] = counts[GOOD_DONE][i] + counts[BAD_AVOIDED][i] - counts[EARLY_POSITIVE][i];
+            if (day <= today) {
+                out.untracked[d] = existing - (logged(i) - counts[EARLY][i]);
+            }
+        }
+        return out;
+    }
+
+    /** Saves when anything changed since the last save, including a compaction of the store. */
+    public void flush() throws IOException {
+        synchronized (store) {
+            synchronized (this) {
+                if (!dirty && savedRecords == store.recordCount() && savedLive == store.liveCount()) return;
+                save(store.recordCount(), store.liveCount());
+            }
+        }
+    }
+
+    private void countHabit(String habitId, Habit habit, int delta) {
+        for (HabitLogStore.Entry entry : store.range(habitId, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            count(habit, entry.epochDay, entry.completed, delta);
+        }
+    }
+
+    private void count(Habit habit, int epochDay, boolean completed, int delta) {
+        int i = slot(epochDay);
+        boolean positive = habit.bad != completed;
+        int kind = habit.bad
+                ? (completed ? BAD_DONE : BAD_AVOIDED)
+                : (completed ? GOOD_DONE : MISSED);
+        counts[kind][i] += delta;
+        if (epochDay < habit.createdDay) {
+            counts[EARLY][i] += delta;
+            if (positive) counts[EARLY_POSITIVE][i] += delta;
+        }
+        dirty = true;
+    }
+
+    private int logged(int i) {
+        return counts[GOOD_DONE][i] + counts[BAD_AVOIDED][i] + counts[BAD_DONE][i] + counts[MISSED][i];
+    }
+
+    /** Index of {@code day}, growing the arrays towards it when needed. */
+    private int slot(int day) {
+        int length = counts[GOOD_DONE].length;
+        if (length == 0) {
+            baseDay = day;
+            grow(0, INITIAL_DAYS);
+            return 0;
+        }
+        int i = day - baseDay;
+        if (i < 0) {
+            int shift = Math.max(-i, length / 2);
+            grow(shift, length + shift);
+            baseDay -= shift;
+            return i + shift;
+        }
+        if (i >= length) {
+            grow(0, Math.max(i + 1, length * 2));
+        }
+        return i;
+    }
+
+    private void grow(int shift, int length) {
+        for (int k = 0; k < KINDS; k++) {
+            int[] next = new int[length];
+            System.arraycopy(counts[k], 0, next, shift, counts[k].length);
+            counts[k] = next;
+        }
+    }
+
+    private void resetCounts() {
+        counts = new int[KINDS][0];
+        baseDay = 0;
+        dirty = true;
+    }
+
+    private boolean load() throws IOException {
+        if (!file.exists()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) return false;
+            savedRecords = in.readLong();
+            savedLive = in.readLong();
+            int habitCount = in.readInt();
+            for (int i = 0; i < habitCount; i++) {
+                String id = in.readUTF();
+                boolean bad = in.readBoolean();
+                habits.put(id, new Habit(bad, in.readInt()));
+            }
+            baseDay = in.readInt();
+            int length = in.readInt();
+            if (length < 0) return false;
+            int[][] loaded = new int[KINDS][length];
+            for (int k = 0; k < KINDS; k++) {
+                for (int i = 0; i < length; i++) loaded[k][i] = in.readInt();
+            }
+            counts = loaded;
+            return true;
+        }
+    }
+
+    /** Writes atomically so a crash never leaves a half-written rollup behind. */
+    private void save(long records, long live) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(records);
+            out.writeLong(live);
+            out.writeInt(habits.size());
+            for (Map.Entry<String, Habit> e : habits.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeBoolean(e.getValue().bad);
+                out.writeInt(e.getValue().createdDay);
+            }
+            out.writeInt(baseDay);
+            int length = counts[GOOD_DONE].length;
+            out.writeInt(length);
+            for (int k = 0; k < KINDS; k++) {
+                for (int i = 0; i < length; i++) out.writeInt(counts[k][i]);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+        savedRecords = records;
+        savedLive = live;
+        dirty = false;
+    }
+}
@@ -0,0 +1,127 @@
+package com.tgatb.habittracker;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Read side of {@link DailyRollup}: totals and per-day series for the last N days or all
+ * time, answered from the day counters without reading any log.
+ */
+@CapacitorPlugin(name = "DailyRollup")
+public class DailyRollupPlugin extends Plugin {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * {@code days} counts back from today; otherwise {@code from}/{@code to} (inclusive),
+     * defaulting to the first logged or created day and the later of today and the last log.
+     */
+    @PluginMethod
+    public void query(PluginCall call) {
+        EXECUTOR.execute(() -> {
+            try {
+                DailyRollup rollup = HabitLogStorePlugin.rollupFor(getContext(),
+                        call.getString("scope", HabitLogStorePlugin.DEFAULT_SCOPE));
+                int today = EpochDays.today();
+                Integer days = call.getInt("days");
+                String from = call.getString("from");
+                String to = call.getString("to");
+
+                int toDay = to != null ? EpochDays.parse(to) : Math.max(today, rollup.lastDay());
+                int fromDay;
+                if (days != null) {
+                    if (days <= 0) {
+                        call.reject("days must be positive");
+                        return;
+                    }
+                    toDay = today;
+                    fromDay = today - days + 1;
+                } else if (from != null) {
+                    fromDay = EpochDays.parse(from);
+                } else {
+                    fromDay = Math.min(rollup.firstDay(), toDay);
+                }
+                if (toDay < fromDay) {
+                    call.reject("to must not be before from");
+                    return;
+                }
+
+                DailyRollup.Range range = rollup.range(fromDay, toDay, today);
+                JSObject ret = new JSObject();
+                ret.put("from", EpochDays.format(fromDay));
+                ret.put("to", EpochDays.format(toDay));
+                ret.put("today", EpochDays.format(today));
+                ret.put("totals", totals(range));
+                if (Boolean.TRUE.equals(call.getBoolean("series", false))) {
+                    ret.put("series", series(range));
+                }
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to read rollup: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Recounts from the log store, e.g. after a bulk import. */
+    @PluginMethod
+    public void rebuild(PluginCall call) {
+        EXECUTOR.execute(() -> {
+            try {
+                String scope = call.getString("scope", HabitLogStorePlugin.DEFAULT_SCOPE);
+                File snapshotFile = AutoFinalizePlugin.snapshotFile(getContext(), scope);
+                long start = System.nanoTime();
+                DailyRollup rollup = HabitLogStorePlugin.rollupFor(getContext(), scope);
+                rollup.rebuild(HabitSnapshot.read(snapshotFile));
+                rollup.flush();
+                JSObject ret = new JSObject();
+                ret.put("durationMs", (System.nanoTime() - start) / 1_000_000L);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to rebuild rollup: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static JSObject totals(DailyRollup.Range range) {
+        int positiveDays = 0;
+        int negativeDays = 0;
+        for (int i = 0; i < range.days(); i++) {
+            if (range.positive(i)) positiveDays++;
+            if (range.negative(i)) negativeDays++;
+        }
+        JSObject totals = new JSObject();
+        totals.put("goodDone", DailyRollup.Range.sum(range.goodDone));
+        totals.put("badAvoided", DailyRollup.Range.sum(range.badAvoided));
+        totals.put("badDone", DailyRollup.Range.sum(range.badDone));
+        totals.put("missed", DailyRollup.Range.sum(range.missed));
+        totals.put("untracked", DailyRollup.Range.sum(range.untracked));
+        totals.put("completions", DailyRollup.Range.sum(range.completions));
+        totals.put("positiveDays", positiveDays);
+        totals.put("negativeDays", negativeDays);
+        return totals;
+    }
+
+    private static JSObject series(DailyRollup.Range range) {
+        JSObject series = new JSObject();
+        series.put("goodDone", toArray(range.goodDone));
+        series.put("badAvoided", toArray(range.badAvoided));
+        series.put("badDone", toArray(range.badDone));
+        series.put("missed", toArray(range.missed));
+        series.put("untracked", toArray(range.untracked));
+        series.put("completions", toArray(range.completions));
+        return series;
+    }
+
+    private static JSArray toArray(int[] values) {
+        JSArray out = new JSArray();
+        for (int value : values) out.put(value);
+        return out;
+    }
+}
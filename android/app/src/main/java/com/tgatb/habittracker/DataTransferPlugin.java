@@ -0,0 +1,604 @@
+package com.tgatb.habittracker;
+
+import android.app.Activity;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import androidx.activity.result.ActivityResult;
+import androidx.core.content.FileProvider;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.ActivityCallback;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming export/import of the data bundle. Exports are pushed from JS in chunks and
+ * written record by record to {@code cache/exports} (shareable through the existing
+ * FileProvider); imports are pulled in chunks from a picked document or export file and
+ * validated as they are read, so neither side ever holds the whole file as one string.
+ */
+@CapacitorPlugin(name = "DataTransfer")
+public class DataTransferPlugin extends Plugin {
+    static final String EXPORT_DIR = "exports";
+    static final String SNAPSHOT_EXTENSION = ".tgsnap";
+    private static final String EVENT_EXPORT_PROGRESS = "exportProgress";
+    private static final String EVENT_IMPORT_PROGRESS = "importProgress";
+    private static final String INVALID_FORMAT = "INVALID_FORMAT";
+    private static final int DEFAULT_READ_CHUNK = 500;
+
+    /** One thread so chunks of a session are written and read in call order. */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final AtomicInteger NEXT_SESSION = new AtomicInteger(1);
+
+    private final Map<String, ExportSession> exports = new HashMap<>();
+    private final Map<String, ImportSession> imports = new HashMap<>();
+
+    private static final class ExportSession {
+        final File part;
+        final File target;
+        final ExportStream.Writer writer;
+        final long total;
+
+        ExportSession(File part, File target, ExportStream.Writer writer, long total) {
+            this.part = part;
+            this.target = target;
+            this.writer = writer;
+            this.total = total;
+        }
+    }
+
+    private static final class ImportSession {
+        final ExportStream.Source reader;
+        final long size;
+
+        ImportSession(ExportStream.Source reader, long size) {
+            this.reader = reader;
+            this.size = size;
+        }
+    }
+
+    /**
+     * {@code {fileName, gzip?, exportedAt, counts: {habits, logs}}} resolves with
+     * {@code {sessionId}}; the header is written immediately.
+     */
+    @PluginMethod
+    public void beginExport(PluginCall call) {
+        String fileName = call.getString("fileName");
+        String exportedAt = call.getString("exportedAt");
+        JSObject counts = call.getObject("counts");
+        if (fileName == null || exportedAt == null || counts == null) {
+            call.reject("fileName, exportedAt and counts are required");
+            return;
+        }
+        final boolean gzip = Boolean.TRUE.equals(call.getBoolean("gzip", false));
+        final long habits = counts.optLong("habits", -1);
+        final long logs = counts.optLong("logs", -1);
+        if (habits < 0 || logs < 0) {
+            call.reject("counts.habits and counts.logs must be non-negative");
+            return;
+        }
+        final String name = safeFileName(fileName, gzip);
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                File dir = exportDir(context);
+                if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+                File target = new File(dir, name);
+                File part = new File(dir, name + ".part");
+                ExportStream.Writer writer = new ExportStream.Writer(
+                        new FileOutputStream(part), gzip, exportedAt, habits, logs);
+                String id = Integer.toString(NEXT_SESSION.getAndIncrement());
+                synchronized (exports) {
+                    exports.put(id, new ExportSession(part, target, writer, habits + logs));
+                }
+                JSObject ret = new JSObject();
+                ret.put("sessionId", id);
+                call.resolve(ret);
+            } catch (IOException e) {
+                call.reject("Failed to start export: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** {@code {sessionId, habits?, logs?}}; all habits must be appended before any log. */
+    @PluginMethod
+    public void appendExport(PluginCall call) {
+        final String id = call.getString("sessionId");
+        final JSArray habits = call.getArray("habits", new JSArray());
+        final JSArray logs = call.getArray("logs", new JSArray());
+        EXECUTOR.execute(() -> {
+            ExportSession session = exportSession(id);
+            if (session == null) {
+                call.reject("Unknown export session " + id);
+                return;
+            }
+            try {
+                for (int i = 0; i < habits.length(); i++) {
+                    session.writer.habit(toJava(habits.get(i)));
+                }
+                for (int i = 0; i < logs.length(); i++) {
+                    session.writer.log(toJava(logs.get(i)));
+                }
+                notifyListeners(EVENT_EXPORT_PROGRESS, exportProgress(id, session));
+                call.resolve();
+            } catch (ExportSchema.Invalid e) {
+                discardExport(id);
+                call.reject("Invalid export data (" + e.getMessage() + ")", INVALID_FORMAT, e);
+            } catch (Exception e) {
+                discardExport(id);
+                call.reject("Failed to write export: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * {@code {sessionId, settings}} closes the document and resolves with
+     * {@code {path, uri, bytes}}; {@code uri} is a FileProvider content URI.
+     */
+    @PluginMethod
+    public void finishExport(PluginCall call) {
+        final String id = call.getString("sessionId");
+        final JSObject settings = call.getObject("settings");
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            ExportSession session = exportSession(id);
+            if (session == null) {
+                call.reject("Unknown export session " + id);
+                return;
+            }
+            try {
+                session.writer.finish(toJava(settings));
+                session.writer.close();
+                if (session.target.exists() && !session.target.delete()) {
+                    throw new IOException("Cannot replace " + session.target.getName());
+                }
+                if (!session.part.renameTo(session.target)) {
+                    throw new IOException("Cannot rename " + session.part.getName());
+                }
+                synchronized (exports) {
+                    exports.remove(id);
+                }
+                notifyListeners(EVENT_EXPORT_PROGRESS, exportProgress(id, session));
+                JSObject ret = new JSObject();
+                ret.put("path", session.target.getAbsolutePath());
+                ret.put("uri", contentUri(context, session.target).toString());
+                ret.put("bytes", session.target.length());
+                call.resolve(ret);
+            } catch (ExportSchema.Invalid e) {
+                discardExport(id);
+                call.reject("Invalid export data (" + e.getMessage() + ")", INVALID_FORMAT, e);
+            } catch (Exception e) {
+                discardExport(id);
+                call.reject("Failed to finish export: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void abortExport(PluginCall call) {
+        final String id = call.getString("sessionId");
+        EXECUTOR.execute(() -> {
+            discardExport(id);
+            call.resolve();
+        });
+    }
+
+    /**
+     * {@code {path, fileName?, mimeType?}} lets the user pick a destination document and
+     * stream-copies a finished export there. Resolves with {@code {saved, uri?}}.
+     */
+    @PluginMethod
+    public void saveExport(PluginCall call) {
+        String path = call.getString("path");
+        File file = path != null ? new File(path) : null;
+        if (file == null || !isExportFile(getContext(), file)) {
+            call.reject("path must be a finished export");
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(call.getString("mimeType", mimeTypeOf(file)));
+        intent.putExtra(Intent.EXTRA_TITLE, call.getString("fileName", file.getName()));
+        startActivityForResult(call, intent, "saveExportResult");
+    }
+
+    @ActivityCallback
+    private void saveExportResult(final PluginCall call, ActivityResult result) {
+        if (call == null) return;
+        final Uri uri = result.getData() != null ? result.getData().getData() : null;
+        if (result.getResultCode() != Activity.RESULT_OK || uri == null) {
+            JSObject ret = new JSObject();
+            ret.put("saved", false);
+            call.resolve(ret);
+            return;
+        }
+        final File file = new File(call.getString("path"));
+        final ContentResolver resolver = getContext().getContentResolver();
+        EXECUTOR.execute(() -> {
+            try (InputStream in = new FileInputStream(file);
+                 OutputStream out = resolver.openOutputStream(uri, "w")) {
+                if (out == null) throw new IOException("Cannot open " + uri);
+                byte[] buffer = new byte[16 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                }
+                JSObject ret = new JSObject();
+                ret.put("saved", true);
+                ret.put("uri", uri.toString());
+                call.resolve(ret);
+            } catch (IOException e) {
+                call.reject("Failed to save export: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * {@code {path}} re-encodes a finished export as a binary snapshot next to it
+     * ({@code <name>.tgsnap}); see {@link SnapshotCodec}. Resolves with
+     * {@code {path, uri, bytes, sourceBytes}}; snapshots import through {@link #openImport}.
+     */
+    @PluginMethod
+    public void encodeSnapshot(PluginCall call) {
+        String path = call.getString("path");
+        final File source = path != null ? new File(path) : null;
+        final Context context = getContext();
+        if (source == null || !isExportFile(context, source)) {
+            call.reject("path must be a finished export");
+            return;
+        }
+        EXECUTOR.execute(() -> {
+            String name = source.getName().replaceFirst("(\\.json)?(\\.gz)?$", "") + SNAPSHOT_EXTENSION;
+            File target = new File(source.getParentFile(), name);
+            File part = new File(source.getParentFile(), name + ".part");
+            try (ExportStream.Source in = ExportStream.open(new FileInputStream(source));
+                 OutputStream out = new FileOutputStream(part)) {
+                SnapshotCodec.convert(in, out);
+            } catch (ExportSchema.Invalid e) {
+                part.delete();
+                call.reject("Invalid export data (" + e.getMessage() + ")", INVALID_FORMAT, e);
+                return;
+            } catch (IOException e) {
+                part.delete();
+                call.reject("Failed to encode snapshot: " + e.getMessage(), e);
+                return;
+            }
+            if (!part.renameTo(target)) {
+                part.delete();
+                call.reject("Failed to encode snapshot: cannot move into place");
+                return;
+            }
+            JSObject ret = new JSObject();
+            ret.put("path", target.getAbsolutePath());
+            ret.put("uri", contentUri(context, target).toString());
+            ret.put("bytes", target.length());
+            ret.put("sourceBytes", source.length());
+            call.resolve(ret);
+        });
+    }
+
+    /** Opens the system document picker; resolves with {@code {uri}} or {@code {}} when cancelled. */
+    @PluginMethod
+    public void pickImportFile(PluginCall call) {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_MIME_TYPES, new String[] {"application/json", "application/gzip", "application/octet-stream"});
+        startActivityForResult(call, intent, "pickImportResult");
+    }
+
+    @ActivityCallback
+    private void pickImportResult(PluginCall call, ActivityResult result) {
+        if (call == null) return;
+        JSObject ret = new JSObject();
+        Uri uri = result.getData() != null ? result.getData().getData() : null;
+        if (result.getResultCode() == Activity.RESULT_OK && uri != null) {
+            ret.put("uri", uri.toString());
+        }
+        call.resolve(ret);
+    }
+
+    /**
+     * {@code {uri} | {path}} resolves with {@code {sessionId, size, gzip, format}}; size is -1
+     * when unknown. JSON (plain or gzipped) and binary snapshots are told apart by content.
+     */
+    @PluginMethod
+    public void openImport(PluginCall call) {
+        final String uri = call.getString("uri");
+        final String path = call.getString("path");
+        if (uri == null && path == null) {
+            call.reject("uri or path is required");
+            return;
+        }
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                InputStream in;
+                long size;
+                if (uri != null) {
+                    Uri parsed = Uri.parse(uri);
+                    in = context.getContentResolver().openInputStream(parsed);
+                    if (in == null) throw new IOException("Cannot open " + uri);
+                    size = sizeOf(context, parsed);
+                } else {
+                    File file = new File(path);
+                    in = new FileInputStream(file);
+                    size = file.length();
+                }
+                ExportStream.Source reader;
+                try {
+                    reader = ExportStream.open(in);
+                } catch (IOException e) {
+                    in.close();
+                    throw e;
+                }
+                String id = Integer.toString(NEXT_SESSION.getAndIncrement());
+                synchronized (imports) {
+                    imports.put(id, new ImportSession(reader, size));
+                }
+                JSObject ret = new JSObject();
+                ret.put("sessionId", id);
+                ret.put("size", size);
+                ret.put("gzip", reader instanceof ExportStream.Reader && ((ExportStream.Reader) reader).isGzipped());
+                ret.put("format", reader instanceof SnapshotCodec.Reader ? "snapshot" : "json");
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to open import: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * {@code {sessionId, max?}} resolves with up to {@code max} validated records:
+     * {@code {habits, logs, meta?, settings?, done, bytesRead, size}}. The session closes
+     * itself when done or on the first invalid record.
+     */
+    @PluginMethod
+    public void readImport(PluginCall call) {
+        final String id = call.getString("sessionId");
+        final int max = Math.max(1, call.getInt("max", DEFAULT_READ_CHUNK));
+        EXECUTOR.execute(() -> {
+            ImportSession session;
+            synchronized (imports) {
+                session = imports.get(id);
+            }
+            if (session == null) {
+                call.reject("Unknown import session " + id);
+                return;
+            }
+            try {
+                JSArray habits = new JSArray();
+                JSArray logs = new JSArray();
+                JSObject ret = new JSObject();
+                boolean done = false;
+                int records = 0;
+                while (records < max) {
+                    ExportStream.Item item = session.reader.next();
+                    if (item == null) {
+                        done = true;
+                        break;
+                    }
+                    switch (item.kind) {
+                        case META:
+                            ret.put("meta", toJson(item.value));
+                            break;
+                        case SETTINGS:
+                            ret.put("settings", toJson(item.value));
+                            break;
+                        case HABIT:
+                            habits.put(toJson(item.value));
+                            records++;
+                            break;
+                        case LOG:
+                            logs.put(toJson(item.value));
+                            records++;
+                            break;
+                    }
+                }
+                if (done) closeImport(id);
+                JSObject progress = importProgress(id, session);
+                notifyListeners(EVENT_IMPORT_PROGRESS, progress);
+                ret.put("habits", habits);
+                ret.put("logs", logs);
+                ret.put("done", done);
+                ret.put("bytesRead", session.reader.bytesRead());
+                ret.put("size", session.size);
+                call.resolve(ret);
+            } catch (ExportSchema.Invalid e) {
+                closeImport(id);
+                call.reject("Invalid export file format (" + e.getMessage() + ")", INVALID_FORMAT, e);
+            } catch (Exception e) {
+                closeImport(id);
+                call.reject("Failed to read import: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void abortImport(PluginCall call) {
+        final String id = call.getString("sessionId");
+        EXECUTOR.execute(() -> {
+            closeImport(id);
+            call.resolve();
+        });
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        EXECUTOR.execute(() -> {
+            List<String> ids;
+            synchronized (exports) {
+                ids = new ArrayList<>(exports.keySet());
+            }
+            for (String id : ids) discardExport(id);
+            synchronized (imports) {
+                ids = new ArrayList<>(imports.keySet());
+            }
+            for (String id : ids) closeImport(id);
+        });
+    }
+
+    static File exportDir(Context context) {
+        return new File(context.getCacheDir(), EXPORT_DIR);
+    }
+
+    static boolean isExportFile(Context context, File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        return parent != null && parent.equals(exportDir(context).getAbsoluteFile()) && file.isFile()
+                && !file.getName().endsWith(".part");
+    }
+
+    static Uri contentUri(Context context, File file) {
+        return FileProvider.getUriForFile(context, context.getPackageName() + ".fileprovider", file);
+    }
+
+    /** Keeps the name inside the export directory and matches the extension to the encoding. */
+    static String safeFileName(String fileName, boolean gzip) {
+        String name = fileName.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.isEmpty() || name.startsWith(".")) name = "export" + name;
+        if (gzip && !name.endsWith(".gz")) name += ".gz";
+        return name;
+    }
+
+    private static String mimeTypeOf(File file) {
+        if (file.getName().endsWith(SNAPSHOT_EXTENSION)) return "application/octet-stream";
+        return file.getName().endsWith(".gz") ? "application/gzip" : "application/json";
+    }
+
+    private static long sizeOf(Context context, Uri uri) {
+        try (Cursor cursor = context.getContentResolver().query(uri, new String[] {OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) return cursor.getLong(0);
+        } catch (RuntimeException ignored) {
+            // Some providers reject projections; progress then reports records only.
+        }
+        return -1;
+    }
+
+    private ExportSession exportSession(String id) {
+        synchronized (exports) {
+            return exports.get(id);
+        }
+    }
+
+    private void discardExport(String id) {
+        ExportSession session;
+        synchronized (exports) {
+            session = exports.remove(id);
+        }
+        if (session == null) return;
+        try {
+            session.writer.close();
+        } catch (IOException ignored) {
+            // The partial file is deleted below either way.
+        }
+        session.part.delete();
+    }
+
+    private void closeImport(String id) {
+        ImportSession session;
+        synchronized (imports) {
+            session = imports.remove(id);
+        }
+        if (session == null) return;
+        try {
+            session.reader.close();
+        } catch (IOException ignored) {
+            // Read-only; nothing to recover.
+        }
+    }
+
+    private static JSObject exportProgress(String id, ExportSession session) {
+        JSObject progress = new JSObject();
+        progress.put("sessionId", id);
+        progress.put("habits", session.writer.habitsWritten());
+        progress.put("logs", session.writer.logsWritten());
+        progress.put("total", session.total);
+        progress.put("bytes", session.writer.bytesWritten());
+        return progress;
+    }
+
+    private static JSObject importProgress(String id, ImportSession session) {
+        JSObject progress = new JSObject();
+        progress.put("sessionId", id);
+        progress.put("habits", session.reader.habitsRead());
+        progress.put("logs", session.reader.logsRead());
+        progress.put("bytesRead", session.reader.bytesRead());
+        progress.put("size", session.size);
+        return progress;
+    }
+
+    /** org.json values to the plain maps/lists {@link ExportSchema} validates; ints widen to Long. */
+    static Object toJava(Object value) throws JSONException {
+        if (value == null || value == JSONObject.NULL) return null;
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            Map<String, Object> map = new LinkedHashMap<>();
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                map.put(key, toJava(object.get(key)));
+            }
+            return map;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            List<Object> list = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                list.add(toJava(array.get(i)));
+            }
+            return list;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) return ((Float) value).doubleValue();
+        return value;
+    }
+
+    static Object toJson(Object value) throws JSONException {
+        if (value == null) return JSONObject.NULL;
+        if (value instanceof Map) {
+            JSObject object = new JSObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                object.put((String) entry.getKey(), toJson(entry.getValue()));
+            }
+            return object;
+        }
+        if (value instanceof List) {
+            JSArray array = new JSArray();
+            for (Object item : (List<?>) value) {
+                array.put(toJson(item));
+            }
+            return array;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,403 @@
+package com.tgatb.habittracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Chunked, deduplicated backups of the export file.
+ *
+ * The export is split by {@link ContentChunker}; each chunk is named by the SHA-256 of its
+ * bytes and uploaded gzipped only if the {@link ChunkIndex} has not seen it. The manifest
+ * lists the chunk ids (and their remote file ids, so a reader never has to list the chunk
+ * folder) in order, with the size and SHA-256 of the whole file for end-to-end checks.
+ *
+ * Before the manifest goes up, every chunk it references is checked against a remote
+ * listing, so a chunk deleted remotely can never leave a manifest that does not restore.
+ *
+ * The manifest also records, per earlier backup, the chunks that backup used and this one
+ * no longer does, for the last {@link #KEEP_MANIFESTS} - 1 backups. A full check deletes
+ * every remote chunk outside that set. Another device whose index still names a deleted
+ * chunk finds it missing when it verifies its next manifest, and uploads it again.
+ */
+public final class DeltaBackup {
+    public static final String MANIFEST_FORMAT = "tgatb-chunks";
+    public static final int MANIFEST_VERSION = 1;
+    /** Backups whose chunks survive pruning, the current one included. */
+    public static final int KEEP_MANIFESTS = 3;
+
+    private final BackupTransport transport;
+    private final ChunkIndex index;
+    private final ContentChunker chunker;
+
+    public interface Progress {
+        void onChunk(int chunks, int uploaded, long uploadedBytes);
+    }
+
+    /** The export to back up; opened again when a first pass has to be redone. */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    public static final class Stats {
+        public final int chunks;
+        public final int newChunks;
+        /** Compressed bytes sent for new chunks, manifest excluded. */
+        public final long uploadedBytes;
+        public final long totalBytes;
+        public final int manifestBytes;
+        public final boolean reconciled;
+        /** Remote chunks deleted because no recent manifest referenced them. */
+        public final int pruned;
+
+        Stats(int chunks, int newChunks, long uploadedBytes, long totalBytes, int manifestBytes, boolean reconciled,
+              int pruned) {
+            this.chunks = chunks;
+            this.newChunks = newChunks;
+            this.uploadedBytes = uploadedBytes;
+            this.totalBytes = totalBytes;
+            this.manifestBytes = manifestBytes;
+            this.reconciled = reconciled;
+            this.pruned = pruned;
+        }
+    }
+
+    public static final class Manifest {
+        public final long createdAt;
+        public final long size;
+        public final String sha256;
+        public final List<Entry> chunks;
+        /**
+         * Newest first, one list per earlier backup: remote file ids it referenced that
+         * this manifest does not. Readers that do not know the field ignore it.
+         */
+        public final List<List<String>> history;
+
+        public static final class Entry {
+            public final String id;
+            public final String file;
+            public final int size;
+
+            public Entry(String id, String file, int size) {
+                this.id = id;
+                this.file = file;
+                this.size = size;
+            }
+        }
+
+        public Manifest(long createdAt, long size, String sha256, List<Entry> chunks, List<List<String>> history) {
+            this.createdAt = createdAt;
+            this.size = size;
+            this.sha256 = sha256;
+            this.chunks = chunks;
+            this.history = history;
+        }
+
+        /** Remote file ids of this manifest's chunks and of its history. */
+        Set<String> referencedFiles() {
+            Set<String> out = new HashSet<>();
+            for (Entry entry : chunks) out.add(entry.file);
+            for (List<String> generation : history) out.addAll(generation);
+            return out;
+        }
+
+        /**
+         * History for a manifest of {@code chunks} that follows {@code previous}: the files
+         * of {@code previous} and its history that {@code chunks} dropped, at most
+         * {@code generations} backups deep.
+         */
+        static List<List<String>> historyAfter(Manifest previous, List<Entry> chunks, int generations) {
+            List<List<String>> out = new ArrayList<>();
+            if (previous == null || generations <= 0) return out;
+            Set<String> live = new HashSet<>();
+            for (Entry entry : chunks) live.add(entry.file);
+            List<String> dropped = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Entry entry : previous.chunks) {
+                if (!live.contains(entry.file) && seen.add(entry.file)) dropped.add(entry.file);
+            }
+            out.add(dropped);
+            for (List<String> older : previous.history) {
+                if (out.size() >= generations) break;
+                List<String> kept = new ArrayList<>();
+                for (String file : older) {
+                    if (!live.contains(file)) kept.add(file);
+                }
+                out.add(kept);
+            }
+            return out;
+        }
+
+        public byte[] encode() throws IOException {
+            StringWriter out = new StringWriter();
+            StreamingJson.JsonWriter json = new StreamingJson.JsonWriter(out);
+            json.beginObject();
+            json.name("format").value(MANIFEST_FORMAT);
+            json.name("version").value(MANIFEST_VERSION);
+            json.name("createdAt").value(createdAt);
+            json.name("size").value(size);
+            json.name("sha256").value(sha256);
+            json.name("chunks").beginArray();
+            for (Entry entry : chunks) {
+                json.beginObject();
+                json.name("id").value(entry.id);
+                json.name("file").value(entry.file);
+                json.name("size").value(entry.size);
+                json.endObject();
+            }
+            json.endArray();
+            json.name("history").beginArray();
+            for (List<String> generation : history) {
+                json.beginArray();
+                for (String file : generation) json.value(file);
+                json.endArray();
+            }
+            json.endArray();
+            json.endObject();
+            return out.toString().getBytes(ExportStream.UTF_8);
+        }
+
+        public static Manifest decode(byte[] data) throws IOException {
+            Object parsed = new StreamingJson.JsonReader(
+                    new InputStreamReader(new ByteArrayInputStream(data), ExportStream.UTF_8)).readValue();
+            if (!(parsed instanceof Map)) throw new IOException("Manifest is not an object");
+            Map<?, ?> map = (Map<?, ?>) parsed;
+            if (!MANIFEST_FORMAT.equals(map.get("format"))) throw new IOException("Not a chunk manifest");
+            if (!(map.get("version") instanceof Number) || ((Number) map.get("version")).intValue() != MANIFEST_VERSION) {
+                throw new IOException("Unsupported manifest version " + map.get("version"));
+            }
+            List<Entry> entries = new ArrayList<>();
+            Object chunks = map.get("chunks");
+            if (!(chunks instanceof List)) throw new IOException("Manifest has no chunk list");
+            for (Object item : (List<?>) chunks) {
+                if (!(item instanceof Map)) throw new IOException("Invalid chunk entry");
+                Map<?, ?> entry = (Map<?, ?>) item;
+                if (!(entry.get("id") instanceof String) || !(entry.get("file") instanceof String)
+                        || !(entry.get("size") instanceof Number)) {
+                    throw new IOException("Invalid chunk entry");
+                }
+                entries.add(new Entry((String) entry.get("id"), (String) entry.get("file"),
+                        ((Number) entry.get("size")).intValue()));
+            }
+            List<List<String>> history = new ArrayList<>();
+            Object generations = map.get("history");
+            if (generations instanceof List) {
+                for (Object generation : (List<?>) generations) {
+                    if (!(generation instanceof List)) throw new IOException("Invalid manifest history");
+                    List<String> files = new ArrayList<>();
+                    for (Object file : (List<?>) generation) {
+                        if (!(file instanceof String)) throw new IOException("Invalid manifest history");
+                        files.add((String) file);
+                    }
+                    history.add(Collections.unmodifiableList(files));
+                }
+            }
+            return new Manifest(number(map, "createdAt"), number(map, "size"), (String) map.get("sha256"),
+                    Collections.unmodifiableList(entries), Collections.unmodifiableList(history));
+        }
+
+        private static long number(Map<?, ?> map, String key) throws IOException {
+            Object value = map.get(key);
+            if (!(value instanceof Number)) throw new IOException("Manifest " + key + " missing");
+            return ((Number) value).longValue();
+        }
+    }
+
+    public DeltaBackup(BackupTransport transport, ChunkIndex index, ContentChunker chunker) {
+        this.transport = transport;
+        this.index = index;
+        this.chunker = chunker;
+    }
+
+    /**
+     * Uploads the chunks of {@code export} that are not in the index, then the manifest.
+     * The index is rebuilt from the remote listing first when it is empty (new device,
+     * cleared data) or when {@code fullCheck} is set. Otherwise the listing is taken after
+     * the upload; if a chunk the index vouched for is gone, the index is rebuilt from it
+     * and the export chunked again, re-uploading what is missing. A {@code fullCheck} also
+     * prunes remote chunks once the manifest is up (see the class comment).
+     */
+    public Stats backup(Source export, long createdAt, boolean fullCheck, Progress progress)
+            throws IOException {
+        boolean reconciled = false;
+        Map<String, String> listing = null;
+        if (fullCheck || index.size() == 0) {
+            listing = transport.listChunks();
+            index.replaceAll(listing);
+            reconciled = true;
+        }
+        Pass pass = upload(export, progress, 0, 0L);
+        if (!reconciled) {
+            Map<String, String> remote = transport.listChunks();
+            if (!pass.allExistIn(remote)) {
+                // Listings may lag behind uploads, so this pass's chunks are kept regardless.
+                Map<String, String> known = new HashMap<>(remote);
+                known.putAll(pass.uploaded);
+                index.replaceAll(known);
+                reconciled = true;
+                pass = upload(export, progress, pass.uploaded.size(), pass.uploadedBytes);
+            }
+        }
+
+        Manifest previous = null;
+        boolean historyKnown = true;
+        byte[] previousData = transport.getManifest();
+        if (previousData != null) {
+            try {
+                previous = Manifest.decode(previousData);
+            } catch (IOException e) {
+                // Written by something else; what it referenced is unknown, so nothing is pruned.
+                historyKnown = false;
+            }
+        }
+        Manifest next = new Manifest(createdAt, pass.totalBytes, pass.sha256, pass.entries,
+                Manifest.historyAfter(previous, pass.entries, KEEP_MANIFESTS - 1));
+        byte[] manifest = next.encode();
+        transport.putManifest(manifest);
+        int pruned = fullCheck && historyKnown && listing != null ? prune(listing, next.referencedFiles()) : 0;
+        return new Stats(pass.entries.size(), pass.newChunks, pass.uploadedBytes, pass.totalBytes,
+                manifest.length, reconciled, pruned);
+    }
+
+    /**
+     * Sweeps the chunks of {@code listing} that are not {@code marked} and drops them from
+     * the index. Chunks uploaded after the listing was taken are never in it.
+     */
+    private int prune(Map<String, String> listing, Set<String> marked) throws IOException {
+        Map<String, String> kept = new HashMap<>(index.snapshot());
+        int deleted = 0;
+        for (Map.Entry<String, String> chunk : listing.entrySet()) {
+            if (marked.contains(chunk.getValue())) continue;
+            transport.deleteChunk(chunk.getValue());
+            deleted++;
+            if (chunk.getValue().equals(kept.get(chunk.getKey()))) kept.remove(chunk.getKey());
+        }
+        if (deleted > 0) index.replaceAll(kept);
+        return deleted;
+    }
+
+    /** One chunking pass over the export; counts start from those of an earlier pass. */
+    private Pass upload(Source export, final Progress progress, int newChunks, long uploadedBytes)
+            throws IOException {
+        final MessageDigest whole = sha256();
+        final MessageDigest part = sha256();
+        final Pass pass = new Pass(newChunks, uploadedBytes);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (InputStream in = export.open()) {
+            chunker.split(in, (buffer, offset, length) -> {
+                whole.update(buffer, offset, length);
+                part.update(buffer, offset, length);
+                String id = hex(part.digest());
+                String remote = index.remoteId(id);
+                if (remote == null) {
+                    compressed.reset();
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                        gzip.write(buffer, offset, length);
+                    }
+                    remote = transport.putChunk(id, compressed.toByteArray());
+                    index.add(id, remote);
+                    pass.uploaded.put(id, remote);
+                    pass.newChunks++;
+                    pass.uploadedBytes += compressed.size();
+                }
+                pass.entries.add(new Manifest.Entry(id, remote, length));
+                pass.totalBytes += length;
+                if (progress != null) progress.onChunk(pass.entries.size(), pass.newChunks, pass.uploadedBytes);
+            });
+        }
+        pass.sha256 = hex(whole.digest());
+        return pass;
+    }
+
+    private static final class Pass {
+        final List<Manifest.Entry> entries = new ArrayList<>();
+        /** Chunk id to remote file id, for chunks uploaded by this pass. */
+        final Map<String, String> uploaded = new HashMap<>();
+        int newChunks;
+        long uploadedBytes;
+        long totalBytes;
+        String sha256;
+
+        Pass(int newChunks, long uploadedBytes) {
+            this.newChunks = newChunks;
+            this.uploadedBytes = uploadedBytes;
+        }
+
+        boolean allExistIn(Map<String, String> remote) {
+            Set<String> files = new HashSet<>(remote.values());
+            files.addAll(uploaded.values());
+            for (Manifest.Entry entry : entries) {
+                if (!files.contains(entry.file)) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reassembles the latest backup into {@code out}, verifying every chunk and the whole
+     * file. Returns the manifest, or null when there is no chunked backup.
+     */
+    public Manifest restore(OutputStream out) throws IOException {
+        byte[] data = transport.getManifest();
+        if (data == null) return null;
+        Manifest manifest = Manifest.decode(data);
+        MessageDigest whole = sha256();
+        MessageDigest part = sha256();
+        byte[] buffer = new byte[16 * 1024];
+        long written = 0;
+        for (Manifest.Entry entry : manifest.chunks) {
+            int length = 0;
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(transport.getChunk(entry.file)))) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    part.update(buffer, 0, n);
+                    whole.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                    length += n;
+                }
+            }
+            if (length != entry.size || !hex(part.digest()).equals(entry.id)) {
+                throw new IOException("Chunk " + entry.id + " is corrupt");
+            }
+            written += length;
+        }
+        out.flush();
+        if (written != manifest.size || !hex(whole.digest()).equals(manifest.sha256)) {
+            throw new IOException("Reassembled backup does not match its manifest");
+        }
+        return manifest;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xf, 16);
+            out[2 * i + 1] = Character.forDigit(bytes[i] & 0xf, 16);
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,148 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Chunked Google Drive backups of a finished export file; see {@link DeltaBackup}. The
+ * chunk index is per account scope under {@code files/backup/<scope>/}, and restores are
+ * reassembled into {@code cache/exports} so they can be read back through DataTransfer.
+ */
+@CapacitorPlugin(name = "DeltaBackup")
+public class DeltaBackupPlugin extends Plugin {
+    static final String BACKUP_DIR = "backup";
+    static final String RESTORE_FILE = "habits-restore.json";
+    private static final String INDEX_FILE = "chunks.idx";
+    private static final String EVENT_PROGRESS = "backupProgress";
+    private static final String UNAUTHORIZED = "UNAUTHORIZED";
+
+    /** One thread: two backups of the same scope must not interleave index appends. */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * {@code {path, accessToken, folderId, scope?, fullCheck?}} uploads the new chunks of an
+     * export file and then the manifest. Resolves with {@code {chunks, newChunks,
+     * uploadedBytes, totalBytes, reconciled, prunedChunks, durationMs}}; {@code reconciled} is
+     * set when the local chunk index was rebuilt from Drive, whether asked for or because it
+     * was stale. Only a {@code fullCheck} prunes chunks.
+     */
+    @PluginMethod
+    public void backup(PluginCall call) {
+        final String path = call.getString("path");
+        final String token = call.getString("accessToken");
+        final String folderId = call.getString("folderId");
+        final String scope = call.getString("scope", HabitLogStorePlugin.DEFAULT_SCOPE);
+        final boolean fullCheck = Boolean.TRUE.equals(call.getBoolean("fullCheck", false));
+        final Context context = getContext();
+        final File file = path != null ? new File(path) : null;
+        if (file == null || !DataTransferPlugin.isExportFile(context, file)) {
+            call.reject("path must be a finished export");
+            return;
+        }
+        if (token == null || folderId == null) {
+            call.reject("accessToken and folderId are required");
+            return;
+        }
+        EXECUTOR.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                DeltaBackup delta = new DeltaBackup(new DriveTransport(token, folderId), indexFor(context, scope),
+                        new ContentChunker());
+                DeltaBackup.Stats stats = delta.backup(() -> new FileInputStream(file), System.currentTimeMillis(), fullCheck,
+                        (chunks, uploaded, bytes) -> {
+                            JSObject progress = new JSObject();
+                            progress.put("chunks", chunks);
+                            progress.put("newChunks", uploaded);
+                            progress.put("uploadedBytes", bytes);
+                            notifyListeners(EVENT_PROGRESS, progress);
+                        });
+                JSObject ret = new JSObject();
+                ret.put("chunks", stats.chunks);
+                ret.put("newChunks", stats.newChunks);
+                ret.put("uploadedBytes", stats.uploadedBytes + stats.manifestBytes);
+                ret.put("totalBytes", stats.totalBytes);
+                ret.put("reconciled", stats.reconciled);
+                ret.put("prunedChunks", stats.pruned);
+                ret.put("durationMs", SystemClock.elapsedRealtime() - start);
+                call.resolve(ret);
+            } catch (IOException e) {
+                reject(call, "Failed to back up: ", e);
+            }
+        });
+    }
+
+    /**
+     * {@code {accessToken, folderId}} reassembles the latest chunked backup. Resolves with
+     * {@code {found: false}} when there is none, else {@code {found, path, createdAt}}.
+     */
+    @PluginMethod
+    public void restore(PluginCall call) {
+        final String token = call.getString("accessToken");
+        final String folderId = call.getString("folderId");
+        if (token == null || folderId == null) {
+            call.reject("accessToken and folderId are required");
+            return;
+        }
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            File dir = DataTransferPlugin.exportDir(context);
+            File target = new File(dir, RESTORE_FILE);
+            File part = new File(dir, RESTORE_FILE + ".part");
+            try {
+                if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+                // Restore reads only the manifest and chunks, so no local index is needed.
+                DeltaBackup delta = new DeltaBackup(new DriveTransport(token, folderId), null, new ContentChunker());
+                DeltaBackup.Manifest manifest;
+                try (OutputStream out = new FileOutputStream(part)) {
+                    manifest = delta.restore(out);
+                }
+                JSObject ret = new JSObject();
+                if (manifest == null) {
+                    part.delete();
+                    ret.put("found", false);
+                    call.resolve(ret);
+                    return;
+                }
+                if (!part.renameTo(target)) throw new IOException("Cannot move restore into place");
+                ret.put("found", true);
+                ret.put("path", target.getAbsolutePath());
+                ret.put("createdAt", manifest.createdAt);
+                call.resolve(ret);
+            } catch (IOException e) {
+                part.delete();
+                reject(call, "Failed to restore: ", e);
+            }
+        });
+    }
+
+    static ChunkIndex indexFor(Context context, String scope) throws IOException {
+        File root = new File(context.getFilesDir(), BACKUP_DIR);
+        ScopeNames.migrateLegacy(root, scope);
+        File dir = new File(root, HabitLogStorePlugin.sanitizeScope(scope));
+        return new ChunkIndex(new File(dir, INDEX_FILE));
+    }
+
+    private static void reject(PluginCall call, String prefix, IOException e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.toString();
+        if (message.contains("(401)")) {
+            call.reject(message, UNAUTHORIZED, e);
+        } else {
+            call.reject(prefix + message, e);
+        }
+    }
+}
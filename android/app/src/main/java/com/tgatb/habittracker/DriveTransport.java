@@ -0,0 +1,237 @@
+package com.tgatb.habittracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link BackupTransport} over the Drive v3 REST API, inside the app folder the web layer
+ * already resolves ("TGATB Habit Tracker"). Chunks live in a {@code backup-chunks}
+ * subfolder as {@code <sha256>.gz}; the manifest sits next to the legacy full backup.
+ * A 401 surfaces as "Drive Unauthorized (401)", matching the JS helpers.
+ */
+public final class DriveTransport implements BackupTransport {
+    public static final String MANIFEST_NAME = "habits-backup.manifest.json";
+    static final String CHUNK_FOLDER_NAME = "backup-chunks";
+
+    private static final String FILES_API = "https://www.googleapis.com/drive/v3/files";
+    private static final String UPLOAD_API = "https://www.googleapis.com/upload/drive/v3/files";
+    private static final String FOLDER_MIME = "application/vnd.google-apps.folder";
+    private static final int TIMEOUT_MS = 30_000;
+
+    private final String accessToken;
+    private final String appFolderId;
+    private String chunkFolderId;
+    private String manifestId;
+
+    public DriveTransport(String accessToken, String appFolderId) {
+        this.accessToken = accessToken;
+        this.appFolderId = appFolderId;
+    }
+
+    @Override
+    public Map<String, String> listChunks() throws IOException {
+        Map<String, String> out = new HashMap<>();
+        String folder = chunkFolder();
+        String pageToken = null;
+        do {
+            String url = FILES_API + "?q=" + encode("'" + folder + "' in parents and trashed=false")
+                    + "&spaces=drive&pageSize=1000&fields=" + encode("nextPageToken,files(id,name)")
+                    + (pageToken != null ? "&pageToken=" + encode(pageToken) : "");
+            Map<?, ?> page = json(get(url), "List backup chunks");
+            for (Map<?, ?> file : files(page)) {
+                String name = String.valueOf(file.get("name"));
+                if (name.endsWith(".gz")) out.put(name.substring(0, name.length() - 3), String.valueOf(file.get("id")));
+            }
+            Object next = page.get("nextPageToken");
+            pageToken = next instanceof String ? (String) next : null;
+        } while (pageToken != null);
+        return out;
+    }
+
+    @Override
+    public String putChunk(String chunkId, byte[] compressed) throws IOException {
+        return create(chunkId + ".gz", chunkFolder(), "application/gzip", compressed, "Upload backup chunk");
+    }
+
+    @Override
+    public byte[] getChunk(String remoteId) throws IOException {
+        return get(FILES_API + "/" + encode(remoteId) + "?alt=media").body("Download backup chunk");
+    }
+
+    @Override
+    public void deleteChunk(String remoteId) throws IOException {
+        Response res = request("DELETE", FILES_API + "/" + encode(remoteId), null, null, null);
+        if (res.code != 404) res.body("Delete backup chunk");
+    }
+
+    @Override
+    public void putManifest(byte[] manifest) throws IOException {
+        String existing = findManifest();
+        if (existing == null) {
+            manifestId = create(MANIFEST_NAME, appFolderId, "application/json", manifest, "Upload backup manifest");
+            return;
+        }
+        // HttpURLConnection has no PATCH; Drive honours the override header.
+        Response res = request("POST", UPLOAD_API + "/" + encode(existing) + "?uploadType=media&fields=id",
+                "application/json", manifest, "PATCH");
+        if (res.code == 404) {
+            manifestId = create(MANIFEST_NAME, appFolderId, "application/json", manifest, "Upload backup manifest");
+        } else {
+            res.body("Update backup manifest");
+        }
+    }
+
+    @Override
+    public byte[] getManifest() throws IOException {
+        String id = findManifest();
+        if (id == null) return null;
+        Response res = get(FILES_API + "/" + encode(id) + "?alt=media");
+        if (res.code == 404) return null;
+        return res.body("Download backup manifest");
+    }
+
+    private String findManifest() throws IOException {
+        if (manifestId != null) return manifestId;
+        String url = FILES_API + "?q=" + encode("'" + appFolderId + "' in parents and name='" + MANIFEST_NAME
+                + "' and trashed=false") + "&spaces=drive&fields=" + encode("files(id)")
+                + "&orderBy=" + encode("modifiedTime desc");
+        List<Map<?, ?>> found = files(json(get(url), "Find backup manifest"));
+        manifestId = found.isEmpty() ? null : String.valueOf(found.get(0).get("id"));
+        return manifestId;
+    }
+
+    private String chunkFolder() throws IOException {
+        if (chunkFolderId != null) return chunkFolderId;
+        String url = FILES_API + "?q=" + encode("'" + appFolderId + "' in parents and mimeType='" + FOLDER_MIME
+                + "' and name='" + CHUNK_FOLDER_NAME + "' and trashed=false") + "&spaces=drive&fields=" + encode("files(id)");
+        List<Map<?, ?>> found = files(json(get(url), "Chunk folder search"));
+        if (!found.isEmpty()) {
+            chunkFolderId = String.valueOf(found.get(0).get("id"));
+            return chunkFolderId;
+        }
+        byte[] metadata = metadata(CHUNK_FOLDER_NAME, appFolderId, FOLDER_MIME);
+        chunkFolderId = id(json(request("POST", FILES_API + "?fields=id", "application/json", metadata, null),
+                "Chunk folder creation"));
+        return chunkFolderId;
+    }
+
+    private String create(String name, String parent, String mimeType, byte[] content, String context)
+            throws IOException {
+        String boundary = "tgatb" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        body.write(("--" + boundary + "\r\nContent-Type: application/json; charset=UTF-8\r\n\r\n")
+                .getBytes(ExportStream.UTF_8));
+        body.write(metadata(name, parent, null));
+        body.write(("\r\n--" + boundary + "\r\nContent-Type: " + mimeType + "\r\n\r\n").getBytes(ExportStream.UTF_8));
+        body.write(content);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(ExportStream.UTF_8));
+        Response res = request("POST", UPLOAD_API + "?uploadType=multipart&fields=id",
+                "multipart/related; boundary=" + boundary, body.toByteArray(), null);
+        return id(json(res, context));
+    }
+
+    private static byte[] metadata(String name, String parent, String mimeType) throws IOException {
+        StringWriter out = new StringWriter();
+        StreamingJson.JsonWriter json = new StreamingJson.JsonWriter(out);
+        json.beginObject();
+        json.name("name").value(name);
+        if (mimeType != null) json.name("mimeType").value(mimeType);
+        json.name("parents").beginArray().value(parent).endArray();
+        json.endObject();
+        return out.toString().getBytes(ExportStream.UTF_8);
+    }
+
+    private static final class Response {
+        final int code;
+        final byte[] data;
+
+        Response(int code, byte[] data) {
+            this.code = code;
+            this.data = data;
+        }
+
+        byte[] body(String context) throws IOException {
+            if (code == 401) throw new IOException("Drive Unauthorized (401)");
+            if (code < 200 || code >= 300) throw new IOException(context + " failed (" + code + ")");
+            return data;
+        }
+    }
+
+    private Response get(String url) throws IOException {
+        return request("GET", url, null, null, null);
+    }
+
+    private Response request(String method, String url, String contentType, byte[] body, String override)
+            throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod(method);
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setRequestProperty("Authorization", "Bearer " + accessToken);
+            if (override != null) conn.setRequestProperty("X-HTTP-Method-Override", override);
+            if (body != null) {
+                conn.setDoOutput(true);
+                conn.setRequestProperty("Content-Type", contentType);
+                conn.setFixedLengthStreamingMode(body.length);
+                try (OutputStream out = conn.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+            int code = conn.getResponseCode();
+            InputStream in = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            return new Response(code, in == null ? new byte[0] : readAll(in));
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) out.write(buffer, 0, n);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Map<?, ?> json(Response res, String context) throws IOException {
+        byte[] data = res.body(context);
+        Object parsed = new StreamingJson.JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(data), ExportStream.UTF_8)).readValue();
+        if (!(parsed instanceof Map)) throw new IOException(context + " returned an unexpected body");
+        return (Map<?, ?>) parsed;
+    }
+
+    private static String id(Map<?, ?> created) throws IOException {
+        Object id = created.get("id");
+        if (!(id instanceof String)) throw new IOException("Drive response has no file id");
+        return (String) id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<?, ?>> files(Map<?, ?> page) {
+        Object files = page.get("files");
+        return files instanceof List ? (List<Map<?, ?>>) files : Collections.<Map<?, ?>>emptyList();
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+    }
+}
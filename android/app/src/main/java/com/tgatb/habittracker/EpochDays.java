@@ -0,0 +1,108 @@
+package com.tgatb.habittracker;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Day-number helpers shared by the native stores and engines.
+ *
+ * Dates are handled as days since 1970-01-01 so that schedule and range math
+ * stays in int arithmetic. java.time is not used because minSdk is 23.
+ */
+public final class EpochDays {
+    private EpochDays() {}
+
+    /** Parses a {@code YYYY-MM-DD} string (the web layer's log date format). */
+    public static int parse(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        return fromCivil(year, month, day);
+    }
+
+    public static String format(int epochDay) {
+        int civil = toCivil(epochDay);
+        int year = civil / 10000;
+        int month = (civil / 100) % 100;
+        int day = civil % 100;
+
+        char[] out = new char[10];
+        out[0] = (char) ('0' + (year / 1000) % 10);
+        out[1] = (char) ('0' + (year / 100) % 10);
+        out[2] = (char) ('0' + (year / 10) % 10);
+        out[3] = (char) ('0' + year % 10);
+        out[4] = '-';
+        out[5] = (char) ('0' + month / 10);
+        out[6] = (char) ('0' + month % 10);
+        out[7] = '-';
+        out[8] = (char) ('0' + day / 10);
+        out[9] = (char) ('0' + day % 10);
+        return new String(out);
+    }
+
+    /** Packs the civil date of a day number as {@code yyyymmdd}. */
+    public static int toCivil(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    public static int fromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = month > 2 ? month - 3 : month + 9;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /** Day of week matching JS {@code Date.getDay()}: 0=Sun ... 6=Sat. */
+    public static int dayOfWeek(int epochDay) {
+        // 1970-01-01 was a Thursday (4).
+        return Math.floorMod(epochDay + 4, 7);
+    }
+
+    /** Local calendar day of an instant, mirroring {@code formatLocalDate(new Date(millis))}. */
+    public static int fromMillis(long millis, TimeZone zone) {
+        return (int) Math.floorDiv(millis + zone.getOffset(millis), 86_400_000L);
+    }
+
+    public static int today() {
+        return fromMillis(System.currentTimeMillis(), TimeZone.getDefault());
+    }
+
+    /** Local midnight of a calendar day, in epoch millis. */
+    public static long startOfDayMillis(int epochDay, TimeZone zone) {
+        int civil = toCivil(epochDay);
+        Calendar cal = Calendar.getInstance(zone);
+        cal.clear();
+        cal.set(civil / 10000, (civil / 100) % 100 - 1, civil % 100, 0, 0, 0);
+        return cal.getTimeInMillis();
+    }
+
+    private static int parseDigits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid date: " + s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,196 @@
+package com.tgatb.habittracker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Native mirror of {@code exportBundleSchema} in shared/schema.ts, applied one record at a
+ * time. Like zod's default object parsing, unknown keys are dropped and the output keeps
+ * the schema's key order; optional fields may be absent but not null unless nullable.
+ */
+public final class ExportSchema {
+    public static final String VERSION = "1";
+
+    private static final Set<String> HABIT_TYPES = set("good", "bad");
+    private static final Set<String> SCHEDULE_TYPES = set("daily", "interval", "weekly");
+    private static final Set<String> LOG_SOURCES = set("manual", "auto");
+    private static final Set<String> LANGUAGES = set("en", "id", "ms", "th", "vi", "fil", "zh", "ja", "ko",
+            "es", "fr", "de", "pt", "ar", "hi", "ru");
+    private static final Set<String> PERSONALITIES = set("positive", "adaptive", "harsh");
+    private static final Set<String> HAPTIC_PROFILES = set("subtle", "balanced", "punchy");
+    private static final Set<String> MOTIONS = set("system", "full", "reduced");
+    private static final Set<String> INTENSITIES = set("low", "medium", "high");
+
+    /** First validation failure, reported as {@code path: message} like the JS import errors. */
+    public static final class Invalid extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final String path;
+
+        public Invalid(String path, String message) {
+            super(path + ": " + message);
+            this.path = path;
+        }
+    }
+
+    private ExportSchema() {}
+
+    public static Map<String, Object> habit(Object value, String path) throws Invalid {
+        Map<String, Object> in = object(value, path);
+        Map<String, Object> out = new LinkedHashMap<>();
+        string(in, out, "id", true, false, path);
+        string(in, out, "name", true, false, path);
+        enumValue(in, out, "type", HABIT_TYPES, true, path);
+        number(in, out, "streak", true, false, null, path);
+        string(in, out, "createdAt", true, false, path);
+        string(in, out, "lastCompletedDate", false, false, path);
+        if (in.containsKey("schedule")) out.put("schedule", schedule(in.get("schedule"), path + ".schedule"));
+        string(in, out, "updatedAt", false, false, path);
+        string(in, out, "deviceId", false, true, path);
+        number(in, out, "version", false, true, null, path);
+        return out;
+    }
+
+    public static Map<String, Object> log(Object value, String path) throws Invalid {
+        Map<String, Object> in = object(value, path);
+        Map<String, Object> out = new LinkedHashMap<>();
+        string(in, out, "id", true, false, path);
+        string(in, out, "habitId", true, false, path);
+        string(in, out, "date", true, false, path);
+        bool(in, out, "completed", true, path);
+        string(in, out, "timestamp", true, false, path);
+        enumValue(in, out, "source", LOG_SOURCES, false, path);
+        string(in, out, "updatedAt", false, false, path);
+        string(in, out, "deviceId", false, true, path);
+        number(in, out, "version", false, true, null, path);
+        return out;
+    }
+
+    public static Map<String, Object> settings(Object value, String path) throws Invalid {
+        Map<String, Object> in = object(value, path);
+        Map<String, Object> out = new LinkedHashMap<>();
+        bool(in, out, "darkMode", true, path);
+        enumValue(in, out, "language", LANGUAGES, true, path);
+        enumValue(in, out, "motivatorPersonality", PERSONALITIES, true, path);
+        bool(in, out, "fullscreenMode", true, path);
+        bool(in, out, "autoSync", false, path);
+        bool(in, out, "analyticsConsent", false, path);
+        bool(in, out, "reminderEnabled", false, path);
+        if (in.containsKey("reminderTime")) {
+            Object time = in.get("reminderTime");
+            if (time != null && !(time instanceof String)) throw new Invalid(path + ".reminderTime", "expected string");
+            out.put("reminderTime", time);
+        }
+        bool(in, out, "soundEnabled", false, path);
+        bool(in, out, "hapticEnabled", false, path);
+        enumValue(in, out, "hapticProfile", HAPTIC_PROFILES, false, path);
+        bool(in, out, "celebrationEffectsEnabled", false, path);
+        bool(in, out, "celebrationSoundEnabled", false, path);
+        bool(in, out, "celebrationHapticsEnabled", false, path);
+        enumValue(in, out, "celebrationMotion", MOTIONS, false, path);
+        enumValue(in, out, "celebrationConfettiIntensity", INTENSITIES, false, path);
+        return out;
+    }
+
+    /** {@code {exportedAt, counts: {habits, logs}}}. */
+    public static Map<String, Object> meta(Object value, String path) throws Invalid {
+        Map<String, Object> in = object(value, path);
+        Map<String, Object> out = new LinkedHashMap<>();
+        string(in, out, "exportedAt", true, false, path);
+        Map<String, Object> counts = object(in.get("counts"), path + ".counts");
+        Map<String, Object> countsOut = new LinkedHashMap<>();
+        number(counts, countsOut, "habits", true, false, 0.0, path + ".counts");
+        number(counts, countsOut, "logs", true, false, 0.0, path + ".counts");
+        out.put("counts", countsOut);
+        return out;
+    }
+
+    public static void version(Object value) throws Invalid {
+        if (!VERSION.equals(value)) throw new Invalid("version", "expected \"" + VERSION + "\"");
+    }
+
+    private static Map<String, Object> schedule(Object value, String path) throws Invalid {
+        Map<String, Object> in = object(value, path);
+        Map<String, Object> out = new LinkedHashMap<>();
+        enumValue(in, out, "type", SCHEDULE_TYPES, true, path);
+        number(in, out, "intervalDays", false, true, 2.0, path);
+        if (in.containsKey("daysOfWeek")) {
+            Object days = in.get("daysOfWeek");
+            if (!(days instanceof List)) throw new Invalid(path + ".daysOfWeek", "expected array");
+            List<?> list = (List<?>) days;
+            for (int i = 0; i < list.size(); i++) {
+                Object day = list.get(i);
+                String dayPath = path + ".daysOfWeek." + i;
+                if (!(day instanceof Number)) throw new Invalid(dayPath, "expected number");
+                double d = ((Number) day).doubleValue();
+                if (d != Math.rint(d)) throw new Invalid(dayPath, "expected int");
+                if (d < 0 || d > 6) throw new Invalid(dayPath, "expected 0..6");
+            }
+            out.put("daysOfWeek", days);
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value, String path) throws Invalid {
+        if (!(value instanceof Map)) throw new Invalid(path, "expected object");
+        return (Map<String, Object>) value;
+    }
+
+    private static void string(Map<String, Object> in, Map<String, Object> out, String key,
+                               boolean required, boolean nullable, String path) throws Invalid {
+        if (!present(in, key, required, path)) return;
+        Object value = in.get(key);
+        if (value == null && nullable) {
+            out.put(key, null);
+            return;
+        }
+        if (!(value instanceof String)) throw new Invalid(path + "." + key, "expected string");
+        out.put(key, value);
+    }
+
+    private static void bool(Map<String, Object> in, Map<String, Object> out, String key,
+                             boolean required, String path) throws Invalid {
+        if (!present(in, key, required, path)) return;
+        Object value = in.get(key);
+        if (!(value instanceof Boolean)) throw new Invalid(path + "." + key, "expected boolean");
+        out.put(key, value);
+    }
+
+    /** {@code integral} requires an int; {@code min} is inclusive when set. */
+    private static void number(Map<String, Object> in, Map<String, Object> out, String key,
+                               boolean required, boolean integral, Double min, String path) throws Invalid {
+        if (!present(in, key, required, path)) return;
+        Object value = in.get(key);
+        if (!(value instanceof Number)) throw new Invalid(path + "." + key, "expected number");
+        double d = ((Number) value).doubleValue();
+        if (integral && d != Math.rint(d)) throw new Invalid(path + "." + key, "expected int");
+        if (min != null && d < min) throw new Invalid(path + "." + key, "too small");
+        out.put(key, value);
+    }
+
+    private static void enumValue(Map<String, Object> in, Map<String, Object> out, String key,
+                                  Set<String> allowed, boolean required, String path) throws Invalid {
+        if (!present(in, key, required, path)) return;
+        Object value = in.get(key);
+        if (!(value instanceof String) || !allowed.contains(value)) {
+            throw new Invalid(path + "." + key, "invalid option");
+        }
+        out.put(key, value);
+    }
+
+    private static boolean present(Map<String, Object> in, String key, boolean required, String path) throws Invalid {
+        if (in.containsKey(key)) return true;
+        if (required) throw new Invalid(path + "." + key, "required");
+        return false;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,347 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams an export bundle ({@code {version, meta, habits, logs, settings}}) to and from a
+ * file one record at a time, validating each record against {@link ExportSchema} as it
+ * passes. Memory use is bounded by the largest single record, not by the history size.
+ */
+public final class ExportStream {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private ExportStream() {}
+
+    public enum Kind { META, HABIT, LOG, SETTINGS }
+
+    /** One validated section value or array element. */
+    public static final class Item {
+        public final Kind kind;
+        public final Map<String, Object> value;
+        /** Position within {@code habits} or {@code logs}; 0 for the other kinds. */
+        public final int index;
+
+        Item(Kind kind, Map<String, Object> value, int index) {
+            this.kind = kind;
+            this.value = value;
+            this.index = index;
+        }
+    }
+
+    /** Record source for imports: a JSON export ({@link Reader}) or a {@link SnapshotCodec.Reader}. */
+    public interface Source extends Closeable {
+        /** Next validated item, or null once the bundle is complete. */
+        Item next() throws IOException;
+
+        int habitsRead();
+
+        int logsRead();
+
+        /** Bytes consumed from the underlying stream. */
+        long bytesRead();
+    }
+
+    /** Opens {@code in} as a binary snapshot when it starts with the snapshot magic, else as JSON. */
+    public static Source open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        byte[] head = new byte[SnapshotCodec.MAGIC.length];
+        buffered.mark(head.length);
+        int length = 0;
+        int n;
+        while (length < head.length && (n = buffered.read(head, length, head.length - length)) > 0) {
+            length += n;
+        }
+        buffered.reset();
+        return SnapshotCodec.isSnapshot(head, length) ? new SnapshotCodec.Reader(buffered) : new Reader(buffered);
+    }
+
+    // ---------------------------------------------------------------------
+    // Writer
+    // ---------------------------------------------------------------------
+
+    /**
+     * Writes sections in the same order as {@code HabitStorage.exportData()}. Habits must
+     * all be written before the first log; the counts declared in meta are checked on
+     * {@link #finish}.
+     */
+    public static final class Writer implements Closeable {
+        private final CountingOutputStream counter;
+        private final GZIPOutputStream gzip;
+        private final StreamingJson.JsonWriter json;
+        private final long expectedHabits;
+        private final long expectedLogs;
+        private int habits;
+        private int logs;
+        /** 0 = in habits, 1 = in logs, 2 = finished. */
+        private int section;
+
+        public Writer(OutputStream out, boolean gzip, String exportedAt, long habitCount, long logCount)
+                throws IOException {
+            counter = new CountingOutputStream(out);
+            this.gzip = gzip ? new GZIPOutputStream(counter, BUFFER_SIZE) : null;
+            OutputStream sink = this.gzip != null ? this.gzip : counter;
+            json = new StreamingJson.JsonWriter(new BufferedWriter(new OutputStreamWriter(sink, UTF_8), BUFFER_SIZE));
+            expectedHabits = habitCount;
+            expectedLogs = logCount;
+            json.beginObject();
+            json.name("version").value(ExportSchema.VERSION);
+            json.name("meta").beginObject();
+            json.name("exportedAt").value(exportedAt);
+            json.name("counts").beginObject();
+            json.name("habits").value(habitCount);
+            json.name("logs").value(logCount);
+            json.endObject().endObject();
+            json.name("habits").beginArray();
+        }
+
+        public void habit(Object record) throws IOException {
+            if (section != 0) throw new IllegalStateException("Habits must precede logs");
+            json.writeValue(ExportSchema.habit(record, "habits." + habits));
+            habits++;
+        }
+
+        public void log(Object record) throws IOException {
+            if (section == 2) throw new IllegalStateException("Export already finished");
+            if (section == 0) {
+                json.endArray();
+                json.name("logs").beginArray();
+                section = 1;
+            }
+            json.writeValue(ExportSchema.log(record, "logs." + logs));
+            logs++;
+        }
+
+        /** Writes settings and closes the document; the underlying stream is flushed, not closed. */
+        public void finish(Object settings) throws IOException {
+            if (section == 2) throw new IllegalStateException("Export already finished");
+            Map<String, Object> validated = ExportSchema.settings(settings, "settings");
+            if (habits != expectedHabits) {
+                throw new ExportSchema.Invalid("meta.counts.habits", "declared " + expectedHabits + " but wrote " + habits);
+            }
+            if (logs != expectedLogs) {
+                throw new ExportSchema.Invalid("meta.counts.logs", "declared " + expectedLogs + " but wrote " + logs);
+            }
+            if (section == 0) {
+                json.endArray();
+                json.name("logs").beginArray();
+            }
+            json.endArray();
+            json.name("settings").writeValue(validated);
+            json.endObject();
+            section = 2;
+            json.flush();
+            if (gzip != null) gzip.finish();
+        }
+
+        public int habitsWritten() {
+            return habits;
+        }
+
+        public int logsWritten() {
+            return logs;
+        }
+
+        /** Bytes handed to the underlying stream so far (compressed size when gzipped). */
+        public long bytesWritten() {
+            return counter.count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Reader
+    // ---------------------------------------------------------------------
+
+    /**
+     * Pull reader over an export file, gzipped or not (detected from the magic bytes).
+     * Top-level keys may come in any order and unknown keys are skipped; {@link #next}
+     * returns null once the document is complete and every required section was seen.
+     */
+    public static final class Reader implements Source {
+        private final CountingInputStream counter;
+        private final StreamingJson.JsonReader json;
+        private final boolean gzipped;
+        private boolean started;
+        private boolean done;
+        private Kind array;
+        private int index;
+        private boolean sawVersion;
+        private boolean sawMeta;
+        private boolean sawHabits;
+        private boolean sawLogs;
+        private boolean sawSettings;
+        private int habits;
+        private int logs;
+
+        public Reader(InputStream in) throws IOException {
+            counter = new CountingInputStream(in);
+            BufferedInputStream buffered = new BufferedInputStream(counter, BUFFER_SIZE);
+            buffered.mark(2);
+            int b0 = buffered.read();
+            int b1 = buffered.read();
+            buffered.reset();
+            gzipped = b0 == 0x1f && b1 == 0x8b;
+            InputStream source = gzipped ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+            json = new StreamingJson.JsonReader(new InputStreamReader(source, UTF_8));
+        }
+
+        @Override
+        public Item next() throws IOException {
+            if (done) return null;
+            if (!started) {
+                if (json.peek() != StreamingJson.Token.BEGIN_OBJECT) throw new ExportSchema.Invalid("root", "expected object");
+                json.beginObject();
+                started = true;
+            }
+            while (true) {
+                if (array != null) {
+                    if (json.hasNext()) {
+                        int i = index++;
+                        if (array == Kind.HABIT) {
+                            habits++;
+                            return new Item(Kind.HABIT, ExportSchema.habit(json.readValue(), "habits." + i), i);
+                        }
+                        logs++;
+                        return new Item(Kind.LOG, ExportSchema.log(json.readValue(), "logs." + i), i);
+                    }
+                    json.endArray();
+                    array = null;
+                    continue;
+                }
+                if (!json.hasNext()) {
+                    json.endObject();
+                    if (json.peek() != StreamingJson.Token.END) throw new StreamingJson.SyntaxException("Trailing data", json.offset());
+                    if (!sawVersion) throw new ExportSchema.Invalid("version", "required");
+                    if (!sawMeta) throw new ExportSchema.Invalid("meta", "required");
+                    if (!sawHabits) throw new ExportSchema.Invalid("habits", "required");
+                    if (!sawLogs) throw new ExportSchema.Invalid("logs", "required");
+                    if (!sawSettings) throw new ExportSchema.Invalid("settings", "required");
+                    done = true;
+                    return null;
+                }
+                String name = json.nextName();
+                switch (name) {
+                    case "version":
+                        sawVersion = once(sawVersion, name);
+                        ExportSchema.version(json.readValue());
+                        break;
+                    case "meta":
+                        sawMeta = once(sawMeta, name);
+                        return new Item(Kind.META, ExportSchema.meta(json.readValue(), name), 0);
+                    case "habits":
+                    case "logs":
+                        if ("habits".equals(name)) sawHabits = once(sawHabits, name);
+                        else sawLogs = once(sawLogs, name);
+                        if (json.peek() != StreamingJson.Token.BEGIN_ARRAY) throw new ExportSchema.Invalid(name, "expected array");
+                        json.beginArray();
+                        array = "habits".equals(name) ? Kind.HABIT : Kind.LOG;
+                        index = 0;
+                        break;
+                    case "settings":
+                        sawSettings = once(sawSettings, name);
+                        return new Item(Kind.SETTINGS, ExportSchema.settings(json.readValue(), name), 0);
+                    default:
+                        json.skipValue();
+                        break;
+                }
+            }
+        }
+
+        public boolean isGzipped() {
+            return gzipped;
+        }
+
+        @Override
+        public int habitsRead() {
+            return habits;
+        }
+
+        @Override
+        public int logsRead() {
+            return logs;
+        }
+
+        /** Bytes consumed from the underlying stream (compressed size when gzipped). */
+        @Override
+        public long bytesRead() {
+            return counter.count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+
+        private static boolean once(boolean seen, String name) throws ExportSchema.Invalid {
+            if (seen) throw new ExportSchema.Invalid(name, "duplicate key");
+            return true;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tgatb.habittracker;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of frame durations in microseconds: each power-of-two range is split
+ * into {@link #SUB_BUCKETS} equal buckets, so any reported value is within 1/16 of the
+ * recorded one while the whole range up to an hour fits in a few hundred counters.
+ *
+ * Not thread-safe; {@link JankTelemetry} only touches it from its drain thread.
+ *
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class FrameHistogram {
+    static final int SUB_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** Larger values are clamped; a frame this long is long past frozen. */
+    static final long MAX_MICROS = (1L << 32) - 1;
+    static final int BUCKETS = bucketOf(MAX_MICROS) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long maxMicros;
+
+    public void record(long micros) {
+        long value = Math.max(0L, Math.min(MAX_MICROS, micros));
+        counts[bucketOf(value)]++;
+        count++;
+        if (value > maxMicros) maxMicros = value;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long maxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * Nearest-rank percentile, reported as the upper edge of its bucket (never above the
+     * largest recorded value); 0 when empty.
+     */
+    public long percentile(double p) {
+        if (count == 0) return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(p / 100.0 * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return Math.min(maxMicros, upperBound(b));
+        }
+        return maxMicros;
+    }
+
+    public void merge(FrameHistogram other) {
+        for (int b = 0; b < BUCKETS; b++) counts[b] += other.counts[b];
+        count += other.count;
+        if (other.maxMicros > maxMicros) maxMicros = other.maxMicros;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0;
+        maxMicros = 0;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << shift;
+    }
+
+    static long upperBound(int bucket) {
+        return lowerBound(bucket + 1) - 1;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolling text log of flushed frame-timing intervals, one screen per line:
+ * {@code release \t wallClockMs \t tag \t frames \t slow \t frozen \t p50 \t p90 \t p99 \t max},
+ * durations in microseconds.
+ *
+ * Keeps the newest {@link #MAX_LINES} lines, like {@link StartupTraceLog}.
+ */
+public final class FrameMetricsLog {
+    static final int MAX_LINES = 500;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static final class Entry {
+        public final String release;
+        public final long recordedAt;
+        public final JankTelemetry.Screen screen;
+
+        public Entry(String release, long recordedAt, JankTelemetry.Screen screen) {
+            this.release = release;
+            this.recordedAt = recordedAt;
+            this.screen = screen;
+        }
+    }
+
+    private final File file;
+
+    public FrameMetricsLog(File file) {
+        this.file = file;
+    }
+
+    public synchronized void append(String release, long recordedAt, List<JankTelemetry.Screen> screens) throws IOException {
+        if (screens.isEmpty()) return;
+        List<String> lines = readLines();
+        for (JankTelemetry.Screen screen : screens) lines.add(encode(new Entry(release, recordedAt, screen)));
+        if (lines.size() > MAX_LINES) {
+            rewrite(lines.subList(lines.size() - MAX_LINES, lines.size()));
+            return;
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), UTF8)) {
+            for (int i = lines.size() - screens.size(); i < lines.size(); i++) {
+                out.write(lines.get(i));
+                out.write('\n');
+            }
+        }
+    }
+
+    /** All parseable entries, oldest first; malformed lines (e.g. a torn write) are skipped. */
+    public synchronized List<Entry> read() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : readLines()) {
+            Entry entry = decode(line);
+            if (entry != null) entries.add(entry);
+        }
+        return entries;
+    }
+
+    public synchronized void clear() {
+        file.delete();
+    }
+
+    static String encode(Entry entry) {
+        JankTelemetry.Screen s = entry.screen;
+        return StartupTracer.sanitize(entry.release) + '\t' + entry.recordedAt + '\t'
+                + StartupTracer.sanitize(s.tag) + '\t' + s.frames + '\t' + s.slow + '\t' + s.frozen + '\t'
+                + s.p50Micros + '\t' + s.p90Micros + '\t' + s.p99Micros + '\t' + s.maxMicros;
+    }
+
+    static Entry decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length != 10) return null;
+        try {
+            long[] v = new long[7];
+            for (int i = 0; i < v.length; i++) v[i] = Long.parseLong(parts[i + 3]);
+            return new Entry(parts[0], Long.parseLong(parts[1]),
+                    new JankTelemetry.Screen(parts[2], v[0], v[1], v[2], v[3], v[4], v[5], v[6]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<String> readLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) return lines;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void rewrite(List<String> lines) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), UTF8)) {
+            for (String line : lines) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+}
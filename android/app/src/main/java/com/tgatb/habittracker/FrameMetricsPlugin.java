@@ -0,0 +1,249 @@
+package com.tgatb.habittracker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.RequiresApi;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Jank telemetry for MainActivity's window. Off by default; while off no listener is
+ * registered, so the only cost is the {@link #setScreen} bridge calls. Needs API 24 for
+ * {@code OnFrameMetricsAvailableListener}; on API 23 it stays empty.
+ */
+@CapacitorPlugin(name = "FrameMetrics")
+public class FrameMetricsPlugin extends Plugin {
+    private static final String PREFS_NAME = "frame_metrics";
+    private static final String PREF_ENABLED = "enabled";
+    private static final String LOG_FILE = "frame_metrics.log";
+
+    private static final JankTelemetry TELEMETRY = new JankTelemetry();
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Runnable DRAIN = TELEMETRY::drain;
+
+    // Only touched on the UI thread.
+    private static HandlerThread metricsThread;
+    private static Object listener;
+    private static WeakReference<Window> attachedWindow = new WeakReference<>(null);
+
+    /** Called from MainActivity.onResume; registers the listener when telemetry is on. */
+    public static void attach(Activity activity) {
+        if (!isEnabled(activity)) {
+            detach(activity);
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) return;
+        Window window = activity.getWindow();
+        if (attachedWindow.get() == window) return;
+        detach(activity);
+        if (metricsThread == null) {
+            metricsThread = new HandlerThread("FrameMetrics");
+            metricsThread.start();
+        }
+        Listener l = new Listener(refreshNanos(activity));
+        window.addOnFrameMetricsAvailableListener(l, new Handler(metricsThread.getLooper()));
+        listener = l;
+        attachedWindow = new WeakReference<>(window);
+    }
+
+    public static void detach(Activity activity) {
+        Window window = attachedWindow.get();
+        if (window != null && listener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            try {
+                window.removeOnFrameMetricsAvailableListener((Window.OnFrameMetricsAvailableListener) listener);
+            } catch (IllegalArgumentException ignored) {
+                // Already gone with its window.
+            }
+        }
+        listener = null;
+        attachedWindow = new WeakReference<>(null);
+    }
+
+    /** Called from MainActivity.onPause: appends the interval since the last flush to the log. */
+    public static void onPause(Activity activity) {
+        if (listener == null) return;
+        final Context app = activity.getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                flush(app);
+            } catch (Exception ignored) {
+                // Telemetry must never affect the app.
+            }
+        });
+    }
+
+    @PluginMethod
+    public void setEnabled(PluginCall call) {
+        final boolean enabled = call.getBoolean("enabled", false);
+        prefs(getContext()).edit().putBoolean(PREF_ENABLED, enabled).apply();
+        final Activity activity = getActivity();
+        if (activity != null) {
+            activity.runOnUiThread(() -> {
+                if (enabled) attach(activity);
+                else detach(activity);
+            });
+        }
+        JSObject ret = new JSObject();
+        ret.put("enabled", enabled);
+        ret.put("supported", Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
+        call.resolve(ret);
+    }
+
+    /** Tags frames from now on, e.g. "home" or "history". */
+    @PluginMethod
+    public void setScreen(PluginCall call) {
+        String tag = call.getString("tag");
+        if (tag == null) {
+            call.reject("tag is required");
+            return;
+        }
+        TELEMETRY.setScreen(StartupTracer.sanitize(tag));
+        call.resolve();
+    }
+
+    /** Session p50/p90/p99 overall and per screen. */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        final boolean reset = call.getBoolean("reset", false);
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            JankTelemetry.Report report = TELEMETRY.report();
+            if (reset) TELEMETRY.reset();
+            JSObject ret = new JSObject();
+            ret.put("enabled", isEnabled(app));
+            ret.put("supported", Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
+            ret.put("screen", TELEMETRY.screen());
+            ret.put("dropped", report.dropped);
+            ret.put("total", toJson(report.total));
+            JSArray screens = new JSArray();
+            for (JankTelemetry.Screen screen : report.screens) screens.put(toJson(screen));
+            ret.put("screens", screens);
+            call.resolve(ret);
+        });
+    }
+
+    @PluginMethod
+    public void flush(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("screens", flush(app));
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to flush frame metrics: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getHistory(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        final String tag = call.getString("tag");
+        final int limit = Math.max(1, call.getInt("limit", 50));
+        EXECUTOR.execute(() -> {
+            try {
+                List<FrameMetricsLog.Entry> entries = log(app).read();
+                JSArray out = new JSArray();
+                for (int i = entries.size() - 1; i >= 0 && out.length() < limit; i--) {
+                    FrameMetricsLog.Entry entry = entries.get(i);
+                    if (tag != null && !tag.equals(entry.screen.tag)) continue;
+                    JSObject item = toJson(entry.screen);
+                    item.put("release", entry.release);
+                    item.put("recordedAt", entry.recordedAt);
+                    out.put(item);
+                }
+                JSObject ret = new JSObject();
+                ret.put("entries", out);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to read frame metrics history: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void clearHistory(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            log(app).clear();
+            call.resolve();
+        });
+    }
+
+    /** Runs on the executor. Returns how many screens were written. */
+    private static int flush(Context app) throws Exception {
+        JankTelemetry.Report report = TELEMETRY.takeInterval();
+        log(app).append(StartupTracePlugin.release(app), System.currentTimeMillis(), report.screens);
+        return report.screens.size();
+    }
+
+    private static JSObject toJson(JankTelemetry.Screen screen) {
+        JSObject item = new JSObject();
+        if (screen.tag != null) item.put("tag", screen.tag);
+        item.put("frames", screen.frames);
+        item.put("slow", screen.slow);
+        item.put("frozen", screen.frozen);
+        item.put("p50Ms", screen.p50Micros / 1000.0);
+        item.put("p90Ms", screen.p90Micros / 1000.0);
+        item.put("p99Ms", screen.p99Micros / 1000.0);
+        item.put("maxMs", screen.maxMicros / 1000.0);
+        return item;
+    }
+
+    private static boolean isEnabled(Context context) {
+        return prefs(context).getBoolean(PREF_ENABLED, false);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static FrameMetricsLog log(Context context) {
+        return new FrameMetricsLog(new File(context.getFilesDir(), LOG_FILE));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long refreshNanos(Activity activity) {
+        float hz = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        return (long) (1_000_000_000L / (hz >= 1f ? hz : 60f));
+    }
+
+    @RequiresApi(Build.VERSION_CODES.N)
+    private static final class Listener implements Window.OnFrameMetricsAvailableListener {
+        /** Frame budget before API 31, where each frame reports its own deadline. */
+        private final long refreshNanos;
+
+        Listener(long refreshNanos) {
+            this.refreshNanos = refreshNanos;
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics metrics, int dropCountSinceLastInvocation) {
+            if (dropCountSinceLastInvocation > 0) TELEMETRY.onDropped(dropCountSinceLastInvocation);
+            if (metrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) return;
+            long total = metrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            long deadline = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                    ? metrics.getMetric(FrameMetrics.DEADLINE) : refreshNanos;
+            if (TELEMETRY.onFrame(total, deadline)) EXECUTOR.execute(DRAIN);
+        }
+    }
+}
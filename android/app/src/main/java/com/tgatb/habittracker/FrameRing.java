@@ -0,0 +1,86 @@
+package com.tgatb.habittracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer, single-consumer ring of packed frame samples. The frame-metrics thread
+ * offers, the telemetry drain thread polls; neither blocks nor allocates. A full ring drops
+ * the new sample and counts it rather than stalling the producer.
+ *
+ * A sample packs the frame duration in microseconds (low 48 bits), the screen tag index
+ * (8 bits) and a slow flag into one {@code long}.
+ *
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class FrameRing {
+    static final long MICROS_MASK = (1L << 48) - 1;
+    private static final int TAG_SHIFT = 48;
+    private static final long SLOW_BIT = 1L << 56;
+
+    public interface Sink {
+        void accept(long micros, int tag, boolean slow);
+    }
+
+    private final long[] slots;
+    private final int mask;
+    /** Next slot to write; only the producer advances it. */
+    private final AtomicLong head = new AtomicLong();
+    /** Next slot to read; only the consumer advances it. */
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public FrameRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /** Producer side. Returns the ring size after the offer, or -1 when the sample was dropped. */
+    public int offer(long micros, int tag, boolean slow) {
+        long h = head.get();
+        long size = h - tail.get();
+        if (size >= slots.length) {
+            dropped.incrementAndGet();
+            return -1;
+        }
+        slots[(int) (h & mask)] = pack(micros, tag, slow);
+        // Ordered store: the slot write is visible before the consumer sees the new head.
+        head.lazySet(h + 1);
+        return (int) (size + 1);
+    }
+
+    /** Consumer side. Hands every available sample to {@code sink}; returns how many. */
+    public int drain(Sink sink) {
+        long t = tail.get();
+        long h = head.get();
+        for (long i = t; i < h; i++) {
+            long packed = slots[(int) (i & mask)];
+            sink.accept(packed & MICROS_MASK, (int) ((packed >>> TAG_SHIFT) & 0xFF), (packed & SLOW_BIT) != 0);
+        }
+        tail.lazySet(h);
+        return (int) (h - t);
+    }
+
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public void addDropped(long frames) {
+        if (frames > 0) dropped.addAndGet(frames);
+    }
+
+    static long pack(long micros, int tag, boolean slow) {
+        long value = Math.max(0L, Math.min(MICROS_MASK, micros));
+        return value | ((long) (tag & 0xFF) << TAG_SHIFT) | (slow ? SLOW_BIT : 0L);
+    }
+}
@@ -0,0 +1,657 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only store of habit logs backed by a memory-mapped file of fixed-width records.
+ *
+ * Every write (insert, overwrite or removal) appends one record, so a check-in costs a
+ * single 72-byte store instead of re-serializing the whole history. The latest record for
+ * a (habit, day) pair wins; superseded records are dropped by {@link #compact()}.
+ *
+ * Habit and device ids are interned into a side file of strings and referenced by slot.
+ * Log ids up to {@link #MAX_ID_LENGTH} UTF-8 bytes (a UUID) are stored inline; longer ones
+ * are interned the same way. This class has no Android dependencies so it can be
+ * unit-tested on the JVM.
+ */
+public final class HabitLogStore implements Closeable {
+    static final int MAGIC = 0x54474C47; // "TGLG"
+    /** Version 2 added interned log ids; version 1 files are read as is. */
+    static final short FORMAT_VERSION = 2;
+    static final short MIN_FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 72;
+    static final int MAX_ID_LENGTH = 36;
+    /** Limit for any id or habit id, far below what the keys file can hold. */
+    static final int MAX_KEY_BYTES = 1024;
+    /** Id-length value marking an interned log id; the id field then holds its key slot. */
+    private static final int ID_INTERNED = 0xFF;
+
+    private static final int OFF_HABIT = 0;
+    private static final int OFF_DAY = 4;
+    private static final int OFF_FLAGS = 8;
+    private static final int OFF_ID_LENGTH = 9;
+    private static final int OFF_DEVICE = 12;
+    private static final int OFF_TIMESTAMP = 16;
+    private static final int OFF_UPDATED_AT = 24;
+    private static final int OFF_VERSION = 32;
+    private static final int OFF_ID = 36;
+
+    private static final int HEADER_COUNT = 8;
+
+    static final int FLAG_COMPLETED = 1;
+    static final int FLAG_SOURCE_MANUAL = 1 << 1;
+    static final int FLAG_SOURCE_AUTO = 1 << 2;
+    static final int FLAG_DELETED = 1 << 3;
+    static final int FLAG_HAS_UPDATED_AT = 1 << 4;
+    static final int FLAG_HAS_VERSION = 1 << 5;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int COMPACT_MIN_DEAD = 512;
+
+    private final File dataFile;
+    private final File keysFile;
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> keySlots = new HashMap<>();
+    private final Map<Integer, DayIndex> habitIndex = new HashMap<>();
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private DataOutputStream keysOut;
+    private long capacity;
+    private long recordCount;
+    private long liveCount;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * Told about every change to the live logs, under the store lock. {@code before} and
+     * {@code after} are the completed flag of the log, or null when there is none.
+     */
+    public interface Listener {
+        void onLogChanged(String habitId, int epochDay, Boolean before, Boolean after);
+
+        void onCleared();
+    }
+
+    /** Decoded view of a single log, mirroring the web {@code HabitLog} shape. */
+    public static final class Entry {
+        public final String id;
+        public final String habitId;
+        public final int epochDay;
+        public final boolean completed;
+        public final long timestamp;
+        /** {@code "manual"}, {@code "auto"} or null. */
+        public final String source;
+        /** Epoch millis, or null when absent. */
+        public final Long updatedAt;
+        public final String deviceId;
+        public final Integer version;
+
+        public Entry(String id, String habitId, int epochDay, boolean completed, long timestamp,
+                     String source, Long updatedAt, String deviceId, Integer version) {
+            this.id = id;
+            this.habitId = habitId;
+            this.epochDay = epochDay;
+            this.completed = completed;
+            this.timestamp = timestamp;
+            this.source = source;
+            this.updatedAt = updatedAt;
+            this.deviceId = deviceId;
+            this.version = version;
+        }
+
+        public Entry(String id, String habitId, int epochDay, boolean completed, long timestamp, String source) {
+            this(id, habitId, epochDay, completed, timestamp, source, null, null, null);
+        }
+    }
+
+    public HabitLogStore(File dataFile) throws IOException {
+        this.dataFile = dataFile;
+        this.keysFile = new File(dataFile.getPath() + ".keys");
+        File parent = dataFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        loadKeys();
+        openData();
+    }
+
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Inserts or overwrites the log for {@code entry.habitId} on {@code entry.epochDay}. O(1). */
+    public synchronized void put(Entry entry) throws IOException {
+        String invalid = validate(entry);
+        if (invalid != null) throw new IllegalArgumentException(invalid);
+        byte[] id = encodeId(entry.id);
+        int habitSlot = intern(entry.habitId);
+        int deviceSlot = entry.deviceId != null ? intern(entry.deviceId) : -1;
+
+        int flags = entry.completed ? FLAG_COMPLETED : 0;
+        if ("manual".equals(entry.source)) flags |= FLAG_SOURCE_MANUAL;
+        else if ("auto".equals(entry.source)) flags |= FLAG_SOURCE_AUTO;
+        if (entry.updatedAt != null) flags |= FLAG_HAS_UPDATED_AT;
+        if (entry.version != null) flags |= FLAG_HAS_VERSION;
+
+        int idLength = id.length;
+        if (id.length > MAX_ID_LENGTH) {
+            id = slotBytes(intern(entry.id));
+            idLength = ID_INTERNED;
+        }
+        long index = appendRecord(habitSlot, entry.epochDay, flags, deviceSlot, entry.timestamp,
+                entry.updatedAt != null ? entry.updatedAt : 0L,
+                entry.version != null ? entry.version : 0, idLength, id);
+        DayIndex days = habitIndex.get(habitSlot);
+        if (days == null) {
+            days = new DayIndex();
+            habitIndex.put(habitSlot, days);
+        }
+        long previous = days.set(entry.epochDay, index);
+        if (previous < 0) {
+            liveCount++;
+        }
+        if (!listeners.isEmpty()) {
+            Boolean before = previous < 0 ? null : isCompleted(previous);
+            for (Listener listener : listeners) {
+                listener.onLogChanged(entry.habitId, entry.epochDay, before, entry.completed);
+            }
+        }
+    }
+
+    /**
+     * Why {@link #put} would refuse {@code entry}, or null when it is storable. Lets batch
+     * callers drop bad records one by one instead of failing the whole batch.
+     */
+    public static String validate(Entry entry) {
+        if (entry.id == null || entry.id.isEmpty()) return "Log id is required";
+        if (entry.habitId == null || entry.habitId.isEmpty()) return "Log habitId is required";
+        if (utf8Length(entry.id) > MAX_KEY_BYTES) return "Log id longer than " + MAX_KEY_BYTES + " bytes";
+        if (utf8Length(entry.habitId) > MAX_KEY_BYTES) return "habitId longer than " + MAX_KEY_BYTES + " bytes";
+        if (entry.deviceId != null && utf8Length(entry.deviceId) > MAX_KEY_BYTES) {
+            return "deviceId longer than " + MAX_KEY_BYTES + " bytes";
+        }
+        return null;
+    }
+
+    public synchronized void putAll(List<Entry> entries) throws IOException {
+        ensureCapacity(recordCount + entries.size());
+        for (Entry entry : entries) {
+            put(entry);
+        }
+    }
+
+    /** Removes the log for a habit on a day. Returns false when nothing was stored. */
+    public synchronized boolean remove(String habitId, int epochDay) throws IOException {
+        Integer habitSlot = keySlots.get(habitId);
+        if (habitSlot == null) return false;
+        DayIndex days = habitIndex.get(habitSlot);
+        if (days == null || days.get(epochDay) < 0) return false;
+
+        boolean before = isCompleted(days.get(epochDay));
+        appendRecord(habitSlot, epochDay, FLAG_DELETED, -1, 0L, 0L, 0, 0, new byte[0]);
+        days.clear(epochDay);
+        liveCount--;
+        for (Listener listener : listeners) {
+            listener.onLogChanged(habitId, epochDay, before, null);
+        }
+        return true;
+    }
+
+    /** Drops every log of a habit (e.g. after the habit is deleted). Returns the number removed. */
+    public synchronized int removeHabit(String habitId) throws IOException {
+        Integer habitSlot = keySlots.get(habitId);
+        if (habitSlot == null) return 0;
+        DayIndex days = habitIndex.get(habitSlot);
+        if (days == null) return 0;
+
+        int removed = 0;
+        for (int day = days.firstDay(); day <= days.lastDay(); day++) {
+            if (days.get(day) >= 0 && remove(habitId, day)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized Entry get(String habitId, int epochDay) {
+        Integer habitSlot = keySlots.get(habitId);
+        if (habitSlot == null) return null;
+        DayIndex days = habitIndex.get(habitSlot);
+        if (days == null) return null;
+        long index = days.get(epochDay);
+        return index < 0 ? null : readEntry(index);
+    }
+
+    public synchronized boolean contains(String habitId, int epochDay) {
+        Integer habitSlot = keySlots.get(habitId);
+        if (habitSlot == null) return false;
+        DayIndex days = habitIndex.get(habitSlot);
+        return days != null && days.get(epochDay) >= 0;
+    }
+
+    /** Logs of one habit with {@code fromDay <= day <= toDay}, ascending by day. */
+    public synchronized List<Entry> range(String habitId, int fromDay, int toDay) {
+        List<Entry> out = new ArrayList<>();
+        Integer habitSlot = keySlots.get(habitId);
+        if (habitSlot == null) return out;
+        DayIndex days = habitIndex.get(habitSlot);
+        if (days == null) return out;
+
+        int from = Math.max(fromDay, days.firstDay());
+        int to = Math.min(toDay, days.lastDay());
+        for (int day = from; day <= to; day++) {
+            long index = days.get(day);
+            if (index >= 0) {
+                out.add(readEntry(index));
+            }
+        }
+        return out;
+    }
+
+    /** Logs of every habit with {@code fromDay <= day <= toDay}, grouped by habit. */
+    public synchronized List<Entry> rangeAll(int fromDay, int toDay) {
+        List<Entry> out = new ArrayList<>();
+        for (String habitId : habitIds()) {
+            out.addAll(range(habitId, fromDay, toDay));
+        }
+        return out;
+    }
+
+    public synchronized List<String> habitIds() {
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<Integer, DayIndex> e : habitIndex.entrySet()) {
+            if (!e.getValue().isEmpty()) {
+                out.add(keys.get(e.getKey()));
+            }
+        }
+        return out;
+    }
+
+    public synchronized long liveCount() {
+        return liveCount;
+    }
+
+    public synchronized long recordCount() {
+        return recordCount;
+    }
+
+    /** True once superseded records outnumber live ones by enough to be worth a rewrite. */
+    public synchronized boolean needsCompaction() {
+        long dead = recordCount - liveCount;
+        return dead >= COMPACT_MIN_DEAD && dead >= liveCount;
+    }
+
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (!needsCompaction()) return false;
+        compact();
+        return true;
+    }
+
+    /** Rewrites the file with only the live records, ordered by habit then day. */
+    public synchronized void compact() throws IOException {
+        File tmp = new File(dataFile.getPath() + ".tmp");
+        long live = liveCount;
+        long newCapacity = Math.max(INITIAL_CAPACITY, live + live / 2);
+
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            MappedByteBuffer outBuf = outChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + newCapacity * RECORD_SIZE);
+            outBuf.order(ByteOrder.LITTLE_ENDIAN);
+
+            long written = 0;
+            byte[] record = new byte[RECORD_SIZE];
+            for (DayIndex days : habitIndex.values()) {
+                for (int day = days.firstDay(); day <= days.lastDay(); day++) {
+                    long index = days.get(day);
+                    if (index < 0) continue;
+                    buffer.position(recordOffset(index));
+                    buffer.get(record);
+                    outBuf.position(recordOffset(written));
+                    outBuf.put(record);
+                    days.set(day, written);
+                    written++;
+                }
+            }
+            writeHeader(outBuf, written);
+            outBuf.force();
+        }
+
+        closeData();
+        if (!tmp.renameTo(dataFile)) {
+            throw new IOException("Cannot replace " + dataFile);
+        }
+        openData();
+    }
+
+    /** Forces mapped writes and interned keys to disk. */
+    public synchronized void flush() throws IOException {
+        if (buffer != null) buffer.force();
+        if (keysOut != null) keysOut.flush();
+    }
+
+    /** Removes all data, keeping the store open and empty. */
+    public synchronized void clear() throws IOException {
+        closeData();
+        closeKeys();
+        if (dataFile.exists() && !dataFile.delete()) throw new IOException("Cannot delete " + dataFile);
+        if (keysFile.exists() && !keysFile.delete()) throw new IOException("Cannot delete " + keysFile);
+        keys.clear();
+        keySlots.clear();
+        habitIndex.clear();
+        loadKeys();
+        openData();
+        for (Listener listener : listeners) {
+            listener.onCleared();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        closeData();
+        closeKeys();
+    }
+
+    private long appendRecord(int habitSlot, int epochDay, int flags, int deviceSlot, long timestamp,
+                              long updatedAt, int version, int idLength, byte[] id) throws IOException {
+        ensureCapacity(recordCount + 1);
+        long index = recordCount;
+        int offset = recordOffset(index);
+        buffer.putInt(offset + OFF_HABIT, habitSlot);
+        buffer.putInt(offset + OFF_DAY, epochDay);
+        buffer.put(offset + OFF_FLAGS, (byte) flags);
+        buffer.put(offset + OFF_ID_LENGTH, (byte) idLength);
+        buffer.putShort(offset + OFF_ID_LENGTH + 1, (short) 0);
+        buffer.putInt(offset + OFF_DEVICE, deviceSlot);
+        buffer.putLong(offset + OFF_TIMESTAMP, timestamp);
+        buffer.putLong(offset + OFF_UPDATED_AT, updatedAt);
+        buffer.putInt(offset + OFF_VERSION, version);
+        for (int i = 0; i < MAX_ID_LENGTH; i++) {
+            buffer.put(offset + OFF_ID + i, i < id.length ? id[i] : 0);
+        }
+        // Publish the record only after its bytes are in place.
+        recordCount = index + 1;
+        buffer.putLong(HEADER_COUNT, recordCount);
+        return index;
+    }
+
+    private boolean isCompleted(long index) {
+        return (buffer.get(recordOffset(index) + OFF_FLAGS) & FLAG_COMPLETED) != 0;
+    }
+
+    private Entry readEntry(long index) {
+        int offset = recordOffset(index);
+        int habitSlot = buffer.getInt(offset + OFF_HABIT);
+        int epochDay = buffer.getInt(offset + OFF_DAY);
+        int flags = buffer.get(offset + OFF_FLAGS);
+        int idLength = buffer.get(offset + OFF_ID_LENGTH) & 0xFF;
+        int deviceSlot = buffer.getInt(offset + OFF_DEVICE);
+        long timestamp = buffer.getLong(offset + OFF_TIMESTAMP);
+        long updatedAt = buffer.getLong(offset + OFF_UPDATED_AT);
+        int version = buffer.getInt(offset + OFF_VERSION);
+
+        String id;
+        if (idLength == ID_INTERNED) {
+            id = keys.get(buffer.getInt(offset + OFF_ID));
+        } else {
+            byte[] bytes = new byte[idLength];
+            for (int i = 0; i < idLength; i++) {
+                bytes[i] = buffer.get(offset + OFF_ID + i);
+            }
+            id = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String source = null;
+        if ((flags & FLAG_SOURCE_MANUAL) != 0) source = "manual";
+        else if ((flags & FLAG_SOURCE_AUTO) != 0) source = "auto";
+
+        return new Entry(
+                id,
+                keys.get(habitSlot),
+                epochDay,
+                (flags & FLAG_COMPLETED) != 0,
+                timestamp,
+                source,
+                (flags & FLAG_HAS_UPDATED_AT) != 0 ? updatedAt : null,
+                deviceSlot >= 0 && deviceSlot < keys.size() ? keys.get(deviceSlot) : null,
+                (flags & FLAG_HAS_VERSION) != 0 ? version : null
+        );
+    }
+
+    private void openData() throws IOException {
+        boolean fresh = !dataFile.exists() || dataFile.length() < HEADER_SIZE;
+        raf = new RandomAccessFile(dataFile, "rw");
+        channel = raf.getChannel();
+
+        long storedCount = 0;
+        if (!fresh) {
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            head.order(ByteOrder.LITTLE_ENDIAN);
+            short version = head.getShort(4);
+            if (head.getInt(0) != MAGIC || version < MIN_FORMAT_VERSION || version > FORMAT_VERSION
+                    || head.getShort(6) != RECORD_SIZE) {
+                closeData();
+                throw new IOException("Unrecognized log store format: " + dataFile);
+            }
+            storedCount = head.getLong(HEADER_COUNT);
+        }
+
+        // Never trust a count that points past the end of the file (torn header write).
+        long onDisk = Math.max(0, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        recordCount = Math.min(storedCount, onDisk);
+        capacity = Math.max(INITIAL_CAPACITY, onDisk);
+        map(capacity);
+        writeHeader(buffer, recordCount);
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        habitIndex.clear();
+        liveCount = 0;
+        for (long index = 0; index < recordCount; index++) {
+            int offset = recordOffset(index);
+            int habitSlot = buffer.getInt(offset + OFF_HABIT);
+            if (habitSlot < 0 || habitSlot >= keys.size()) continue;
+            if ((buffer.get(offset + OFF_ID_LENGTH) & 0xFF) == ID_INTERNED) {
+                int idSlot = buffer.getInt(offset + OFF_ID);
+                // Its id was lost with a torn keys file tail, like a missing habit slot.
+                if (idSlot < 0 || idSlot >= keys.size()) continue;
+            }
+            int epochDay = buffer.getInt(offset + OFF_DAY);
+            boolean deleted = (buffer.get(offset + OFF_FLAGS) & FLAG_DELETED) != 0;
+
+            DayIndex days = habitIndex.get(habitSlot);
+            if (days == null) {
+                days = new DayIndex();
+                habitIndex.put(habitSlot, days);
+            }
+            if (deleted) {
+                if (days.clear(epochDay)) liveCount--;
+            } else if (days.set(epochDay, index) < 0) {
+                liveCount++;
+            }
+        }
+    }
+
+    private void ensureCapacity(long records) throws IOException {
+        if (records <= capacity) return;
+        long next = capacity;
+        while (next < records) next *= 2;
+        map(next);
+    }
+
+    private void map(long records) throws IOException {
+        capacity = records;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + records * RECORD_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeHeader(MappedByteBuffer buf, long count) {
+        buf.putInt(0, MAGIC);
+        buf.putShort(4, FORMAT_VERSION);
+        buf.putShort(6, (short) RECORD_SIZE);
+        buf.putLong(HEADER_COUNT, count);
+    }
+
+    private void closeData() throws IOException {
+        buffer = null;
+        if (channel != null) {
+            // Trim the unused mapped tail so the file length tracks the record count.
+            channel.truncate(HEADER_SIZE + recordCount * RECORD_SIZE);
+            channel.close();
+            channel = null;
+        }
+        if (raf != null) {
+            raf.close();
+            raf = null;
+        }
+    }
+
+    private void loadKeys() throws IOException {
+        long validLength = 0;
+        if (keysFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(keysFile)))) {
+                while (true) {
+                    String key = in.readUTF();
+                    keySlots.put(key, keys.size());
+                    keys.add(key);
+                    validLength += 2 + modifiedUtf8Length(key);
+                }
+            } catch (EOFException endOfKeys) {
+                // A torn trailing entry is dropped; records referencing it are skipped on load.
+            }
+            try (RandomAccessFile trim = new RandomAccessFile(keysFile, "rw")) {
+                trim.setLength(validLength);
+            }
+        }
+        keysOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(keysFile, true)));
+    }
+
+    private void closeKeys() throws IOException {
+        if (keysOut != null) {
+            keysOut.close();
+            keysOut = null;
+        }
+    }
+
+    private int intern(String key) throws IOException {
+        Integer slot = keySlots.get(key);
+        if (slot != null) return slot;
+        keysOut.writeUTF(key);
+        // Keys must reach the file before any record that references them.
+        keysOut.flush();
+        int next = keys.size();
+        keys.add(key);
+        keySlots.put(key, next);
+        return next;
+    }
+
+    private static byte[] encodeId(String id) {
+        return id.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] slotBytes(int slot) {
+        // Read back with buffer.getInt, so in the buffer's byte order.
+        return new byte[] {(byte) slot, (byte) (slot >>> 8), (byte) (slot >>> 16), (byte) (slot >>> 24)};
+    }
+
+    /** Bytes {@link DataOutputStream#writeUTF} writes for {@code value}, after its length prefix. */
+    private static int modifiedUtf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+        }
+        return length;
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static int recordOffset(long index) {
+        return (int) (HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /** Dense day -> record index map for one habit; grows in both directions. */
+    private static final class DayIndex {
+        private int baseDay;
+        private long[] slots = new long[0];
+        private int size;
+
+        long get(int day) {
+            int i = day - baseDay;
+            return i < 0 || i >= slots.length ? -1 : slots[i] - 1;
+        }
+
+        /** Returns the previous record index, or -1 when the day was empty. */
+        long set(int day, long index) {
+            if (slots.length == 0) {
+                baseDay = day;
+                slots = new long[32];
+            }
+            int i = day - baseDay;
+            if (i < 0) {
+                int grow = Math.max(-i, slots.length / 2);
+                long[] next = new long[slots.length + grow];
+                System.arraycopy(slots, 0, next, grow, slots.length);
+                slots = next;
+                baseDay -= grow;
+                i += grow;
+            } else if (i >= slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(i + 1, slots.length * 2));
+            }
+            long previous = slots[i] - 1;
+            slots[i] = index + 1;
+            if (previous < 0) size++;
+            return previous;
+        }
+
+        boolean clear(int day) {
+            int i = day - baseDay;
+            if (i < 0 || i >= slots.length || slots[i] == 0) return false;
+            slots[i] = 0;
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int firstDay() {
+            return baseDay;
+        }
+
+        int lastDay() {
+            return baseDay + slots.length - 1;
+        }
+    }
+}
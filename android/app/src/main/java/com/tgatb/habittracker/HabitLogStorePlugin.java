@@ -0,0 +1,274 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@CapacitorPlugin(name = "HabitLogStore")
+public class HabitLogStorePlugin extends Plugin {
+    static final String DEFAULT_SCOPE = ScopeNames.DEFAULT_SCOPE;
+    static final String STORE_DIR = "habit_logs";
+    private static final Map<String, HabitLogStore> STORES = new HashMap<>();
+    private static final Map<String, DailyRollup> ROLLUPS = new HashMap<>();
+    private static final Set<String> MIGRATED = new HashSet<>();
+
+    private final ExecutorService maintenance = Executors.newSingleThreadExecutor();
+
+    /** Shared per-account store; also used by native code that runs without the bridge. */
+    public static HabitLogStore storeFor(Context context, String scope) throws IOException {
+        String key = sanitizeScope(scope);
+        synchronized (STORES) {
+            HabitLogStore store = STORES.get(key);
+            if (store == null) {
+                File dir = storeDir(context, scope);
+                store = new HabitLogStore(new File(dir, key + ".bin"));
+                STORES.put(key, store);
+                // Attached before anyone else sees the store so no write is missed.
+                ROLLUPS.put(key, DailyRollup.open(new File(dir, key + ".rollup"), store,
+                        HabitSnapshot.read(AutoFinalizePlugin.snapshotFile(context, scope))));
+            }
+            return store;
+        }
+    }
+
+    /** Directory of every per-scope file; the first call per scope renames files saved under its legacy name. */
+    static File storeDir(Context context, String scope) {
+        File dir = new File(context.getFilesDir(), STORE_DIR);
+        synchronized (MIGRATED) {
+            if (MIGRATED.add(sanitizeScope(scope))) ScopeNames.migrateLegacy(dir, scope);
+        }
+        return dir;
+    }
+
+    /** Day counters kept in step with {@link #storeFor}'s store for the same scope. */
+    public static DailyRollup rollupFor(Context context, String scope) throws IOException {
+        storeFor(context, scope);
+        synchronized (STORES) {
+            return ROLLUPS.get(sanitizeScope(scope));
+        }
+    }
+
+    @PluginMethod
+    public void put(PluginCall call) {
+        JSArray logs = call.getArray("logs");
+        if (logs == null) {
+            call.reject("logs is required");
+            return;
+        }
+        try {
+            call.resolve(putLogs(store(call), logs));
+        } catch (Exception e) {
+            call.reject("Failed to write logs: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void remove(PluginCall call) {
+        String habitId = call.getString("habitId");
+        String date = call.getString("date");
+        if (habitId == null || date == null) {
+            call.reject("habitId and date are required");
+            return;
+        }
+        try {
+            boolean removed = store(call).remove(habitId, EpochDays.parse(date));
+            JSObject ret = new JSObject();
+            ret.put("removed", removed);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to remove log: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void removeHabit(PluginCall call) {
+        String habitId = call.getString("habitId");
+        if (habitId == null) {
+            call.reject("habitId is required");
+            return;
+        }
+        try {
+            JSObject ret = new JSObject();
+            ret.put("removed", store(call).removeHabit(habitId));
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to remove habit logs: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void query(PluginCall call) {
+        String habitId = call.getString("habitId");
+        String from = call.getString("from");
+        String to = call.getString("to");
+        try {
+            int fromDay = from != null ? EpochDays.parse(from) : Integer.MIN_VALUE;
+            int toDay = to != null ? EpochDays.parse(to) : Integer.MAX_VALUE;
+            HabitLogStore store = store(call);
+            List<HabitLogStore.Entry> entries = habitId != null
+                    ? store.range(habitId, fromDay, toDay)
+                    : store.rangeAll(fromDay, toDay);
+
+            JSArray logs = new JSArray();
+            for (HabitLogStore.Entry entry : entries) {
+                logs.put(toJson(entry));
+            }
+            JSObject ret = new JSObject();
+            ret.put("logs", logs);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to read logs: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void compact(PluginCall call) {
+        try {
+            HabitLogStore store = store(call);
+            store.compact();
+            JSObject ret = new JSObject();
+            ret.put("records", store.recordCount());
+            ret.put("live", store.liveCount());
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to compact logs: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        try {
+            store(call).clear();
+            call.resolve();
+        } catch (Exception e) {
+            call.reject("Failed to clear logs: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void handleOnPause() {
+        super.handleOnPause();
+        maintenance.execute(HabitLogStorePlugin::flushAndCompactAll);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        maintenance.shutdown();
+    }
+
+    private static void flushAndCompactAll() {
+        synchronized (STORES) {
+            for (HabitLogStore store : STORES.values()) {
+                try {
+                    store.compactIfNeeded();
+                    store.flush();
+                } catch (IOException ignored) {
+                    // Non-fatal: the append log stays valid and compaction retries on next pause.
+                }
+            }
+            for (DailyRollup rollup : ROLLUPS.values()) {
+                try {
+                    rollup.flush();
+                } catch (IOException ignored) {
+                    // Non-fatal: a stale rollup is rebuilt from the store when next opened.
+                }
+            }
+        }
+    }
+
+    /**
+     * Shared by {@link #put} and NativeBatch. Malformed logs are skipped and reported in
+     * {@code rejected} ({@code {index, id, error}}); the rest of the batch is written.
+     */
+    static JSObject putLogs(HabitLogStore store, JSONArray logs) throws Exception {
+        List<HabitLogStore.Entry> entries = new ArrayList<>(logs.length());
+        JSArray rejected = new JSArray();
+        for (int i = 0; i < logs.length(); i++) {
+            JSONObject log = logs.optJSONObject(i);
+            String error;
+            try {
+                HabitLogStore.Entry entry = toEntry(log != null ? log : new JSONObject());
+                error = HabitLogStore.validate(entry);
+                if (error == null) entries.add(entry);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                JSObject item = new JSObject();
+                item.put("index", i);
+                item.put("id", log != null && log.has("id") ? log.opt("id") : JSONObject.NULL);
+                item.put("error", error);
+                rejected.put(item);
+            }
+        }
+        store.putAll(entries);
+        JSObject ret = new JSObject();
+        ret.put("written", entries.size());
+        ret.put("live", store.liveCount());
+        ret.put("rejected", rejected);
+        return ret;
+    }
+
+    private HabitLogStore store(PluginCall call) throws IOException {
+        return storeFor(getContext(), call.getString("scope", DEFAULT_SCOPE));
+    }
+
+    static HabitLogStore.Entry toEntry(JSONObject log) {
+        String id = log.optString("id", null);
+        String habitId = log.optString("habitId", null);
+        String date = log.optString("date", null);
+        if (id == null || habitId == null || date == null) {
+            throw new IllegalArgumentException("Log requires id, habitId and date");
+        }
+        return new HabitLogStore.Entry(
+                id,
+                habitId,
+                EpochDays.parse(date),
+                log.optBoolean("completed", false),
+                log.optLong("timestamp", 0L),
+                log.has("source") && !log.isNull("source") ? log.optString("source") : null,
+                log.has("updatedAt") && !log.isNull("updatedAt") ? log.optLong("updatedAt") : null,
+                log.has("deviceId") && !log.isNull("deviceId") ? log.optString("deviceId") : null,
+                log.has("version") && !log.isNull("version") ? log.optInt("version") : null
+        );
+    }
+
+    static JSObject toJson(HabitLogStore.Entry entry) {
+        JSObject log = new JSObject();
+        log.put("id", entry.id);
+        log.put("habitId", entry.habitId);
+        log.put("date", EpochDays.format(entry.epochDay));
+        log.put("completed", entry.completed);
+        log.put("timestamp", entry.timestamp);
+        if (entry.source != null) log.put("source", entry.source);
+        if (entry.updatedAt != null) log.put("updatedAt", entry.updatedAt);
+        if (entry.deviceId != null) log.put("deviceId", entry.deviceId);
+        if (entry.version != null) log.put("version", entry.version);
+        return log;
+    }
+
+    /** File-name form of a scope; distinct scopes never share one (see {@link ScopeNames}). */
+    static String sanitizeScope(String scope) {
+        return ScopeNames.fileName(scope);
+    }
+}
@@ -0,0 +1,122 @@
+package com.tgatb.habittracker;
+
+/**
+ * Native mirror of the web {@code HabitSchedule} and {@code isExpectedDate} in lib/schedule.ts.
+ *
+ * Besides the per-day check, schedules can fill expected-day bitsets one 64-day word at a
+ * time, which is what the streak and finalization paths use instead of walking dates.
+ */
+public final class HabitSchedule {
+    public static final int DAILY = 0;
+    public static final int INTERVAL = 1;
+    public static final int WEEKLY = 2;
+
+    private static final int DEFAULT_INTERVAL_DAYS = 2;
+
+    public final int type;
+    public final int intervalDays;
+    /** Bit {@code n} set when day-of-week {@code n} (0=Sun) is expected; 0 means every day. */
+    public final int daysOfWeekMask;
+    /** Anchor for interval schedules: intervalStartDate, else createdAt, as an epoch day. */
+    public final int anchorDay;
+
+    private final long[] weeklyWords;
+
+    private HabitSchedule(int type, int intervalDays, int daysOfWeekMask, int anchorDay) {
+        this.type = type;
+        this.intervalDays = intervalDays;
+        this.daysOfWeekMask = daysOfWeekMask;
+        this.anchorDay = anchorDay;
+        this.weeklyWords = type == WEEKLY && daysOfWeekMask != 0 ? buildWeeklyWords(daysOfWeekMask) : null;
+    }
+
+    public static HabitSchedule daily() {
+        return new HabitSchedule(DAILY, 0, 0, 0);
+    }
+
+    public static HabitSchedule interval(int intervalDays, int anchorDay) {
+        return new HabitSchedule(INTERVAL, intervalDays > 0 ? intervalDays : DEFAULT_INTERVAL_DAYS, 0, anchorDay);
+    }
+
+    public static HabitSchedule weekly(int daysOfWeekMask) {
+        return new HabitSchedule(WEEKLY, 0, daysOfWeekMask & 0x7F, 0);
+    }
+
+    /**
+     * Builds a schedule from the web representation. Unknown types fall back to daily,
+     * matching the {@code default} branch of {@code isExpectedDate}.
+     */
+    public static HabitSchedule of(String type, Integer intervalDays, int[] daysOfWeek, int anchorDay) {
+        if ("interval".equals(type)) {
+            return interval(intervalDays != null ? intervalDays : DEFAULT_INTERVAL_DAYS, anchorDay);
+        }
+        if ("weekly".equals(type)) {
+            int mask = 0;
+            if (daysOfWeek != null) {
+                for (int day : daysOfWeek) {
+                    if (day >= 0 && day <= 6) mask |= 1 << day;
+                }
+            }
+            return weekly(mask);
+        }
+        return daily();
+    }
+
+    public boolean isExpected(int epochDay) {
+        switch (type) {
+            case INTERVAL: {
+                int diff = epochDay - anchorDay;
+                return diff >= 0 && diff % intervalDays == 0;
+            }
+            case WEEKLY:
+                return daysOfWeekMask == 0 || (daysOfWeekMask & (1 << EpochDays.dayOfWeek(epochDay))) != 0;
+            case DAILY:
+            default:
+                return true;
+        }
+    }
+
+    /** Expected-day mask for the 64 days starting at {@code firstDay} (bit 0 = firstDay). */
+    public long word(int firstDay) {
+        switch (type) {
+            case INTERVAL: {
+                long last = (long) firstDay + 63;
+                if (last < anchorDay) return 0L;
+                int offset = Math.floorMod(anchorDay - firstDay, intervalDays);
+                if (firstDay + offset < anchorDay) offset = anchorDay - firstDay;
+                long mask = 0L;
+                for (int bit = offset; bit < 64; bit += intervalDays) {
+                    mask |= 1L << bit;
+                }
+                return mask;
+            }
+            case WEEKLY:
+                return weeklyWords == null ? -1L : weeklyWords[EpochDays.dayOfWeek(firstDay)];
+            case DAILY:
+            default:
+                return -1L;
+        }
+    }
+
+    /** Fills {@code words[from..to)} where word {@code i} covers days {@code baseDay + 64 * i}. */
+    public void fill(long[] words, int baseDay, int from, int to) {
+        for (int i = from; i < to; i++) {
+            words[i] = word(baseDay + (i << 6));
+        }
+    }
+
+    /** One precomputed 64-day mask per weekday the word starts on. */
+    private static long[] buildWeeklyWords(int mask) {
+        long[] words = new long[7];
+        for (int startDow = 0; startDow < 7; startDow++) {
+            long word = 0L;
+            for (int bit = 0; bit < 64; bit++) {
+                if ((mask & (1 << ((startDow + bit) % 7))) != 0) {
+                    word |= 1L << bit;
+                }
+            }
+            words[startDow] = word;
+        }
+        return words;
+    }
+}
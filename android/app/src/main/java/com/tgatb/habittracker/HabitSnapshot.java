@@ -0,0 +1,107 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact native copy of the habit list, mirrored from JS so native work (backfill,
+ * reminders) can run before the WebView has booted.
+ */
+public final class HabitSnapshot {
+    private static final int MAGIC = 0x54474853; // "TGHS"
+    private static final int VERSION = 1;
+
+    public static final class Habit {
+        public final String id;
+        public final String name;
+        public final boolean bad;
+        public final int createdDay;
+        public final HabitSchedule schedule;
+
+        public Habit(String id, String name, boolean bad, int createdDay, HabitSchedule schedule) {
+            this.id = id;
+            this.name = name;
+            this.bad = bad;
+            this.createdDay = createdDay;
+            this.schedule = schedule;
+        }
+    }
+
+    public final List<Habit> habits;
+
+    public HabitSnapshot(List<Habit> habits) {
+        this.habits = Collections.unmodifiableList(new ArrayList<>(habits));
+    }
+
+    public static HabitSnapshot empty() {
+        return new HabitSnapshot(Collections.<Habit>emptyList());
+    }
+
+    /** Reads a snapshot; a missing or unreadable file yields an empty snapshot. */
+    public static HabitSnapshot read(File file) {
+        if (!file.exists()) return empty();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) return empty();
+            int count = in.readInt();
+            List<Habit> habits = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String name = in.readUTF();
+                boolean bad = in.readBoolean();
+                int createdDay = in.readInt();
+                int type = in.readUnsignedByte();
+                int intervalDays = in.readInt();
+                int daysMask = in.readUnsignedByte();
+                int anchorDay = in.readInt();
+                HabitSchedule schedule;
+                if (type == HabitSchedule.INTERVAL) {
+                    schedule = HabitSchedule.interval(intervalDays, anchorDay);
+                } else if (type == HabitSchedule.WEEKLY) {
+                    schedule = HabitSchedule.weekly(daysMask);
+                } else {
+                    schedule = HabitSchedule.daily();
+                }
+                habits.add(new Habit(id, name, bad, createdDay, schedule));
+            }
+            return new HabitSnapshot(habits);
+        } catch (IOException e) {
+            return empty();
+        }
+    }
+
+    /** Writes atomically so a crash never leaves a half-written snapshot behind. */
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(habits.size());
+            for (Habit habit : habits) {
+                out.writeUTF(habit.id);
+                out.writeUTF(habit.name != null ? habit.name : "");
+                out.writeBoolean(habit.bad);
+                out.writeInt(habit.createdDay);
+                out.writeByte(habit.schedule.type);
+                out.writeInt(habit.schedule.intervalDays);
+                out.writeByte(habit.schedule.daysOfWeekMask);
+                out.writeInt(habit.schedule.anchorDay);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+}
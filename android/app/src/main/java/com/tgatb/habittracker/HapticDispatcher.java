@@ -0,0 +1,181 @@
+package com.tgatb.habittracker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays haptic effects on a dedicated thread instead of the bridge thread.
+ *
+ * Immediate events go through a single lock-free pending slot: an event replaces the
+ * pending one unless that one has a higher priority, so a streak that follows a tap is
+ * delayed by the minimum gap rather than dropped. Timed sequence steps wait in a
+ * concurrent skip list and enter the same slot when due.
+ */
+public final class HapticDispatcher<E> {
+    static final long DEFAULT_MIN_GAP_MS = 28L;
+    /** Returned by {@link #runOnce} when there is nothing to wait for. */
+    static final long IDLE = -1L;
+
+    /** Receives effects on the dispatch thread. */
+    public interface Player<E> {
+        void play(E effect);
+    }
+
+    /** Immutable so callers can cache one per (event, profile) and enqueue without allocating. */
+    public static final class Request<E> {
+        final E effect;
+        final int priority;
+
+        public Request(E effect, int priority) {
+            this.effect = effect;
+            this.priority = priority;
+        }
+    }
+
+    private static final class DueKey implements Comparable<DueKey> {
+        final long dueNanos;
+        final long seq;
+
+        DueKey(long dueNanos, long seq) {
+            this.dueNanos = dueNanos;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(DueKey other) {
+            if (dueNanos != other.dueNanos) return dueNanos < other.dueNanos ? -1 : 1;
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private final Player<E> player;
+    private final long minGapNanos;
+    private final AtomicReference<Request<E>> pending = new AtomicReference<>();
+    private final ConcurrentSkipListMap<DueKey, Request<E>> scheduled = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong played = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private long lastPlayNanos = Long.MIN_VALUE / 2;
+
+    public HapticDispatcher(Player<E> player, long minGapMs) {
+        this.player = player;
+        this.minGapNanos = minGapMs * 1_000_000L;
+    }
+
+    public synchronized void start(ThreadFactory factory) {
+        if (running) return;
+        running = true;
+        Thread t = factory.newThread(this::loop);
+        thread = t;
+        t.start();
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    /** Queues an event for immediate playback, coalescing with whatever is pending. */
+    public void offer(Request<E> request) {
+        if (coalesce(request)) wake();
+    }
+
+    /** Queues an event to be offered {@code delayMs} from now. */
+    public void schedule(Request<E> request, long delayMs) {
+        schedule(request, delayMs, System.nanoTime());
+    }
+
+    void schedule(Request<E> request, long delayMs, long nowNanos) {
+        scheduled.put(new DueKey(nowNanos + delayMs * 1_000_000L, sequence.incrementAndGet()), request);
+        wake();
+    }
+
+    /** Drops everything queued but not yet played. */
+    public void cancelPending() {
+        pending.set(null);
+        scheduled.clear();
+    }
+
+    public long playedCount() {
+        return played.get();
+    }
+
+    public long coalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * One step of the dispatch loop at {@code nowNanos}: promotes due steps, plays the
+     * pending event if the gap allows, and returns how long to park (or {@link #IDLE}).
+     */
+    long runOnce(long nowNanos) {
+        Map.Entry<DueKey, Request<E>> due;
+        while ((due = scheduled.firstEntry()) != null && due.getKey().dueNanos <= nowNanos) {
+            if (scheduled.remove(due.getKey()) != null) {
+                coalesce(due.getValue());
+            }
+        }
+
+        if (pending.get() != null) {
+            long wait = lastPlayNanos + minGapNanos - nowNanos;
+            if (wait > 0) return wait;
+            Request<E> request = pending.getAndSet(null);
+            if (request != null) {
+                lastPlayNanos = nowNanos;
+                played.incrementAndGet();
+                player.play(request.effect);
+            }
+            return 0L;
+        }
+
+        Map.Entry<DueKey, Request<E>> next = scheduled.firstEntry();
+        return next != null ? Math.max(0L, next.getKey().dueNanos - nowNanos) : IDLE;
+    }
+
+    /** Installs {@code request} in the pending slot; returns false if a higher priority one wins. */
+    private boolean coalesce(Request<E> request) {
+        while (true) {
+            Request<E> current = pending.get();
+            if (current != null && current.priority > request.priority) {
+                coalesced.incrementAndGet();
+                return false;
+            }
+            if (pending.compareAndSet(current, request)) {
+                if (current != null) coalesced.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            long wait;
+            try {
+                wait = runOnce(System.nanoTime());
+            } catch (RuntimeException e) {
+                // A failing vibrator call must not kill the dispatch thread.
+                wait = 0L;
+            }
+            if (!running) break;
+            if (wait == IDLE) {
+                LockSupport.park(this);
+            } else if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    private void wake() {
+        Thread t = thread;
+        if (t != null) LockSupport.unpark(t);
+    }
+}
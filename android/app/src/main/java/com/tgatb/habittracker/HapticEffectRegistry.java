@@ -0,0 +1,144 @@
+package com.tgatb.habittracker;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precompiled haptic effects for every (event, profile) pair plus custom named patterns.
+ *
+ * Patterns are compiled once through a {@link Compiler} (a {@code VibrationEffect} on
+ * device, a fake in tests), so playback is a table lookup with no allocation.
+ */
+public final class HapticEffectRegistry<E> {
+    static final int MAX_CUSTOM_PATTERNS = 64;
+
+    /** Turns a pattern into the platform's playable representation. */
+    public interface Compiler<E> {
+        E compile(HapticPattern pattern);
+    }
+
+    private static final HapticPattern[][] PATTERNS = buildPatterns();
+
+    private final Compiler<E> compiler;
+    private final Object[][] effects;
+    private final ConcurrentHashMap<String, E> custom = new ConcurrentHashMap<>();
+
+    public HapticEffectRegistry(Compiler<E> compiler) {
+        this.compiler = compiler;
+        HapticEvent[] events = HapticEvent.values();
+        HapticProfile[] profiles = HapticProfile.values();
+        effects = new Object[events.length][profiles.length];
+        for (HapticEvent event : events) {
+            for (HapticProfile profile : profiles) {
+                effects[event.ordinal()][profile.ordinal()] = compiler.compile(pattern(event, profile));
+            }
+        }
+    }
+
+    public static HapticPattern pattern(HapticEvent event, HapticProfile profile) {
+        return PATTERNS[event.ordinal()][profile.ordinal()];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E effect(HapticEvent event, HapticProfile profile) {
+        return (E) effects[event.ordinal()][profile.ordinal()];
+    }
+
+    /** Compiles and stores a named pattern, replacing any previous pattern with that id. */
+    public E register(String id, HapticPattern pattern) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("pattern id is required");
+        }
+        if (!custom.containsKey(id) && custom.size() >= MAX_CUSTOM_PATTERNS) {
+            throw new IllegalStateException("too many custom patterns (max " + MAX_CUSTOM_PATTERNS + ")");
+        }
+        E compiled = compiler.compile(pattern);
+        custom.put(id, compiled);
+        return compiled;
+    }
+
+    public E custom(String id) {
+        return id != null ? custom.get(id) : null;
+    }
+
+    public boolean unregister(String id) {
+        return id != null && custom.remove(id) != null;
+    }
+
+    public int customCount() {
+        return custom.size();
+    }
+
+    private static HapticPattern[][] buildPatterns() {
+        HapticPattern[][] p = new HapticPattern[HapticEvent.values().length][HapticProfile.values().length];
+
+        define(p, HapticEvent.BUTTON,
+                HapticPattern.oneShot(8, 90),
+                HapticPattern.oneShot(10, 130),
+                HapticPattern.oneShot(12, 180));
+        define(p, HapticEvent.SELECTION,
+                HapticPattern.oneShot(7, 80),
+                HapticPattern.oneShot(8, 110),
+                wave(new long[] {0, 8, 10, 10}, new int[] {0, 160, 0, 120}));
+        define(p, HapticEvent.NAVIGATION,
+                wave(new long[] {0, 7, 10, 9}, new int[] {0, 90, 0, 100}),
+                wave(new long[] {0, 8, 10, 11}, new int[] {0, 120, 0, 140}),
+                wave(new long[] {0, 8, 8, 12}, new int[] {0, 160, 0, 180}));
+        define(p, HapticEvent.SUCCESS,
+                wave(new long[] {0, 8, 12, 10}, new int[] {0, 100, 0, 120}),
+                wave(new long[] {0, 9, 14, 12}, new int[] {0, 140, 0, 165}),
+                wave(new long[] {0, 10, 14, 14}, new int[] {0, 170, 0, 200}));
+        define(p, HapticEvent.GOOD_DONE,
+                wave(new long[] {0, 8, 12, 10}, new int[] {0, 95, 0, 120}),
+                wave(new long[] {0, 9, 14, 12}, new int[] {0, 140, 0, 175}),
+                wave(new long[] {0, 10, 12, 14}, new int[] {0, 180, 0, 220}));
+        define(p, HapticEvent.GOOD_NOT_DONE,
+                HapticPattern.oneShot(8, 85),
+                wave(new long[] {0, 7, 10, 9}, new int[] {0, 95, 0, 120}),
+                wave(new long[] {0, 8, 10, 10}, new int[] {0, 110, 0, 160}));
+        define(p, HapticEvent.BAD_AVOIDED,
+                wave(new long[] {0, 7, 10, 10}, new int[] {0, 90, 0, 120}),
+                wave(new long[] {0, 8, 10, 12}, new int[] {0, 125, 0, 175}),
+                wave(new long[] {0, 8, 8, 14}, new int[] {0, 145, 0, 225}));
+        define(p, HapticEvent.BAD_DONE,
+                HapticPattern.oneShot(14, 120),
+                wave(new long[] {0, 14, 18, 12}, new int[] {0, 160, 0, 130}),
+                wave(new long[] {0, 16, 18, 14}, new int[] {0, 215, 0, 165}));
+        define(p, HapticEvent.STREAK,
+                wave(new long[] {0, 8, 12, 10, 16, 12}, new int[] {0, 90, 0, 110, 0, 130}),
+                wave(new long[] {0, 9, 13, 11, 17, 14}, new int[] {0, 130, 0, 155, 0, 180}),
+                wave(new long[] {0, 10, 14, 12, 18, 16}, new int[] {0, 170, 0, 185, 0, 210}));
+        define(p, HapticEvent.UNDO,
+                wave(new long[] {0, 6, 10, 8}, new int[] {0, 80, 0, 90}),
+                wave(new long[] {0, 7, 10, 9}, new int[] {0, 105, 0, 120}),
+                wave(new long[] {0, 8, 10, 11}, new int[] {0, 120, 0, 170}));
+        define(p, HapticEvent.FAILURE,
+                HapticPattern.oneShot(14, 120),
+                wave(new long[] {0, 14, 20, 14}, new int[] {0, 150, 0, 130}),
+                wave(new long[] {0, 15, 22, 16}, new int[] {0, 200, 0, 170}));
+        // Warning intentionally shares the failure patterns.
+        define(p, HapticEvent.WARNING,
+                pattern(p, HapticEvent.FAILURE, HapticProfile.SUBTLE),
+                pattern(p, HapticEvent.FAILURE, HapticProfile.BALANCED),
+                pattern(p, HapticEvent.FAILURE, HapticProfile.PUNCHY));
+        define(p, HapticEvent.ERROR,
+                wave(new long[] {0, 14, 18, 14}, new int[] {0, 130, 0, 120}),
+                wave(new long[] {0, 16, 18, 16, 18, 16}, new int[] {0, 170, 0, 170, 0, 160}),
+                wave(new long[] {0, 18, 18, 18, 20, 20}, new int[] {0, 220, 0, 220, 0, 210}));
+        return p;
+    }
+
+    private static void define(HapticPattern[][] table, HapticEvent event,
+                               HapticPattern subtle, HapticPattern balanced, HapticPattern punchy) {
+        table[event.ordinal()][HapticProfile.SUBTLE.ordinal()] = subtle;
+        table[event.ordinal()][HapticProfile.BALANCED.ordinal()] = balanced;
+        table[event.ordinal()][HapticProfile.PUNCHY.ordinal()] = punchy;
+    }
+
+    private static HapticPattern pattern(HapticPattern[][] table, HapticEvent event, HapticProfile profile) {
+        return table[event.ordinal()][profile.ordinal()];
+    }
+
+    private static HapticPattern wave(long[] timings, int[] amplitudes) {
+        return HapticPattern.waveform(timings, amplitudes);
+    }
+}
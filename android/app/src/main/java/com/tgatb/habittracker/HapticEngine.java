@@ -0,0 +1,94 @@
+package com.tgatb.habittracker;
+
+/**
+ * The play path behind {@code PremiumHapticsPlugin}: event and profile lookup, the
+ * precompiled request table and the dispatcher, minus the platform vibrator.
+ *
+ * The plugin supplies a {@link HapticEffectRegistry.Compiler} and a
+ * {@link HapticDispatcher.Player} backed by {@code VibrationEffect} and {@code Vibrator};
+ * benchmarks and tests supply recording fakes.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class HapticEngine<E> {
+    private final HapticEffectRegistry<E> registry;
+    private final HapticDispatcher<E> dispatcher;
+    private final HapticDispatcher.Request<E>[][] requests;
+    private volatile HapticProfile profile = HapticProfile.BALANCED;
+
+    public HapticEngine(HapticEffectRegistry.Compiler<E> compiler, HapticDispatcher.Player<E> player, long minGapMs) {
+        this.registry = new HapticEffectRegistry<>(compiler);
+        this.dispatcher = new HapticDispatcher<>(player, minGapMs);
+        this.requests = buildRequests(registry);
+    }
+
+    public HapticEffectRegistry<E> registry() {
+        return registry;
+    }
+
+    public HapticDispatcher<E> dispatcher() {
+        return dispatcher;
+    }
+
+    public HapticProfile profile() {
+        return profile;
+    }
+
+    public void setProfile(HapticProfile profile) {
+        this.profile = profile;
+    }
+
+    /** The current profile unless {@code profileId} names another one. */
+    public HapticProfile profileOf(String profileId) {
+        return profileId != null ? HapticProfile.fromId(profileId) : profile;
+    }
+
+    public HapticDispatcher.Request<E> request(HapticEvent event, HapticProfile profile) {
+        return requests[event.ordinal()][profile.ordinal()];
+    }
+
+    /** Queues a semantic event now, or {@code delayMs} from now. */
+    public void offerEvent(String eventId, String profileId, long delayMs) {
+        HapticDispatcher.Request<E> request = request(HapticEvent.fromId(eventId), profileOf(profileId));
+        if (delayMs > 0) {
+            dispatcher.schedule(request, delayMs);
+        } else {
+            dispatcher.offer(request);
+        }
+    }
+
+    /** Queues a registered custom pattern; throws if {@code id} is unknown. */
+    public void offerPattern(String id, int priority) {
+        E effect = registry.custom(id);
+        if (effect == null) {
+            throw new IllegalArgumentException("Unknown pattern");
+        }
+        dispatcher.offer(new HapticDispatcher.Request<>(effect, priority));
+    }
+
+    /** One immutable request per (event, profile) so the play path enqueues without allocating. */
+    private static <E> HapticDispatcher.Request<E>[][] buildRequests(HapticEffectRegistry<E> registry) {
+        HapticEvent[] events = HapticEvent.values();
+        HapticProfile[] profiles = HapticProfile.values();
+        HapticDispatcher.Request<E>[][] table = newRequestTable(events.length);
+        for (HapticEvent event : events) {
+            table[event.ordinal()] = newRequestArray(profiles.length);
+            for (HapticProfile profile : profiles) {
+                table[event.ordinal()][profile.ordinal()] =
+                        new HapticDispatcher.Request<>(registry.effect(event, profile), event.priority);
+            }
+        }
+        return table;
+    }
+
+    /** Java cannot create a {@code Request<E>[]}; the wildcard array only ever holds {@code Request<E>}. */
+    @SuppressWarnings("unchecked")
+    private static <E> HapticDispatcher.Request<E>[][] newRequestTable(int size) {
+        return (HapticDispatcher.Request<E>[][]) new HapticDispatcher.Request<?>[size][];
+    }
+
+    /** See {@link #newRequestTable}. */
+    @SuppressWarnings("unchecked")
+    static <E> HapticDispatcher.Request<E>[] newRequestArray(int size) {
+        return (HapticDispatcher.Request<E>[]) new HapticDispatcher.Request<?>[size];
+    }
+}
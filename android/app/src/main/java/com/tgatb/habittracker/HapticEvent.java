@@ -0,0 +1,51 @@
+package com.tgatb.habittracker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Semantic haptic events, keyed by the ids used in lib/haptics.ts. */
+public enum HapticEvent {
+    BUTTON("button", HapticEvent.PRIORITY_AMBIENT),
+    SELECTION("selection", HapticEvent.PRIORITY_AMBIENT),
+    NAVIGATION("navigation", HapticEvent.PRIORITY_AMBIENT),
+    GOOD_DONE("goodDone", HapticEvent.PRIORITY_ACTION),
+    GOOD_NOT_DONE("goodNotDone", HapticEvent.PRIORITY_ACTION),
+    BAD_AVOIDED("badAvoided", HapticEvent.PRIORITY_ACTION),
+    BAD_DONE("badDone", HapticEvent.PRIORITY_ACTION),
+    SUCCESS("success", HapticEvent.PRIORITY_ACTION),
+    STREAK("streak", HapticEvent.PRIORITY_CRITICAL),
+    UNDO("undo", HapticEvent.PRIORITY_ACTION),
+    FAILURE("failure", HapticEvent.PRIORITY_ALERT),
+    WARNING("warning", HapticEvent.PRIORITY_ALERT),
+    ERROR("error", HapticEvent.PRIORITY_CRITICAL);
+
+    /** Taps and navigation; freely coalesced away by anything more meaningful. */
+    public static final int PRIORITY_AMBIENT = 0;
+    /** Habit state changes. */
+    public static final int PRIORITY_ACTION = 1;
+    public static final int PRIORITY_ALERT = 2;
+    /** Streaks and errors; never replaced by a lower-priority event. */
+    public static final int PRIORITY_CRITICAL = 3;
+
+    private static final Map<String, HapticEvent> BY_ID = new HashMap<>();
+
+    static {
+        for (HapticEvent event : values()) {
+            BY_ID.put(event.id, event);
+        }
+    }
+
+    public final String id;
+    public final int priority;
+
+    HapticEvent(String id, int priority) {
+        this.id = id;
+        this.priority = priority;
+    }
+
+    /** Unknown ids fall back to {@link #BUTTON}, like the old default branch. */
+    public static HapticEvent fromId(String id) {
+        HapticEvent event = id != null ? BY_ID.get(id) : null;
+        return event != null ? event : BUTTON;
+    }
+}
@@ -0,0 +1,75 @@
+package com.tgatb.habittracker;
+
+/**
+ * Immutable vibration pattern with amplitudes already clamped to 0..255, so it can be
+ * compiled into a platform effect once and replayed without further work.
+ */
+public final class HapticPattern {
+    static final int MAX_SEGMENTS = 64;
+    static final long MAX_SEGMENT_MS = 1000L;
+
+    private final long[] timings;
+    private final int[] amplitudes;
+    /** Single on-segment patterns compile to a one-shot effect. */
+    public final boolean oneShot;
+    /** Duration used on devices without amplitude control (pre-O). */
+    public final long legacyDurationMs;
+
+    private HapticPattern(long[] timings, int[] amplitudes, boolean oneShot) {
+        this.timings = timings;
+        this.amplitudes = amplitudes;
+        this.oneShot = oneShot;
+        long total = 0;
+        for (long t : timings) total += t;
+        this.legacyDurationMs = oneShot ? timings[0] : Math.max(12L, total);
+    }
+
+    public static HapticPattern oneShot(int durationMs, int amplitude) {
+        return new HapticPattern(new long[] {durationMs}, new int[] {clampAmplitude(amplitude)}, true);
+    }
+
+    public static HapticPattern waveform(long[] timings, int[] amplitudes) {
+        if (timings == null || amplitudes == null || timings.length != amplitudes.length) {
+            throw new IllegalArgumentException("timings and amplitudes must have the same length");
+        }
+        if (timings.length == 0 || timings.length > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("pattern must have 1.." + MAX_SEGMENTS + " segments");
+        }
+        long[] t = new long[timings.length];
+        int[] a = new int[amplitudes.length];
+        long total = 0;
+        for (int i = 0; i < timings.length; i++) {
+            if (timings[i] < 0 || timings[i] > MAX_SEGMENT_MS) {
+                throw new IllegalArgumentException("segment duration out of range: " + timings[i]);
+            }
+            t[i] = timings[i];
+            a[i] = clampAmplitude(amplitudes[i]);
+            total += t[i];
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("pattern has no duration");
+        }
+        return new HapticPattern(t, a, false);
+    }
+
+    /** Defensive copies; only used when compiling the platform effect. */
+    public long[] timings() {
+        return timings.clone();
+    }
+
+    public int[] amplitudes() {
+        return amplitudes.clone();
+    }
+
+    public long durationMs() {
+        long total = 0;
+        for (long t : timings) total += t;
+        return total;
+    }
+
+    static int clampAmplitude(int amplitude) {
+        if (amplitude <= 0) return 0;
+        if (amplitude > 255) return 255;
+        return amplitude;
+    }
+}
@@ -0,0 +1,21 @@
+package com.tgatb.habittracker;
+
+/** Haptic intensity profiles, keyed by the ids used in lib/haptics.ts. */
+public enum HapticProfile {
+    SUBTLE("subtle"),
+    BALANCED("balanced"),
+    PUNCHY("punchy");
+
+    public final String id;
+
+    HapticProfile(String id) {
+        this.id = id;
+    }
+
+    /** Unknown ids fall back to {@link #BALANCED}. */
+    public static HapticProfile fromId(String id) {
+        if (SUBTLE.id.equals(id)) return SUBTLE;
+        if (PUNCHY.id.equals(id)) return PUNCHY;
+        return BALANCED;
+    }
+}
@@ -0,0 +1,123 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Base64;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Year heatmaps drawn natively into bitmaps and handed to the WebView as one PNG, in
+ * place of a grid of hundreds of DOM cells. See {@link HeatmapTiles}.
+ */
+@CapacitorPlugin(name = "Heatmap")
+public class HeatmapPlugin extends Plugin {
+    static final String TILE_DIR = "heatmap";
+    private static final long MEMORY_BUDGET = 4L * 1024 * 1024;
+    private static final long DISK_BUDGET = 16L * 1024 * 1024;
+    private static final int DEFAULT_CELL = 12;
+    private static final int DEFAULT_GAP = 2;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Map<String, HeatmapTiles> TILES = new HashMap<>();
+
+    /** Tiles of one account, subscribed to its log store on first use. */
+    static HeatmapTiles tilesFor(Context context, String scope) throws IOException {
+        String key = HabitLogStorePlugin.sanitizeScope(scope);
+        synchronized (TILES) {
+            HeatmapTiles tiles = TILES.get(key);
+            if (tiles == null) {
+                File dir = new File(new File(context.getCacheDir(), TILE_DIR), key);
+                tiles = new HeatmapTiles(
+                        HabitLogStorePlugin.storeFor(context, scope),
+                        HabitLogStorePlugin.rollupFor(context, scope),
+                        new TileCache(dir, MEMORY_BUDGET, DISK_BUDGET),
+                        HeatmapPlugin::encodePng);
+                TILES.put(key, tiles);
+            }
+            return tiles;
+        }
+    }
+
+    /**
+     * One year for {@code habitId} (with its {@code type}) or every habit when omitted.
+     * {@code cellSize} and {@code gap} are device pixels; {@code inline} also returns the
+     * PNG as a data URL.
+     */
+    @PluginMethod
+    public void render(PluginCall call) {
+        EXECUTOR.execute(() -> {
+            try {
+                String habitId = call.getString("habitId");
+                int today = EpochDays.today();
+                int year = call.getInt("year", EpochDays.toCivil(today) / 10000);
+                HeatmapRenderer.Style style = new HeatmapRenderer.Style(
+                        call.getInt("cellSize", DEFAULT_CELL),
+                        call.getInt("gap", DEFAULT_GAP),
+                        Boolean.TRUE.equals(call.getBoolean("dark", false)));
+
+                long start = System.nanoTime();
+                HeatmapTiles tiles = tilesFor(getContext(), call.getString("scope", HabitLogStorePlugin.DEFAULT_SCOPE));
+                HeatmapTiles.Result result = tiles.render(
+                        habitId != null ? habitId : HeatmapTiles.ALL,
+                        "bad".equals(call.getString("type")),
+                        year, style, today);
+
+                JSObject ret = new JSObject();
+                ret.put("path", result.file.getAbsolutePath());
+                ret.put("uri", DataTransferPlugin.contentUri(getContext(), result.file).toString());
+                ret.put("width", result.width);
+                ret.put("height", result.height);
+                ret.put("columns", result.columns);
+                ret.put("firstDayOfWeek", EpochDays.dayOfWeek(HeatmapRenderer.firstDay(year)));
+                ret.put("cached", result.cached);
+                ret.put("durationMs", (System.nanoTime() - start) / 1_000_000L);
+                if (Boolean.TRUE.equals(call.getBoolean("inline", false))) {
+                    ret.put("dataUrl", "data:image/png;base64," + Base64.encodeToString(result.data, Base64.NO_WRAP));
+                }
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage(), "INVALID_ARGUMENT", e);
+            } catch (Exception e) {
+                call.reject("Failed to render heatmap: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void clearCache(PluginCall call) {
+        EXECUTOR.execute(() -> {
+            try {
+                tilesFor(getContext(), call.getString("scope", HabitLogStorePlugin.DEFAULT_SCOPE)).clearCache();
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Failed to clear heatmap cache: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static byte[] encodePng(HeatmapRenderer.Tile tile) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(tile.argb, tile.width, tile.height, Bitmap.Config.ARGB_8888);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("PNG encoding failed");
+            }
+            return out.toByteArray();
+        } finally {
+            bitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.tgatb.habittracker;
+
+/**
+ * Draws one calendar year of day levels as a grid of ARGB pixels: one column per week,
+ * Sunday on top (matching {@code Date.getDay()}). Level 0 is an empty cell; levels 1 to 4
+ * blend {@link SystemUiState#PURPLE} over the theme surface with rising strength. Pixels
+ * outside the year's cells stay transparent so the page background shows through.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class HeatmapRenderer {
+    public static final int MAX_LEVEL = 4;
+    private static final int ROWS = 7;
+    /** Purple strength per level, out of 256. */
+    private static final int[] STRENGTH = {28, 84, 140, 200, 256};
+
+    public static final class Style {
+        public final int cell;
+        public final int gap;
+        public final boolean dark;
+
+        public Style(int cell, int gap, boolean dark) {
+            if (cell < 1 || cell > 64 || gap < 0 || gap > 16) {
+                throw new IllegalArgumentException("cell must be 1..64 and gap 0..16");
+            }
+            this.cell = cell;
+            this.gap = gap;
+            this.dark = dark;
+        }
+    }
+
+    public static final class Tile {
+        public final int width;
+        public final int height;
+        public final int columns;
+        public final int[] argb;
+
+        Tile(int width, int height, int columns, int[] argb) {
+            this.width = width;
+            this.height = height;
+            this.columns = columns;
+            this.argb = argb;
+        }
+    }
+
+    private HeatmapRenderer() {}
+
+    public static int firstDay(int year) {
+        return EpochDays.fromCivil(year, 1, 1);
+    }
+
+    public static int dayCount(int year) {
+        return EpochDays.fromCivil(year + 1, 1, 1) - firstDay(year);
+    }
+
+    /** Week columns the year spans, 53 or 54. */
+    public static int columns(int year) {
+        return (EpochDays.dayOfWeek(firstDay(year)) + dayCount(year) + ROWS - 1) / ROWS;
+    }
+
+    /** {@code levels[i]} is the level of day {@code i} of the year, 0 to {@link #MAX_LEVEL}. */
+    public static Tile render(int year, byte[] levels, Style style) {
+        int days = dayCount(year);
+        if (levels.length != days) {
+            throw new IllegalArgumentException("Expected " + days + " levels, got " + levels.length);
+        }
+        int pitch = style.cell + style.gap;
+        int columns = columns(year);
+        int width = columns * pitch - style.gap;
+        int height = ROWS * pitch - style.gap;
+        int[] argb = new int[width * height];
+        int[] palette = palette(style.dark);
+
+        int offset = EpochDays.dayOfWeek(firstDay(year));
+        for (int i = 0; i < days; i++) {
+            int level = Math.max(0, Math.min(MAX_LEVEL, levels[i]));
+            int slot = offset + i;
+            int x0 = (slot / ROWS) * pitch;
+            int y0 = (slot % ROWS) * pitch;
+            int color = palette[level];
+            for (int y = y0; y < y0 + style.cell; y++) {
+                int row = y * width;
+                for (int x = x0; x < x0 + style.cell; x++) {
+                    argb[row + x] = color;
+                }
+            }
+        }
+        return new Tile(width, height, columns, argb);
+    }
+
+    static int[] palette(boolean dark) {
+        int surface = dark ? SystemUiState.DARK_SURFACE : SystemUiState.LIGHT_SURFACE;
+        int[] out = new int[MAX_LEVEL + 1];
+        for (int level = 0; level <= MAX_LEVEL; level++) {
+            out[level] = blend(surface, SystemUiState.PURPLE, STRENGTH[level]);
+        }
+        return out;
+    }
+
+    /** {@code over} on top of {@code base} at {@code alpha}/256, fully opaque. */
+    static int blend(int base, int over, int alpha) {
+        int inv = 256 - alpha;
+        int r = (((base >> 16) & 0xFF) * inv + ((over >> 16) & 0xFF) * alpha) >> 8;
+        int g = (((base >> 8) & 0xFF) * inv + ((over >> 8) & 0xFF) * alpha) >> 8;
+        int b = ((base & 0xFF) * inv + (over & 0xFF) * alpha) >> 8;
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,187 @@
+package com.tgatb.habittracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Year heatmap tiles for one account, per habit or aggregated over all habits.
+ *
+ * Day levels come from the {@link HabitLogStore} (one habit) or the {@link DailyRollup}
+ * (all habits), and a tile's cache key ends in a hash of its levels, so a cached tile
+ * can never show outdated data. Log writes mark the touched (habit, year) pairs; their
+ * cached levels and tiles are dropped on the next request, off the write path.
+ * PNG encoding is left to the caller's {@link Encoder}.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class HeatmapTiles implements HabitLogStore.Listener {
+    /** Subject of the tile aggregated over all habits. */
+    public static final String ALL = "all";
+
+    public interface Encoder {
+        byte[] encode(HeatmapRenderer.Tile tile) throws IOException;
+    }
+
+    public static final class Result {
+        public final String key;
+        public final File file;
+        public final byte[] data;
+        public final int width;
+        public final int height;
+        public final int columns;
+        public final boolean cached;
+
+        Result(String key, File file, byte[] data, int width, int height, int columns, boolean cached) {
+            this.key = key;
+            this.file = file;
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.columns = columns;
+            this.cached = cached;
+        }
+    }
+
+    private static final byte NO_LOG = 0;
+    private static final byte NOT_DONE = 1;
+    private static final byte DONE = 2;
+
+    private final HabitLogStore store;
+    private final DailyRollup rollup;
+    private final TileCache cache;
+    private final Encoder encoder;
+    /** Raw log state per day of a habit's year, keyed by {@link #levelsKey}. */
+    private final Map<String, byte[]> habitDays = new HashMap<>();
+    private final Set<String> touched = new HashSet<>();
+
+    public HeatmapTiles(HabitLogStore store, DailyRollup rollup, TileCache cache, Encoder encoder) {
+        this.store = store;
+        this.rollup = rollup;
+        this.cache = cache;
+        this.encoder = encoder;
+        store.addListener(this);
+    }
+
+    @Override
+    public synchronized void onLogChanged(String habitId, int epochDay, Boolean before, Boolean after) {
+        int year = EpochDays.toCivil(epochDay) / 10000;
+        touched.add(levelsKey(habitId, year));
+        touched.add(levelsKey(ALL, year));
+    }
+
+    @Override
+    public void onCleared() {
+        clearCache();
+    }
+
+    public synchronized void clearCache() {
+        habitDays.clear();
+        touched.clear();
+        cache.clear();
+    }
+
+    /**
+     * Tile for {@code habitId} ({@link #ALL} for every habit) in {@code year}. Days after
+     * {@code today} stay empty. The file is always written; {@code data} is the PNG.
+     */
+    public Result render(String habitId, boolean bad, int year, HeatmapRenderer.Style style, int today)
+            throws IOException {
+        dropTouched();
+        byte[] levels = ALL.equals(habitId) ? aggregateLevels(year, today) : habitLevels(habitId, bad, year, today);
+        String key = tileKey(habitId, year, style, levels);
+        int width = style.cell + (HeatmapRenderer.columns(year) - 1) * (style.cell + style.gap);
+        int height = 7 * (style.cell + style.gap) - style.gap;
+
+        byte[] data = cache.get(key);
+        if (data != null) {
+            return new Result(key, cache.file(key), data, width, height, HeatmapRenderer.columns(year), true);
+        }
+        HeatmapRenderer.Tile tile = HeatmapRenderer.render(year, levels, style);
+        data = encoder.encode(tile);
+        File file = cache.put(key, data);
+        return new Result(key, file, data, tile.width, tile.height, tile.columns, false);
+    }
+
+    /** Good habit done or bad habit avoided: full strength; anything else: empty. */
+    byte[] habitLevels(String habitId, boolean bad, int year, int today) {
+        byte[] states = habitStates(habitId, year);
+        int first = HeatmapRenderer.firstDay(year);
+        byte[] levels = new byte[states.length];
+        for (int i = 0; i < states.length && first + i <= today; i++) {
+            if (states[i] == NO_LOG) continue;
+            boolean positive = bad ? states[i] == NOT_DONE : states[i] == DONE;
+            if (positive) levels[i] = HeatmapRenderer.MAX_LEVEL;
+        }
+        return levels;
+    }
+
+    /**
+     * Share of habits with a positive outcome, in quarters: any positive day is at least
+     * level 1 and a day where every counted habit went well is level 4.
+     */
+    byte[] aggregateLevels(int year, int today) {
+        int first = HeatmapRenderer.firstDay(year);
+        int days = HeatmapRenderer.dayCount(year);
+        DailyRollup.Range range = rollup.range(first, first + days - 1, today);
+        byte[] levels = new byte[days];
+        for (int i = 0; i < days && first + i <= today; i++) {
+            int positive = range.goodDone[i] + range.badAvoided[i];
+            if (positive == 0) continue;
+            int total = positive + range.missed[i] + range.badDone[i] + range.untracked[i];
+            levels[i] = (byte) ((positive * HeatmapRenderer.MAX_LEVEL + total - 1) / total);
+        }
+        return levels;
+    }
+
+    private byte[] habitStates(String habitId, int year) {
+        // Store lock first, as on the write path that calls onLogChanged.
+        synchronized (store) {
+            synchronized (this) {
+                String key = levelsKey(habitId, year);
+                byte[] states = habitDays.get(key);
+                if (states != null) return states;
+                int first = HeatmapRenderer.firstDay(year);
+                states = new byte[HeatmapRenderer.dayCount(year)];
+                for (HabitLogStore.Entry entry : store.range(habitId, first, first + states.length - 1)) {
+                    states[entry.epochDay - first] = entry.completed ? DONE : NOT_DONE;
+                }
+                habitDays.put(key, states);
+                return states;
+            }
+        }
+    }
+
+    /** Forgets cached levels and tiles of every (habit, year) written since the last call. */
+    private void dropTouched() {
+        String[] keys;
+        synchronized (this) {
+            if (touched.isEmpty()) return;
+            keys = touched.toArray(new String[0]);
+            touched.clear();
+            for (String key : keys) habitDays.remove(key);
+        }
+        for (String key : keys) cache.invalidate(key + "-");
+    }
+
+    private static String levelsKey(String habitId, int year) {
+        return safeName(habitId) + "-" + year;
+    }
+
+    static String tileKey(String habitId, int year, HeatmapRenderer.Style style, byte[] levels) {
+        // FNV-1a over the levels: the key changes whenever the picture would.
+        int hash = 0x811C9DC5;
+        for (byte level : levels) {
+            hash = (hash ^ level) * 0x01000193;
+        }
+        return levelsKey(habitId, year) + "-" + (style.dark ? "d" : "l") + style.cell + "x" + style.gap
+                + "-" + String.format(Locale.ROOT, "%08x", hash);
+    }
+
+    static String safeName(String id) {
+        return id.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+}
@@ -0,0 +1,107 @@
+package com.tgatb.habittracker;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsAnimationCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import java.util.List;
+
+/**
+ * Drives the WebView's keyboard padding from {@link WindowInsetsAnimationCompat}: a
+ * per-frame translation while the IME animates and a single padding commit at the end.
+ * Inset values are pushed to JS through {@link SystemUiPlugin} at most once per frame.
+ */
+final class ImeInsetsAnimator extends WindowInsetsAnimationCompat.Callback
+        implements Choreographer.FrameCallback {
+    private final View view;
+    private final int baseLeft;
+    private final int baseTop;
+    private final int baseRight;
+    private final int baseBottom;
+    private final ImeInsetsState state = new ImeInsetsState();
+    private boolean frameScheduled;
+
+    private ImeInsetsAnimator(View view) {
+        super(DISPATCH_MODE_STOP);
+        this.view = view;
+        this.baseLeft = view.getPaddingLeft();
+        this.baseTop = view.getPaddingTop();
+        this.baseRight = view.getPaddingRight();
+        this.baseBottom = view.getPaddingBottom();
+    }
+
+    static void install(View view) {
+        ImeInsetsAnimator animator = new ImeInsetsAnimator(view);
+        ViewCompat.setOnApplyWindowInsetsListener(view, (v, insets) -> {
+            if (animator.state.onApply(extraOf(insets), insets.isVisible(WindowInsetsCompat.Type.ime()))) {
+                animator.commitPadding(animator.state.committedExtra());
+            }
+            animator.scheduleFrame();
+            return insets;
+        });
+        ViewCompat.setWindowInsetsAnimationCallback(view, animator);
+    }
+
+    private static int extraOf(WindowInsetsCompat insets) {
+        Insets ime = insets.getInsets(WindowInsetsCompat.Type.ime());
+        Insets bars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+        return ImeInsetsState.extraBottom(ime.bottom, bars.bottom, insets.isVisible(WindowInsetsCompat.Type.ime()));
+    }
+
+    private static boolean isIme(WindowInsetsAnimationCompat animation) {
+        return (animation.getTypeMask() & WindowInsetsCompat.Type.ime()) != 0;
+    }
+
+    @Override
+    public void onPrepare(@NonNull WindowInsetsAnimationCompat animation) {
+        if (isIme(animation)) {
+            state.onPrepare();
+        }
+    }
+
+    @NonNull
+    @Override
+    public WindowInsetsCompat onProgress(@NonNull WindowInsetsCompat insets,
+                                         @NonNull List<WindowInsetsAnimationCompat> runningAnimations) {
+        if (!state.isAnimating()) return insets;
+        view.setTranslationY(state.onProgress(extraOf(insets), insets.isVisible(WindowInsetsCompat.Type.ime())));
+        scheduleFrame();
+        return insets;
+    }
+
+    @Override
+    public void onEnd(@NonNull WindowInsetsAnimationCompat animation) {
+        if (!isIme(animation) || !state.isAnimating()) return;
+        int extra = state.onEnd();
+        view.setTranslationY(0f);
+        commitPadding(extra);
+        scheduleFrame();
+    }
+
+    private void commitPadding(int extra) {
+        view.setPadding(baseLeft, baseTop, baseRight, baseBottom + extra);
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled || !state.isDirty()) return;
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (!state.consumeDirty()) return;
+        float density = view.getResources().getDisplayMetrics().density;
+        SystemUiPlugin.publishImeInsets(
+                Math.round(state.currentExtra() / density),
+                Math.round(state.committedExtra() / density),
+                state.isImeVisible(),
+                state.isAnimating());
+    }
+}
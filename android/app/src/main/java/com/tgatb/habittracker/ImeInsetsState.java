@@ -0,0 +1,96 @@
+package com.tgatb.habittracker;
+
+/**
+ * Bookkeeping for the WebView's IME padding, kept free of Android types.
+ *
+ * Outside an animation, inset changes commit padding directly. While the keyboard
+ * animates, padding stays at its last committed value and the WebView is translated
+ * instead, so the page relayouts once at the end rather than on every frame. JS updates
+ * are coalesced through a dirty flag that the owner drains once per frame.
+ */
+public final class ImeInsetsState {
+    private int committedExtra;
+    private int currentExtra;
+    /** Final inset reported by the window; during an animation it arrives before the frames. */
+    private int targetExtra;
+    private boolean targetVisible;
+    private boolean imeVisible;
+    private boolean animating;
+    private boolean dirty;
+
+    /** Keyboard height not already covered by the system bar inset. */
+    public static int extraBottom(int imeBottom, int systemBarsBottom, boolean imeVisible) {
+        return imeVisible ? Math.max(0, imeBottom - systemBarsBottom) : 0;
+    }
+
+    public void onPrepare() {
+        animating = true;
+    }
+
+    /**
+     * Inset dispatch from the window. Returns true when padding must be committed now;
+     * during an animation the value is only remembered for {@link #onEnd}.
+     */
+    public boolean onApply(int extra, boolean visible) {
+        targetExtra = extra;
+        targetVisible = visible;
+        if (animating) return false;
+        update(extra, visible);
+        if (extra == committedExtra) return false;
+        committedExtra = extra;
+        return true;
+    }
+
+    /**
+     * Per-frame progress. Returns the translationY to apply: the WebView follows a rising
+     * keyboard by moving up; a falling keyboard uncovers the padded area, so no offset.
+     */
+    public float onProgress(int extra, boolean visible) {
+        update(extra, visible);
+        return -Math.max(0, extra - committedExtra);
+    }
+
+    /** Animation finished; returns the padding to commit (translation resets to 0). */
+    public int onEnd() {
+        animating = false;
+        currentExtra = targetExtra;
+        committedExtra = targetExtra;
+        imeVisible = targetVisible;
+        dirty = true;
+        return committedExtra;
+    }
+
+    /** Records the latest values, flagging a JS update when they change. */
+    private void update(int extra, boolean visible) {
+        if (extra != currentExtra || visible != imeVisible) dirty = true;
+        currentExtra = extra;
+        imeVisible = visible;
+    }
+
+    /** True (once) when JS has not seen the latest values; called from the frame callback. */
+    public boolean consumeDirty() {
+        boolean was = dirty;
+        dirty = false;
+        return was;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public int committedExtra() {
+        return committedExtra;
+    }
+
+    public int currentExtra() {
+        return currentExtra;
+    }
+
+    public boolean isImeVisible() {
+        return imeVisible;
+    }
+
+    public boolean isAnimating() {
+        return animating;
+    }
+}
@@ -0,0 +1,197 @@
+package com.tgatb.habittracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frame-timing aggregator. The frame-metrics thread calls {@link #onFrame}, which only packs
+ * the sample into a {@link FrameRing}; draining folds samples into per-screen
+ * {@link FrameHistogram}s and slow/frozen counters. Screens are tags set from JS
+ * ({@link #setScreen}) and stamped on each frame as it is produced.
+ *
+ * Two sets of counters are kept: the session (until {@link #reset}) for on-demand stats, and
+ * the interval since the last {@link #takeInterval}, which is what gets flushed to disk.
+ *
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class JankTelemetry {
+    /** Android vitals' frozen-frame threshold. */
+    public static final long FROZEN_MICROS = 700_000L;
+    public static final String DEFAULT_SCREEN = "app";
+    static final int MAX_SCREENS = 32;
+    static final int RING_CAPACITY = 1024;
+
+    public static final class Screen {
+        public final String tag;
+        public final long frames;
+        public final long slow;
+        public final long frozen;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        public Screen(String tag, long frames, long slow, long frozen,
+                      long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.tag = tag;
+            this.frames = frames;
+            this.slow = slow;
+            this.frozen = frozen;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+    }
+
+    public static final class Report {
+        public final Screen total;
+        /** Screens with at least one frame, in the order they were first tagged. */
+        public final List<Screen> screens;
+        /** Frames lost to a full ring or reported dropped by the platform. */
+        public final long dropped;
+
+        Report(Screen total, List<Screen> screens, long dropped) {
+            this.total = total;
+            this.screens = screens;
+            this.dropped = dropped;
+        }
+    }
+
+    private static final class Counters {
+        final FrameHistogram histogram = new FrameHistogram();
+        long slow;
+        long frozen;
+
+        void add(long micros, boolean isSlow) {
+            histogram.record(micros);
+            if (isSlow) slow++;
+            if (micros >= FROZEN_MICROS) frozen++;
+        }
+
+        void merge(Counters other) {
+            histogram.merge(other.histogram);
+            slow += other.slow;
+            frozen += other.frozen;
+        }
+
+        void reset() {
+            histogram.reset();
+            slow = 0;
+            frozen = 0;
+        }
+
+        Screen snapshot(String tag) {
+            return new Screen(tag, histogram.count(), slow, frozen, histogram.percentile(50),
+                    histogram.percentile(90), histogram.percentile(99), histogram.maxMicros());
+        }
+    }
+
+    private final FrameRing ring = new FrameRing(RING_CAPACITY);
+    private final String[] tags = new String[MAX_SCREENS];
+    private int tagCount;
+    private volatile int current;
+
+    // Guarded by this; only drain and the readers touch them.
+    private final Counters[] session = newCounters();
+    private final Counters[] interval = newCounters();
+    private long sessionDropped;
+    private long intervalDropped;
+    private long droppedSeen;
+    private final FrameRing.Sink sink = (micros, tag, slow) -> {
+        session[tag].add(micros, slow);
+        interval[tag].add(micros, slow);
+    };
+
+    public JankTelemetry() {
+        tags[0] = DEFAULT_SCREEN;
+        tagCount = 1;
+    }
+
+    /** Tags frames produced from now on; beyond {@link #MAX_SCREENS} tags, frames go to the default. */
+    public void setScreen(String tag) {
+        current = indexOf(tag == null || tag.isEmpty() ? DEFAULT_SCREEN : tag);
+    }
+
+    public String screen() {
+        synchronized (tags) {
+            return tags[current];
+        }
+    }
+
+    /**
+     * Producer side, called once per frame. Returns true when this frame filled the ring to
+     * half, the caller's cue to schedule a {@link #drain}.
+     */
+    public boolean onFrame(long durationNanos, long deadlineNanos) {
+        int size = ring.offer(durationNanos / 1000L, current, durationNanos > deadlineNanos);
+        return size == RING_CAPACITY / 2;
+    }
+
+    /** Producer side: frames the platform could not report. */
+    public void onDropped(long frames) {
+        ring.addDropped(frames);
+    }
+
+    /** Folds pending samples into the counters; safe from any thread. */
+    public synchronized int drain() {
+        int drained = ring.drain(sink);
+        long dropped = ring.dropped();
+        sessionDropped += dropped - droppedSeen;
+        intervalDropped += dropped - droppedSeen;
+        droppedSeen = dropped;
+        return drained;
+    }
+
+    public synchronized Report report() {
+        drain();
+        return report(session, sessionDropped);
+    }
+
+    /** Drains, returns the counters since the previous call, and starts a new interval. */
+    public synchronized Report takeInterval() {
+        drain();
+        Report report = report(interval, intervalDropped);
+        for (Counters counters : interval) counters.reset();
+        intervalDropped = 0;
+        return report;
+    }
+
+    public synchronized void reset() {
+        drain();
+        for (Counters counters : session) counters.reset();
+        sessionDropped = 0;
+    }
+
+    private Report report(Counters[] counters, long dropped) {
+        Counters total = new Counters();
+        List<Screen> screens = new ArrayList<>();
+        int n;
+        synchronized (tags) {
+            n = tagCount;
+        }
+        for (int i = 0; i < n; i++) {
+            if (counters[i].histogram.count() == 0) continue;
+            total.merge(counters[i]);
+            screens.add(counters[i].snapshot(tags[i]));
+        }
+        return new Report(total.snapshot(null), screens, dropped);
+    }
+
+    private int indexOf(String tag) {
+        synchronized (tags) {
+            for (int i = 0; i < tagCount; i++) {
+                if (tags[i].equals(tag)) return i;
+            }
+            if (tagCount == MAX_SCREENS) return 0;
+            tags[tagCount] = tag;
+            return tagCount++;
+        }
+    }
+
+    private static Counters[] newCounters() {
+        Counters[] counters = new Counters[MAX_SCREENS];
+        for (int i = 0; i < counters.length; i++) counters[i] = new Counters();
+        return counters;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tgatb.habittracker;
+
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * AES-256 GCM key held by the Android Keystore; created under {@code alias} on first use.
+ * The key material never leaves the Keystore, and the Keystore generates every encryption
+ * IV itself, which {@link SecureStore} relies on.
+ */
+final class KeystoreKeyProvider implements SecureStore.KeyProvider {
+    private static final String KEYSTORE = "AndroidKeyStore";
+
+    private final String alias;
+
+    KeystoreKeyProvider(String alias) {
+        this.alias = alias;
+    }
+
+    @Override
+    public SecretKey key() throws GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        try {
+            keyStore.load(null);
+        } catch (IOException e) {
+            throw new GeneralSecurityException("Cannot open " + KEYSTORE, e);
+        }
+        Key existing = keyStore.getKey(alias, null);
+        if (existing instanceof SecretKey) return (SecretKey) existing;
+
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        generator.init(new KeyGenParameterSpec.Builder(alias,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build());
+        return generator.generateKey();
+    }
+}
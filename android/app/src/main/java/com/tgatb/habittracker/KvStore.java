@@ -0,0 +1,564 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * String key-value store with an append-only write-ahead log and a snapshot file.
+ *
+ * Writes update memory immediately and queue one WAL record per call (a multi-set is a
+ * single record, so it survives a crash whole or not at all). {@link #awaitDurable} group
+ * commits: the first waiter writes and fsyncs everything queued so far and every caller
+ * covered by that fsync returns without issuing its own.
+ *
+ * {@link #compact()} may run on a background thread alongside writers. It switches to a
+ * new log generation, writes the map as snapshot {@code N}, then deletes older logs;
+ * recovery loads the newest snapshot and replays logs {@code >= N} in order, truncating a
+ * torn tail. A snapshot that fails its checks is moved to {@link #CORRUPT_SNAPSHOT_NAME}
+ * and the surviving logs are replayed on their own; what only the snapshot held is gone,
+ * which {@link #recoveredCorruptSnapshot()} reports so the caller can restore it from
+ * elsewhere. This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class KvStore implements Closeable {
+    static final int SNAPSHOT_MAGIC = 0x54474B53; // "TGKS"
+    static final int WAL_MAGIC = 0x54474B57; // "TGKW"
+    static final int FORMAT_VERSION = 1;
+    static final int WAL_HEADER_SIZE = 8;
+    static final String SNAPSHOT_NAME = "snapshot";
+    static final String CORRUPT_SNAPSHOT_NAME = "snapshot.corrupt";
+    static final String WAL_PREFIX = "wal.";
+
+    /** Separator written by {@code scopedKey()} in lib/account-scope.ts. */
+    public static final String SCOPE_SEPARATOR = "::";
+    /** Namespace of keys without an account suffix (bootstrap mirrors, device flags). */
+    public static final String GLOBAL_NAMESPACE = "_global";
+
+    static final long COMPACT_MIN_WAL_BYTES = 256L * 1024;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private final File dir;
+    private final Object lock = new Object();
+    private final Map<String, String> map = new HashMap<>();
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long generation;
+    private RandomAccessFile wal;
+    private long walBytes;
+    private long liveBytes;
+    private long appliedSeq;
+    private long durableSeq;
+    private boolean syncing;
+    private boolean compacting;
+    private long syncCount;
+    private long recoveredTruncatedBytes;
+    private boolean recoveredCorruptSnapshot;
+
+    public KvStore(File dir) throws IOException {
+        this.dir = dir;
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        recover();
+    }
+
+    /** Namespace a full key belongs to: the account suffix of a scoped key, else global. */
+    public static String namespaceOf(String key) {
+        int at = key.lastIndexOf(SCOPE_SEPARATOR);
+        if (at < 0 || at + SCOPE_SEPARATOR.length() == key.length()) return GLOBAL_NAMESPACE;
+        return key.substring(at + SCOPE_SEPARATOR.length());
+    }
+
+    public String get(String key) {
+        synchronized (lock) {
+            return map.get(key);
+        }
+    }
+
+    /** Values for {@code keys} in order; missing keys map to null. */
+    public Map<String, String> getMany(Collection<String> keys) {
+        Map<String, String> out = new LinkedHashMap<>(keys.size() * 2);
+        synchronized (lock) {
+            for (String key : keys) {
+                out.put(key, map.get(key));
+            }
+        }
+        return out;
+    }
+
+    public List<String> keys() {
+        synchronized (lock) {
+            List<String> out = new ArrayList<>(map.keySet());
+            Collections.sort(out);
+            return out;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return map.size();
+        }
+    }
+
+    /** Single-key write; see {@link #apply}. */
+    public long put(String key, String value) {
+        return apply(Collections.singletonMap(key, value), Collections.<String>emptyList());
+    }
+
+    public long remove(String key) {
+        return apply(Collections.<String, String>emptyMap(), Collections.singletonList(key));
+    }
+
+    /**
+     * Applies puts then removals atomically and queues them as one WAL record. Visible to
+     * readers on return; durable once {@link #awaitDurable} passes the returned sequence.
+     */
+    public long apply(Map<String, String> puts, Collection<String> removals) {
+        if (puts.isEmpty() && removals.isEmpty()) {
+            synchronized (lock) {
+                return appliedSeq;
+            }
+        }
+        for (Map.Entry<String, String> entry : puts.entrySet()) {
+            if (entry.getValue() == null) throw new IllegalArgumentException("null value for " + entry.getKey());
+        }
+        byte[] record = encodeRecord(puts, removals);
+        synchronized (lock) {
+            for (Map.Entry<String, String> entry : puts.entrySet()) {
+                String previous = map.put(entry.getKey(), entry.getValue());
+                liveBytes += sizeOf(entry.getKey(), entry.getValue()) - sizeOf(entry.getKey(), previous);
+            }
+            for (String key : removals) {
+                liveBytes -= sizeOf(key, map.remove(key));
+            }
+            pending.write(record, 0, record.length);
+            return ++appliedSeq;
+        }
+    }
+
+    /** Blocks until every write up to {@code seq} is fsynced, leading the commit if none is running. */
+    public void awaitDurable(long seq) throws IOException {
+        byte[] batch;
+        long batchSeq;
+        RandomAccessFile out;
+        synchronized (lock) {
+            while (durableSeq < seq && syncing) {
+                waitUninterruptibly();
+            }
+            if (durableSeq >= seq) return;
+            syncing = true;
+            batch = pending.toByteArray();
+            pending = new ByteArrayOutputStream();
+            batchSeq = appliedSeq;
+            out = wal;
+        }
+        boolean ok = false;
+        long start = out.getFilePointer();
+        try {
+            if (batch.length > 0) {
+                out.write(batch);
+                out.getFD().sync();
+            }
+            ok = true;
+        } finally {
+            if (!ok) rewind(out, start);
+            synchronized (lock) {
+                if (ok) {
+                    walBytes += batch.length;
+                    durableSeq = batchSeq;
+                    syncCount++;
+                } else {
+                    // Keep the records queued (ahead of newer ones) so the next commit retries them.
+                    ByteArrayOutputStream retry = new ByteArrayOutputStream(batch.length + pending.size());
+                    retry.write(batch, 0, batch.length);
+                    byte[] newer = pending.toByteArray();
+                    retry.write(newer, 0, newer.length);
+                    pending = retry;
+                }
+                syncing = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** Commits everything written so far. */
+    public void sync() throws IOException {
+        long seq;
+        synchronized (lock) {
+            seq = appliedSeq;
+        }
+        awaitDurable(seq);
+    }
+
+    /** True once the log has grown past the threshold and is mostly superseded data. */
+    public boolean needsCompaction() {
+        synchronized (lock) {
+            return !compacting && walBytes >= COMPACT_MIN_WAL_BYTES && walBytes > 2 * liveBytes;
+        }
+    }
+
+    /**
+     * Folds the current state into a new snapshot and drops the logs it covers. Writers are
+     * only blocked while the log generation is switched and the map is copied.
+     */
+    public void compact() throws IOException {
+        Map<String, String> copy;
+        long snapshotGeneration;
+        long oldGeneration;
+        synchronized (lock) {
+            if (compacting) return;
+            compacting = true;
+            while (syncing) {
+                waitUninterruptibly();
+            }
+            // Queued records stay pending and land in the new log; replaying them over the
+            // snapshot that already contains them is idempotent.
+            oldGeneration = generation;
+            snapshotGeneration = generation + 1;
+            RandomAccessFile next;
+            try {
+                next = openWal(snapshotGeneration);
+            } catch (IOException e) {
+                compacting = false;
+                throw e;
+            }
+            closeQuietly(wal);
+            wal = next;
+            generation = snapshotGeneration;
+            walBytes = 0L;
+            copy = new HashMap<>(map);
+        }
+        try {
+            writeSnapshot(copy, snapshotGeneration);
+            for (long gen = oldGeneration; gen >= 0; gen--) {
+                File old = walFile(gen);
+                if (!old.exists()) break;
+                old.delete();
+            }
+        } finally {
+            synchronized (lock) {
+                compacting = false;
+            }
+        }
+    }
+
+    public long syncCount() {
+        synchronized (lock) {
+            return syncCount;
+        }
+    }
+
+    public long walBytes() {
+        synchronized (lock) {
+            return walBytes;
+        }
+    }
+
+    public long generation() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    /** Bytes dropped from a torn log tail when the store was opened. */
+    public long recoveredTruncatedBytes() {
+        return recoveredTruncatedBytes;
+    }
+
+    /** True when the snapshot was unreadable at open and only the logs were recovered. */
+    public boolean recoveredCorruptSnapshot() {
+        return recoveredCorruptSnapshot;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        synchronized (lock) {
+            closeQuietly(wal);
+            wal = null;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Recovery
+    // ---------------------------------------------------------------------
+
+    private void recover() throws IOException {
+        File snapshot = new File(dir, SNAPSHOT_NAME);
+        long snapshotGeneration = 0L;
+        if (snapshot.exists()) {
+            try {
+                snapshotGeneration = readSnapshot(snapshot);
+            } catch (IOException e) {
+                // Keep the file for inspection, out of the way of the next compaction.
+                File aside = new File(dir, CORRUPT_SNAPSHOT_NAME);
+                aside.delete();
+                if (!snapshot.renameTo(aside)) snapshot.delete();
+                recoveredCorruptSnapshot = true;
+            }
+        }
+        List<Long> generations = walGenerations();
+        long last = snapshotGeneration;
+        for (long gen : generations) {
+            if (gen < snapshotGeneration) {
+                walFile(gen).delete();
+                continue;
+            }
+            replay(walFile(gen));
+            last = gen;
+        }
+        generation = last;
+        wal = openWal(generation);
+        walBytes = wal.length() - WAL_HEADER_SIZE;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            liveBytes += sizeOf(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Loads the snapshot into the map and returns its generation. Throws, leaving the map
+     * untouched, unless the whole file checks out.
+     */
+    private long readSnapshot(File file) throws IOException {
+        byte[] bytes = readFully(file);
+        if (bytes.length < 24) throw new IOException("Snapshot too short: " + file);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+            throw new IOException("Snapshot checksum mismatch in " + file);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown snapshot format in " + file);
+        }
+        long gen = in.readLong();
+        int count = in.readInt();
+        // Every entry takes at least two length prefixes.
+        if (count < 0 || count > in.available() / 8) throw new IOException("Bad snapshot entry count in " + file);
+        Map<String, String> loaded = new HashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            loaded.put(readString(in), readString(in));
+        }
+        if (in.available() != 0) throw new IOException("Trailing bytes in " + file);
+        map.putAll(loaded);
+        return gen;
+    }
+
+    /** Replays complete records and truncates the file after the last valid one. */
+    private void replay(File file) throws IOException {
+        byte[] bytes = readFully(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int good = 0;
+        if (bytes.length >= WAL_HEADER_SIZE && buffer.getInt() == WAL_MAGIC && buffer.getInt() == FORMAT_VERSION) {
+            good = WAL_HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= 8) {
+                int size = buffer.getInt();
+                int expected = buffer.getInt();
+                if (size <= 0 || size > buffer.remaining()) break;
+                crc.reset();
+                crc.update(bytes, buffer.position(), size);
+                if ((int) crc.getValue() != expected) break;
+                applyRecord(new DataInputStream(new ByteArrayInputStream(bytes, buffer.position(), size)));
+                buffer.position(buffer.position() + size);
+                good = buffer.position();
+            }
+        }
+        if (good < bytes.length) {
+            recoveredTruncatedBytes += bytes.length - good;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(good);
+                raf.getFD().sync();
+            }
+        }
+    }
+
+    private void applyRecord(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            byte op = in.readByte();
+            String key = readString(in);
+            if (op == OP_PUT) {
+                map.put(key, readString(in));
+            } else if (op == OP_REMOVE) {
+                map.remove(key);
+            } else {
+                throw new IOException("Unknown WAL op " + op);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Encoding
+    // ---------------------------------------------------------------------
+
+    /** {@code [len][crc32][payload]}; payload is {@code [count]{[op][key][value?]}}. */
+    static byte[] encodeRecord(Map<String, String> puts, Collection<String> removals) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeInt(puts.size() + removals.size());
+            for (Map.Entry<String, String> entry : puts.entrySet()) {
+                out.writeByte(OP_PUT);
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+            for (String key : removals) {
+                out.writeByte(OP_REMOVE);
+                writeString(out, key);
+            }
+            out.flush();
+            byte[] payload = body.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, payload.length);
+            ByteArrayOutputStream framed = new ByteArrayOutputStream(payload.length + 8);
+            DataOutputStream frame = new DataOutputStream(framed);
+            frame.writeInt(payload.length);
+            frame.writeInt((int) crc.getValue());
+            frame.write(payload);
+            frame.flush();
+            return framed.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory streams do not throw
+        }
+    }
+
+    private void writeSnapshot(Map<String, String> entries, long gen) throws IOException {
+        File file = new File(dir, SNAPSHOT_NAME);
+        File tmp = new File(dir, SNAPSHOT_NAME + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(fos, crc), 64 * 1024));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(gen);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+            out.flush();
+            new DataOutputStream(fos).writeInt((int) crc.getValue());
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) throw new IOException("Bad string length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long sizeOf(String key, String value) {
+        return value == null ? 0L : 9L + key.length() * 2L + value.length() * 2L;
+    }
+
+    // ---------------------------------------------------------------------
+    // Files
+    // ---------------------------------------------------------------------
+
+    private File walFile(long gen) {
+        return new File(dir, WAL_PREFIX + gen);
+    }
+
+    private List<Long> walGenerations() {
+        List<Long> out = new ArrayList<>();
+        String[] names = dir.list();
+        if (names == null) return out;
+        for (String name : names) {
+            if (!name.startsWith(WAL_PREFIX)) continue;
+            try {
+                out.add(Long.parseLong(name.substring(WAL_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // Not ours.
+            }
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    private RandomAccessFile openWal(long gen) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(walFile(gen), "rw");
+        if (raf.length() < WAL_HEADER_SIZE) {
+            raf.setLength(0);
+            raf.writeInt(WAL_MAGIC);
+            raf.writeInt(FORMAT_VERSION);
+            raf.getFD().sync();
+        }
+        raf.seek(raf.length());
+        return raf;
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(file.length(), Integer.MAX_VALUE));
+            byte[] buffer = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /** Drops a partially written batch so the retry does not leave a torn record mid-log. */
+    private static void rewind(RandomAccessFile out, long position) {
+        try {
+            out.setLength(position);
+            out.seek(position);
+        } catch (IOException ignored) {
+            // Recovery truncates at the first bad record either way.
+        }
+    }
+
+    private void waitUninterruptibly() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to flush; every write went through awaitDurable.
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Key-value storage for {@code PlatformStorage}, replacing @capacitor/preferences on Android.
+ *
+ * Keys are split into one {@link KvStore} per account namespace (the suffix written by
+ * {@code scopedKey()}), so switching or wiping an account never touches another account's
+ * log. Writes are visible to later reads as soon as they are applied; calls resolve once
+ * the write is fsynced, and concurrent writers share a single fsync.
+ */
+@CapacitorPlugin(name = "KvStore")
+public class KvStorePlugin extends Plugin {
+    static final String STORE_DIR = "kv";
+    /** Same file as @capacitor/preferences; read once by the migration and then left as is. */
+    static final String CAPACITOR_PREFS = "CapacitorStorage";
+    private static final String PREF_MIGRATED = "kv_migrated_from_preferences";
+
+    private static final Map<String, KvStore> STORES = new HashMap<>();
+    private static final Object MIGRATION_LOCK = new Object();
+    private static volatile boolean migrated;
+
+    /** Commits run here so calls queued behind an fsync are covered by it rather than issuing their own. */
+    private static final ExecutorService COMMITTER = Executors.newSingleThreadExecutor();
+    private static final ExecutorService MAINTENANCE = Executors.newSingleThreadExecutor();
+
+    /** Shared per-namespace store; also used by native code that runs without the bridge. */
+    public static KvStore storeFor(Context context, String namespace) throws IOException {
+        migrateFromPreferences(context);
+        return openStore(context, namespace);
+    }
+
+    /** Store holding {@code key}, selected by its {@code ::account} suffix. */
+    public static KvStore storeForKey(Context context, String key) throws IOException {
+        return storeFor(context, KvStore.namespaceOf(key));
+    }
+
+    private static KvStore openStore(Context context, String namespace) throws IOException {
+        String name = HabitLogStorePlugin.sanitizeScope(namespace);
+        synchronized (STORES) {
+            KvStore store = STORES.get(name);
+            if (store == null) {
+                File dir = new File(context.getFilesDir(), STORE_DIR);
+                ScopeNames.migrateLegacy(dir, namespace);
+                store = new KvStore(new File(dir, name));
+                if (store.recoveredCorruptSnapshot()) {
+                    copyFromPreferences(context, store, namespace);
+                }
+                STORES.put(name, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * One-time copy of the @capacitor/preferences data. Existing KV values win, so a retry
+     * after a partial run never overwrites newer writes. The Preferences file is kept so a
+     * downgrade still finds its data.
+     */
+    static void migrateFromPreferences(Context context) throws IOException {
+        if (migrated) return;
+        synchronized (MIGRATION_LOCK) {
+            if (migrated) return;
+            SharedPreferences state = context.getSharedPreferences(AutoFinalizePlugin.PREFS_NAME, Context.MODE_PRIVATE);
+            if (!state.getBoolean(PREF_MIGRATED, false)) {
+                for (Map.Entry<String, Map<String, String>> group : preferencesByNamespace(context).entrySet()) {
+                    putMissing(openStore(context, group.getKey()), group.getValue());
+                }
+                state.edit().putBoolean(PREF_MIGRATED, true).commit();
+            }
+            migrated = true;
+        }
+    }
+
+    /**
+     * Runs the migration again for one namespace whose snapshot was lost: the values only
+     * the snapshot held come back from Preferences as of the first migration, while
+     * anything the surviving logs still hold wins.
+     */
+    private static void copyFromPreferences(Context context, KvStore store, String namespace) throws IOException {
+        Map<String, String> values = preferencesByNamespace(context).get(namespace);
+        if (values != null) putMissing(store, values);
+    }
+
+    private static Map<String, Map<String, String>> preferencesByNamespace(Context context) {
+        Map<String, Map<String, String>> byNamespace = new HashMap<>();
+        for (Map.Entry<String, ?> entry : context.getSharedPreferences(CAPACITOR_PREFS, Context.MODE_PRIVATE)
+                .getAll().entrySet()) {
+            if (!(entry.getValue() instanceof String)) continue;
+            String namespace = KvStore.namespaceOf(entry.getKey());
+            Map<String, String> values = byNamespace.get(namespace);
+            if (values == null) {
+                values = new HashMap<>();
+                byNamespace.put(namespace, values);
+            }
+            values.put(entry.getKey(), (String) entry.getValue());
+        }
+        return byNamespace;
+    }
+
+    /** Writes only the keys {@code store} does not hold yet. */
+    private static void putMissing(KvStore store, Map<String, String> values) throws IOException {
+        Map<String, String> missing = new HashMap<>(values);
+        Iterator<String> keys = missing.keySet().iterator();
+        while (keys.hasNext()) {
+            if (store.get(keys.next()) != null) keys.remove();
+        }
+        store.awaitDurable(store.apply(missing, Collections.<String>emptyList()));
+    }
+
+    @PluginMethod
+    public void get(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+        try {
+            JSObject ret = new JSObject();
+            ret.put("value", storeForKey(getContext(), key).get(key));
+            call.resolve(ret);
+        } catch (IOException e) {
+            call.reject("Failed to open store: " + e.getMessage(), e);
+        }
+    }
+
+    /** {@code {keys}} resolves with {@code {values: {key: value | null}}}. */
+    @PluginMethod
+    public void getMany(PluginCall call) {
+        JSArray keys = call.getArray("keys");
+        if (keys == null) {
+            call.reject("keys is required");
+            return;
+        }
+        try {
+            Map<String, List<String>> byNamespace = new LinkedHashMap<>();
+            for (int i = 0; i < keys.length(); i++) {
+                String key = keys.getString(i);
+                String namespace = KvStore.namespaceOf(key);
+                List<String> group = byNamespace.get(namespace);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    byNamespace.put(namespace, group);
+                }
+                group.add(key);
+            }
+            JSObject values = new JSObject();
+            for (Map.Entry<String, List<String>> group : byNamespace.entrySet()) {
+                for (Map.Entry<String, String> entry : storeFor(getContext(), group.getKey())
+                        .getMany(group.getValue()).entrySet()) {
+                    values.put(entry.getKey(), entry.getValue() != null ? entry.getValue() : JSONObject.NULL);
+                }
+            }
+            JSObject ret = new JSObject();
+            ret.put("values", values);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to read keys: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void set(PluginCall call) {
+        String key = call.getString("key");
+        String value = call.getString("value");
+        if (key == null || value == null) {
+            call.reject("key and value are required");
+            return;
+        }
+        write(call, Collections.singletonMap(key, value), Collections.<String>emptyList());
+    }
+
+    @PluginMethod
+    public void remove(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+        write(call, Collections.<String, String>emptyMap(), Collections.singletonList(key));
+    }
+
+    /**
+     * {@code {entries: {key: value}, remove?: [key]}}; applied atomically within each account
+     * namespace (one WAL record per namespace).
+     */
+    @PluginMethod
+    public void setMany(PluginCall call) {
+        JSObject entries = call.getObject("entries", new JSObject());
+        JSArray removals = call.getArray("remove", new JSArray());
+        try {
+            Map<String, String> puts = new LinkedHashMap<>();
+            Iterator<String> keys = entries.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (entries.isNull(key)) {
+                    throw new IllegalArgumentException("value for " + key + " must be a string");
+                }
+                puts.put(key, entries.getString(key));
+            }
+            List<String> removed = new ArrayList<>(removals.length());
+            for (int i = 0; i < removals.length(); i++) {
+                removed.add(removals.getString(i));
+            }
+            write(call, puts, removed);
+        } catch (Exception e) {
+            call.reject("Invalid entries: " + e.getMessage(), e);
+        }
+    }
+
+    /** Keys of one namespace (account id, or {@code _global} for unscoped keys). */
+    @PluginMethod
+    public void keys(PluginCall call) {
+        String namespace = call.getString("namespace", KvStore.GLOBAL_NAMESPACE);
+        try {
+            JSObject ret = new JSObject();
+            ret.put("keys", new JSArray(storeFor(getContext(), namespace).keys()));
+            call.resolve(ret);
+        } catch (IOException e) {
+            call.reject("Failed to open store: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        String namespace = call.getString("namespace", KvStore.GLOBAL_NAMESPACE);
+        try {
+            KvStore store = storeFor(getContext(), namespace);
+            JSObject ret = new JSObject();
+            ret.put("namespace", namespace);
+            ret.put("keys", store.size());
+            ret.put("walBytes", store.walBytes());
+            ret.put("generation", store.generation());
+            ret.put("fsyncs", store.syncCount());
+            ret.put("recoveredTruncatedBytes", store.recoveredTruncatedBytes());
+            ret.put("recoveredCorruptSnapshot", store.recoveredCorruptSnapshot());
+            call.resolve(ret);
+        } catch (IOException e) {
+            call.reject("Failed to open store: " + e.getMessage(), e);
+        }
+    }
+
+    /** Applies on the calling thread so later reads see it, then resolves after the group commit. */
+    private void write(PluginCall call, Map<String, String> puts, Collection<String> removals) {
+        final Map<KvStore, Long> pending = new LinkedHashMap<>();
+        try {
+            Map<String, Map<String, String>> putGroups = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : puts.entrySet()) {
+                String namespace = KvStore.namespaceOf(entry.getKey());
+                Map<String, String> group = putGroups.get(namespace);
+                if (group == null) {
+                    group = new LinkedHashMap<>();
+                    putGroups.put(namespace, group);
+                }
+                group.put(entry.getKey(), entry.getValue());
+            }
+            Map<String, List<String>> removeGroups = new LinkedHashMap<>();
+            for (String key : removals) {
+                String namespace = KvStore.namespaceOf(key);
+                List<String> group = removeGroups.get(namespace);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    removeGroups.put(namespace, group);
+                }
+                group.add(key);
+            }
+            List<String> namespaces = new ArrayList<>(putGroups.keySet());
+            for (String namespace : removeGroups.keySet()) {
+                if (!putGroups.containsKey(namespace)) namespaces.add(namespace);
+            }
+            for (String namespace : namespaces) {
+                Map<String, String> groupPuts = putGroups.get(namespace);
+                List<String> groupRemovals = removeGroups.get(namespace);
+                KvStore store = storeFor(getContext(), namespace);
+                pending.put(store, store.apply(
+                        groupPuts != null ? groupPuts : Collections.<String, String>emptyMap(),
+                        groupRemovals != null ? groupRemovals : Collections.<String>emptyList()));
+            }
+        } catch (IOException e) {
+            call.reject("Failed to open store: " + e.getMessage(), e);
+            return;
+        }
+        COMMITTER.execute(() -> {
+            try {
+                for (Map.Entry<KvStore, Long> entry : pending.entrySet()) {
+                    KvStore store = entry.getKey();
+                    store.awaitDurable(entry.getValue());
+                    if (store.needsCompaction()) scheduleCompaction(store);
+                }
+                call.resolve();
+            } catch (IOException e) {
+                call.reject("Failed to persist: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static void scheduleCompaction(final KvStore store) {
+        MAINTENANCE.execute(() -> {
+            try {
+                if (store.needsCompaction()) store.compact();
+            } catch (IOException ignored) {
+                // The log stays authoritative; the next commit retries.
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.tgatb.habittracker;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of trigger-to-output latencies: the last {@link #WINDOW} samples in a
+ * fixed ring, so recording never allocates. Percentiles sort a copy on demand.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class LatencyStats {
+    static final int WINDOW = 64;
+
+    public static final class Snapshot {
+        public final long count;
+        public final long p50Nanos;
+        public final long p90Nanos;
+        public final long maxNanos;
+        public final long lastId;
+        public final long lastNanos;
+
+        Snapshot(long count, long p50Nanos, long p90Nanos, long maxNanos, long lastId, long lastNanos) {
+            this.count = count;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.maxNanos = maxNanos;
+            this.lastId = lastId;
+            this.lastNanos = lastNanos;
+        }
+    }
+
+    private final long[] samples = new long[WINDOW];
+    private long count;
+    private long lastId = -1;
+
+    public synchronized void record(long id, long latencyNanos) {
+        if (latencyNanos < 0) return;
+        samples[(int) (count % WINDOW)] = latencyNanos;
+        count++;
+        lastId = id;
+    }
+
+    /** Median of the window, or -1 before the first sample. */
+    public synchronized long medianNanos() {
+        return count == 0 ? -1 : percentile(window(), 50);
+    }
+
+    public synchronized Snapshot snapshot() {
+        if (count == 0) return new Snapshot(0, -1, -1, -1, -1, -1);
+        long[] sorted = window();
+        long last = samples[(int) ((count - 1) % WINDOW)];
+        return new Snapshot(count, percentile(sorted, 50), percentile(sorted, 90),
+                sorted[sorted.length - 1], lastId, last);
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        lastId = -1;
+    }
+
+    private long[] window() {
+        long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, WINDOW));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /** Nearest-rank percentile of an ascending array. */
+    static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * When the first frame of a play reached the output, from an audio timestamp:
+     * {@code timestampFrames} were presented by {@code timestampNanos}, of which
+     * {@code baseFrames} belong to earlier plays of the same track.
+     */
+    static long outputStartNanos(long timestampNanos, long timestampFrames, long baseFrames, int sampleRate) {
+        return timestampNanos - (timestampFrames - baseFrames) * 1_000_000_000L / sampleRate;
+    }
+}
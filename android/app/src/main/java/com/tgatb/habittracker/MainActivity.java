@@ -8,33 +8,57 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.view.WindowManager;
 import android.webkit.WebView;
-import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
-import androidx.core.view.WindowInsetsCompat;
 import androidx.core.view.WindowCompat;
 import com.getcapacitor.BridgeActivity;
 
 public class MainActivity extends BridgeActivity {
     private static final String PREFS_NAME = "tgatb_boot_state";
     private static final String PREF_LAST_VERSION_CODE = "last_version_code";
-    private int baseWebViewPaddingLeft = 0;
-    private int baseWebViewPaddingTop = 0;
-    private int baseWebViewPaddingRight = 0;
-    private int baseWebViewPaddingBottom = 0;
     private boolean imeInsetsInstalled = false;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        StartupTracePlugin.onActivityCreate(savedInstanceState != null);
+        int span = StartupTracePlugin.begin("registerPlugins");
         // Register custom plugin before super so bridge picks it up
         registerPlugin(SystemUiPlugin.class);
         registerPlugin(PremiumHapticsPlugin.class);
+        registerPlugin(HabitLogStorePlugin.class);
+        registerPlugin(StreakEnginePlugin.class);
+        registerPlugin(AutoFinalizePlugin.class);
+        registerPlugin(StartupTracePlugin.class);
+        registerPlugin(WebAssetCachePlugin.class);
+        registerPlugin(AssetCachePlugin.class);
+        registerPlugin(NativeBatchPlugin.class);
+        registerPlugin(ReminderPlugin.class);
+        registerPlugin(KvStorePlugin.class);
+        registerPlugin(DataTransferPlugin.class);
+        registerPlugin(MergeEnginePlugin.class);
+        registerPlugin(DeltaBackupPlugin.class);
+        registerPlugin(DailyRollupPlugin.class);
+        registerPlugin(HeatmapPlugin.class);
+        registerPlugin(SoundEnginePlugin.class);
+        registerPlugin(FrameMetricsPlugin.class);
+        registerPlugin(ConfettiPlugin.class);
+        registerPlugin(SecureStoragePlugin.class);
+        StartupTracePlugin.end(span);
+        // Read the hot JS/CSS/fonts into memory while the bridge and splash come up
+        AssetCachePlugin.warm(this);
+        span = StartupTracePlugin.begin("bridgeCreate");
         super.onCreate(savedInstanceState);
+        StartupTracePlugin.end(span);
+        getBridge().setWebViewClient(new AssetCacheWebViewClient(getBridge()));
+        // Backfill missed days off the UI thread while the WebView is still booting
+        AutoFinalizePlugin.schedule(this);
 
         // FIXED: Revert WebView background to default transparent/white
         getBridge().getWebView().setBackgroundColor(Color.TRANSPARENT);
+        ConfettiPlugin.install(this, getBridge().getWebView());
         clearWebViewCacheOnAppUpgrade();
         getWindow().setSoftInputMode(WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE);
 
+        span = StartupTracePlugin.begin("systemUi");
         // IMPROVED: Proper window insets handling based on fullscreen state
         if (Build.VERSION.SDK_INT < 35) {
             if (SystemUiPlugin.isFullscreenEnabled()) {
@@ -46,8 +70,29 @@ public class MainActivity extends BridgeActivity {
             // Android 15+ is edge-to-edge by default; avoid deprecated API call.
         }
         SystemUiPlugin.reapply(this);
+        StartupTracePlugin.end(span);
+        span = StartupTracePlugin.begin("imeInsets");
         installImeInsetsForWebView();
         refreshImeInsets();
+        StartupTracePlugin.end(span);
+        traceFirstWebViewFrame();
+    }
+
+    private void traceFirstWebViewFrame() {
+        if (getBridge() == null || getBridge().getWebView() == null) {
+            return;
+        }
+        final StartupTracer tracer = StartupTracePlugin.tracer();
+        if (tracer.isFinished()) {
+            return;
+        }
+        // Fires once the WebView has content ready to draw for everything loaded so far.
+        getBridge().getWebView().postVisualStateCallback(0, new WebView.VisualStateCallback() {
+            @Override
+            public void onComplete(long requestId) {
+                tracer.mark("webViewFirstVisualState");
+            }
+        });
     }
 
     private void installImeInsetsForWebView() {
@@ -56,30 +101,8 @@ public class MainActivity extends BridgeActivity {
         }
 
         final WebView webView = getBridge().getWebView();
-
-        baseWebViewPaddingLeft = webView.getPaddingLeft();
-        baseWebViewPaddingTop = webView.getPaddingTop();
-        baseWebViewPaddingRight = webView.getPaddingRight();
-        baseWebViewPaddingBottom = webView.getPaddingBottom();
-
-        ViewCompat.setOnApplyWindowInsetsListener(webView, (view, insets) -> {
-            final Insets imeInsets = insets.getInsets(WindowInsetsCompat.Type.ime());
-            final Insets systemBarInsets = insets.getInsets(WindowInsetsCompat.Type.systemBars());
-            final boolean imeVisible = insets.isVisible(WindowInsetsCompat.Type.ime());
-
-            final int imeExtraBottom = imeVisible
-                    ? Math.max(0, imeInsets.bottom - systemBarInsets.bottom)
-                    : 0;
-
-            view.setPadding(
-                    baseWebViewPaddingLeft,
-                    baseWebViewPaddingTop,
-                    baseWebViewPaddingRight,
-                    baseWebViewPaddingBottom + imeExtraBottom
-            );
-
-            return insets;
-        });
+        // Translate per frame while the keyboard animates; commit padding once at the end.
+        ImeInsetsAnimator.install(webView);
 
         imeInsetsInstalled = true;
         ViewCompat.requestApplyInsets(webView);
@@ -93,35 +116,57 @@ public class MainActivity extends BridgeActivity {
     }
 
     private void clearWebViewCacheOnAppUpgrade() {
+        int span = StartupTracePlugin.begin("upgradeCheck");
         try {
+            int step = StartupTracePlugin.begin("upgradeCheck.packageInfo");
             PackageManager packageManager = getPackageManager();
             PackageInfo packageInfo = packageManager.getPackageInfo(getPackageName(), 0);
             long currentVersionCode = packageInfo.getLongVersionCode();
+            StartupTracePlugin.end(step);
 
+            step = StartupTracePlugin.begin("upgradeCheck.prefs");
             SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
             long lastVersionCode = prefs.getLong(PREF_LAST_VERSION_CODE, -1L);
+            StartupTracePlugin.end(step);
 
             if (lastVersionCode != currentVersionCode) {
-                getBridge().getWebView().clearCache(true);
+                step = StartupTracePlugin.begin("upgradeCheck.scheduleCacheDiff");
                 getBridge().getWebView().clearHistory();
-                prefs.edit().putLong(PREF_LAST_VERSION_CODE, currentVersionCode).apply();
+                // Keeps the WebView cache when no web asset changed; the version is recorded once
+                // the off-thread pass finishes so an interrupted pass reruns next launch.
+                WebAssetCachePlugin.reconcile(this, getBridge().getWebView(), lastVersionCode == -1L,
+                        () -> prefs.edit().putLong(PREF_LAST_VERSION_CODE, currentVersionCode).apply());
+                StartupTracePlugin.end(step);
             }
         } catch (Exception ignored) {
             // Non-fatal: app startup should continue even if cache clear check fails.
+        } finally {
+            StartupTracePlugin.end(span);
         }
     }
 
     @Override
     public void onResume() {
+        int span = StartupTracePlugin.begin("onResume");
         super.onResume();
+        AutoFinalizePlugin.schedule(this);
         SystemUiPlugin.reapply(this);
         refreshImeInsets();
+        FrameMetricsPlugin.attach(this);
+        StartupTracePlugin.end(span);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        FrameMetricsPlugin.onPause(this);
     }
 
     @Override
     public void onWindowFocusChanged(boolean hasFocus) {
         super.onWindowFocusChanged(hasFocus);
         if (hasFocus) {
+            StartupTracePlugin.tracer().mark("windowFocus");
             SystemUiPlugin.reapply(this);
             refreshImeInsets();
         }
@@ -0,0 +1,418 @@
+package com.tgatb.habittracker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Native port of {@code mergeByTimestamp} in lib/sync/merge.ts, applied to whole datasets.
+ *
+ * Each record is canonicalized once: every field is serialized the way JSON.stringify
+ * would (key order preserved, integral doubles without a fraction) straight into a 64-bit
+ * hash, so the per-field base/local/remote comparisons are long compares instead of
+ * repeated stringification. An absent field (JS {@code undefined}) has no hash and only
+ * equals another absent field; {@code null} is a value. Remote records are merged in
+ * chunks on a {@link ForkJoinPool}; output order matches the cloud sync loop.
+ */
+public final class MergeEngine {
+    static final int DEFAULT_CHUNK = 256;
+
+    private final ForkJoinPool pool;
+    private final int chunk;
+    private final TimeZone zone;
+
+    /** Merge of one record: {@code conflicts} maps field to {@code {base?, local?, remote?}}, empty when clean. */
+    public static final class RecordResult {
+        public final Map<String, Object> merged;
+        public final Map<String, Map<String, Object>> conflicts;
+
+        RecordResult(Map<String, Object> merged, Map<String, Map<String, Object>> conflicts) {
+            this.merged = merged;
+            this.conflicts = conflicts;
+        }
+
+        public boolean conflict() {
+            return !conflicts.isEmpty();
+        }
+    }
+
+    /** Merged records plus conflicts keyed by record id, both in merge order. */
+    public static final class Result {
+        public final List<Map<String, Object>> merged;
+        public final Map<String, Map<String, Map<String, Object>>> conflicts;
+
+        Result(List<Map<String, Object>> merged, Map<String, Map<String, Map<String, Object>>> conflicts) {
+            this.merged = merged;
+            this.conflicts = conflicts;
+        }
+    }
+
+    public MergeEngine(ForkJoinPool pool, int chunk, TimeZone zone) {
+        this.pool = pool;
+        this.chunk = Math.max(1, chunk);
+        this.zone = zone;
+    }
+
+    /**
+     * Same shape as the sync pull loop: every remote record is merged with the local and
+     * base record of the same id (last one wins on duplicate ids), then local records whose
+     * id was not produced yet are appended in local order.
+     */
+    public Result mergeAll(List<Map<String, Object>> local, List<Map<String, Object>> remote,
+                           List<Map<String, Object>> base) {
+        final Map<Object, Map<String, Object>> localById = indexById(local);
+        final Map<Object, Map<String, Object>> baseById = indexById(base);
+        final List<Map<String, Object>> remoteList = remote;
+        final RecordResult[] results = new RecordResult[remote.size()];
+
+        RecursiveAction task = new ChunkTask(0, remote.size(), remoteList, localById, baseById, results);
+        if (remote.size() <= chunk || pool == null) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+
+        List<Map<String, Object>> merged = new ArrayList<>(remote.size() + local.size());
+        Map<String, Map<String, Map<String, Object>>> conflicts = new LinkedHashMap<>();
+        Set<Object> ids = new HashSet<>();
+        for (int i = 0; i < results.length; i++) {
+            RecordResult result = results[i];
+            merged.add(result.merged);
+            ids.add(result.merged.get("id"));
+            if (result.conflict()) conflicts.put(String.valueOf(remoteList.get(i).get("id")), result.conflicts);
+        }
+        for (Map<String, Object> record : local) {
+            if (ids.add(record.get("id"))) merged.add(record);
+        }
+        return new Result(merged, conflicts);
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final List<Map<String, Object>> remote;
+        private final Map<Object, Map<String, Object>> localById;
+        private final Map<Object, Map<String, Object>> baseById;
+        private final RecordResult[] results;
+
+        ChunkTask(int from, int to, List<Map<String, Object>> remote, Map<Object, Map<String, Object>> localById,
+                  Map<Object, Map<String, Object>> baseById, RecordResult[] results) {
+            this.from = from;
+            this.to = to;
+            this.remote = remote;
+            this.localById = localById;
+            this.baseById = baseById;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                Canonicalizer canonicalizer = new Canonicalizer(zone);
+                for (int i = from; i < to; i++) {
+                    Map<String, Object> r = remote.get(i);
+                    Object id = r.get("id");
+                    results[i] = merge(canonicalizer.of(localById.get(id)), canonicalizer.of(r),
+                            canonicalizer.of(baseById.get(id)));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, remote, localById, baseById, results),
+                    new ChunkTask(mid, to, remote, localById, baseById, results));
+        }
+    }
+
+    /** Single-record merge with {@code mergeByTimestamp} semantics; any argument except one of local/remote may be null. */
+    public static RecordResult mergeRecord(Map<String, Object> local, Map<String, Object> remote,
+                                           Map<String, Object> base, TimeZone zone) {
+        Canonicalizer canonicalizer = new Canonicalizer(zone);
+        return merge(canonicalizer.of(local), canonicalizer.of(remote), canonicalizer.of(base));
+    }
+
+    private static RecordResult merge(Canonical local, Canonical remote, Canonical base) {
+        Map<String, Map<String, Object>> none = Collections.emptyMap();
+        if (local == null && remote == null) throw new IllegalArgumentException("Both local and remote are null");
+        if (local == null) return new RecordResult(remote.values, none);
+        if (remote == null) return new RecordResult(local.values, none);
+
+        // {...base, ...local, ...remote}: keys keep the position of their first appearance.
+        Map<String, Object> merged = new LinkedHashMap<>();
+        if (base != null) merged.putAll(base.values);
+        merged.putAll(local.values);
+        merged.putAll(remote.values);
+        Set<String> keys = new LinkedHashSet<>(merged.keySet());
+        Map<String, Map<String, Object>> conflicts = null;
+
+        for (String k : keys) {
+            Long b = base != null ? base.hashes.get(k) : null;
+            Long l = local.hashes.get(k);
+            Long r = remote.hashes.get(k);
+
+            if (same(l, r)) {
+                assign(merged, k, l != null ? local : remote);
+                continue;
+            }
+            if (same(b, l) && !same(b, r)) {
+                assign(merged, k, remote);
+                continue;
+            }
+            if (same(b, r) && !same(b, l)) {
+                assign(merged, k, local);
+                continue;
+            }
+            if (local.updatedAt > remote.updatedAt) {
+                assign(merged, k, local);
+                continue;
+            }
+            if (remote.updatedAt > local.updatedAt) {
+                assign(merged, k, remote);
+                continue;
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            if (b != null) entry.put("base", base.values.get(k));
+            if (l != null) entry.put("local", local.values.get(k));
+            if (r != null) entry.put("remote", remote.values.get(k));
+            if (conflicts == null) conflicts = new LinkedHashMap<>();
+            conflicts.put(k, entry);
+            assign(merged, k, local);
+        }
+        return new RecordResult(merged, conflicts != null ? conflicts : none);
+    }
+
+    /** An absent source value leaves the key undefined, which JSON drops, so it is removed here. */
+    private static void assign(Map<String, Object> merged, String key, Canonical source) {
+        if (source.values.containsKey(key)) {
+            merged.put(key, source.values.get(key));
+        } else {
+            merged.remove(key);
+        }
+    }
+
+    private static boolean same(Long a, Long b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static Map<Object, Map<String, Object>> indexById(List<Map<String, Object>> records) {
+        Map<Object, Map<String, Object>> byId = new HashMap<>(records.size() * 2);
+        for (Map<String, Object> record : records) {
+            byId.put(record.get("id"), record);
+        }
+        return byId;
+    }
+
+    // ---------------------------------------------------------------------
+    // Canonical form
+    // ---------------------------------------------------------------------
+
+    private static final class Canonical {
+        final Map<String, Object> values;
+        final Map<String, Long> hashes;
+        /** {@code parseTime(updatedAt)}. */
+        final double updatedAt;
+
+        Canonical(Map<String, Object> values, Map<String, Long> hashes, double updatedAt) {
+            this.values = values;
+            this.hashes = hashes;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    /** Per-thread helper; reuses one JSON writer that feeds a hash instead of a buffer. */
+    private static final class Canonicalizer {
+        private final HashingWriter sink = new HashingWriter();
+        private final StreamingJson.JsonWriter json = new StreamingJson.JsonWriter(sink);
+        private final TimeZone zone;
+
+        Canonicalizer(TimeZone zone) {
+            this.zone = zone;
+        }
+
+        Canonical of(Map<String, Object> record) {
+            if (record == null) return null;
+            Map<String, Long> hashes = new HashMap<>(record.size() * 2);
+            for (Map.Entry<String, Object> field : record.entrySet()) {
+                sink.reset();
+                try {
+                    json.writeValue(field.getValue());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                hashes.put(field.getKey(), sink.hash());
+            }
+            return new Canonical(record, hashes, parseTime(record.get("updatedAt"), zone));
+        }
+    }
+
+    /** FNV-1a over the UTF-16 units, finished with a 64-bit avalanche so nearby strings spread. */
+    static final class HashingWriter extends Writer {
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+        private long state = FNV_OFFSET;
+
+        void reset() {
+            state = FNV_OFFSET;
+        }
+
+        long hash() {
+            long h = state;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+        @Override
+        public void write(int c) {
+            state = (state ^ (c & 0xffff)) * FNV_PRIME;
+        }
+
+        @Override
+        public void write(char[] buffer, int off, int len) {
+            long h = state;
+            for (int i = off; i < off + len; i++) {
+                h = (h ^ buffer[i]) * FNV_PRIME;
+            }
+            state = h;
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            long h = state;
+            for (int i = off; i < off + len; i++) {
+                h = (h ^ s.charAt(i)) * FNV_PRIME;
+            }
+            state = h;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    // ---------------------------------------------------------------------
+    // parseTime
+    // ---------------------------------------------------------------------
+
+    /**
+     * {@code parseTime} from merge.ts: falsy values are 0, numbers are taken as is and
+     * strings go through {@code Date.parse}, with unparseable input as 0. Only the ISO
+     * formats the app writes are recognized (date-only is UTC, date-time without an offset
+     * is local time); other strings count as unparseable.
+     */
+    public static double parseTime(Object value, TimeZone zone) {
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            return Double.isNaN(d) ? 0 : d;
+        }
+        if (!(value instanceof String)) return 0;
+        long millis = parseIso((String) value, zone);
+        return millis == Long.MIN_VALUE ? 0 : millis;
+    }
+
+    /** Epoch millis of an ISO date or date-time, or {@link Long#MIN_VALUE} when invalid. */
+    static long parseIso(String s, TimeZone zone) {
+        int n = s.length();
+        int[] p = {0};
+        int year = digits(s, p, 4);
+        int month = 1;
+        int day = 1;
+        if (year < 0) return Long.MIN_VALUE;
+        if (p[0] < n && s.charAt(p[0]) == '-') {
+            p[0]++;
+            month = digits(s, p, 2);
+            if (month < 1 || month > 12) return Long.MIN_VALUE;
+            if (p[0] < n && s.charAt(p[0]) == '-') {
+                p[0]++;
+                day = digits(s, p, 2);
+                if (day < 1 || day > 31) return Long.MIN_VALUE;
+            }
+        }
+        long epochDay = EpochDays.fromCivil(year, month, day);
+        if (p[0] == n) return epochDay * 86_400_000L;
+
+        char sep = s.charAt(p[0]);
+        if (sep != 'T' && sep != 't' && sep != ' ') return Long.MIN_VALUE;
+        p[0]++;
+        int hour = digits(s, p, 2);
+        if (hour < 0 || p[0] >= n || s.charAt(p[0]) != ':') return Long.MIN_VALUE;
+        p[0]++;
+        int minute = digits(s, p, 2);
+        int second = 0;
+        int millis = 0;
+        if (minute < 0 || minute > 59) return Long.MIN_VALUE;
+        if (p[0] < n && s.charAt(p[0]) == ':') {
+            p[0]++;
+            second = digits(s, p, 2);
+            if (second < 0 || second > 59) return Long.MIN_VALUE;
+            if (p[0] < n && s.charAt(p[0]) == '.') {
+                p[0]++;
+                int start = p[0];
+                int scale = 100;
+                while (p[0] < n && Character.isDigit(s.charAt(p[0]))) {
+                    millis += (s.charAt(p[0]) - '0') * scale;
+                    scale /= 10;
+                    p[0]++;
+                }
+                if (p[0] == start) return Long.MIN_VALUE;
+            }
+        }
+        if (hour > 24 || (hour == 24 && (minute | second | millis) != 0)) return Long.MIN_VALUE;
+        long timeOfDay = ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+
+        if (p[0] == n) {
+            // Wall-clock fields, so a DST shift earlier that day is applied like Date.parse does.
+            Calendar cal = Calendar.getInstance(zone);
+            cal.clear();
+            cal.set(year, month - 1, day, hour, minute, second);
+            return cal.getTimeInMillis() + millis;
+        }
+        char tz = s.charAt(p[0]);
+        long offset;
+        if ((tz == 'Z' || tz == 'z') && p[0] == n - 1) {
+            offset = 0;
+        } else if ((tz == '+' || tz == '-') && p[0] + 6 == n && s.charAt(p[0] + 3) == ':') {
+            p[0]++;
+            int oh = digits(s, p, 2);
+            p[0]++;
+            int om = digits(s, p, 2);
+            if (oh < 0 || oh > 23 || om < 0 || om > 59) return Long.MIN_VALUE;
+            offset = (oh * 60L + om) * 60_000L * (tz == '-' ? -1 : 1);
+        } else {
+            return Long.MIN_VALUE;
+        }
+        return epochDay * 86_400_000L + timeOfDay - offset;
+    }
+
+    /** Reads exactly {@code count} digits at {@code p[0]}, or returns -1. */
+    private static int digits(String s, int[] p, int count) {
+        if (p[0] + count > s.length()) return -1;
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            char c = s.charAt(p[0] + i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        p[0] += count;
+        return value;
+    }
+}
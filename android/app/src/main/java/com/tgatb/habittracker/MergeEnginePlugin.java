@@ -0,0 +1,81 @@
+package com.tgatb.habittracker;
+
+import android.os.SystemClock;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Three-way merge of the sync datasets off the WebView thread; see {@link MergeEngine}.
+ * One call carries local, remote and base habits and logs and returns the merged
+ * collections with their conflict maps.
+ */
+@CapacitorPlugin(name = "MergeEngine")
+public class MergeEnginePlugin extends Plugin {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    /** Own pool: ForkJoinPool.commonPool() needs API 24. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * {@code {local: {habits, logs}, remote: {habits, logs}, base?: {habits, logs}}} resolves
+     * with {@code {habits, logs, conflicts: {habits: {id: {field: {base?, local?, remote?}}}, logs},
+     * conflict, durationMs}}.
+     */
+    @PluginMethod
+    public void mergeDataset(PluginCall call) {
+        final JSObject local = call.getObject("local");
+        final JSObject remote = call.getObject("remote");
+        final JSObject base = call.getObject("base", new JSObject());
+        if (local == null || remote == null) {
+            call.reject("local and remote are required");
+            return;
+        }
+        EXECUTOR.execute(() -> {
+            try {
+                long start = SystemClock.elapsedRealtime();
+                MergeEngine engine = new MergeEngine(POOL, MergeEngine.DEFAULT_CHUNK, TimeZone.getDefault());
+                MergeEngine.Result habits = engine.mergeAll(
+                        records(local, "habits"), records(remote, "habits"), records(base, "habits"));
+                MergeEngine.Result logs = engine.mergeAll(
+                        records(local, "logs"), records(remote, "logs"), records(base, "logs"));
+
+                JSObject conflicts = new JSObject();
+                conflicts.put("habits", DataTransferPlugin.toJson(habits.conflicts));
+                conflicts.put("logs", DataTransferPlugin.toJson(logs.conflicts));
+                JSObject ret = new JSObject();
+                ret.put("habits", DataTransferPlugin.toJson(habits.merged));
+                ret.put("logs", DataTransferPlugin.toJson(logs.merged));
+                ret.put("conflicts", conflicts);
+                ret.put("conflict", !habits.conflicts.isEmpty() || !logs.conflicts.isEmpty());
+                ret.put("durationMs", SystemClock.elapsedRealtime() - start);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to merge: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> records(JSObject side, String key) throws JSONException {
+        if (!side.has(key) || side.isNull(key)) return Collections.emptyList();
+        Object value = DataTransferPlugin.toJava(side.get(key));
+        if (!(value instanceof List)) throw new JSONException(key + " must be an array");
+        for (Object record : (List<?>) value) {
+            if (!(record instanceof Map)) throw new JSONException(key + " must contain objects");
+        }
+        return (List<Map<String, Object>>) value;
+    }
+}
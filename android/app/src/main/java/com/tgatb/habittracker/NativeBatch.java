@@ -0,0 +1,91 @@
+package com.tgatb.habittracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs an ordered list of plugin operations in one bridge crossing.
+ *
+ * Operations are addressed as {@code "Plugin.method"} and dispatched to handlers
+ * registered up front, so a batch never goes through Capacitor's reflective call path.
+ * Each operation is timed separately; a failure is reported in its slot and, unless the
+ * batch asks to stop on error, the rest still run.
+ */
+public final class NativeBatch<A> {
+    static final int MAX_OPERATIONS = 64;
+    static final String SKIPPED = "skipped";
+
+    public interface Handler<A> {
+        Object run(A args) throws Exception;
+    }
+
+    public static final class Operation<A> {
+        public final String target;
+        public final A args;
+
+        public Operation(String target, A args) {
+            this.target = target;
+            this.args = args;
+        }
+    }
+
+    public static final class Result {
+        public final String target;
+        public final boolean ok;
+        public final Object value;
+        public final String error;
+        public final long durationNanos;
+
+        Result(String target, boolean ok, Object value, String error, long durationNanos) {
+            this.target = target;
+            this.ok = ok;
+            this.value = value;
+            this.error = error;
+            this.durationNanos = durationNanos;
+        }
+    }
+
+    private final Map<String, Handler<A>> handlers = new HashMap<>();
+
+    public NativeBatch<A> register(String target, Handler<A> handler) {
+        handlers.put(target, handler);
+        return this;
+    }
+
+    public boolean supports(String target) {
+        return handlers.containsKey(target);
+    }
+
+    public List<Result> run(List<Operation<A>> operations, boolean stopOnError) {
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("too many operations (max " + MAX_OPERATIONS + ")");
+        }
+        List<Result> results = new ArrayList<>(operations.size());
+        boolean stopped = false;
+        for (Operation<A> op : operations) {
+            if (stopped) {
+                results.add(new Result(op.target, false, null, SKIPPED, 0L));
+                continue;
+            }
+            Handler<A> handler = handlers.get(op.target);
+            long started = System.nanoTime();
+            Result result;
+            if (handler == null) {
+                result = new Result(op.target, false, null, "unknown operation", 0L);
+            } else {
+                try {
+                    Object value = handler.run(op.args);
+                    result = new Result(op.target, true, value, null, System.nanoTime() - started);
+                } catch (Exception e) {
+                    String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    result = new Result(op.target, false, null, message, System.nanoTime() - started);
+                }
+            }
+            results.add(result);
+            stopped = stopOnError && !result.ok;
+        }
+        return results;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tgatb.habittracker;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginHandle;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One bridge call for a check-in's worth of native work (haptic, key-value writes,
+ * log append, insets refresh). Results come back in operation order with per-op timing.
+ */
+@CapacitorPlugin(name = "NativeBatch")
+public class NativeBatchPlugin extends Plugin {
+    private NativeBatch<JSONObject> batch;
+
+    @Override
+    public void load() {
+        batch = new NativeBatch<JSONObject>()
+                .register("NativeBatch.echo", args -> args)
+                .register("PremiumHaptics.play", args -> haptics().offerEvent(
+                        args.optString("event", HapticEvent.BUTTON.id), optString(args, "profile")))
+                .register("PremiumHaptics.playPattern", args -> haptics().offerPattern(
+                        optString(args, "id"), args.optInt("priority", HapticEvent.PRIORITY_ACTION)))
+                .register("SystemUi.refreshInsets", args -> SystemUiPlugin.requestInsets(getActivity()))
+                .register("KvStore.get", args -> {
+                    String key = requireString(args, "key");
+                    JSObject ret = new JSObject();
+                    ret.put("value", KvStorePlugin.storeForKey(getContext(), key).get(key));
+                    return ret;
+                })
+                .register("KvStore.set", args -> {
+                    String key = requireString(args, "key");
+                    KvStore store = KvStorePlugin.storeForKey(getContext(), key);
+                    store.awaitDurable(store.put(key, requireString(args, "value")));
+                    return null;
+                })
+                .register("KvStore.remove", args -> {
+                    String key = requireString(args, "key");
+                    KvStore store = KvStorePlugin.storeForKey(getContext(), key);
+                    store.awaitDurable(store.remove(key));
+                    return null;
+                })
+                .register("HabitLogStore.put", args -> {
+                    JSONArray logs = args.optJSONArray("logs");
+                    if (logs == null) throw new IllegalArgumentException("logs is required");
+                    String scope = args.optString("scope", HabitLogStorePlugin.DEFAULT_SCOPE);
+                    return HabitLogStorePlugin.putLogs(HabitLogStorePlugin.storeFor(getContext(), scope), logs);
+                });
+    }
+
+    /**
+     * {@code {operations: [{target: "Plugin.method", args?}], stopOnError?}} resolves with
+     * {@code {results: [{target, ok, value?, error?, durationUs}], totalUs}}.
+     */
+    @PluginMethod
+    public void run(PluginCall call) {
+        long started = System.nanoTime();
+        JSArray operations = call.getArray("operations");
+        if (operations == null) {
+            call.reject("operations is required");
+            return;
+        }
+        try {
+            List<NativeBatch.Operation<JSONObject>> ops = new ArrayList<>(operations.length());
+            for (int i = 0; i < operations.length(); i++) {
+                JSONObject op = operations.getJSONObject(i);
+                JSONObject args = op.optJSONObject("args");
+                ops.add(new NativeBatch.Operation<>(op.optString("target"), args != null ? args : new JSONObject()));
+            }
+            List<NativeBatch.Result> results = batch.run(ops, call.getBoolean("stopOnError", false));
+
+            JSArray out = new JSArray();
+            for (NativeBatch.Result result : results) {
+                JSObject item = new JSObject();
+                item.put("target", result.target);
+                item.put("ok", result.ok);
+                if (result.value != null) item.put("value", result.value);
+                if (result.error != null) item.put("error", result.error);
+                item.put("durationUs", result.durationNanos / 1000L);
+                out.put(item);
+            }
+            JSObject ret = new JSObject();
+            ret.put("results", out);
+            ret.put("totalUs", (System.nanoTime() - started) / 1000L);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Invalid batch: " + e.getMessage(), e);
+        }
+    }
+
+    /** Unbatched counterpart of a {@code NativeBatch.echo} op, for round-trip benchmarks. */
+    @PluginMethod
+    public void ping(PluginCall call) {
+        call.resolve(call.getData());
+    }
+
+    private PremiumHapticsPlugin haptics() {
+        PluginHandle handle = getBridge().getPlugin("PremiumHaptics");
+        if (handle == null) throw new IllegalStateException("PremiumHaptics is not registered");
+        return (PremiumHapticsPlugin) handle.getInstance();
+    }
+
+    private static String optString(JSONObject args, String key) {
+        return args.isNull(key) ? null : args.optString(key, null);
+    }
+
+    private static String requireString(JSONObject args, String key) {
+        String value = optString(args, key);
+        if (value == null) throw new IllegalArgumentException(key + " is required");
+        return value;
+    }
+}
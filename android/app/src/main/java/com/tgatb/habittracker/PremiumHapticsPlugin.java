@@ -2,293 +2,251 @@ package com.tgatb.habittracker;
 
 import android.content.Context;
 import android.os.Build;
+import android.os.Process;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.os.VibratorManager;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import org.json.JSONObject;
+
 @CapacitorPlugin(name = "PremiumHaptics")
 public class PremiumHapticsPlugin extends Plugin {
-    private static final String PROFILE_SUBTLE = "subtle";
-    private static final String PROFILE_PUNCHY = "punchy";
-    private static final String PROFILE_BALANCED = "balanced";
-    private static final long EVENT_MIN_GAP_MS = 28L;
+    static final int MAX_SEQUENCE_STEPS = 32;
+    static final long MAX_SEQUENCE_DELAY_MS = 10_000L;
+
+    private Vibrator vibrator;
+    private boolean hasVibrator;
+    private HapticEngine<CompiledEffect> engine;
+    private CompiledEffect warmupEffect;
+
+    /** Platform effect plus the plain duration used when amplitude control is unavailable. */
+    static final class CompiledEffect {
+        final VibrationEffect effect;
+        final long legacyDurationMs;
+
+        CompiledEffect(VibrationEffect effect, long legacyDurationMs) {
+            this.effect = effect;
+            this.legacyDurationMs = legacyDurationMs;
+        }
+    }
 
-    private String currentProfile = PROFILE_BALANCED;
-    private long lastEventAt = 0L;
+    @Override
+    public void load() {
+        vibrator = resolveVibrator();
+        hasVibrator = vibrator != null && vibrator.hasVibrator();
+        engine = new HapticEngine<>(PremiumHapticsPlugin::compile, this::vibrate, HapticDispatcher.DEFAULT_MIN_GAP_MS);
+        warmupEffect = compile(HapticPattern.oneShot(6, 30));
+        if (hasVibrator) {
+            engine.dispatcher().start(runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+                    runnable.run();
+                }, "haptics-dispatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (engine != null) {
+            engine.dispatcher().shutdown();
+        }
+        super.handleOnDestroy();
+    }
 
     @PluginMethod
     public void isSupported(PluginCall call) {
         JSObject ret = new JSObject();
-        ret.put("supported", hasVibrator());
+        ret.put("supported", hasVibrator);
         call.resolve(ret);
     }
 
     @PluginMethod
     public void setProfile(PluginCall call) {
-        String profile = normalizeProfile(call.getString("profile", PROFILE_BALANCED));
-        currentProfile = profile;
+        engine.setProfile(HapticProfile.fromId(call.getString("profile", HapticProfile.BALANCED.id)));
         call.resolve();
     }
 
     @PluginMethod
     public void warmup(PluginCall call) {
-        if (hasVibrator()) {
-            vibrateOneShot(6, 30);
+        if (hasVibrator) {
+            engine.dispatcher().offer(new HapticDispatcher.Request<>(warmupEffect, HapticEvent.PRIORITY_AMBIENT));
         }
         call.resolve();
     }
 
     @PluginMethod
     public void play(PluginCall call) {
-        if (!hasVibrator()) {
+        if (!hasVibrator) {
             call.resolve();
             return;
         }
 
-        long now = System.currentTimeMillis();
-        if (now - lastEventAt < EVENT_MIN_GAP_MS) {
-            call.resolve();
-            return;
-        }
-        lastEventAt = now;
-
-        String event = call.getString("event", "button");
-        String profile = normalizeProfile(call.getString("profile", currentProfile));
-
-        runPattern(event, profile);
+        offerEvent(call.getString("event", HapticEvent.BUTTON.id), call.getString("profile"));
         call.resolve();
     }
 
-    private String normalizeProfile(String profile) {
-        if (PROFILE_SUBTLE.equals(profile) || PROFILE_PUNCHY.equals(profile) || PROFILE_BALANCED.equals(profile)) {
-            return profile;
-        }
-        return PROFILE_BALANCED;
-    }
-
-    private boolean hasVibrator() {
-        Vibrator vibrator = getVibrator();
-        return vibrator != null && vibrator.hasVibrator();
-    }
-
-    private Vibrator getVibrator() {
-        Context context = getContext();
-        if (context == null) return null;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            VibratorManager vm = (VibratorManager) context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-            return vm != null ? vm.getDefaultVibrator() : null;
-        }
-
-        return (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
+    /** Queues a semantic event; shared with NativeBatch. False when there is no vibrator. */
+    boolean offerEvent(String eventId, String profileId) {
+        return offerEvent(eventId, profileId, 0L);
     }
 
-    private void runPattern(String event, String profile) {
-        switch (event) {
-            case "selection":
-                playSelection(profile);
-                return;
-            case "navigation":
-                playNavigation(profile);
-                return;
-            case "goodDone":
-                playGoodDone(profile);
-                return;
-            case "goodNotDone":
-                playGoodNotDone(profile);
-                return;
-            case "badAvoided":
-                playBadAvoided(profile);
-                return;
-            case "badDone":
-                playBadDone(profile);
-                return;
-            case "success":
-                playSuccess(profile);
-                return;
-            case "streak":
-                playStreak(profile);
-                return;
-            case "undo":
-                playUndo(profile);
-                return;
-            case "failure":
-                playFailure(profile);
-                return;
-            case "warning":
-                playWarning(profile);
-                return;
-            case "error":
-                playError(profile);
-                return;
-            case "button":
-            default:
-                playButton(profile);
-        }
+    /** As {@link #offerEvent(String, String)}, played {@code delayMs} from now; shared with SoundEngine. */
+    boolean offerEvent(String eventId, String profileId, long delayMs) {
+        if (!hasVibrator) return false;
+        engine.offerEvent(eventId, profileId, delayMs);
+        return true;
     }
 
-    private void playButton(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateOneShot(12, 180);
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateOneShot(8, 90);
-        } else {
-            vibrateOneShot(10, 130);
+    /** Queues a registered custom pattern; throws if {@code id} is unknown. */
+    boolean offerPattern(String id, int priority) {
+        if (engine.registry().custom(id) == null) {
+            throw new IllegalArgumentException("Unknown pattern");
         }
+        if (!hasVibrator) return false;
+        engine.offerPattern(id, priority);
+        return true;
     }
 
-    private void playSelection(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 10, 10}, new int[] {0, 160, 0, 120});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateOneShot(7, 80);
-        } else {
-            vibrateOneShot(8, 110);
-        }
-    }
-
-    private void playNavigation(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 8, 12}, new int[] {0, 160, 0, 180});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 7, 10, 9}, new int[] {0, 90, 0, 100});
-        } else {
-            vibrateWaveform(new long[] {0, 8, 10, 11}, new int[] {0, 120, 0, 140});
+    /**
+     * Schedules a choreographed run of events in one bridge call. Delays are relative to
+     * the call; steps still pass through the priority slot, so a step that lands on top
+     * of a more important event is coalesced away.
+     */
+    @PluginMethod
+    public void playSequence(PluginCall call) {
+        JSArray steps = call.getArray("steps");
+        if (steps == null || steps.length() == 0) {
+            call.reject("steps is required");
+            return;
         }
-    }
-
-    private void playSuccess(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 10, 14, 14}, new int[] {0, 170, 0, 200});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 12, 10}, new int[] {0, 100, 0, 120});
-        } else {
-            vibrateWaveform(new long[] {0, 9, 14, 12}, new int[] {0, 140, 0, 165});
+        if (steps.length() > MAX_SEQUENCE_STEPS) {
+            call.reject("too many steps (max " + MAX_SEQUENCE_STEPS + ")");
+            return;
         }
-    }
-
-    private void playGoodDone(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 10, 12, 14}, new int[] {0, 180, 0, 220});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 12, 10}, new int[] {0, 95, 0, 120});
-        } else {
-            vibrateWaveform(new long[] {0, 9, 14, 12}, new int[] {0, 140, 0, 175});
+        try {
+            HapticDispatcher.Request<CompiledEffect>[] resolved = HapticEngine.newRequestArray(steps.length());
+            long[] delays = new long[steps.length()];
+            long totalMs = 0L;
+            for (int i = 0; i < resolved.length; i++) {
+                JSONObject step = steps.getJSONObject(i);
+                long delay = step.optLong("delayMs", 0L);
+                if (delay < 0 || delay > MAX_SEQUENCE_DELAY_MS) {
+                    call.reject("delayMs must be between 0 and " + MAX_SEQUENCE_DELAY_MS);
+                    return;
+                }
+                HapticEvent event = HapticEvent.fromId(step.optString("event", HapticEvent.BUTTON.id));
+                String profileId = step.isNull("profile") ? null : step.optString("profile", null);
+                resolved[i] = engine.request(event, engine.profileOf(profileId));
+                delays[i] = delay;
+                totalMs = Math.max(totalMs, delay);
+            }
+            if (hasVibrator) {
+                for (int i = 0; i < resolved.length; i++) {
+                    if (delays[i] == 0L) {
+                        engine.dispatcher().offer(resolved[i]);
+                    } else {
+                        engine.dispatcher().schedule(resolved[i], delays[i]);
+                    }
+                }
+            }
+            JSObject ret = new JSObject();
+            ret.put("steps", resolved.length);
+            ret.put("durationMs", totalMs);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Invalid sequence: " + e.getMessage());
         }
     }
 
-    private void playGoodNotDone(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 10, 10}, new int[] {0, 110, 0, 160});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateOneShot(8, 85);
-        } else {
-            vibrateWaveform(new long[] {0, 7, 10, 9}, new int[] {0, 95, 0, 120});
+    /** Drops queued and scheduled events, e.g. when the screen that started a sequence closes. */
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        if (engine != null) {
+            engine.dispatcher().cancelPending();
         }
+        call.resolve();
     }
 
-    private void playBadAvoided(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 8, 14}, new int[] {0, 145, 0, 225});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 7, 10, 10}, new int[] {0, 90, 0, 120});
-        } else {
-            vibrateWaveform(new long[] {0, 8, 10, 12}, new int[] {0, 125, 0, 175});
+    /** Compiles a JS-defined pattern once so it can be replayed by id via {@link #playPattern}. */
+    @PluginMethod
+    public void registerPattern(PluginCall call) {
+        String id = call.getString("id");
+        JSArray timings = call.getArray("timings");
+        JSArray amplitudes = call.getArray("amplitudes");
+        if (id == null || timings == null || amplitudes == null) {
+            call.reject("id, timings and amplitudes are required");
+            return;
         }
-    }
-
-    private void playBadDone(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 16, 18, 14}, new int[] {0, 215, 0, 165});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateOneShot(14, 120);
-        } else {
-            vibrateWaveform(new long[] {0, 14, 18, 12}, new int[] {0, 160, 0, 130});
+        try {
+            long[] t = new long[timings.length()];
+            int[] a = new int[amplitudes.length()];
+            for (int i = 0; i < t.length; i++) t[i] = timings.getLong(i);
+            for (int i = 0; i < a.length; i++) a[i] = amplitudes.getInt(i);
+            HapticPattern pattern = HapticPattern.waveform(t, a);
+            engine.registry().register(id, pattern);
+            JSObject ret = new JSObject();
+            ret.put("id", id);
+            ret.put("durationMs", pattern.durationMs());
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Invalid pattern: " + e.getMessage());
         }
     }
 
-    private void playStreak(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 10, 14, 12, 18, 16}, new int[] {0, 170, 0, 185, 0, 210});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 12, 10, 16, 12}, new int[] {0, 90, 0, 110, 0, 130});
-        } else {
-            vibrateWaveform(new long[] {0, 9, 13, 11, 17, 14}, new int[] {0, 130, 0, 155, 0, 180});
-        }
+    @PluginMethod
+    public void unregisterPattern(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("removed", engine.registry().unregister(call.getString("id")));
+        call.resolve(ret);
     }
 
-    private void playUndo(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 8, 10, 11}, new int[] {0, 120, 0, 170});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 6, 10, 8}, new int[] {0, 80, 0, 90});
-        } else {
-            vibrateWaveform(new long[] {0, 7, 10, 9}, new int[] {0, 105, 0, 120});
+    @PluginMethod
+    public void playPattern(PluginCall call) {
+        try {
+            offerPattern(call.getString("id"), call.getInt("priority", HapticEvent.PRIORITY_ACTION));
+            call.resolve();
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
         }
     }
 
-    private void playFailure(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 15, 22, 16}, new int[] {0, 200, 0, 170});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateOneShot(14, 120);
+    private void vibrate(CompiledEffect compiled) {
+        if (compiled.effect != null) {
+            vibrator.vibrate(compiled.effect);
         } else {
-            vibrateWaveform(new long[] {0, 14, 20, 14}, new int[] {0, 150, 0, 130});
+            vibrator.vibrate(compiled.legacyDurationMs);
         }
     }
 
-    private void playWarning(String profile) {
-        playFailure(profile);
-    }
+    private Vibrator resolveVibrator() {
+        Context context = getContext();
+        if (context == null) return null;
 
-    private void playError(String profile) {
-        if (PROFILE_PUNCHY.equals(profile)) {
-            vibrateWaveform(new long[] {0, 18, 18, 18, 20, 20}, new int[] {0, 220, 0, 220, 0, 210});
-        } else if (PROFILE_SUBTLE.equals(profile)) {
-            vibrateWaveform(new long[] {0, 14, 18, 14}, new int[] {0, 130, 0, 120});
-        } else {
-            vibrateWaveform(new long[] {0, 16, 18, 16, 18, 16}, new int[] {0, 170, 0, 170, 0, 160});
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            VibratorManager vm = (VibratorManager) context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
+            return vm != null ? vm.getDefaultVibrator() : null;
         }
-    }
 
-    private void vibrateOneShot(int durationMs, int amplitude) {
-        Vibrator vibrator = getVibrator();
-        if (vibrator == null) return;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            vibrator.vibrate(VibrationEffect.createOneShot(durationMs, clampAmplitude(amplitude)));
-        } else {
-            vibrator.vibrate(durationMs);
-        }
+        return (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
     }
 
-    private void vibrateWaveform(long[] timings, int[] amplitudes) {
-        Vibrator vibrator = getVibrator();
-        if (vibrator == null) return;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            int[] safe = new int[amplitudes.length];
-            for (int i = 0; i < amplitudes.length; i++) {
-                safe[i] = clampAmplitude(amplitudes[i]);
-            }
-            vibrator.vibrate(VibrationEffect.createWaveform(timings, safe, -1));
-            return;
+    private static CompiledEffect compile(HapticPattern pattern) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return new CompiledEffect(null, pattern.legacyDurationMs);
         }
-
-        long total = 0;
-        for (long t : timings) total += t;
-        vibrator.vibrate(Math.max(12L, total));
-    }
-
-    private int clampAmplitude(int amplitude) {
-        if (amplitude <= 0) return 0;
-        if (amplitude > 255) return 255;
-        return amplitude;
+        VibrationEffect effect = pattern.oneShot
+                ? VibrationEffect.createOneShot(pattern.timings()[0], pattern.amplitudes()[0])
+                : VibrationEffect.createWaveform(pattern.timings(), pattern.amplitudes(), -1);
+        return new CompiledEffect(effect, pattern.legacyDurationMs);
     }
 }
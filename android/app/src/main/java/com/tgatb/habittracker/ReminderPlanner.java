@@ -0,0 +1,107 @@
+package com.tgatb.habittracker;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Decides what the native daily reminder does when its alarm fires, without Android types.
+ *
+ * The reminder mirrors {@code scheduleReminder} in lib/notifications.ts (one notification a
+ * day at a local {@code HH:mm}) but is only posted while something is still due: a habit
+ * expected today per its schedule with no log for today. An empty snapshot means JS never
+ * mirrored the habit list, so the plain reminder is posted as before.
+ */
+public final class ReminderPlanner {
+    /** Alarms delivered later than this (Doze, device off) are skipped rather than posted stale. */
+    static final long MAX_LATENESS_MS = 2L * 60 * 60 * 1000;
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static final class Plan {
+        public final boolean post;
+        /** Habits still due today, in snapshot order; empty when none or not known. */
+        public final List<HabitSnapshot.Habit> due;
+        /** Wall-clock millis of the next reminder after this one. */
+        public final long nextTriggerAt;
+
+        Plan(boolean post, List<HabitSnapshot.Habit> due, long nextTriggerAt) {
+            this.post = post;
+            this.due = Collections.unmodifiableList(due);
+            this.nextTriggerAt = nextTriggerAt;
+        }
+    }
+
+    private ReminderPlanner() {}
+
+    /** Parses {@code HH:mm} into minutes since midnight, or -1 when malformed. */
+    public static int parseTime(String time) {
+        if (time == null) return -1;
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon > 2 || time.length() - colon != 3) return -1;
+        try {
+            int hours = Integer.parseInt(time.substring(0, colon));
+            int minutes = Integer.parseInt(time.substring(colon + 1));
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return -1;
+            return hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * First local occurrence of {@code minuteOfDay} strictly after {@code nowMillis}. Uses the
+     * calendar rather than adding 24h so DST transitions keep the wall-clock time.
+     */
+    public static long nextTrigger(long nowMillis, int minuteOfDay, TimeZone zone) {
+        Calendar calendar = Calendar.getInstance(zone);
+        calendar.setTimeInMillis(nowMillis);
+        calendar.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+        calendar.set(Calendar.MINUTE, minuteOfDay % 60);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (calendar.getTimeInMillis() <= nowMillis) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /** Habits expected on {@code today} that have no log for it yet. */
+    public static List<HabitSnapshot.Habit> dueToday(HabitSnapshot snapshot, HabitLogStore store, int today) {
+        List<HabitSnapshot.Habit> due = new ArrayList<>();
+        for (HabitSnapshot.Habit habit : snapshot.habits) {
+            if (habit.createdDay > today || !habit.schedule.isExpected(today)) continue;
+            if (store != null && store.contains(habit.id, today)) continue;
+            due.add(habit);
+        }
+        return due;
+    }
+
+    /**
+     * Plans an alarm delivery. {@code scheduledAt} is the trigger the alarm was set for
+     * (0 when unknown, e.g. after boot); {@code lastPostedDay} guards against a second post
+     * on the same day when alarms are replayed.
+     */
+    public static Plan onAlarm(HabitSnapshot snapshot, HabitLogStore store, int minuteOfDay,
+                               long scheduledAt, long nowMillis, int lastPostedDay, TimeZone zone) {
+        long next = nextTrigger(nowMillis, minuteOfDay, zone);
+        int today = EpochDays.fromMillis(nowMillis, zone);
+        boolean onTime = scheduledAt > 0 && nowMillis - scheduledAt <= MAX_LATENESS_MS
+                && nowMillis >= scheduledAt;
+        if (!onTime || lastPostedDay == today) {
+            return new Plan(false, Collections.<HabitSnapshot.Habit>emptyList(), next);
+        }
+        if (snapshot.habits.isEmpty()) {
+            return new Plan(true, Collections.<HabitSnapshot.Habit>emptyList(), next);
+        }
+        List<HabitSnapshot.Habit> due = dueToday(snapshot, store, today);
+        return new Plan(!due.isEmpty(), due, next);
+    }
+
+    /** Rotates through {@code messages} once per day so the body is not frozen at schedule time. */
+    public static String pickMessage(List<String> messages, int day, String fallback) {
+        if (messages == null || messages.isEmpty()) return fallback;
+        return messages.get(Math.floorMod(day, messages.size()));
+    }
+}
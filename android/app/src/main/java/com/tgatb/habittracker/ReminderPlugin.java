@@ -0,0 +1,293 @@
+package com.tgatb.habittracker;
+
+import android.Manifest;
+import android.app.AlarmManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.SystemClock;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Daily reminder driven by {@link AlarmManager} and {@link ReminderReceiver}, so firing,
+ * deciding and rescheduling never start the WebView. JS mirrors the reminder settings and
+ * copy here; the habit list and today's logs come from the AutoFinalize snapshot and the
+ * native log store.
+ */
+@CapacitorPlugin(name = "Reminders")
+public class ReminderPlugin extends Plugin {
+    static final String ACTION_REMINDER = "com.tgatb.habittracker.action.DAILY_REMINDER";
+    static final String EXTRA_SCHEDULED_AT = "scheduledAt";
+
+    /** Same id the JS scheduler used, so only one reminder is ever shown. */
+    private static final int NOTIFICATION_ID = 42001;
+    private static final String CHANNEL_ID = "tgatb_daily_reminder";
+    private static final int MAX_INBOX_LINES = 5;
+
+    private static final String PREF_ENABLED = "reminder_enabled";
+    private static final String PREF_TIME = "reminder_time";
+    private static final String PREF_TITLE = "reminder_title";
+    private static final String PREF_MESSAGES = "reminder_messages";
+    private static final String PREF_FALLBACK = "reminder_fallback_body";
+    private static final String PREF_NEXT_AT = "reminder_next_at";
+    private static final String PREF_LAST_POSTED_DAY = "reminder_last_posted_day";
+    private static final String PREF_LAST_DUE = "reminder_last_due";
+    private static final String PREF_LAST_RUN_MICROS = "reminder_last_run_micros";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Stores the settings and (re)arms the alarm. Disabling cancels both the alarm and any
+     * reminder still on screen.
+     */
+    @PluginMethod
+    public void configure(PluginCall call) {
+        String time = call.getString("time");
+        boolean enabled = Boolean.TRUE.equals(call.getBoolean("enabled", true));
+        if (enabled && ReminderPlanner.parseTime(time) < 0) {
+            call.reject("time must be HH:mm");
+            return;
+        }
+        JSArray messages = call.getArray("messages", new JSArray());
+        SharedPreferences.Editor editor = prefs(getContext()).edit()
+                .putBoolean(PREF_ENABLED, enabled)
+                .putString(PREF_TITLE, call.getString("title", ""))
+                .putString(PREF_MESSAGES, messages.toString())
+                .putString(PREF_FALLBACK, call.getString("fallbackBody", ""));
+        if (time != null) editor.putString(PREF_TIME, time);
+        String scope = call.getString("scope");
+        if (scope != null) editor.putString(AutoFinalizePlugin.PREF_ACTIVE_SCOPE, scope);
+        editor.apply();
+
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> call.resolve(status(app, reschedule(app))));
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        prefs(app).edit().putBoolean(PREF_ENABLED, false).apply();
+        EXECUTOR.execute(() -> {
+            reschedule(app);
+            NotificationManagerCompat.from(app).cancel(NOTIFICATION_ID);
+            call.resolve();
+        });
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> call.resolve(status(app, canScheduleExact(app))));
+    }
+
+    /** Re-arms from stored settings; called on boot, upgrade and clock or zone changes. */
+    static void onSystemEvent(Context context, Runnable done) {
+        final Context app = context.getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                reschedule(app);
+            } finally {
+                done.run();
+            }
+        });
+    }
+
+    /** Alarm delivery: post if something is still due, then arm the next day. */
+    static void onAlarm(Context context, long scheduledAt, Runnable done) {
+        final Context app = context.getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                fire(app, scheduledAt);
+            } finally {
+                done.run();
+            }
+        });
+    }
+
+    private static void fire(Context context, long scheduledAt) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        SharedPreferences prefs = prefs(context);
+        int minuteOfDay = ReminderPlanner.parseTime(prefs.getString(PREF_TIME, null));
+        if (!prefs.getBoolean(PREF_ENABLED, false) || minuteOfDay < 0) return;
+
+        TimeZone zone = TimeZone.getDefault();
+        String scope = AutoFinalizePlugin.activeScope(context);
+        HabitSnapshot snapshot = HabitSnapshot.read(AutoFinalizePlugin.snapshotFile(context, scope));
+        HabitLogStore store = null;
+        if (!snapshot.habits.isEmpty()) {
+            try {
+                store = HabitLogStorePlugin.storeFor(context, scope);
+            } catch (Exception e) {
+                // Unreadable store: every expected habit counts as due, which errs towards reminding.
+            }
+        }
+        long now = System.currentTimeMillis();
+        ReminderPlanner.Plan plan = ReminderPlanner.onAlarm(snapshot, store, minuteOfDay, scheduledAt, now,
+                prefs.getInt(PREF_LAST_POSTED_DAY, Integer.MIN_VALUE), zone);
+        int today = EpochDays.fromMillis(now, zone);
+
+        SharedPreferences.Editor editor = prefs.edit();
+        if (plan.post && post(context, prefs, plan, today)) {
+            editor.putInt(PREF_LAST_POSTED_DAY, today);
+        }
+        editor.putInt(PREF_LAST_DUE, plan.due.size());
+        arm(context, plan.nextTriggerAt);
+        editor.putLong(PREF_NEXT_AT, plan.nextTriggerAt)
+                .putLong(PREF_LAST_RUN_MICROS, (SystemClock.elapsedRealtimeNanos() - start) / 1000L)
+                .apply();
+    }
+
+    /** Arms or clears the alarm from the stored settings; returns whether it is exact. */
+    private static boolean reschedule(Context context) {
+        SharedPreferences prefs = prefs(context);
+        int minuteOfDay = ReminderPlanner.parseTime(prefs.getString(PREF_TIME, null));
+        if (!prefs.getBoolean(PREF_ENABLED, false) || minuteOfDay < 0) {
+            alarmManager(context).cancel(alarmIntent(context, 0L));
+            prefs.edit().remove(PREF_NEXT_AT).apply();
+            return canScheduleExact(context);
+        }
+        long next = ReminderPlanner.nextTrigger(System.currentTimeMillis(), minuteOfDay, TimeZone.getDefault());
+        boolean exact = arm(context, next);
+        prefs.edit().putLong(PREF_NEXT_AT, next).apply();
+        return exact;
+    }
+
+    /**
+     * Exact and idle-safe where allowed. Since S the exact-alarm grant can be revoked, in
+     * which case the inexact variant still fires within the Doze maintenance window.
+     */
+    private static boolean arm(Context context, long triggerAt) {
+        AlarmManager alarms = alarmManager(context);
+        PendingIntent intent = alarmIntent(context, triggerAt);
+        if (canScheduleExact(context)) {
+            alarms.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, intent);
+            return true;
+        }
+        alarms.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, intent);
+        return false;
+    }
+
+    private static boolean canScheduleExact(Context context) {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager(context).canScheduleExactAlarms();
+    }
+
+    private static boolean post(Context context, SharedPreferences prefs, ReminderPlanner.Plan plan, int today) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        ensureChannel(context);
+        String title = prefs.getString(PREF_TITLE, "");
+        if (title.isEmpty()) title = context.getString(R.string.app_name);
+        String body = ReminderPlanner.pickMessage(messages(prefs), today, prefs.getString(PREF_FALLBACK, ""));
+
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.mipmap.ic_notification)
+                .setContentTitle(title)
+                .setContentText(body)
+                .setAutoCancel(true)
+                .setCategory(NotificationCompat.CATEGORY_REMINDER)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT);
+        if (launch != null) {
+            launch.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED);
+            builder.setContentIntent(PendingIntent.getActivity(context, NOTIFICATION_ID, launch,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE));
+        }
+        if (!plan.due.isEmpty()) {
+            NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle().setSummaryText(body);
+            int lines = Math.min(MAX_INBOX_LINES, plan.due.size());
+            for (int i = 0; i < lines; i++) {
+                inbox.addLine(plan.due.get(i).name);
+            }
+            builder.setStyle(inbox).setNumber(plan.due.size());
+        }
+        try {
+            NotificationManagerCompat.from(context).notify(NOTIFICATION_ID, builder.build());
+            return true;
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+
+    private static void ensureChannel(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        if (manager.getNotificationChannel(CHANNEL_ID) != null) return;
+        manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                context.getString(R.string.reminder_channel_name), NotificationManager.IMPORTANCE_DEFAULT));
+    }
+
+    private static List<String> messages(SharedPreferences prefs) {
+        List<String> out = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(prefs.getString(PREF_MESSAGES, "[]"));
+            for (int i = 0; i < array.length(); i++) {
+                String message = array.optString(i, "");
+                if (!message.isEmpty()) out.add(message);
+            }
+        } catch (JSONException ignored) {
+            // Fall back to the plain body.
+        }
+        return out;
+    }
+
+    /** One PendingIntent identity (the alarm is replaced, never stacked); extras carry the trigger. */
+    private static PendingIntent alarmIntent(Context context, long triggerAt) {
+        Intent intent = new Intent(context, ReminderReceiver.class)
+                .setAction(ACTION_REMINDER)
+                .putExtra(EXTRA_SCHEDULED_AT, triggerAt);
+        return PendingIntent.getBroadcast(context, NOTIFICATION_ID, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static AlarmManager alarmManager(Context context) {
+        return (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(AutoFinalizePlugin.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static JSObject status(Context context, boolean exact) {
+        SharedPreferences prefs = prefs(context);
+        JSObject result = new JSObject();
+        result.put("enabled", prefs.getBoolean(PREF_ENABLED, false));
+        result.put("time", prefs.getString(PREF_TIME, null));
+        result.put("exact", exact);
+        long next = prefs.getLong(PREF_NEXT_AT, 0L);
+        if (next > 0) result.put("nextTriggerAt", next);
+        int lastPosted = prefs.getInt(PREF_LAST_POSTED_DAY, Integer.MIN_VALUE);
+        if (lastPosted != Integer.MIN_VALUE) result.put("lastPostedDate", EpochDays.format(lastPosted));
+        if (prefs.contains(PREF_LAST_DUE)) result.put("lastDueCount", prefs.getInt(PREF_LAST_DUE, 0));
+        if (prefs.contains(PREF_LAST_RUN_MICROS)) {
+            result.put("lastRunMs", prefs.getLong(PREF_LAST_RUN_MICROS, 0L) / 1000.0);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tgatb.habittracker;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Entry point for the daily reminder alarm and for the system events that clear alarms
+ * (boot, app upgrade, clock and time zone changes). Work runs on the reminder executor
+ * under {@link #goAsync()}, so the process starts without an activity or WebView.
+ */
+public class ReminderReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (action == null) return;
+        final PendingResult pending = goAsync();
+        if (ReminderPlugin.ACTION_REMINDER.equals(action)) {
+            ReminderPlugin.onAlarm(context, intent.getLongExtra(ReminderPlugin.EXTRA_SCHEDULED_AT, 0L), pending::finish);
+            return;
+        }
+        switch (action) {
+            case Intent.ACTION_BOOT_COMPLETED:
+            case Intent.ACTION_MY_PACKAGE_REPLACED:
+            case Intent.ACTION_TIME_CHANGED:
+            case Intent.ACTION_TIMEZONE_CHANGED:
+            case "android.app.action.SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED":
+                ReminderPlugin.onSystemEvent(context, pending::finish);
+                break;
+            default:
+                pending.finish();
+        }
+    }
+}
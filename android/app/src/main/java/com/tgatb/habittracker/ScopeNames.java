@@ -0,0 +1,168 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * File names for account scopes. {@code [A-Za-z0-9_-]} is kept as is, so account ids,
+ * {@code anonymous} and {@code _global} keep the names they always had; every other
+ * character becomes {@code ~} and two hex digits per UTF-8 byte. Since {@code ~} is never
+ * kept, two different scopes can never share a name.
+ *
+ * Earlier builds replaced those characters with {@code _}, which let scopes collide;
+ * {@link #migrateLegacy} renames such files once, unless a scope owns that name itself. This class has no Android dependencies
+ * so it can be unit-tested on the JVM.
+ */
+final class ScopeNames {
+    static final String DEFAULT_SCOPE = "anonymous";
+    /** Per-directory record of the legacy entries still to settle; see {@link #migrateLegacy}. */
+    static final String MARKER = ".scope-names";
+    private static final String MARKER_HEADER = "# tgatb-scope-names v1";
+    private static final String LEGACY = "legacy\t";
+    private static final String CLAIMED = "claimed\t";
+    private static final char ESCAPE = '~';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ScopeNames() {
+    }
+
+    static String fileName(String scope) {
+        if (scope == null || scope.trim().isEmpty()) return DEFAULT_SCOPE;
+        StringBuilder out = null;
+        for (int i = 0; i < scope.length(); i++) {
+            char c = scope.charAt(i);
+            if (isKept(c)) {
+                if (out != null) out.append(c);
+                continue;
+            }
+            if (out == null) out = new StringBuilder(scope.length() + 8).append(scope, 0, i);
+            int end = Character.isHighSurrogate(c) && i + 1 < scope.length()
+                    && Character.isLowSurrogate(scope.charAt(i + 1)) ? i + 2 : i + 1;
+            for (byte b : scope.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                out.append(ESCAPE).append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i = end - 1;
+        }
+        return out != null ? out.toString() : scope;
+    }
+
+    /** Name earlier builds used; differs from {@link #fileName} only for escaped scopes. */
+    static String legacyFileName(String scope) {
+        if (scope == null || scope.trim().isEmpty()) return DEFAULT_SCOPE;
+        return scope.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    /**
+     * Renames entries of {@code dir} that earlier builds saved under the legacy name of
+     * {@code scope} (the name itself, or the name followed by {@code .suffix}) to the
+     * current name. Returns the number renamed.
+     *
+     * Only entries that were in {@code dir} when this build first saw it count as legacy;
+     * {@link #MARKER} records them, and each one is settled at most once. A legacy name is
+     * also a valid current name, so once a scope opens under its own plain name (say
+     * {@code a_b}), entries with that name are its live files and no scope that used to
+     * map there ({@code a.b}, {@code a b}) may take them. Entries whose new name is already
+     * taken are left alone.
+     */
+    static synchronized int migrateLegacy(File dir, String scope) {
+        String current = fileName(scope);
+        String legacy = legacyFileName(scope);
+        Marker marker = Marker.load(dir);
+        if (marker == null) return 0;
+        boolean dirty = marker.created;
+        if (current.equals(legacy)) {
+            dirty |= marker.claimed.add(current);
+        }
+        int renamed = 0;
+        if (!current.equals(legacy) && !marker.claimed.contains(legacy)) {
+            Iterator<String> names = marker.legacy.iterator();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!name.equals(legacy) && !name.startsWith(legacy + ".")) continue;
+                names.remove();
+                dirty = true;
+                File target = new File(dir, current + name.substring(legacy.length()));
+                if (!target.exists() && new File(dir, name).renameTo(target)) renamed++;
+            }
+        }
+        if (dirty) marker.write(dir);
+        return renamed;
+    }
+
+    /**
+     * Contents of {@link #MARKER}: the entries found when this build first saw the
+     * directory, minus those settled since, and the plain names scopes have claimed.
+     */
+    private static final class Marker {
+        final Set<String> legacy = new LinkedHashSet<>();
+        final Set<String> claimed = new LinkedHashSet<>();
+        boolean created;
+
+        /** Null when the directory can be neither read nor created. */
+        static Marker load(File dir) {
+            Marker marker = new Marker();
+            File file = new File(dir, MARKER);
+            if (file.exists()) {
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                        new FileInputStream(file), StandardCharsets.UTF_8))) {
+                    String line = in.readLine();
+                    if (MARKER_HEADER.equals(line)) {
+                        while ((line = in.readLine()) != null) {
+                            if (line.startsWith(LEGACY)) marker.legacy.add(line.substring(LEGACY.length()));
+                            else if (line.startsWith(CLAIMED)) marker.claimed.add(line.substring(CLAIMED.length()));
+                        }
+                        return marker;
+                    }
+                } catch (IOException e) {
+                    // Rebuilt below from the listing, as on the first run.
+                }
+            }
+            if (!dir.exists() && !dir.mkdirs()) return null;
+            String[] names = dir.list();
+            if (names == null) return null;
+            for (String name : names) {
+                if (!name.startsWith(MARKER)) marker.legacy.add(name);
+            }
+            marker.created = true;
+            return marker;
+        }
+
+        /** Best effort: a lost write repeats the first run's listing next time. */
+        void write(File dir) {
+            File file = new File(dir, MARKER);
+            File tmp = new File(dir, MARKER + ".tmp");
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                out.write(MARKER_HEADER);
+                out.write('\n');
+                for (String name : legacy) {
+                    out.write(LEGACY);
+                    out.write(name);
+                    out.write('\n');
+                }
+                for (String name : claimed) {
+                    out.write(CLAIMED);
+                    out.write(name);
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(file)) tmp.delete();
+        }
+    }
+
+    private static boolean isKept(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+}
@@ -0,0 +1,202 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Encrypted key-value storage for {@code SecureStorage} (access tokens and the like).
+ *
+ * Values live in one {@link SecureStore} file under {@code noBackupFilesDir}: the
+ * ciphertext is useless without this device's Keystore key, so it is kept out of backups.
+ * The store is opened (key lookup, cipher setup, one decrypt) on the plugin's thread when
+ * the plugin loads; every call after that reads from memory, and writes re-encrypt the
+ * whole file once per call.
+ */
+@CapacitorPlugin(name = "SecureStorage")
+public class SecureStoragePlugin extends Plugin {
+    static final String FILE_NAME = "secure_storage.bin";
+    static final String KEY_ALIAS = "tgatb_secure_storage_v1";
+
+    private static final Object LOCK = new Object();
+    private static SecureStore store;
+
+    /** Opening and every write run here, so calls apply in the order they were made. */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /** Shared store; opened on first use. */
+    static SecureStore storeFor(Context context) throws Exception {
+        synchronized (LOCK) {
+            if (store == null) {
+                store = new SecureStore(new File(context.getNoBackupFilesDir(), FILE_NAME),
+                        new KeystoreKeyProvider(KEY_ALIAS));
+            }
+            return store;
+        }
+    }
+
+    @Override
+    public void load() {
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                storeFor(context);
+            } catch (Exception ignored) {
+                // The first call retries and reports the error.
+            }
+        });
+    }
+
+    @PluginMethod
+    public void get(PluginCall call) {
+        final String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("value", storeFor(context).get(key));
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to open secure storage: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** {@code {keys}} resolves with {@code {values: {key: value | null}}}. */
+    @PluginMethod
+    public void getMany(PluginCall call) {
+        final JSArray keys = call.getArray("keys");
+        if (keys == null) {
+            call.reject("keys is required");
+            return;
+        }
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                List<String> wanted = new ArrayList<>(keys.length());
+                for (int i = 0; i < keys.length(); i++) wanted.add(keys.getString(i));
+                JSObject values = new JSObject();
+                for (Map.Entry<String, String> entry : storeFor(context).getMany(wanted).entrySet()) {
+                    values.put(entry.getKey(), entry.getValue() != null ? entry.getValue() : JSONObject.NULL);
+                }
+                JSObject ret = new JSObject();
+                ret.put("values", values);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to read keys: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void set(PluginCall call) {
+        String key = call.getString("key");
+        String value = call.getString("value");
+        if (key == null || value == null) {
+            call.reject("key and value are required");
+            return;
+        }
+        write(call, Collections.singletonMap(key, value), Collections.<String>emptyList());
+    }
+
+    @PluginMethod
+    public void remove(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+        write(call, Collections.<String, String>emptyMap(), Collections.singletonList(key));
+    }
+
+    /** {@code {entries: {key: value}, remove?: [key]}}; applied atomically with one encryption. */
+    @PluginMethod
+    public void setMany(PluginCall call) {
+        JSObject entries = call.getObject("entries", new JSObject());
+        JSArray removals = call.getArray("remove", new JSArray());
+        try {
+            Map<String, String> puts = new LinkedHashMap<>();
+            Iterator<String> keys = entries.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (entries.isNull(key)) {
+                    throw new IllegalArgumentException("value for " + key + " must be a string");
+                }
+                puts.put(key, entries.getString(key));
+            }
+            List<String> removed = new ArrayList<>(removals.length());
+            for (int i = 0; i < removals.length(); i++) {
+                removed.add(removals.getString(i));
+            }
+            write(call, puts, removed);
+        } catch (Exception e) {
+            call.reject("Invalid entries: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                storeFor(context).clear();
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Failed to clear secure storage: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                SecureStore secure = storeFor(context);
+                JSObject ret = new JSObject();
+                ret.put("keys", secure.size());
+                ret.put("fileBytes", secure.fileBytes());
+                ret.put("writes", secure.writeCount());
+                ret.put("recoveredUnreadable", secure.recoveredUnreadable());
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to open secure storage: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Resolves once the new file is fsynced and in place. */
+    private void write(final PluginCall call, final Map<String, String> puts, final Collection<String> removals) {
+        final Context context = getContext();
+        EXECUTOR.execute(() -> {
+            try {
+                storeFor(context).apply(puts, removals);
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Failed to write secure storage: " + e.getMessage(), e);
+            }
+        });
+    }
+}
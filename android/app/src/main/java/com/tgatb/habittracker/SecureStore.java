@@ -0,0 +1,271 @@
+package com.tgatb.habittracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Small string key-value store kept encrypted at rest as one AES-GCM blob in a single file.
+ *
+ * The file is decrypted once when the store opens and reads are served from memory after
+ * that. Each write re-encrypts the whole map under a fresh IV and replaces the file
+ * atomically, so a multi-key {@link #apply} lands whole or not at all. The key and the
+ * {@link Cipher} are fetched once and reused; only the IV changes between operations.
+ *
+ * The key comes from a {@link KeyProvider}: the Android Keystore in the app, a software
+ * key in tests. A file the key cannot decrypt (tampered, truncated, or restored onto a
+ * device whose Keystore never held its key) is treated as empty and overwritten by the
+ * next write. This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class SecureStore {
+    static final int MAGIC = 0x54475345; // "TGSE"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 9;
+    static final int TAG_BITS = 128;
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /** Source of the AES key. Called once per store; may create the key on first use. */
+    public interface KeyProvider {
+        SecretKey key() throws GeneralSecurityException;
+    }
+
+    private final File file;
+    private final KeyProvider keys;
+    private final Map<String, String> map = new HashMap<>();
+    private SecretKey key;
+    private Cipher cipher;
+    private boolean recoveredUnreadable;
+    private long writes;
+
+    public SecureStore(File file, KeyProvider keys) throws IOException, GeneralSecurityException {
+        this.file = file;
+        this.keys = keys;
+        load();
+    }
+
+    public synchronized String get(String key) {
+        return map.get(key);
+    }
+
+    /** Values for {@code keys} in order; missing keys map to null. */
+    public synchronized Map<String, String> getMany(Collection<String> keys) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (String key : keys) out.put(key, map.get(key));
+        return out;
+    }
+
+    public synchronized List<String> keys() {
+        List<String> out = new ArrayList<>(map.keySet());
+        Collections.sort(out);
+        return out;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public void put(String key, String value) throws IOException, GeneralSecurityException {
+        apply(Collections.singletonMap(key, value), Collections.<String>emptyList());
+    }
+
+    public void remove(String key) throws IOException, GeneralSecurityException {
+        apply(Collections.<String, String>emptyMap(), Collections.singletonList(key));
+    }
+
+    /**
+     * Removes {@code removals}, then sets {@code puts}, with one encryption and one file
+     * write. Returns false, without touching the file, when nothing changed. If the write
+     * fails the store keeps its previous contents.
+     */
+    public synchronized boolean apply(Map<String, String> puts, Collection<String> removals)
+            throws IOException, GeneralSecurityException {
+        Map<String, String> next = new HashMap<>(map);
+        for (String key : removals) next.remove(key);
+        for (Map.Entry<String, String> entry : puts.entrySet()) {
+            if (entry.getValue() == null) throw new IllegalArgumentException("value for " + entry.getKey() + " is null");
+            next.put(entry.getKey(), entry.getValue());
+        }
+        if (next.equals(map) && !recoveredUnreadable) return false;
+        write(next);
+        map.clear();
+        map.putAll(next);
+        return true;
+    }
+
+    /** Drops every entry and deletes the file. */
+    public synchronized void clear() throws IOException {
+        if (file.exists() && !file.delete()) throw new IOException("Cannot delete " + file.getName());
+        map.clear();
+        recoveredUnreadable = false;
+    }
+
+    /** True when the file existed but could not be decrypted, so the store started empty. */
+    public synchronized boolean recoveredUnreadable() {
+        return recoveredUnreadable;
+    }
+
+    public synchronized long writeCount() {
+        return writes;
+    }
+
+    public long fileBytes() {
+        return file.length();
+    }
+
+    // ---------------------------------------------------------------------
+    // Encryption
+    // ---------------------------------------------------------------------
+
+    private void load() throws IOException, GeneralSecurityException {
+        if (!file.exists()) return;
+        byte[] bytes = readFully(file);
+        // Outside the try: a key or provider failure must not be mistaken for a bad file.
+        cipher();
+        try {
+            map.putAll(decodeEntries(decrypt(bytes)));
+        } catch (GeneralSecurityException | IOException | IllegalArgumentException e) {
+            map.clear();
+            recoveredUnreadable = true;
+        }
+    }
+
+    private Cipher cipher() throws GeneralSecurityException {
+        if (cipher == null) {
+            key = keys.key();
+            cipher = Cipher.getInstance(TRANSFORMATION);
+        }
+        return cipher;
+    }
+
+    /** {@code [magic][version][ivLength][iv][ciphertext+tag]}; the header is authenticated. */
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        Cipher c = cipher();
+        // No IV passed: the provider picks a fresh random one (the Keystore insists on it).
+        c.init(Cipher.ENCRYPT_MODE, key);
+        byte[] iv = c.getIV();
+        byte[] header = header(iv.length);
+        c.updateAAD(header);
+        byte[] sealed = c.doFinal(plain);
+        byte[] out = new byte[HEADER_SIZE + iv.length + sealed.length];
+        System.arraycopy(header, 0, out, 0, HEADER_SIZE);
+        System.arraycopy(iv, 0, out, HEADER_SIZE, iv.length);
+        System.arraycopy(sealed, 0, out, HEADER_SIZE + iv.length, sealed.length);
+        return out;
+    }
+
+    private byte[] decrypt(byte[] bytes) throws GeneralSecurityException, IOException {
+        Cipher c = cipher();
+        if (bytes.length < HEADER_SIZE) throw new IOException("Truncated header");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) throw new IOException("Not a secure store");
+        int ivLength = in.readUnsignedByte();
+        if (ivLength == 0 || bytes.length < HEADER_SIZE + ivLength + TAG_BITS / 8) throw new IOException("Truncated body");
+        c.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, HEADER_SIZE, ivLength));
+        c.updateAAD(bytes, 0, HEADER_SIZE);
+        return c.doFinal(bytes, HEADER_SIZE + ivLength, bytes.length - HEADER_SIZE - ivLength);
+    }
+
+    private static byte[] header(int ivLength) {
+        return new byte[] {
+                (byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC,
+                0, 0, 0, (byte) FORMAT_VERSION,
+                (byte) ivLength,
+        };
+    }
+
+    // ---------------------------------------------------------------------
+    // Encoding and files
+    // ---------------------------------------------------------------------
+
+    /** {@code [count]{[key][value]}}, keys sorted so equal maps encode identically. */
+    static byte[] encodeEntries(Map<String, String> entries) {
+        try {
+            List<String> sorted = new ArrayList<>(entries.keySet());
+            Collections.sort(sorted);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(sorted.size());
+            for (String key : sorted) {
+                writeString(out, key);
+                writeString(out, entries.get(key));
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Map<String, String> decodeEntries(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Negative entry count");
+        Map<String, String> out = new HashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            out.put(readString(in), readString(in));
+        }
+        return out;
+    }
+
+    /** Writes a sibling temp file, fsyncs it, then renames it over the store. */
+    private void write(Map<String, String> entries) throws IOException, GeneralSecurityException {
+        byte[] sealed = encrypt(encodeEntries(entries));
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(sealed);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp.getName());
+        }
+        recoveredUnreadable = false;
+        writes++;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) throw new IOException("Bad string length");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(file.length(), Integer.MAX_VALUE));
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
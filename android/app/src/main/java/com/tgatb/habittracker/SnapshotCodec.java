@@ -0,0 +1,782 @@
+package com.tgatb.habittracker;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary form of an export bundle, streamed record by record like
+ * {@link ExportStream} and lossless against {@code exportBundleSchema}.
+ *
+ * <pre>
+ * "TGSN" version:varint exportedAt:text habits:varint logs:varint
+ * habit*  log*  settings:text(JSON)
+ * </pre>
+ *
+ * Habit ids and device ids are interned: a ref is 0 followed by the text the first time
+ * a string appears, then {@code index + 1}. Log dates are epoch days delta-encoded
+ * against the previous log of the same habit; timestamps are millis relative to the
+ * log's day and {@code updatedAt} relative to the timestamp, all zigzag varints.
+ * {@code completed}, {@code source} and field presence share one flags varint. Values
+ * that are not in their canonical form (UUIDs, {@code YYYY-MM-DD}, {@code toISOString()}
+ * output) are stored verbatim instead, so decoding always gives back the same strings.
+ */
+public final class SnapshotCodec {
+    public static final int VERSION = 1;
+    static final byte[] MAGIC = {'T', 'G', 'S', 'N'};
+
+    private static final long DAY_MS = 86_400_000L;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String[] HABIT_TYPES = {"good", "bad"};
+    private static final String[] SCHEDULE_TYPES = {"daily", "interval", "weekly"};
+    private static final String[] LOG_SOURCES = {null, "manual", "auto"};
+
+    // Habit flags.
+    private static final int H_BAD = 1;
+    private static final int H_LAST_COMPLETED = 1 << 1;
+    private static final int H_SCHEDULE = 1 << 2;
+    private static final int H_UPDATED_AT = 1 << 3;
+    private static final int H_DEVICE = 1 << 4;
+    private static final int H_DEVICE_NULL = 1 << 5;
+    private static final int H_VERSION = 1 << 6;
+    private static final int H_CREATED_RAW = 1 << 7;
+    private static final int H_LAST_COMPLETED_RAW = 1 << 8;
+    private static final int H_UPDATED_AT_RAW = 1 << 9;
+
+    // Log flags; the common ones fit in the first varint byte.
+    private static final int L_COMPLETED = 1;
+    private static final int L_SOURCE_SHIFT = 1;
+    private static final int L_SOURCE_MASK = 3 << L_SOURCE_SHIFT;
+    private static final int L_UPDATED_AT = 1 << 3;
+    private static final int L_DEVICE = 1 << 4;
+    private static final int L_VERSION = 1 << 5;
+    private static final int L_DEVICE_NULL = 1 << 6;
+    private static final int L_ID_TEXT = 1 << 7;
+    private static final int L_DATE_RAW = 1 << 8;
+    private static final int L_TIMESTAMP_RAW = 1 << 9;
+    private static final int L_UPDATED_AT_RAW = 1 << 10;
+
+    // Schedule byte.
+    private static final int S_TYPE_MASK = 3;
+    private static final int S_INTERVAL = 1 << 2;
+    private static final int S_DAYS = 1 << 3;
+    private static final int S_DAYS_MASK = 1 << 4;
+
+    private SnapshotCodec() {}
+
+    /** True when {@code head} starts with the snapshot magic. */
+    static boolean isSnapshot(byte[] head, int length) {
+        if (length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Re-encodes an export (JSON or snapshot) as a snapshot. Meta must precede the records,
+     * which is how {@link ExportStream.Writer} and {@code exportData()} write it.
+     */
+    public static void convert(ExportStream.Source source, OutputStream out) throws IOException {
+        Writer writer = null;
+        Map<String, Object> settings = null;
+        ExportStream.Item item;
+        while ((item = source.next()) != null) {
+            switch (item.kind) {
+                case META:
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> counts = (Map<String, Object>) item.value.get("counts");
+                    writer = new Writer(out, (String) item.value.get("exportedAt"),
+                            ((Number) counts.get("habits")).longValue(), ((Number) counts.get("logs")).longValue());
+                    break;
+                case SETTINGS:
+                    settings = item.value;
+                    break;
+                case HABIT:
+                case LOG:
+                    if (writer == null) throw new ExportSchema.Invalid("meta", "must precede habits and logs");
+                    try {
+                        if (item.kind == ExportStream.Kind.HABIT) {
+                            writer.habit(item.value);
+                        } else {
+                            writer.log(item.value);
+                        }
+                    } catch (IllegalStateException e) {
+                        throw new ExportSchema.Invalid("habits", e.getMessage());
+                    }
+                    break;
+            }
+        }
+        if (writer == null) throw new ExportSchema.Invalid("meta", "required");
+        writer.finish(settings);
+    }
+
+    // ---------------------------------------------------------------------
+    // Writer
+    // ---------------------------------------------------------------------
+
+    /** Same contract as {@link ExportStream.Writer}: habits first, counts checked on finish. */
+    public static final class Writer implements Closeable {
+        private final Output out;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private int[] lastDay = new int[16];
+        private final long expectedHabits;
+        private final long expectedLogs;
+        private int habits;
+        private int logs;
+        private boolean finished;
+
+        public Writer(OutputStream sink, String exportedAt, long habitCount, long logCount) throws IOException {
+            out = new Output(sink);
+            expectedHabits = habitCount;
+            expectedLogs = logCount;
+            out.bytes(MAGIC, 0, MAGIC.length);
+            out.varint(VERSION);
+            out.text(exportedAt);
+            out.varint(habitCount);
+            out.varint(logCount);
+        }
+
+        public void habit(Object record) throws IOException {
+            if (logs > 0 || finished) throw new IllegalStateException("Habits must precede logs");
+            Map<String, Object> habit = ExportSchema.habit(record, "habits." + habits);
+            String createdAt = (String) habit.get("createdAt");
+            String lastCompleted = (String) habit.get("lastCompletedDate");
+            String updatedAt = (String) habit.get("updatedAt");
+            long created = isoMillis(createdAt);
+            long last = lastCompleted != null ? isoMillis(lastCompleted) : 0;
+            long updated = updatedAt != null ? isoMillis(updatedAt) : 0;
+
+            int flags = "bad".equals(habit.get("type")) ? H_BAD : 0;
+            if (lastCompleted != null) flags |= H_LAST_COMPLETED;
+            if (habit.containsKey("schedule")) flags |= H_SCHEDULE;
+            if (updatedAt != null) flags |= H_UPDATED_AT;
+            if (habit.containsKey("deviceId")) flags |= habit.get("deviceId") != null ? H_DEVICE : H_DEVICE_NULL;
+            if (habit.containsKey("version")) flags |= H_VERSION;
+            if (created == Long.MIN_VALUE) flags |= H_CREATED_RAW;
+            if (last == Long.MIN_VALUE) flags |= H_LAST_COMPLETED_RAW;
+            if (updated == Long.MIN_VALUE) flags |= H_UPDATED_AT_RAW;
+
+            out.varint(flags);
+            ref((String) habit.get("id"));
+            out.text((String) habit.get("name"));
+            out.number(habit.get("streak"));
+            timestamp(createdAt, created, 0);
+            if (lastCompleted != null) timestamp(lastCompleted, last, 0);
+            if ((flags & H_SCHEDULE) != 0) schedule(habit.get("schedule"));
+            if (updatedAt != null) timestamp(updatedAt, updated, 0);
+            if ((flags & H_DEVICE) != 0) ref((String) habit.get("deviceId"));
+            if ((flags & H_VERSION) != 0) out.number(habit.get("version"));
+            habits++;
+        }
+
+        public void log(Object record) throws IOException {
+            if (finished) throw new IllegalStateException("Snapshot already finished");
+            Map<String, Object> log = ExportSchema.log(record, "logs." + logs);
+            String id = (String) log.get("id");
+            String date = (String) log.get("date");
+            String timestamp = (String) log.get("timestamp");
+            String updatedAt = (String) log.get("updatedAt");
+            Object source = log.get("source");
+            int day = epochDay(date);
+            long ts = isoMillis(timestamp);
+            long updated = updatedAt != null ? isoMillis(updatedAt) : 0;
+
+            int flags = Boolean.TRUE.equals(log.get("completed")) ? L_COMPLETED : 0;
+            if (source != null) flags |= ("manual".equals(source) ? 1 : 2) << L_SOURCE_SHIFT;
+            if (updatedAt != null) flags |= L_UPDATED_AT;
+            if (log.containsKey("deviceId")) flags |= log.get("deviceId") != null ? L_DEVICE : L_DEVICE_NULL;
+            if (log.containsKey("version")) flags |= L_VERSION;
+            if (!isUuid(id)) flags |= L_ID_TEXT;
+            if (day == Integer.MIN_VALUE) flags |= L_DATE_RAW;
+            if (ts == Long.MIN_VALUE) flags |= L_TIMESTAMP_RAW;
+            if (updated == Long.MIN_VALUE) flags |= L_UPDATED_AT_RAW;
+
+            out.varint(flags);
+            int habit = ref((String) log.get("habitId"));
+            if ((flags & L_ID_TEXT) != 0) {
+                out.text(id);
+            } else {
+                out.uuid(id);
+            }
+            if (day == Integer.MIN_VALUE) {
+                out.text(date);
+            } else {
+                if (habit >= lastDay.length) lastDay = grow(lastDay, habit);
+                out.zigzag((long) day - lastDay[habit]);
+                lastDay[habit] = day;
+            }
+            long dayStart = day == Integer.MIN_VALUE ? 0 : day * DAY_MS;
+            timestamp(timestamp, ts, dayStart);
+            if (updatedAt != null) timestamp(updatedAt, updated, ts == Long.MIN_VALUE ? 0 : ts);
+            if ((flags & L_DEVICE) != 0) ref((String) log.get("deviceId"));
+            if ((flags & L_VERSION) != 0) out.number(log.get("version"));
+            logs++;
+        }
+
+        /** Writes settings; the underlying stream is flushed, not closed. */
+        public void finish(Object settings) throws IOException {
+            if (finished) throw new IllegalStateException("Snapshot already finished");
+            Map<String, Object> validated = ExportSchema.settings(settings, "settings");
+            if (habits != expectedHabits) {
+                throw new ExportSchema.Invalid("meta.counts.habits", "declared " + expectedHabits + " but wrote " + habits);
+            }
+            if (logs != expectedLogs) {
+                throw new ExportSchema.Invalid("meta.counts.logs", "declared " + expectedLogs + " but wrote " + logs);
+            }
+            StringWriter json = new StringWriter();
+            new StreamingJson.JsonWriter(json).writeValue(validated);
+            out.text(json.toString());
+            out.flush();
+            finished = true;
+        }
+
+        public long bytesWritten() {
+            return out.count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+            out.sink.close();
+        }
+
+        /** Writes an interned string and returns its table index. */
+        private int ref(String value) throws IOException {
+            Integer index = strings.get(value);
+            if (index != null) {
+                out.varint(index + 1);
+                return index;
+            }
+            int next = strings.size();
+            strings.put(value, next);
+            out.varint(0);
+            out.text(value);
+            return next;
+        }
+
+        private void timestamp(String raw, long millis, long base) throws IOException {
+            if (millis == Long.MIN_VALUE) {
+                out.text(raw);
+            } else {
+                out.zigzag(millis - base);
+            }
+        }
+
+        private void schedule(Object value) throws IOException {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> schedule = (Map<String, Object>) value;
+            int flags = indexOf(SCHEDULE_TYPES, schedule.get("type"));
+            if (schedule.containsKey("intervalDays")) flags |= S_INTERVAL;
+            List<?> days = (List<?>) schedule.get("daysOfWeek");
+            int mask = days != null ? dayMask(days) : -1;
+            if (days != null) flags |= mask >= 0 ? S_DAYS | S_DAYS_MASK : S_DAYS;
+            out.varint(flags);
+            if ((flags & S_INTERVAL) != 0) out.number(schedule.get("intervalDays"));
+            if (days == null) return;
+            if (mask >= 0) {
+                out.varint(mask);
+            } else {
+                out.varint(days.size());
+                for (Object day : days) out.number(day);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Reader
+    // ---------------------------------------------------------------------
+
+    /** Pull reader yielding the same items, in the same order, as {@link ExportStream.Reader}. */
+    public static final class Reader implements ExportStream.Source {
+        private final Input in;
+        private final List<String> strings = new ArrayList<>();
+        private int[] lastDay = new int[16];
+        private final String exportedAt;
+        private final long habitCount;
+        private final long logCount;
+        private boolean sentMeta;
+        private boolean done;
+        private int habits;
+        private int logs;
+
+        public Reader(InputStream source) throws IOException {
+            in = new Input(source);
+            for (byte b : MAGIC) {
+                if (in.read() != b) throw new ExportSchema.Invalid("root", "not a snapshot");
+            }
+            long version = in.varint();
+            if (version != VERSION) throw new ExportSchema.Invalid("version", "unsupported snapshot version " + version);
+            exportedAt = in.text();
+            habitCount = in.varint();
+            logCount = in.varint();
+        }
+
+        @Override
+        public ExportStream.Item next() throws IOException {
+            if (done) return null;
+            if (!sentMeta) {
+                sentMeta = true;
+                Map<String, Object> counts = new LinkedHashMap<>();
+                counts.put("habits", habitCount);
+                counts.put("logs", logCount);
+                Map<String, Object> meta = new LinkedHashMap<>();
+                meta.put("exportedAt", exportedAt);
+                meta.put("counts", counts);
+                return new ExportStream.Item(ExportStream.Kind.META, meta, 0);
+            }
+            if (habits < habitCount) {
+                return new ExportStream.Item(ExportStream.Kind.HABIT, habit(), habits++);
+            }
+            if (logs < logCount) {
+                return new ExportStream.Item(ExportStream.Kind.LOG, log(), logs++);
+            }
+            Object settings = new StreamingJson.JsonReader(new StringReader(in.text())).readValue();
+            if (in.read() != -1) throw new ExportSchema.Invalid("root", "trailing data");
+            done = true;
+            return new ExportStream.Item(ExportStream.Kind.SETTINGS, ExportSchema.settings(settings, "settings"), 0);
+        }
+
+        private Map<String, Object> habit() throws IOException {
+            int flags = (int) in.varint();
+            Map<String, Object> habit = new LinkedHashMap<>();
+            habit.put("id", ref());
+            habit.put("name", in.text());
+            habit.put("type", HABIT_TYPES[flags & H_BAD]);
+            habit.put("streak", in.number());
+            habit.put("createdAt", timestamp((flags & H_CREATED_RAW) != 0, 0));
+            if ((flags & H_LAST_COMPLETED) != 0) {
+                habit.put("lastCompletedDate", timestamp((flags & H_LAST_COMPLETED_RAW) != 0, 0));
+            }
+            if ((flags & H_SCHEDULE) != 0) habit.put("schedule", schedule());
+            if ((flags & H_UPDATED_AT) != 0) habit.put("updatedAt", timestamp((flags & H_UPDATED_AT_RAW) != 0, 0));
+            if ((flags & H_DEVICE) != 0) habit.put("deviceId", ref());
+            if ((flags & H_DEVICE_NULL) != 0) habit.put("deviceId", null);
+            if ((flags & H_VERSION) != 0) habit.put("version", in.number());
+            return habit;
+        }
+
+        private Map<String, Object> log() throws IOException {
+            int flags = (int) in.varint();
+            int habit = in.refIndex(strings.size());
+            String habitId = habit < strings.size() ? strings.get(habit) : intern(in.text());
+            String id = (flags & L_ID_TEXT) != 0 ? in.text() : in.uuid();
+            String date;
+            long dayStart = 0;
+            if ((flags & L_DATE_RAW) != 0) {
+                date = in.text();
+            } else {
+                if (habit >= lastDay.length) lastDay = grow(lastDay, habit);
+                int day = (int) (lastDay[habit] + in.zigzag());
+                lastDay[habit] = day;
+                date = EpochDays.format(day);
+                dayStart = day * DAY_MS;
+            }
+            boolean tsRaw = (flags & L_TIMESTAMP_RAW) != 0;
+            String rawTimestamp = tsRaw ? in.text() : null;
+            long ts = tsRaw ? 0 : dayStart + in.zigzag();
+            int source = (flags & L_SOURCE_MASK) >>> L_SOURCE_SHIFT;
+            if (source >= LOG_SOURCES.length) throw new ExportSchema.Invalid("logs." + logs + ".source", "invalid option");
+
+            Map<String, Object> log = new LinkedHashMap<>();
+            log.put("id", id);
+            log.put("habitId", habitId);
+            log.put("date", date);
+            log.put("completed", (flags & L_COMPLETED) != 0);
+            log.put("timestamp", tsRaw ? rawTimestamp : formatIso(ts));
+            if (source != 0) log.put("source", LOG_SOURCES[source]);
+            if ((flags & L_UPDATED_AT) != 0) {
+                log.put("updatedAt", timestamp((flags & L_UPDATED_AT_RAW) != 0, tsRaw ? 0 : ts));
+            }
+            if ((flags & L_DEVICE) != 0) log.put("deviceId", ref());
+            if ((flags & L_DEVICE_NULL) != 0) log.put("deviceId", null);
+            if ((flags & L_VERSION) != 0) log.put("version", in.number());
+            return log;
+        }
+
+        private Map<String, Object> schedule() throws IOException {
+            int flags = (int) in.varint();
+            int type = flags & S_TYPE_MASK;
+            if (type >= SCHEDULE_TYPES.length) throw new ExportSchema.Invalid("habits." + habits + ".schedule.type", "invalid option");
+            Map<String, Object> schedule = new LinkedHashMap<>();
+            schedule.put("type", SCHEDULE_TYPES[type]);
+            if ((flags & S_INTERVAL) != 0) schedule.put("intervalDays", in.number());
+            if ((flags & S_DAYS) != 0) {
+                List<Object> days = new ArrayList<>();
+                if ((flags & S_DAYS_MASK) != 0) {
+                    long mask = in.varint();
+                    for (long day = 0; day < 7; day++) {
+                        if ((mask & (1L << day)) != 0) days.add(day);
+                    }
+                } else {
+                    long size = in.varint();
+                    for (long i = 0; i < size; i++) days.add(in.number());
+                }
+                schedule.put("daysOfWeek", days);
+            }
+            return schedule;
+        }
+
+        private String ref() throws IOException {
+            int index = in.refIndex(strings.size());
+            return index < strings.size() ? strings.get(index) : intern(in.text());
+        }
+
+        private String intern(String value) {
+            strings.add(value);
+            return value;
+        }
+
+        private String timestamp(boolean raw, long base) throws IOException {
+            return raw ? in.text() : formatIso(base + in.zigzag());
+        }
+
+        @Override
+        public int habitsRead() {
+            return habits;
+        }
+
+        @Override
+        public int logsRead() {
+            return logs;
+        }
+
+        @Override
+        public long bytesRead() {
+            return in.count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.source.close();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Canonical forms
+    // ---------------------------------------------------------------------
+
+    /** Epoch day of a canonical {@code YYYY-MM-DD}, or {@code Integer.MIN_VALUE}. */
+    static int epochDay(String date) {
+        try {
+            int day = EpochDays.parse(date);
+            return EpochDays.format(day).equals(date) ? day : Integer.MIN_VALUE;
+        } catch (IllegalArgumentException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    /** Millis of a {@code Date.toISOString()} string (years 0000-9999), or {@code Long.MIN_VALUE}. */
+    static long isoMillis(String s) {
+        if (s == null || s.length() != 24 || s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':'
+                || s.charAt(19) != '.' || s.charAt(23) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+        int day = epochDay(s.substring(0, 10));
+        if (day == Integer.MIN_VALUE) return Long.MIN_VALUE;
+        int hour = digits(s, 11, 13);
+        int minute = digits(s, 14, 16);
+        int second = digits(s, 17, 19);
+        int millis = digits(s, 20, 23);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return Long.MIN_VALUE;
+        }
+        return day * DAY_MS + ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+    }
+
+    static String formatIso(long millis) {
+        int day = (int) Math.floorDiv(millis, DAY_MS);
+        int ms = (int) Math.floorMod(millis, DAY_MS);
+        char[] out = new char[24];
+        EpochDays.format(day).getChars(0, 10, out, 0);
+        out[10] = 'T';
+        two(out, 11, ms / 3_600_000);
+        out[13] = ':';
+        two(out, 14, ms / 60_000 % 60);
+        out[16] = ':';
+        two(out, 17, ms / 1000 % 60);
+        out[19] = '.';
+        out[20] = (char) ('0' + ms % 1000 / 100);
+        out[21] = (char) ('0' + ms % 100 / 10);
+        out[22] = (char) ('0' + ms % 10);
+        out[23] = 'Z';
+        return new String(out);
+    }
+
+    /** Lowercase 8-4-4-4-12 hex, as produced by {@code crypto.randomUUID()}. */
+    static boolean isUuid(String s) {
+        if (s.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void two(char[] out, int at, int value) {
+        out[at] = (char) ('0' + value / 10);
+        out[at + 1] = (char) ('0' + value % 10);
+    }
+
+    /** Bitmask of a strictly ascending list of Long days 0..6, or -1 when it would not round-trip. */
+    private static int dayMask(List<?> days) {
+        int mask = 0;
+        long previous = -1;
+        for (Object day : days) {
+            if (!(day instanceof Long)) return -1;
+            long d = (Long) day;
+            if (d <= previous) return -1;
+            mask |= 1 << d;
+            previous = d;
+        }
+        return mask;
+    }
+
+    private static int indexOf(String[] values, Object value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && values[i].equals(value)) return i;
+        }
+        throw new IllegalArgumentException("Unexpected value " + value);
+    }
+
+    private static int[] grow(int[] array, int index) {
+        int[] grown = new int[Math.max(array.length * 2, index + 1)];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    // ---------------------------------------------------------------------
+    // Primitives
+    // ---------------------------------------------------------------------
+
+    /**
+     * Numbers keep their JSON-reader type: integral values in +-2^61 are a zigzag varint
+     * shifted left by one; tag 1 is a double and tag 3 a full long, 8 bytes each.
+     */
+    private static final long SMALL_LONG = 1L << 61;
+
+    private static final class Output {
+        final OutputStream sink;
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int position;
+        long count;
+
+        Output(OutputStream sink) {
+            this.sink = sink;
+        }
+
+        void write(int b) throws IOException {
+            if (position == buffer.length) drain();
+            buffer[position++] = (byte) b;
+            count++;
+        }
+
+        void bytes(byte[] b, int off, int len) throws IOException {
+            if (len > buffer.length - position) {
+                drain();
+                if (len > buffer.length) {
+                    sink.write(b, off, len);
+                    count += len;
+                    return;
+                }
+            }
+            System.arraycopy(b, off, buffer, position, len);
+            position += len;
+            count += len;
+        }
+
+        void varint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(long value) throws IOException {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void fixed64(long value) throws IOException {
+            for (int shift = 0; shift < 64; shift += 8) write((int) (value >>> shift));
+        }
+
+        /** 0 then 16 bytes for a canonical UUID, else UTF-8 length + 1 and the bytes. */
+        void text(String value) throws IOException {
+            if (isUuid(value)) {
+                varint(0);
+                uuid(value);
+                return;
+            }
+            byte[] utf8 = value.getBytes(ExportStream.UTF_8);
+            varint(utf8.length + 1L);
+            bytes(utf8, 0, utf8.length);
+        }
+
+        void uuid(String value) throws IOException {
+            int nibble = -1;
+            for (int i = 0; i < 36; i++) {
+                char c = value.charAt(i);
+                if (c == '-') continue;
+                int v = Character.digit(c, 16);
+                if (nibble < 0) {
+                    nibble = v;
+                } else {
+                    write((nibble << 4) | v);
+                    nibble = -1;
+                }
+            }
+        }
+
+        void number(Object value) throws IOException {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                long v = ((Number) value).longValue();
+                if (v >= -SMALL_LONG && v < SMALL_LONG) {
+                    varint(((v << 1) ^ (v >> 63)) << 1);
+                } else {
+                    varint(3);
+                    fixed64(v);
+                }
+            } else {
+                varint(1);
+                fixed64(Double.doubleToLongBits(((Number) value).doubleValue()));
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+            sink.flush();
+        }
+
+        private void drain() throws IOException {
+            if (position > 0) sink.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private static final class Input {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        final InputStream source;
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int position;
+        int limit;
+        long count;
+
+        Input(InputStream source) {
+            this.source = source;
+        }
+
+        int read() throws IOException {
+            if (position == limit && !fill()) return -1;
+            count++;
+            return buffer[position++] & 0xff;
+        }
+
+        int require() throws IOException {
+            int b = read();
+            if (b < 0) throw new EOFException("Truncated snapshot");
+            return b;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = require();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new ExportSchema.Invalid("root", "malformed varint");
+        }
+
+        long zigzag() throws IOException {
+            long raw = varint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        long fixed64() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 8) value |= (long) require() << shift;
+            return value;
+        }
+
+        /** Table index of a ref; {@code size} means a new string follows. */
+        int refIndex(int size) throws IOException {
+            long raw = varint();
+            if (raw == 0) return size;
+            if (raw > size) throw new ExportSchema.Invalid("root", "bad string ref " + raw);
+            return (int) (raw - 1);
+        }
+
+        String text() throws IOException {
+            long header = varint();
+            if (header == 0) return uuid();
+            long length = header - 1;
+            if (length > Integer.MAX_VALUE) throw new ExportSchema.Invalid("root", "string too long");
+            int len = (int) length;
+            if (len <= limit - position) {
+                String s = new String(buffer, position, len, ExportStream.UTF_8);
+                position += len;
+                count += len;
+                return s;
+            }
+            byte[] utf8 = new byte[len];
+            for (int i = 0; i < len; i++) utf8[i] = (byte) require();
+            return new String(utf8, ExportStream.UTF_8);
+        }
+
+        String uuid() throws IOException {
+            char[] out = new char[36];
+            int o = 0;
+            for (int i = 0; i < 16; i++) {
+                if (i == 4 || i == 6 || i == 8 || i == 10) out[o++] = '-';
+                int b = require();
+                out[o++] = HEX[b >>> 4];
+                out[o++] = HEX[b & 0xF];
+            }
+            return new String(out);
+        }
+
+        Object number() throws IOException {
+            long header = varint();
+            if ((header & 1) == 0) {
+                long zz = header >>> 1;
+                return (zz >>> 1) ^ -(zz & 1);
+            }
+            if (header == 1) return Double.longBitsToDouble(fixed64());
+            if (header == 3) return fixed64();
+            throw new ExportSchema.Invalid("root", "bad number tag " + header);
+        }
+
+        private boolean fill() throws IOException {
+            if (position < limit) return true;
+            int n = source.read(buffer, 0, buffer.length);
+            if (n <= 0) return false;
+            position = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
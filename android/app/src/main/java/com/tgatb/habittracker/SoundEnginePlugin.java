@@ -0,0 +1,240 @@
+package com.tgatb.habittracker;
+
+import android.content.pm.PackageManager;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTimestamp;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginHandle;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Semantic sounds played natively instead of through the WebView's AudioContext.
+ *
+ * Every {@link SoundEvent} is rendered to PCM once at the output's native sample rate
+ * and kept in its own static {@link AudioTrack} on the low-latency path, so a tap only
+ * rewinds and starts a buffer. Static tracks (rather than SoundPool) expose
+ * {@link AudioTrack#getTimestamp}, which is how trigger-to-output latency is measured.
+ *
+ * {@code play} fires the sound and its haptic in one bridge call under one event id.
+ * The haptic is delayed by the median measured audio latency, so both reach the user
+ * together instead of the vibration leading.
+ */
+@CapacitorPlugin(name = "SoundEngine")
+public class SoundEnginePlugin extends Plugin {
+    static final long MAX_ALIGN_MS = 60L;
+    private static final long MEASURE_TIMEOUT_NANOS = 300_000_000L;
+    private static final long MEASURE_POLL_MS = 2L;
+
+    /** Renders the bank at load, then measures output timestamps off the bridge thread. */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+            runnable.run();
+        }, "sound-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final LatencyStats latency = new LatencyStats();
+    private volatile AudioTrack[] tracks;
+    /** Id of the latest play per track, so a stale measurement stops polling. */
+    private final long[] playIds = new long[SoundEvent.values().length];
+    private int sampleRate;
+    private volatile boolean alignHaptics = true;
+
+    @Override
+    public void load() {
+        sampleRate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+        EXECUTOR.execute(this::prepare);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        AudioTrack[] loaded = tracks;
+        tracks = null;
+        if (loaded != null) {
+            for (AudioTrack track : loaded) {
+                if (track != null) track.release();
+            }
+        }
+        super.handleOnDestroy();
+    }
+
+    @PluginMethod
+    public void isSupported(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("supported", tracks != null);
+        ret.put("sampleRate", sampleRate);
+        ret.put("lowLatency", getContext().getPackageManager()
+                .hasSystemFeature(PackageManager.FEATURE_AUDIO_LOW_LATENCY));
+        call.resolve(ret);
+    }
+
+    /**
+     * {@code {sound?, haptic?, profile?}} plays both now under one event id and resolves
+     * with {@code {id, sound, haptic, hapticDelayMs}}, the booleans saying what played.
+     */
+    @PluginMethod
+    public void play(PluginCall call) {
+        long triggered = System.nanoTime();
+        long id = nextId.incrementAndGet();
+        SoundEvent sound = SoundEvent.fromId(call.getString("sound"));
+        String haptic = call.getString("haptic");
+
+        boolean played = sound != null && start(sound, id, triggered);
+        long hapticDelayMs = 0L;
+        boolean vibrated = false;
+        if (haptic != null) {
+            long median = latency.medianNanos();
+            if (played && alignHaptics && median > 0) {
+                hapticDelayMs = Math.min(MAX_ALIGN_MS, median / 1_000_000L);
+            }
+            PremiumHapticsPlugin haptics = haptics();
+            vibrated = haptics != null && haptics.offerEvent(haptic, call.getString("profile"), hapticDelayMs);
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("id", id);
+        ret.put("sound", played);
+        ret.put("haptic", vibrated);
+        ret.put("hapticDelayMs", vibrated ? hapticDelayMs : 0L);
+        call.resolve(ret);
+    }
+
+    /** Whether haptics wait for the measured audio latency; on by default. */
+    @PluginMethod
+    public void setAlignHaptics(PluginCall call) {
+        alignHaptics = Boolean.TRUE.equals(call.getBoolean("enabled", true));
+        call.resolve();
+    }
+
+    /** Trigger-to-output latency over the last {@link LatencyStats#WINDOW} measured plays. */
+    @PluginMethod
+    public void getLatency(PluginCall call) {
+        LatencyStats.Snapshot snapshot = latency.snapshot();
+        JSObject ret = new JSObject();
+        ret.put("samples", snapshot.count);
+        ret.put("p50Ms", millis(snapshot.p50Nanos));
+        ret.put("p90Ms", millis(snapshot.p90Nanos));
+        ret.put("maxMs", millis(snapshot.maxNanos));
+        ret.put("lastId", snapshot.lastId);
+        ret.put("lastMs", millis(snapshot.lastNanos));
+        if (Boolean.TRUE.equals(call.getBoolean("reset", false))) {
+            latency.reset();
+        }
+        call.resolve(ret);
+    }
+
+    /** Rewinds and starts the sound's track; false until the bank is loaded or on failure. */
+    private boolean start(SoundEvent sound, long id, long triggered) {
+        AudioTrack[] loaded = tracks;
+        if (loaded == null) return false;
+        AudioTrack track = loaded[sound.ordinal()];
+        AudioTimestamp timestamp = new AudioTimestamp();
+        long baseFrames;
+        synchronized (track) {
+            try {
+                track.stop();
+                track.reloadStaticData();
+                baseFrames = track.getTimestamp(timestamp) ? timestamp.framePosition : 0L;
+                track.play();
+            } catch (IllegalStateException e) {
+                return false;
+            }
+            playIds[sound.ordinal()] = id;
+        }
+        EXECUTOR.execute(() -> measure(track, sound.ordinal(), id, triggered, baseFrames));
+        return true;
+    }
+
+    /** Polls the track's output timestamp until this play's first frame has been presented. */
+    private void measure(AudioTrack track, int index, long id, long triggered, long baseFrames) {
+        AudioTimestamp ts = new AudioTimestamp();
+        while (System.nanoTime() - triggered < MEASURE_TIMEOUT_NANOS) {
+            synchronized (track) {
+                if (playIds[index] != id || tracks == null) return;
+                if (track.getTimestamp(ts) && ts.framePosition > baseFrames) {
+                    long output = LatencyStats.outputStartNanos(ts.nanoTime, ts.framePosition, baseFrames, sampleRate);
+                    latency.record(id, output - triggered);
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(MEASURE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void prepare() {
+        SoundEvent[] events = SoundEvent.values();
+        AudioTrack[] built = new AudioTrack[events.length];
+        try {
+            AudioAttributes attributes = attributes();
+            AudioFormat format = new AudioFormat.Builder()
+                    .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                    .setSampleRate(sampleRate)
+                    .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                    .build();
+            for (SoundEvent event : events) {
+                short[] pcm = SoundSynth.render(event, sampleRate);
+                AudioTrack.Builder builder = new AudioTrack.Builder()
+                        .setAudioAttributes(attributes)
+                        .setAudioFormat(format)
+                        .setTransferMode(AudioTrack.MODE_STATIC)
+                        .setBufferSizeInBytes(pcm.length * 2);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+                }
+                AudioTrack track = builder.build();
+                built[event.ordinal()] = track;
+                if (track.write(pcm, 0, pcm.length) != pcm.length) {
+                    throw new IllegalStateException("Short write for " + event.id);
+                }
+            }
+            tracks = built;
+        } catch (RuntimeException e) {
+            // Leave tracks unset: lib/sound.ts keeps using the WebView.
+            for (AudioTrack track : built) {
+                if (track != null) track.release();
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static AudioAttributes attributes() {
+        AudioAttributes.Builder builder = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            // Replaced by the performance mode on O and later.
+            builder.setFlags(AudioAttributes.FLAG_LOW_LATENCY);
+        }
+        return builder.build();
+    }
+
+    private PremiumHapticsPlugin haptics() {
+        PluginHandle handle = getBridge().getPlugin("PremiumHaptics");
+        return handle != null ? (PremiumHapticsPlugin) handle.getInstance() : null;
+    }
+
+    private static double millis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tgatb.habittracker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Semantic sounds, keyed by the ids used in lib/sound.ts. Each is the same tone sequence
+ * the WebView synthesizes, so native and web playback sound alike.
+ */
+public enum SoundEvent {
+    SUCCESS("success",
+            tone(0, 523.25, 120, Wave.SINE, 0.12),
+            tone(100, 659.25, 180, Wave.SINE, 0.12)),
+    STREAK("streak",
+            tone(0, 523.25, 100, Wave.SINE, 0.10),
+            tone(80, 659.25, 100, Wave.SINE, 0.10),
+            tone(160, 783.99, 150, Wave.SINE, 0.12)),
+    VICTORY("victory",
+            tone(0, 523.25, 140, Wave.SINE, 0.14),
+            tone(120, 659.25, 140, Wave.SINE, 0.14),
+            tone(240, 783.99, 140, Wave.SINE, 0.14),
+            tone(360, 987.77, 200, Wave.SINE, 0.16),
+            tone(560, 1046.50, 200, Wave.SINE, 0.16)),
+    FAILURE("failure", tone(0, 330, 200, Wave.TRIANGLE, 0.10)),
+    ERROR("error", tone(0, 220, 150, Wave.SQUARE, 0.08)),
+    UNDO("undo", tone(0, 440, 100, Wave.SINE, 0.08)),
+    BUTTON("button", tone(0, 800, 50, Wave.SINE, 0.04));
+
+    public enum Wave { SINE, TRIANGLE, SQUARE }
+
+    /** One oscillator note: starts at {@code startMs}, decays exponentially from {@code volume}. */
+    public static final class Tone {
+        public final int startMs;
+        public final double frequency;
+        public final int durationMs;
+        public final Wave wave;
+        public final double volume;
+
+        Tone(int startMs, double frequency, int durationMs, Wave wave, double volume) {
+            this.startMs = startMs;
+            this.frequency = frequency;
+            this.durationMs = durationMs;
+            this.wave = wave;
+            this.volume = volume;
+        }
+    }
+
+    private static final Map<String, SoundEvent> BY_ID = new HashMap<>();
+
+    static {
+        for (SoundEvent event : values()) {
+            BY_ID.put(event.id, event);
+        }
+    }
+
+    public final String id;
+    private final Tone[] tones;
+
+    SoundEvent(String id, Tone... tones) {
+        this.id = id;
+        this.tones = tones;
+    }
+
+    public Tone[] tones() {
+        return tones.clone();
+    }
+
+    /** End of the last tone. */
+    public int durationMs() {
+        int end = 0;
+        for (Tone tone : tones) end = Math.max(end, tone.startMs + tone.durationMs);
+        return end;
+    }
+
+    /** Null for unknown ids: a sound is never substituted, unlike haptics. */
+    public static SoundEvent fromId(String id) {
+        return id != null ? BY_ID.get(id) : null;
+    }
+
+    private static Tone tone(int startMs, double frequency, int durationMs, Wave wave, double volume) {
+        return new Tone(startMs, frequency, durationMs, wave, volume);
+    }
+}
@@ -0,0 +1,77 @@
+package com.tgatb.habittracker;
+
+/**
+ * Renders {@link SoundEvent}s into 16-bit mono PCM once, at the output's native rate, so
+ * playback is a buffer copy rather than synthesis on the tap path.
+ *
+ * Mirrors the Web Audio graph in lib/sound.ts: each tone starts at its volume and ramps
+ * exponentially to 0.001 over its duration. Square and triangle waves are summed from
+ * their odd harmonics below Nyquist, like the browser's band-limited oscillators, so
+ * low notes do not alias. A 1 ms attack keeps the first sample from clicking.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class SoundSynth {
+    static final double RAMP_FLOOR = 0.001;
+    static final double ATTACK_MS = 1.0;
+
+    private SoundSynth() {}
+
+    public static short[] render(SoundEvent event, int sampleRate) {
+        if (sampleRate < 8000 || sampleRate > 192000) {
+            throw new IllegalArgumentException("Unsupported sample rate " + sampleRate);
+        }
+        double[] mix = new double[frames(event.durationMs(), sampleRate)];
+        for (SoundEvent.Tone tone : event.tones()) {
+            addTone(mix, tone, sampleRate);
+        }
+        short[] pcm = new short[mix.length];
+        for (int i = 0; i < mix.length; i++) {
+            double v = Math.max(-1.0, Math.min(1.0, mix[i]));
+            pcm[i] = (short) Math.round(v * Short.MAX_VALUE);
+        }
+        return pcm;
+    }
+
+    static int frames(int durationMs, int sampleRate) {
+        return (int) ((long) durationMs * sampleRate / 1000L);
+    }
+
+    private static void addTone(double[] mix, SoundEvent.Tone tone, int sampleRate) {
+        int start = frames(tone.startMs, sampleRate);
+        int length = Math.min(frames(tone.durationMs, sampleRate), mix.length - start);
+        double seconds = tone.durationMs / 1000.0;
+        // Per-sample decay factor of the exponential ramp to RAMP_FLOOR.
+        double decay = Math.pow(RAMP_FLOOR / tone.volume, 1.0 / (seconds * sampleRate));
+        double attack = ATTACK_MS * sampleRate / 1000.0;
+        double gain = tone.volume;
+        double step = 2 * Math.PI * tone.frequency / sampleRate;
+        int harmonics = (int) ((sampleRate / 2.0) / tone.frequency);
+        for (int i = 0; i < length; i++) {
+            double envelope = i < attack ? gain * (i / attack) : gain;
+            mix[start + i] += envelope * wave(tone.wave, step * i, harmonics);
+            gain *= decay;
+        }
+    }
+
+    /** One sample of a unit-amplitude wave at {@code phase}, using harmonics up to {@code harmonics}. */
+    static double wave(SoundEvent.Wave wave, double phase, int harmonics) {
+        switch (wave) {
+            case SQUARE: {
+                double sum = 0;
+                for (int n = 1; n <= harmonics; n += 2) sum += Math.sin(n * phase) / n;
+                return sum * 4 / Math.PI;
+            }
+            case TRIANGLE: {
+                double sum = 0;
+                double sign = 1;
+                for (int n = 1; n <= harmonics; n += 2) {
+                    sum += sign * Math.sin(n * phase) / ((double) n * n);
+                    sign = -sign;
+                }
+                return sum * 8 / (Math.PI * Math.PI);
+            }
+            default:
+                return Math.sin(phase);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rolling text log of finished startup traces, one run per line:
+ * {@code release \t wallClockMs \t cold \t totalMs \t name:startMs:durationMs,...}.
+ *
+ * Keeps the newest {@link #MAX_RUNS} lines so per-release percentiles survive several
+ * upgrades without the file growing without bound.
+ */
+public final class StartupTraceLog {
+    static final int MAX_RUNS = 200;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static final class Run {
+        public final String release;
+        public final long recordedAt;
+        public final boolean cold;
+        public final long totalMs;
+        public final List<StartupTracer.Span> spans;
+
+        public Run(String release, long recordedAt, boolean cold, long totalMs, List<StartupTracer.Span> spans) {
+            this.release = release;
+            this.recordedAt = recordedAt;
+            this.cold = cold;
+            this.totalMs = totalMs;
+            this.spans = spans;
+        }
+    }
+
+    public static final class Stats {
+        public final int runs;
+        public final long p50Ms;
+        public final long p95Ms;
+
+        Stats(int runs, long p50Ms, long p95Ms) {
+            this.runs = runs;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+        }
+    }
+
+    private final File file;
+
+    public StartupTraceLog(File file) {
+        this.file = file;
+    }
+
+    public synchronized void append(Run run) throws IOException {
+        List<String> lines = readLines();
+        String line = encode(run);
+        if (lines.size() >= MAX_RUNS) {
+            List<String> kept = new ArrayList<>(lines.subList(lines.size() - MAX_RUNS + 1, lines.size()));
+            kept.add(line);
+            rewrite(kept);
+            return;
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), UTF8)) {
+            out.write(line);
+            out.write('\n');
+        }
+    }
+
+    /** All parseable runs, oldest first; malformed lines (e.g. a torn write) are skipped. */
+    public synchronized List<Run> read() throws IOException {
+        List<Run> runs = new ArrayList<>();
+        for (String line : readLines()) {
+            Run run = decode(line);
+            if (run != null) runs.add(run);
+        }
+        return runs;
+    }
+
+    /** Cold-start percentiles for {@code release}, or across all releases when null. */
+    public Stats stats(String release) throws IOException {
+        List<Run> runs = read();
+        long[] totals = new long[runs.size()];
+        int n = 0;
+        for (Run run : runs) {
+            if (!run.cold) continue;
+            if (release != null && !release.equals(run.release)) continue;
+            totals[n++] = run.totalMs;
+        }
+        long[] sample = Arrays.copyOf(totals, n);
+        Arrays.sort(sample);
+        return new Stats(n, percentile(sample, 50), percentile(sample, 95));
+    }
+
+    public synchronized void clear() {
+        file.delete();
+    }
+
+    /** Nearest-rank percentile of an ascending array; 0 when empty. */
+    static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0L;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    static String encode(Run run) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(StartupTracer.sanitize(run.release)).append('\t')
+                .append(run.recordedAt).append('\t')
+                .append(run.cold ? '1' : '0').append('\t')
+                .append(run.totalMs).append('\t');
+        for (int i = 0; i < run.spans.size(); i++) {
+            StartupTracer.Span span = run.spans.get(i);
+            if (i > 0) sb.append(',');
+            sb.append(StartupTracer.sanitize(span.name)).append(':')
+                    .append(span.startMs).append(':').append(span.durationMs);
+        }
+        return sb.toString();
+    }
+
+    static Run decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length != 5) return null;
+        try {
+            List<StartupTracer.Span> spans = new ArrayList<>();
+            if (!parts[4].isEmpty()) {
+                for (String item : parts[4].split(",")) {
+                    String[] f = item.split(":");
+                    if (f.length != 3) return null;
+                    spans.add(new StartupTracer.Span(f[0], Long.parseLong(f[1]), Long.parseLong(f[2])));
+                }
+            }
+            return new Run(parts[0], Long.parseLong(parts[1]), "1".equals(parts[2]),
+                    Long.parseLong(parts[3]), spans);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<String> readLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) return lines;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void rewrite(List<String> lines) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), UTF8)) {
+            for (String line : lines) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+}
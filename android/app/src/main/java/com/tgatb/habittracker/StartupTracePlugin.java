@@ -0,0 +1,202 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@CapacitorPlugin(name = "StartupTrace")
+public class StartupTracePlugin extends Plugin {
+    private static final String TRACE_FILE = "startup_trace.log";
+    /** An activity created this long after process start was not a user-facing cold start. */
+    private static final long COLD_START_WINDOW_MS = 10_000L;
+
+    private static final StartupTracer TRACER = new StartupTracer(SystemClock::uptimeMillis, processStartUptime());
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static volatile boolean activityCreated;
+
+    /**
+     * Process start on API 24+. On API 23 the earliest point we can observe is this class
+     * loading, which happens at the top of MainActivity.onCreate.
+     */
+    private static long processStartUptime() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Process.getStartUptimeMillis();
+        }
+        return SystemClock.uptimeMillis();
+    }
+
+    public static StartupTracer tracer() {
+        return TRACER;
+    }
+
+    /**
+     * Called first thing in MainActivity.onCreate. Recreated activities, restored state and
+     * processes started for something else (a broadcast) are recorded but flagged warm.
+     */
+    public static void onActivityCreate(boolean restored) {
+        boolean first = !activityCreated;
+        activityCreated = true;
+        if (!first || restored || TRACER.elapsedMs() > COLD_START_WINDOW_MS) {
+            TRACER.markWarm();
+        }
+        TRACER.mark("activityCreate");
+    }
+
+    public static int begin(String name) {
+        return TRACER.begin(name);
+    }
+
+    public static void end(int token) {
+        TRACER.end(token);
+    }
+
+    @PluginMethod
+    public void getTimeline(PluginCall call) {
+        call.resolve(timeline());
+    }
+
+    /** Records a JS-side milestone (e.g. "hydrated") on the native timeline. */
+    @PluginMethod
+    public void mark(PluginCall call) {
+        String name = call.getString("name");
+        if (name == null) {
+            call.reject("name is required");
+            return;
+        }
+        TRACER.mark("js." + name);
+        JSObject ret = new JSObject();
+        ret.put("elapsedMs", TRACER.elapsedMs());
+        call.resolve(ret);
+    }
+
+    /** Closes the trace when the first screen is usable and appends it to the rolling log. */
+    @PluginMethod
+    public void markReady(PluginCall call) {
+        TRACER.mark("js.ready");
+        if (!TRACER.finish()) {
+            call.resolve(timeline());
+            return;
+        }
+        final Context app = getContext().getApplicationContext();
+        final JSObject timeline = timeline();
+        EXECUTOR.execute(() -> {
+            try {
+                log(app).append(new StartupTraceLog.Run(release(app), System.currentTimeMillis(),
+                        TRACER.isCold(), TRACER.totalMs(), TRACER.spans()));
+            } catch (Exception ignored) {
+                // Tracing must never affect startup.
+            }
+            call.resolve(timeline);
+        });
+    }
+
+    @PluginMethod
+    public void getHistory(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        final String release = call.getString("release");
+        final int limit = Math.max(1, call.getInt("limit", 20));
+        EXECUTOR.execute(() -> {
+            try {
+                List<StartupTraceLog.Run> runs = log(app).read();
+                JSArray out = new JSArray();
+                for (int i = runs.size() - 1; i >= 0 && out.length() < limit; i--) {
+                    StartupTraceLog.Run run = runs.get(i);
+                    if (release != null && !release.equals(run.release)) continue;
+                    JSObject item = new JSObject();
+                    item.put("release", run.release);
+                    item.put("recordedAt", run.recordedAt);
+                    item.put("cold", run.cold);
+                    item.put("totalMs", run.totalMs);
+                    item.put("spans", toJson(run.spans));
+                    out.put(item);
+                }
+                JSObject ret = new JSObject();
+                ret.put("runs", out);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to read startup history: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Cold-start p50/p95 for a release (defaults to the installed one). */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        final String requested = call.getString("release");
+        EXECUTOR.execute(() -> {
+            try {
+                String release = requested != null ? requested : release(app);
+                StartupTraceLog.Stats stats = log(app).stats(release);
+                JSObject ret = new JSObject();
+                ret.put("release", release);
+                ret.put("runs", stats.runs);
+                ret.put("p50Ms", stats.p50Ms);
+                ret.put("p95Ms", stats.p95Ms);
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to compute startup stats: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void clearHistory(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            log(app).clear();
+            call.resolve();
+        });
+    }
+
+    private static JSObject timeline() {
+        JSObject ret = new JSObject();
+        ret.put("cold", TRACER.isCold());
+        ret.put("finished", TRACER.isFinished());
+        ret.put("originUptimeMs", TRACER.originUptimeMs());
+        ret.put("totalMs", TRACER.totalMs());
+        ret.put("spans", toJson(TRACER.spans()));
+        return ret;
+    }
+
+    private static JSArray toJson(List<StartupTracer.Span> spans) {
+        JSArray out = new JSArray();
+        for (StartupTracer.Span span : spans) {
+            JSObject item = new JSObject();
+            item.put("name", span.name);
+            item.put("startMs", span.startMs);
+            item.put("durationMs", span.durationMs);
+            out.put(item);
+        }
+        return out;
+    }
+
+    private static StartupTraceLog log(Context context) {
+        return new StartupTraceLog(new File(context.getFilesDir(), TRACE_FILE));
+    }
+
+    @SuppressWarnings("deprecation")
+    static String release(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            long code = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P ? info.getLongVersionCode() : info.versionCode;
+            return info.versionName + "+" + code;
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
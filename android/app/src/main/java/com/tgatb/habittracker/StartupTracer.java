@@ -0,0 +1,130 @@
+package com.tgatb.habittracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the cold-start timeline as spans relative to process start.
+ *
+ * Timestamps come from a monotonic uptime clock, so spans recorded before the bridge
+ * exists (MainActivity) and after it (JS marks) share one axis. Storage is a fixed set
+ * of parallel arrays; spans past {@link #MAX_SPANS} are dropped rather than growing.
+ */
+public final class StartupTracer {
+    static final int MAX_SPANS = 64;
+    /** Returned by {@link #begin} when the tracer is full or finished. */
+    static final int NO_SPAN = -1;
+
+    /** Monotonic milliseconds; {@code SystemClock.uptimeMillis} on device. */
+    public interface Clock {
+        long uptimeMillis();
+    }
+
+    public static final class Span {
+        public final String name;
+        public final long startMs;
+        public final long durationMs;
+
+        public Span(String name, long startMs, long durationMs) {
+            this.name = name;
+            this.startMs = startMs;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private final Clock clock;
+    private final long originUptimeMs;
+    private final String[] names = new String[MAX_SPANS];
+    private final long[] starts = new long[MAX_SPANS];
+    private final long[] ends = new long[MAX_SPANS];
+    private int count;
+    private boolean cold = true;
+    private long finishedAt = -1L;
+
+    public StartupTracer(Clock clock, long originUptimeMs) {
+        this.clock = clock;
+        this.originUptimeMs = originUptimeMs;
+    }
+
+    public long originUptimeMs() {
+        return originUptimeMs;
+    }
+
+    /** Milliseconds since process start. */
+    public long elapsedMs() {
+        return clock.uptimeMillis() - originUptimeMs;
+    }
+
+    /** Opens a span; pass the token to {@link #end}. */
+    public synchronized int begin(String name) {
+        if (finishedAt >= 0 || count == MAX_SPANS) return NO_SPAN;
+        int token = count++;
+        names[token] = sanitize(name);
+        starts[token] = clock.uptimeMillis();
+        ends[token] = -1L;
+        return token;
+    }
+
+    public synchronized void end(int token) {
+        if (token < 0 || token >= count || ends[token] >= 0) return;
+        ends[token] = clock.uptimeMillis();
+    }
+
+    /** Records a zero-length span at the current instant. */
+    public synchronized void mark(String name) {
+        end(begin(name));
+    }
+
+    /** Flags the run as warm (or otherwise unrepresentative) so it is kept out of the stats. */
+    public synchronized void markWarm() {
+        cold = false;
+    }
+
+    public synchronized boolean isCold() {
+        return cold;
+    }
+
+    /**
+     * Closes the trace; later spans are ignored. Returns false if it was already finished,
+     * so only the first caller persists it.
+     */
+    public synchronized boolean finish() {
+        if (finishedAt >= 0) return false;
+        finishedAt = clock.uptimeMillis();
+        return true;
+    }
+
+    public synchronized boolean isFinished() {
+        return finishedAt >= 0;
+    }
+
+    /** Process start to {@link #finish}, or to now while the trace is still open. */
+    public synchronized long totalMs() {
+        return (finishedAt >= 0 ? finishedAt : clock.uptimeMillis()) - originUptimeMs;
+    }
+
+    /** Closed spans in start order; spans still open are reported up to now. */
+    public synchronized List<Span> spans() {
+        long now = finishedAt >= 0 ? finishedAt : clock.uptimeMillis();
+        List<Span> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long end = ends[i] >= 0 ? ends[i] : now;
+            out.add(new Span(names[i], starts[i] - originUptimeMs, end - starts[i]));
+        }
+        // Begin order already matches start order; stable sort guards cross-thread begins.
+        Collections.sort(out, (a, b) -> Long.compare(a.startMs, b.startMs));
+        return out;
+    }
+
+    /** Span names end up in a tab/comma/colon separated log line. */
+    static String sanitize(String name) {
+        if (name == null || name.isEmpty()) return "unnamed";
+        StringBuilder sb = new StringBuilder(Math.min(name.length(), 48));
+        for (int i = 0; i < name.length() && sb.length() < 48; i++) {
+            char c = name.charAt(i);
+            sb.append(c == '\t' || c == ',' || c == ':' || c == '\n' || c == '\r' ? '_' : c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,383 @@
+package com.tgatb.habittracker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental, schedule-aware streak tracking over per-habit day bitsets.
+ *
+ * Each habit keeps three {@code long[]} masks indexed by epoch day: expected (from its
+ * schedule), logged and successful. A streak run is a maximal sequence of expected days
+ * that are all successful, exactly as in {@code HabitStorage.countExpectedStreak} and the
+ * longest-streak loop of {@code getHabitStats}. A log mutation only re-measures the run
+ * around the touched day, so cost no longer grows with history length.
+ */
+public final class StreakEngine {
+    /** Matches the 365-day look-back of {@code countExpectedStreak}. */
+    static final int CURRENT_STREAK_WINDOW = 365;
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private final Map<String, HabitBits> habits = new HashMap<>();
+
+    /** Result of {@link #lastExpectedCheck}; mirrors {@code { date, log? }}. */
+    public static final class ExpectedCheck {
+        public final int epochDay;
+        public final boolean logged;
+        public final boolean completed;
+
+        ExpectedCheck(int epochDay, boolean logged, boolean completed) {
+            this.epochDay = epochDay;
+            this.logged = logged;
+            this.completed = completed;
+        }
+    }
+
+    /**
+     * Registers or updates a habit. Changing the schedule or type re-derives the masks,
+     * keeping existing logs.
+     */
+    public synchronized void setHabit(String habitId, boolean bad, HabitSchedule schedule, int createdDay) {
+        HabitBits bits = habits.get(habitId);
+        if (bits == null) {
+            habits.put(habitId, new HabitBits(bad, schedule, createdDay));
+            return;
+        }
+        bits.reconfigure(bad, schedule, createdDay);
+    }
+
+    public synchronized boolean hasHabit(String habitId) {
+        return habits.containsKey(habitId);
+    }
+
+    public synchronized void removeHabit(String habitId) {
+        habits.remove(habitId);
+    }
+
+    public synchronized void clear() {
+        habits.clear();
+    }
+
+    public synchronized void putLog(String habitId, int epochDay, boolean completed) {
+        HabitBits bits = habits.get(habitId);
+        if (bits != null) bits.put(epochDay, completed);
+    }
+
+    public synchronized void removeLog(String habitId, int epochDay) {
+        HabitBits bits = habits.get(habitId);
+        if (bits != null) bits.remove(epochDay);
+    }
+
+    public synchronized int currentStreak(String habitId, int today) {
+        HabitBits bits = habits.get(habitId);
+        return bits == null ? 0 : bits.currentStreak(today);
+    }
+
+    public synchronized int longestStreak(String habitId) {
+        HabitBits bits = habits.get(habitId);
+        return bits == null ? 0 : bits.longest();
+    }
+
+    /** Latest expected day on or before {@code today}, or null; see {@code getLastExpectedCheck}. */
+    public synchronized ExpectedCheck lastExpectedCheck(String habitId, int today) {
+        HabitBits bits = habits.get(habitId);
+        return bits == null ? null : bits.lastExpectedCheck(today);
+    }
+
+    private static final class HabitBits {
+        private boolean bad;
+        private HabitSchedule schedule;
+        private int createdDay;
+
+        /** Day of bit 0 in every mask. */
+        private int baseDay;
+        private long[] expected = new long[0];
+        private long[] logged = new long[0];
+        private long[] success = new long[0];
+        private int logCount;
+        private int firstLogDay = NO_DAY;
+
+        /** Multiset of run lengths, so the longest streak survives run splits. */
+        private final TreeMap<Integer, Integer> runLengths = new TreeMap<>();
+
+        HabitBits(boolean bad, HabitSchedule schedule, int createdDay) {
+            this.bad = bad;
+            this.schedule = schedule;
+            this.createdDay = createdDay;
+            this.baseDay = createdDay;
+        }
+
+        void reconfigure(boolean bad, HabitSchedule schedule, int createdDay) {
+            boolean flip = this.bad != bad;
+            this.bad = bad;
+            this.schedule = schedule;
+            this.createdDay = createdDay;
+            if (flip) {
+                // Success is the inverse of `completed` for bad habits.
+                for (int i = 0; i < success.length; i++) {
+                    success[i] = logged[i] & ~success[i];
+                }
+            }
+            schedule.fill(expected, baseDay, 0, expected.length);
+            rebuildRuns();
+        }
+
+        void put(int day, boolean completed) {
+            ensureRange(day, day);
+            int word = index(day) >>> 6;
+            long bit = 1L << (index(day) & 63);
+            boolean wasLogged = (logged[word] & bit) != 0;
+            boolean ok = bad != completed;
+            boolean wasOk = (success[word] & bit) != 0;
+
+            if (!wasLogged) {
+                logCount++;
+                if (firstLogDay == NO_DAY || day < firstLogDay) firstLogDay = day;
+            }
+            logged[word] |= bit;
+            if (ok == wasOk) return;
+            mutateSuccess(day, word, bit, ok);
+        }
+
+        void remove(int day) {
+            int i = index(day);
+            if (i < 0 || (i >>> 6) >= logged.length) return;
+            int word = i >>> 6;
+            long bit = 1L << (i & 63);
+            if ((logged[word] & bit) == 0) return;
+
+            logged[word] &= ~bit;
+            logCount--;
+            if (day == firstLogDay) firstLogDay = scanUp(logged, day + 1);
+            if ((success[word] & bit) != 0) {
+                mutateSuccess(day, word, bit, false);
+            }
+        }
+
+        /** Re-measures only the runs between the bad days surrounding {@code day}. */
+        private void mutateSuccess(int day, int word, long bit, boolean ok) {
+            if ((expected[word] & bit) == 0) {
+                // Non-expected days never take part in a run.
+                if (ok) success[word] |= bit; else success[word] &= ~bit;
+                return;
+            }
+            int lo = prevBad(day - 1);
+            int hi = nextBad(day + 1);
+            if (ok) {
+                dropRun(countExpected(lo + 1, day - 1));
+                dropRun(countExpected(day + 1, hi - 1));
+                success[word] |= bit;
+                addRun(countExpected(lo + 1, hi - 1));
+            } else {
+                dropRun(countExpected(lo + 1, hi - 1));
+                success[word] &= ~bit;
+                addRun(countExpected(lo + 1, day - 1));
+                addRun(countExpected(day + 1, hi - 1));
+            }
+        }
+
+        int longest() {
+            return runLengths.isEmpty() ? 0 : runLengths.lastKey();
+        }
+
+        int currentStreak(int today) {
+            if (logCount == 0) return 0;
+            ensureRange(today - CURRENT_STREAK_WINDOW - 1, today);
+            int start = today;
+            if (isSet(expected, today)) {
+                if (!isSet(logged, today)) {
+                    start = today - 1; // grace period for today
+                } else if (!isSet(success, today)) {
+                    return 0;
+                }
+            }
+            int floor = today - CURRENT_STREAK_WINDOW;
+            int boundary = Math.max(prevBad(start), floor - 1);
+            return countExpected(boundary + 1, start);
+        }
+
+        ExpectedCheck lastExpectedCheck(int today) {
+            int start = createdDay;
+            if (schedule.type == HabitSchedule.INTERVAL) start = Math.min(start, schedule.anchorDay);
+            if (firstLogDay != NO_DAY) start = Math.min(start, firstLogDay);
+            if (today < start) return null;
+
+            ensureRange(start, today);
+            int hit = scanDown(expected, today, start);
+            if (hit == NO_DAY) return null;
+            return new ExpectedCheck(hit, isSet(logged, hit), isSet(logged, hit) && (isSet(success, hit) != bad));
+        }
+
+        private void rebuildRuns() {
+            runLengths.clear();
+            int run = 0;
+            for (int w = 0; w < expected.length; w++) {
+                long exp = expected[w];
+                long ok = exp & success[w];
+                if (ok == exp) {
+                    run += Long.bitCount(exp);
+                    continue;
+                }
+                // Walk the bad bits of this word, closing a run at each one.
+                long badBits = exp & ~ok;
+                int from = 0;
+                while (badBits != 0) {
+                    int b = Long.numberOfTrailingZeros(badBits);
+                    run += Long.bitCount(exp & rangeMask(from, b));
+                    addRun(run);
+                    run = 0;
+                    from = b + 1;
+                    badBits &= badBits - 1;
+                }
+                run += Long.bitCount(exp & rangeMask(from, 64));
+            }
+            addRun(run);
+        }
+
+        private void addRun(int length) {
+            if (length <= 0) return;
+            // Not Map.merge: that is API 24 and minSdk is 23.
+            Integer count = runLengths.get(length);
+            runLengths.put(length, count == null ? 1 : count + 1);
+        }
+
+        private void dropRun(int length) {
+            if (length <= 0) return;
+            Integer count = runLengths.get(length);
+            if (count == null) return;
+            if (count == 1) runLengths.remove(length); else runLengths.put(length, count - 1);
+        }
+
+        /** Highest expected-but-unsuccessful day {@code <= day}, or one before the array. */
+        private int prevBad(int day) {
+            int i = Math.min(index(day), (expected.length << 6) - 1);
+            if (i < 0) return day;
+            int w = i >>> 6;
+            long mask = rangeMask(0, (i & 63) + 1);
+            while (w >= 0) {
+                long badBits = expected[w] & ~success[w] & mask;
+                if (badBits != 0) return baseDay + (w << 6) + 63 - Long.numberOfLeadingZeros(badBits);
+                mask = -1L;
+                w--;
+            }
+            return baseDay - 1;
+        }
+
+        /** Lowest expected-but-unsuccessful day {@code >= day}, or one past the array. */
+        private int nextBad(int day) {
+            int i = Math.max(index(day), 0);
+            int end = expected.length << 6;
+            if (i >= end) return day;
+            int w = i >>> 6;
+            long mask = -1L << (i & 63);
+            while (w < expected.length) {
+                long badBits = expected[w] & ~success[w] & mask;
+                if (badBits != 0) return baseDay + (w << 6) + Long.numberOfTrailingZeros(badBits);
+                mask = -1L;
+                w++;
+            }
+            return baseDay + end;
+        }
+
+        /** Popcount of expected days in {@code [from, to]}, clamped to the array. */
+        private int countExpected(int from, int to) {
+            int a = Math.max(index(from), 0);
+            int b = Math.min(index(to), (expected.length << 6) - 1);
+            if (a > b) return 0;
+            int wa = a >>> 6;
+            int wb = b >>> 6;
+            if (wa == wb) return Long.bitCount(expected[wa] & rangeMask(a & 63, (b & 63) + 1));
+            int count = Long.bitCount(expected[wa] & rangeMask(a & 63, 64));
+            for (int w = wa + 1; w < wb; w++) count += Long.bitCount(expected[w]);
+            return count + Long.bitCount(expected[wb] & rangeMask(0, (b & 63) + 1));
+        }
+
+        private int scanDown(long[] words, int fromDay, int floorDay) {
+            int i = index(fromDay);
+            int floor = Math.max(index(floorDay), 0);
+            if (i < floor) return NO_DAY;
+            int w = i >>> 6;
+            long mask = rangeMask(0, (i & 63) + 1);
+            while (w >= floor >>> 6) {
+                long hits = words[w] & mask;
+                if (w == floor >>> 6) hits &= rangeMask(floor & 63, 64);
+                if (hits != 0) return baseDay + (w << 6) + 63 - Long.numberOfLeadingZeros(hits);
+                mask = -1L;
+                w--;
+            }
+            return NO_DAY;
+        }
+
+        private int scanUp(long[] words, int fromDay) {
+            int i = Math.max(index(fromDay), 0);
+            int w = i >>> 6;
+            if (w >= words.length) return NO_DAY;
+            long mask = -1L << (i & 63);
+            while (w < words.length) {
+                long hits = words[w] & mask;
+                if (hits != 0) return baseDay + (w << 6) + Long.numberOfTrailingZeros(hits);
+                mask = -1L;
+                w++;
+            }
+            return NO_DAY;
+        }
+
+        /** Grows the masks to cover {@code [from, to]}; new words get the schedule's mask. */
+        private void ensureRange(int from, int to) {
+            if (expected.length == 0) {
+                baseDay = Math.min(baseDay, from);
+                allocate(((to - baseDay) >> 6) + 1, 0);
+                return;
+            }
+            if (from < baseDay) {
+                int prepend = ((baseDay - from) + 63) >> 6;
+                int oldLength = expected.length;
+                baseDay -= prepend << 6;
+                allocate(oldLength + prepend, prepend);
+                schedule.fill(expected, baseDay, 0, prepend);
+            }
+            int needed = ((to - baseDay) >> 6) + 1;
+            if (needed > expected.length) {
+                int oldLength = expected.length;
+                int grown = Math.max(needed, oldLength + (oldLength >> 1));
+                expected = Arrays.copyOf(expected, grown);
+                logged = Arrays.copyOf(logged, grown);
+                success = Arrays.copyOf(success, grown);
+                schedule.fill(expected, baseDay, oldLength, grown);
+            }
+        }
+
+        private void allocate(int words, int shift) {
+            long[] e = new long[words];
+            long[] l = new long[words];
+            long[] s = new long[words];
+            System.arraycopy(expected, 0, e, shift, expected.length);
+            System.arraycopy(logged, 0, l, shift, logged.length);
+            System.arraycopy(success, 0, s, shift, success.length);
+            expected = e;
+            logged = l;
+            success = s;
+            if (shift == 0) {
+                schedule.fill(expected, baseDay, 0, words);
+            }
+        }
+
+        private boolean isSet(long[] words, int day) {
+            int i = index(day);
+            if (i < 0 || (i >>> 6) >= words.length) return false;
+            return (words[i >>> 6] & (1L << (i & 63))) != 0;
+        }
+
+        private int index(int day) {
+            return day - baseDay;
+        }
+
+        /** Bits {@code [from, to)} of a word. */
+        private static long rangeMask(int from, int to) {
+            if (from >= to) return 0L;
+            long upper = to == 64 ? -1L : (1L << to) - 1;
+            return upper & (-1L << from);
+        }
+    }
+}
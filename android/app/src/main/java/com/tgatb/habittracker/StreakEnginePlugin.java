@@ -0,0 +1,198 @@
+package com.tgatb.habittracker;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.TimeZone;
+
+@CapacitorPlugin(name = "StreakEngine")
+public class StreakEnginePlugin extends Plugin {
+    private static final StreakEngine ENGINE = new StreakEngine();
+
+    /** Process-wide engine, shared with native code that mutates logs outside the bridge. */
+    public static StreakEngine engine() {
+        return ENGINE;
+    }
+
+    /** Replaces all engine state with the given habits and logs. */
+    @PluginMethod
+    public void load(PluginCall call) {
+        JSArray habits = call.getArray("habits");
+        JSArray logs = call.getArray("logs");
+        if (habits == null) {
+            call.reject("habits is required");
+            return;
+        }
+        try {
+            synchronized (ENGINE) {
+                ENGINE.clear();
+                for (int i = 0; i < habits.length(); i++) {
+                    applyHabit(habits.getJSONObject(i));
+                }
+                if (logs != null) {
+                    for (int i = 0; i < logs.length(); i++) {
+                        JSONObject log = logs.getJSONObject(i);
+                        ENGINE.putLog(log.getString("habitId"), EpochDays.parse(log.getString("date")),
+                                log.optBoolean("completed", false));
+                    }
+                }
+            }
+            call.resolve(streaksFor(habits, EpochDays.today()));
+        } catch (Exception e) {
+            call.reject("Failed to load streak state: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void setHabit(PluginCall call) {
+        JSObject habit = call.getObject("habit");
+        if (habit == null) {
+            call.reject("habit is required");
+            return;
+        }
+        try {
+            applyHabit(habit);
+            call.resolve(streaks(habit.getString("id"), EpochDays.today()));
+        } catch (Exception e) {
+            call.reject("Failed to update habit: " + e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void removeHabit(PluginCall call) {
+        String habitId = call.getString("habitId");
+        if (habitId == null) {
+            call.reject("habitId is required");
+            return;
+        }
+        ENGINE.removeHabit(habitId);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void putLog(PluginCall call) {
+        String habitId = call.getString("habitId");
+        String date = call.getString("date");
+        if (habitId == null || date == null) {
+            call.reject("habitId and date are required");
+            return;
+        }
+        try {
+            ENGINE.putLog(habitId, EpochDays.parse(date), call.getBoolean("completed", false));
+            call.resolve(streaks(habitId, EpochDays.today()));
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void removeLog(PluginCall call) {
+        String habitId = call.getString("habitId");
+        String date = call.getString("date");
+        if (habitId == null || date == null) {
+            call.reject("habitId and date are required");
+            return;
+        }
+        try {
+            ENGINE.removeLog(habitId, EpochDays.parse(date));
+            call.resolve(streaks(habitId, EpochDays.today()));
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getStreaks(PluginCall call) {
+        String habitId = call.getString("habitId");
+        if (habitId == null) {
+            call.reject("habitId is required");
+            return;
+        }
+        call.resolve(streaks(habitId, EpochDays.today()));
+    }
+
+    @PluginMethod
+    public void getLastExpectedCheck(PluginCall call) {
+        String habitId = call.getString("habitId");
+        if (habitId == null) {
+            call.reject("habitId is required");
+            return;
+        }
+        try {
+            String date = call.getString("date");
+            int reference = date != null ? EpochDays.parse(date) : EpochDays.today();
+            StreakEngine.ExpectedCheck check = ENGINE.lastExpectedCheck(habitId, reference);
+            JSObject ret = new JSObject();
+            if (check != null) {
+                ret.put("date", EpochDays.format(check.epochDay));
+                ret.put("logged", check.logged);
+                if (check.logged) ret.put("completed", check.completed);
+            }
+            call.resolve(ret);
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+        }
+    }
+
+    private static void applyHabit(JSONObject habit) throws JSONException {
+        ENGINE.setHabit(
+                habit.getString("id"),
+                "bad".equals(habit.optString("type")),
+                scheduleOf(habit),
+                EpochDays.fromMillis(habit.getLong("createdAt"), TimeZone.getDefault())
+        );
+    }
+
+    /**
+     * Builds the native schedule of a web habit whose dates are epoch millis. Mirrors
+     * {@code isExpectedDate}: intervals count from intervalStartDate, else createdAt.
+     */
+    static HabitSchedule scheduleOf(JSONObject habit) {
+        TimeZone zone = TimeZone.getDefault();
+        JSONObject schedule = habit.optJSONObject("schedule");
+        if (schedule == null) return HabitSchedule.daily();
+
+        long anchorMillis = habit.has("intervalStartDate") && !habit.isNull("intervalStartDate")
+                ? habit.optLong("intervalStartDate")
+                : habit.optLong("createdAt");
+        Integer intervalDays = schedule.has("intervalDays") && !schedule.isNull("intervalDays")
+                ? schedule.optInt("intervalDays")
+                : null;
+        JSONArray days = schedule.optJSONArray("daysOfWeek");
+        int[] daysOfWeek = null;
+        if (days != null) {
+            daysOfWeek = new int[days.length()];
+            for (int i = 0; i < days.length(); i++) {
+                daysOfWeek[i] = days.optInt(i, -1);
+            }
+        }
+        return HabitSchedule.of(schedule.optString("type", "daily"), intervalDays, daysOfWeek,
+                EpochDays.fromMillis(anchorMillis, zone));
+    }
+
+    private static JSObject streaks(String habitId, int today) {
+        JSObject ret = new JSObject();
+        ret.put("habitId", habitId);
+        ret.put("current", ENGINE.currentStreak(habitId, today));
+        ret.put("longest", ENGINE.longestStreak(habitId));
+        return ret;
+    }
+
+    private static JSObject streaksFor(JSArray habits, int today) throws JSONException {
+        JSArray out = new JSArray();
+        for (int i = 0; i < habits.length(); i++) {
+            out.put(streaks(habits.getJSONObject(i).getString("id"), today));
+        }
+        JSObject ret = new JSObject();
+        ret.put("streaks", out);
+        return ret;
+    }
+}
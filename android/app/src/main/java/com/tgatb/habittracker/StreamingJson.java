@@ -0,0 +1,504 @@
+package com.tgatb.habittracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal streaming JSON writer and pull reader, so exports and imports hold one record at
+ * a time rather than the whole document. Values map to {@code Map<String, Object>},
+ * {@code List<Object>}, {@code String}, {@code Long} (integral literals), {@code Double},
+ * {@code Boolean} and {@code null}. android.util.JsonReader/JsonWriter are not used so the
+ * export format can be unit-tested on the JVM.
+ */
+public final class StreamingJson {
+    private StreamingJson() {}
+
+    /** Thrown for malformed input, with the character offset where parsing stopped. */
+    public static final class SyntaxException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final long offset;
+
+        SyntaxException(String message, long offset) {
+            super(message + " at offset " + offset);
+            this.offset = offset;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Writer
+    // ---------------------------------------------------------------------
+
+    public static final class JsonWriter implements Closeable {
+        private final Writer out;
+        /** One entry per open container: true once it holds an element. */
+        private boolean[] nonEmpty = new boolean[16];
+        private int depth;
+        private boolean afterName;
+
+        public JsonWriter(Writer out) {
+            this.out = out;
+        }
+
+        public JsonWriter beginObject() throws IOException {
+            open('{');
+            return this;
+        }
+
+        public JsonWriter endObject() throws IOException {
+            close('}');
+            return this;
+        }
+
+        public JsonWriter beginArray() throws IOException {
+            open('[');
+            return this;
+        }
+
+        public JsonWriter endArray() throws IOException {
+            close(']');
+            return this;
+        }
+
+        public JsonWriter name(String name) throws IOException {
+            separate();
+            string(name);
+            out.write(':');
+            afterName = true;
+            return this;
+        }
+
+        public JsonWriter value(String value) throws IOException {
+            if (value == null) return nullValue();
+            separate();
+            string(value);
+            return this;
+        }
+
+        public JsonWriter value(long value) throws IOException {
+            separate();
+            out.write(Long.toString(value));
+            return this;
+        }
+
+        /** Formats like {@code JSON.stringify}: integral doubles without a fraction, no exponent. */
+        public JsonWriter value(double value) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) return nullValue();
+            separate();
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                out.write(Long.toString((long) value));
+            } else {
+                out.write(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+            }
+            return this;
+        }
+
+        public JsonWriter value(boolean value) throws IOException {
+            separate();
+            out.write(value ? "true" : "false");
+            return this;
+        }
+
+        public JsonWriter nullValue() throws IOException {
+            separate();
+            out.write("null");
+            return this;
+        }
+
+        /** Writes any value produced by {@link JsonReader#readValue()}. */
+        @SuppressWarnings("unchecked")
+        public JsonWriter writeValue(Object value) throws IOException {
+            if (value == null) return nullValue();
+            if (value instanceof String) return value((String) value);
+            if (value instanceof Boolean) return value(((Boolean) value).booleanValue());
+            if (value instanceof Long || value instanceof Integer) return value(((Number) value).longValue());
+            if (value instanceof Number) return value(((Number) value).doubleValue());
+            if (value instanceof Map) {
+                beginObject();
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                    name(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+                return endObject();
+            }
+            if (value instanceof List) {
+                beginArray();
+                for (Object item : (List<Object>) value) {
+                    writeValue(item);
+                }
+                return endArray();
+            }
+            throw new IllegalArgumentException("Unsupported JSON value " + value.getClass().getName());
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void open(char bracket) throws IOException {
+            separate();
+            out.write(bracket);
+            if (depth == nonEmpty.length) {
+                boolean[] grown = new boolean[depth * 2];
+                System.arraycopy(nonEmpty, 0, grown, 0, depth);
+                nonEmpty = grown;
+            }
+            nonEmpty[depth++] = false;
+        }
+
+        private void close(char bracket) throws IOException {
+            if (depth == 0) throw new IllegalStateException("Nothing to close");
+            depth--;
+            out.write(bracket);
+        }
+
+        private void separate() throws IOException {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            if (depth == 0) return;
+            if (nonEmpty[depth - 1]) out.write(',');
+            nonEmpty[depth - 1] = true;
+        }
+
+        private void string(String value) throws IOException {
+            out.write('"');
+            int length = value.length();
+            int run = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                String escape = null;
+                if (c == '"') escape = "\\\"";
+                else if (c == '\\') escape = "\\\\";
+                else if (c == '\n') escape = "\\n";
+                else if (c == '\r') escape = "\\r";
+                else if (c == '\t') escape = "\\t";
+                else if (c < 0x20) escape = String.format(Locale.US, "\\u%04x", (int) c);
+                if (escape == null) continue;
+                if (i > run) out.write(value, run, i - run);
+                out.write(escape);
+                run = i + 1;
+            }
+            if (length > run) out.write(value, run, length - run);
+            out.write('"');
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Reader
+    // ---------------------------------------------------------------------
+
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END }
+
+    public static final class JsonReader implements Closeable {
+        private static final int MAX_DEPTH = 64;
+
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private int pos;
+        private int limit;
+        private long consumed;
+
+        /** Per open container: 0 = expecting first element, 1 = after an element, 2 = after a name. */
+        private final int[] state = new int[MAX_DEPTH];
+        private final boolean[] isObject = new boolean[MAX_DEPTH];
+        private int depth;
+        private Token peeked;
+        private final StringBuilder scratch = new StringBuilder();
+
+        public JsonReader(Reader in) {
+            this.in = in;
+        }
+
+        /** Characters consumed so far. */
+        public long offset() {
+            return consumed - (limit - pos);
+        }
+
+        public Token peek() throws IOException {
+            if (peeked != null) return peeked;
+            int c = nextNonWhitespace();
+            if (depth > 0) {
+                int s = state[depth - 1];
+                if (isObject[depth - 1]) {
+                    if (s == 2) {
+                        if (c != ':') throw syntax("Expected ':'");
+                        c = nextNonWhitespace();
+                        state[depth - 1] = 1;
+                        return peeked = valueToken(c);
+                    }
+                    if (c == '}') return peeked = Token.END_OBJECT;
+                    if (s == 1) {
+                        if (c != ',') throw syntax("Expected ',' or '}'");
+                        c = nextNonWhitespace();
+                    }
+                    if (c != '"') throw syntax("Expected name");
+                    state[depth - 1] = 2;
+                    return peeked = Token.NAME;
+                }
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (s == 1) {
+                    if (c != ',') throw syntax("Expected ',' or ']'");
+                    c = nextNonWhitespace();
+                }
+                state[depth - 1] = 1;
+                return peeked = valueToken(c);
+            }
+            if (c == -1) return peeked = Token.END;
+            return peeked = valueToken(c);
+        }
+
+        public boolean hasNext() throws IOException {
+            Token token = peek();
+            return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END;
+        }
+
+        public void beginObject() throws IOException {
+            expect(Token.BEGIN_OBJECT);
+            push(true);
+        }
+
+        public void endObject() throws IOException {
+            expect(Token.END_OBJECT);
+            depth--;
+        }
+
+        public void beginArray() throws IOException {
+            expect(Token.BEGIN_ARRAY);
+            push(false);
+        }
+
+        public void endArray() throws IOException {
+            expect(Token.END_ARRAY);
+            depth--;
+        }
+
+        public String nextName() throws IOException {
+            expect(Token.NAME);
+            return readString();
+        }
+
+        public String nextString() throws IOException {
+            expect(Token.STRING);
+            return readString();
+        }
+
+        public boolean nextBoolean() throws IOException {
+            expect(Token.BOOLEAN);
+            String word = readWord();
+            if ("true".equals(word)) return true;
+            if ("false".equals(word)) return false;
+            throw syntax("Invalid literal " + word);
+        }
+
+        public void nextNull() throws IOException {
+            expect(Token.NULL);
+            if (!"null".equals(readWord())) throw syntax("Invalid literal");
+        }
+
+        /** {@code Long} for integral literals that fit, otherwise {@code Double}. */
+        public Number nextNumber() throws IOException {
+            expect(Token.NUMBER);
+            String literal = readWord();
+            try {
+                boolean integral = literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0;
+                if (integral && literal.length() < 19) return Long.parseLong(literal);
+                return Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                throw syntax("Invalid number " + literal);
+            }
+        }
+
+        /** Reads the next value (and everything nested in it) into maps and lists. */
+        public Object readValue() throws IOException {
+            switch (peek()) {
+                case BEGIN_OBJECT: {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    beginObject();
+                    while (hasNext()) {
+                        String name = nextName();
+                        map.put(name, readValue());
+                    }
+                    endObject();
+                    return map;
+                }
+                case BEGIN_ARRAY: {
+                    List<Object> list = new ArrayList<>();
+                    beginArray();
+                    while (hasNext()) {
+                        list.add(readValue());
+                    }
+                    endArray();
+                    return list;
+                }
+                case STRING:
+                    return nextString();
+                case NUMBER:
+                    return nextNumber();
+                case BOOLEAN:
+                    return nextBoolean();
+                case NULL:
+                    nextNull();
+                    return null;
+                default:
+                    throw syntax("Expected a value but was " + peek());
+            }
+        }
+
+        /** Skips the next value without materializing it. */
+        public void skipValue() throws IOException {
+            int target = depth;
+            do {
+                switch (peek()) {
+                    case BEGIN_OBJECT: beginObject(); break;
+                    case BEGIN_ARRAY: beginArray(); break;
+                    case END_OBJECT: endObject(); break;
+                    case END_ARRAY: endArray(); break;
+                    case NAME: nextName(); break;
+                    case STRING: nextString(); break;
+                    case NUMBER: nextNumber(); break;
+                    case BOOLEAN: nextBoolean(); break;
+                    case NULL: nextNull(); break;
+                    default: throw syntax("Unexpected end of input");
+                }
+            } while (depth > target);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void push(boolean object) throws IOException {
+            if (depth == MAX_DEPTH) throw syntax("Nesting too deep");
+            isObject[depth] = object;
+            state[depth] = 0;
+            depth++;
+        }
+
+        private void expect(Token token) throws IOException {
+            Token actual = peek();
+            if (actual != token) throw syntax("Expected " + token + " but was " + actual);
+            peeked = null;
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY
+                    || token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                pos++;
+            }
+        }
+
+        private Token valueToken(int c) throws IOException {
+            switch (c) {
+                case '{': return Token.BEGIN_OBJECT;
+                case '[': return Token.BEGIN_ARRAY;
+                case '"': return Token.STRING;
+                case 't':
+                case 'f': return Token.BOOLEAN;
+                case 'n': return Token.NULL;
+                case -1: throw syntax("Unexpected end of input");
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) return Token.NUMBER;
+                    throw syntax("Unexpected character '" + (char) c + "'");
+            }
+        }
+
+        /** Returns the next significant character without consuming it, or -1 at the end. */
+        private int nextNonWhitespace() throws IOException {
+            while (true) {
+                if (pos == limit && !fill()) return -1;
+                char c = buffer[pos];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    pos++;
+                    continue;
+                }
+                if (c == ',' || c == ':') {
+                    // Separators are consumed here; peek() re-checks them by state.
+                    pos++;
+                    return c;
+                }
+                return c;
+            }
+        }
+
+        private String readString() throws IOException {
+            pos++; // opening quote
+            scratch.setLength(0);
+            while (true) {
+                if (pos == limit && !fill()) throw syntax("Unterminated string");
+                char c = buffer[pos++];
+                if (c == '"') return scratch.toString();
+                if (c == '\\') {
+                    if (pos == limit && !fill()) throw syntax("Unterminated escape");
+                    char e = buffer[pos++];
+                    switch (e) {
+                        case '"': scratch.append('"'); break;
+                        case '\\': scratch.append('\\'); break;
+                        case '/': scratch.append('/'); break;
+                        case 'b': scratch.append('\b'); break;
+                        case 'f': scratch.append('\f'); break;
+                        case 'n': scratch.append('\n'); break;
+                        case 'r': scratch.append('\r'); break;
+                        case 't': scratch.append('\t'); break;
+                        case 'u': {
+                            int code = 0;
+                            for (int i = 0; i < 4; i++) {
+                                if (pos == limit && !fill()) throw syntax("Unterminated escape");
+                                int digit = Character.digit(buffer[pos++], 16);
+                                if (digit < 0) throw syntax("Invalid unicode escape");
+                                code = (code << 4) | digit;
+                            }
+                            scratch.append((char) code);
+                            break;
+                        }
+                        default:
+                            throw syntax("Invalid escape '\\" + e + "'");
+                    }
+                } else if (c < 0x20) {
+                    throw syntax("Control character in string");
+                } else {
+                    scratch.append(c);
+                }
+            }
+        }
+
+        /** Literal or number characters up to the next delimiter. */
+        private String readWord() throws IOException {
+            scratch.setLength(0);
+            while (true) {
+                if (pos == limit && !fill()) break;
+                char c = buffer[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ':') break;
+                scratch.append(c);
+                pos++;
+            }
+            if (scratch.length() == 0) throw syntax("Expected a literal");
+            return scratch.toString();
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) return false;
+            consumed += n;
+            pos = 0;
+            limit = n;
+            return true;
+        }
+
+        private SyntaxException syntax(String message) {
+            return new SyntaxException(message, offset());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.tgatb.habittracker;
+
+/**
+ * Decides which window operations move the system bars from the applied
+ * {@link SystemUiState} to the requested one, and issues them in a fixed order.
+ *
+ * The operations go through two thin interfaces standing in for {@code Window} (plus its
+ * decor view) and {@code WindowInsetsControllerCompat}, implemented by
+ * {@code SystemUiPlugin} on device and by recording fakes in tests and benchmarks.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class SystemUiApplier {
+    /** Window and decor view operations. */
+    public interface Bars {
+        /** Edge-to-edge layout when fullscreen (a no-op on Android 15+). */
+        void setEdgeToEdge(boolean fullscreen);
+
+        void setBarColor(int color);
+
+        boolean barsVisible();
+
+        /** Legacy immersive visibility flags, keeping the light-bar bits. */
+        void setImmersiveFlags();
+
+        /** Resets visibility flags to layout-stable and drops the rehide listener. */
+        void clearImmersiveFlags();
+
+        /** Re-hides bars the system reveals while fullscreen. */
+        void addRehideListener();
+
+        void setLegacyLightFlags(boolean darkIcons);
+
+        void requestApplyInsets();
+    }
+
+    /** Insets controller operations. */
+    public interface Controller {
+        void setTransientBarsBehavior();
+
+        void hideBars();
+
+        void showBars();
+
+        /** Dark icons on light bars when {@code darkIcons}. */
+        void setLightAppearance(boolean darkIcons);
+    }
+
+    private SystemUiApplier() {}
+
+    /**
+     * Issues what it takes to go from {@code previous} (null for a new window) to
+     * {@code state}; returns the {@code CHANGED_*} flags acted on.
+     */
+    public static int apply(Bars bars, Controller controller, SystemUiState state, SystemUiState previous) {
+        int changed = state.diff(previous);
+        boolean fullscreenChanged = (changed & SystemUiState.CHANGED_FULLSCREEN) != 0;
+        if (fullscreenChanged) {
+            // Entering/exiting rewrites the decor visibility flags, dropping the legacy light flags.
+            changed |= SystemUiState.CHANGED_ICONS;
+            bars.setEdgeToEdge(state.fullscreen);
+            controller.setTransientBarsBehavior();
+        }
+        if ((changed & SystemUiState.CHANGED_BAR_COLOR) != 0) {
+            bars.setBarColor(state.barColor); // recolor first
+        }
+        if (fullscreenChanged) {
+            if (state.fullscreen) {
+                hideBars(bars, controller);
+                bars.addRehideListener();
+            } else {
+                controller.showBars();
+                bars.clearImmersiveFlags();
+            }
+        } else if (state.fullscreen && bars.barsVisible()) {
+            // Bars revealed by the system (dialog, swipe) while we were unfocused.
+            hideBars(bars, controller);
+        }
+        if ((changed & SystemUiState.CHANGED_ICONS) != 0) {
+            controller.setLightAppearance(state.darkIcons);
+            bars.setLegacyLightFlags(state.darkIcons);
+        }
+        if (fullscreenChanged) {
+            bars.requestApplyInsets();
+        }
+        return changed;
+    }
+
+    private static void hideBars(Bars bars, Controller controller) {
+        controller.hideBars();
+        bars.setImmersiveFlags();
+    }
+}
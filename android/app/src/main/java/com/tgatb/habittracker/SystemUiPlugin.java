@@ -1,7 +1,6 @@
 package com.tgatb.habittracker;
 
 import android.app.Activity;
-import android.graphics.Color;
 import android.os.Build;
 import android.view.View;
 import android.view.Window;
@@ -16,159 +15,273 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.PluginMethod;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
 @CapacitorPlugin(name = "SystemUi")
 public class SystemUiPlugin extends Plugin {
-    private static boolean fullscreenEnabled = false;
-    private static boolean darkModeEnabled = false;
-    private static final String PURPLE = "#6750A4"; // match web constant
-    private static final String LIGHT_SURFACE = "#FFFFFF";
-    private static final String DARK_SURFACE = "#201E24";
+    // Written from the bridge thread, read on the UI thread.
+    private static final AtomicReference<SystemUiState> REQUESTED = new AtomicReference<>(SystemUiState.DEFAULT);
+
+    // Last state pushed to a window; only touched on the UI thread. A new window (activity
+    // recreation) starts from scratch, so every operation is issued once for it.
+    private static WeakReference<Window> appliedWindow = new WeakReference<>(null);
+    private static SystemUiState applied;
+
+    private static final String EVENT_IME_INSETS = "imeInsets";
+    private static volatile SystemUiPlugin instance;
+    private static volatile JSObject lastImeInsets;
+
+    @Override
+    public void load() {
+        instance = this;
+    }
 
     @PluginMethod
     public void setFullscreen(PluginCall call) {
         boolean enabled = call.getBoolean("enabled", false);
-        boolean darkMode = call.getBoolean("darkMode", darkModeEnabled);
-        fullscreenEnabled = enabled;
-        darkModeEnabled = darkMode;
+        Boolean darkMode = call.getBoolean("darkMode");
+        SystemUiState current;
+        SystemUiState state;
+        do {
+            // CAS loop rather than updateAndGet, which needs API 24.
+            current = REQUESTED.get();
+            state = current.withFullscreen(enabled);
+            if (darkMode != null) state = state.withDarkMode(darkMode);
+        } while (!REQUESTED.compareAndSet(current, state));
         Activity activity = getActivity();
         if (activity != null) {
             activity.runOnUiThread(() -> applySystemUi(activity));
         }
         JSObject ret = new JSObject();
-        ret.put("enabled", fullscreenEnabled);
-        ret.put("darkMode", darkModeEnabled);
+        ret.put("enabled", state.fullscreen);
+        ret.put("darkMode", state.darkMode);
         call.resolve(ret);
     }
 
     @PluginMethod
     public void getFullscreen(PluginCall call) {
         JSObject ret = new JSObject();
-        ret.put("enabled", fullscreenEnabled);
+        ret.put("enabled", REQUESTED.get().fullscreen);
         call.resolve(ret);
     }
 
     @PluginMethod
     public void refreshInsets(PluginCall call) {
-        Activity activity = getActivity();
-        if (activity != null) {
-            activity.runOnUiThread(() -> {
-                View root = activity.findViewById(android.R.id.content);
-                if (root != null) {
-                    ViewCompat.requestApplyInsets(root);
-                }
-            });
-        }
+        requestInsets(getActivity());
         call.resolve();
     }
 
+    /** Posts an insets pass for the content root; shared with NativeBatch. */
+    static boolean requestInsets(Activity activity) {
+        if (activity == null) return false;
+        activity.runOnUiThread(() -> {
+            View root = activity.findViewById(android.R.id.content);
+            if (root != null) {
+                ViewCompat.requestApplyInsets(root);
+            }
+        });
+        return true;
+    }
+
+    /** Latest keyboard inset, in CSS pixels, as last pushed through the imeInsets event. */
+    @PluginMethod
+    public void getImeInsets(PluginCall call) {
+        JSObject last = lastImeInsets;
+        call.resolve(last != null ? last : imeInsets(0, 0, false, false));
+    }
+
+    /**
+     * Called at most once per frame by the IME animator. {@code bottom} follows the
+     * animation; {@code committedBottom} is the padding the WebView currently has.
+     */
+    static void publishImeInsets(int bottom, int committedBottom, boolean visible, boolean animating) {
+        JSObject data = imeInsets(bottom, committedBottom, visible, animating);
+        lastImeInsets = data;
+        SystemUiPlugin plugin = instance;
+        if (plugin != null) {
+            plugin.notifyListeners(EVENT_IME_INSETS, data);
+        }
+    }
+
+    private static JSObject imeInsets(int bottom, int committedBottom, boolean visible, boolean animating) {
+        JSObject data = new JSObject();
+        data.put("bottom", bottom);
+        data.put("committedBottom", committedBottom);
+        data.put("visible", visible);
+        data.put("animating", animating);
+        return data;
+    }
+
     public static void reapply(Activity activity) {
         if (activity == null) return;
         activity.runOnUiThread(() -> applySystemUi(activity));
     }
 
-    public static boolean isFullscreenEnabled() { return fullscreenEnabled; }
+    public static boolean isFullscreenEnabled() { return REQUESTED.get().fullscreen; }
+
+    public static SystemUiState currentState() { return REQUESTED.get(); }
 
     private static void applySystemUi(Activity activity) {
         final Window window = activity.getWindow();
         final View decor = window.getDecorView();
         final WindowInsetsControllerCompat controller = WindowCompat.getInsetsController(window, decor);
+        final SystemUiState state = REQUESTED.get();
 
-        configureEdgeToEdge(window);
-        applyColorsAndAppearance(window, controller); // recolor first
-        configureControllerBehavior(controller);
+        SystemUiState previous = appliedWindow.get() == window ? applied : null;
+        SystemUiApplier.apply(new WindowBars(activity, window, controller), new CompatController(controller), state, previous);
 
-        if (fullscreenEnabled) {
-            enterFullscreen(decor, controller);
-        } else {
-            exitFullscreen(decor, controller);
+        applied = state;
+        if (previous == null) {
+            appliedWindow = new WeakReference<>(window);
         }
+    }
 
-        View root = activity.findViewById(android.R.id.content);
-        if (root != null) {
-            ViewCompat.requestApplyInsets(root);
+    /** {@link SystemUiApplier.Bars} on a real window and its decor view. */
+    private static final class WindowBars implements SystemUiApplier.Bars {
+        private final Activity activity;
+        private final Window window;
+        private final View decor;
+        private final WindowInsetsControllerCompat controller;
+
+        WindowBars(Activity activity, Window window, WindowInsetsControllerCompat controller) {
+            this.activity = activity;
+            this.window = window;
+            this.decor = window.getDecorView();
+            this.controller = controller;
         }
-    }
 
-    private static void configureEdgeToEdge(Window window) {
-        if (Build.VERSION.SDK_INT < 35) {
-            WindowCompat.setDecorFitsSystemWindows(window, !fullscreenEnabled);
-        } else {
-            // Android 15+ defaults to edge-to-edge; avoid using deprecated setDecorFitsSystemWindows.
-            // Keep fullscreen semantics via insets and controller behavior.
+        @Override
+        public void setEdgeToEdge(boolean fullscreen) {
+            if (Build.VERSION.SDK_INT < 35) {
+                WindowCompat.setDecorFitsSystemWindows(window, !fullscreen);
+            } else {
+                // Android 15+ defaults to edge-to-edge; avoid using deprecated setDecorFitsSystemWindows.
+                // Keep fullscreen semantics via insets and controller behavior.
+            }
         }
-    }
 
-    private static void configureControllerBehavior(WindowInsetsControllerCompat controller) {
-        if (controller != null) {
-            controller.setSystemBarsBehavior(WindowInsetsControllerCompat.BEHAVIOR_SHOW_TRANSIENT_BARS_BY_SWIPE);
+        @Override
+        public void setBarColor(int color) {
+            applyBarColors(window, color);
         }
-    }
 
-    private static void enterFullscreen(View decor, WindowInsetsControllerCompat controller) {
-        if (controller != null) {
-            controller.hide(WindowInsetsCompat.Type.statusBars());
-            controller.hide(WindowInsetsCompat.Type.navigationBars());
+        @Override
+        public boolean barsVisible() {
+            WindowInsetsCompat insets = ViewCompat.getRootWindowInsets(decor);
+            if (insets == null) return true;
+            return insets.isVisible(WindowInsetsCompat.Type.statusBars())
+                    || insets.isVisible(WindowInsetsCompat.Type.navigationBars());
         }
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
-            int flags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE |
-                    View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN |
-                    View.SYSTEM_UI_FLAG_FULLSCREEN |
-                    View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION |
-                    View.SYSTEM_UI_FLAG_HIDE_NAVIGATION |
-                    View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY;
-            decor.setSystemUiVisibility(flags);
+
+        @Override
+        public void setImmersiveFlags() {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+                int flags = View.SYSTEM_UI_FLAG_LAYOUT_STABLE |
+                        View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN |
+                        View.SYSTEM_UI_FLAG_FULLSCREEN |
+                        View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION |
+                        View.SYSTEM_UI_FLAG_HIDE_NAVIGATION |
+                        View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY;
+                // Preserve the light-bar bits so a rehide does not flip icon appearance.
+                int light = decor.getSystemUiVisibility() & (View.SYSTEM_UI_FLAG_LIGHT_STATUS_BAR
+                        | View.SYSTEM_UI_FLAG_LIGHT_NAVIGATION_BAR);
+                decor.setSystemUiVisibility(flags | light);
+            }
+        }
+
+        @Override
+        public void clearImmersiveFlags() {
+            decor.setSystemUiVisibility(View.SYSTEM_UI_FLAG_LAYOUT_STABLE);
+            decor.setOnSystemUiVisibilityChangeListener(null);
+        }
+
+        @Override
+        public void addRehideListener() {
+            decor.setOnSystemUiVisibilityChangeListener(visibility -> {
+                if (!isFullscreenEnabled()) return;
+                boolean statusVisible = (visibility & View.SYSTEM_UI_FLAG_FULLSCREEN) == 0;
+                boolean navVisible = (visibility & View.SYSTEM_UI_FLAG_HIDE_NAVIGATION) == 0;
+                boolean needsRehide = (statusVisible || navVisible) && controller != null;
+                if (needsRehide) {
+                    decor.postDelayed(() -> {
+                        if (isFullscreenEnabled()) {
+                            controller.hide(WindowInsetsCompat.Type.statusBars());
+                            controller.hide(WindowInsetsCompat.Type.navigationBars());
+                        }
+                    }, 1000);
+                }
+            });
         }
-        addRehideListener(decor, controller);
-    }
 
-    private static void addRehideListener(View decor, WindowInsetsControllerCompat controller) {
-        decor.setOnSystemUiVisibilityChangeListener(visibility -> {
-            if (!fullscreenEnabled) return;
-            boolean statusVisible = (visibility & View.SYSTEM_UI_FLAG_FULLSCREEN) == 0;
-            boolean navVisible = (visibility & View.SYSTEM_UI_FLAG_HIDE_NAVIGATION) == 0;
-            boolean needsRehide = (statusVisible || navVisible) && controller != null;
-            if (needsRehide) {
-                decor.postDelayed(() -> {
-                    if (fullscreenEnabled) {
-                        controller.hide(WindowInsetsCompat.Type.statusBars());
-                        controller.hide(WindowInsetsCompat.Type.navigationBars());
-                    }
-                }, 1000);
+        @Override
+        public void setLegacyLightFlags(boolean darkIcons) {
+            int vis = decor.getSystemUiVisibility();
+            if (darkIcons) {
+                vis |= View.SYSTEM_UI_FLAG_LIGHT_STATUS_BAR;
+            } else {
+                vis &= ~View.SYSTEM_UI_FLAG_LIGHT_STATUS_BAR;
             }
-        });
-    }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                if (darkIcons) {
+                    vis |= View.SYSTEM_UI_FLAG_LIGHT_NAVIGATION_BAR;
+                } else {
+                    vis &= ~View.SYSTEM_UI_FLAG_LIGHT_NAVIGATION_BAR;
+                }
+            }
+            decor.setSystemUiVisibility(vis);
+        }
 
-    private static void exitFullscreen(View decor, WindowInsetsControllerCompat controller) {
-        if (controller != null) {
-            controller.show(WindowInsetsCompat.Type.statusBars());
-            controller.show(WindowInsetsCompat.Type.navigationBars());
+        @Override
+        public void requestApplyInsets() {
+            View root = activity.findViewById(android.R.id.content);
+            if (root != null) {
+                ViewCompat.requestApplyInsets(root);
+            }
         }
-        decor.setSystemUiVisibility(View.SYSTEM_UI_FLAG_LAYOUT_STABLE);
-        decor.setOnSystemUiVisibilityChangeListener(null);
     }
 
-    private static void applyColorsAndAppearance(Window window, WindowInsetsControllerCompat controller) {
-        // Fullscreen with theme, or non-fullscreen with purple
-        int barColor;
-        boolean useDarkIcons;
-        
-        if (fullscreenEnabled) {
-            // Fullscreen mode: use theme-aware colors
-            barColor = darkModeEnabled ? parseColor(DARK_SURFACE) : parseColor(LIGHT_SURFACE);
-            useDarkIcons = !darkModeEnabled; // light theme = dark icons, dark theme = light icons
-        } else {
-            // Non-fullscreen mode: use purple
-            barColor = parseColor(PURPLE);
-            useDarkIcons = false; // purple background = light icons
+    /** {@link SystemUiApplier.Controller} on the compat insets controller, which may be missing. */
+    private static final class CompatController implements SystemUiApplier.Controller {
+        private final WindowInsetsControllerCompat controller;
+
+        CompatController(WindowInsetsControllerCompat controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public void setTransientBarsBehavior() {
+            if (controller != null) {
+                controller.setSystemBarsBehavior(WindowInsetsControllerCompat.BEHAVIOR_SHOW_TRANSIENT_BARS_BY_SWIPE);
+            }
         }
-        
-        applyBarColors(window, barColor);
-        applyIconAppearance(controller, useDarkIcons);
-        setLegacyLightFlags(window, useDarkIcons);
-    }
 
-    private static int parseColor(String color) {
-        try { return Color.parseColor(color); } catch (Exception e) { return Color.BLACK; }
+        @Override
+        public void hideBars() {
+            if (controller != null) {
+                controller.hide(WindowInsetsCompat.Type.statusBars());
+                controller.hide(WindowInsetsCompat.Type.navigationBars());
+            }
+        }
+
+        @Override
+        public void showBars() {
+            if (controller != null) {
+                controller.show(WindowInsetsCompat.Type.statusBars());
+                controller.show(WindowInsetsCompat.Type.navigationBars());
+            }
+        }
+
+        @Override
+        public void setLightAppearance(boolean darkIcons) {
+            if (controller == null) return;
+            // If darkIcons=true: set light appearance (dark icons on light background)
+            // If darkIcons=false: set dark appearance (light icons on dark background)
+            controller.setAppearanceLightStatusBars(darkIcons);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                controller.setAppearanceLightNavigationBars(darkIcons);
+            }
+        }
     }
 
     private static void applyBarColors(Window window, int purple) {
@@ -206,32 +319,4 @@ public class SystemUiPlugin extends Plugin {
             }
         }
     }
-
-    private static void applyIconAppearance(WindowInsetsControllerCompat controller, boolean useDarkIcons) {
-        if (controller == null) return;
-        // If useDarkIcons=true: set light appearance (dark icons on light background)
-        // If useDarkIcons=false: set dark appearance (light icons on dark background)
-        controller.setAppearanceLightStatusBars(useDarkIcons);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            controller.setAppearanceLightNavigationBars(useDarkIcons);
-        }
-    }
-
-    private static void setLegacyLightFlags(Window window, boolean useDarkIcons) {
-        View decor = window.getDecorView();
-        int vis = decor.getSystemUiVisibility();
-        if (useDarkIcons) {
-            vis |= View.SYSTEM_UI_FLAG_LIGHT_STATUS_BAR;
-        } else {
-            vis &= ~View.SYSTEM_UI_FLAG_LIGHT_STATUS_BAR;
-        }
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            if (useDarkIcons) {
-                vis |= View.SYSTEM_UI_FLAG_LIGHT_NAVIGATION_BAR;
-            } else {
-                vis &= ~View.SYSTEM_UI_FLAG_LIGHT_NAVIGATION_BAR;
-            }
-        }
-        decor.setSystemUiVisibility(vis);
-    }
 }
@@ -0,0 +1,83 @@
+package com.tgatb.habittracker;
+
+/**
+ * Immutable snapshot of what the system bars should look like.
+ *
+ * Bar color and icon appearance are derived from the fullscreen/dark-mode pair, so two
+ * states can be diffed field by field to decide which window operations to issue.
+ */
+public final class SystemUiState {
+    public static final int PURPLE = 0xFF6750A4; // match web constant
+    public static final int LIGHT_SURFACE = 0xFFFFFFFF;
+    public static final int DARK_SURFACE = 0xFF201E24;
+
+    /** Fullscreen toggled: edge-to-edge, bar visibility, rehide listener and insets. */
+    public static final int CHANGED_FULLSCREEN = 1;
+    public static final int CHANGED_BAR_COLOR = 1 << 1;
+    public static final int CHANGED_ICONS = 1 << 2;
+    public static final int CHANGED_ALL = CHANGED_FULLSCREEN | CHANGED_BAR_COLOR | CHANGED_ICONS;
+
+    public static final SystemUiState DEFAULT = of(false, false);
+
+    public final boolean fullscreen;
+    public final boolean darkMode;
+    public final int barColor;
+    /** True for dark icons on a light bar. */
+    public final boolean darkIcons;
+
+    private SystemUiState(boolean fullscreen, boolean darkMode, int barColor, boolean darkIcons) {
+        this.fullscreen = fullscreen;
+        this.darkMode = darkMode;
+        this.barColor = barColor;
+        this.darkIcons = darkIcons;
+    }
+
+    /** Fullscreen follows the theme surface; otherwise bars are purple with light icons. */
+    public static SystemUiState of(boolean fullscreen, boolean darkMode) {
+        if (fullscreen) {
+            return new SystemUiState(true, darkMode, darkMode ? DARK_SURFACE : LIGHT_SURFACE, !darkMode);
+        }
+        return new SystemUiState(false, darkMode, PURPLE, false);
+    }
+
+    public SystemUiState withFullscreen(boolean enabled) {
+        return enabled == fullscreen ? this : of(enabled, darkMode);
+    }
+
+    public SystemUiState withDarkMode(boolean enabled) {
+        return enabled == darkMode ? this : of(fullscreen, enabled);
+    }
+
+    /** Bitmask of {@code CHANGED_*} flags relative to {@code applied}; all flags when null. */
+    public int diff(SystemUiState applied) {
+        if (applied == null) return CHANGED_ALL;
+        int changed = 0;
+        if (fullscreen != applied.fullscreen) changed |= CHANGED_FULLSCREEN;
+        if (barColor != applied.barColor) changed |= CHANGED_BAR_COLOR;
+        if (darkIcons != applied.darkIcons) changed |= CHANGED_ICONS;
+        return changed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SystemUiState)) return false;
+        SystemUiState other = (SystemUiState) o;
+        return fullscreen == other.fullscreen && darkMode == other.darkMode
+                && barColor == other.barColor && darkIcons == other.darkIcons;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = barColor;
+        h = 31 * h + (fullscreen ? 1 : 0);
+        h = 31 * h + (darkMode ? 1 : 0);
+        return 31 * h + (darkIcons ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "SystemUiState{fullscreen=" + fullscreen + ", darkMode=" + darkMode
+                + ", barColor=#" + Integer.toHexString(barColor) + ", darkIcons=" + darkIcons + "}";
+    }
+}
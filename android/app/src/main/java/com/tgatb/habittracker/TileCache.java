@@ -0,0 +1,183 @@
+package com.tgatb.habittracker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-level LRU of encoded image tiles: a byte budget in memory and another on disk, one
+ * file per key. Disk recency is the file's modification time, refreshed on every hit, so
+ * the order survives restarts. Keys must be safe file names.
+ * This class has no Android dependencies so it can be unit-tested on the JVM.
+ */
+public final class TileCache {
+    static final String SUFFIX = ".png";
+
+    private final File dir;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes = -1;
+
+    public TileCache(File dir, long maxMemoryBytes, long maxDiskBytes) {
+        this.dir = dir;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /** Encoded tile from memory, falling back to disk (and promoting it). Null on a miss. */
+    public synchronized byte[] get(String key) {
+        byte[] data = memory.get(key);
+        if (data != null) return data;
+        File file = fileFor(key);
+        if (!file.isFile()) return null;
+        try {
+            data = readFully(file);
+        } catch (IOException e) {
+            return null;
+        }
+        touch(file);
+        remember(key, data);
+        return data;
+    }
+
+    /** File holding the tile, rewritten from memory if the disk copy was evicted. Null on a miss. */
+    public synchronized File file(String key) throws IOException {
+        File file = fileFor(key);
+        if (file.isFile()) {
+            touch(file);
+            return file;
+        }
+        byte[] data = memory.get(key);
+        return data != null ? write(key, data) : null;
+    }
+
+    public synchronized File put(String key, byte[] data) throws IOException {
+        remember(key, data);
+        return write(key, data);
+    }
+
+    /** Drops every tile whose key starts with {@code prefix}, in memory and on disk. */
+    public synchronized int invalidate(String prefix) {
+        int removed = 0;
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, byte[]> e = it.next();
+            if (!e.getKey().startsWith(prefix)) continue;
+            memoryBytes -= e.getValue().length;
+            it.remove();
+            removed++;
+        }
+        for (File file : files()) {
+            if (!file.getName().startsWith(prefix)) continue;
+            long length = file.length();
+            if (file.delete()) {
+                if (diskBytes >= 0) diskBytes -= length;
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+        for (File file : files()) {
+            file.delete();
+        }
+        diskBytes = 0;
+    }
+
+    public synchronized long memoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized long diskBytes() {
+        if (diskBytes < 0) {
+            long total = 0;
+            for (File file : files()) total += file.length();
+            diskBytes = total;
+        }
+        return diskBytes;
+    }
+
+    private void remember(String key, byte[] data) {
+        byte[] previous = memory.put(key, data);
+        if (previous != null) memoryBytes -= previous.length;
+        memoryBytes += data.length;
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            if (eldest.getKey().equals(key)) break; // always keep the newest tile
+            memoryBytes -= eldest.getValue().length;
+            it.remove();
+        }
+    }
+
+    /** Atomic write, then evicts the least recently used files beyond the disk budget. */
+    private File write(String key, byte[] data) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File file = fileFor(key);
+        long total = diskBytes() - (file.isFile() ? file.length() : 0);
+        File tmp = new File(dir, key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        touch(file);
+        diskBytes = total + data.length;
+        if (diskBytes > maxDiskBytes) evictDisk(file);
+        return file;
+    }
+
+    private void evictDisk(File keep) {
+        List<File> files = files();
+        Collections.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (diskBytes <= maxDiskBytes) break;
+            if (file.equals(keep)) continue;
+            long length = file.length();
+            if (file.delete()) diskBytes -= length;
+        }
+    }
+
+    private List<File> files() {
+        File[] listed = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        return listed != null ? new ArrayList<>(Arrays.asList(listed)) : new ArrayList<File>();
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, key + SUFFIX);
+    }
+
+    private static void touch(File file) {
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) throw new IOException("Truncated " + file);
+                read += n;
+            }
+        }
+        return data;
+    }
+}
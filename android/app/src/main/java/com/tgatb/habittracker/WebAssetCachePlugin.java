@@ -0,0 +1,185 @@
+package com.tgatb.habittracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.webkit.WebView;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Upgrade-time cache reconciliation driven by the web asset manifest.
+ *
+ * The WebView has no per-URL eviction API for its HTTP cache, which is what holds the
+ * assets on Android (no service worker runs there, so Cache Storage stays empty). Native
+ * code diffs the manifests: an upgrade that changed no web asset keeps the cache, any
+ * change clears it with {@code clearCache(true)}, as does an upgrade without a usable diff.
+ * The request URLs of stale assets are still queued for JS to drop from Cache Storage, in
+ * case an earlier build left entries there.
+ */
+@CapacitorPlugin(name = "WebAssetCache")
+public class WebAssetCachePlugin extends Plugin {
+    private static final String ASSET_MANIFEST = "public/" + WebAssetManifest.FILE_NAME;
+    private static final String CACHE_DIR = "web_assets";
+    private static final String PENDING_FILE = "pending_evictions.txt";
+    private static final String PREF_LAST_SUMMARY = "web_cache_summary";
+
+    static final String MODE_UNCHANGED = "unchanged";
+    static final String MODE_CHANGED = "changed";
+    static final String MODE_FULL = "full";
+    static final String MODE_INSTALL = "install";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Runs after a versionCode change. Diffs the previous release's manifest against the
+     * bundled one off the UI thread; {@code onDone} runs on the executor once the new
+     * manifest is stored, so a crash mid-pass repeats it on the next launch.
+     */
+    public static void reconcile(Context context, WebView webView, boolean freshInstall, Runnable onDone) {
+        final Context app = context.getApplicationContext();
+        EXECUTOR.execute(() -> {
+            long started = SystemClock.uptimeMillis();
+            JSObject summary = new JSObject();
+            try {
+                File stored = new File(cacheDir(app), WebAssetManifest.FILE_NAME);
+                WebAssetManifest previous = WebAssetManifest.read(stored);
+                WebAssetManifest next = bundledManifest(app);
+
+                if (next != null && previous != null) {
+                    WebAssetManifest.Diff diff = WebAssetManifest.diff(previous, next);
+                    if (diff.evicted.isEmpty()) {
+                        summary.put("mode", MODE_UNCHANGED);
+                    } else {
+                        webView.post(() -> webView.clearCache(true));
+                        addPendingEvictions(app, diff.evicted);
+                        summary.put("mode", MODE_CHANGED);
+                    }
+                    summary.put("keptCount", diff.keptCount);
+                    summary.put("evictedCount", diff.evicted.size());
+                    summary.put("addedCount", diff.addedCount);
+                } else if (freshInstall) {
+                    summary.put("mode", MODE_INSTALL);
+                } else {
+                    // First upgrade from a build without a manifest (or a broken one).
+                    webView.post(() -> webView.clearCache(true));
+                    summary.put("mode", MODE_FULL);
+                }
+
+                if (next != null) {
+                    next.write(stored);
+                } else {
+                    stored.delete();
+                }
+            } catch (Exception e) {
+                webView.post(() -> webView.clearCache(true));
+                summary.put("mode", MODE_FULL);
+                summary.put("error", String.valueOf(e.getMessage()));
+            }
+            summary.put("durationMs", SystemClock.uptimeMillis() - started);
+            summary.put("at", System.currentTimeMillis());
+            prefs(app).edit().putString(PREF_LAST_SUMMARY, summary.toString()).apply();
+            onDone.run();
+        });
+    }
+
+    /** Summary of the last upgrade pass plus the request URLs JS still has to evict. */
+    @PluginMethod
+    public void getPendingEvictions(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                JSArray paths = new JSArray();
+                for (String path : readPending(app)) {
+                    paths.put(path);
+                }
+                String raw = prefs(app).getString(PREF_LAST_SUMMARY, null);
+                JSObject ret = new JSObject();
+                ret.put("paths", paths);
+                ret.put("lastUpgrade", raw != null ? new JSObject(raw) : new JSObject());
+                call.resolve(ret);
+            } catch (Exception e) {
+                call.reject("Failed to read pending evictions: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Called by JS after evicting; clears the pending list. */
+    @PluginMethod
+    public void ackEvictions(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        EXECUTOR.execute(() -> {
+            new File(cacheDir(app), PENDING_FILE).delete();
+            call.resolve();
+        });
+    }
+
+    private static WebAssetManifest bundledManifest(Context context) {
+        try (InputStream in = context.getAssets().open(ASSET_MANIFEST)) {
+            return WebAssetManifest.parse(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Merges with any list JS has not acknowledged yet (two upgrades before a launch). */
+    private static void addPendingEvictions(Context context, Iterable<String> paths) throws IOException {
+        Set<String> merged = readPending(context);
+        for (String path : paths) {
+            merged.addAll(WebAssetManifest.requestUrls(path));
+        }
+        File file = new File(cacheDir(context), PENDING_FILE);
+        if (merged.isEmpty()) {
+            file.delete();
+            return;
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            for (String path : merged) {
+                out.write(path);
+                out.write('\n');
+            }
+        }
+    }
+
+    private static Set<String> readPending(Context context) throws IOException {
+        Set<String> paths = new LinkedHashSet<>();
+        File file = new File(cacheDir(context), PENDING_FILE);
+        if (!file.exists()) return paths;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) paths.add(line);
+            }
+        }
+        return paths;
+    }
+
+    private static File cacheDir(Context context) {
+        File dir = new File(context.getFilesDir(), CACHE_DIR);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(AutoFinalizePlugin.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,167 @@
+package com.tgatb.habittracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-hash manifest of the exported web assets, written by
+ * {@code scripts/web-asset-manifest.mjs} as {@code out/asset-manifest.tsv}.
+ *
+ * Format: a {@link #HEADER} line, then {@code hash \t size \t /path} per file. Diffing the
+ * manifest shipped with the previous release against the current one tells which cached
+ * entries are stale without touching the assets themselves.
+ */
+public final class WebAssetManifest {
+    static final String HEADER = "# tgatb-asset-manifest v1";
+    public static final String FILE_NAME = "asset-manifest.tsv";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String INDEX = "index.html";
+
+    public static final class Entry {
+        public final String path;
+        public final String hash;
+        public final long size;
+
+        public Entry(String path, String hash, long size) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+
+    public static final class Diff {
+        /** Paths cached under the old release whose content changed or was removed. */
+        public final List<String> evicted;
+        public final int keptCount;
+        /** New paths; nothing cached for them yet, so nothing to evict. */
+        public final int addedCount;
+
+        Diff(List<String> evicted, int keptCount, int addedCount) {
+            this.evicted = Collections.unmodifiableList(evicted);
+            this.keptCount = keptCount;
+            this.addedCount = addedCount;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    public WebAssetManifest(Collection<Entry> entries) {
+        this.entries = new LinkedHashMap<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            this.entries.put(entry.path, entry);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /** Rejects anything without the v1 header so a stray file never drives eviction. */
+    public static WebAssetManifest parse(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+        String line = reader.readLine();
+        if (line == null || !HEADER.equals(line.trim())) {
+            throw new IOException("Not an asset manifest");
+        }
+        List<Entry> list = new ArrayList<>();
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) continue;
+            String[] parts = line.split("\t", 3);
+            if (parts.length != 3) throw new IOException("Malformed manifest line: " + line);
+            try {
+                list.add(new Entry(parts[2], parts[0], Long.parseLong(parts[1])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed manifest size: " + line);
+            }
+        }
+        return new WebAssetManifest(list);
+    }
+
+    /** Returns null when the file is missing or unreadable. */
+    public static WebAssetManifest read(File file) {
+        if (!file.exists()) return null;
+        try (InputStream in = new FileInputStream(file)) {
+            return parse(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void write(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), UTF8)) {
+            out.write(HEADER);
+            out.write('\n');
+            for (Entry entry : entries.values()) {
+                out.write(entry.hash);
+                out.write('\t');
+                out.write(Long.toString(entry.size));
+                out.write('\t');
+                out.write(entry.path);
+                out.write('\n');
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    public static Diff diff(WebAssetManifest previous, WebAssetManifest next) {
+        List<String> evicted = new ArrayList<>();
+        int keptCount = 0;
+        for (Entry old : previous.entries.values()) {
+            Entry current = next.entries.get(old.path);
+            if (current != null && current.hash.equals(old.hash)) {
+                keptCount++;
+            } else {
+                evicted.add(old.path);
+            }
+        }
+        int added = 0;
+        for (String path : next.entries.keySet()) {
+            if (!previous.entries.containsKey(path)) added++;
+        }
+        return new Diff(evicted, keptCount, added);
+    }
+
+    /**
+     * URLs the app requests for a manifest path. Pages are exported as
+     * {@code dir/index.html} ({@code trailingSlash}) but navigated to as {@code dir/}, and
+     * Next also links them without the slash; every other file is requested by its path.
+     */
+    public static List<String> requestUrls(String path) {
+        List<String> urls = new ArrayList<>(3);
+        if (path.endsWith("/" + INDEX)) {
+            String dir = path.substring(0, path.length() - INDEX.length());
+            urls.add(dir);
+            if (dir.length() > 1) urls.add(dir.substring(0, dir.length() - 1));
+        }
+        urls.add(path);
+        return urls;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tgatb.habittracker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Bytes allocated by threads, from HotSpot's per-thread counters. Looked up reflectively so
+ * tests still compile against a bootclasspath without {@code com.sun.management}; {@link #create}
+ * returns null where the counters are unavailable.
+ */
+final class AllocationMeter {
+    private final ThreadMXBean threads;
+    private final Method single;
+    private final Method many;
+
+    private AllocationMeter(ThreadMXBean threads, Method single, Method many) {
+        this.threads = threads;
+        this.single = single;
+        this.many = many;
+    }
+
+    static AllocationMeter create() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            if (!type.isInstance(threads)) return null;
+            if (!(Boolean) type.getMethod("isThreadAllocatedMemoryEnabled").invoke(threads)) return null;
+            return new AllocationMeter(threads, type.getMethod("getThreadAllocatedBytes", long.class),
+                    type.getMethod("getThreadAllocatedBytes", long[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Allocated so far by the calling thread. */
+    long currentThread() {
+        try {
+            return (Long) single.invoke(threads, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Allocated so far by every live thread, which covers work handed to plugin executors.
+     * Threads that exit between two readings drop out, so keep executors alive across them.
+     */
+    long allThreads() {
+        try {
+            long total = 0;
+            for (long bytes : (long[]) many.invoke(threads, (Object) threads.getAllThreadIds())) {
+                if (bytes > 0) total += bytes;
+            }
+            return total;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
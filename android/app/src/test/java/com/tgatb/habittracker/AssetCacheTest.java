@@ -0,0 +1,123 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+public class AssetCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Map<String, byte[]> files = new HashMap<>();
+    private final AssetCache.Source source = path -> {
+        byte[] data = files.get(path);
+        if (data == null) throw new FileNotFoundException(path);
+        return new ByteArrayInputStream(data);
+    };
+
+    private static byte[] bytes(int size, int seed) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) b[i] = (byte) (i * 31 + seed);
+        return b;
+    }
+
+    private static byte[] drain(ByteBuffer buffer) throws Exception {
+        InputStream in = new AssetCache.BufferInputStream(buffer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[7];
+        int n;
+        while ((n = in.read(chunk, 0, chunk.length)) > 0) out.write(chunk, 0, n);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void hitServesExactBytesAndCountsThem() throws Exception {
+        AssetCache cache = new AssetCache(1024);
+        files.put("/_next/static/app.js", bytes(300, 1));
+        assertEquals(1, cache.warm(Arrays.asList("/_next/static/app.js"), source));
+
+        assertArrayEquals(bytes(300, 1), drain(cache.get("/_next/static/app.js")));
+        // Each hit gets an independent view.
+        assertArrayEquals(bytes(300, 1), drain(cache.get("/_next/static/app.js")));
+        assertNull(cache.get("/_next/static/other.js"));
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(600L, cache.bytesServed());
+    }
+
+    @Test
+    public void lruEvictsLeastRecentlyUsedToStayInBudget() {
+        AssetCache cache = new AssetCache(1000);
+        assertTrue(cache.put("/a.js", bytes(400, 0), 400));
+        assertTrue(cache.put("/b.js", bytes(400, 0), 400));
+        cache.get("/a.js");
+        assertTrue(cache.put("/c.js", bytes(400, 0), 400));
+
+        assertTrue(cache.contains("/a.js"));
+        assertFalse(cache.contains("/b.js"));
+        assertTrue(cache.contains("/c.js"));
+        assertEquals(800L, cache.totalBytes());
+        assertFalse(cache.put("/huge.js", bytes(10, 0), AssetCache.MAX_ENTRY_BYTES + 1));
+    }
+
+    @Test
+    public void warmPrefersGzipSiblingAndSkipsMissing() throws Exception {
+        byte[] plain = bytes(5000, 3);
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write(plain);
+        }
+        files.put("/_next/static/x.css.gz", gz.toByteArray());
+        files.put("/_next/static/y.js", bytes(10, 9));
+
+        AssetCache cache = new AssetCache(1 << 20);
+        int loaded = cache.warm(Arrays.asList("/_next/static/x.css", "/gone.js", "/_next/static/y.js"), source);
+
+        assertEquals(2, loaded);
+        assertEquals(1, cache.precompressedLoads());
+        assertArrayEquals(plain, drain(cache.get("/_next/static/x.css")));
+    }
+
+    @Test
+    public void warmStopsWhenBudgetIsFull() {
+        for (int i = 0; i < 10; i++) files.put("/" + i + ".js", bytes(100, i));
+        AssetCache cache = new AssetCache(250);
+        List<String> paths = Arrays.asList("/0.js", "/1.js", "/2.js", "/3.js", "/4.js");
+        assertEquals(2, cache.warm(paths, source));
+        assertTrue(cache.contains("/0.js"));
+        assertTrue(cache.totalBytes() <= 250);
+    }
+
+    @Test
+    public void hotSet_recordsInOrderUntilFrozen() throws Exception {
+        AssetHotSet set = new AssetHotSet();
+        set.record("/b.js");
+        set.record("/a.css");
+        set.record("/b.js");
+        List<String> frozen = set.freeze();
+        set.record("/late.js");
+
+        assertEquals(Arrays.asList("/b.js", "/a.css"), frozen);
+        assertNull(set.freeze());
+
+        File file = new File(tmp.getRoot(), "web_assets/hot_assets.txt");
+        AssetHotSet.write(file, frozen);
+        assertEquals(frozen, AssetHotSet.read(file));
+        assertTrue(AssetHotSet.read(new File(tmp.getRoot(), "none")).isEmpty());
+    }
+}
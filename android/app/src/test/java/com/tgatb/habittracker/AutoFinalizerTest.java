@@ -0,0 +1,137 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+public class AutoFinalizerTest {
+    private static final int TODAY = EpochDays.parse("2025-06-15");
+    private static final TimeZone ZONE = TimeZone.getTimeZone("Asia/Jakarta");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HabitLogStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new HabitLogStore(new File(tmp.getRoot(), "anonymous.bin"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    public void backfillsMissedDaysUpToYesterday() throws Exception {
+        HabitSnapshot snapshot = new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("good", "Read", false, TODAY - 5, HabitSchedule.daily()),
+                new HabitSnapshot.Habit("bad", "Smoke", true, TODAY - 2, HabitSchedule.daily())
+        ));
+        store.put(new HabitLogStore.Entry("m1", "good", TODAY - 3, true, 0L, "manual"));
+
+        AutoFinalizer.Summary summary = AutoFinalizer.run(snapshot, store, TODAY, ZONE);
+
+        assertEquals(2, summary.habitsScanned);
+        assertEquals(4 + 2, summary.logsCreated);
+        assertNull(store.get("good", TODAY));
+        assertNull(store.get("bad", TODAY));
+        assertEquals("manual", store.get("good", TODAY - 3).source);
+
+        HabitLogStore.Entry missed = store.get("good", TODAY - 1);
+        assertEquals("auto", missed.source);
+        assertFalse(missed.completed);
+        assertTrue(store.get("bad", TODAY - 1).completed);
+        assertEquals(EpochDays.startOfDayMillis(TODAY, ZONE) - 1000L, missed.timestamp);
+    }
+
+    @Test
+    public void secondRun_createsNoDuplicates() throws Exception {
+        HabitSnapshot snapshot = new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("h", "Walk", false, TODAY - 200, HabitSchedule.daily())
+        ));
+        assertEquals(200, AutoFinalizer.run(snapshot, store, TODAY, ZONE).logsCreated);
+        assertEquals(0, AutoFinalizer.run(snapshot, store, TODAY, ZONE).logsCreated);
+        assertEquals(200, store.liveCount());
+    }
+
+    @Test
+    public void ids_dependOnlyOnHabitAndDay() throws Exception {
+        HabitSnapshot snapshot = new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("h", "Walk", false, TODAY - 3, HabitSchedule.daily())
+        ));
+        AutoFinalizer.Summary first = AutoFinalizer.run(snapshot, store, TODAY, ZONE);
+        assertEquals(3, first.logs.size());
+        assertEquals("auto-h-2025-06-14", store.get("h", TODAY - 1).id);
+
+        // A rebuilt store finalizes the same days under the same ids.
+        store.clear();
+        AutoFinalizer.Summary second = AutoFinalizer.run(snapshot, store, TODAY, ZONE);
+        for (int i = 0; i < first.logs.size(); i++) {
+            assertEquals(first.logs.get(i).id, second.logs.get(i).id);
+        }
+    }
+
+    @Test
+    public void onlyExpectedDaysAreFinalized() throws Exception {
+        int created = TODAY - 130;
+        HabitSnapshot snapshot = new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("i", "Gym", false, created, HabitSchedule.interval(3, created + 1)),
+                new HabitSnapshot.Habit("w", "Call", false, created, HabitSchedule.weekly(1 << 1))
+        ));
+
+        List<HabitLogStore.Entry> logs = AutoFinalizer.compute(snapshot, store, TODAY, ZONE);
+
+        Set<String> seen = new HashSet<>();
+        for (HabitLogStore.Entry log : logs) {
+            assertTrue(log.epochDay < TODAY);
+            assertTrue(log.epochDay >= created);
+            assertTrue(seen.add(log.habitId + "::" + log.epochDay));
+            if (log.habitId.equals("i")) {
+                assertEquals(0, (log.epochDay - (created + 1)) % 3);
+            } else {
+                assertEquals(1, EpochDays.dayOfWeek(log.epochDay));
+            }
+        }
+        int expected = 0;
+        HabitSchedule interval = HabitSchedule.interval(3, created + 1);
+        HabitSchedule weekly = HabitSchedule.weekly(1 << 1);
+        for (int d = created; d < TODAY; d++) {
+            if (interval.isExpected(d)) expected++;
+            if (weekly.isExpected(d)) expected++;
+        }
+        assertEquals(expected, logs.size());
+    }
+
+    @Test
+    public void snapshot_roundTripsThroughFile() throws Exception {
+        File file = new File(tmp.getRoot(), "anonymous.habits");
+        new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("a", "Read", false, 100, HabitSchedule.interval(4, 102)),
+                new HabitSnapshot.Habit("b", "Smoke", true, 90, HabitSchedule.weekly(0b1010101))
+        )).write(file);
+
+        HabitSnapshot read = HabitSnapshot.read(file);
+        assertEquals(2, read.habits.size());
+        HabitSnapshot.Habit a = read.habits.get(0);
+        assertEquals("Read", a.name);
+        assertEquals(HabitSchedule.INTERVAL, a.schedule.type);
+        assertEquals(4, a.schedule.intervalDays);
+        assertEquals(102, a.schedule.anchorDay);
+        assertTrue(read.habits.get(1).bad);
+        assertEquals(0b1010101, read.habits.get(1).schedule.daysOfWeekMask);
+        assertTrue(HabitSnapshot.read(new File(tmp.getRoot(), "missing")).habits.isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ConfettiSimulationTest {
+    private static final float WIDTH = 1080f;
+    private static final float HEIGHT = 2340f;
+    private static final float DENSITY = 2.75f;
+    private static final float FRAME = 1f / 60f;
+
+    @Test
+    public void countsMatchTheWebViewIntensities() {
+        assertEquals(18, ConfettiSimulation.countFor("low"));
+        assertEquals(32, ConfettiSimulation.countFor("medium"));
+        assertEquals(52, ConfettiSimulation.countFor("high"));
+        assertEquals(32, ConfettiSimulation.countFor(null));
+    }
+
+    @Test
+    public void burstsFillThePoolUpToCapacity() {
+        ConfettiSimulation sim = new ConfettiSimulation(1);
+        assertTrue(sim.isIdle());
+        assertEquals(52, sim.burst(52, WIDTH, HEIGHT, DENSITY));
+        assertEquals(ConfettiSimulation.CAPACITY - 52, sim.burst(1000, WIDTH, HEIGHT, DENSITY));
+        assertEquals(0, sim.burst(1, WIDTH, HEIGHT, DENSITY));
+        assertEquals(ConfettiSimulation.CAPACITY, sim.alive());
+        sim.clear();
+        assertTrue(sim.isIdle());
+    }
+
+    @Test
+    public void piecesStartAboveTheScreenAcrossItsWidth() {
+        ConfettiSimulation sim = new ConfettiSimulation(7);
+        sim.burst(32, WIDTH, HEIGHT, DENSITY);
+        float minX = Float.MAX_VALUE;
+        float maxX = 0;
+        for (int i = 0; i < sim.alive(); i++) {
+            assertTrue(sim.y(i) < 0);
+            assertEquals(0f, sim.alpha(i), 0f);
+            assertTrue(sim.x(i) >= 0.02f * WIDTH && sim.x(i) <= 0.98f * WIDTH);
+            minX = Math.min(minX, sim.x(i));
+            maxX = Math.max(maxX, sim.x(i));
+        }
+        assertTrue(minX < 0.1f * WIDTH);
+        assertTrue(maxX > 0.9f * WIDTH);
+        assertEquals(ConfettiSimulation.PALETTE[1], sim.color(1));
+    }
+
+    @Test
+    public void piecesFallFadeAndRetire() {
+        ConfettiSimulation sim = new ConfettiSimulation(42);
+        sim.burst(52, WIDTH, HEIGHT, DENSITY);
+        for (int f = 0; f < 60; f++) sim.step(FRAME);
+        assertEquals(52, sim.alive());
+        for (int i = 0; i < sim.alive(); i++) {
+            assertTrue(sim.y(i) > 0);
+            assertTrue(sim.alpha(i) > 0f && sim.alpha(i) <= 1f);
+            assertTrue(Math.abs(sim.flip(i)) <= 1f);
+        }
+        int frames = 60;
+        while (sim.step(FRAME) > 0) {
+            assertTrue("celebration never ends", ++frames < 60 * 5);
+        }
+        assertTrue(frames > 60 * 2);
+    }
+
+    @Test
+    public void sameSeedSameFlight() {
+        ConfettiSimulation a = new ConfettiSimulation(99);
+        ConfettiSimulation b = new ConfettiSimulation(99);
+        a.burst(18, WIDTH, HEIGHT, DENSITY);
+        b.burst(18, WIDTH, HEIGHT, DENSITY);
+        for (int f = 0; f < 90; f++) assertEquals(a.step(FRAME), b.step(FRAME));
+        for (int i = 0; i < a.alive(); i++) {
+            assertEquals(a.x(i), b.x(i), 0f);
+            assertEquals(a.y(i), b.y(i), 0f);
+            assertEquals(a.angle(i), b.angle(i), 0f);
+        }
+    }
+
+    @Test
+    public void framesDoNotAllocate() {
+        AllocationMeter meter = AllocationMeter.create();
+        Assume.assumeNotNull(meter);
+
+        ConfettiSimulation sim = new ConfettiSimulation(3);
+        float sink = 0;
+        for (int warm = 0; warm < 3; warm++) {
+            sim.burst(ConfettiSimulation.CAPACITY, WIDTH, HEIGHT, DENSITY);
+            while (sim.step(FRAME) > 0) sink += draw(sim);
+        }
+        sim.burst(ConfettiSimulation.CAPACITY, WIDTH, HEIGHT, DENSITY);
+        long before = meter.currentThread();
+        for (int f = 0; f < 120; f++) sink += draw(sim) + sim.step(FRAME);
+        long allocated = meter.currentThread() - before;
+        assertTrue(sink != 0);
+        // Slack for the measurement itself.
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    /** What ConfettiOverlay reads per piece and frame. */
+    private static float draw(ConfettiSimulation sim) {
+        float acc = 0;
+        for (int i = 0; i < sim.alive(); i++) {
+            acc += sim.x(i) + sim.y(i) + sim.angle(i) + sim.flip(i) + sim.width(i) + sim.alpha(i) + sim.color(i);
+        }
+        return acc;
+    }
+}
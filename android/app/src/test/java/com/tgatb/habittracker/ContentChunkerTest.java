@@ -0,0 +1,117 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class ContentChunkerTest {
+    private static byte[] exportLike(int records, long seed) {
+        Random random = new Random(seed);
+        StringBuilder out = new StringBuilder("{\"logs\":[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) out.append(',');
+            out.append("{\"id\":\"log-").append(random.nextLong())
+                    .append("\",\"habitId\":\"h").append(random.nextInt(40))
+                    .append("\",\"date\":\"2025-").append(1 + random.nextInt(12)).append('-').append(1 + random.nextInt(28))
+                    .append("\",\"completed\":").append(random.nextBoolean()).append('}');
+        }
+        return out.append("]}").toString().getBytes(ExportStream.UTF_8);
+    }
+
+    private static List<byte[]> chunks(ContentChunker chunker, InputStream in) throws Exception {
+        final List<byte[]> out = new ArrayList<>();
+        chunker.split(in, (buffer, offset, length) -> out.add(Arrays.copyOfRange(buffer, offset, offset + length)));
+        return out;
+    }
+
+    private static Set<String> ids(List<byte[]> chunks) {
+        Set<String> out = new HashSet<>();
+        for (byte[] chunk : chunks) out.add(DeltaBackup.hex(DeltaBackup.sha256().digest(chunk)));
+        return out;
+    }
+
+    @Test
+    public void chunksConcatenateToInputWithinBounds() throws Exception {
+        byte[] data = exportLike(20000, 1);
+        ContentChunker chunker = new ContentChunker();
+        List<byte[]> chunks = chunks(chunker, new ByteArrayInputStream(data));
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            assertTrue(chunk.length <= ContentChunker.DEFAULT_MAX);
+            if (i < chunks.size() - 1) assertTrue(chunk.length >= ContentChunker.DEFAULT_MIN);
+            joined.write(chunk);
+        }
+        assertArrayEquals(data, joined.toByteArray());
+        double average = (double) data.length / chunks.size();
+        assertTrue("average " + average, average > ContentChunker.DEFAULT_AVG / 2.0 && average < ContentChunker.DEFAULT_AVG * 2.0);
+    }
+
+    @Test
+    public void shortReadsDoNotMoveBoundaries() throws Exception {
+        byte[] data = exportLike(5000, 2);
+        ContentChunker chunker = new ContentChunker();
+        InputStream trickle = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 777));
+            }
+        };
+        assertEquals(ids(chunks(chunker, new ByteArrayInputStream(data))), ids(chunks(chunker, trickle)));
+    }
+
+    @Test
+    public void insertionOnlyChangesNearbyChunks() throws Exception {
+        byte[] data = exportLike(20000, 3);
+        int at = data.length / 2;
+        byte[] edited = new byte[data.length + 5];
+        System.arraycopy(data, 0, edited, 0, at);
+        System.arraycopy("HELLO".getBytes(ExportStream.UTF_8), 0, edited, at, 5);
+        System.arraycopy(data, at, edited, at + 5, data.length - at);
+
+        ContentChunker chunker = new ContentChunker();
+        Set<String> before = ids(chunks(chunker, new ByteArrayInputStream(data)));
+        Set<String> after = ids(chunks(chunker, new ByteArrayInputStream(edited)));
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        assertTrue("added " + added.size(), added.size() <= 2);
+    }
+
+    @Test
+    public void appendKeepsEarlierChunks() throws Exception {
+        byte[] data = exportLike(8000, 4);
+        byte[] longer = Arrays.copyOf(data, data.length + 4096);
+        Arrays.fill(longer, data.length, longer.length, (byte) 'x');
+
+        ContentChunker chunker = new ContentChunker();
+        List<byte[]> before = chunks(chunker, new ByteArrayInputStream(data));
+        Set<String> after = ids(chunks(chunker, new ByteArrayInputStream(longer)));
+        for (int i = 0; i < before.size() - 1; i++) {
+            assertTrue(after.contains(DeltaBackup.hex(DeltaBackup.sha256().digest(before.get(i)))));
+        }
+    }
+
+    @Test
+    public void incompressibleRunIsCutAtMax() throws Exception {
+        ContentChunker chunker = new ContentChunker(64, 256, 1024);
+        byte[] zeros = new byte[4000];
+        List<byte[]> chunks = chunks(chunker, new ByteArrayInputStream(zeros));
+        assertEquals(1024, chunks.get(0).length);
+        assertEquals(4, chunks.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void averageMustBePowerOfTwo() {
+        new ContentChunker(100, 3000, 9000);
+    }
+}
@@ -0,0 +1,212 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+public class DailyRollupTest {
+    private static final int TODAY = EpochDays.parse("2025-06-15");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File storeFile;
+    private File rollupFile;
+    private HabitLogStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        storeFile = new File(tmp.getRoot(), "anonymous.bin");
+        rollupFile = new File(tmp.getRoot(), "anonymous.rollup");
+        store = new HabitLogStore(storeFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    private static HabitSnapshot snapshot(HabitSnapshot.Habit... habits) {
+        return new HabitSnapshot(Arrays.asList(habits));
+    }
+
+    private static HabitSnapshot.Habit good(String id, int createdDay) {
+        return new HabitSnapshot.Habit(id, id, false, createdDay, HabitSchedule.daily());
+    }
+
+    private static HabitSnapshot.Habit bad(String id, int createdDay) {
+        return new HabitSnapshot.Habit(id, id, true, createdDay, HabitSchedule.daily());
+    }
+
+    private void log(String habitId, int day, boolean completed) throws Exception {
+        store.put(new HabitLogStore.Entry(habitId + "-" + day, habitId, day, completed, 0L, "manual"));
+    }
+
+    @Test
+    public void countsOutcomesPerDay() throws Exception {
+        DailyRollup rollup = DailyRollup.open(rollupFile, store,
+                snapshot(good("read", TODAY - 2), bad("smoke", TODAY - 2)));
+        log("read", TODAY - 2, true);
+        log("read", TODAY - 1, false);
+        log("smoke", TODAY - 2, false);
+        log("smoke", TODAY - 1, true);
+
+        DailyRollup.Range range = rollup.range(TODAY - 2, TODAY, TODAY);
+
+        assertArrayEquals(new int[] {1, 0, 0}, range.goodDone);
+        assertArrayEquals(new int[] {0, 1, 0}, range.missed);
+        assertArrayEquals(new int[] {1, 0, 0}, range.badAvoided);
+        assertArrayEquals(new int[] {0, 1, 0}, range.badDone);
+        assertArrayEquals(new int[] {0, 0, 2}, range.untracked);
+        assertArrayEquals(new int[] {2, 0, 0}, range.completions);
+        assertTrue(range.positive(0));
+        assertFalse(range.negative(0));
+        assertTrue(range.negative(1));
+        assertTrue(range.negative(2));
+    }
+
+    @Test
+    public void overwritesAndRemovalsMoveCounters() throws Exception {
+        DailyRollup rollup = DailyRollup.open(rollupFile, store, snapshot(good("read", TODAY - 10)));
+        log("read", TODAY, false);
+        log("read", TODAY, true);
+        assertEquals(1, rollup.range(TODAY, TODAY, TODAY).goodDone[0]);
+        assertEquals(0, rollup.range(TODAY, TODAY, TODAY).missed[0]);
+
+        store.remove("read", TODAY);
+        DailyRollup.Range range = rollup.range(TODAY, TODAY, TODAY);
+        assertEquals(0, range.goodDone[0]);
+        assertEquals(1, range.untracked[0]);
+
+        log("read", TODAY - 3, true);
+        store.removeHabit("read");
+        assertEquals(0, DailyRollup.Range.sum(rollup.range(TODAY - 10, TODAY, TODAY).goodDone));
+
+        log("read", TODAY - 1, true);
+        store.clear();
+        assertEquals(0, rollup.range(TODAY - 1, TODAY - 1, TODAY).goodDone[0]);
+        assertEquals(Integer.MIN_VALUE, rollup.lastDay());
+    }
+
+    @Test
+    public void backfillsBeforeCreationAreNotCompletions() throws Exception {
+        DailyRollup rollup = DailyRollup.open(rollupFile, store, snapshot(good("read", TODAY)));
+        log("read", TODAY - 5, true);
+
+        DailyRollup.Range range = rollup.range(TODAY - 5, TODAY, TODAY);
+        assertEquals(1, range.goodDone[0]);
+        assertEquals(0, range.completions[0]);
+        assertEquals(0, range.untracked[0]);
+        assertEquals(1, range.untracked[5]);
+        assertEquals(TODAY - 5, rollup.firstDay());
+    }
+
+    @Test
+    public void ignoresUnknownHabitsUntilSynced() throws Exception {
+        DailyRollup rollup = DailyRollup.open(rollupFile, store, HabitSnapshot.empty());
+        log("read", TODAY, true);
+        assertEquals(0, rollup.range(TODAY, TODAY, TODAY).goodDone[0]);
+
+        rollup.setHabits(snapshot(good("read", TODAY)));
+        assertEquals(1, rollup.range(TODAY, TODAY, TODAY).goodDone[0]);
+
+        // Switching the habit to bad recounts its logs under the new type.
+        rollup.setHabits(snapshot(bad("read", TODAY)));
+        DailyRollup.Range range = rollup.range(TODAY, TODAY, TODAY);
+        assertEquals(0, range.goodDone[0]);
+        assertEquals(1, range.badDone[0]);
+
+        rollup.setHabits(HabitSnapshot.empty());
+        assertEquals(0, rollup.range(TODAY, TODAY, TODAY).badDone[0]);
+    }
+
+    @Test
+    public void reopensFromDiskAndRebuildsWhenStale() throws Exception {
+        HabitSnapshot habits = snapshot(good("read", TODAY - 30));
+        DailyRollup rollup = DailyRollup.open(rollupFile, store, habits);
+        for (int day = TODAY - 30; day <= TODAY; day += 2) log("read", day, true);
+        rollup.flush();
+        long savedLength = rollupFile.length();
+        int[] expected = rollup.range(TODAY - 30, TODAY, TODAY).goodDone;
+
+        store.close();
+        store = new HabitLogStore(storeFile);
+        DailyRollup reopened = DailyRollup.open(rollupFile, store, habits);
+        assertArrayEquals(expected, reopened.range(TODAY - 30, TODAY, TODAY).goodDone);
+
+        // A write that never reached the rollup file is picked up by the rebuild on open.
+        store.removeListener(reopened);
+        log("read", TODAY - 1, true);
+        store.close();
+        store = new HabitLogStore(storeFile);
+        reopened = DailyRollup.open(rollupFile, store, habits);
+        assertEquals(1, reopened.range(TODAY - 1, TODAY - 1, TODAY).goodDone[0]);
+
+        // So is a corrupt file.
+        try (RandomAccessFile raf = new RandomAccessFile(rollupFile, "rw")) {
+            raf.setLength(savedLength / 2);
+        }
+        store.close();
+        store = new HabitLogStore(storeFile);
+        reopened = DailyRollup.open(rollupFile, store, habits);
+        assertEquals(17, DailyRollup.Range.sum(reopened.range(TODAY - 30, TODAY, TODAY).goodDone));
+    }
+
+    @Test
+    public void flushSavesAfterCompaction() throws Exception {
+        HabitSnapshot habits = snapshot(good("read", TODAY - 5));
+        DailyRollup rollup = DailyRollup.open(rollupFile, store, habits);
+        log("read", TODAY, true);
+        log("read", TODAY, false);
+        rollup.flush();
+        store.compact();
+        rollup.flush();
+
+        store.close();
+        store = new HabitLogStore(storeFile);
+        DailyRollup.Range range = DailyRollup.open(rollupFile, store, habits).range(TODAY, TODAY, TODAY);
+        assertEquals(0, range.goodDone[0]);
+        assertEquals(1, range.missed[0]);
+    }
+
+    @Test
+    public void matchesFullRescanOnRandomWrites() throws Exception {
+        Random random = new Random(42);
+        String[] ids = {"a", "b", "c", "d"};
+        HabitSnapshot habits = snapshot(good("a", TODAY - 200), bad("b", TODAY - 150),
+                good("c", TODAY - 20), bad("d", TODAY - 400));
+        DailyRollup rollup = DailyRollup.open(rollupFile, store, habits);
+        for (int i = 0; i < 3000; i++) {
+            String id = ids[random.nextInt(ids.length)];
+            int day = TODAY - random.nextInt(500);
+            if (random.nextInt(5) == 0) {
+                store.remove(id, day);
+            } else {
+                log(id, day, random.nextBoolean());
+            }
+        }
+
+        DailyRollup.Range incremental = rollup.range(TODAY - 499, TODAY, TODAY);
+        File other = new File(tmp.getRoot(), "fresh.rollup");
+        DailyRollup.Range rescanned = DailyRollup.open(other, store, habits).range(TODAY - 499, TODAY, TODAY);
+        assertArrayEquals(rescanned.goodDone, incremental.goodDone);
+        assertArrayEquals(rescanned.badAvoided, incremental.badAvoided);
+        assertArrayEquals(rescanned.badDone, incremental.badDone);
+        assertArrayEquals(rescanned.missed, incremental.missed);
+        assertArrayEquals(rescanned.untracked, incremental.untracked);
+        assertArrayEquals(rescanned.completions, incremental.completions);
+        assertEquals(store.liveCount(), DailyRollup.Range.sum(incremental.goodDone)
+                + DailyRollup.Range.sum(incremental.badAvoided)
+                + DailyRollup.Range.sum(incremental.badDone)
+                + DailyRollup.Range.sum(incremental.missed));
+    }
+}
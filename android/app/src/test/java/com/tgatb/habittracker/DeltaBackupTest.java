@@ -0,0 +1,301 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class DeltaBackupTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** In-process stand-in for Drive: chunk blobs keyed by a generated file id, plus the manifest. */
+    static final class MemoryTransport implements BackupTransport {
+        final Map<String, byte[]> files = new HashMap<>();
+        final Map<String, String> chunkFiles = new LinkedHashMap<>();
+        byte[] manifest;
+        int puts;
+        int lists;
+        private int nextId;
+
+        @Override
+        public Map<String, String> listChunks() {
+            lists++;
+            return new HashMap<>(chunkFiles);
+        }
+
+        @Override
+        public String putChunk(String chunkId, byte[] compressed) {
+            puts++;
+            String id = "file" + (nextId++);
+            files.put(id, compressed.clone());
+            chunkFiles.put(chunkId, id);
+            return id;
+        }
+
+        @Override
+        public byte[] getChunk(String remoteId) throws IOException {
+            byte[] data = files.get(remoteId);
+            if (data == null) throw new IOException("404 " + remoteId);
+            return data;
+        }
+
+        @Override
+        public void deleteChunk(String remoteId) {
+            files.remove(remoteId);
+            chunkFiles.values().remove(remoteId);
+        }
+
+        @Override
+        public void putManifest(byte[] manifest) {
+            this.manifest = manifest.clone();
+        }
+
+        @Override
+        public byte[] getManifest() {
+            return manifest;
+        }
+    }
+
+    private static byte[] export(int records, long seed) {
+        Random random = new Random(seed);
+        StringBuilder out = new StringBuilder("{\"version\":\"1\",\"logs\":[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) out.append(',');
+            out.append("{\"id\":\"").append(Long.toHexString(random.nextLong()))
+                    .append("\",\"date\":\"2025-06-").append(10 + random.nextInt(18))
+                    .append("\",\"completed\":").append(random.nextBoolean()).append('}');
+        }
+        return out.append("]}").toString().getBytes(ExportStream.UTF_8);
+    }
+
+    private DeltaBackup backup(MemoryTransport transport, String device) throws IOException {
+        return new DeltaBackup(transport, new ChunkIndex(new File(tmp.getRoot(), device + "/chunks.idx")), new ContentChunker());
+    }
+
+    private static byte[] restore(DeltaBackup backup) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertNotNull(backup.restore(out));
+        return out.toByteArray();
+    }
+
+    @Test
+    public void unchangedExportUploadsOnlyManifest() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        byte[] data = export(20000, 1);
+        DeltaBackup.Stats first = backup(transport, "a").backup(() -> new ByteArrayInputStream(data), 1000L, false, null);
+        assertEquals(first.chunks, first.newChunks);
+        assertEquals(data.length, first.totalBytes);
+        assertTrue(first.uploadedBytes < data.length);
+        assertTrue(first.reconciled);
+
+        DeltaBackup.Stats second = backup(transport, "a").backup(() -> new ByteArrayInputStream(data), 2000L, false, null);
+        assertEquals(0, second.newChunks);
+        assertEquals(0L, second.uploadedBytes);
+        assertFalse(second.reconciled);
+        // One listing to seed the empty index, one to verify the second manifest.
+        assertEquals(2, transport.lists);
+    }
+
+    @Test
+    public void smallEditUploadsFewChunksAndRestoresExactly() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        byte[] data = export(20000, 2);
+        DeltaBackup device = backup(transport, "a");
+        DeltaBackup.Stats first = device.backup(() -> new ByteArrayInputStream(data), 1000L, false, null);
+
+        byte[] edited = data.clone();
+        int at = edited.length / 3;
+        while (edited[at] != 't' && edited[at] != 'f') at++;
+        byte[] flipped = edited[at] == 't' ? "false".getBytes(ExportStream.UTF_8) : "true".getBytes(ExportStream.UTF_8);
+        int oldLength = edited[at] == 't' ? 4 : 5;
+        byte[] next = new byte[edited.length - oldLength + flipped.length];
+        System.arraycopy(edited, 0, next, 0, at);
+        System.arraycopy(flipped, 0, next, at, flipped.length);
+        System.arraycopy(edited, at + oldLength, next, at + flipped.length, edited.length - at - oldLength);
+
+        DeltaBackup.Stats second = device.backup(() -> new ByteArrayInputStream(next), 2000L, false, null);
+        assertTrue("new " + second.newChunks, second.newChunks >= 1 && second.newChunks <= 2);
+        assertTrue(second.uploadedBytes * 10 < first.uploadedBytes);
+
+        byte[] restored = restore(backup(transport, "b"));
+        assertArrayEquals(next, restored);
+        assertEquals(2000L, DeltaBackup.Manifest.decode(transport.manifest).createdAt);
+    }
+
+    @Test
+    public void newDeviceSeedsIndexFromRemote() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        byte[] data = export(10000, 3);
+        backup(transport, "a").backup(() -> new ByteArrayInputStream(data), 1000L, false, null);
+        int puts = transport.puts;
+
+        DeltaBackup.Stats other = backup(transport, "b").backup(() -> new ByteArrayInputStream(data), 2000L, false, null);
+        assertTrue(other.reconciled);
+        assertEquals(0, other.newChunks);
+        assertEquals(puts, transport.puts);
+    }
+
+    @Test
+    public void chunksDeletedRemotelyAreReuploadedBeforeTheManifest() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        byte[] data = export(10000, 4);
+        DeltaBackup device = backup(transport, "a");
+        device.backup(() -> new ByteArrayInputStream(data), 1000L, false, null);
+        String lost = transport.chunkFiles.keySet().iterator().next();
+        transport.files.remove(transport.chunkFiles.remove(lost));
+
+        DeltaBackup.Stats next = device.backup(() -> new ByteArrayInputStream(data), 2000L, false, null);
+        assertTrue(next.reconciled);
+        assertEquals(1, next.newChunks);
+        assertArrayEquals(data, restore(backup(transport, "b")));
+    }
+
+    @Test
+    public void fullCheckReuploadsChunksDeletedRemotely() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        byte[] data = export(10000, 4);
+        DeltaBackup device = backup(transport, "a");
+        device.backup(() -> new ByteArrayInputStream(data), 1000L, false, null);
+        String lost = transport.chunkFiles.keySet().iterator().next();
+        transport.files.remove(transport.chunkFiles.remove(lost));
+        int lists = transport.lists;
+
+        DeltaBackup.Stats checked = device.backup(() -> new ByteArrayInputStream(data), 3000L, true, null);
+        assertEquals(1, checked.newChunks);
+        // The listing taken up front is fresh; no second one to verify the manifest.
+        assertEquals(lists + 1, transport.lists);
+        assertArrayEquals(data, restore(device));
+    }
+
+    @Test
+    public void fullCheckPrunesChunksOfOlderManifestsOnly() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        DeltaBackup device = backup(transport, "a");
+        List<DeltaBackup.Manifest> manifests = new ArrayList<>();
+        for (int version = 0; version < 5; version++) {
+            byte[] data = export(3000, 10 + version);
+            device.backup(() -> new ByteArrayInputStream(data), 1000L + version, false, null);
+            manifests.add(DeltaBackup.Manifest.decode(transport.manifest));
+        }
+        int stored = transport.files.size();
+
+        byte[] latest = export(3000, 20);
+        DeltaBackup.Stats stats = device.backup(() -> new ByteArrayInputStream(latest), 2000L, true, null);
+        manifests.add(DeltaBackup.Manifest.decode(transport.manifest));
+
+        assertTrue("pruned " + stats.pruned, stats.pruned > 0);
+        assertEquals(stored + stats.newChunks - stats.pruned, transport.files.size());
+        // The last KEEP_MANIFESTS backups still restore in full; nothing else is stored.
+        Set<String> needed = new HashSet<>();
+        for (DeltaBackup.Manifest manifest : manifests.subList(manifests.size() - DeltaBackup.KEEP_MANIFESTS, manifests.size())) {
+            for (DeltaBackup.Manifest.Entry entry : manifest.chunks) {
+                assertTrue(transport.files.containsKey(entry.file));
+                needed.add(entry.file);
+            }
+        }
+        assertEquals(needed, transport.files.keySet());
+        assertArrayEquals(latest, restore(backup(transport, "b")));
+
+        // The index forgot the pruned chunks: an older export uploads them again.
+        byte[] oldest = export(3000, 10);
+        DeltaBackup.Stats again = device.backup(() -> new ByteArrayInputStream(oldest), 3000L, false, null);
+        assertFalse(again.reconciled);
+        assertTrue(again.newChunks > 0);
+        assertArrayEquals(oldest, restore(device));
+    }
+
+    @Test
+    public void backupWithoutFullCheckPrunesNothing() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        DeltaBackup device = backup(transport, "a");
+        for (int version = 0; version < 5; version++) {
+            byte[] data = export(2000, 30 + version);
+            assertEquals(0, device.backup(() -> new ByteArrayInputStream(data), 1000L + version, false, null).pruned);
+        }
+        assertEquals(transport.puts, transport.files.size());
+    }
+
+    @Test
+    public void manifestHistoryRoundTrips() throws Exception {
+        DeltaBackup.Manifest manifest = new DeltaBackup.Manifest(1L, 3L, "abc",
+                Arrays.asList(new DeltaBackup.Manifest.Entry("c1", "f1", 3)),
+                Arrays.asList(Arrays.asList("f2", "f3"), Collections.<String>emptyList()));
+        DeltaBackup.Manifest decoded = DeltaBackup.Manifest.decode(manifest.encode());
+        assertEquals(manifest.history, decoded.history);
+        assertEquals(new HashSet<>(Arrays.asList("f1", "f2", "f3")), decoded.referencedFiles());
+    }
+
+    @Test
+    public void corruptChunkIsRejected() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        byte[] data = export(10000, 5);
+        DeltaBackup device = backup(transport, "a");
+        device.backup(() -> new ByteArrayInputStream(data), 1000L, false, null);
+
+        String victim = transport.chunkFiles.values().iterator().next();
+        ByteArrayOutputStream other = new ByteArrayOutputStream();
+        try (java.util.zip.GZIPOutputStream gzip = new java.util.zip.GZIPOutputStream(other)) {
+            gzip.write("not the original chunk".getBytes(ExportStream.UTF_8));
+        }
+        transport.files.put(victim, other.toByteArray());
+        try {
+            restore(device);
+            fail("corrupt chunk must be detected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test
+    public void emptyExportAndMissingManifest() throws Exception {
+        MemoryTransport transport = new MemoryTransport();
+        DeltaBackup device = backup(transport, "a");
+        assertNull(device.restore(new ByteArrayOutputStream()));
+
+        DeltaBackup.Stats stats = device.backup(() -> new ByteArrayInputStream(new byte[0]), 1000L, false, null);
+        assertEquals(0, stats.chunks);
+        assertArrayEquals(new byte[0], restore(device));
+    }
+
+    @Test
+    public void tornIndexLineIsIgnored() throws Exception {
+        File file = new File(tmp.getRoot(), "torn/chunks.idx");
+        ChunkIndex index = new ChunkIndex(file);
+        index.add("aa", "file1");
+        index.add("bb", "file2");
+        byte[] bytes = java.nio.file.Files.readAllBytes(file.toPath());
+        java.nio.file.Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+        ChunkIndex reopened = new ChunkIndex(file);
+        assertEquals("file1", reopened.remoteId("aa"));
+        assertNull(reopened.remoteId("bb"));
+        assertEquals(1, reopened.size());
+    }
+
+    @Test
+    public void manifestRejectsOtherFormats() {
+        try {
+            DeltaBackup.Manifest.decode("{\"format\":\"other\",\"version\":1}".getBytes(ExportStream.UTF_8));
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("manifest"));
+        }
+    }
+}
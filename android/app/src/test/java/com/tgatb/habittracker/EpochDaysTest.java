@@ -0,0 +1,42 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+public class EpochDaysTest {
+
+    @Test
+    public void parseAndFormat_roundTrip() {
+        assertEquals(0, EpochDays.parse("1970-01-01"));
+        assertEquals(19_782, EpochDays.parse("2024-02-29"));
+        assertEquals("2024-02-29", EpochDays.format(19_782));
+        for (int day = -1000; day < 40_000; day += 37) {
+            assertEquals(day, EpochDays.parse(EpochDays.format(day)));
+        }
+    }
+
+    @Test
+    public void dayOfWeek_matchesJsGetDay() {
+        assertEquals(4, EpochDays.dayOfWeek(EpochDays.parse("1970-01-01"))); // Thursday
+        assertEquals(0, EpochDays.dayOfWeek(EpochDays.parse("2025-06-01"))); // Sunday
+        assertEquals(6, EpochDays.dayOfWeek(EpochDays.parse("1969-12-27"))); // Saturday
+    }
+
+    @Test
+    public void fromMillis_usesLocalCalendarDay() {
+        TimeZone jakarta = TimeZone.getTimeZone("Asia/Jakarta");
+        // 2025-01-01T20:00:00Z is already Jan 2 in UTC+7.
+        assertEquals(EpochDays.parse("2025-01-02"), EpochDays.fromMillis(1_735_761_600_000L, jakarta));
+        long midnight = EpochDays.startOfDayMillis(EpochDays.parse("2025-01-02"), jakarta);
+        assertEquals(EpochDays.parse("2025-01-02"), EpochDays.fromMillis(midnight, jakarta));
+        assertEquals(EpochDays.parse("2025-01-01"), EpochDays.fromMillis(midnight - 1, jakarta));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsMalformedDates() {
+        EpochDays.parse("2025-1-01");
+    }
+}
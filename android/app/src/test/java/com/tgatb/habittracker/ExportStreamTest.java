@@ -0,0 +1,166 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ExportStreamTest {
+    private static Map<String, Object> habit(String id) {
+        Map<String, Object> habit = new LinkedHashMap<>();
+        habit.put("id", id);
+        habit.put("name", "Habit " + id);
+        habit.put("type", "good");
+        habit.put("streak", 3L);
+        habit.put("createdAt", "2024-01-01T00:00:00.000Z");
+        Map<String, Object> schedule = new LinkedHashMap<>();
+        schedule.put("type", "weekly");
+        schedule.put("daysOfWeek", Arrays.<Object>asList(1L, 3L, 5L));
+        habit.put("schedule", schedule);
+        habit.put("deviceId", null);
+        habit.put("extra", "dropped");
+        return habit;
+    }
+
+    private static Map<String, Object> log(String id, String habitId) {
+        Map<String, Object> log = new LinkedHashMap<>();
+        log.put("id", id);
+        log.put("habitId", habitId);
+        log.put("date", "2024-02-03");
+        log.put("completed", true);
+        log.put("timestamp", "2024-02-03T08:00:00.000Z");
+        log.put("source", "auto");
+        return log;
+    }
+
+    private static Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("darkMode", false);
+        settings.put("language", "en");
+        settings.put("motivatorPersonality", "adaptive");
+        settings.put("fullscreenMode", false);
+        settings.put("reminderTime", null);
+        settings.put("celebrationMotion", "reduced");
+        return settings;
+    }
+
+    private static byte[] export(boolean gzip, int habits, int logs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportStream.Writer writer = new ExportStream.Writer(out, gzip, "2024-03-01T00:00:00.000Z", habits, logs);
+        for (int i = 0; i < habits; i++) writer.habit(habit("h" + i));
+        for (int i = 0; i < logs; i++) writer.log(log("l" + i, "h" + (i % habits)));
+        writer.finish(settings());
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static List<ExportStream.Item> readAll(byte[] data) throws IOException {
+        List<ExportStream.Item> items = new ArrayList<>();
+        try (ExportStream.Reader reader = new ExportStream.Reader(new ByteArrayInputStream(data))) {
+            ExportStream.Item item;
+            while ((item = reader.next()) != null) items.add(item);
+        }
+        return items;
+    }
+
+    private static String invalidPath(String json) throws IOException {
+        try {
+            readAll(json.getBytes(ExportStream.UTF_8));
+            fail("accepted " + json);
+            return null;
+        } catch (ExportSchema.Invalid e) {
+            return e.path;
+        }
+    }
+
+    @Test
+    public void roundTripsPlainAndGzip() throws Exception {
+        byte[] plain = export(false, 3, 200);
+        byte[] gzip = export(true, 3, 200);
+        assertTrue(gzip.length < plain.length);
+        assertEquals('{', plain[0]);
+
+        for (byte[] data : new byte[][] {plain, gzip}) {
+            List<ExportStream.Item> items = readAll(data);
+            assertEquals(1 + 3 + 200 + 1, items.size());
+            assertEquals(ExportStream.Kind.META, items.get(0).kind);
+            assertEquals(3L, ((Map<?, ?>) items.get(0).value.get("counts")).get("habits"));
+            Map<String, Object> first = items.get(1).value;
+            assertEquals("h0", first.get("id"));
+            assertFalse(first.containsKey("extra"));
+            assertTrue(first.containsKey("deviceId"));
+            assertEquals(Arrays.<Object>asList(1L, 3L, 5L), ((Map<?, ?>) first.get("schedule")).get("daysOfWeek"));
+            ExportStream.Item lastLog = items.get(items.size() - 2);
+            assertEquals(ExportStream.Kind.LOG, lastLog.kind);
+            assertEquals(199, lastLog.index);
+            assertEquals("auto", lastLog.value.get("source"));
+            ExportStream.Item settings = items.get(items.size() - 1);
+            assertEquals(ExportStream.Kind.SETTINGS, settings.kind);
+            assertEquals(settings(), settings.value);
+        }
+    }
+
+    @Test
+    public void acceptsAnyKeyOrderAndSkipsUnknownKeys() throws Exception {
+        String json = "{\"settings\":{\"darkMode\":true,\"language\":\"de\",\"motivatorPersonality\":\"harsh\","
+                + "\"fullscreenMode\":false},\"logs\":[],\"junk\":{\"deep\":[1,2]},\"habits\":[],"
+                + "\"meta\":{\"exportedAt\":\"x\",\"counts\":{\"habits\":0,\"logs\":0}},\"version\":\"1\"}";
+        List<ExportStream.Item> items = readAll(json.getBytes(ExportStream.UTF_8));
+        assertEquals(2, items.size());
+        assertEquals(ExportStream.Kind.SETTINGS, items.get(0).kind);
+        assertEquals(ExportStream.Kind.META, items.get(1).kind);
+    }
+
+    @Test
+    public void reportsFirstInvalidRecordPath() throws Exception {
+        String prefix = "{\"version\":\"1\",\"meta\":{\"exportedAt\":\"x\",\"counts\":{\"habits\":0,\"logs\":2}},"
+                + "\"habits\":[],\"logs\":[";
+        String good = "{\"id\":\"a\",\"habitId\":\"h\",\"date\":\"d\",\"completed\":true,\"timestamp\":\"t\"}";
+        String bad = "{\"id\":\"b\",\"habitId\":\"h\",\"date\":\"d\",\"completed\":\"yes\",\"timestamp\":\"t\"}";
+        assertEquals("logs.1.completed", invalidPath(prefix + good + "," + bad + "]}"));
+        assertEquals("version", invalidPath("{\"version\":\"2\"}"));
+        assertEquals("settings", invalidPath(prefix + good + "]}"));
+        assertEquals("habits.0.schedule.intervalDays", invalidPath(
+                "{\"habits\":[{\"id\":\"a\",\"name\":\"n\",\"type\":\"bad\",\"streak\":0,\"createdAt\":\"c\","
+                        + "\"schedule\":{\"type\":\"interval\",\"intervalDays\":1}}]}"));
+    }
+
+    @Test
+    public void truncatedFileFailsWithoutPartialSuccess() throws Exception {
+        byte[] data = export(true, 2, 50);
+        byte[] cut = Arrays.copyOf(data, data.length / 2);
+        try {
+            readAll(cut);
+            fail("accepted truncated export");
+        } catch (IOException expected) {
+            // EOFException from gzip or a syntax error from the reader.
+        }
+    }
+
+    @Test
+    public void writerRejectsInvalidRecordsAndCountMismatch() throws Exception {
+        ExportStream.Writer writer = new ExportStream.Writer(new ByteArrayOutputStream(), false, "x", 1, 0);
+        Map<String, Object> broken = habit("h0");
+        broken.put("type", "neutral");
+        try {
+            writer.habit(broken);
+            fail();
+        } catch (ExportSchema.Invalid e) {
+            assertEquals("habits.0.type", e.path);
+        }
+        try {
+            writer.finish(settings());
+            fail();
+        } catch (ExportSchema.Invalid e) {
+            assertEquals("meta.counts.habits", e.path);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+public class HabitLogStoreTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File file;
+    private HabitLogStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(tmp.getRoot(), "logs/anonymous.bin");
+        store = new HabitLogStore(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    public void putAndGet_roundTripsAllFields() throws Exception {
+        int day = EpochDays.parse("2025-03-14");
+        store.put(new HabitLogStore.Entry("3f2a9c1e-8d4b-4f6a-9b7e-1c2d3e4f5a6b", "habit-a", day, true,
+                1_741_946_400_000L, "manual", 1_741_946_401_000L, "device-1", 3));
+
+        HabitLogStore.Entry entry = store.get("habit-a", day);
+        assertNotNull(entry);
+        assertEquals("3f2a9c1e-8d4b-4f6a-9b7e-1c2d3e4f5a6b", entry.id);
+        assertEquals("habit-a", entry.habitId);
+        assertEquals(day, entry.epochDay);
+        assertTrue(entry.completed);
+        assertEquals(1_741_946_400_000L, entry.timestamp);
+        assertEquals("manual", entry.source);
+        assertEquals(Long.valueOf(1_741_946_401_000L), entry.updatedAt);
+        assertEquals("device-1", entry.deviceId);
+        assertEquals(Integer.valueOf(3), entry.version);
+    }
+
+    @Test
+    public void put_overwritesSameHabitAndDay() throws Exception {
+        int day = EpochDays.parse("2025-01-01");
+        store.put(new HabitLogStore.Entry("a", "h", day, false, 1L, "auto"));
+        store.put(new HabitLogStore.Entry("b", "h", day, true, 2L, "manual"));
+
+        assertEquals(1, store.liveCount());
+        assertEquals(2, store.recordCount());
+        assertEquals("b", store.get("h", day).id);
+        assertTrue(store.get("h", day).completed);
+    }
+
+    @Test
+    public void range_returnsAscendingDaysWithinBounds() throws Exception {
+        int start = EpochDays.parse("2024-12-30");
+        for (int i = 5; i >= 0; i--) {
+            store.put(new HabitLogStore.Entry("id" + i, "h", start + i, i % 2 == 0, i, null));
+        }
+        store.put(new HabitLogStore.Entry("other", "h2", start + 2, true, 0L, null));
+
+        List<HabitLogStore.Entry> logs = store.range("h", start + 1, start + 4);
+        assertEquals(4, logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            assertEquals(start + 1 + i, logs.get(i).epochDay);
+        }
+        assertEquals(7, store.rangeAll(Integer.MIN_VALUE, Integer.MAX_VALUE).size());
+        assertTrue(store.range("missing", start, start + 5).isEmpty());
+    }
+
+    @Test
+    public void remove_isPersistedAcrossReopen() throws Exception {
+        int day = EpochDays.parse("2025-06-01");
+        store.put(new HabitLogStore.Entry("a", "h", day, true, 1L, null));
+        store.put(new HabitLogStore.Entry("b", "h", day + 1, true, 1L, null));
+        assertTrue(store.remove("h", day));
+        assertFalse(store.remove("h", day));
+        store.close();
+
+        store = new HabitLogStore(file);
+        assertNull(store.get("h", day));
+        assertNotNull(store.get("h", day + 1));
+        assertEquals(1, store.liveCount());
+    }
+
+    @Test
+    public void reopen_growsPastInitialMapping() throws Exception {
+        int start = EpochDays.parse("2020-01-01");
+        for (int i = 0; i < 5000; i++) {
+            store.put(new HabitLogStore.Entry("id" + i, "h" + (i % 7), start + i, i % 3 == 0, i, "manual"));
+        }
+        store.close();
+
+        store = new HabitLogStore(file);
+        assertEquals(5000, store.liveCount());
+        assertEquals("id4321", store.get("h" + (4321 % 7), start + 4321).id);
+    }
+
+    @Test
+    public void compact_dropsSupersededRecordsAndKeepsLatest() throws Exception {
+        int day = EpochDays.parse("2025-02-01");
+        for (int i = 0; i < 1000; i++) {
+            store.put(new HabitLogStore.Entry("v" + i, "h", day + (i % 10), i % 2 == 0, i, null));
+        }
+        assertTrue(store.needsCompaction());
+        assertTrue(store.compactIfNeeded());
+        assertEquals(10, store.recordCount());
+        assertEquals(10, store.liveCount());
+        assertEquals("v999", store.get("h", day + 9).id);
+        store.close();
+
+        store = new HabitLogStore(file);
+        assertEquals(10, store.recordCount());
+        assertEquals("v990", store.get("h", day).id);
+        assertFalse(store.needsCompaction());
+    }
+
+    @Test
+    public void reopen_ignoresTornTrailingRecord() throws Exception {
+        int day = EpochDays.parse("2025-02-01");
+        store.put(new HabitLogStore.Entry("a", "h", day, true, 1L, null));
+        store.put(new HabitLogStore.Entry("b", "h", day + 1, true, 1L, null));
+        store.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(HabitLogStore.HEADER_SIZE + HabitLogStore.RECORD_SIZE + 10);
+        }
+
+        store = new HabitLogStore(file);
+        assertEquals(1, store.liveCount());
+        assertNotNull(store.get("h", day));
+        assertNull(store.get("h", day + 1));
+    }
+
+    @Test
+    public void longAndNonAsciiIds_roundTripThroughReopenAndCompaction() throws Exception {
+        String longId = "log-3f2a9c1e-8d4b-4f6a-9b7e-1c2d3e4f5a6b-2025-02-01";
+        String accented = "caf\u00e9-\u65e5\u8a18";
+        String emoji = "run-\ud83c\udfc3-" + longId;
+        int day = EpochDays.parse("2025-02-01");
+        store.put(new HabitLogStore.Entry(longId, "h", day, true, 1L, null));
+        store.put(new HabitLogStore.Entry(accented, "h", day + 1, true, 1L, null));
+        store.put(new HabitLogStore.Entry(emoji, "h", day + 2, true, 1L, null));
+        assertEquals(longId, store.get("h", day).id);
+        assertEquals(accented, store.get("h", day + 1).id);
+        store.compact();
+        store.close();
+
+        store = new HabitLogStore(file);
+        assertEquals(3, store.liveCount());
+        assertEquals(longId, store.get("h", day).id);
+        assertEquals(accented, store.get("h", day + 1).id);
+        assertEquals(emoji, store.get("h", day + 2).id);
+        // The keys file kept its interned ids intact (no truncation on reload).
+        store.put(new HabitLogStore.Entry("after", "h2", day, true, 1L, null));
+        store.close();
+        store = new HabitLogStore(file);
+        assertEquals(emoji, store.get("h", day + 2).id);
+        assertEquals("after", store.get("h2", day).id);
+    }
+
+    @Test
+    public void validate_flagsUnstorableEntries() throws Exception {
+        StringBuilder huge = new StringBuilder();
+        while (huge.length() <= HabitLogStore.MAX_KEY_BYTES) huge.append("0123456789");
+        assertNull(HabitLogStore.validate(new HabitLogStore.Entry("a", "h", 0, true, 0L, null)));
+        assertNotNull(HabitLogStore.validate(new HabitLogStore.Entry(null, "h", 0, true, 0L, null)));
+        assertNotNull(HabitLogStore.validate(new HabitLogStore.Entry("", "h", 0, true, 0L, null)));
+        assertNotNull(HabitLogStore.validate(new HabitLogStore.Entry("a", null, 0, true, 0L, null)));
+        assertNotNull(HabitLogStore.validate(new HabitLogStore.Entry(huge.toString(), "h", 0, true, 0L, null)));
+        try {
+            store.put(new HabitLogStore.Entry(huge.toString(), "h", 0, true, 0L, null));
+            fail("oversized id accepted");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, store.recordCount());
+        }
+    }
+
+    @Test
+    public void reopen_readsVersionOneFiles() throws Exception {
+        store.put(new HabitLogStore.Entry("3f2a9c1e-8d4b-4f6a-9b7e-1c2d3e4f5a6b", "h", 100, true, 1L, null));
+        store.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.write(1);
+            raf.write(0);
+        }
+        store = new HabitLogStore(file);
+        assertEquals("3f2a9c1e-8d4b-4f6a-9b7e-1c2d3e4f5a6b", store.get("h", 100).id);
+    }
+
+    @Test
+    public void clear_emptiesStore() throws Exception {
+        store.put(new HabitLogStore.Entry("a", "h", 100, true, 1L, null));
+        store.clear();
+        assertEquals(0, store.liveCount());
+        assertNull(store.get("h", 100));
+        assertTrue(store.habitIds().isEmpty());
+    }
+}
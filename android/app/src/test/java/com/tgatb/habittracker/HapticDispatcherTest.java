@@ -0,0 +1,109 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class HapticDispatcherTest {
+    private static final long MS = 1_000_000L;
+
+    private final List<String> played = new ArrayList<>();
+    private HapticDispatcher<String> dispatcher;
+
+    @Before
+    public void setUp() {
+        dispatcher = new HapticDispatcher<>(played::add, HapticDispatcher.DEFAULT_MIN_GAP_MS);
+    }
+
+    private static HapticDispatcher.Request<String> req(String effect, int priority) {
+        return new HapticDispatcher.Request<>(effect, priority);
+    }
+
+    @Test
+    public void idleWhenNothingQueued() {
+        assertEquals(HapticDispatcher.IDLE, dispatcher.runOnce(0L));
+        assertTrue(played.isEmpty());
+    }
+
+    @Test
+    public void eventInsideGapIsDelayedNotDropped() {
+        long t = 1_000 * MS;
+        dispatcher.offer(req("button", HapticEvent.PRIORITY_AMBIENT));
+        assertEquals(0L, dispatcher.runOnce(t));
+
+        dispatcher.offer(req("streak", HapticEvent.PRIORITY_CRITICAL));
+        long wait = dispatcher.runOnce(t + 5 * MS);
+        assertEquals(23 * MS, wait);
+        assertEquals(Arrays.asList("button"), played);
+
+        dispatcher.runOnce(t + 28 * MS);
+        assertEquals(Arrays.asList("button", "streak"), played);
+    }
+
+    @Test
+    public void higherPriorityReplacesPending_lowerIsCoalesced() {
+        dispatcher.offer(req("button", HapticEvent.PRIORITY_AMBIENT));
+        dispatcher.offer(req("streak", HapticEvent.PRIORITY_CRITICAL));
+        dispatcher.offer(req("selection", HapticEvent.PRIORITY_AMBIENT));
+        dispatcher.runOnce(1_000 * MS);
+
+        assertEquals(Arrays.asList("streak"), played);
+        assertEquals(2, dispatcher.coalescedCount());
+        assertEquals(1, dispatcher.playedCount());
+    }
+
+    @Test
+    public void equalPriorityKeepsLatest() {
+        dispatcher.offer(req("goodDone", HapticEvent.PRIORITY_ACTION));
+        dispatcher.offer(req("undo", HapticEvent.PRIORITY_ACTION));
+        dispatcher.runOnce(1_000 * MS);
+        assertEquals(Arrays.asList("undo"), played);
+    }
+
+    @Test
+    public void sequenceStepsPlayInDueOrder() {
+        long t = 1_000 * MS;
+        dispatcher.schedule(req("third", HapticEvent.PRIORITY_ACTION), 200, t);
+        dispatcher.schedule(req("first", HapticEvent.PRIORITY_ACTION), 0, t);
+        dispatcher.schedule(req("second", HapticEvent.PRIORITY_ACTION), 80, t);
+
+        assertEquals(0L, dispatcher.runOnce(t));
+        assertEquals(80 * MS, dispatcher.runOnce(t));
+        dispatcher.runOnce(t + 80 * MS);
+        assertEquals(120 * MS, dispatcher.runOnce(t + 80 * MS));
+        dispatcher.runOnce(t + 200 * MS);
+
+        assertEquals(Arrays.asList("first", "second", "third"), played);
+        assertEquals(HapticDispatcher.IDLE, dispatcher.runOnce(t + 200 * MS));
+    }
+
+    @Test
+    public void cancelPendingClearsSlotAndSchedule() {
+        dispatcher.offer(req("button", HapticEvent.PRIORITY_AMBIENT));
+        dispatcher.schedule(req("streak", HapticEvent.PRIORITY_CRITICAL), 50, 0L);
+        dispatcher.cancelPending();
+        assertEquals(HapticDispatcher.IDLE, dispatcher.runOnce(100 * MS));
+        assertTrue(played.isEmpty());
+    }
+
+    @Test
+    public void dispatchThreadPlaysOfferedEvents() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        HapticDispatcher<String> live = new HapticDispatcher<>(e -> latch.countDown(), 1L);
+        live.start(Thread::new);
+        try {
+            live.offer(req("button", HapticEvent.PRIORITY_AMBIENT));
+            live.schedule(req("streak", HapticEvent.PRIORITY_CRITICAL), 20);
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+        } finally {
+            live.shutdown();
+        }
+    }
+}
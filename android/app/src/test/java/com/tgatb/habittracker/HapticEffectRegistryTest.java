@@ -0,0 +1,93 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HapticEffectRegistryTest {
+
+    @Test
+    public void everyEventAndProfile_isCompiledOnceUpFront() {
+        List<HapticPattern> compiled = new ArrayList<>();
+        HapticEffectRegistry<HapticPattern> registry = new HapticEffectRegistry<>(pattern -> {
+            compiled.add(pattern);
+            return pattern;
+        });
+
+        int pairs = HapticEvent.values().length * HapticProfile.values().length;
+        assertEquals(pairs, compiled.size());
+        for (HapticEvent event : HapticEvent.values()) {
+            for (HapticProfile profile : HapticProfile.values()) {
+                assertSame(HapticEffectRegistry.pattern(event, profile), registry.effect(event, profile));
+            }
+        }
+        // Lookups must not compile anything new.
+        registry.effect(HapticEvent.STREAK, HapticProfile.PUNCHY);
+        assertEquals(pairs, compiled.size());
+    }
+
+    @Test
+    public void tableKeepsExistingPatterns() {
+        HapticPattern button = HapticEffectRegistry.pattern(HapticEvent.BUTTON, HapticProfile.PUNCHY);
+        assertTrue(button.oneShot);
+        assertArrayEquals(new long[] {12}, button.timings());
+        assertArrayEquals(new int[] {180}, button.amplitudes());
+
+        HapticPattern streak = HapticEffectRegistry.pattern(HapticEvent.STREAK, HapticProfile.BALANCED);
+        assertArrayEquals(new long[] {0, 9, 13, 11, 17, 14}, streak.timings());
+        assertArrayEquals(new int[] {0, 130, 0, 155, 0, 180}, streak.amplitudes());
+
+        assertSame(HapticEffectRegistry.pattern(HapticEvent.FAILURE, HapticProfile.SUBTLE),
+                HapticEffectRegistry.pattern(HapticEvent.WARNING, HapticProfile.SUBTLE));
+    }
+
+    @Test
+    public void idsResolveWithLegacyFallbacks() {
+        assertEquals(HapticEvent.GOOD_DONE, HapticEvent.fromId("goodDone"));
+        assertEquals(HapticEvent.BUTTON, HapticEvent.fromId("victory"));
+        assertEquals(HapticEvent.BUTTON, HapticEvent.fromId(null));
+        assertEquals(HapticProfile.PUNCHY, HapticProfile.fromId("punchy"));
+        assertEquals(HapticProfile.BALANCED, HapticProfile.fromId("loud"));
+    }
+
+    @Test
+    public void customPatterns_areClampedAndReplayedById() {
+        HapticEffectRegistry<HapticPattern> registry = new HapticEffectRegistry<>(pattern -> pattern);
+        registry.register("celebrate", HapticPattern.waveform(new long[] {0, 20, 10, 30}, new int[] {0, 400, 0, -5}));
+
+        HapticPattern custom = registry.custom("celebrate");
+        assertArrayEquals(new int[] {0, 255, 0, 0}, custom.amplitudes());
+        assertEquals(60, custom.durationMs());
+        assertTrue(registry.unregister("celebrate"));
+        assertNull(registry.custom("celebrate"));
+    }
+
+    @Test
+    public void customPatterns_areBounded() {
+        HapticEffectRegistry<HapticPattern> registry = new HapticEffectRegistry<>(pattern -> pattern);
+        HapticPattern pattern = HapticPattern.waveform(new long[] {0, 10}, new int[] {0, 100});
+        for (int i = 0; i < HapticEffectRegistry.MAX_CUSTOM_PATTERNS; i++) {
+            registry.register("p" + i, pattern);
+        }
+        registry.register("p0", pattern); // replacing is always allowed
+        try {
+            registry.register("overflow", pattern);
+            fail("expected the registry to be full");
+        } catch (IllegalStateException expected) {
+            assertEquals(HapticEffectRegistry.MAX_CUSTOM_PATTERNS, registry.customCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void waveform_rejectsMismatchedArrays() {
+        HapticPattern.waveform(new long[] {0, 10}, new int[] {0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void waveform_rejectsSilentPatterns() {
+        HapticPattern.waveform(new long[] {0, 0}, new int[] {0, 0});
+    }
+}
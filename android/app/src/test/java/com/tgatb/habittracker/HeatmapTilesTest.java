@@ -0,0 +1,163 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class HeatmapTilesTest {
+    private static final int YEAR = 2025;
+    private static final int JAN_1 = EpochDays.fromCivil(YEAR, 1, 1);
+    private static final int TODAY = EpochDays.fromCivil(YEAR, 6, 15);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HabitLogStore store;
+    private DailyRollup rollup;
+    private File tileDir;
+    private int encodes;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new HabitLogStore(new File(tmp.getRoot(), "anonymous.bin"));
+        rollup = DailyRollup.open(new File(tmp.getRoot(), "anonymous.rollup"), store, new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("read", "Read", false, JAN_1, HabitSchedule.daily()),
+                new HabitSnapshot.Habit("smoke", "Smoke", true, JAN_1, HabitSchedule.daily()))));
+        tileDir = new File(tmp.getRoot(), "tiles");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    private HeatmapTiles tiles(long memory, long disk) {
+        return new HeatmapTiles(store, rollup, new TileCache(tileDir, memory, disk), tile -> {
+            encodes++;
+            // Stand-in for PNG: enough to tell tiles apart.
+            byte[] out = new byte[tile.argb.length];
+            for (int i = 0; i < out.length; i++) out[i] = (byte) tile.argb[i];
+            return out;
+        });
+    }
+
+    private void log(String habitId, int day, boolean completed) throws Exception {
+        store.put(new HabitLogStore.Entry(habitId + day, habitId, day, completed, 0L, "manual"));
+    }
+
+    @Test
+    public void laysOutWeeksAsColumnsWithSundayOnTop() {
+        // 2025-01-01 is a Wednesday.
+        assertEquals(3, EpochDays.dayOfWeek(JAN_1));
+        assertEquals(53, HeatmapRenderer.columns(YEAR));
+
+        byte[] levels = new byte[HeatmapRenderer.dayCount(YEAR)];
+        levels[0] = 4;
+        HeatmapRenderer.Tile tile = HeatmapRenderer.render(YEAR, levels, new HeatmapRenderer.Style(3, 1, false));
+        assertEquals(53 * 4 - 1, tile.width);
+        assertEquals(7 * 4 - 1, tile.height);
+
+        int[] palette = HeatmapRenderer.palette(false);
+        assertEquals(0, tile.argb[0]); // Sunday before the year starts
+        assertEquals(palette[4], tile.argb[(3 * 4) * tile.width]); // Jan 1, row 3
+        assertEquals(0, tile.argb[(3 * 4 + 3) * tile.width]); // gap below it
+        assertEquals(palette[0], tile.argb[(4 * 4) * tile.width]); // Jan 2, empty
+        assertEquals(SystemUiState.PURPLE, palette[4]);
+        assertNotEquals(HeatmapRenderer.palette(true)[0], palette[0]);
+    }
+
+    @Test
+    public void habitLevelsFollowHabitType() throws Exception {
+        HeatmapTiles tiles = tiles(1 << 20, 1 << 20);
+        log("read", JAN_1, true);
+        log("read", JAN_1 + 1, false);
+        log("smoke", JAN_1, false);
+        log("smoke", JAN_1 + 1, true);
+        log("read", TODAY + 1, true);
+
+        byte[] good = tiles.habitLevels("read", false, YEAR, TODAY);
+        assertEquals(4, good[0]);
+        assertEquals(0, good[1]);
+        assertEquals(0, good[TODAY + 1 - JAN_1]); // future days stay empty
+
+        byte[] bad = tiles.habitLevels("smoke", true, YEAR, TODAY);
+        assertEquals(4, bad[0]);
+        assertEquals(0, bad[1]);
+    }
+
+    @Test
+    public void aggregateLevelsAreShareOfPositiveOutcomes() throws Exception {
+        HeatmapTiles tiles = tiles(1 << 20, 1 << 20);
+        log("read", JAN_1, true);
+        log("smoke", JAN_1, false);
+        log("read", JAN_1 + 1, true);
+        log("smoke", JAN_1 + 1, true);
+        log("read", JAN_1 + 2, true);
+
+        byte[] levels = tiles.aggregateLevels(YEAR, TODAY);
+        assertEquals(4, levels[0]);
+        assertEquals(2, levels[1]);
+        assertEquals(2, levels[2]); // smoke left untracked
+        assertEquals(0, levels[3]);
+    }
+
+    @Test
+    public void servesRepeatsFromCacheAndRedrawsTouchedYears() throws Exception {
+        HeatmapTiles tiles = tiles(1 << 20, 1 << 20);
+        HeatmapRenderer.Style style = new HeatmapRenderer.Style(4, 1, true);
+        log("read", JAN_1, true);
+
+        HeatmapTiles.Result first = tiles.render("read", false, YEAR, style, TODAY);
+        assertFalse(first.cached);
+        assertTrue(first.file.isFile());
+        HeatmapTiles.Result again = tiles.render("read", false, YEAR, style, TODAY);
+        assertTrue(again.cached);
+        assertEquals(first.key, again.key);
+        assertEquals(first.width, again.width);
+        assertEquals(1, encodes);
+
+        // Another year's write leaves this tile alone.
+        log("read", EpochDays.fromCivil(YEAR - 1, 12, 31), true);
+        assertTrue(tiles.render("read", false, YEAR, style, TODAY).cached);
+
+        log("read", JAN_1 + 1, true);
+        HeatmapTiles.Result redrawn = tiles.render("read", false, YEAR, style, TODAY);
+        assertFalse(redrawn.cached);
+        assertNotEquals(first.key, redrawn.key);
+        assertFalse(first.file.exists());
+        assertEquals(2, encodes);
+
+        // Disk survives a new process; memory does not need to.
+        HeatmapTiles fresh = tiles(1 << 20, 1 << 20);
+        assertTrue(fresh.render("read", false, YEAR, style, TODAY).cached);
+        assertEquals(2, encodes);
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsed() throws Exception {
+        TileCache cache = new TileCache(tileDir, 250, 250);
+        byte[] tile = new byte[100];
+        cache.put("a", tile);
+        File b = cache.put("b", tile);
+        assertNotNull(cache.get("a"));
+        new File(tileDir, "a.png").setLastModified(System.currentTimeMillis() + 10_000);
+        cache.put("c", tile);
+
+        assertNull(cache.get("b"));
+        assertFalse(b.exists());
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertTrue(cache.memoryBytes() <= 250);
+        assertTrue(cache.diskBytes() <= 250);
+
+        assertEquals(2, cache.invalidate("a") + cache.invalidate("zzz"));
+        assertNull(cache.get("a"));
+    }
+}
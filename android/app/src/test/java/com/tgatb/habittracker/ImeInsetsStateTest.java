@@ -0,0 +1,67 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ImeInsetsStateTest {
+    @Test
+    public void extraBottom_subtractsSystemBars() {
+        assertEquals(800, ImeInsetsState.extraBottom(900, 100, true));
+        assertEquals(0, ImeInsetsState.extraBottom(900, 100, false));
+        assertEquals(0, ImeInsetsState.extraBottom(50, 100, true));
+    }
+
+    @Test
+    public void withoutAnimation_commitsImmediately() {
+        ImeInsetsState state = new ImeInsetsState();
+        assertTrue(state.onApply(600, true));
+        assertEquals(600, state.committedExtra());
+        assertFalse(state.onApply(600, true));
+        assertTrue(state.consumeDirty());
+        assertFalse(state.consumeDirty());
+    }
+
+    @Test
+    public void opening_translatesPerFrameAndCommitsOnceAtEnd() {
+        ImeInsetsState state = new ImeInsetsState();
+        state.onPrepare();
+        // Window reports the end state before the first frame.
+        assertFalse(state.onApply(600, true));
+        assertEquals(0, state.committedExtra());
+
+        assertEquals(-150f, state.onProgress(150, true), 0f);
+        assertEquals(-450f, state.onProgress(450, true), 0f);
+        assertEquals(0, state.committedExtra());
+        assertTrue(state.consumeDirty());
+
+        assertEquals(600, state.onEnd());
+        assertFalse(state.isAnimating());
+        assertEquals(600, state.currentExtra());
+        assertTrue(state.isImeVisible());
+        assertTrue(state.consumeDirty());
+    }
+
+    @Test
+    public void closing_keepsPaddingWithoutOffsetUntilEnd() {
+        ImeInsetsState state = new ImeInsetsState();
+        state.onApply(600, true);
+        state.onPrepare();
+        assertFalse(state.onApply(0, false));
+
+        assertEquals(0f, state.onProgress(400, true), 0f);
+        assertEquals(0f, state.onProgress(100, true), 0f);
+        assertEquals(600, state.committedExtra());
+
+        assertEquals(0, state.onEnd());
+        assertFalse(state.isImeVisible());
+    }
+
+    @Test
+    public void unchangedFramesDoNotDirtyState() {
+        ImeInsetsState state = new ImeInsetsState();
+        state.onPrepare();
+        state.onProgress(0, false);
+        assertFalse(state.consumeDirty());
+    }
+}
@@ -0,0 +1,171 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public class JankTelemetryTest {
+    private static final long MS = 1_000_000L;
+    private static final long BUDGET = 16_666_666L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void histogramBucketsAreContiguousAndWithinOneSixteenth() {
+        for (int b = 0; b < FrameHistogram.BUCKETS - 1; b++) {
+            assertEquals(FrameHistogram.upperBound(b) + 1, FrameHistogram.lowerBound(b + 1));
+            assertEquals(b, FrameHistogram.bucketOf(FrameHistogram.lowerBound(b)));
+            assertEquals(b, FrameHistogram.bucketOf(FrameHistogram.upperBound(b)));
+        }
+        for (long v = 16; v < 1 << 20; v = v * 3 + 1) {
+            int b = FrameHistogram.bucketOf(v);
+            long width = FrameHistogram.upperBound(b) - FrameHistogram.lowerBound(b) + 1;
+            assertTrue(width * FrameHistogram.SUB_BUCKETS <= v);
+        }
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        FrameHistogram h = new FrameHistogram();
+        assertEquals(0, h.percentile(50));
+        for (int i = 1; i <= 100; i++) h.record(i * 1000L);
+        assertEquals(100, h.count());
+        assertEquals(100_000L, h.maxMicros());
+        assertNear(50_000L, h.percentile(50));
+        assertNear(90_000L, h.percentile(90));
+        assertNear(99_000L, h.percentile(99));
+        assertEquals(100_000L, h.percentile(100));
+
+        FrameHistogram other = new FrameHistogram();
+        other.record(5_000_000_000_000L);
+        h.merge(other);
+        assertEquals(101, h.count());
+        assertEquals(FrameHistogram.MAX_MICROS, h.maxMicros());
+        h.reset();
+        assertEquals(0, h.count());
+    }
+
+    @Test
+    public void ringDropsWhenFullAndDrainsInOrder() {
+        FrameRing ring = new FrameRing(4);
+        for (int i = 1; i <= 4; i++) assertEquals(i, ring.offer(i * 10L, i, i % 2 == 0));
+        assertEquals(-1, ring.offer(99L, 0, false));
+        assertEquals(1, ring.dropped());
+
+        final StringBuilder seen = new StringBuilder();
+        assertEquals(4, ring.drain((micros, tag, slow) -> seen.append(micros).append('/').append(tag)
+                .append(slow ? "s " : " ")));
+        assertEquals("10/1 20/2s 30/3 40/4s ", seen.toString());
+        assertEquals(0, ring.size());
+        assertEquals(1, ring.offer(FrameRing.MICROS_MASK + 5, 255, true));
+        ring.drain((micros, tag, slow) -> {
+            assertEquals(FrameRing.MICROS_MASK, micros);
+            assertEquals(255, tag);
+            assertTrue(slow);
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ringCapacityMustBePowerOfTwo() {
+        new FrameRing(6);
+    }
+
+    @Test
+    public void countsSlowAndFrozenFramesPerScreen() {
+        JankTelemetry telemetry = new JankTelemetry();
+        telemetry.setScreen("home");
+        for (int i = 0; i < 8; i++) telemetry.onFrame(8 * MS, BUDGET);
+        telemetry.onFrame(30 * MS, BUDGET);
+        telemetry.setScreen("history");
+        telemetry.onFrame(12 * MS, BUDGET);
+        telemetry.onFrame(800 * MS, BUDGET);
+        telemetry.onDropped(3);
+        assertEquals("history", telemetry.screen());
+
+        JankTelemetry.Report report = telemetry.report();
+        assertEquals(11, report.total.frames);
+        assertEquals(2, report.total.slow);
+        assertEquals(1, report.total.frozen);
+        assertEquals(3, report.dropped);
+        assertEquals(2, report.screens.size());
+
+        JankTelemetry.Screen home = report.screens.get(0);
+        assertEquals("home", home.tag);
+        assertEquals(9, home.frames);
+        assertEquals(1, home.slow);
+        assertEquals(0, home.frozen);
+        assertNear(8_000L, home.p50Micros);
+        assertEquals(30_000L, home.p99Micros);
+
+        JankTelemetry.Screen history = report.screens.get(1);
+        assertEquals(2, history.frames);
+        assertEquals(1, history.frozen);
+        assertEquals(800_000L, history.maxMicros);
+    }
+
+    @Test
+    public void intervalsAreIndependentOfTheSession() {
+        JankTelemetry telemetry = new JankTelemetry();
+        telemetry.onFrame(5 * MS, BUDGET);
+        assertEquals(1, telemetry.takeInterval().total.frames);
+        telemetry.onFrame(5 * MS, BUDGET);
+        assertEquals(1, telemetry.takeInterval().screens.get(0).frames);
+        assertEquals(0, telemetry.takeInterval().screens.size());
+        assertEquals(2, telemetry.report().total.frames);
+        assertEquals(JankTelemetry.DEFAULT_SCREEN, telemetry.report().screens.get(0).tag);
+        telemetry.reset();
+        assertEquals(0, telemetry.report().total.frames);
+    }
+
+    @Test
+    public void signalsDrainAtHalfCapacityAndCapsScreens() {
+        JankTelemetry telemetry = new JankTelemetry();
+        int signals = 0;
+        for (int i = 0; i < JankTelemetry.RING_CAPACITY; i++) {
+            if (telemetry.onFrame(MS, BUDGET)) signals++;
+        }
+        assertEquals(1, signals);
+        assertEquals(JankTelemetry.RING_CAPACITY, telemetry.drain());
+
+        for (int i = 0; i < JankTelemetry.MAX_SCREENS + 5; i++) telemetry.setScreen("s" + i);
+        assertEquals(JankTelemetry.DEFAULT_SCREEN, telemetry.screen());
+        telemetry.setScreen("s3");
+        assertEquals("s3", telemetry.screen());
+    }
+
+    @Test
+    public void logRoundTripsAndRolls() throws Exception {
+        FrameMetricsLog log = new FrameMetricsLog(new File(tmp.getRoot(), "frames.log"));
+        JankTelemetry.Screen home = new JankTelemetry.Screen("home", 120, 4, 1, 8000, 15000, 40000, 900000);
+        JankTelemetry.Screen odd = new JankTelemetry.Screen("a\tb", 1, 0, 0, 1, 1, 1, 1);
+        log.append("1.0+1", 42L, Arrays.asList(home, odd));
+        List<FrameMetricsLog.Entry> entries = log.read();
+        assertEquals(2, entries.size());
+        assertEquals("1.0+1", entries.get(0).release);
+        assertEquals(42L, entries.get(0).recordedAt);
+        assertEquals(120, entries.get(0).screen.frames);
+        assertEquals(40000, entries.get(0).screen.p99Micros);
+        assertEquals(900000, entries.get(0).screen.maxMicros);
+        assertEquals("a_b", entries.get(1).screen.tag);
+        assertNull(FrameMetricsLog.decode("garbage"));
+
+        for (int i = 0; i < FrameMetricsLog.MAX_LINES; i++) log.append("1.0+1", i, Arrays.asList(home));
+        entries = log.read();
+        assertEquals(FrameMetricsLog.MAX_LINES, entries.size());
+        assertEquals(FrameMetricsLog.MAX_LINES - 1, entries.get(entries.size() - 1).recordedAt);
+        log.clear();
+        assertEquals(0, log.read().size());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / FrameHistogram.SUB_BUCKETS);
+    }
+}
@@ -0,0 +1,236 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class KvStoreTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir() {
+        return new File(tmp.getRoot(), "kv");
+    }
+
+    private File wal(long gen) {
+        return new File(dir(), KvStore.WAL_PREFIX + gen);
+    }
+
+    @Test
+    public void namespacesFollowScopedKey() {
+        assertEquals("uid123", KvStore.namespaceOf("habits::uid123"));
+        assertEquals("anonymous", KvStore.namespaceOf("user_settings::anonymous"));
+        assertEquals(KvStore.GLOBAL_NAMESPACE, KvStore.namespaceOf("user_settings"));
+        assertEquals(KvStore.GLOBAL_NAMESPACE, KvStore.namespaceOf("broken::"));
+    }
+
+    @Test
+    public void writesSurviveReopen() throws Exception {
+        KvStore store = new KvStore(dir());
+        store.put("a::x", "1");
+        Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("b::x", "2");
+        batch.put("c::x", "\u00e9\u00e8");
+        store.apply(batch, Collections.singletonList("a::x"));
+        store.close();
+
+        KvStore reopened = new KvStore(dir());
+        Map<String, String> values = reopened.getMany(Arrays.asList("a::x", "b::x", "c::x"));
+        assertNull(values.get("a::x"));
+        assertEquals("2", values.get("b::x"));
+        assertEquals("\u00e9\u00e8", values.get("c::x"));
+        assertEquals(0L, reopened.recoveredTruncatedBytes());
+        reopened.close();
+    }
+
+    @Test
+    public void truncatedRecordIsDroppedAndLogRepaired() throws Exception {
+        KvStore store = new KvStore(dir());
+        store.put("first", "kept");
+        store.sync();
+        long intact = wal(0).length();
+        Map<String, String> batch = new HashMap<>();
+        batch.put("second", "lost");
+        batch.put("third", "lost");
+        store.apply(batch, Collections.<String>emptyList());
+        store.close();
+
+        long full = wal(0).length();
+        for (long cut = intact + 1; cut < full; cut += 5) {
+            try (RandomAccessFile raf = new RandomAccessFile(wal(0), "rw")) {
+                raf.setLength(cut);
+            }
+            KvStore recovered = new KvStore(dir());
+            assertEquals("kept", recovered.get("first"));
+            // The multi-set was one record: none of it may appear.
+            assertNull(recovered.get("second"));
+            assertNull(recovered.get("third"));
+            assertEquals(cut - intact, recovered.recoveredTruncatedBytes());
+            assertEquals(intact, wal(0).length());
+
+            recovered.put("after", "ok");
+            recovered.close();
+            KvStore again = new KvStore(dir());
+            assertEquals("ok", again.get("after"));
+            again.remove("after");
+            again.close();
+            try (RandomAccessFile raf = new RandomAccessFile(wal(0), "rw")) {
+                raf.setLength(intact);
+            }
+        }
+    }
+
+    @Test
+    public void corruptedRecordStopsReplay() throws Exception {
+        KvStore store = new KvStore(dir());
+        store.put("a", "1");
+        store.sync();
+        long intact = wal(0).length();
+        store.put("b", "2");
+        store.put("c", "3");
+        store.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(wal(0), "rw")) {
+            raf.seek(intact + 10);
+            raf.write(0x7F);
+        }
+        KvStore recovered = new KvStore(dir());
+        assertEquals("1", recovered.get("a"));
+        assertNull(recovered.get("b"));
+        assertNull(recovered.get("c"));
+        recovered.close();
+    }
+
+    @Test
+    public void corruptSnapshotIsMovedAsideAndLogsStillReplay() throws Exception {
+        for (long offset : new long[] {0L, 30L}) { // the magic, then an entry
+            KvStore store = new KvStore(dir());
+            store.put("folded", "only in snapshot");
+            store.sync();
+            store.compact();
+            store.put("late", "write");
+            store.close();
+
+            File snapshot = new File(dir(), KvStore.SNAPSHOT_NAME);
+            try (RandomAccessFile raf = new RandomAccessFile(snapshot, "rw")) {
+                raf.seek(offset);
+                raf.write(raf.read() ^ 0x01);
+            }
+
+            KvStore recovered = new KvStore(dir());
+            assertTrue(recovered.recoveredCorruptSnapshot());
+            assertNull(recovered.get("folded"));
+            assertEquals("write", recovered.get("late"));
+            assertFalse(snapshot.exists());
+            assertTrue(new File(dir(), KvStore.CORRUPT_SNAPSHOT_NAME).exists());
+
+            recovered.put("folded", "restored");
+            recovered.close();
+            KvStore again = new KvStore(dir());
+            assertFalse(again.recoveredCorruptSnapshot());
+            assertEquals("restored", again.get("folded"));
+            assertEquals("write", again.get("late"));
+            again.close();
+            for (File file : dir().listFiles()) {
+                assertTrue(file.delete());
+            }
+        }
+    }
+
+    @Test
+    public void compactionFoldsLogIntoSnapshot() throws Exception {
+        KvStore store = new KvStore(dir());
+        String value = new String(new char[1024]).replace('\0', 'v');
+        for (int i = 0; i < 400; i++) {
+            store.put("key" + (i % 10), value + i);
+        }
+        store.sync();
+        assertTrue(store.needsCompaction());
+
+        store.compact();
+        store.put("late", "write");
+        store.close();
+
+        assertFalse(wal(0).exists());
+        assertTrue(wal(1).exists());
+        assertTrue(new File(dir(), KvStore.SNAPSHOT_NAME).exists());
+
+        KvStore reopened = new KvStore(dir());
+        assertEquals(11, reopened.size());
+        assertEquals(value + 399, reopened.get("key9"));
+        assertEquals("write", reopened.get("late"));
+        assertFalse(reopened.needsCompaction());
+        reopened.close();
+    }
+
+    @Test
+    public void crashBeforeSnapshotReplaysBothLogs() throws Exception {
+        KvStore store = new KvStore(dir());
+        store.put("a", "1");
+        store.compact();
+        store.put("b", "2");
+        store.close();
+        // Simulate a crash after the generation switch but before the snapshot rename.
+        assertTrue(new File(dir(), KvStore.SNAPSHOT_NAME).delete());
+        try (RandomAccessFile raf = new RandomAccessFile(wal(0), "rw")) {
+            raf.writeInt(KvStore.WAL_MAGIC);
+            raf.writeInt(KvStore.FORMAT_VERSION);
+            byte[] record = KvStore.encodeRecord(Collections.singletonMap("a", "1"), Collections.<String>emptyList());
+            raf.write(record);
+        }
+
+        KvStore recovered = new KvStore(dir());
+        assertEquals("1", recovered.get("a"));
+        assertEquals("2", recovered.get("b"));
+        assertEquals(1L, recovered.generation());
+        recovered.close();
+    }
+
+    @Test
+    public void concurrentWritersShareFsyncs() throws Exception {
+        final KvStore store = new KvStore(dir());
+        final int threads = 8;
+        final int writes = 50;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < writes; i++) {
+                        store.awaitDurable(store.put("t" + id + "::" + i, Integer.toString(i)));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        assertEquals(threads * writes, store.size());
+        assertTrue(store.syncCount() <= threads * writes);
+        store.close();
+
+        KvStore reopened = new KvStore(dir());
+        assertEquals(threads * writes, reopened.size());
+        reopened.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyStatsTest {
+    @Test
+    public void emptyStatsReportNoSamples() {
+        LatencyStats stats = new LatencyStats();
+        assertEquals(-1, stats.medianNanos());
+        LatencyStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(0, snapshot.count);
+        assertEquals(-1, snapshot.p90Nanos);
+        assertEquals(-1, snapshot.lastId);
+    }
+
+    @Test
+    public void reportsNearestRankPercentiles() {
+        LatencyStats stats = new LatencyStats();
+        for (int i = 1; i <= 10; i++) stats.record(i, i * 1_000_000L);
+        LatencyStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(10, snapshot.count);
+        assertEquals(5_000_000L, snapshot.p50Nanos);
+        assertEquals(9_000_000L, snapshot.p90Nanos);
+        assertEquals(10_000_000L, snapshot.maxNanos);
+        assertEquals(10, snapshot.lastId);
+        assertEquals(10_000_000L, snapshot.lastNanos);
+        assertEquals(5_000_000L, stats.medianNanos());
+    }
+
+    @Test
+    public void keepsOnlyTheLatestWindow() {
+        LatencyStats stats = new LatencyStats();
+        for (int i = 0; i < LatencyStats.WINDOW; i++) stats.record(i, 500L);
+        for (int i = 0; i < LatencyStats.WINDOW; i++) stats.record(i, 20L);
+        LatencyStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(2 * LatencyStats.WINDOW, snapshot.count);
+        assertEquals(20L, snapshot.maxNanos);
+
+        stats.record(99, -5L);
+        assertEquals(2 * LatencyStats.WINDOW, stats.snapshot().count);
+        stats.reset();
+        assertEquals(0, stats.snapshot().count);
+    }
+
+    @Test
+    public void outputStartSubtractsFramesPlayedSinceThisPlay() {
+        // 480 frames of this play were out by t = 50 ms at 48 kHz: it started at 40 ms.
+        assertEquals(40_000_000L, LatencyStats.outputStartNanos(50_000_000L, 10_480L, 10_000L, 48000));
+        assertEquals(50_000_000L, LatencyStats.outputStartNanos(50_000_000L, 7L, 7L, 48000));
+    }
+}
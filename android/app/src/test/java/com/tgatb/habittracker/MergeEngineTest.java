@@ -0,0 +1,236 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parity with lib/sync/merge.ts. Expected values were produced by running
+ * {@code mergeByTimestamp} (and the sync pull loop for the dataset case) under node with
+ * TZ=Asia/Jakarta; JSON uses single quotes here for readability.
+ */
+public class MergeEngineTest {
+    private static final TimeZone JAKARTA = TimeZone.getTimeZone("Asia/Jakarta");
+
+    private static final String[][] RECORD_CASES = {
+        {"newerLocalWins", "{'local':{'id':'h1','name':'Drink water (local)','type':'good','streak':0,"
+                + "'createdAt':'2020-01-01T00:00:00.000Z','updatedAt':'2020-01-02T00:00:00.000Z'},"
+                + "'remote':{'id':'h1','name':'Drink water (remote)','type':'good','streak':0,"
+                + "'createdAt':'2020-01-01T00:00:00.000Z','updatedAt':'2020-01-01T12:00:00.000Z'},"
+                + "'base':{'id':'h1','name':'Drink water','type':'good','streak':0,"
+                + "'createdAt':'2020-01-01T00:00:00.000Z','updatedAt':'2020-01-01T00:00:00.000Z'},"
+                + "'expected':{'merged':{'id':'h1','name':'Drink water (local)','type':'good','streak':0,"
+                + "'createdAt':'2020-01-01T00:00:00.000Z','updatedAt':'2020-01-02T00:00:00.000Z'},"
+                + "'conflict':false,'conflicts':{}}}"},
+        {"equalUpdatedAtConflict", "{'local':{'id':'x','name':'A (local)','updatedAt':'2020-01-02T00:00:00.000Z'},"
+                + "'remote':{'id':'x','name':'A (remote)','updatedAt':'2020-01-02T00:00:00.000Z'},"
+                + "'base':{'id':'x','name':'A','updatedAt':'2020-01-01T00:00:00.000Z'},"
+                + "'expected':{'merged':{'id':'x','name':'A (local)','updatedAt':'2020-01-02T00:00:00.000Z'},"
+                + "'conflict':true,'conflicts':{'name':{'base':'A','local':'A (local)',"
+                + "'remote':'A (remote)'}}}}"},
+        {"equalUpdatedAtNoBase", "{'local':{'id':'x','streak':3,'deviceId':null,'schedule':{'type':'weekly','daysOfWeek':[1,"
+                + "3]}},'remote':{'id':'x','streak':4,'deviceId':'d2','schedule':{'daysOfWeek':[1,3],"
+                + "'type':'weekly'}},'base':null,'expected':{'merged':{'id':'x','streak':3,'deviceId':null,"
+                + "'schedule':{'type':'weekly','daysOfWeek':[1,3]}},'conflict':true,"
+                + "'conflicts':{'streak':{'local':3,'remote':4},'deviceId':{'local':null,'remote':'d2'},"
+                + "'schedule':{'local':{'type':'weekly','daysOfWeek':[1,3]},'remote':{'daysOfWeek':[1,3],"
+                + "'type':'weekly'}}}}}"},
+        {"baseEqualsLocalRemoteChanged", "{'local':{'id':'x','val':1,'updatedAt':'2021-01-01T00:00:00Z'},'remote':{'id':'x','val':2,"
+                + "'updatedAt':'2021-01-02T00:00:00Z'},'base':{'id':'x','val':1},"
+                + "'expected':{'merged':{'id':'x','val':2,'updatedAt':'2021-01-02T00:00:00Z'},"
+                + "'conflict':false,'conflicts':{}}}"},
+        {"baseEqualsRemoteLocalChanged", "{'local':{'id':'x','val':5,'extra':true},'remote':{'id':'x','val':1,"
+                + "'updatedAt':'2030-01-01T00:00:00Z'},'base':{'id':'x','val':1,'extra':true},"
+                + "'expected':{'merged':{'id':'x','val':5,'updatedAt':'2030-01-01T00:00:00Z'},"
+                + "'conflict':false,'conflicts':{}}}"},
+        {"removedKeys", "{'local':{'id':'x','keep':1,'gone':'b'},'remote':{'id':'x','keep':1,'added':'r'},"
+                + "'base':{'id':'x','keep':1,'gone':'b','dropped':'y'},'expected':{'merged':{'id':'x',"
+                + "'keep':1,'added':'r'},'conflict':false,'conflicts':{}}}"},
+        {"nullVersusAbsent", "{'local':{'id':'x','deviceId':null,'updatedAt':5},'remote':{'id':'x','updatedAt':5},"
+                + "'base':null,'expected':{'merged':{'id':'x','deviceId':null,'updatedAt':5},"
+                + "'conflict':false,'conflicts':{}}}"},
+        {"numericAndFalsyTimestamps", "{'local':{'id':'x','v':'l','updatedAt':0},'remote':{'id':'x','v':'r',"
+                + "'updatedAt':'not a date'},'base':null,'expected':{'merged':{'id':'x','v':'l',"
+                + "'updatedAt':0},'conflict':true,'conflicts':{'v':{'local':'l','remote':'r'},"
+                + "'updatedAt':{'local':0,'remote':'not a date'}}}}"},
+        {"numberFormatting", "{'local':{'id':'x','streak':3,'ratio':0.1,'big':1e+21,'updatedAt':1},'remote':{'id':'x',"
+                + "'streak':3,'ratio':0.1,'big':1e+21,'updatedAt':1},'base':null,"
+                + "'expected':{'merged':{'id':'x','streak':3,'ratio':0.1,'big':1e+21,'updatedAt':1},"
+                + "'conflict':false,'conflicts':{}}}"},
+        {"localTimeVsUtc", "{'local':{'id':'x','v':'l','updatedAt':'2021-01-01T08:00:00'},'remote':{'id':'x','v':'r',"
+                + "'updatedAt':'2021-01-01T01:30:00Z'},'base':null,'expected':{'merged':{'id':'x','v':'r',"
+                + "'updatedAt':'2021-01-01T01:30:00Z'},'conflict':false,'conflicts':{}}}"},
+        {"dateOnlyIsUtc", "{'local':{'id':'x','v':'l','updatedAt':'2021-01-02'},'remote':{'id':'x','v':'r',"
+                + "'updatedAt':'2021-01-01T23:59:59.999+00:00'},'base':null,'expected':{'merged':{'id':'x',"
+                + "'v':'l','updatedAt':'2021-01-02'},'conflict':false,'conflicts':{}}}"},
+        {"offsetAndFraction", "{'local':{'id':'x','v':'l','updatedAt':'2021-01-01T10:00:00.5+02:00'},'remote':{'id':'x',"
+                + "'v':'r','updatedAt':'2021-01-01T08:00:00.499Z'},'base':null,"
+                + "'expected':{'merged':{'id':'x','v':'l','updatedAt':'2021-01-01T10:00:00.5+02:00'},"
+                + "'conflict':false,'conflicts':{}}}"},
+        {"localOnly", "{'local':{'id':'l1','name':'Local'},'remote':null,'base':null,"
+                + "'expected':{'merged':{'id':'l1','name':'Local'},'conflict':false}}"},
+        {"remoteOnly", "{'local':null,'remote':{'id':'r1','name':'Remote'},'base':{'id':'r1','name':'Base'},"
+                + "'expected':{'merged':{'id':'r1','name':'Remote'},'conflict':false}}"},
+    };
+
+    private static final String DATASET_CASE = "{'local':[{'id':'a','n':1,'updatedAt':'2021-01-02T00:00:00Z'},{'id':'b','n':1},{'id':'c',"
+                + "'n':1},{'id':'c','n':2},{'id':'d','n':9},{'id':'d','n':10}],'remote':[{'id':'b','n':2},"
+                + "{'id':'a','n':3,'updatedAt':'2021-01-01T00:00:00Z'},{'id':'e','n':4},{'id':'c','n':5}],"
+                + "'base':[{'id':'b','n':1},{'id':'c','n':1}],'expected':{'merged':[{'id':'b','n':2},"
+                + "{'id':'a','n':1,'updatedAt':'2021-01-02T00:00:00Z'},{'id':'e','n':4},{'id':'c','n':2},"
+                + "{'id':'d','n':9}],'conflicts':{'c':{'n':{'base':1,'local':2,'remote':5}}}}}";
+
+    private static Object json(String singleQuoted) throws IOException {
+        return new StreamingJson.JsonReader(new StringReader(singleQuoted.replace('\'', '"'))).readValue();
+    }
+
+    /** Order-sensitive comparison: both sides rendered the way JSON.stringify would. */
+    private static String render(Object value) throws IOException {
+        StringWriter out = new StringWriter();
+        new StreamingJson.JsonWriter(out).writeValue(value);
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> list(Object value) {
+        return (List<Map<String, Object>>) value;
+    }
+
+    @Test
+    public void matchesMergeByTimestamp() throws Exception {
+        for (String[] c : RECORD_CASES) {
+            Map<String, Object> input = map(json(c[1]));
+            Map<String, Object> expected = map(input.get("expected"));
+            MergeEngine.RecordResult result = MergeEngine.mergeRecord(
+                    map(input.get("local")), map(input.get("remote")), map(input.get("base")), JAKARTA);
+            assertEquals(c[0], render(expected.get("merged")), render(result.merged));
+            assertEquals(c[0], expected.get("conflict"), result.conflict());
+            Object conflicts = expected.containsKey("conflicts") ? expected.get("conflicts") : Collections.emptyMap();
+            assertEquals(c[0], render(conflicts), render(result.conflicts));
+        }
+    }
+
+    @Test
+    public void equalUpdatedAtConflictKeepsLocalValue() throws Exception {
+        Map<String, Object> base = map(json("{'id':'x','name':'A','updatedAt':'2020-01-01T00:00:00.000Z'}"));
+        Map<String, Object> local = map(json("{'id':'x','name':'A (local)','updatedAt':'2020-01-02T00:00:00.000Z'}"));
+        Map<String, Object> remote = map(json("{'id':'x','name':'A (remote)','updatedAt':'2020-01-02T00:00:00.000Z'}"));
+        MergeEngine.RecordResult result = MergeEngine.mergeRecord(local, remote, base, JAKARTA);
+        assertTrue(result.conflict());
+        assertEquals("A (local)", result.merged.get("name"));
+        assertEquals(Collections.singleton("name"), result.conflicts.keySet());
+        assertEquals("A (remote)", result.conflicts.get("name").get("remote"));
+    }
+
+    @Test
+    public void bothMissingIsRejected() {
+        try {
+            MergeEngine.mergeRecord(null, null, null, JAKARTA);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // Same as the TS "Both local and remote are null".
+        }
+    }
+
+    @Test
+    public void datasetFollowsSyncPullLoop() throws Exception {
+        Map<String, Object> input = map(json(DATASET_CASE));
+        Map<String, Object> expected = map(input.get("expected"));
+        MergeEngine engine = new MergeEngine(null, MergeEngine.DEFAULT_CHUNK, JAKARTA);
+        MergeEngine.Result result = engine.mergeAll(
+                list(input.get("local")), list(input.get("remote")), list(input.get("base")));
+        assertEquals(render(expected.get("merged")), render(result.merged));
+        assertEquals(render(expected.get("conflicts")), render(result.conflicts));
+    }
+
+    @Test
+    public void parallelChunksMatchSequentialMerge() throws Exception {
+        Random random = new Random(15);
+        List<Map<String, Object>> local = new ArrayList<>();
+        List<Map<String, Object>> remote = new ArrayList<>();
+        List<Map<String, Object>> base = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String id = "log" + i;
+            Map<String, Object> b = record(id, random.nextInt(3) == 0, 1_600_000_000_000L);
+            base.add(b);
+            if (random.nextInt(10) > 0) local.add(mutate(b, random));
+            if (random.nextInt(10) > 0) remote.add(mutate(b, random));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MergeEngine.Result parallel = new MergeEngine(pool, 64, JAKARTA).mergeAll(local, remote, base);
+            MergeEngine.Result sequential = new MergeEngine(null, Integer.MAX_VALUE, JAKARTA).mergeAll(local, remote, base);
+            assertEquals(render(sequential.merged), render(parallel.merged));
+            assertEquals(render(sequential.conflicts), render(parallel.conflicts));
+            assertFalse(parallel.conflicts.isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parseTimeFollowsDateParse() {
+        assertEquals(1609459200000.0, MergeEngine.parseTime("2021-01-01", JAKARTA), 0);
+        assertEquals(1609459200000.0, MergeEngine.parseTime("2021-01", JAKARTA), 0);
+        assertEquals(1609459200000.0, MergeEngine.parseTime("2021", JAKARTA), 0);
+        assertEquals(1609462800000.0, MergeEngine.parseTime("2021-01-01T08:00:00", JAKARTA), 0);
+        assertEquals(1609462800000.0, MergeEngine.parseTime("2021-01-01T08:00", JAKARTA), 0);
+        assertEquals(1609488000500.0, MergeEngine.parseTime("2021-01-01T10:00:00.5+02:00", JAKARTA), 0);
+        assertEquals(1609495200123.0, MergeEngine.parseTime("2021-01-01T10:00:00.123456Z", JAKARTA), 0);
+        assertEquals(1609545600000.0, MergeEngine.parseTime("2021-01-01T24:00:00Z", JAKARTA), 0);
+        assertEquals(1614643200000.0, MergeEngine.parseTime("2021-02-30", JAKARTA), 0);
+        assertEquals(0.0, MergeEngine.parseTime("2021-13-01", JAKARTA), 0);
+        assertEquals(0.0, MergeEngine.parseTime("2021-01-01T25:00:00Z", JAKARTA), 0);
+        assertEquals(0.0, MergeEngine.parseTime("garbage", JAKARTA), 0);
+        assertEquals(0.0, MergeEngine.parseTime("", JAKARTA), 0);
+        assertEquals(0.0, MergeEngine.parseTime(null, JAKARTA), 0);
+        assertEquals(0.0, MergeEngine.parseTime(Boolean.TRUE, JAKARTA), 0);
+        assertEquals(42.0, MergeEngine.parseTime(42L, JAKARTA), 0);
+    }
+
+    private static Map<String, Object> record(String id, boolean completed, long updatedAt) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", id);
+        record.put("habitId", "h" + (id.hashCode() & 7));
+        record.put("date", "2024-01-01");
+        record.put("completed", completed);
+        record.put("updatedAt", updatedAt);
+        return record;
+    }
+
+    private static Map<String, Object> mutate(Map<String, Object> base, Random random) {
+        Map<String, Object> copy = new LinkedHashMap<>(base);
+        switch (random.nextInt(4)) {
+            case 0:
+                copy.put("completed", !(Boolean) base.get("completed"));
+                break;
+            case 1:
+                copy.put("completed", !(Boolean) base.get("completed"));
+                copy.put("updatedAt", (Long) base.get("updatedAt") + random.nextInt(3));
+                break;
+            case 2:
+                copy.put("source", random.nextBoolean() ? "auto" : "manual");
+                break;
+            default:
+                break;
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,82 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NativeBatchTest {
+    private final List<String> calls = new ArrayList<>();
+    private final Map<String, String> prefs = new HashMap<>();
+
+    private NativeBatch<Map<String, String>> batch() {
+        return new NativeBatch<Map<String, String>>()
+                .register("PremiumHaptics.play", args -> {
+                    calls.add("haptic:" + args.get("event"));
+                    return true;
+                })
+                .register("Preferences.set", args -> {
+                    if (args.get("key") == null) throw new IllegalArgumentException("key is required");
+                    calls.add("set:" + args.get("key"));
+                    prefs.put(args.get("key"), args.get("value"));
+                    return null;
+                })
+                .register("Preferences.get", args -> prefs.get(args.get("key")));
+    }
+
+    private static NativeBatch.Operation<Map<String, String>> op(String target, String... kv) {
+        Map<String, String> args = new HashMap<>();
+        for (int i = 0; i < kv.length; i += 2) args.put(kv[i], kv[i + 1]);
+        return new NativeBatch.Operation<>(target, args);
+    }
+
+    @Test
+    public void runsInOrderAndReturnsPerOperationResults() {
+        List<NativeBatch.Result> results = batch().run(Arrays.asList(
+                op("PremiumHaptics.play", "event", "goodDone"),
+                op("Preferences.set", "key", "k", "value", "v"),
+                op("Preferences.get", "key", "k")), false);
+
+        assertEquals(Arrays.asList("haptic:goodDone", "set:k"), calls);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).ok);
+        assertEquals(Boolean.TRUE, results.get(0).value);
+        assertNull(results.get(1).value);
+        assertEquals("v", results.get(2).value);
+        for (NativeBatch.Result r : results) {
+            assertTrue(r.durationNanos >= 0);
+        }
+    }
+
+    @Test
+    public void failuresAreIsolatedUnlessStopOnError() {
+        List<NativeBatch.Operation<Map<String, String>>> ops = Arrays.asList(
+                op("Preferences.set"),
+                op("Nope.method"),
+                op("PremiumHaptics.play", "event", "undo"));
+
+        List<NativeBatch.Result> lenient = batch().run(ops, false);
+        assertEquals("key is required", lenient.get(0).error);
+        assertEquals("unknown operation", lenient.get(1).error);
+        assertTrue(lenient.get(2).ok);
+
+        calls.clear();
+        List<NativeBatch.Result> strict = batch().run(ops, true);
+        assertFalse(strict.get(0).ok);
+        assertEquals(NativeBatch.SKIPPED, strict.get(1).error);
+        assertEquals(NativeBatch.SKIPPED, strict.get(2).error);
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOversizedBatches() {
+        List<NativeBatch.Operation<Map<String, String>>> ops = new ArrayList<>();
+        for (int i = 0; i <= NativeBatch.MAX_OPERATIONS; i++) ops.add(op("Preferences.get", "key", "k"));
+        batch().run(ops, false);
+    }
+}
@@ -0,0 +1,134 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+public class ReminderPlannerTest {
+    private static final int TODAY = EpochDays.parse("2025-06-15"); // a Sunday
+    private static final TimeZone ZONE = TimeZone.getTimeZone("Asia/Jakarta");
+    private static final int EIGHT_PM = 20 * 60;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HabitLogStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new HabitLogStore(new File(tmp.getRoot(), "anonymous.bin"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    private static long at(int day, int minuteOfDay, TimeZone zone) {
+        return EpochDays.startOfDayMillis(day, zone) + minuteOfDay * 60_000L;
+    }
+
+    @Test
+    public void parsesTimes() {
+        assertEquals(EIGHT_PM, ReminderPlanner.parseTime("20:00"));
+        assertEquals(9 * 60 + 5, ReminderPlanner.parseTime("9:05"));
+        assertEquals(-1, ReminderPlanner.parseTime("24:00"));
+        assertEquals(-1, ReminderPlanner.parseTime("20:7"));
+        assertEquals(-1, ReminderPlanner.parseTime("ab:cd"));
+        assertEquals(-1, ReminderPlanner.parseTime(null));
+    }
+
+    @Test
+    public void nextTriggerIsStrictlyInTheFuture() {
+        long before = at(TODAY, EIGHT_PM - 1, ZONE);
+        assertEquals(at(TODAY, EIGHT_PM, ZONE), ReminderPlanner.nextTrigger(before, EIGHT_PM, ZONE));
+        long exactly = at(TODAY, EIGHT_PM, ZONE);
+        assertEquals(at(TODAY + 1, EIGHT_PM, ZONE), ReminderPlanner.nextTrigger(exactly, EIGHT_PM, ZONE));
+    }
+
+    @Test
+    public void nextTriggerKeepsWallClockAcrossDst() {
+        TimeZone berlin = TimeZone.getTimeZone("Europe/Berlin");
+        int saturday = EpochDays.parse("2025-03-29");
+        long now = at(saturday, EIGHT_PM + 1, berlin);
+        long next = ReminderPlanner.nextTrigger(now, EIGHT_PM, berlin);
+        // The clocks jump forward overnight, so 20:00 Sunday is only 23h minus a minute away.
+        assertEquals(23L * 60 * 60 * 1000 - 60_000L, next - now);
+    }
+
+    @Test
+    public void dueTodaySkipsLoggedUnscheduledAndFutureHabits() throws Exception {
+        HabitSnapshot snapshot = new HabitSnapshot(Arrays.asList(
+                new HabitSnapshot.Habit("read", "Read", false, TODAY - 10, HabitSchedule.daily()),
+                new HabitSnapshot.Habit("walk", "Walk", false, TODAY - 10, HabitSchedule.daily()),
+                new HabitSnapshot.Habit("gym", "Gym", false, TODAY - 10, HabitSchedule.weekly(1 << 1)),
+                new HabitSnapshot.Habit("smoke", "Smoke", true, TODAY - 10, HabitSchedule.interval(2, TODAY)),
+                new HabitSnapshot.Habit("new", "New", false, TODAY + 1, HabitSchedule.daily())
+        ));
+        store.put(new HabitLogStore.Entry("l1", "walk", TODAY, true, 0L, "manual"));
+
+        List<HabitSnapshot.Habit> due = ReminderPlanner.dueToday(snapshot, store, TODAY);
+
+        assertEquals(2, due.size());
+        assertEquals("read", due.get(0).id);
+        assertEquals("smoke", due.get(1).id);
+    }
+
+    @Test
+    public void postsOnlyWhileSomethingIsDue() throws Exception {
+        HabitSnapshot snapshot = new HabitSnapshot(Collections.singletonList(
+                new HabitSnapshot.Habit("read", "Read", false, TODAY - 1, HabitSchedule.daily())));
+        long scheduled = at(TODAY, EIGHT_PM, ZONE);
+
+        ReminderPlanner.Plan plan = ReminderPlanner.onAlarm(snapshot, store, EIGHT_PM, scheduled,
+                scheduled + 50, Integer.MIN_VALUE, ZONE);
+        assertTrue(plan.post);
+        assertEquals(1, plan.due.size());
+        assertEquals(at(TODAY + 1, EIGHT_PM, ZONE), plan.nextTriggerAt);
+
+        store.put(new HabitLogStore.Entry("l1", "read", TODAY, false, 0L, "manual"));
+        plan = ReminderPlanner.onAlarm(snapshot, store, EIGHT_PM, scheduled, scheduled + 50, Integer.MIN_VALUE, ZONE);
+        assertFalse(plan.post);
+        assertEquals(at(TODAY + 1, EIGHT_PM, ZONE), plan.nextTriggerAt);
+    }
+
+    @Test
+    public void unsyncedSnapshotFallsBackToPlainReminder() {
+        long scheduled = at(TODAY, EIGHT_PM, ZONE);
+        ReminderPlanner.Plan plan = ReminderPlanner.onAlarm(HabitSnapshot.empty(), null, EIGHT_PM, scheduled,
+                scheduled, Integer.MIN_VALUE, ZONE);
+        assertTrue(plan.post);
+        assertTrue(plan.due.isEmpty());
+    }
+
+    @Test
+    public void skipsStaleRepeatedAndUnknownDeliveries() {
+        long scheduled = at(TODAY, EIGHT_PM, ZONE);
+        HabitSnapshot empty = HabitSnapshot.empty();
+
+        long late = scheduled + ReminderPlanner.MAX_LATENESS_MS + 1;
+        assertFalse(ReminderPlanner.onAlarm(empty, null, EIGHT_PM, scheduled, late, Integer.MIN_VALUE, ZONE).post);
+        assertFalse(ReminderPlanner.onAlarm(empty, null, EIGHT_PM, scheduled, scheduled, TODAY, ZONE).post);
+        assertFalse(ReminderPlanner.onAlarm(empty, null, EIGHT_PM, 0L, scheduled, Integer.MIN_VALUE, ZONE).post);
+        assertEquals(at(TODAY + 1, EIGHT_PM, ZONE),
+                ReminderPlanner.onAlarm(empty, null, EIGHT_PM, scheduled, late, TODAY, ZONE).nextTriggerAt);
+    }
+
+    @Test
+    public void rotatesMessagesDaily() {
+        List<String> messages = Arrays.asList("a", "b", "c");
+        assertEquals("a", ReminderPlanner.pickMessage(messages, 3, "x"));
+        assertEquals("b", ReminderPlanner.pickMessage(messages, 4, "x"));
+        assertEquals("x", ReminderPlanner.pickMessage(Collections.<String>emptyList(), 4, "x"));
+    }
+}
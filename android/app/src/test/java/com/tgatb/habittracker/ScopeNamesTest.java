@@ -0,0 +1,84 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ScopeNamesTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void safeScopesKeepTheirNames() {
+        assertEquals("anonymous", ScopeNames.fileName(null));
+        assertEquals("anonymous", ScopeNames.fileName("  "));
+        assertEquals("anonymous", ScopeNames.fileName("anonymous"));
+        assertEquals("_global", ScopeNames.fileName("_global"));
+        assertEquals("aB3xK9_-z", ScopeNames.fileName("aB3xK9_-z"));
+    }
+
+    @Test
+    public void otherCharactersAreEscapedWithoutCollisions() {
+        assertEquals("a~40b~2ec", ScopeNames.fileName("a@b.c"));
+        assertEquals("~7e", ScopeNames.fileName("~"));
+        assertEquals("caf~c3~a9", ScopeNames.fileName("caf\u00e9"));
+        assertEquals("~f0~9f~8f~83", ScopeNames.fileName("\ud83c\udfc3"));
+
+        String[] scopes = {"a.b", "a_b", "a b", "a/b", "a~2eb", "a~5fb", "a..b", "a._b"};
+        Set<String> names = new HashSet<>();
+        for (String scope : scopes) {
+            assertTrue("collision for " + scope, names.add(ScopeNames.fileName(scope)));
+            assertTrue(ScopeNames.fileName(scope).matches("[A-Za-z0-9_~-]+"));
+        }
+    }
+
+    @Test
+    public void legacyFilesAreRenamedOnce() throws Exception {
+        File dir = tmp.newFolder("habit_logs");
+        assertTrue(new File(dir, "a_b_c.bin").createNewFile());
+        assertTrue(new File(dir, "a_b_c.bin.keys").createNewFile());
+        assertTrue(new File(dir, "a_b_cd.bin").createNewFile());
+        assertTrue(new File(dir, "a_b_c").mkdir());
+
+        assertEquals(3, ScopeNames.migrateLegacy(dir, "a@b.c"));
+        assertTrue(new File(dir, "a~40b~2ec.bin").isFile());
+        assertTrue(new File(dir, "a~40b~2ec.bin.keys").isFile());
+        assertTrue(new File(dir, "a~40b~2ec").isDirectory());
+        assertTrue("another scope's file", new File(dir, "a_b_cd.bin").isFile());
+
+        assertEquals(0, ScopeNames.migrateLegacy(dir, "a@b.c"));
+        assertEquals("safe scopes never move", 0, ScopeNames.migrateLegacy(dir, "a_b_cd"));
+    }
+
+    @Test
+    public void aScopeOpenedUnderItsPlainNameKeepsItsFiles() throws Exception {
+        File dir = tmp.newFolder("kv");
+        assertTrue(new File(dir, "a_b").mkdir());
+        assertTrue(new File(dir, "a_b.rollup").createNewFile());
+
+        assertEquals(0, ScopeNames.migrateLegacy(dir, "a_b"));
+        assertEquals("a_b claimed its files", 0, ScopeNames.migrateLegacy(dir, "a.b"));
+        assertTrue(new File(dir, "a_b").isDirectory());
+        assertTrue(new File(dir, "a_b.rollup").isFile());
+        assertFalse(new File(dir, "a~2eb").exists());
+    }
+
+    @Test
+    public void filesWrittenAfterTheUpgradeAreNeverLegacy() throws Exception {
+        File dir = tmp.newFolder("habit_logs");
+        assertTrue(new File(dir, "x_y.bin").createNewFile());
+        assertEquals(1, ScopeNames.migrateLegacy(dir, "x.y"));
+        assertTrue(new File(dir, "x~2ey.bin").isFile());
+
+        // a_b shows up only now, written by this build under its own name.
+        assertTrue(new File(dir, "a_b.bin").createNewFile());
+        assertEquals(0, ScopeNames.migrateLegacy(dir, "a.b"));
+        assertTrue(new File(dir, "a_b.bin").isFile());
+    }
+}
@@ -0,0 +1,183 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+public class SecureStoreTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Software AES key standing in for the Keystore; counts how often it is asked for. */
+    private static final class SoftwareKey implements SecureStore.KeyProvider {
+        final SecretKey key;
+        final AtomicInteger calls = new AtomicInteger();
+
+        SoftwareKey(int seed) {
+            byte[] bytes = new byte[32];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) (seed * 31 + i);
+            key = new SecretKeySpec(bytes, "AES");
+        }
+
+        @Override
+        public SecretKey key() {
+            calls.incrementAndGet();
+            return key;
+        }
+    }
+
+    private File file() {
+        return new File(new File(tmp.getRoot(), "secure"), "store.bin");
+    }
+
+    @Test
+    public void writesSurviveReopen() throws Exception {
+        SoftwareKey key = new SoftwareKey(1);
+        SecureStore store = new SecureStore(file(), key);
+        store.put("googleAccessToken", "tok-123");
+        Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("refresh", "r-\u00e9");
+        batch.put("other", "x");
+        assertTrue(store.apply(batch, Collections.singletonList("googleAccessToken")));
+
+        SecureStore reopened = new SecureStore(file(), key);
+        Map<String, String> values = reopened.getMany(Arrays.asList("googleAccessToken", "refresh", "other"));
+        assertNull(values.get("googleAccessToken"));
+        assertEquals("r-\u00e9", values.get("refresh"));
+        assertEquals("x", values.get("other"));
+        assertEquals(Arrays.asList("other", "refresh"), reopened.keys());
+        assertFalse(reopened.recoveredUnreadable());
+    }
+
+    @Test
+    public void fileHoldsNoPlaintext() throws Exception {
+        SecureStore store = new SecureStore(file(), new SoftwareKey(1));
+        store.put("googleAccessToken", "very-secret-token-value");
+        String raw = new String(Files.readAllBytes(file().toPath()), StandardCharsets.ISO_8859_1);
+        assertFalse(raw.contains("googleAccessToken"));
+        assertFalse(raw.contains("very-secret"));
+        assertFalse(new File(file().getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void keyAndCipherAreFetchedOnce() throws Exception {
+        SoftwareKey key = new SoftwareKey(1);
+        SecureStore store = new SecureStore(file(), key);
+        assertEquals("no file, no key needed yet", 0, key.calls.get());
+        for (int i = 0; i < 20; i++) store.put("k" + i, "v" + i);
+        assertEquals(1, key.calls.get());
+        assertEquals(20, store.writeCount());
+
+        SecureStore reopened = new SecureStore(file(), key);
+        for (int i = 0; i < 20; i++) assertEquals("v" + i, reopened.get("k" + i));
+        reopened.put("k0", "changed");
+        assertEquals(2, key.calls.get());
+    }
+
+    @Test
+    public void batchIsOneWriteAndNoOpsSkipTheFile() throws Exception {
+        SecureStore store = new SecureStore(file(), new SoftwareKey(1));
+        Map<String, String> batch = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) batch.put("key" + i, "value" + i);
+        store.apply(batch, Collections.<String>emptyList());
+        assertEquals(1, store.writeCount());
+        long modified = file().lastModified();
+
+        assertFalse(store.apply(Collections.singletonMap("key1", "value1"), Collections.singletonList("missing")));
+        assertEquals(1, store.writeCount());
+        assertEquals(modified, file().lastModified());
+    }
+
+    @Test
+    public void ivChangesOnEveryWrite() throws Exception {
+        SecureStore store = new SecureStore(file(), new SoftwareKey(1));
+        store.put("a", "1");
+        byte[] first = Files.readAllBytes(file().toPath());
+        store.put("a", "2");
+        store.put("a", "1");
+        byte[] again = Files.readAllBytes(file().toPath());
+        assertEquals(first.length, again.length);
+        assertFalse(Arrays.equals(
+                Arrays.copyOfRange(first, SecureStore.HEADER_SIZE, SecureStore.HEADER_SIZE + 12),
+                Arrays.copyOfRange(again, SecureStore.HEADER_SIZE, SecureStore.HEADER_SIZE + 12)));
+    }
+
+    @Test
+    public void otherKeyReadsAsEmptyAndNextWriteReplacesTheFile() throws Exception {
+        new SecureStore(file(), new SoftwareKey(1)).put("a", "1");
+
+        SoftwareKey other = new SoftwareKey(2);
+        SecureStore store = new SecureStore(file(), other);
+        assertTrue(store.recoveredUnreadable());
+        assertEquals(0, store.size());
+        store.put("b", "2");
+        assertFalse(store.recoveredUnreadable());
+
+        SecureStore reopened = new SecureStore(file(), other);
+        assertNull(reopened.get("a"));
+        assertEquals("2", reopened.get("b"));
+    }
+
+    @Test
+    public void tamperedOrTruncatedFilesReadAsEmpty() throws Exception {
+        SoftwareKey key = new SoftwareKey(1);
+        new SecureStore(file(), key).put("a", "1");
+        long length = file().length();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.seek(length - 1);
+            int last = raf.read();
+            raf.seek(length - 1);
+            raf.write(last ^ 1);
+        }
+        assertTrue(new SecureStore(file(), key).recoveredUnreadable());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.setLength(SecureStore.HEADER_SIZE + 3);
+        }
+        SecureStore truncated = new SecureStore(file(), key);
+        assertTrue(truncated.recoveredUnreadable());
+        assertNull(truncated.get("a"));
+    }
+
+    @Test
+    public void keyFailuresPropagateInsteadOfDroppingData() throws Exception {
+        new SecureStore(file(), new SoftwareKey(1)).put("a", "1");
+        try {
+            new SecureStore(file(), () -> {
+                throw new NoSuchAlgorithmException("keystore unavailable");
+            });
+            fail("expected the key failure to surface");
+        } catch (GeneralSecurityException expected) {
+            // The file is untouched and still readable with the right key.
+        }
+        assertEquals("1", new SecureStore(file(), new SoftwareKey(1)).get("a"));
+    }
+
+    @Test
+    public void clearDeletesTheFile() throws Exception {
+        SecureStore store = new SecureStore(file(), new SoftwareKey(1));
+        store.put("a", "1");
+        store.clear();
+        assertFalse(file().exists());
+        assertEquals(0, store.size());
+        assertEquals(0, new SecureStore(file(), new SoftwareKey(1)).size());
+    }
+}
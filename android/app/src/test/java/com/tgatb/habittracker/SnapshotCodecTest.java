@@ -0,0 +1,273 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+public class SnapshotCodecTest {
+    private static final String EXPORTED_AT = "2025-07-01T09:30:00.000Z";
+
+    private static Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("darkMode", true);
+        settings.put("language", "id");
+        settings.put("motivatorPersonality", "harsh");
+        settings.put("fullscreenMode", false);
+        settings.put("reminderEnabled", true);
+        settings.put("reminderTime", "07:30");
+        settings.put("hapticProfile", "punchy");
+        return settings;
+    }
+
+    /** A realistic dataset: UUID ids, one log per habit per day, device ids and versions. */
+    private static List<List<Map<String, Object>>> dataset(int habitCount, int days, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, Object>> habits = new ArrayList<>();
+        String[] devices = {uuid(random), uuid(random)};
+        for (int i = 0; i < habitCount; i++) {
+            Map<String, Object> habit = new LinkedHashMap<>();
+            habit.put("id", uuid(random));
+            habit.put("name", "Habit " + i);
+            habit.put("type", i % 3 == 0 ? "bad" : "good");
+            habit.put("streak", (long) random.nextInt(50));
+            habit.put("createdAt", SnapshotCodec.formatIso(1_700_000_000_000L + i * 1000L));
+            if (i % 2 == 0) habit.put("lastCompletedDate", SnapshotCodec.formatIso(1_720_000_000_000L + i));
+            if (i % 4 == 1) {
+                Map<String, Object> schedule = new LinkedHashMap<>();
+                schedule.put("type", "weekly");
+                schedule.put("daysOfWeek", Arrays.<Object>asList(1L, 3L, 5L));
+                habit.put("schedule", schedule);
+            }
+            habit.put("updatedAt", SnapshotCodec.formatIso(1_720_000_000_000L + i * 7L));
+            habit.put("deviceId", devices[i % 2]);
+            habit.put("version", 1L + i % 4);
+            habits.add(habit);
+        }
+        List<Map<String, Object>> logs = new ArrayList<>();
+        int firstDay = EpochDays.parse("2024-01-01");
+        for (int d = 0; d < days; d++) {
+            for (Map<String, Object> habit : habits) {
+                if (random.nextInt(10) < 2) continue;
+                int day = firstDay + d;
+                long ts = day * 86_400_000L + 6 * 3_600_000L + random.nextInt(12 * 3_600_000);
+                Map<String, Object> log = new LinkedHashMap<>();
+                log.put("id", uuid(random));
+                log.put("habitId", habit.get("id"));
+                log.put("date", EpochDays.format(day));
+                log.put("completed", random.nextBoolean());
+                log.put("timestamp", SnapshotCodec.formatIso(ts));
+                log.put("source", random.nextInt(5) == 0 ? "auto" : "manual");
+                log.put("updatedAt", SnapshotCodec.formatIso(ts + (random.nextBoolean() ? 0 : random.nextInt(60_000))));
+                log.put("deviceId", devices[random.nextInt(2)]);
+                log.put("version", 1L);
+                logs.add(log);
+            }
+        }
+        return Arrays.asList(habits, logs);
+    }
+
+    private static String uuid(Random random) {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private static byte[] snapshot(List<Map<String, Object>> habits, List<Map<String, Object>> logs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotCodec.Writer writer = new SnapshotCodec.Writer(out, EXPORTED_AT, habits.size(), logs.size());
+        for (Map<String, Object> habit : habits) writer.habit(habit);
+        for (Map<String, Object> log : logs) writer.log(log);
+        writer.finish(settings());
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] json(List<Map<String, Object>> habits, List<Map<String, Object>> logs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportStream.Writer writer = new ExportStream.Writer(out, false, EXPORTED_AT, habits.size(), logs.size());
+        for (Map<String, Object> habit : habits) writer.habit(habit);
+        for (Map<String, Object> log : logs) writer.log(log);
+        writer.finish(settings());
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static List<ExportStream.Item> readAll(byte[] data) throws IOException {
+        List<ExportStream.Item> items = new ArrayList<>();
+        try (ExportStream.Source source = ExportStream.open(new ByteArrayInputStream(data))) {
+            ExportStream.Item item;
+            while ((item = source.next()) != null) items.add(item);
+        }
+        return items;
+    }
+
+    private static void assertSameItems(List<ExportStream.Item> expected, List<ExportStream.Item> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).kind, actual.get(i).kind);
+            assertEquals(expected.get(i).index, actual.get(i).index);
+            assertEquals("item " + i, expected.get(i).value, actual.get(i).value);
+            // Key order is part of the schema output and of what JS sees.
+            assertEquals(new ArrayList<>(expected.get(i).value.keySet()), new ArrayList<>(actual.get(i).value.keySet()));
+        }
+    }
+
+    @Test
+    public void roundTripMatchesJsonExport() throws Exception {
+        List<List<Map<String, Object>>> data = dataset(12, 120, 1);
+        byte[] snapshot = snapshot(data.get(0), data.get(1));
+        assertSameItems(readAll(json(data.get(0), data.get(1))), readAll(snapshot));
+    }
+
+    @Test
+    public void nonCanonicalValuesAreKeptVerbatim() throws Exception {
+        Map<String, Object> habit = new LinkedHashMap<>();
+        habit.put("id", "legacy-habit");
+        habit.put("name", "Caf\u00e9 \ud83d\ude80");
+        habit.put("type", "bad");
+        habit.put("streak", 2.5);
+        habit.put("createdAt", "2024-01-01T07:00:00+07:00");
+        habit.put("lastCompletedDate", "Mon Jan 01 2024");
+        Map<String, Object> schedule = new LinkedHashMap<>();
+        schedule.put("type", "weekly");
+        schedule.put("daysOfWeek", Arrays.<Object>asList(5L, 1L, 1L));
+        habit.put("schedule", schedule);
+        habit.put("updatedAt", "1969-12-31T23:59:59.999Z");
+        habit.put("deviceId", null);
+        habit.put("version", 9_007_199_254_740_991L);
+
+        Map<String, Object> interval = new LinkedHashMap<>();
+        interval.put("type", "interval");
+        interval.put("intervalDays", 3L);
+        Map<String, Object> second = new LinkedHashMap<>(habit);
+        second.put("id", "00000000-0000-4000-8000-000000000000");
+        second.put("streak", -7L);
+        second.put("schedule", interval);
+        second.remove("lastCompletedDate");
+        second.remove("deviceId");
+        second.put("version", 3L);
+
+        Map<String, Object> log = new LinkedHashMap<>();
+        log.put("id", "ABCDEF00-0000-4000-8000-000000000000");
+        log.put("habitId", "legacy-habit");
+        log.put("date", "2024-1-5");
+        log.put("completed", false);
+        log.put("timestamp", "2024-01-05T10:00:00Z");
+        log.put("updatedAt", "2024-01-05T10:00:00.000Z");
+        log.put("deviceId", null);
+        Map<String, Object> other = new LinkedHashMap<>();
+        other.put("id", "x");
+        other.put("habitId", "unknown-habit");
+        other.put("date", "0001-01-01");
+        other.put("completed", true);
+        other.put("timestamp", "9999-12-31T23:59:59.999Z");
+        other.put("source", "auto");
+
+        List<Map<String, Object>> habits = Arrays.asList(habit, second);
+        List<Map<String, Object>> logs = Arrays.asList(log, other, log);
+        assertSameItems(readAll(json(habits, logs)), readAll(snapshot(habits, logs)));
+    }
+
+    @Test
+    public void longsBeyondVarintRangeKeepTheirValue() throws Exception {
+        List<List<Map<String, Object>>> data = dataset(1, 0, 6);
+        data.get(0).get(0).put("version", Long.MIN_VALUE);
+        data.get(0).get(0).put("streak", Long.MAX_VALUE);
+        List<ExportStream.Item> items = readAll(snapshot(data.get(0), data.get(1)));
+        assertEquals(Long.MIN_VALUE, items.get(1).value.get("version"));
+        assertEquals(Long.MAX_VALUE, items.get(1).value.get("streak"));
+    }
+
+    @Test
+    public void emptyBundleRoundTrips() throws Exception {
+        List<Map<String, Object>> none = new ArrayList<>();
+        List<ExportStream.Item> items = readAll(snapshot(none, none));
+        assertEquals(2, items.size());
+        assertEquals(ExportStream.Kind.META, items.get(0).kind);
+        assertEquals(0L, ((Map<?, ?>) items.get(0).value.get("counts")).get("logs"));
+        assertEquals(settings(), items.get(1).value);
+    }
+
+    @Test
+    public void snapshotIsMuchSmallerThanJson() throws Exception {
+        List<List<Map<String, Object>>> data = dataset(30, 365, 2);
+        int json = json(data.get(0), data.get(1)).length;
+        int binary = snapshot(data.get(0), data.get(1)).length;
+        // Random UUID log ids (16 bytes each) dominate what is left.
+        assertTrue("json " + json + " vs snapshot " + binary, json >= binary * 10L);
+    }
+
+    @Test
+    public void convertReencodesJsonExport() throws Exception {
+        List<List<Map<String, Object>>> data = dataset(5, 30, 3);
+        byte[] json = json(data.get(0), data.get(1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportStream.Source source = ExportStream.open(new ByteArrayInputStream(json))) {
+            SnapshotCodec.convert(source, out);
+        }
+        assertArrayEquals(snapshot(data.get(0), data.get(1)), out.toByteArray());
+    }
+
+    @Test
+    public void canonicalForms() {
+        assertEquals("1970-01-01T00:00:00.000Z", SnapshotCodec.formatIso(0));
+        assertEquals("1969-12-31T23:59:59.999Z", SnapshotCodec.formatIso(-1));
+        assertEquals(-1L, SnapshotCodec.isoMillis("1969-12-31T23:59:59.999Z"));
+        assertEquals(1_700_000_000_123L, SnapshotCodec.isoMillis("2023-11-14T22:13:20.123Z"));
+        assertEquals(Long.MIN_VALUE, SnapshotCodec.isoMillis("2023-02-30T00:00:00.000Z"));
+        assertEquals(Long.MIN_VALUE, SnapshotCodec.isoMillis("2023-11-14T24:00:00.000Z"));
+        assertEquals(Integer.MIN_VALUE, SnapshotCodec.epochDay("2024-1-05"));
+        assertTrue(SnapshotCodec.isUuid("0f8fad5b-d9cb-469f-a165-70867728950e"));
+        assertFalse(SnapshotCodec.isUuid("0F8FAD5B-D9CB-469F-A165-70867728950E"));
+    }
+
+    @Test
+    public void writerChecksCountsAndOrder() throws Exception {
+        List<List<Map<String, Object>>> data = dataset(2, 1, 4);
+        SnapshotCodec.Writer writer = new SnapshotCodec.Writer(new ByteArrayOutputStream(), EXPORTED_AT, 2, 5);
+        writer.habit(data.get(0).get(0));
+        writer.log(data.get(1).get(0));
+        try {
+            writer.habit(data.get(0).get(1));
+            fail("habit after log");
+        } catch (IllegalStateException expected) {
+            // habits must come first
+        }
+        try {
+            writer.finish(settings());
+            fail("counts not checked");
+        } catch (ExportSchema.Invalid e) {
+            assertEquals("meta.counts.habits", e.path);
+        }
+    }
+
+    @Test
+    public void truncatedOrForeignInputIsRejected() throws Exception {
+        List<List<Map<String, Object>>> data = dataset(3, 10, 5);
+        byte[] full = snapshot(data.get(0), data.get(1));
+        try {
+            readAll(Arrays.copyOf(full, full.length - 5));
+            fail("truncated snapshot accepted");
+        } catch (EOFException expected) {
+            // settings text cut short
+        }
+        byte[] future = full.clone();
+        future[4] = 2;
+        try {
+            readAll(future);
+            fail("future version accepted");
+        } catch (ExportSchema.Invalid e) {
+            assertEquals("version", e.path);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SoundSynthTest {
+    private static final int RATE = 48000;
+
+    @Test
+    public void rendersEachSoundForItsFullDuration() {
+        for (SoundEvent event : SoundEvent.values()) {
+            short[] pcm = SoundSynth.render(event, RATE);
+            assertEquals(event.id, SoundSynth.frames(event.durationMs(), RATE), pcm.length);
+            assertTrue(event.id, peak(pcm, 0, pcm.length) > 0);
+        }
+        assertEquals(760, SoundEvent.VICTORY.durationMs());
+        assertEquals(50, SoundEvent.BUTTON.durationMs());
+    }
+
+    @Test
+    public void peakFollowsToneVolume() {
+        short[] pcm = SoundSynth.render(SoundEvent.UNDO, RATE);
+        int peak = peak(pcm, 0, pcm.length);
+        assertTrue("peak " + peak, peak <= Math.round(0.08 * Short.MAX_VALUE));
+        assertTrue("peak " + peak, peak > Math.round(0.07 * Short.MAX_VALUE));
+    }
+
+    @Test
+    public void startsAndEndsWithoutClicks() {
+        for (SoundEvent event : SoundEvent.values()) {
+            short[] pcm = SoundSynth.render(event, RATE);
+            assertEquals(event.id, 0, pcm[0]);
+            // The exponential ramp ends at 0.001 of the peak.
+            assertTrue(event.id, peak(pcm, pcm.length - 48, pcm.length) < 64);
+        }
+    }
+
+    @Test
+    public void laterTonesStartAtTheirOffset() {
+        short[] pcm = SoundSynth.render(SoundEvent.STREAK, RATE);
+        int second = SoundSynth.frames(80, RATE);
+        // Just before the second note only the decaying first one is audible.
+        int before = peak(pcm, second - 96, second);
+        int after = peak(pcm, second + 96, second + 192);
+        assertTrue(before + " < " + after, before < after);
+    }
+
+    @Test
+    public void bandLimitedWavesStayInRange() {
+        for (SoundEvent.Wave wave : SoundEvent.Wave.values()) {
+            for (int i = 0; i < 1000; i++) {
+                double v = SoundSynth.wave(wave, i * 0.0131, 109);
+                assertTrue(wave + " " + v, Math.abs(v) <= 1.2);
+            }
+        }
+        assertEquals(1.0, SoundSynth.wave(SoundEvent.Wave.TRIANGLE, Math.PI / 2, 10_000), 0.001);
+        assertEquals(1.0, SoundSynth.wave(SoundEvent.Wave.SQUARE, Math.PI / 2, 10_001), 0.001);
+    }
+
+    @Test
+    public void resolvesIdsWithoutFallback() {
+        assertEquals(SoundEvent.VICTORY, SoundEvent.fromId("victory"));
+        assertNull(SoundEvent.fromId("selection"));
+        assertNull(SoundEvent.fromId(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsImplausibleSampleRates() {
+        SoundSynth.render(SoundEvent.BUTTON, 1000);
+    }
+
+    private static int peak(short[] pcm, int from, int to) {
+        int peak = 0;
+        for (int i = from; i < to; i++) peak = Math.max(peak, Math.abs(pcm[i]));
+        return peak;
+    }
+}
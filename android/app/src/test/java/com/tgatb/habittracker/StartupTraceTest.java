@@ -0,0 +1,124 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+public class StartupTraceTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private long now = 1_000L;
+    private final StartupTracer tracer = new StartupTracer(() -> now, 900L);
+
+    @Test
+    public void spansAreRelativeToProcessStart() {
+        int outer = tracer.begin("upgradeCheck");
+        now += 5;
+        int inner = tracer.begin("upgradeCheck.prefs");
+        now += 12;
+        tracer.end(inner);
+        tracer.end(outer);
+        tracer.mark("windowFocus");
+
+        List<StartupTracer.Span> spans = tracer.spans();
+        assertEquals(3, spans.size());
+        assertEquals("upgradeCheck", spans.get(0).name);
+        assertEquals(100L, spans.get(0).startMs);
+        assertEquals(17L, spans.get(0).durationMs);
+        assertEquals(105L, spans.get(1).startMs);
+        assertEquals(12L, spans.get(1).durationMs);
+        assertEquals(0L, spans.get(2).durationMs);
+        assertEquals(117L, tracer.totalMs());
+    }
+
+    @Test
+    public void finishFreezesTheTrace() {
+        int open = tracer.begin("bridgeCreate");
+        now += 40;
+        assertTrue(tracer.finish());
+        assertFalse(tracer.finish());
+        now += 500;
+        assertEquals(StartupTracer.NO_SPAN, tracer.begin("late"));
+        assertEquals(140L, tracer.totalMs());
+        // Spans left open are closed at the finish instant.
+        assertEquals(40L, tracer.spans().get(0).durationMs);
+        tracer.end(open);
+        assertEquals(1, tracer.spans().size());
+    }
+
+    @Test
+    public void capacityIsBounded() {
+        for (int i = 0; i < StartupTracer.MAX_SPANS + 10; i++) {
+            tracer.mark("m" + i);
+        }
+        assertEquals(StartupTracer.MAX_SPANS, tracer.spans().size());
+    }
+
+    @Test
+    public void namesAreSanitizedForTheLog() {
+        assertEquals("a_b_c_d", StartupTracer.sanitize("a:b,c\td"));
+        assertEquals("unnamed", StartupTracer.sanitize(null));
+    }
+
+    @Test
+    public void log_roundTripsAndComputesPercentiles() throws Exception {
+        StartupTraceLog log = new StartupTraceLog(new File(tmp.getRoot(), "trace.log"));
+        for (int i = 1; i <= 20; i++) {
+            log.append(run("1.0+1", true, i * 100L));
+        }
+        log.append(run("1.0+1", false, 99_999L));
+        log.append(run("1.1+2", true, 50L));
+
+        List<StartupTraceLog.Run> runs = log.read();
+        assertEquals(22, runs.size());
+        assertEquals("upgradeCheck", runs.get(0).spans.get(0).name);
+        assertEquals(12L, runs.get(0).spans.get(0).durationMs);
+
+        StartupTraceLog.Stats stats = log.stats("1.0+1");
+        assertEquals(20, stats.runs);
+        assertEquals(1000L, stats.p50Ms);
+        assertEquals(1900L, stats.p95Ms);
+        assertEquals(1, log.stats("1.1+2").runs);
+        assertEquals(21, log.stats(null).runs);
+    }
+
+    @Test
+    public void log_rollsOverAndSkipsTornLines() throws Exception {
+        File file = new File(tmp.getRoot(), "trace.log");
+        StartupTraceLog log = new StartupTraceLog(file);
+        for (int i = 0; i < StartupTraceLog.MAX_RUNS + 5; i++) {
+            log.append(run("r", true, i));
+        }
+        List<StartupTraceLog.Run> runs = log.read();
+        assertEquals(StartupTraceLog.MAX_RUNS, runs.size());
+        assertEquals(5L, runs.get(0).totalMs);
+
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("r\t12".getBytes("UTF-8"));
+        }
+        assertEquals(StartupTraceLog.MAX_RUNS, log.read().size());
+    }
+
+    @Test
+    public void percentile_nearestRank() {
+        assertEquals(0L, StartupTraceLog.percentile(new long[0], 50));
+        assertEquals(7L, StartupTraceLog.percentile(new long[] {7}, 95));
+        assertEquals(2L, StartupTraceLog.percentile(new long[] {1, 2, 3, 4}, 50));
+        assertEquals(4L, StartupTraceLog.percentile(new long[] {1, 2, 3, 4}, 95));
+    }
+
+    private static StartupTraceLog.Run run(String release, boolean cold, long totalMs) {
+        List<StartupTracer.Span> spans = Arrays.asList(
+                new StartupTracer.Span("upgradeCheck", 80L, 12L),
+                new StartupTracer.Span("js.ready", totalMs, 0L));
+        return new StartupTraceLog.Run(release, 1_700_000_000_000L, cold, totalMs, spans);
+    }
+}
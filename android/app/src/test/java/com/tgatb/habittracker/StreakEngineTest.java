@@ -0,0 +1,225 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class StreakEngineTest {
+    private static final int TODAY = EpochDays.parse("2025-06-15");
+
+    @Test
+    public void dailyGoodHabit_countsBackFromToday() {
+        StreakEngine engine = new StreakEngine();
+        engine.setHabit("h", false, HabitSchedule.daily(), TODAY - 30);
+        for (int d = TODAY - 5; d <= TODAY; d++) engine.putLog("h", d, true);
+        engine.putLog("h", TODAY - 6, false);
+
+        assertEquals(6, engine.currentStreak("h", TODAY));
+        assertEquals(6, engine.longestStreak("h"));
+
+        engine.putLog("h", TODAY - 3, false);
+        assertEquals(3, engine.currentStreak("h", TODAY));
+        assertEquals(3, engine.longestStreak("h"));
+
+        engine.putLog("h", TODAY - 3, true);
+        assertEquals(6, engine.longestStreak("h"));
+    }
+
+    @Test
+    public void todayWithoutLog_isGracePeriod() {
+        StreakEngine engine = new StreakEngine();
+        engine.setHabit("h", false, HabitSchedule.daily(), TODAY - 10);
+        engine.putLog("h", TODAY - 1, true);
+        engine.putLog("h", TODAY - 2, true);
+        assertEquals(2, engine.currentStreak("h", TODAY));
+
+        engine.putLog("h", TODAY, false);
+        assertEquals(0, engine.currentStreak("h", TODAY));
+
+        engine.removeLog("h", TODAY);
+        assertEquals(2, engine.currentStreak("h", TODAY));
+    }
+
+    @Test
+    public void badHabit_successMeansNotCompleted() {
+        StreakEngine engine = new StreakEngine();
+        engine.setHabit("h", true, HabitSchedule.daily(), TODAY - 10);
+        engine.putLog("h", TODAY - 2, false);
+        engine.putLog("h", TODAY - 1, false);
+        assertEquals(2, engine.currentStreak("h", TODAY));
+
+        // Flipping the habit type re-derives success from the stored logs.
+        engine.setHabit("h", false, HabitSchedule.daily(), TODAY - 10);
+        assertEquals(0, engine.currentStreak("h", TODAY));
+        assertEquals(0, engine.longestStreak("h"));
+    }
+
+    @Test
+    public void intervalAndWeeklyGaps_doNotBreakStreak() {
+        StreakEngine engine = new StreakEngine();
+        engine.setHabit("i", false, HabitSchedule.interval(3, TODAY - 9), TODAY - 9);
+        engine.putLog("i", TODAY - 9, true);
+        engine.putLog("i", TODAY - 6, true);
+        engine.putLog("i", TODAY - 3, true);
+        assertEquals(3, engine.currentStreak("i", TODAY));
+        assertEquals(3, engine.longestStreak("i"));
+
+        int mondaysAndFridays = (1 << 1) | (1 << 5);
+        engine.setHabit("w", false, HabitSchedule.weekly(mondaysAndFridays), TODAY - 30);
+        for (int d = TODAY - 21; d < TODAY; d++) {
+            int dow = EpochDays.dayOfWeek(d);
+            if (dow == 1 || dow == 5) engine.putLog("w", d, true);
+        }
+        assertEquals(6, engine.currentStreak("w", TODAY));
+    }
+
+    @Test
+    public void lastExpectedCheck_findsLatestExpectedDay() {
+        StreakEngine engine = new StreakEngine();
+        engine.setHabit("i", false, HabitSchedule.interval(4, TODAY - 10), TODAY - 10);
+        engine.putLog("i", TODAY - 2, true);
+
+        StreakEngine.ExpectedCheck check = engine.lastExpectedCheck("i", TODAY);
+        assertEquals(TODAY - 2, check.epochDay);
+        assertTrue(check.logged);
+        assertTrue(check.completed);
+
+        assertEquals(TODAY - 6, engine.lastExpectedCheck("i", TODAY - 3).epochDay);
+        assertNull(engine.lastExpectedCheck("i", TODAY - 11));
+    }
+
+    @Test
+    public void scheduleWords_matchPerDayCheck() {
+        HabitSchedule[] schedules = {
+                HabitSchedule.daily(),
+                HabitSchedule.interval(3, TODAY - 100),
+                HabitSchedule.interval(70, TODAY),
+                HabitSchedule.weekly(0),
+                HabitSchedule.weekly((1 << 0) | (1 << 3) | (1 << 6)),
+        };
+        for (HabitSchedule schedule : schedules) {
+            for (int first = TODAY - 300; first < TODAY + 100; first += 17) {
+                long word = schedule.word(first);
+                for (int bit = 0; bit < 64; bit++) {
+                    assertEquals(schedule.isExpected(first + bit), (word & (1L << bit)) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void randomizedHistories_matchTypeScriptReference() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            boolean bad = random.nextBoolean();
+            int created = TODAY - 30 - random.nextInt(900);
+            HabitSchedule schedule;
+            switch (random.nextInt(3)) {
+                case 0:
+                    schedule = HabitSchedule.daily();
+                    break;
+                case 1:
+                    schedule = HabitSchedule.interval(2 + random.nextInt(9), created + random.nextInt(20));
+                    break;
+                default:
+                    schedule = HabitSchedule.weekly(random.nextInt(128));
+            }
+
+            StreakEngine engine = new StreakEngine();
+            engine.setHabit("h", bad, schedule, created);
+            Map<Integer, Boolean> logs = new HashMap<>();
+            double density = 0.5 + random.nextDouble() * 0.5;
+            double successRate = 0.8 + random.nextDouble() * 0.2;
+
+            for (int d = created; d <= TODAY; d++) {
+                if (random.nextDouble() > density) continue;
+                boolean ok = random.nextDouble() < successRate;
+                boolean completed = bad != ok;
+                logs.put(d, completed);
+                engine.putLog("h", d, completed);
+            }
+            // Mutate some history to exercise incremental run splits and merges.
+            for (int i = 0; i < 40; i++) {
+                int d = created + random.nextInt(TODAY - created + 1);
+                if (random.nextInt(3) == 0) {
+                    logs.remove(d);
+                    engine.removeLog("h", d);
+                } else {
+                    boolean completed = random.nextBoolean();
+                    logs.put(d, completed);
+                    engine.putLog("h", d, completed);
+                }
+                assertEquals("round " + round + " longest after mutation",
+                        referenceLongest(schedule, bad, logs), engine.longestStreak("h"));
+            }
+
+            assertEquals("round " + round + " current",
+                    referenceCurrent(schedule, bad, logs, TODAY), engine.currentStreak("h", TODAY));
+        }
+    }
+
+    /** Port of {@code HabitStorage.countExpectedStreak} (via {@code calculateStreak}). */
+    private static int referenceCurrent(HabitSchedule schedule, boolean bad, Map<Integer, Boolean> logs, int today) {
+        if (logs.isEmpty()) return 0;
+        int streak = 0;
+        for (int i = 0; i <= 365; i++) {
+            int day = today - i;
+            if (!schedule.isExpected(day)) continue;
+            Boolean completed = logs.get(day);
+            if (day == today) {
+                if (completed == null) continue;
+                if (bad ? !completed : completed) {
+                    streak++;
+                } else {
+                    break;
+                }
+                continue;
+            }
+            if (completed != null && (bad ? !completed : completed)) {
+                streak++;
+            } else {
+                break;
+            }
+        }
+        return streak;
+    }
+
+    /** Port of the longest-streak loop in {@code HabitStorage.getHabitStats}. */
+    private static int referenceLongest(HabitSchedule schedule, boolean bad, Map<Integer, Boolean> logs) {
+        List<Integer> sorted = new ArrayList<>();
+        for (int day : new TreeMap<>(logs).keySet()) {
+            if (schedule.isExpected(day)) sorted.add(day);
+        }
+        int longest = 0;
+        int temp = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            boolean completed = logs.get(sorted.get(i));
+            boolean ok = bad ? !completed : completed;
+            if (ok) {
+                if (temp > 0 && i > 0) {
+                    boolean expectedBetween = false;
+                    for (int d = sorted.get(i - 1) + 1; d < sorted.get(i); d++) {
+                        if (schedule.isExpected(d)) {
+                            expectedBetween = true;
+                            break;
+                        }
+                    }
+                    temp = expectedBetween ? 1 : temp + 1;
+                } else {
+                    temp = temp == 0 ? 1 : temp + 1;
+                }
+                longest = Math.max(longest, temp);
+            } else {
+                temp = 0;
+            }
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StreamingJsonTest {
+    private static Object parse(String json) throws IOException {
+        StreamingJson.JsonReader reader = new StreamingJson.JsonReader(new StringReader(json));
+        Object value = reader.readValue();
+        assertEquals(StreamingJson.Token.END, reader.peek());
+        return value;
+    }
+
+    private static String write(Object value) throws IOException {
+        StringWriter out = new StringWriter();
+        new StreamingJson.JsonWriter(out).writeValue(value);
+        return out.toString();
+    }
+
+    @Test
+    public void writesLikeJsonStringify() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("s", "a\"b\\c\n\u0001\u00e9");
+        map.put("i", 42L);
+        map.put("d", 1.5);
+        map.put("whole", 3.0);
+        map.put("b", true);
+        map.put("n", null);
+        map.put("list", Arrays.<Object>asList(1L, "x"));
+        assertEquals("{\"s\":\"a\\\"b\\\\c\\n\\u0001\u00e9\",\"i\":42,\"d\":1.5,\"whole\":3,"
+                + "\"b\":true,\"n\":null,\"list\":[1,\"x\"]}", write(map));
+    }
+
+    @Test
+    public void roundTripsNestedValues() throws Exception {
+        String json = " {\"a\": [1, -2.5e-3, \"\\u00e9\\ud83d\\ude00\", {\"b\": null}], \"c\": false } ";
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) parse(json);
+        List<?> a = (List<?>) map.get("a");
+        assertEquals(1L, a.get(0));
+        assertEquals(-0.0025, a.get(1));
+        assertEquals("\u00e9\ud83d\ude00", a.get(2));
+        assertTrue(((Map<?, ?>) a.get(3)).containsKey("b"));
+        assertEquals(Boolean.FALSE, map.get("c"));
+        assertEquals(map, parse(write(map)));
+    }
+
+    @Test
+    public void skipsValuesWithoutReadingThem() throws Exception {
+        StreamingJson.JsonReader reader = new StreamingJson.JsonReader(
+                new StringReader("{\"skip\":{\"x\":[1,[2,{\"y\":3}]]},\"keep\":\"v\"}"));
+        reader.beginObject();
+        assertEquals("skip", reader.nextName());
+        reader.skipValue();
+        assertEquals("keep", reader.nextName());
+        assertEquals("v", reader.nextString());
+        reader.endObject();
+        assertEquals(StreamingJson.Token.END, reader.peek());
+    }
+
+    @Test
+    public void reportsMalformedInput() {
+        for (String bad : new String[] {"{\"a\" 1}", "[1,,2]", "{\"a\":tru}", "[1", "{\"a\":\"x", "[01x]"}) {
+            try {
+                parse(bad);
+                fail("accepted " + bad);
+            } catch (StreamingJson.SyntaxException expected) {
+                assertTrue(expected.offset >= 0);
+            } catch (IOException e) {
+                fail(bad + ": " + e);
+            }
+        }
+    }
+}
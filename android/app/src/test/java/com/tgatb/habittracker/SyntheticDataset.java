@@ -0,0 +1,194 @@
+package com.tgatb.habittracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic habits and logs for load tests. The same seed, size and {@code today} always
+ * produce the same dataset, so reports from different machines or commits are comparable.
+ *
+ * The mix mirrors what a long-time user accumulates: mostly daily habits with some interval
+ * and weekday schedules, about a third bad habits, habits added over the whole period, and
+ * logging that ranges from sparse to near-perfect with lapses of a few days to weeks.
+ */
+final class SyntheticDataset {
+    static final long DAY_MILLIS = 86_400_000L;
+
+    enum Density {
+        SPARSE(0.25), REGULAR(0.7), DENSE(0.97);
+
+        /** Chance of logging an expected day while the habit is being kept up. */
+        final double logRate;
+
+        Density(double logRate) {
+            this.logRate = logRate;
+        }
+    }
+
+    static final class Habit {
+        final String id;
+        final String name;
+        final boolean bad;
+        /** "daily", "interval" or "weekly", as in the web schema. */
+        final String scheduleType;
+        final int intervalDays;
+        /** 0=Sun ... 6=Sat; empty unless weekly. */
+        final int[] daysOfWeek;
+        final int createdDay;
+        final Density density;
+
+        Habit(String id, String name, boolean bad, String scheduleType, int intervalDays, int[] daysOfWeek,
+              int createdDay, Density density) {
+            this.id = id;
+            this.name = name;
+            this.bad = bad;
+            this.scheduleType = scheduleType;
+            this.intervalDays = intervalDays;
+            this.daysOfWeek = daysOfWeek;
+            this.createdDay = createdDay;
+            this.density = density;
+        }
+
+        HabitSchedule schedule() {
+            return HabitSchedule.of(scheduleType, intervalDays, daysOfWeek, createdDay);
+        }
+
+        /** Noon UTC, which is the created day in every time zone within twelve hours of UTC. */
+        long createdAtMillis() {
+            return createdDay * DAY_MILLIS + DAY_MILLIS / 2;
+        }
+    }
+
+    static final class Log {
+        final String id;
+        final String habitId;
+        final int epochDay;
+        final boolean completed;
+        final long timestamp;
+
+        Log(String habitId, int epochDay, boolean completed, long timestamp) {
+            this.id = logId(habitId, epochDay);
+            this.habitId = habitId;
+            this.epochDay = epochDay;
+            this.completed = completed;
+            this.timestamp = timestamp;
+        }
+    }
+
+    final long seed;
+    final int today;
+    final int firstDay;
+    final List<Habit> habits;
+    /** Oldest first, then by habit. */
+    final List<Log> logs;
+
+    private SyntheticDataset(long seed, int today, int firstDay, List<Habit> habits, List<Log> logs) {
+        this.seed = seed;
+        this.today = today;
+        this.firstDay = firstDay;
+        this.habits = Collections.unmodifiableList(habits);
+        this.logs = Collections.unmodifiableList(logs);
+    }
+
+    /** The power user the harness is sized for: 300 habits over five years. */
+    static SyntheticDataset powerUser(long seed, int today) {
+        return generate(seed, 300, 5, today);
+    }
+
+    static SyntheticDataset generate(long seed, int habitCount, int years, int today) {
+        Random random = new Random(seed);
+        int firstDay = today - years * 365 - years / 4;
+        List<Habit> habits = new ArrayList<>(habitCount);
+        for (int h = 0; h < habitCount; h++) {
+            habits.add(habit(random, h, firstDay, today));
+        }
+
+        List<List<Log>> perHabit = new ArrayList<>(habitCount);
+        for (Habit habit : habits) perHabit.add(logs(random, habit, today));
+
+        // Interleave by day, as a real log store fills up.
+        List<Log> logs = new ArrayList<>();
+        int[] next = new int[habitCount];
+        for (int day = firstDay; day <= today; day++) {
+            for (int h = 0; h < habitCount; h++) {
+                List<Log> list = perHabit.get(h);
+                while (next[h] < list.size() && list.get(next[h]).epochDay == day) {
+                    logs.add(list.get(next[h]++));
+                }
+            }
+        }
+        return new SyntheticDataset(seed, today, firstDay, habits, logs);
+    }
+
+    int expectedDays(Habit habit) {
+        HabitSchedule schedule = habit.schedule();
+        int n = 0;
+        for (int day = habit.createdDay; day <= today; day++) {
+            if (schedule.isExpected(day)) n++;
+        }
+        return n;
+    }
+
+    static String logId(String habitId, int epochDay) {
+        return "log-" + habitId + "-" + EpochDays.format(epochDay);
+    }
+
+    private static Habit habit(Random random, int index, int firstDay, int today) {
+        String id = String.format(Locale.ROOT, "habit-%04d", index);
+        boolean bad = random.nextDouble() < 0.3;
+
+        String type = "daily";
+        int intervalDays = 0;
+        int[] daysOfWeek = new int[0];
+        double kind = random.nextDouble();
+        if (kind < 0.2) {
+            type = "interval";
+            intervalDays = 2 + random.nextInt(6);
+        } else if (kind < 0.4) {
+            type = "weekly";
+            int target = 1 + random.nextInt(6);
+            int mask = 0;
+            while (Integer.bitCount(mask) < target) mask |= 1 << random.nextInt(7);
+            daysOfWeek = new int[Integer.bitCount(mask)];
+            for (int d = 0, i = 0; d < 7; d++) {
+                if ((mask & (1 << d)) != 0) daysOfWeek[i++] = d;
+            }
+        }
+
+        // A core set from the start, the rest added over time (the newest only days ago).
+        int createdDay = random.nextDouble() < 0.4
+                ? firstDay
+                : firstDay + random.nextInt(today - firstDay + 1);
+
+        double d = random.nextDouble();
+        Density density = d < 0.25 ? Density.SPARSE : d < 0.75 ? Density.REGULAR : Density.DENSE;
+        return new Habit(id, "Habit " + index, bad, type, intervalDays, daysOfWeek, createdDay, density);
+    }
+
+    /**
+     * Expected days are logged at the habit's rate while it is kept up; lapses of 3 to 30
+     * days log nothing. Good habits are mostly done, bad ones mostly avoided.
+     */
+    private static List<Log> logs(Random random, Habit habit, int today) {
+        HabitSchedule schedule = habit.schedule();
+        List<Log> logs = new ArrayList<>();
+        int lapseUntil = Integer.MIN_VALUE;
+        double lapseChance = habit.density == Density.DENSE ? 0.002 : habit.density == Density.REGULAR ? 0.01 : 0.03;
+        for (int day = habit.createdDay; day <= today; day++) {
+            if (!schedule.isExpected(day)) continue;
+            if (day < lapseUntil) continue;
+            if (random.nextDouble() < lapseChance) {
+                lapseUntil = day + 3 + random.nextInt(28);
+                continue;
+            }
+            if (random.nextDouble() >= habit.density.logRate) continue;
+            boolean completed = habit.bad ? random.nextDouble() < 0.2 : random.nextDouble() < 0.92;
+            long timestamp = day * DAY_MILLIS + (6 + random.nextInt(17)) * 3_600_000L + random.nextInt(3_600_000);
+            logs.add(new Log(habit.id, day, completed, timestamp));
+        }
+        return logs;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+public class SyntheticDatasetTest {
+    private static final int TODAY = EpochDays.parse("2026-03-01");
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void sameSeedSameData() {
+        SyntheticDataset a = SyntheticDataset.generate(11, 40, 2, TODAY);
+        SyntheticDataset b = SyntheticDataset.generate(11, 40, 2, TODAY);
+        assertEquals(a.logs.size(), b.logs.size());
+        for (int i = 0; i < a.logs.size(); i++) {
+            assertEquals(a.logs.get(i).id, b.logs.get(i).id);
+            assertEquals(a.logs.get(i).completed, b.logs.get(i).completed);
+            assertEquals(a.logs.get(i).timestamp, b.logs.get(i).timestamp);
+        }
+        assertNotEquals(a.logs.size(), SyntheticDataset.generate(12, 40, 2, TODAY).logs.size());
+    }
+
+    @Test
+    public void powerUserMixesSchedulesTypesAndDensities() {
+        SyntheticDataset data = SyntheticDataset.powerUser(1, TODAY);
+        assertEquals(300, data.habits.size());
+        assertEquals(TODAY - 5 * 365 - 1, data.firstDay);
+
+        Set<String> schedules = new HashSet<>();
+        Set<SyntheticDataset.Density> densities = new HashSet<>();
+        int bad = 0;
+        for (SyntheticDataset.Habit habit : data.habits) {
+            schedules.add(habit.scheduleType);
+            densities.add(habit.density);
+            if (habit.bad) bad++;
+            assertTrue(habit.createdDay >= data.firstDay && habit.createdDay <= TODAY);
+            assertEquals(habit.createdDay, EpochDays.fromMillis(habit.createdAtMillis(), UTC));
+        }
+        assertEquals(3, schedules.size());
+        assertEquals(3, densities.size());
+        assertTrue(bad > 50 && bad < 130);
+        // Five years of mostly daily habits: a couple of hundred thousand logs.
+        assertTrue(data.logs.size() > 100_000 && data.logs.size() < 500_000);
+    }
+
+    @Test
+    public void logsFallOnExpectedDaysOnceEachInDayOrder() {
+        SyntheticDataset data = SyntheticDataset.generate(5, 60, 3, TODAY);
+        Map<String, SyntheticDataset.Habit> byId = new HashMap<>();
+        for (SyntheticDataset.Habit habit : data.habits) byId.put(habit.id, habit);
+
+        Set<String> ids = new HashSet<>();
+        int previousDay = Integer.MIN_VALUE;
+        for (SyntheticDataset.Log log : data.logs) {
+            SyntheticDataset.Habit habit = byId.get(log.habitId);
+            assertTrue(habit.schedule().isExpected(log.epochDay));
+            assertTrue(log.epochDay >= habit.createdDay && log.epochDay <= TODAY);
+            assertTrue(log.epochDay >= previousDay);
+            assertEquals(log.epochDay, EpochDays.fromMillis(log.timestamp, UTC));
+            assertTrue(ids.add(log.id));
+            previousDay = log.epochDay;
+        }
+    }
+
+    @Test
+    public void densityShowsInLoggedShare() {
+        SyntheticDataset data = SyntheticDataset.generate(3, 120, 2, TODAY);
+        long[] logged = new long[3];
+        long[] expected = new long[3];
+        Map<String, Integer> perHabit = new HashMap<>();
+        for (SyntheticDataset.Log log : data.logs) perHabit.merge(log.habitId, 1, Integer::sum);
+        for (SyntheticDataset.Habit habit : data.habits) {
+            logged[habit.density.ordinal()] += perHabit.getOrDefault(habit.id, 0);
+            expected[habit.density.ordinal()] += data.expectedDays(habit);
+        }
+        double sparse = (double) logged[0] / expected[0];
+        double regular = (double) logged[1] / expected[1];
+        double dense = (double) logged[2] / expected[2];
+        assertTrue(sparse < 0.3);
+        assertTrue(regular > sparse && regular < dense);
+        assertTrue(dense > 0.8);
+    }
+}
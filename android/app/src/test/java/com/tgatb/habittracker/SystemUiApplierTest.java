@@ -0,0 +1,77 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SystemUiApplierTest {
+    /** Records every operation, in order, as one log of both interfaces. */
+    private static final class Recorder implements SystemUiApplier.Bars, SystemUiApplier.Controller {
+        final List<String> ops = new ArrayList<>();
+        boolean visible;
+
+        @Override public void setEdgeToEdge(boolean fullscreen) { ops.add("edgeToEdge:" + fullscreen); }
+        @Override public void setBarColor(int color) { ops.add("color:" + Integer.toHexString(color)); }
+        @Override public boolean barsVisible() { return visible; }
+        @Override public void setImmersiveFlags() { ops.add("immersive"); }
+        @Override public void clearImmersiveFlags() { ops.add("clearImmersive"); }
+        @Override public void addRehideListener() { ops.add("rehide"); }
+        @Override public void setLegacyLightFlags(boolean darkIcons) { ops.add("legacyLight:" + darkIcons); }
+        @Override public void requestApplyInsets() { ops.add("insets"); }
+        @Override public void setTransientBarsBehavior() { ops.add("transient"); }
+        @Override public void hideBars() { ops.add("hide"); }
+        @Override public void showBars() { ops.add("show"); }
+        @Override public void setLightAppearance(boolean darkIcons) { ops.add("appearance:" + darkIcons); }
+
+        List<String> apply(SystemUiState state, SystemUiState previous) {
+            ops.clear();
+            SystemUiApplier.apply(this, this, state, previous);
+            return ops;
+        }
+    }
+
+    @Test
+    public void newWindowGetsEveryOperation() {
+        Recorder r = new Recorder();
+        assertEquals(Arrays.asList(
+                "edgeToEdge:false", "transient", "color:ff6750a4", "show", "clearImmersive",
+                "appearance:false", "legacyLight:false", "insets"),
+                r.apply(SystemUiState.DEFAULT, null));
+    }
+
+    @Test
+    public void enteringFullscreenRecolorsBeforeHiding() {
+        Recorder r = new Recorder();
+        assertEquals(Arrays.asList(
+                "edgeToEdge:true", "transient", "color:ffffffff", "hide", "immersive", "rehide",
+                "appearance:true", "legacyLight:true", "insets"),
+                r.apply(SystemUiState.of(true, false), SystemUiState.DEFAULT));
+    }
+
+    @Test
+    public void themeChangeOutsideFullscreenIsFree() {
+        Recorder r = new Recorder();
+        assertEquals(Collections.emptyList(), r.apply(SystemUiState.of(false, true), SystemUiState.DEFAULT));
+    }
+
+    @Test
+    public void themeChangeInFullscreenTouchesOnlyColorsAndIcons() {
+        Recorder r = new Recorder();
+        assertEquals(Arrays.asList("color:ff201e24", "appearance:false", "legacyLight:false"),
+                r.apply(SystemUiState.of(true, true), SystemUiState.of(true, false)));
+    }
+
+    @Test
+    public void rehidesBarsTheSystemRevealed() {
+        Recorder r = new Recorder();
+        SystemUiState fullscreen = SystemUiState.of(true, false);
+        assertEquals(Collections.emptyList(), r.apply(fullscreen, fullscreen));
+        r.visible = true;
+        assertEquals(Arrays.asList("hide", "immersive"), r.apply(fullscreen, fullscreen));
+    }
+}
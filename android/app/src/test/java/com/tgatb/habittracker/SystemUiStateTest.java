@@ -0,0 +1,51 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SystemUiStateTest {
+    @Test
+    public void derivesBarColorAndIcons() {
+        SystemUiState normal = SystemUiState.of(false, true);
+        assertEquals(SystemUiState.PURPLE, normal.barColor);
+        assertFalse(normal.darkIcons);
+
+        SystemUiState light = SystemUiState.of(true, false);
+        assertEquals(SystemUiState.LIGHT_SURFACE, light.barColor);
+        assertTrue(light.darkIcons);
+
+        SystemUiState dark = SystemUiState.of(true, true);
+        assertEquals(SystemUiState.DARK_SURFACE, dark.barColor);
+        assertFalse(dark.darkIcons);
+    }
+
+    @Test
+    public void firstApplyChangesEverything() {
+        assertEquals(SystemUiState.CHANGED_ALL, SystemUiState.DEFAULT.diff(null));
+    }
+
+    @Test
+    public void sameStateDiffsToNothing() {
+        assertEquals(0, SystemUiState.of(true, true).diff(SystemUiState.of(true, true)));
+        assertSame(SystemUiState.DEFAULT, SystemUiState.DEFAULT.withFullscreen(false).withDarkMode(false));
+    }
+
+    @Test
+    public void darkModeOutsideFullscreenChangesNoWindowState() {
+        // Bars stay purple with light icons regardless of theme.
+        assertEquals(0, SystemUiState.of(false, true).diff(SystemUiState.of(false, false)));
+    }
+
+    @Test
+    public void themeFlipInFullscreenTouchesColorAndIconsOnly() {
+        int changed = SystemUiState.of(true, true).diff(SystemUiState.of(true, false));
+        assertEquals(SystemUiState.CHANGED_BAR_COLOR | SystemUiState.CHANGED_ICONS, changed);
+    }
+
+    @Test
+    public void enteringDarkFullscreenKeepsIcons() {
+        int changed = SystemUiState.of(true, true).diff(SystemUiState.of(false, true));
+        assertEquals(SystemUiState.CHANGED_FULLSCREEN | SystemUiState.CHANGED_BAR_COLOR, changed);
+    }
+}
@@ -0,0 +1,89 @@
+package com.tgatb.habittracker;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class WebAssetManifestTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static WebAssetManifest manifest(WebAssetManifest.Entry... entries) {
+        return new WebAssetManifest(Arrays.asList(entries));
+    }
+
+    private static WebAssetManifest.Entry e(String path, String hash, long size) {
+        return new WebAssetManifest.Entry(path, hash, size);
+    }
+
+    @Test
+    public void diff_evictsOnlyChangedAndRemoved() {
+        WebAssetManifest previous = manifest(
+                e("/index.html", "aaaa", 1_000),
+                e("/_next/static/chunks/main.js", "bbbb", 50_000),
+                e("/_next/static/chunks/old.js", "cccc", 7_000),
+                e("/logo/logo.svg", "dddd", 2_000));
+        WebAssetManifest next = manifest(
+                e("/index.html", "a2a2", 1_100),
+                e("/_next/static/chunks/main.js", "bbbb", 50_000),
+                e("/_next/static/chunks/new.js", "eeee", 9_000),
+                e("/logo/logo.svg", "dddd", 2_000));
+
+        WebAssetManifest.Diff diff = WebAssetManifest.diff(previous, next);
+
+        assertEquals(Arrays.asList("/index.html", "/_next/static/chunks/old.js"), diff.evicted);
+        assertEquals(2, diff.keptCount);
+        assertEquals(1, diff.addedCount);
+    }
+
+    @Test
+    public void identicalManifests_evictNothing() {
+        WebAssetManifest m = manifest(e("/a.js", "1", 10), e("/b.css", "2", 20));
+        WebAssetManifest.Diff diff = WebAssetManifest.diff(m, m);
+        assertTrue(diff.evicted.isEmpty());
+        assertEquals(2, diff.keptCount);
+    }
+
+    @Test
+    public void requestUrls_mapPagesToTheUrlsTheyAreNavigatedAs() {
+        assertEquals(Arrays.asList("/", "/index.html"), WebAssetManifest.requestUrls("/index.html"));
+        assertEquals(Arrays.asList("/history/", "/history", "/history/index.html"),
+                WebAssetManifest.requestUrls("/history/index.html"));
+        assertEquals(Arrays.asList("/_next/static/chunks/main.js"),
+                WebAssetManifest.requestUrls("/_next/static/chunks/main.js"));
+    }
+
+    @Test
+    public void parsesScriptOutputAndRoundTrips() throws Exception {
+        String text = WebAssetManifest.HEADER + "\n"
+                + "b541871ddf2562ec\t3\t/_next/a.js\n"
+                + "98ea6e4f216f2fb4\t3\t/index.html\n";
+        WebAssetManifest parsed = WebAssetManifest.parse(new ByteArrayInputStream(text.getBytes("UTF-8")));
+        assertEquals(2, parsed.size());
+        assertEquals("98ea6e4f216f2fb4", parsed.get("/index.html").hash);
+
+        File file = new File(tmp.getRoot(), "web_assets/" + WebAssetManifest.FILE_NAME);
+        parsed.write(file);
+        WebAssetManifest read = WebAssetManifest.read(file);
+        assertNotNull(read);
+        assertEquals(3L, read.get("/_next/a.js").size);
+        assertTrue(WebAssetManifest.diff(parsed, read).evicted.isEmpty());
+    }
+
+    @Test
+    public void rejectsForeignFiles() throws Exception {
+        try {
+            WebAssetManifest.parse(new ByteArrayInputStream("<html>".getBytes("UTF-8")));
+            fail();
+        } catch (IOException expected) {
+        }
+        assertNull(WebAssetManifest.read(new File(tmp.getRoot(), "missing.tsv")));
+    }
+}
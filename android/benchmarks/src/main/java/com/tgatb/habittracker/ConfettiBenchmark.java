@@ -0,0 +1,61 @@
+package com.tgatb.habittracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ConfettiOverlay} per-frame work: one simulation step plus the per-piece reads the
+ * draw loop makes, at "high" intensity and with the pool full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfettiBenchmark {
+    private static final float WIDTH = 1080f;
+    private static final float HEIGHT = 2340f;
+    private static final float DENSITY = 2.75f;
+    private static final float FRAME = 1f / 60f;
+
+    private ConfettiSimulation high;
+    private ConfettiSimulation full;
+
+    @Setup
+    public void setUp() {
+        high = new ConfettiSimulation(1);
+        full = new ConfettiSimulation(2);
+    }
+
+    @Benchmark
+    public float frameHigh() {
+        return frame(high, ConfettiSimulation.countFor("high"));
+    }
+
+    @Benchmark
+    public float frameFullPool() {
+        return frame(full, ConfettiSimulation.CAPACITY);
+    }
+
+    /** Restarts the burst when it finishes so every measured frame has pieces in flight. */
+    private static float frame(ConfettiSimulation sim, int count) {
+        if (sim.isIdle()) sim.burst(count, WIDTH, HEIGHT, DENSITY);
+        int alive = sim.step(FRAME);
+        float acc = 0;
+        for (int i = 0; i < alive; i++) {
+            acc += sim.x(i) + sim.y(i) + sim.angle(i) + sim.flip(i) + sim.width(i) + sim.alpha(i) + sim.color(i);
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,72 @@
+package com.tgatb.habittracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** {@code PremiumHapticsPlugin} hot paths against a {@link RecordingVibrator}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HapticsBenchmark {
+    private static final String[] EVENT_IDS = eventIds();
+    /** Null is the current profile, as sent by most calls. */
+    private static final String[] PROFILE_IDS = {null, "subtle", null, "punchy"};
+    private static final long GAP_NANOS = HapticDispatcher.DEFAULT_MIN_GAP_MS * 1_000_000L;
+
+    private final long[] timings = {0, 9, 13, 11, 17, 14};
+    private final int[] amplitudes = {0, 130, -4, 155, 0, 300};
+
+    private RecordingVibrator vibrator;
+    private HapticEngine<RecordingVibrator.Effect> engine;
+    private long now;
+    private int n;
+
+    @Setup
+    public void setUp() {
+        vibrator = new RecordingVibrator();
+        engine = new HapticEngine<>(vibrator, vibrator, HapticDispatcher.DEFAULT_MIN_GAP_MS);
+    }
+
+    /** {@code play}: id and profile lookup, request table, pending slot, then dispatch. */
+    @Benchmark
+    public long play() {
+        int i = n++ & 0x7FFFFFFF;
+        engine.offerEvent(EVENT_IDS[i % EVENT_IDS.length], PROFILE_IDS[i % PROFILE_IDS.length], 0L);
+        now += GAP_NANOS;
+        engine.dispatcher().runOnce(now);
+        return vibrator.vibrations;
+    }
+
+    /** The bridge-thread half of {@code play}; the pending slot coalesces repeats. */
+    @Benchmark
+    public void offer() {
+        int i = n++ & 0x7FFFFFFF;
+        engine.offerEvent(EVENT_IDS[i % EVENT_IDS.length], PROFILE_IDS[i % PROFILE_IDS.length], 0L);
+    }
+
+    /** {@code registerPattern}: validation, amplitude clamping, array copies and the compile. */
+    @Benchmark
+    public RecordingVibrator.Effect compileWaveform() {
+        return vibrator.compile(HapticPattern.waveform(timings, amplitudes));
+    }
+
+    private static String[] eventIds() {
+        HapticEvent[] events = HapticEvent.values();
+        String[] ids = new String[events.length];
+        for (int i = 0; i < events.length; i++) ids[i] = events[i].id;
+        return ids;
+    }
+}
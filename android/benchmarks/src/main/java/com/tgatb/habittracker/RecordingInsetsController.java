@@ -0,0 +1,33 @@
+package com.tgatb.habittracker;
+
+/** Stand-in for {@code WindowInsetsControllerCompat}: keeps bar visibility and appearance. */
+final class RecordingInsetsController implements SystemUiApplier.Controller {
+    boolean transientBehavior;
+    boolean barsShown = true;
+    boolean lightAppearance;
+    long operations;
+
+    @Override
+    public void setTransientBarsBehavior() {
+        operations++;
+        transientBehavior = true;
+    }
+
+    @Override
+    public void hideBars() {
+        operations++;
+        barsShown = false;
+    }
+
+    @Override
+    public void showBars() {
+        operations++;
+        barsShown = true;
+    }
+
+    @Override
+    public void setLightAppearance(boolean darkIcons) {
+        operations++;
+        lightAppearance = darkIcons;
+    }
+}
@@ -0,0 +1,37 @@
+package com.tgatb.habittracker;
+
+/**
+ * Stand-in for {@code Vibrator} and {@code VibrationEffect}: compiles patterns into
+ * {@link Effect}s that copy their arrays like the platform factory does, and counts
+ * playback without allocating.
+ */
+final class RecordingVibrator implements HapticEffectRegistry.Compiler<RecordingVibrator.Effect>,
+        HapticDispatcher.Player<RecordingVibrator.Effect> {
+
+    /** What {@code VibrationEffect.createOneShot}/{@code createWaveform} would hold. */
+    static final class Effect {
+        final long[] timings;
+        final int[] amplitudes;
+
+        Effect(long[] timings, int[] amplitudes) {
+            this.timings = timings;
+            this.amplitudes = amplitudes;
+        }
+    }
+
+    long vibrations;
+    long totalMs;
+    Effect last;
+
+    @Override
+    public Effect compile(HapticPattern pattern) {
+        return new Effect(pattern.timings(), pattern.amplitudes());
+    }
+
+    @Override
+    public void play(Effect effect) {
+        vibrations++;
+        for (long t : effect.timings) totalMs += t;
+        last = effect;
+    }
+}
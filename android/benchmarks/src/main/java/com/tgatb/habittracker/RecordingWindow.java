@@ -0,0 +1,68 @@
+package com.tgatb.habittracker;
+
+/**
+ * Stand-in for {@code Window} and its decor view: keeps the flags and colors a real
+ * window would end up with, and counts operations, without allocating.
+ */
+final class RecordingWindow implements SystemUiApplier.Bars {
+    static final int FLAG_IMMERSIVE = 1;
+    static final int FLAG_LIGHT_BARS = 1 << 1;
+    static final int FLAG_LAYOUT_STABLE = 1 << 2;
+
+    boolean edgeToEdge;
+    int barColor;
+    int visibility;
+    boolean rehideListener;
+    /** What {@code getRootWindowInsets} reports; flip to simulate bars revealed by the system. */
+    boolean barsVisible = true;
+    long operations;
+    long insetPasses;
+
+    @Override
+    public void setEdgeToEdge(boolean fullscreen) {
+        operations++;
+        edgeToEdge = fullscreen;
+    }
+
+    @Override
+    public void setBarColor(int color) {
+        operations++;
+        barColor = color;
+    }
+
+    @Override
+    public boolean barsVisible() {
+        return barsVisible;
+    }
+
+    @Override
+    public void setImmersiveFlags() {
+        operations++;
+        visibility = FLAG_LAYOUT_STABLE | FLAG_IMMERSIVE | (visibility & FLAG_LIGHT_BARS);
+    }
+
+    @Override
+    public void clearImmersiveFlags() {
+        operations++;
+        visibility = FLAG_LAYOUT_STABLE;
+        rehideListener = false;
+    }
+
+    @Override
+    public void addRehideListener() {
+        operations++;
+        rehideListener = true;
+    }
+
+    @Override
+    public void setLegacyLightFlags(boolean darkIcons) {
+        operations++;
+        visibility = darkIcons ? visibility | FLAG_LIGHT_BARS : visibility & ~FLAG_LIGHT_BARS;
+    }
+
+    @Override
+    public void requestApplyInsets() {
+        operations++;
+        insetPasses++;
+    }
+}
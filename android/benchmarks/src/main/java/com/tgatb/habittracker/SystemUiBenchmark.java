@@ -0,0 +1,76 @@
+package com.tgatb.habittracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code SystemUiPlugin} state decisions: the request-side state update and the diff-driven
+ * window operations, against a {@link RecordingWindow} and {@link RecordingInsetsController}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemUiBenchmark {
+    private final SystemUiState[] themes = {SystemUiState.of(true, false), SystemUiState.of(true, true)};
+    private final SystemUiState[] modes = {SystemUiState.of(false, false), SystemUiState.of(true, false)};
+
+    private RecordingWindow window;
+    private RecordingInsetsController controller;
+    private SystemUiState applied;
+    private SystemUiState requested;
+    private int n;
+
+    @Setup
+    public void setUp() {
+        window = new RecordingWindow();
+        controller = new RecordingInsetsController();
+        applied = SystemUiState.DEFAULT;
+        requested = SystemUiState.DEFAULT;
+        SystemUiApplier.apply(window, controller, applied, null);
+    }
+
+    /** {@code setFullscreen}: copy-on-write state update and the diff against the applied state. */
+    @Benchmark
+    public int requestFullscreen() {
+        requested = requested.withFullscreen(!requested.fullscreen);
+        return requested.diff(applied);
+    }
+
+    /** Reapply with nothing to do (focus regained, insets refresh) while bars stay hidden. */
+    @Benchmark
+    public int applyUnchanged() {
+        window.barsVisible = false;
+        return SystemUiApplier.apply(window, controller, themes[0], themes[0]);
+    }
+
+    /** Dark mode flipped in fullscreen: bar color and icon appearance only. */
+    @Benchmark
+    public int applyThemeToggle() {
+        SystemUiState next = themes[++n & 1];
+        int changed = SystemUiApplier.apply(window, controller, next, applied);
+        applied = next;
+        return changed;
+    }
+
+    /** Entering and leaving fullscreen: every operation. */
+    @Benchmark
+    public int applyFullscreenToggle() {
+        SystemUiState next = modes[++n & 1];
+        int changed = SystemUiApplier.apply(window, controller, next, applied);
+        applied = next;
+        return changed;
+    }
+}
@@ -23,6 +23,7 @@ import { hasOpenModals, closeTopModal } from "@/hooks/use-mobile-back-navigation
 import { useWelcomeOverlay } from "@/hooks/use-welcome-overlay";
 import { useToast } from "@/hooks/use-toast";
 import { useSystemBarsUnified } from "@/hooks/use-system-bars-unified";
+import { useFrameMetricsScreen } from "@/hooks/use-frame-metrics-screen";
 import { ToastAction } from "@/components/ui/toast";
 import { Badge } from "@/components/ui/badge";
 import { HabitType, HabitSchedule, Habit } from "@shared/schema";
@@ -109,6 +110,16 @@ export default function Home() {
   // MAJOR FIX: Apply unified system bar theming with fullscreen support
   useSystemBarsUnified(settings.fullscreenMode, settings.darkMode);
 
+  // Native jank telemetry: attribute frames to whatever is on screen
+  useFrameMetricsScreen("home");
+  useFrameMetricsScreen("drawer", drawerOpen);
+  useFrameMetricsScreen("history", showHistory);
+  useFrameMetricsScreen("addHabit", showAddHabit);
+  useFrameMetricsScreen("editHabit", showEditHabit);
+  useFrameMetricsScreen("addEntry", historyAddEntryOpen);
+  useFrameMetricsScreen("editEntry", historyEditEntryOpen);
+  useFrameMetricsScreen("settings", showSettings);
+
   // Update theme immediately when settings.darkMode changes
   useEffect(() => {
     setIsDark(settings.darkMode);
@@ -567,6 +578,7 @@ export default function Home() {
           count={streakCelebration?.milestoneCount ?? 1}
           reducedMotion={streakCelebrationReducedMotion}
           confettiCount={streakCelebrationConfettiCount}
+          motion={settings.celebrationMotion}
           onClose={dismissStreakCelebration}
         />
       </div>
@@ -2,7 +2,9 @@
 
 import { useEffect } from "react";
 import { usePathname } from "next/navigation";
+import { Capacitor } from "@capacitor/core";
 import { isValidLocale } from "@/i18n/routing";
+import { StartupTrace } from "@/lib/startup-trace-plugin";
 
 type AppReadyStrategy = "immediate" | "data-ready";
 
@@ -30,6 +32,10 @@ export function AppReadyMarker({
 
     const markLoaded = () => {
       document.body.classList.add("app-loaded");
+      if (Capacitor.getPlatform() === "android") {
+        // Closes the native cold-start trace; repeat calls are ignored natively.
+        StartupTrace.markReady().catch(() => {});
+      }
     };
 
     const shouldWaitForDataReady = strategy === "data-ready" && isHomePath(pathname);
@@ -6,6 +6,7 @@ import { Capacitor } from '@capacitor/core';
 import { initializeCapacitor } from '@/lib/capacitor';
 import { HabitStorage } from '@/lib/habit-storage';
 import { warmupHaptics } from '@/lib/haptics';
+import { applyWebAssetEvictions } from '@/lib/web-asset-cache';
 
 export function CapacitorInit() {
   // System bar styling handled by SystemBarsManager; only initialize Capacitor here
@@ -42,6 +43,7 @@ export function CapacitorInit() {
             // Settings no longer needed for initialization; unified system bars hook manages fullscreen
             await HabitStorage.getSettings().catch(()=>{}); // pre-warm storage (ignore errors)
             await warmupHaptics();
+            await applyWebAssetEvictions();
           } catch {}
           initializeCapacitor();
         })();
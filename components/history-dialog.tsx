@@ -18,7 +18,7 @@ function AddEntryButton({ show, onClick, label, date }: { show: boolean; onClick
     </div>
   );
 }
-import React, { useState, useMemo } from 'react';
+import React, { useState, useMemo, useEffect } from 'react';
 import { useTranslations } from 'next-intl';
 // Helper to check if a date is today or in the past (date-only, local)
 function isPastOrToday(date: Date) {
@@ -56,9 +56,12 @@ import {
   ResponsiveDialogBody,
 } from '@/components/ui/responsive-dialog';
 import { Habit } from '@/shared/schema';
-import { getHabitStats } from '@/lib/habit-storage';
+import { HabitStorage } from '@/lib/habit-storage';
 import { formatLocalDate } from '@/lib/utils';
-import { buildDailyLogs, buildDayLog, getCompletedDatesSet, getNegativeDatesSet, computeStatSummary, DayLog } from '@/lib/history';
+import { buildDailyLogs, buildDayLog, buildDailyRollup, getCompletedDatesSet, getNegativeDatesSet, computeStatSummary, DayLog } from '@/lib/history';
+import { isDailyRollupAvailable, queryDailyRollup, type DailyRollupResult } from '@/lib/daily-rollup-plugin';
+import { isHeatmapAvailable, renderYearHeatmap } from '@/lib/heatmap-plugin';
+import { useTheme } from '@/components/theme-provider';
 import { format, isToday } from 'date-fns';
 
 interface HistoryDialogProps {
@@ -83,6 +86,23 @@ interface StatCard {
   color: string;
 }
 
+/** Native heatmap PNG; width and height are device pixels. */
+interface YearHeatmapImage {
+  src: string;
+  width: number;
+  height: number;
+}
+
+/** Placeholder while the native rollup loads: zero counts, no series. */
+const EMPTY_ROLLUP: DailyRollupResult = {
+  from: '',
+  to: '',
+  today: '',
+  totals: { goodDone: 0, badAvoided: 0, missed: 0, badDone: 0, untracked: 0, completions: 0, positiveDays: 0, negativeDays: 0 },
+};
+
+const NO_STATS = { totalCompletions: 0, currentStreak: 0 };
+
 export function HistoryDialog({ open, onOpenChange, habits, removeLog, onRequestAddEntry, onRequestEditEntry }: HistoryDialogProps) {
   const t = useTranslations('HistoryDialog');
   const [selectedDate, setSelectedDate] = useState<Date | undefined>(new Date());
@@ -93,20 +113,52 @@ export function HistoryDialog({ open, onOpenChange, habits, removeLog, onRequest
     onTabChange: setSelectedTab,
   });
 
+  // Logs are read once per habits change and shared by the views below
+  const logs = useMemo(() => HabitStorage.getLogs(), [habits]);
+
+  // All-time day counters: native on Android, one pass over the logs elsewhere or on failure
+  const [nativeRollup, setNativeRollup] = useState<DailyRollupResult | null>(null);
+  const [nativeRollupFailed, setNativeRollupFailed] = useState(false);
+  useEffect(() => {
+    if (!open || !isDailyRollupAvailable()) return;
+    let cancelled = false;
+    const refresh = (result: DailyRollupResult) => { if (!cancelled) setNativeRollup(result); };
+    queryDailyRollup({ habits, logs }, { series: true }, refresh)
+      .then(refresh)
+      .catch(() => { if (!cancelled) setNativeRollupFailed(true); });
+    return () => { cancelled = true; };
+  }, [open, habits, logs]);
+  const rollup = useMemo(
+    () => nativeRollup ?? (isDailyRollupAvailable() && !nativeRollupFailed ? null : buildDailyRollup(habits, logs)),
+    [nativeRollup, nativeRollupFailed, habits, logs]
+  );
+
+  // Year heatmap drawn natively once the rollup (and so the log mirror) is current
+  const { isDark } = useTheme();
+  const [heatmap, setHeatmap] = useState<YearHeatmapImage | null>(null);
+  useEffect(() => {
+    if (!open || !nativeRollup || !isHeatmapAvailable()) return;
+    let cancelled = false;
+    renderYearHeatmap({ dark: isDark })
+      .then((tile) => { if (!cancelled) setHeatmap({ src: tile.src, width: tile.width, height: tile.height }); })
+      .catch(() => { if (!cancelled) setHeatmap(null); });
+    return () => { cancelled = true; };
+  }, [open, nativeRollup, isDark]);
+
   // Calculate comprehensive statistics
-  const statistics = useMemo(() => computeStatSummary(habits), [habits]);
+  const statistics = useMemo(() => computeStatSummary(habits, rollup ?? EMPTY_ROLLUP, logs), [habits, rollup, logs]);
 
   // Create daily logs for timeline view
-  const dailyLogs = useMemo((): DayLog[] => buildDailyLogs(habits, 30), [habits]);
+  const dailyLogs = useMemo((): DayLog[] => buildDailyLogs(habits, 30, logs), [habits, logs]);
 
   // Set of all dates with at least one completion (for calendar dots)
-  const completedDates = useMemo(() => getCompletedDatesSet(habits), [habits]);
-  const negativeDates = useMemo(() => getNegativeDatesSet(habits), [habits]);
+  const completedDates = useMemo(() => getCompletedDatesSet(habits, rollup ?? EMPTY_ROLLUP), [habits, rollup]);
+  const negativeDates = useMemo(() => getNegativeDatesSet(habits, rollup ?? EMPTY_ROLLUP), [habits, rollup]);
 
   // Build day log on-demand for any selected date (not limited to 30 days)
   const selectedDayLog = useMemo(
-    () => (selectedDate && isPastOrToday(selectedDate) ? buildDayLog(habits, selectedDate) : null),
-    [selectedDate, habits]
+    () => (selectedDate && isPastOrToday(selectedDate) ? buildDayLog(habits, selectedDate, logs) : null),
+    [selectedDate, habits, logs]
   );
 
   return (
@@ -140,7 +192,7 @@ export function HistoryDialog({ open, onOpenChange, habits, removeLog, onRequest
             {/* Swipe container — must be flex-col so child TabsContent can use flex-1 for height */}
             <div ref={swipeRef} className="flex-1 min-h-0 flex flex-col overflow-hidden">
               <TabsContent value="overview" className="flex-1 min-h-0 mt-0 flex flex-col overflow-y-auto">
-                <OverviewTabContent habits={habits} statistics={statistics} t={t} />
+                <OverviewTabContent habits={habits} statistics={statistics} today={dailyLogs[0]} heatmap={heatmap} t={t} />
               </TabsContent>
 
               <TabsContent value="calendar" className="flex-1 min-h-0 mt-0 overflow-y-auto overflow-x-hidden">
@@ -224,14 +276,33 @@ function StatGrid({ statistics, t }: { statistics: ReturnType<typeof computeStat
   );
 }
 
-function TopHabits({ habits, t }: { habits: Habit[]; t: (key: string, values?: Record<string, string | number>) => string }) {
+function YearHeatmap({ image, t }: { image: YearHeatmapImage; t: (key: string, values?: Record<string, string | number>) => string }) {
+  const ratio = Math.max(1, Math.round(typeof window !== 'undefined' ? window.devicePixelRatio || 1 : 1));
+  return (
+    <Card className="p-3 mb-3 sm:mb-6 shrink-0">
+      <h3 className="text-sm font-semibold mb-3">{t('heatmap.title')}</h3>
+      <div className="overflow-x-auto">
+        {/* eslint-disable-next-line @next/next/no-img-element -- local file from the native renderer */}
+        <img
+          src={image.src}
+          alt={t('heatmap.title')}
+          width={image.width / ratio}
+          height={image.height / ratio}
+          className="max-w-none"
+        />
+      </div>
+    </Card>
+  );
+}
+
+function TopHabits({ habits, statistics, t }: { habits: Habit[]; statistics: ReturnType<typeof computeStatSummary>; t: (key: string, values?: Record<string, string | number>) => string }) {
   return (
     <Card className="p-3 flex flex-col flex-1 min-h-48 sm:hidden">
       <h3 className="text-sm font-semibold mb-3 shrink-0">{t('topHabits.title')}</h3>
       <div className="flex-1 min-h-0 overflow-y-auto">
         <div className="space-y-2">
           {habits.slice(0, 3).map(habit => {
-            const stats = getHabitStats(habit.id);
+            const stats = statistics.habitStats.get(habit.id) ?? NO_STATS;
             return (
               <div key={habit.id} className="flex items-center justify-between p-2 bg-muted rounded-lg">
                 <div className="flex items-center gap-2 min-w-0 flex-1">
@@ -254,7 +325,7 @@ function TopHabits({ habits, t }: { habits: Habit[]; t: (key: string, values?: R
   );
 }
 
-function HabitBreakdown({ habits, t }: { habits: Habit[]; t: (key: string, values?: Record<string, string | number>) => string }) {
+function HabitBreakdown({ habits, statistics, today, t }: { habits: Habit[]; statistics: ReturnType<typeof computeStatSummary>; today: DayLog | undefined; t: (key: string, values?: Record<string, string | number>) => string }) {
   return (
     <Card className="p-3 sm:p-4 hidden sm:flex sm:flex-col sm:flex-1 sm:min-h-48">
       <h3 className="text-sm sm:text-base font-semibold mb-3 sm:mb-4 shrink-0">{t('breakdown.title')}</h3>
@@ -272,10 +343,9 @@ function HabitBreakdown({ habits, t }: { habits: Habit[]; t: (key: string, value
         ) : (
         <div className="space-y-2 sm:space-y-3">
           {habits.map(habit => {
-            const stats = getHabitStats(habit.id);
+            const stats = statistics.habitStats.get(habit.id) ?? NO_STATS;
             // Determine if habit is untracked for today
-            const todayLog = buildDailyLogs([habit], 1)[0];
-            const log = todayLog?.habits?.[0];
+            const log = today?.habits.find(entry => entry.id === habit.id);
             const isUntracked = log && (log.completed === null || log.completed === undefined);
             return (
               <div key={habit.id} className="flex items-center justify-between p-2 sm:p-3 bg-muted rounded-lg">
@@ -308,12 +378,13 @@ function HabitBreakdown({ habits, t }: { habits: Habit[]; t: (key: string, value
   );
 }
 
-function OverviewTabContent({ habits, statistics, t }: { habits: Habit[]; statistics: ReturnType<typeof computeStatSummary>; t: (key: string, values?: Record<string, string | number>) => string }) {
+function OverviewTabContent({ habits, statistics, today, heatmap, t }: { habits: Habit[]; statistics: ReturnType<typeof computeStatSummary>; today: DayLog | undefined; heatmap: YearHeatmapImage | null; t: (key: string, values?: Record<string, string | number>) => string }) {
   return (
     <div className="flex flex-col flex-1 min-h-0">
       <StatGrid statistics={statistics} t={t} />
-      <TopHabits habits={habits} t={t} />
-      <HabitBreakdown habits={habits} t={t} />
+      {heatmap && <YearHeatmap image={heatmap} t={t} />}
+      <TopHabits habits={habits} statistics={statistics} t={t} />
+      <HabitBreakdown habits={habits} statistics={statistics} today={today} t={t} />
     </div>
   );
 }
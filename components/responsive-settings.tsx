@@ -1,4 +1,4 @@
-import { UserSettings } from '@shared/schema';
+import { UserSettings, ExportBundle } from '@shared/schema';
 import { useIsMobile } from '@/hooks/use-mobile';
 import { SettingsScreen } from '@/components/settings-screen';
 import { SettingsDialog } from '@/components/settings-dialog';
@@ -9,7 +9,7 @@ type ResponsiveSettingsProps = {
   settings: UserSettings;
   onUpdateSettings: (settings: Partial<UserSettings>) => void;
   onExportData: () => Promise<string>;
-  onImportData: (jsonData: string) => void;
+  onImportData: (jsonData: string | ExportBundle) => void;
   onShowHelp?: () => void;
   onDeleteAllHabits?: () => Promise<void>;
 };
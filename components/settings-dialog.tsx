@@ -2,7 +2,7 @@
 
 import { Dialog, DialogContent, DialogHeader, DialogTitle } from '@/components/ui/dialog';
 import { CloseButton } from '@/components/ui/close-button';
-import { UserSettings } from '@shared/schema';
+import { UserSettings, ExportBundle } from '@shared/schema';
 import { AppearanceSettings } from '@/components/settings/appearance-settings';
 import { MotivatorSettings } from '@/components/settings/motivator-settings';
 import { HabitManagementSettings } from '@/components/settings/habit-management-settings';
@@ -19,7 +19,7 @@ type SettingsDialogProps = {
   settings: UserSettings;
   onUpdateSettings: (settings: Partial<UserSettings>) => void;
   onExportData: () => Promise<string>;
-  onImportData: (jsonData: string) => void;
+  onImportData: (jsonData: string | ExportBundle) => void;
   onShowHelp?: () => void;
   onDeleteAllHabits?: () => Promise<void>;
 };
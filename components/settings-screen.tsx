@@ -1,6 +1,6 @@
 ﻿import { Button } from '@/components/ui/button';
 import { ArrowLeft } from 'lucide-react';
-import { UserSettings } from '@shared/schema';
+import { UserSettings, ExportBundle } from '@shared/schema';
 import { useMobileBackNavigation } from '@/hooks/use-mobile-back-navigation';
 import { AppearanceSettings } from '@/components/settings/appearance-settings';
 import { MotivatorSettings } from '@/components/settings/motivator-settings';
@@ -18,7 +18,7 @@ type SettingsScreenProps = {
   settings: UserSettings;
   onUpdateSettings: (settings: Partial<UserSettings>) => void;
   onExportData: () => Promise<string>;
-  onImportData: (jsonData: string) => void;
+  onImportData: (jsonData: string | ExportBundle) => void;
   onShowHelp?: () => void;
   onDeleteAllHabits?: () => Promise<void>;
 };
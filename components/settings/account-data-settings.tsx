@@ -3,7 +3,7 @@ import { ChevronRight, User, CloudUpload, CloudDownload, Download, Upload, Refre
 import { useState } from 'react';
 import { Switch } from "@/components/ui/switch";
 import SyncConflictModal from '@/components/sync-conflict-modal';
-import { UserSettings } from "@shared/schema";
+import { UserSettings, ExportBundle } from "@shared/schema";
 import { useAuth } from "@/hooks/use-auth";
 import { useCloudBackup } from "@/hooks/use-cloud-backup";
 import { useDataExport } from "@/hooks/use-data-export";
@@ -14,7 +14,7 @@ interface AccountDataSettingsProps {
   settings: UserSettings;
   onUpdateSettings: (settings: Partial<UserSettings>) => void;
   onExportData: () => Promise<string>;
-  onImportData: (jsonData: string) => Promise<void> | void;
+  onImportData: (jsonData: string | ExportBundle) => Promise<void> | void;
 }
 
 export function AccountDataSettings({
@@ -1,12 +1,14 @@
 "use client";
 
-import { useMemo } from "react";
+import { useEffect, useMemo, useState } from "react";
 import { Sparkles, Trophy } from "lucide-react";
 import { useLocale, useTranslations } from "next-intl";
 import { getStreakQuoteById, getStreakQuoteTranslation } from "@/lib/streak-quotes";
 import { Button } from "@/components/ui/button";
+import { Confetti, isConfettiAvailable } from "@/lib/confetti-plugin";
 
 import type { CelebrationUnit } from "@/lib/streak-celebration";
+import type { CelebrationMotion } from "@shared/schema";
 
 interface StreakCelebrationOverlayProps {
   open: boolean;
@@ -18,6 +20,8 @@ interface StreakCelebrationOverlayProps {
   count?: number;
   reducedMotion: boolean;
   confettiCount: number;
+  /** The celebrationMotion setting, forwarded to the native overlay. */
+  motion?: CelebrationMotion;
   onClose: () => void;
 }
 
@@ -47,6 +51,7 @@ export function StreakCelebrationOverlay({
   count = weeks,
   reducedMotion,
   confettiCount,
+  motion = "system",
   onClose,
 }: StreakCelebrationOverlayProps) {
   const t = useTranslations("StreakCelebration");
@@ -88,6 +93,19 @@ export function StreakCelebrationOverlay({
     });
   }, [confettiCount]);
 
+  // On Android the confetti is drawn natively above the WebView; the DOM particles are
+  // only the fallback when the plugin call fails.
+  const [nativeFailed, setNativeFailed] = useState(false);
+  const nativeConfetti = isConfettiAvailable() && !nativeFailed;
+
+  useEffect(() => {
+    if (!open || reducedMotion || !isConfettiAvailable()) return;
+    Confetti.celebrate({ count: confettiCount, motion }).catch(() => setNativeFailed(true));
+    return () => {
+      Confetti.cancel().catch(() => {});
+    };
+  }, [open, reducedMotion, confettiCount, motion]);
+
   if (!open) return null;
 
   return (
@@ -99,7 +117,7 @@ export function StreakCelebrationOverlay({
       aria-label={t(getTitleKey(), getTitleValues())}
       onClick={onClose}
     >
-      {!reducedMotion && (
+      {!reducedMotion && !nativeConfetti && (
         <div className="pointer-events-none absolute inset-0 overflow-hidden" aria-hidden="true">
           {particles.map((particle) => (
             <span
@@ -33,12 +33,15 @@ export function useCloudBackup() {
     let result: unknown = null;
 
     try {
-      // Get full export bundle
-      const { HabitStorage } = await import("@/lib/habit-storage");
-      const exportJson = await HabitStorage.exportData();
-      if (process.env.NODE_ENV !== "production") {
-        console.debug('[useCloudBackup] Exporting full bundle:', exportJson);
-      }
+      // Full export bundle as one string; the chunked Android path never builds it
+      const exportJson = async () => {
+        const { HabitStorage } = await import("@/lib/habit-storage");
+        const json = await HabitStorage.exportData();
+        if (process.env.NODE_ENV !== "production") {
+          console.debug('[useCloudBackup] Exporting full bundle:', json);
+        }
+        return json;
+      };
 
       const accessToken = await TokenStorage.getAccessToken();
         if (!accessToken) {
@@ -54,7 +57,7 @@ export function useCloudBackup() {
         if (typeof window !== 'undefined' && !Capacitor.isNativePlatform()) {
           const { uploadToDrive } = await import("../web/drive-sync");
           try {
-            result = await uploadToDrive(exportJson, accessToken);
+            result = await uploadToDrive(await exportJson(), accessToken);
             if (process.env.NODE_ENV !== "production") {
               console.debug('[useCloudBackup] Web Drive backup result:', result);
             }
@@ -78,8 +81,12 @@ export function useCloudBackup() {
           }
         } else {
           const { uploadDataToDrive } = await import("@/mobile/drive-sync");
+          const { isDeltaBackupAvailable, backupToDriveDelta } = await import("@/lib/delta-backup-plugin");
           try {
-            result = await uploadDataToDrive(exportJson, accessToken);
+            // Chunked upload sends only what changed since the last backup
+            result = isDeltaBackupAvailable()
+              ? await backupToDriveDelta(accessToken)
+              : await uploadDataToDrive(await exportJson(), accessToken);
             if (process.env.NODE_ENV !== "production") {
               console.debug('[useCloudBackup] Mobile Drive backup result:', result);
             }
@@ -161,21 +168,11 @@ export function useCloudBackup() {
         }
 
         try {
-          // List files in app folder (with root fallback for legacy uploads)
-          const { listAppFiles } = await import('@/lib/drive-folder');
-          const files = await listAppFiles('habits-backup.json', accessToken, { withRootFallback: true });
-          if (process.env.NODE_ENV !== "production") {
-            console.debug('[useCloudBackup] Web Drive file list:', files);
-          }
-
-          if (!files.length) throw new Error("No backup file found in Drive");
-
-          const fileId = files[0].id;
-          // Download backup from Drive
-          const res = await fetch(`https://www.googleapis.com/drive/v3/files/${fileId}?alt=media`, {
-            headers: { Authorization: `Bearer ${accessToken}` }
-          });
-          cloudJson = await res.text();
+          // Newest of the chunked backup and the legacy full file (root fallback included)
+          const { downloadLatestBackupJson } = await import('@/lib/delta-backup-plugin');
+          const latestJson = await downloadLatestBackupJson(accessToken);
+          if (latestJson === null) throw new Error("No backup file found in Drive");
+          cloudJson = latestJson;
           const { importBundleFromJson } = await import('../shared/data-sync');
           cloudBundle = await importBundleFromJson(cloudJson as string);
           if (!cloudBundle) {
@@ -228,6 +225,16 @@ export function useCloudBackup() {
               });
               return;
             }
+            if (err instanceof Error && err.name === 'ChunkedRestoreError') {
+              // Nothing was imported; an older backup is not used in its place
+              toast({
+                title: "Import Error",
+                description: err.message + " Nothing was imported. Back up again from a device with your latest data to repair it.",
+                variant: "destructive",
+                duration: 6000,
+              });
+              return;
+            }
             throw err;
           }
           cloudJson = JSON.stringify(cloudBundle);
@@ -16,6 +16,16 @@ type PushNowOptions = {
   force?: boolean; // bypass backoff
 };
 
+/**
+ * Newest backup through the native restore path (chunked on Android), as JSON text, so
+ * it goes through the same migration and merge as a download on the web.
+ */
+async function downloadNativeBackupJson(accessToken: string): Promise<string | null> {
+  const { downloadLatestHabitsFromDrive } = await import("@/mobile/drive-sync");
+  const bundle = await downloadLatestHabitsFromDrive(accessToken);
+  return bundle ? JSON.stringify(bundle) : null;
+}
+
 export function useCloudSync() {
   const { toast } = useToast();
   const { isOnline } = useNetworkStatus();
@@ -203,123 +213,103 @@ export function useCloudSync() {
       return false;
     }
     try {
-      if (typeof window !== 'undefined' && !isCapacitorApp) {
-        const accessToken = await TokenStorage.getAccessToken();
-        if (!accessToken) {
-          toast({ title: "Not Signed In", description: "Sign in to enable cloud sync.", variant: "destructive" });
+      const accessToken = await TokenStorage.getAccessToken();
+      if (!accessToken) {
+        toast({ title: "Not Signed In", description: "Sign in to enable cloud sync.", variant: "destructive" });
+        return false;
+      }
+      // Download the most recent backup (chunked manifest or legacy habits-backup.json)
+      const cloudJson = typeof window !== 'undefined' && !isCapacitorApp
+        ? await (await import('@/lib/delta-backup-plugin')).downloadLatestBackupJson(accessToken)
+        : await downloadNativeBackupJson(accessToken);
+      if (cloudJson === null) {
+        toast({ title: 'No backup', description: 'No cloud backup found.', duration: 2500 });
+        return false;
+      }
+      // Run migrations and attempt per-item merge with local data (native engine on Android)
+      try {
+        const parsed = (() => { try { return JSON.parse(cloudJson); } catch { return null; } })();
+        const { runMigrations } = await import('@/lib/migrations');
+        let migrated = await runMigrations(parsed).catch(() => parsed);
+
+        // Validate migrated bundle before attempting merges
+        const { validateExportImportJson } = await import('@/lib/validate-export-import');
+        const validation = validateExportImportJson(migrated);
+        if (!validation.success) {
+          console.error('[useCloudSync] remote bundle validation failed', validation.errors);
+          toast({ title: 'Sync Error', description: 'Downloaded data is invalid. Import aborted.', variant: 'destructive' });
+          syncRunningRef.current = false;
+          hideLoading();
           return false;
         }
-        // List and download the most recent file named habits-backup.json
-        const { listAppFiles } = await import('@/lib/drive-folder');
-        const files = await listAppFiles('habits-backup.json', accessToken, { withRootFallback: true });
-        if (!files.length) {
-          toast({ title: 'No backup', description: 'No cloud backup found.', duration: 2500 });
-          return false;
+        migrated = validation.data as typeof migrated;
+
+        const { mergeSyncData } = await import('@/lib/sync/merge-engine-plugin');
+        const { HabitStorage } = await import('@/lib/habit-storage');
+
+        const localHabits = HabitStorage.getHabits();
+        const localLogs = HabitStorage.getLogs();
+
+        // load last snapshot for base if available
+        let baseSnapshot: ExportBundle | null = null;
+        try { const last = await storageGet(SYNC_LAST_SNAPSHOT_KEY); baseSnapshot = last ? JSON.parse(last) as ExportBundle : null; } catch {}
+
+        const remoteHabits: Habit[] = (migrated?.habits || []).map((h: unknown) => { const hh = h as Record<string, unknown>; return { ...hh, createdAt: new Date(String(hh.createdAt)), lastCompletedDate: hh.lastCompletedDate ? new Date(String(hh.lastCompletedDate)) : undefined } as Habit; });
+        const remoteLogs: HabitLog[] = (migrated?.logs || []).map((l: unknown) => { const ll = l as Record<string, unknown>; return { ...ll, timestamp: new Date(String(ll.timestamp)) } as HabitLog; });
+        const baseHabits: Habit[] = (baseSnapshot?.habits || []).map((h: unknown) => { const hh = h as Record<string, unknown>; return { ...hh, createdAt: new Date(String(hh.createdAt)), lastCompletedDate: hh.lastCompletedDate ? new Date(String(hh.lastCompletedDate)) : undefined } as Habit; });
+        const baseLogs: HabitLog[] = (baseSnapshot?.logs || []).map((l: unknown) => { const ll = l as Record<string, unknown>; return { ...ll, timestamp: new Date(String(ll.timestamp)) } as HabitLog; });
+
+        // One merge call for both collections (native engine on Android)
+        const { habits: mergedHabits, logs: mergedLogs, conflicts } = await mergeSyncData(
+          { habits: localHabits, logs: localLogs },
+          { habits: remoteHabits, logs: remoteLogs },
+          { habits: baseHabits, logs: baseLogs },
+        );
+
+        const localMap = new Map<string, Habit>(localHabits.map((h: Habit) => [h.id, h]));
+        const remoteMap = new Map<string, Habit>(remoteHabits.map((h: Habit) => [h.id, h]));
+        const localLogMap = new Map<string, HabitLog>(localLogs.map((l: HabitLog) => [l.id, l]));
+        const remoteLogMap = new Map<string, HabitLog>(remoteLogs.map((l: HabitLog) => [l.id, l]));
+        const conflictsCollected: Array<{ id: string; conflicts?: Record<string, unknown>; local?: Habit | HabitLog | null; remote?: Habit | HabitLog | null; migrated?: ExportBundle | null }> = [];
+        for (const [id, fields] of Object.entries(conflicts.habits)) {
+          conflictsCollected.push({ id, conflicts: fields, local: localMap.get(id) || null, remote: remoteMap.get(id) || null, migrated });
         }
-        const fileId = files[0].id;
-        const res = await fetch(`https://www.googleapis.com/drive/v3/files/${fileId}?alt=media`, {
-          headers: { Authorization: `Bearer ${accessToken}` }
-        });
-        const cloudJson = await res.text();
-        // Run migrations and attempt per-item merge with local data
-        try {
-          const parsed = (() => { try { return JSON.parse(cloudJson); } catch { return null; } })();
-          const { runMigrations } = await import('@/lib/migrations');
-          let migrated = await runMigrations(parsed).catch(() => parsed);
-
-          // Validate migrated bundle before attempting merges
-          const { validateExportImportJson } = await import('@/lib/validate-export-import');
-          const validation = validateExportImportJson(migrated);
-          if (!validation.success) {
-            console.error('[useCloudSync] remote bundle validation failed', validation.errors);
-            toast({ title: 'Sync Error', description: 'Downloaded data is invalid. Import aborted.', variant: 'destructive' });
-            syncRunningRef.current = false;
-            hideLoading();
-            return false;
-          }
-          migrated = validation.data as typeof migrated;
-
-          const { mergeHabit, mergeLog } = await import('@/lib/sync/merge');
-          const { HabitStorage } = await import('@/lib/habit-storage');
-
-          const localHabits = HabitStorage.getHabits();
-          const localLogs = HabitStorage.getLogs();
-
-          // load last snapshot for base if available
-          let baseSnapshot: ExportBundle | null = null;
-          try { const last = await storageGet(SYNC_LAST_SNAPSHOT_KEY); baseSnapshot = last ? JSON.parse(last) as ExportBundle : null; } catch {}
-
-          const remoteHabits: Habit[] = (migrated?.habits || []).map((h: unknown) => { const hh = h as Record<string, unknown>; return { ...hh, createdAt: new Date(String(hh.createdAt)), lastCompletedDate: hh.lastCompletedDate ? new Date(String(hh.lastCompletedDate)) : undefined } as Habit; });
-          const remoteLogs: HabitLog[] = (migrated?.logs || []).map((l: unknown) => { const ll = l as Record<string, unknown>; return { ...ll, timestamp: new Date(String(ll.timestamp)) } as HabitLog; });
-
-          const localMap = new Map<string, Habit>(localHabits.map((h: Habit) => [h.id, h]));
-          const baseMap = new Map<string, Habit>((baseSnapshot?.habits || []).map((h: unknown) => { const hh = h as Record<string, unknown>; return [hh.id as string, { ...hh, createdAt: new Date(String(hh.createdAt)), lastCompletedDate: hh.lastCompletedDate ? new Date(String(hh.lastCompletedDate)) : undefined } as Habit]; }));
-
-          const mergedHabits: Habit[] = [];
-          const conflictsCollected: Array<{ id: string; conflicts?: Record<string, unknown>; local?: Habit | HabitLog | null; remote?: Habit | HabitLog | null; migrated?: ExportBundle | null }> = [];
-          for (const r of remoteHabits) {
-            const l: Habit | null = localMap.get(r.id) || null;
-            const b: Habit | null = baseMap.get(r.id) || null;
-            const res = mergeHabit(l, r, b);
-            mergedHabits.push(res.merged);
-            if (res.conflict) conflictsCollected.push({ id: r.id, conflicts: res.conflicts, local: l, remote: r, migrated });
-          }
-          // include local-only habits
-          for (const l of localHabits) if (!mergedHabits.find((m) => m.id === l.id)) mergedHabits.push(l);
-
-          // logs
-          const localLogMap = new Map<string, HabitLog>(localLogs.map((l: HabitLog) => [l.id, l]));
-          const baseLogMap = new Map<string, HabitLog>((baseSnapshot?.logs || []).map((l: unknown) => { const ll = l as Record<string, unknown>; return [ll.id as string, { ...ll, timestamp: new Date(String(ll.timestamp)) } as HabitLog]; }));
-          const mergedLogs: HabitLog[] = [];
-          for (const r of remoteLogs) {
-            const l: HabitLog | null = localLogMap.get(r.id) || null;
-            const b: HabitLog | null = baseLogMap.get(r.id) || null;
-            const res = mergeLog(l, r, b);
-            mergedLogs.push(res.merged);
-            if (res.conflict) conflictsCollected.push({ id: r.id, conflicts: res.conflicts, local: l, remote: r, migrated });
-          }
-          for (const l of localLogs) if (!mergedLogs.find((m) => m.id === l.id)) mergedLogs.push(l);
-
-          // If conflicts detected, persist conflict payload and notify user
-          if (conflictsCollected.length > 0) {
-            try {
-              await storageSet('sync:conflict', JSON.stringify({ conflicts: conflictsCollected, migrated }));
-            } catch {}
-            toast({ title: 'Sync Conflicts', description: 'Conflicts detected during merge. Resolve them in Settings → Account & Data.', variant: 'destructive' });
-            // do not overwrite local state automatically when conflicts exist
-            syncRunningRef.current = false;
-            hideLoading();
-            return false;
-          }
-
-          // Persist merged results
-          HabitStorage.saveHabits(mergedHabits);
-          HabitStorage.saveLogs(mergedLogs);
-
-          // persist new last snapshot as the migrated remote bundle
-          try { await storageSet(SYNC_LAST_SNAPSHOT_KEY, JSON.stringify(migrated)); } catch {}
-
-          if (onImport) onImport(JSON.stringify(migrated));
-          toast({ title: 'Auto-sync', description: 'Pulled latest data from cloud and merged.', duration: 2500 });
-          return true;
-        } catch (mergeErr) {
-          console.error('pullOnce merge error', mergeErr);
-          toast({ title: 'Sync Error', description: 'Failed to merge cloud data. Import aborted.', variant: 'destructive' });
-          return false;
+        for (const [id, fields] of Object.entries(conflicts.logs)) {
+          conflictsCollected.push({ id, conflicts: fields, local: localLogMap.get(id) || null, remote: remoteLogMap.get(id) || null, migrated });
         }
-      }
-      else {
-        const accessToken = await TokenStorage.getAccessToken();
-        if (!accessToken) {
-          toast({ title: "Not Signed In", description: "Sign in to enable cloud sync.", variant: "destructive" });
+
+        // If conflicts detected, persist conflict payload and notify user
+        if (conflictsCollected.length > 0) {
+          try {
+            await storageSet('sync:conflict', JSON.stringify({ conflicts: conflictsCollected, migrated }));
+          } catch {}
+          toast({ title: 'Sync Conflicts', description: 'Conflicts detected during merge. Resolve them in Settings → Account & Data.', variant: 'destructive' });
+          // do not overwrite local state automatically when conflicts exist
+          syncRunningRef.current = false;
+          hideLoading();
           return false;
         }
-        const { downloadLatestHabitsFromDrive } = await import("@/mobile/drive-sync");
-        const cloudBundle = await downloadLatestHabitsFromDrive(accessToken);
-        const cloudJson = JSON.stringify(cloudBundle);
-        if (onImport) onImport(cloudJson);
-        toast({ title: 'Auto-sync', description: 'Pulled latest data from cloud.', duration: 2500 });
+
+        // Persist merged results
+        HabitStorage.saveHabits(mergedHabits);
+        HabitStorage.saveLogs(mergedLogs);
+
+        // persist new last snapshot as the migrated remote bundle
+        try { await storageSet(SYNC_LAST_SNAPSHOT_KEY, JSON.stringify(migrated)); } catch {}
+
+        // Hand over the merged data, not the raw remote bundle, so local-only records survive
+        if (onImport) onImport(JSON.stringify({
+          ...migrated,
+          meta: { ...migrated.meta, counts: { habits: mergedHabits.length, logs: mergedLogs.length } },
+          habits: mergedHabits,
+          logs: mergedLogs,
+        }));
+        toast({ title: 'Auto-sync', description: 'Pulled latest data from cloud and merged.', duration: 2500 });
         return true;
+      } catch (mergeErr) {
+        console.error('pullOnce merge error', mergeErr);
+        toast({ title: 'Sync Error', description: 'Failed to merge cloud data. Import aborted.', variant: 'destructive' });
+        return false;
       }
     } catch (err: unknown) {
       let message = 'Pull failed.';
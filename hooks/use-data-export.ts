@@ -2,12 +2,14 @@ import { useRef, useState } from "react";
 import { debounce } from "@/lib/utils/debounce";
 import { validateExportImportJson } from "@/lib/validate-export-import";
 import { exportDataPlatform } from "@/lib/platform-export";
+import { exportDataNative, importDataNative, isDataTransferAvailable } from "@/lib/data-transfer-plugin";
+import type { ExportBundle } from "@shared/schema";
 import { useToast } from "@/hooks/use-toast";
 import { useLoading } from "@/hooks/use-loading";
 
 export function useDataExport(
   onExportData: () => Promise<string>,
-  onImportData: (jsonData: string) => Promise<void> | void
+  onImportData: (jsonData: string | ExportBundle) => Promise<void> | void
 ) {
   const fileInputRef = useRef<HTMLInputElement>(null);
   const { toast } = useToast();
@@ -28,9 +30,23 @@ export function useDataExport(
     });
 
     try {
+      const defaultFilename = `habit-tracker-export-${new Date().toISOString().split('T')[0]}.json`;
+
+      // Android streams records to a native file instead of building one JSON string
+      if (isDataTransferAvailable()) {
+        const saved = await exportDataNative({ defaultFilename });
+        if (saved) {
+          toast({
+            title: "Export successful",
+            description: "Your habit data has been exported.",
+            duration: 3000,
+          });
+        }
+        return;
+      }
+
       // Get export data as JSON string
       const result = await onExportData();
-      const defaultFilename = `habit-tracker-export-${new Date().toISOString().split('T')[0]}.json`;
 
       // Use platform export utility for file saving and feedback
       await exportDataPlatform({
@@ -63,8 +79,25 @@ export function useDataExport(
     }
   }, 500);
 
-  const handleImportClick = () => {
-    fileInputRef.current?.click();
+  const handleImportClick = async () => {
+    if (!isDataTransferAvailable()) {
+      fileInputRef.current?.click();
+      return;
+    }
+    try {
+      // Validated natively while streaming; the picker shows before the loading overlay
+      const bundle = await importDataNative({ onProgress: () => showLoading() });
+      if (bundle) await onImportData(bundle);
+    } catch (err) {
+      toast({
+        title: "Import Failed",
+        description: (err as Error)?.message || "The data file is corrupted or incompatible.",
+        variant: "destructive",
+        duration: 4000,
+      });
+    } finally {
+      hideLoading();
+    }
   };
 
   const handleFileChange = (e: React.ChangeEvent<HTMLInputElement>) => {
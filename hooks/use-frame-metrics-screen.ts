@@ -0,0 +1,10 @@
+import { useEffect } from "react";
+import { pushFrameScreen } from "@/lib/frame-metrics-plugin";
+
+/** Tags native frame metrics with `tag` while `active` (e.g. while a dialog is open). */
+export function useFrameMetricsScreen(tag: string, active = true): void {
+  useEffect(() => {
+    if (!active) return;
+    return pushFrameScreen(tag);
+  }, [tag, active]);
+}
@@ -1,9 +1,13 @@
 import { useState, useEffect, useRef, useCallback } from "react";
-import { Habit, HabitType, HabitSchedule, UserSettings } from "@shared/schema";
+import { Habit, HabitLog, HabitType, HabitSchedule, UserSettings, ExportBundle } from "@shared/schema";
 import { Capacitor } from "@capacitor/core";
 import { HabitStorage } from "@/lib/habit-storage";
 import { computeAutoLogs } from "@/lib/auto-finalize";
-import { migrateLegacyPlatformStorage, scopedKey } from "@/lib/account-scope";
+import { AutoFinalize, isAutoFinalizeAvailable } from "@/lib/auto-finalize-plugin";
+import { flushHistoryMirror } from "@/lib/daily-rollup-plugin";
+import type { NativeHabitLog } from "@/lib/habit-log-store-plugin";
+import { mirrorReminderState } from "@/lib/reminder-plugin";
+import { getActiveAccountId, migrateLegacyPlatformStorage, scopedKey } from "@/lib/account-scope";
 import { useAuth } from "@/hooks/use-auth";
 import { useCloudSync } from "@/hooks/use-cloud-sync";
 import { Motivator } from "@/lib/motivator";
@@ -64,14 +68,57 @@ function getInitialSettingsFromStorage(): UserSettings {
   }
 }
 
+/**
+ * Saves auto logs for days that have no log yet and recalculates the streaks they touch.
+ * Returns whether anything was saved. Safe to call twice with the same logs.
+ */
+function persistAutoLogs(autoLogs: HabitLog[], allLogs: HabitLog[] = HabitStorage.getLogs()): boolean {
+  if (autoLogs.length === 0) return false;
+  const habitIds = new Set(HabitStorage.getHabits().map(habit => habit.id));
+  const logged = new Set(allLogs.map(log => `${log.habitId}|${log.date}`));
+  const fresh = autoLogs.filter(log => habitIds.has(log.habitId) && !logged.has(`${log.habitId}|${log.date}`));
+  if (fresh.length === 0) return false;
+  HabitStorage.saveLogs([...allLogs, ...fresh]);
+  for (const habitId of new Set(fresh.map(log => log.habitId))) {
+    HabitStorage.recalculateStreak(habitId);
+  }
+  return true;
+}
+
+function fromNativeLogs(logs: NativeHabitLog[] | undefined): HabitLog[] {
+  return (logs ?? []).map((log): HabitLog => ({
+    id: log.id,
+    habitId: log.habitId,
+    date: log.date,
+    completed: log.completed,
+    timestamp: new Date(log.timestamp),
+    source: "auto",
+  }));
+}
+
+/**
+ * Auto-finalization off the main thread (Android): brings the native store up to date,
+ * runs the native pass and saves the logs it wrote under their native ids.
+ */
+async function runNativeAutoFinalize(): Promise<boolean> {
+  await flushHistoryMirror(() => ({ habits: HabitStorage.getHabits(), logs: HabitStorage.getLogs() }));
+  const { logs } = await AutoFinalize.run({ scope: getActiveAccountId() });
+  return persistAutoLogs(fromNativeLogs(logs));
+}
+
+/** The JS pass, for platforms without the native one. */
+function runJsAutoFinalize(): boolean {
+  const allLogs = HabitStorage.getLogs();
+  return persistAutoLogs(computeAutoLogs(HabitStorage.getHabits(), allLogs), allLogs);
+}
+
 export function useHabits() {
   // Clear all habits and logs from storage and state
   const clearAllHabits = async () => {
     if (Capacitor.isNativePlatform()) {
-      // Mobile: clear Capacitor Preferences (scoped keys)
-      const { Preferences } = await import('@capacitor/preferences');
-      await Preferences.remove({ key: scopedKey('habits') });
-      await Preferences.remove({ key: scopedKey('habit_logs') });
+      // Mobile: clear the native copies (KvStore on Android, Preferences elsewhere), scoped keys
+      const { PlatformStorage } = await import('@/lib/platform-storage');
+      await PlatformStorage.setItems({}, [scopedKey('habits'), scopedKey('habit_logs')]);
     }
     // Always clear localStorage (HabitStorage uses scoped keys)
     HabitStorage.clearAllHabits();
@@ -114,19 +161,17 @@ export function useHabits() {
           // Run legacy data migration (once per account, idempotent)
           await migrateLegacyPlatformStorage();
 
-          const loadedHabits = HabitStorage.getHabits();
           const loadedSettings = await HabitStorage.getSettings();
 
           // --- Auto-finalization: fill in missed days ---
-          const allLogs = HabitStorage.getLogs();
-          const newAutoLogs = computeAutoLogs(loadedHabits, allLogs);
-          if (newAutoLogs.length > 0) {
-            const merged = [...allLogs, ...newAutoLogs];
-            HabitStorage.saveLogs(merged);
-            // Recalculate streaks after auto-finalization
-            for (const habit of loadedHabits) {
-              HabitStorage.recalculateStreak(habit.id);
-            }
+          if (isAutoFinalizeAvailable()) {
+            // Native pass; the habits below show up first and are refreshed when it is done
+            void runNativeAutoFinalize()
+              .catch(() => runJsAutoFinalize())
+              .then((changed) => { if (changed && !cancelled) setHabits(HabitStorage.getHabits()); })
+              .catch(() => undefined);
+          } else {
+            runJsAutoFinalize();
           }
 
           // Re-read habits (streaks may have been updated)
@@ -171,24 +216,35 @@ export function useHabits() {
       if (todayStr === lastFinalizedDateRef.current) return; // already up-to-date
       lastFinalizedDateRef.current = todayStr;
 
-      const currentHabits = HabitStorage.getHabits();
-      const allLogs = HabitStorage.getLogs();
-      const newAutoLogs = computeAutoLogs(currentHabits, allLogs);
-      if (newAutoLogs.length > 0) {
-        const merged = [...allLogs, ...newAutoLogs];
-        HabitStorage.saveLogs(merged);
-        for (const habit of currentHabits) {
-          HabitStorage.recalculateStreak(habit.id);
-        }
+      if (isAutoFinalizeAvailable()) {
+        void runNativeAutoFinalize()
+          .catch(() => runJsAutoFinalize())
+          .then((changed) => { if (changed) setHabits(HabitStorage.getHabits()); })
+          .catch(() => undefined);
+        return;
       }
+      runJsAutoFinalize();
       const freshHabits = HabitStorage.getHabits();
       setHabits(freshHabits);
     }, []);
 
+    // Native passes also run without being asked (app start, resume); apply what they wrote
+    useEffect(() => {
+      if (!isAutoFinalizeAvailable()) return;
+      const handle = AutoFinalize.addListener("autoFinalized", (summary) => {
+        if (summary.scope !== getActiveAccountId()) return;
+        if (persistAutoLogs(fromNativeLogs(summary.logs))) setHabits(HabitStorage.getHabits());
+      });
+      return () => { void handle.then(h => h.remove()); };
+    }, []);
+
     useEffect(() => {
       const onVisibility = () => {
         if (document.visibilityState === "visible") {
           runAutoFinalize();
+        } else if (settings.reminderEnabled) {
+          // The native reminder decides what is still due without the WebView
+          void mirrorReminderState(HabitStorage.getHabits(), HabitStorage.getLogs());
         }
       };
       document.addEventListener("visibilitychange", onVisibility);
@@ -200,7 +256,7 @@ export function useHabits() {
         document.removeEventListener("visibilitychange", onVisibility);
         clearInterval(interval);
       };
-    }, [runAutoFinalize]);
+    }, [runAutoFinalize, settings.reminderEnabled]);
 
   const addHabit = ({ name, type, schedule }: { name: string; type: HabitType; schedule?: HabitSchedule }) => {
     const newHabit = HabitStorage.addHabit(name, type, schedule);
@@ -462,17 +518,21 @@ export function useHabits() {
   const currentHabit = habits[currentHabitIndex];
 
   // Import data function: imports JSON, refreshes habits, and shows feedback
-  // Unified importData: validates and imports JSON
-  const importData = async (jsonData: string): Promise<void> => {
+  // Unified importData: validates and imports JSON, or a bundle already validated by the native stream
+  const importData = async (jsonData: string | ExportBundle): Promise<void> => {
     try {
-      // Validate before importing
-      const parsed = JSON.parse(jsonData);
-      const { exportBundleSchema } = await import("@/shared/schema");
-      const result = exportBundleSchema.safeParse(parsed);
-      if (!result.success) {
-        throw new Error("Import data does not match schema");
+      if (typeof jsonData === "string") {
+        // Validate before importing
+        const parsed = JSON.parse(jsonData);
+        const { exportBundleSchema } = await import("@/shared/schema");
+        const result = exportBundleSchema.safeParse(parsed);
+        if (!result.success) {
+          throw new Error("Import data does not match schema");
+        }
+        await HabitStorage.importData(jsonData);
+      } else {
+        await HabitStorage.importBundle(jsonData);
       }
-      await HabitStorage.importData(jsonData);
       // Refresh habits and settings after import
       const loadedHabits = HabitStorage.getHabits();
       const loadedSettings = await HabitStorage.getSettings();
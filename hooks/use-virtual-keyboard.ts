@@ -1,4 +1,6 @@
 import { useEffect, useState } from 'react';
+import { Capacitor, type PluginListenerHandle } from '@capacitor/core';
+import { SystemUi } from '@/lib/system-ui-plugin';
 
 interface VirtualKeyboardState {
   isKeyboardOpen: boolean;
@@ -8,7 +10,8 @@ interface VirtualKeyboardState {
 
 /**
  * Custom hook to detect virtual keyboard state on mobile devices
- * Uses the Visual Viewport API when available, falls back to viewport height detection
+ * On Android the native IME animator pushes frame-coalesced insets; elsewhere uses the
+ * Visual Viewport API when available, falling back to viewport height detection
  */
 export function useVirtualKeyboard(): VirtualKeyboardState {
   const [state, setState] = useState<VirtualKeyboardState>({
@@ -21,6 +24,27 @@ export function useVirtualKeyboard(): VirtualKeyboardState {
     // SSR safety check
     if (typeof window === 'undefined') return;
 
+    if (Capacitor.getPlatform() === 'android') {
+      let handle: PluginListenerHandle | undefined;
+      let disposed = false;
+      const apply = (insets: { bottom: number; visible: boolean }) => {
+        const isKeyboardOpen = insets.visible && insets.bottom > 0;
+        setState({
+          isKeyboardOpen,
+          viewportHeight: window.visualViewport?.height ?? window.innerHeight,
+          keyboardHeight: isKeyboardOpen ? insets.bottom : 0,
+        });
+      };
+      SystemUi.addListener('imeInsets', apply).then((h) => {
+        if (disposed) h.remove(); else handle = h;
+      }).catch(() => {});
+      SystemUi.getImeInsets().then(apply).catch(() => {});
+      return () => {
+        disposed = true;
+        handle?.remove();
+      };
+    }
+
     let isSupported = false;
     let initialHeight = window.innerHeight;
 
@@ -154,6 +154,24 @@ export async function migrateLegacyPlatformStorage(): Promise<void> {
     const { Capacitor } = await import("@capacitor/core");
     if (!Capacitor.isNativePlatform()) return;
 
+    if (Capacitor.getPlatform() === "android") {
+      // Native KV store (already holds the Preferences data after its one-time migration).
+      const { KvStore } = await import("./kv-store-plugin");
+      const legacyKeys = ["habits", "habit_logs", "user_settings"];
+      const targets = legacyKeys.map((key) => scopedKey(key));
+      const { values } = await KvStore.getMany({ keys: [...legacyKeys, ...targets] });
+      const entries: Record<string, string> = {};
+      const remove: string[] = [];
+      legacyKeys.forEach((key, i) => {
+        const legacy = values[key];
+        if (!legacy) return;
+        if (!values[targets[i]]) entries[targets[i]] = legacy;
+        remove.push(key);
+      });
+      if (remove.length > 0) await KvStore.setMany({ entries, remove });
+      return;
+    }
+
     const { Preferences } = await import("@capacitor/preferences");
 
     for (const key of ["habits", "habit_logs", "user_settings"]) {
@@ -0,0 +1,23 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface AssetCacheStats {
+  hits: number;
+  misses: number;
+  bytesServed: number;
+  entries: number;
+  bytes: number;
+  maxBytes: number;
+  /** Assets loaded from a `.gz` sibling in the APK. */
+  precompressedLoads: number;
+  warmedCount: number;
+  /** -1 until the warm pass finishes. */
+  warmMs: number;
+}
+
+export interface AssetCachePlugin {
+  getStats(): Promise<AssetCacheStats>;
+  /** Drops cached buffers and the learned startup set. */
+  clear(): Promise<void>;
+}
+
+export const AssetCache = registerPlugin<AssetCachePlugin>("AssetCache");
@@ -0,0 +1,34 @@
+import { Capacitor, registerPlugin, type PluginListenerHandle } from "@capacitor/core";
+import type { NativeHabitLog } from "@/lib/habit-log-store-plugin";
+import type { NativeStreakHabit } from "@/lib/streak-engine-plugin";
+
+export interface AutoFinalizeSummary {
+  scope: string;
+  today: string;
+  habitsScanned: number;
+  logsCreated: number;
+  durationMs: number;
+  /** Logs written by the pass; ids depend only on habit and date. */
+  logs: NativeHabitLog[];
+}
+
+export interface AutoFinalizePlugin {
+  /** Mirrors the habit list so native backfill can run before the WebView boots. */
+  syncHabits(options: { scope?: string; habits: (NativeStreakHabit & { name?: string })[] }): Promise<void>;
+  /**
+   * Runs a pass for `scope` (default: the scope of the last `syncHabits`). `logs` also
+   * holds logs of earlier passes (e.g. the one at app start) not returned by `run` yet.
+   */
+  run(options?: { scope?: string }): Promise<AutoFinalizeSummary>;
+  getLastSummary(): Promise<Partial<AutoFinalizeSummary>>;
+  addListener(
+    eventName: "autoFinalized",
+    listener: (summary: AutoFinalizeSummary) => void,
+  ): Promise<PluginListenerHandle>;
+}
+
+export const AutoFinalize = registerPlugin<AutoFinalizePlugin>("AutoFinalize");
+
+export function isAutoFinalizeAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
@@ -24,6 +24,9 @@
  *   - Duplicate logs MUST NOT be generated for dates that already
  *     have an entry — the `existingLogs` set is authoritative.
  *
+ * On Android the native `AutoFinalizer` runs instead and this is only the
+ * fallback when the native pass fails.
+ *
  * Allowed callers:
  *   - `use-habits.ts` (the only orchestrator of auto-finalization).
  *   - Unit tests.
@@ -0,0 +1,22 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { CelebrationConfettiIntensity, CelebrationMotion } from "@shared/schema";
+
+export interface ConfettiPlugin {
+  /**
+   * Starts a burst above the WebView. `count` wins over `intensity`; motion "reduced", or
+   * "system" with animations off, shows nothing (`shown: false`).
+   */
+  celebrate(options: {
+    count?: number;
+    intensity?: CelebrationConfettiIntensity;
+    motion?: CelebrationMotion;
+  }): Promise<{ shown: boolean; count: number }>;
+  cancel(): Promise<void>;
+}
+
+/** Native celebration confetti overlay (Android only). */
+export const Confetti = registerPlugin<ConfettiPlugin>("Confetti");
+
+export function isConfettiAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
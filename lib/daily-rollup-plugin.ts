@@ -0,0 +1,270 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { Habit, HabitLog } from "@shared/schema";
+import { getActiveAccountId, scopedKey } from "@/lib/account-scope";
+import { AutoFinalize } from "@/lib/auto-finalize-plugin";
+import { HabitLogStore } from "@/lib/habit-log-store-plugin";
+import { KvStore } from "@/lib/kv-store-plugin";
+
+/** One value per day from `from` to `to`, inclusive. */
+export interface RollupSeries {
+  goodDone: number[];
+  badAvoided: number[];
+  /** Good habits logged as not done. */
+  missed: number[];
+  badDone: number[];
+  /** Habits created on or before the day with no log for it; 0 after today. */
+  untracked: number[];
+  /** Positive outcomes of habits that already existed on the day. */
+  completions: number[];
+}
+
+export interface RollupTotals extends Record<keyof RollupSeries, number> {
+  positiveDays: number;
+  negativeDays: number;
+}
+
+export interface DailyRollupResult {
+  from: string;
+  to: string;
+  today: string;
+  totals: RollupTotals;
+  series?: RollupSeries;
+}
+
+export interface DailyRollupPlugin {
+  /**
+   * `days` counts back from today; otherwise `from`/`to`, defaulting to all time (first
+   * log or habit creation through the later of today and the last log).
+   */
+  query(options: {
+    scope?: string;
+    days?: number;
+    from?: string;
+    to?: string;
+    series?: boolean;
+  }): Promise<DailyRollupResult>;
+  rebuild(options?: { scope?: string }): Promise<{ durationMs: number }>;
+}
+
+/** Per-day outcome counters kept next to the native log store (Android only). */
+export const DailyRollup = registerPlugin<DailyRollupPlugin>("DailyRollup");
+
+interface HistorySource {
+  habits: Habit[];
+  logs: HabitLog[];
+}
+
+const MIRROR_DELAY_MS = 500;
+const MIRROR_CHUNK_SIZE = 500;
+
+export function isDailyRollupAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
+
+/**
+ * Answers from the native rollup. Once this session has mirrored the active scope, the
+ * pending delta (writes still waiting on the debounce) is mirrored first. Before that the
+ * first mirror may have to reconcile the whole history, so the answer comes from what the
+ * native store already holds and `onRefresh` gets a fresh one if the mirror changed it.
+ */
+export async function queryDailyRollup(
+  source: HistorySource,
+  options: { days?: number; from?: string; to?: string; series?: boolean } = {},
+  onRefresh?: (result: DailyRollupResult) => void,
+): Promise<DailyRollupResult> {
+  clearTimeout(mirrorTimer);
+  const scope = getActiveAccountId();
+  const query = () => DailyRollup.query({ ...options, scope });
+  const settled = mirrored?.scope === scope;
+  const run = enqueueMirror(() => source);
+  if (settled) {
+    await run;
+    return query();
+  }
+  run
+    .then((changed) => (changed && onRefresh ? query().then(onRefresh) : undefined))
+    .catch(() => undefined);
+  return query();
+}
+
+interface Mirror {
+  scope: string;
+  habits: string;
+  /** `habitId|date` to `id|completed`. */
+  logs: Map<string, string>;
+}
+
+/** Digests of the last completed mirror, kept per scope in KvStore. */
+interface MirrorWatermark {
+  habits: string;
+  logs: string;
+}
+
+let mirrored: Mirror | null = null;
+/** The active scope's watermark as it is in KvStore right now. */
+let storedWatermark: string | null = null;
+let mirrorTimer: ReturnType<typeof setTimeout> | undefined;
+let mirrorQueue: Promise<void> = Promise.resolve();
+
+/**
+ * Keeps the native log store, and with it the rollup, in step with local storage.
+ * Debounced; only logs that changed since the last mirror cross the bridge. The first
+ * mirror of a session compares against the watermark of the last one and is a no-op when
+ * nothing changed in between; otherwise it diffs against the native store's contents.
+ */
+export function scheduleHistoryMirror(read: () => HistorySource): void {
+  if (!isDailyRollupAvailable()) return;
+  clearTimeout(mirrorTimer);
+  mirrorTimer = setTimeout(() => void enqueueMirror(read), MIRROR_DELAY_MS);
+}
+
+/** Mirrors `read()` now, without waiting for the debounce; resolves once it is done. */
+export async function flushHistoryMirror(read: () => HistorySource): Promise<void> {
+  if (!isDailyRollupAvailable()) return;
+  clearTimeout(mirrorTimer);
+  await enqueueMirror(read);
+}
+
+function enqueueMirror(read: () => HistorySource): Promise<boolean> {
+  const run = mirrorQueue.then(() => mirrorHistory(read()));
+  mirrorQueue = run.then(
+    () => undefined,
+    (err) => console.warn("[DailyRollup] mirror failed", err),
+  );
+  return run;
+}
+
+function watermarkKey(): string {
+  return scopedKey("history_mirror");
+}
+
+/** 32-bit FNV-1a. */
+function fnv1a(text: string): number {
+  let hash = 0x811c9dc5;
+  for (let i = 0; i < text.length; i++) {
+    hash ^= text.charCodeAt(i);
+    hash = Math.imul(hash, 0x01000193);
+  }
+  return hash >>> 0;
+}
+
+/** Independent of insertion order, so it needs no sort. */
+function digestLogs(logs: Map<string, string>): string {
+  let sum = 0;
+  let xor = 0;
+  for (const [key, value] of logs) {
+    const hash = fnv1a(`${key}|${value}`);
+    sum = (sum + hash) >>> 0;
+    xor = (xor ^ hash) >>> 0;
+  }
+  return `${logs.size}:${sum.toString(16)}:${xor.toString(16)}`;
+}
+
+async function readWatermark(): Promise<MirrorWatermark | null> {
+  try {
+    const { value } = await KvStore.get({ key: watermarkKey() });
+    storedWatermark = value;
+    return value ? (JSON.parse(value) as MirrorWatermark) : null;
+  } catch {
+    return null;
+  }
+}
+
+async function writeWatermark(watermark: MirrorWatermark | null): Promise<void> {
+  const value = watermark && JSON.stringify(watermark);
+  if (value === storedWatermark) return;
+  if (value) await KvStore.set({ key: watermarkKey(), value });
+  else await KvStore.remove({ key: watermarkKey() });
+  storedWatermark = value;
+}
+
+async function nativeLogs(scope: string): Promise<Map<string, string>> {
+  const { logs } = await HabitLogStore.query({ scope });
+  return new Map(logs.map((log) => [`${log.habitId}|${log.date}`, `${log.id}|${log.completed}`]));
+}
+
+/** Resolves whether the native store was written. */
+async function mirrorHistory({ habits, logs }: HistorySource): Promise<boolean> {
+  const scope = getActiveAccountId();
+  const nativeHabits = habits.map((habit) => ({
+    id: habit.id,
+    name: habit.name,
+    type: habit.type,
+    createdAt: new Date(habit.createdAt).getTime(),
+    intervalStartDate: habit.intervalStartDate ? new Date(habit.intervalStartDate).getTime() : undefined,
+    schedule: habit.schedule,
+  }));
+  const habitsKey = JSON.stringify(nativeHabits);
+
+  const next = new Map<string, string>();
+  const firsts: HabitLog[] = [];
+  for (const log of logs) {
+    const key = `${log.habitId}|${log.date}`;
+    // First log of a day wins, as in lib/history.ts.
+    if (next.has(key)) continue;
+    next.set(key, `${log.id}|${log.completed}`);
+    firsts.push(log);
+  }
+  const watermark: MirrorWatermark = { habits: fnv1a(habitsKey).toString(16), logs: digestLogs(next) };
+
+  let previous = mirrored?.scope === scope ? mirrored : null;
+  if (!previous) {
+    const last = await readWatermark();
+    previous = {
+      scope,
+      habits: last?.habits === watermark.habits ? habitsKey : "",
+      logs: last?.logs === watermark.logs ? next : await nativeLogs(scope),
+    };
+  }
+
+  const before = previous.logs;
+  const changed = firsts.filter((log) => {
+    const key = `${log.habitId}|${log.date}`;
+    return before.get(key) !== next.get(key);
+  });
+  const gone = new Map<string, string[]>();
+  for (const key of previous.logs.keys()) {
+    if (next.has(key)) continue;
+    const [habitId, date] = key.split("|");
+    const dates = gone.get(habitId);
+    if (dates) dates.push(date);
+    else gone.set(habitId, [date]);
+  }
+  if (previous.habits === habitsKey && changed.length === 0 && gone.size === 0) {
+    mirrored = { scope, habits: habitsKey, logs: next };
+    await writeWatermark(watermark);
+    return false;
+  }
+
+  // A mirror cut short must not leave a watermark that claims the old state.
+  await writeWatermark(null);
+  if (previous.habits !== habitsKey) {
+    await AutoFinalize.syncHabits({ scope, habits: nativeHabits });
+  }
+  for (let i = 0; i < changed.length; i += MIRROR_CHUNK_SIZE) {
+    await HabitLogStore.put({
+      scope,
+      logs: changed.slice(i, i + MIRROR_CHUNK_SIZE).map((log) => ({
+        id: log.id,
+        habitId: log.habitId,
+        date: log.date,
+        completed: log.completed,
+        timestamp: new Date(log.timestamp).getTime(),
+        source: log.source,
+      })),
+    });
+  }
+  const liveHabits = new Set(firsts.map((log) => log.habitId));
+  for (const [habitId, dates] of gone) {
+    if (!liveHabits.has(habitId)) {
+      await HabitLogStore.removeHabit({ scope, habitId });
+      continue;
+    }
+    for (const date of dates) {
+      await HabitLogStore.remove({ scope, habitId, date });
+    }
+  }
+  mirrored = { scope, habits: habitsKey, logs: next };
+  await writeWatermark(watermark);
+  return true;
+}
@@ -0,0 +1,193 @@
+import { Capacitor, registerPlugin, type PluginListenerHandle } from "@capacitor/core";
+import type { ExportBundle } from "@shared/schema";
+import { HabitStorage } from "@/lib/habit-storage";
+
+type ExportHabit = ExportBundle["habits"][number];
+type ExportLog = ExportBundle["logs"][number];
+
+export interface ExportProgress {
+  sessionId: string;
+  habits: number;
+  logs: number;
+  total: number;
+  /** Bytes written to the file so far (compressed when gzipped). */
+  bytes: number;
+}
+
+export interface ImportProgress {
+  sessionId: string;
+  habits: number;
+  logs: number;
+  bytesRead: number;
+  /** -1 when the document provider does not report a size. */
+  size: number;
+}
+
+export interface DataTransferPlugin {
+  /** Writes the bundle header to `cache/exports/<fileName>`; gzip appends `.gz`. */
+  beginExport(options: {
+    fileName: string;
+    gzip?: boolean;
+    exportedAt: string;
+    counts: { habits: number; logs: number };
+  }): Promise<{ sessionId: string }>;
+  /** Each record is validated as it is written; all habits must precede the first log. */
+  appendExport(options: { sessionId: string; habits?: ExportHabit[]; logs?: ExportLog[] }): Promise<void>;
+  /** `uri` is a FileProvider content URI, suitable for sharing. */
+  finishExport(options: { sessionId: string; settings: ExportBundle["settings"] }): Promise<{
+    path: string;
+    uri: string;
+    bytes: number;
+  }>;
+  abortExport(options: { sessionId: string }): Promise<void>;
+  /** Lets the user choose a destination document and copies the finished export there. */
+  saveExport(options: { path: string; fileName?: string; mimeType?: string }): Promise<{ saved: boolean; uri?: string }>;
+  /**
+   * Re-encodes a finished export as a compact binary snapshot (`<name>.tgsnap`) in the
+   * same directory; `openImport` reads snapshots like any other export.
+   */
+  encodeSnapshot(options: { path: string }): Promise<{ path: string; uri: string; bytes: number; sourceBytes: number }>;
+  pickImportFile(): Promise<{ uri?: string }>;
+  /** Plain JSON, gzipped JSON and binary snapshots are told apart by content. */
+  openImport(options: { uri?: string; path?: string }): Promise<{
+    sessionId: string;
+    size: number;
+    gzip: boolean;
+    format: "json" | "snapshot";
+  }>;
+  /**
+   * Up to `max` validated records per call. Rejects with code `INVALID_FORMAT` and the
+   * first failing path (e.g. `logs.12.completed`), closing the session.
+   */
+  readImport(options: { sessionId: string; max?: number }): Promise<{
+    habits: ExportHabit[];
+    logs: ExportLog[];
+    meta?: ExportBundle["meta"];
+    settings?: ExportBundle["settings"];
+    done: boolean;
+    bytesRead: number;
+    size: number;
+  }>;
+  abortImport(options: { sessionId: string }): Promise<void>;
+  addListener(eventName: "exportProgress", listener: (progress: ExportProgress) => void): Promise<PluginListenerHandle>;
+  addListener(eventName: "importProgress", listener: (progress: ImportProgress) => void): Promise<PluginListenerHandle>;
+}
+
+/** Native streaming export/import (Android only). */
+export const DataTransfer = registerPlugin<DataTransferPlugin>("DataTransfer");
+
+const CHUNK_SIZE = 500;
+
+export function isDataTransferAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
+
+/**
+ * Streams the current data to a native export file in chunks and resolves with the
+ * finished file (under `cache/exports`).
+ */
+export async function writeExportFile({
+  fileName,
+  gzip = false,
+  onProgress,
+}: {
+  fileName: string;
+  gzip?: boolean;
+  onProgress?: (progress: ExportProgress) => void;
+}): Promise<{ path: string; uri: string; bytes: number }> {
+  const { habits, logs, settings } = await HabitStorage.exportRecords();
+  const listener = onProgress ? await DataTransfer.addListener("exportProgress", onProgress) : undefined;
+  const { sessionId } = await DataTransfer.beginExport({
+    fileName,
+    gzip,
+    exportedAt: new Date().toISOString(),
+    counts: { habits: habits.length, logs: logs.length },
+  });
+  try {
+    for (let i = 0; i < habits.length; i += CHUNK_SIZE) {
+      await DataTransfer.appendExport({ sessionId, habits: habits.slice(i, i + CHUNK_SIZE) });
+    }
+    for (let i = 0; i < logs.length; i += CHUNK_SIZE) {
+      await DataTransfer.appendExport({ sessionId, logs: logs.slice(i, i + CHUNK_SIZE) });
+    }
+    return await DataTransfer.finishExport({ sessionId, settings });
+  } catch (err) {
+    // No-op when the native side already discarded the session.
+    await DataTransfer.abortExport({ sessionId }).catch(() => undefined);
+    throw err;
+  } finally {
+    await listener?.remove();
+  }
+}
+
+/**
+ * Streams the current data to a native export file, then opens the system "save as"
+ * picker for it. `format: "snapshot"` saves the binary snapshot instead of JSON.
+ * Resolves false when the user cancels the picker.
+ */
+export async function exportDataNative({
+  defaultFilename,
+  gzip = false,
+  format = "json",
+  onProgress,
+}: {
+  defaultFilename: string;
+  gzip?: boolean;
+  format?: "json" | "snapshot";
+  onProgress?: (progress: ExportProgress) => void;
+}): Promise<boolean> {
+  let { path } = await writeExportFile({
+    fileName: defaultFilename,
+    gzip: format === "json" && gzip,
+    onProgress,
+  });
+  if (format === "snapshot") {
+    ({ path } = await DataTransfer.encodeSnapshot({ path }));
+  }
+  const { saved } = await DataTransfer.saveExport({ path });
+  return saved;
+}
+
+/**
+ * Reads an export file (plain or gzipped JSON, or a binary snapshot) in validated
+ * chunks; rejects with the first invalid path.
+ */
+export async function readImportFile(
+  source: { uri?: string; path?: string },
+  onProgress?: (progress: ImportProgress) => void,
+): Promise<ExportBundle> {
+  const listener = onProgress ? await DataTransfer.addListener("importProgress", onProgress) : undefined;
+  try {
+    const { sessionId } = await DataTransfer.openImport(source);
+    const habits: ExportHabit[] = [];
+    const logs: ExportLog[] = [];
+    let meta: ExportBundle["meta"] | undefined;
+    let settings: ExportBundle["settings"] | undefined;
+    for (;;) {
+      const chunk = await DataTransfer.readImport({ sessionId, max: CHUNK_SIZE });
+      habits.push(...chunk.habits);
+      logs.push(...chunk.logs);
+      meta = chunk.meta ?? meta;
+      settings = chunk.settings ?? settings;
+      if (chunk.done) break;
+    }
+    if (!meta || !settings) throw new Error("Invalid export file format (root: incomplete)");
+    return { version: "1", meta, habits, logs, settings };
+  } finally {
+    await listener?.remove();
+  }
+}
+
+/**
+ * Picks an export file and reads it with {@link readImportFile}.
+ * Resolves null when the picker is cancelled.
+ */
+export async function importDataNative({
+  onProgress,
+}: {
+  onProgress?: (progress: ImportProgress) => void;
+} = {}): Promise<ExportBundle | null> {
+  const { uri } = await DataTransfer.pickImportFile();
+  if (!uri) return null;
+  return readImportFile({ uri }, onProgress);
+}
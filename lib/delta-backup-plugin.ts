@@ -0,0 +1,276 @@
+import { Capacitor, registerPlugin, type PluginListenerHandle } from "@capacitor/core";
+import type { ExportBundle } from "@shared/schema";
+import { getActiveAccountId, scopedKey } from "@/lib/account-scope";
+import { getOrCreateAppFolder, listAppFiles, type DriveFile } from "@/lib/drive-folder";
+import { PlatformStorage } from "@/lib/platform-storage";
+import { TokenStorage } from "@/lib/utils";
+import { readImportFile, writeExportFile } from "@/lib/data-transfer-plugin";
+
+/**
+ * Chunked Drive backups: the export is split into content-defined chunks, and only
+ * chunks Drive does not have yet are uploaded, followed by a small manifest
+ * (`habits-backup.manifest.json`) listing them in order. The legacy full
+ * `habits-backup.json` is still read, and whichever of the two is newer wins.
+ *
+ * The native side trusts a local index of uploaded chunks and checks it against Drive
+ * before each manifest. A full check, which rebuilds the index before uploading, runs
+ * every `FULL_CHECK_EVERY` backups or `FULL_CHECK_INTERVAL_MS`, and after a failed restore;
+ * it also deletes chunks that none of the last few manifests reference.
+ */
+
+export const MANIFEST_NAME = "habits-backup.manifest.json";
+const LEGACY_NAME = "habits-backup.json";
+const DRIVE_FILES_API = "https://www.googleapis.com/drive/v3/files";
+const FETCH_CONCURRENCY = 4;
+const FULL_CHECK_EVERY = 20;
+const FULL_CHECK_INTERVAL_MS = 7 * 86_400_000;
+
+export interface BackupProgress {
+  chunks: number;
+  newChunks: number;
+  uploadedBytes: number;
+}
+
+export interface DeltaBackupResult {
+  chunks: number;
+  newChunks: number;
+  /** New chunks plus the manifest, compressed. */
+  uploadedBytes: number;
+  totalBytes: number;
+  /** The local chunk index was rebuilt from Drive (full check, or found stale). */
+  reconciled: boolean;
+  /** Drive chunks deleted because none of the last few manifests use them (full checks only). */
+  prunedChunks: number;
+  durationMs: number;
+}
+
+export interface DeltaBackupPlugin {
+  /** `path` must be a finished export under `cache/exports`; `fullCheck` re-lists Drive first. */
+  backup(options: {
+    path: string;
+    accessToken: string;
+    folderId: string;
+    scope?: string;
+    fullCheck?: boolean;
+  }): Promise<DeltaBackupResult>;
+  restore(options: { accessToken: string; folderId: string }): Promise<{
+    found: boolean;
+    path?: string;
+    createdAt?: number;
+  }>;
+  addListener(eventName: "backupProgress", listener: (progress: BackupProgress) => void): Promise<PluginListenerHandle>;
+}
+
+/** Native chunked backup (Android only). */
+export const DeltaBackup = registerPlugin<DeltaBackupPlugin>("DeltaBackup");
+
+/**
+ * The chunked backup is the newest one but could not be restored. Falling back to the
+ * older legacy file instead would silently restore stale data, so callers report this.
+ */
+export class ChunkedRestoreError extends Error {
+  constructor(cause: unknown) {
+    super(`The latest Drive backup could not be restored (${cause instanceof Error ? cause.message : String(cause)}).`);
+    this.name = "ChunkedRestoreError";
+  }
+}
+
+/** Per scope, when the chunk index was last rebuilt from Drive. */
+interface ChunkCheckState {
+  lastFullCheck: number;
+  backupsSince: number;
+  restoreFailed?: boolean;
+}
+
+interface ChunkManifest {
+  format: "tgatb-chunks";
+  version: 1;
+  createdAt: number;
+  size: number;
+  sha256: string;
+  chunks: { id: string; file: string; size: number }[];
+  /** File ids earlier backups used and this one does not, newest first; kept from pruning. */
+  history?: string[][];
+}
+
+export function isDeltaBackupAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
+
+/**
+ * Writes a plain export file natively and uploads its new chunks. `fullCheck` defaults to
+ * whether one is due (see above).
+ */
+export async function backupToDriveDelta(
+  accessToken: string,
+  options: { fullCheck?: boolean; onProgress?: (progress: BackupProgress) => void } = {},
+): Promise<DeltaBackupResult> {
+  const folderId = await getOrCreateAppFolder(accessToken);
+  // Uncompressed on purpose: gzip would let one edit change every following byte.
+  const { path } = await writeExportFile({ fileName: "habits-backup.json" });
+  const listener = options.onProgress ? await DeltaBackup.addListener("backupProgress", options.onProgress) : undefined;
+  const state = await readCheckState();
+  try {
+    const result = await DeltaBackup.backup({
+      path,
+      accessToken,
+      folderId,
+      scope: getActiveAccountId(),
+      fullCheck: options.fullCheck ?? isFullCheckDue(state, Date.now()),
+    });
+    await writeCheckState(result.reconciled
+      ? { lastFullCheck: Date.now(), backupsSince: 0 }
+      : { lastFullCheck: state?.lastFullCheck ?? 0, backupsSince: (state?.backupsSince ?? 0) + 1, restoreFailed: state?.restoreFailed });
+    return result;
+  } catch (err) {
+    throw await unauthorized(err);
+  } finally {
+    await listener?.remove();
+  }
+}
+
+/**
+ * Newest backup as a bundle on Android: the chunked backup when it is at least as new
+ * as the legacy file, else null so the caller falls back to the legacy download.
+ * Throws `ChunkedRestoreError` when that chunked backup cannot be reassembled.
+ */
+export async function restoreFromDriveDelta(accessToken: string): Promise<ExportBundle | null> {
+  const [manifest, legacy] = await newestBackups(accessToken);
+  if (!manifest || isNewer(legacy, manifest)) return null;
+  const folderId = await getOrCreateAppFolder(accessToken);
+  let restored: { found: boolean; path?: string };
+  try {
+    restored = await DeltaBackup.restore({ accessToken, folderId });
+  } catch (err) {
+    const cause = await unauthorized(err);
+    if (cause !== err) throw cause;
+    await markRestoreFailed();
+    throw new ChunkedRestoreError(err);
+  }
+  if (!restored.found || !restored.path) return null;
+  return readImportFile({ path: restored.path });
+}
+
+/**
+ * Newest backup as JSON text on any platform: reassembles the chunked backup with
+ * fetch when it is the newer one, otherwise downloads the legacy file. Null when
+ * neither exists.
+ */
+export async function downloadLatestBackupJson(accessToken: string): Promise<string | null> {
+  const [manifest, legacy] = await newestBackups(accessToken);
+  if (manifest && !isNewer(legacy, manifest)) {
+    const data = await fetchDrive(manifest.id, accessToken);
+    return reassemble(JSON.parse(new TextDecoder().decode(data)) as ChunkManifest, accessToken);
+  }
+  if (!legacy) return null;
+  return new TextDecoder().decode(await fetchDrive(legacy.id, accessToken));
+}
+
+function checkStateKey(): string {
+  return scopedKey("delta_backup_check");
+}
+
+async function readCheckState(): Promise<ChunkCheckState | null> {
+  try {
+    const raw = await PlatformStorage.getItem(checkStateKey());
+    return raw ? (JSON.parse(raw) as ChunkCheckState) : null;
+  } catch {
+    return null;
+  }
+}
+
+async function writeCheckState(state: ChunkCheckState): Promise<void> {
+  try {
+    await PlatformStorage.setItem(checkStateKey(), JSON.stringify(state));
+  } catch {
+    // Only costs an earlier full check.
+  }
+}
+
+function isFullCheckDue(state: ChunkCheckState | null, now: number): boolean {
+  return !state
+    || !!state.restoreFailed
+    || state.backupsSince + 1 >= FULL_CHECK_EVERY
+    || now - state.lastFullCheck >= FULL_CHECK_INTERVAL_MS;
+}
+
+/** The chunked backup did not restore: have the next backup rebuild the index first. */
+async function markRestoreFailed(): Promise<void> {
+  const state = await readCheckState();
+  await writeCheckState({ lastFullCheck: state?.lastFullCheck ?? 0, backupsSince: state?.backupsSince ?? 0, restoreFailed: true });
+}
+
+async function newestBackups(accessToken: string): Promise<[DriveFile | undefined, DriveFile | undefined]> {
+  const [manifests, legacy] = await Promise.all([
+    listAppFiles(MANIFEST_NAME, accessToken),
+    listAppFiles(LEGACY_NAME, accessToken, { withRootFallback: true }),
+  ]);
+  return [manifests[0], legacy[0]];
+}
+
+function isNewer(a: DriveFile | undefined, b: DriveFile): boolean {
+  return !!a && Date.parse(a.modifiedTime) > Date.parse(b.modifiedTime);
+}
+
+async function reassemble(manifest: ChunkManifest, accessToken: string): Promise<string> {
+  if (manifest.format !== "tgatb-chunks" || manifest.version !== 1) {
+    throw new Error("Unsupported backup manifest");
+  }
+  const parts: Uint8Array[] = new Array(manifest.chunks.length);
+  let next = 0;
+  const worker = async () => {
+    while (next < manifest.chunks.length) {
+      const index = next++;
+      const chunk = manifest.chunks[index];
+      const data = await gunzip(await fetchDrive(chunk.file, accessToken));
+      if (data.length !== chunk.size || (await sha256Hex(data)) !== chunk.id) {
+        throw new Error(`Backup chunk ${chunk.id} is corrupt`);
+      }
+      parts[index] = data;
+    }
+  };
+  await Promise.all(Array.from({ length: Math.min(FETCH_CONCURRENCY, manifest.chunks.length) }, worker));
+
+  const whole = new Uint8Array(manifest.size);
+  let offset = 0;
+  for (const part of parts) {
+    if (offset + part.length > whole.length) throw new Error("Reassembled backup does not match its manifest");
+    whole.set(part, offset);
+    offset += part.length;
+  }
+  if (offset !== manifest.size || (await sha256Hex(whole)) !== manifest.sha256) {
+    throw new Error("Reassembled backup does not match its manifest");
+  }
+  return new TextDecoder().decode(whole);
+}
+
+async function fetchDrive(fileId: string, accessToken: string): Promise<Uint8Array> {
+  const res = await fetch(`${DRIVE_FILES_API}/${fileId}?alt=media`, {
+    headers: { Authorization: `Bearer ${accessToken}` },
+  });
+  if (res.status === 401) {
+    await TokenStorage.removeAccessToken().catch(() => undefined);
+    throw new Error("Drive Unauthorized (401)");
+  }
+  if (!res.ok) throw new Error(`Drive download failed (${res.status})`);
+  return new Uint8Array(await res.arrayBuffer());
+}
+
+async function gunzip(data: Uint8Array): Promise<Uint8Array> {
+  const stream = new Response(data).body!.pipeThrough(new DecompressionStream("gzip"));
+  return new Uint8Array(await new Response(stream).arrayBuffer());
+}
+
+async function sha256Hex(data: Uint8Array): Promise<string> {
+  const digest = new Uint8Array(await crypto.subtle.digest("SHA-256", data));
+  return Array.from(digest, (b) => b.toString(16).padStart(2, "0")).join("");
+}
+
+/** Native rejections carry code UNAUTHORIZED; clear the token like the fetch paths do. */
+async function unauthorized(err: unknown): Promise<unknown> {
+  if ((err as { code?: string } | null)?.code === "UNAUTHORIZED") {
+    await TokenStorage.removeAccessToken().catch(() => undefined);
+    return new Error("Drive Unauthorized (401)");
+  }
+  return err;
+}
@@ -2,13 +2,15 @@
  * @module feedback
  *
  * Composite feedback orchestrator — delegates to `lib/haptics.ts` (vibration)
- * and `lib/sound.ts` (procedural Web Audio).
+ * and `lib/sound.ts` (procedural Web Audio). When sound is on and the native
+ * Android sound engine is loaded, both parts go out in one call through
+ * `lib/sound-engine-plugin.ts` instead, so they share an event id and land together.
  *
  * All feedback is fire-and-forget: never blocks UI, never throws.
  *
  * Invariants:
  *   - Haptics calls go through `lib/haptics.ts` only.
- *   - Sound calls go through `lib/sound.ts` only.
+ *   - Sound calls go through `lib/sound.ts` or `lib/sound-engine-plugin.ts` only.
  *   - This file MUST NOT import `@capacitor/haptics` or create AudioContext.
  *   - Feedback respects `soundEnabled` and `hapticEnabled` settings
  *     passed by the caller (habit actions) or the module-level cache
@@ -21,6 +23,7 @@
  */
 
 import {
+  type HapticEvent,
   type HapticProfile,
   setHapticProfile,
   hapticGoodDone,
@@ -39,6 +42,7 @@ import {
 } from "@/lib/haptics";
 
 import {
+  type SoundEvent,
   playSuccessSound,
   playStreakSound,
   playVictorySound,
@@ -47,6 +51,7 @@ import {
   playUndoSound,
   playButtonPressSound,
 } from "@/lib/sound";
+import { playNativeFeedback } from "@/lib/sound-engine-plugin";
 
 // ---------------------------------------------------------------------------
 // Global settings cache (written by use-habits.ts via setGlobalFeedbackSettings)
@@ -87,8 +92,20 @@ function applyHapticProfile(profile?: HapticProfile): void {
   setHapticProfile(profile ?? _globalHapticProfile);
 }
 
+/**
+ * Plays the event through the native sound engine when sound is on and the engine is
+ * loaded. False means the caller plays each part through the JS modules.
+ */
+function nativeFeedback(opts: FeedbackOptions, sound: SoundEvent, haptic: HapticEvent): boolean {
+  if (!opts.soundEnabled) return false;
+  const profile = opts.hapticProfile ?? _globalHapticProfile;
+  return playNativeFeedback(sound, opts.hapticEnabled ? haptic : undefined, profile);
+}
+
 /** Feedback for successfully marking a habit done. */
 export function feedbackTrackSuccess(opts: FeedbackOptions, streakIncremented: boolean): void {
+  const event = streakIncremented ? "streak" : "success";
+  if (nativeFeedback(opts, event, event)) return;
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
     if (streakIncremented) {
@@ -108,6 +125,7 @@ export function feedbackTrackSuccess(opts: FeedbackOptions, streakIncremented: b
 
 /** Feedback for marking a habit as not done / failed. */
 export function feedbackTrackFailure(opts: FeedbackOptions): void {
+  if (nativeFeedback(opts, "failure", "failure")) return;
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
     hapticFailure();
@@ -121,6 +139,13 @@ export function feedbackHabitOutcome(
   outcome: HabitOutcomeFeedback,
   streakIncremented: boolean,
 ): void {
+  const positive = outcome === "goodDone" || outcome === "badAvoided";
+  if (nativeFeedback(
+    opts,
+    positive ? (streakIncremented ? "streak" : "success") : "failure",
+    positive && streakIncremented ? "streak" : outcome,
+  )) return;
+
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
 
@@ -150,6 +175,7 @@ export function feedbackHabitOutcome(
 
 /** Feedback for invalid / error action. */
 export function feedbackError(opts: FeedbackOptions): void {
+  if (nativeFeedback(opts, "error", "error")) return;
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
     hapticErrorFn();
@@ -159,6 +185,7 @@ export function feedbackError(opts: FeedbackOptions): void {
 
 /** Feedback for undo action. */
 export function feedbackUndo(opts: FeedbackOptions): void {
+  if (nativeFeedback(opts, "undo", "undo")) return;
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
     hapticUndoFn();
@@ -192,6 +219,7 @@ export function feedbackNavigation(): void {
 
 /** Celebration feedback for milestone overlays. */
 export function feedbackCelebration(opts: FeedbackOptions): void {
+  if (nativeFeedback(opts, "streak", "streak")) return;
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
     hapticStreak();
@@ -203,6 +231,7 @@ export function feedbackCelebration(opts: FeedbackOptions): void {
 
 /** Special victory feedback for milestone achievements — more impactful than regular celebration. */
 export function feedbackVictory(opts: FeedbackOptions): void {
+  if (nativeFeedback(opts, "victory", "victory")) return;
   if (opts.hapticEnabled) {
     applyHapticProfile(opts.hapticProfile);
     hapticVictory();
@@ -219,6 +248,12 @@ export function feedbackVictory(opts: FeedbackOptions): void {
 /** Ultra-subtle acknowledgement for any button press. Fire-and-forget. */
 export function feedbackButtonPress(): void {
   try {
+    const opts = {
+      soundEnabled: _globalSoundEnabled,
+      hapticEnabled: _globalHapticEnabled,
+      hapticProfile: _globalHapticProfile,
+    };
+    if (nativeFeedback(opts, "button", "button")) return;
     if (_globalHapticEnabled) {
       setHapticProfile(_globalHapticProfile);
       hapticButtonPressFn();
@@ -0,0 +1,71 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+
+export interface FrameScreenStats {
+  /** Absent on the overall total. */
+  tag?: string;
+  frames: number;
+  /** Frames that missed their vsync deadline. */
+  slow: number;
+  /** Frames of 700 ms or more. */
+  frozen: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+}
+
+export interface FrameMetricsStats {
+  enabled: boolean;
+  /** False below Android 7, where frame metrics are unavailable. */
+  supported: boolean;
+  screen: string;
+  dropped: number;
+  total: FrameScreenStats;
+  screens: FrameScreenStats[];
+}
+
+export interface FrameHistoryEntry extends FrameScreenStats {
+  tag: string;
+  release: string;
+  recordedAt: number;
+}
+
+export interface FrameMetricsPlugin {
+  /** Persisted; takes effect immediately and on later launches. Off by default. */
+  setEnabled(options: { enabled: boolean }): Promise<{ enabled: boolean; supported: boolean }>;
+  /** Tags frames drawn from now on. */
+  setScreen(options: { tag: string }): Promise<void>;
+  /** Session stats since enabling or the last reset. */
+  getStats(options?: { reset?: boolean }): Promise<FrameMetricsStats>;
+  /** Appends the interval since the last flush to the rolling log (also done on pause). */
+  flush(): Promise<{ screens: number }>;
+  getHistory(options?: { tag?: string; limit?: number }): Promise<{ entries: FrameHistoryEntry[] }>;
+  clearHistory(): Promise<void>;
+}
+
+/** Native frame-timing and jank telemetry for the app window (Android only). */
+export const FrameMetrics = registerPlugin<FrameMetricsPlugin>("FrameMetrics");
+
+export function isFrameMetricsAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
+
+const screenStack: string[] = [];
+
+/**
+ * Pushes a screen tag; the returned function pops it and restores the tag underneath, so
+ * nested dialogs hand the tag back to whatever is still open.
+ */
+export function pushFrameScreen(tag: string): () => void {
+  if (!isFrameMetricsAvailable()) return () => {};
+  screenStack.push(tag);
+  FrameMetrics.setScreen({ tag }).catch(() => {});
+  return () => {
+    const index = screenStack.lastIndexOf(tag);
+    if (index === -1) return;
+    const wasTop = index === screenStack.length - 1;
+    screenStack.splice(index, 1);
+    if (!wasTop) return;
+    FrameMetrics.setScreen({ tag: screenStack[screenStack.length - 1] ?? "app" }).catch(() => {});
+  };
+}
@@ -0,0 +1,30 @@
+import { registerPlugin } from "@capacitor/core";
+
+/** Log shape on the native side: dates stay `YYYY-MM-DD`, instants are epoch millis. */
+export interface NativeHabitLog {
+  id: string;
+  habitId: string;
+  date: string;
+  completed: boolean;
+  timestamp: number;
+  source?: "manual" | "auto";
+  updatedAt?: number;
+  deviceId?: string;
+  version?: number;
+}
+
+export interface HabitLogStorePlugin {
+  /** Malformed logs are skipped and listed in `rejected`; the rest of the batch is written. */
+  put(options: { scope?: string; logs: NativeHabitLog[] }): Promise<{
+    written: number;
+    live: number;
+    rejected: { index: number; id: string | null; error: string }[];
+  }>;
+  remove(options: { scope?: string; habitId: string; date: string }): Promise<{ removed: boolean }>;
+  removeHabit(options: { scope?: string; habitId: string }): Promise<{ removed: number }>;
+  query(options: { scope?: string; habitId?: string; from?: string; to?: string }): Promise<{ logs: NativeHabitLog[] }>;
+  compact(options?: { scope?: string }): Promise<{ records: number; live: number }>;
+  clear(options?: { scope?: string }): Promise<void>;
+}
+
+export const HabitLogStore = registerPlugin<HabitLogStorePlugin>("HabitLogStore");
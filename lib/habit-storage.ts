@@ -33,6 +33,15 @@ function habitsKey(): string { return scopedKey("habits"); }
 function logsKey(): string { return scopedKey("habit_logs"); }
 function settingsKey(): string { return scopedKey("user_settings"); }
 
+export interface HabitStats {
+  totalDays: number;
+  completedDays: number;
+  totalCompletions: number;
+  completionRate: number;
+  currentStreak: number;
+  longestStreak: number;
+}
+
 export class HabitStorage {
   static getLastExpectedCheck(habitId: string, referenceDate: Date = new Date()): { date: string; log?: HabitLog } | null {
     const habit = this.getHabitById(habitId);
@@ -80,6 +89,7 @@ export class HabitStorage {
   static clearAllHabits(): void {
     localStorage.removeItem(habitsKey());
     localStorage.removeItem(logsKey());
+    this.mirrorHistory();
   }
   static getHabits(): Habit[] {
     try {
@@ -109,6 +119,7 @@ export class HabitStorage {
 
   static saveHabits(habits: Habit[]): void {
     localStorage.setItem(habitsKey(), JSON.stringify(habits));
+    this.mirrorHistory();
   }
 
   static getHabitById(habitId: string): Habit | undefined {
@@ -173,6 +184,16 @@ export class HabitStorage {
 
   static saveLogs(logs: HabitLog[]): void {
     localStorage.setItem(logsKey(), JSON.stringify(logs));
+    this.mirrorHistory();
+  }
+
+  /** Feeds the native daily rollup (Android); see `daily-rollup-plugin.ts`. */
+  private static mirrorHistory(): void {
+    // Imported lazily so storage stays usable without the Capacitor runtime.
+    void import("./daily-rollup-plugin")
+      .then(({ scheduleHistoryMirror }) =>
+        scheduleHistoryMirror(() => ({ habits: this.getHabits(), logs: this.getLogs() })))
+      .catch(() => undefined);
   }
 
   /** Helper: Set intervalStartDate for interval habits on first log. */
@@ -368,7 +389,8 @@ export class HabitStorage {
     await saveSettings(settings);
   }
 
-  static async exportData(): Promise<string> {
+  /** Export-ready records (dates as ISO strings), shared by the JSON and streaming exports. */
+  static async exportRecords(): Promise<Pick<ExportBundle, "habits" | "logs" | "settings">> {
     const settings = await this.getSettings();
     const habits = this.getHabits().map(h => ({
       ...h,
@@ -383,6 +405,11 @@ export class HabitStorage {
       updatedAt: l.updatedAt ? l.updatedAt.toISOString() : undefined,
       source: l.source,
     }));
+    return { habits, logs, settings };
+  }
+
+  static async exportData(): Promise<string> {
+    const { habits, logs, settings } = await this.exportRecords();
 
     const bundle: ExportBundle = {
       version: "1",
@@ -414,19 +441,7 @@ export class HabitStorage {
           const issueMessage = firstIssue?.message || 'schema validation failed';
           throw new Error(`Invalid export file format (${issuePath}: ${issueMessage})`);
         }
-        const data = validated.data;
-
-        // Persist habits/logs (as-is JSON with strings for dates)
-        localStorage.setItem(habitsKey(), JSON.stringify(data.habits));
-        localStorage.setItem(logsKey(), JSON.stringify(data.logs));
-
-        // Persist settings via platform storage when available
-        try {
-          const { saveSettings } = await import('./platform-storage');
-          await saveSettings(data.settings as UserSettings);
-        } catch {
-          localStorage.setItem(settingsKey(), JSON.stringify(data.settings));
-        }
+        await this.importBundle(validated.data);
       } catch (migErr) {
         throw migErr;
       }
@@ -435,6 +450,21 @@ export class HabitStorage {
     }
   }
 
+  /** Persists an already-validated bundle (the streaming import validates natively). */
+  static async importBundle(data: ExportBundle): Promise<void> {
+    // Persist habits/logs (as-is JSON with strings for dates)
+    localStorage.setItem(habitsKey(), JSON.stringify(data.habits));
+    localStorage.setItem(logsKey(), JSON.stringify(data.logs));
+
+    // Persist settings via platform storage when available
+    try {
+      const { saveSettings } = await import('./platform-storage');
+      await saveSettings(data.settings as UserSettings);
+    } catch {
+      localStorage.setItem(settingsKey(), JSON.stringify(data.settings));
+    }
+  }
+
   // New utility methods for enhanced functionality
   static isHabitCompletedToday(habitId: string): boolean {
     const habit = this.getHabitById(habitId);
@@ -474,15 +504,7 @@ export class HabitStorage {
     );
   }
 
-  static getHabitStats(habitId: string): {
-    totalDays: number;
-    completedDays: number;
-    totalCompletions: number;
-    completionRate: number;
-    currentStreak: number;
-    longestStreak: number;
-  } {
-    const logs = this.getLogs().filter(log => log.habitId === habitId);
+  static getHabitStats(habitId: string): HabitStats {
     const habit = this.getHabits().find(h => h.id === habitId);
     
     if (!habit) {
@@ -496,6 +518,11 @@ export class HabitStorage {
       };
     }
     
+    return this.computeHabitStats(habit, this.getLogs().filter(log => log.habitId === habitId));
+  }
+
+  /** Stats of `habit` from `logs`, which must all belong to it; reads nothing from storage. */
+  static computeHabitStats(habit: Habit, logs: HabitLog[]): HabitStats {
     // For bad habits, "success" means NOT doing the habit (completed = false)
     // For good habits, "success" means doing the habit (completed = true)
     const successfulLogs = logs.filter(log => 
@@ -584,4 +611,5 @@ export class HabitStorage {
 
 // Export utility functions for easy access
 export const getHabitStats = HabitStorage.getHabitStats.bind(HabitStorage);
+export const computeHabitStats = HabitStorage.computeHabitStats.bind(HabitStorage);
 export const getAllHabitLogs = HabitStorage.getAllHabitLogs.bind(HabitStorage);
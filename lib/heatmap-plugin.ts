@@ -0,0 +1,69 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { Habit } from "@shared/schema";
+import { getActiveAccountId } from "@/lib/account-scope";
+
+export interface HeatmapTile {
+  /** Absolute path of the cached PNG; load it through `Capacitor.convertFileSrc`. */
+  path: string;
+  /** FileProvider `content://` URI, for sharing. */
+  uri: string;
+  width: number;
+  height: number;
+  /** Week columns, Sunday on top. */
+  columns: number;
+  /** Weekday of January 1st, 0 for Sunday. */
+  firstDayOfWeek: number;
+  cached: boolean;
+  durationMs: number;
+  dataUrl?: string;
+}
+
+export interface HeatmapPlugin {
+  /**
+   * One calendar year, for `habitId` or aggregated over every habit when omitted.
+   * `cellSize` and `gap` are device pixels.
+   */
+  render(options: {
+    scope?: string;
+    habitId?: string;
+    type?: Habit["type"];
+    year?: number;
+    dark?: boolean;
+    cellSize?: number;
+    gap?: number;
+    inline?: boolean;
+  }): Promise<HeatmapTile>;
+  clearCache(options?: { scope?: string }): Promise<void>;
+}
+
+/** Native year heatmap renderer with a tile cache (Android only). */
+export const Heatmap = registerPlugin<HeatmapPlugin>("Heatmap");
+
+export function isHeatmapAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
+
+/**
+ * Renders a year sized in CSS pixels for the current screen density and returns a `src`
+ * the WebView can load. Logs reach the native store through the history mirror, so
+ * callers should first await `queryDailyRollup` when they have just written.
+ */
+export async function renderYearHeatmap(options: {
+  habit?: Pick<Habit, "id" | "type">;
+  year?: number;
+  dark: boolean;
+  cellSize?: number;
+  gap?: number;
+}): Promise<HeatmapTile & { src: string }> {
+  const ratio = Math.max(1, Math.round(window.devicePixelRatio || 1));
+  const tile = await Heatmap.render({
+    scope: getActiveAccountId(),
+    habitId: options.habit?.id,
+    type: options.habit?.type,
+    year: options.year,
+    dark: options.dark,
+    cellSize: (options.cellSize ?? 10) * ratio,
+    gap: (options.gap ?? 2) * ratio,
+  });
+  return { ...tile, src: Capacitor.convertFileSrc(tile.path) };
+}
@@ -1,5 +1,6 @@
-import { Habit, HabitType } from '@/shared/schema';
-import { getAllHabitLogs, getHabitStats } from '@/lib/habit-storage';
+import { Habit, HabitLog, HabitType } from '@/shared/schema';
+import { HabitStorage, computeHabitStats, type HabitStats } from '@/lib/habit-storage';
+import type { DailyRollupResult, RollupSeries, RollupTotals } from '@/lib/daily-rollup-plugin';
 import { formatLocalDate } from '@/lib/utils';
 import { eachDayOfInterval, startOfDay, subDays } from 'date-fns';
 
@@ -23,116 +24,206 @@ export interface StatSummary {
   todayCompletion: number;
   weeklyCompletion: number;
   totalActions: number;
+  /** Per-habit stats the totals above were summed from. */
+  habitStats: Map<string, HabitStats>;
 }
 
-export function computeStatSummary(habits: Habit[]): StatSummary {
-  const today = startOfDay(new Date());
+const MS_PER_DAY = 86_400_000;
 
-  const habitsActiveToday = habits.filter(habit => startOfDay(habit.createdAt) <= today).length;
+function toEpochDay(date: string): number {
+  const [year, month, day] = date.split('-').map(Number);
+  return Math.round(Date.UTC(year, month - 1, day) / MS_PER_DAY);
+}
+
+function fromEpochDay(day: number): string {
+  return new Date(day * MS_PER_DAY).toISOString().slice(0, 10);
+}
+
+function localEpochDay(date: Date): number {
+  return toEpochDay(formatLocalDate(date));
+}
+
+/** Completed flag per habit and date, first log wins (same as `logs.find`). */
+function indexLogs(logs: HabitLog[]): Map<string, Map<string, boolean>> {
+  const index = new Map<string, Map<string, boolean>>();
+  for (const log of logs) {
+    let byDate = index.get(log.habitId);
+    if (!byDate) {
+      byDate = new Map();
+      index.set(log.habitId, byDate);
+    }
+    if (!byDate.has(log.date)) byDate.set(log.date, log.completed);
+  }
+  return index;
+}
+
+/**
+ * All-time day counters in one pass over the logs, in the same shape the native
+ * `DailyRollup` plugin returns; the fallback wherever that plugin is unavailable.
+ * Only logs of `habits` are counted.
+ */
+export function buildDailyRollup(
+  habits: Habit[],
+  logs: HabitLog[] = HabitStorage.getLogs(),
+  now: Date = new Date(),
+): DailyRollupResult {
+  const today = localEpochDay(now);
+  const byId = new Map(habits.map((habit) => [
+    habit.id,
+    { bad: habit.type === 'bad', createdDay: localEpochDay(new Date(habit.createdAt)) },
+  ]));
+
+  let first = Infinity;
+  let last = -Infinity;
+  for (const habit of byId.values()) first = Math.min(first, habit.createdDay);
+  const index = indexLogs(logs);
+  const counted: { bad: boolean; createdDay: number; day: number; completed: boolean }[] = [];
+  for (const [habitId, byDate] of index) {
+    const habit = byId.get(habitId);
+    if (!habit) continue;
+    for (const [date, completed] of byDate) {
+      const day = toEpochDay(date);
+      first = Math.min(first, day);
+      last = Math.max(last, day);
+      counted.push({ ...habit, day, completed });
+    }
+  }
+
+  const to = Math.max(today, last);
+  const from = Math.min(first, to);
+  const length = to - from + 1;
+  const zeros = () => new Array<number>(length).fill(0);
+  const series: RollupSeries = {
+    goodDone: zeros(),
+    badAvoided: zeros(),
+    missed: zeros(),
+    badDone: zeros(),
+    untracked: zeros(),
+    completions: zeros(),
+  };
+  const early = zeros();
+  for (const { bad, createdDay, day, completed } of counted) {
+    const i = day - from;
+    if (bad) {
+      if (completed) series.badDone[i]++;
+      else series.badAvoided[i]++;
+    } else if (completed) {
+      series.goodDone[i]++;
+    } else {
+      series.missed[i]++;
+    }
+    if (day < createdDay) early[i]++;
+    else if (bad !== completed) series.completions[i]++;
+  }
+
+  const created = [...byId.values()].map((habit) => habit.createdDay).sort((a, b) => a - b);
+  let existing = 0;
+  const totals: RollupTotals = {
+    goodDone: 0, badAvoided: 0, missed: 0, badDone: 0, untracked: 0, completions: 0,
+    positiveDays: 0, negativeDays: 0,
+  };
+  for (let i = 0; i < length; i++) {
+    const day = from + i;
+    while (existing < created.length && created[existing] <= day) existing++;
+    if (day <= today) {
+      const logged = series.goodDone[i] + series.badAvoided[i] + series.missed[i] + series.badDone[i];
+      series.untracked[i] = existing - (logged - early[i]);
+    }
+    for (const key of Object.keys(series) as (keyof RollupSeries)[]) totals[key] += series[key][i];
+    if (isPositiveDay(series, i)) totals.positiveDays++;
+    if (isNegativeDay(series, i)) totals.negativeDays++;
+  }
+
+  return { from: fromEpochDay(from), to: fromEpochDay(to), today: fromEpochDay(today), totals, series };
+}
+
+function isPositiveDay(series: RollupSeries, i: number): boolean {
+  return series.goodDone[i] + series.badAvoided[i] > 0;
+}
+
+function isNegativeDay(series: RollupSeries, i: number): boolean {
+  return series.untracked[i] > 0 || series.missed[i] + series.badDone[i] > 0;
+}
+
+/** Value of a series on `date`; 0 outside the rollup or without series. */
+function seriesValue(rollup: DailyRollupResult, key: keyof RollupSeries, date: Date): number {
+  const i = localEpochDay(date) - toEpochDay(rollup.from);
+  return rollup.series?.[key][i] ?? 0;
+}
+
+/**
+ * `rollup` must cover today with series, e.g. an all-time `DailyRollup.query({ series: true })`.
+ * Streaks come from `logs`, grouped by habit in one pass.
+ */
+export function computeStatSummary(
+  habits: Habit[],
+  rollup: DailyRollupResult = buildDailyRollup(habits),
+  logs: HabitLog[] = HabitStorage.getLogs(),
+): StatSummary {
+  const now = new Date();
+  const today = startOfDay(now);
 
   const stats: StatSummary = {
     totalHabits: habits.length,
     goodHabits: habits.filter(h => h.type === 'good').length,
     badHabits: habits.filter(h => h.type === 'bad').length,
-    habitsActiveToday,
+    habitsActiveToday: habits.filter(habit => startOfDay(habit.createdAt) <= today).length,
     totalStreak: 0,
     longestStreak: 0,
-    todayCompletion: 0,
+    todayCompletion: seriesValue(rollup, 'completions', now),
     weeklyCompletion: 0,
-    totalActions: 0,
+    totalActions: rollup.totals.goodDone + rollup.totals.badAvoided,
+    habitStats: new Map(),
   };
 
-  const todayStr = formatLocalDate(new Date());
-  const last7Days = eachDayOfInterval({ start: subDays(new Date(), 6), end: new Date() });
+  // Weekly completion - only habits that existed on each day count
+  for (const day of eachDayOfInterval({ start: subDays(now, 6), end: now })) {
+    stats.weeklyCompletion += seriesValue(rollup, 'completions', day);
+  }
 
+  const logsByHabit = new Map<string, HabitLog[]>();
+  for (const log of logs) {
+    const habitLogs = logsByHabit.get(log.habitId);
+    if (habitLogs) habitLogs.push(log);
+    else logsByHabit.set(log.habitId, [log]);
+  }
   habits.forEach(habit => {
-    const habitStats = getHabitStats(habit.id);
+    const habitStats = computeHabitStats(habit, logsByHabit.get(habit.id) ?? []);
+    stats.habitStats.set(habit.id, habitStats);
     stats.totalStreak += habitStats.currentStreak;
     stats.longestStreak = Math.max(stats.longestStreak, habitStats.longestStreak);
-    stats.totalActions += habitStats.totalCompletions;
-
-    const habitCreatedDate = startOfDay(habit.createdAt);
-    if (habitCreatedDate <= today) {
-      const logs = getAllHabitLogs(habit.id);
-      if (logs.some(log => log.date === todayStr && (habit.type === 'good' ? log.completed === true : log.completed === false))) {
-        stats.todayCompletion++;
-      }
-    }
-
-    // Weekly completion - only count habits that existed on each day
-    const weeklyCompletions = last7Days.filter(day => {
-      const dayStart = startOfDay(day);
-      if (habitCreatedDate <= dayStart) {
-        const dayStr = formatLocalDate(day);
-        const logs = getAllHabitLogs(habit.id);
-        return logs.some(log => log.date === dayStr && (habit.type === 'good' ? log.completed === true : log.completed === false));
-      }
-      return false;
-    }).length;
-
-    stats.weeklyCompletion += weeklyCompletions;
   });
 
   return stats;
 }
 
-export function buildDailyLogs(habits: Habit[], days = 30): DayLog[] {
-  const logs: DayLog[] = [];
-  const range = eachDayOfInterval({ start: subDays(new Date(), days - 1), end: new Date() });
-
-  range.forEach(date => {
-    const dayLog: DayLog = {
-      date,
-      habits: habits
-        .filter(habit => {
-          const dateStr = formatLocalDate(date);
-          const habitLogs = getAllHabitLogs(habit.id);
-          const hasExplicitLogForDay = habitLogs.some(log => log.date === dateStr);
-          return startOfDay(habit.createdAt) <= startOfDay(date) || hasExplicitLogForDay;
-        })
-        .map(habit => {
-          const habitLogs = getAllHabitLogs(habit.id);
-          const dateStr = formatLocalDate(date);
-          const logForDay = habitLogs.find(log => log.date === dateStr);
-          let completed: boolean | null = null;
-          if (logForDay) {
-            completed = logForDay.completed;
-          } else {
-            completed = null; // No log for this day
-          }
-          return { id: habit.id, name: habit.name, type: habit.type, completed };
-        }),
-    };
-    logs.push(dayLog);
-  });
-
-  return logs.reverse();
-}
-
-/** Build a DayLog for a single specific date (no day-range limit). */
-export function buildDayLog(habits: Habit[], date: Date): DayLog {
+function dayLogFor(habits: Habit[], index: Map<string, Map<string, boolean>>, date: Date): DayLog {
   const dateStr = formatLocalDate(date);
+  const day = startOfDay(date);
   return {
     date,
     habits: habits
-      .filter(habit => {
-        const habitLogs = getAllHabitLogs(habit.id);
-        const hasExplicitLogForDay = habitLogs.some(log => log.date === dateStr);
-        return startOfDay(habit.createdAt) <= startOfDay(date) || hasExplicitLogForDay;
-      })
-      .map(habit => {
-        const habitLogs = getAllHabitLogs(habit.id);
-        const logForDay = habitLogs.find(log => log.date === dateStr);
-        return {
-          id: habit.id,
-          name: habit.name,
-          type: habit.type,
-          completed: logForDay ? logForDay.completed : null,
-        };
-      }),
+      .filter(habit => startOfDay(habit.createdAt) <= day || !!index.get(habit.id)?.has(dateStr))
+      .map(habit => ({
+        id: habit.id,
+        name: habit.name,
+        type: habit.type,
+        completed: index.get(habit.id)?.get(dateStr) ?? null,
+      })),
   };
 }
 
+export function buildDailyLogs(habits: Habit[], days = 30, logs: HabitLog[] = HabitStorage.getLogs()): DayLog[] {
+  const index = indexLogs(logs);
+  const range = eachDayOfInterval({ start: subDays(new Date(), days - 1), end: new Date() });
+  return range.map(date => dayLogFor(habits, index, date)).reverse();
+}
+
+/** Build a DayLog for a single specific date (no day-range limit). */
+export function buildDayLog(habits: Habit[], date: Date, logs: HabitLog[] = HabitStorage.getLogs()): DayLog {
+  return dayLogFor(habits, indexLogs(logs), date);
+}
+
 /**
  * Get dates that should be highlighted as positive progress days.
  *
@@ -140,87 +231,32 @@ export function buildDayLog(habits: Habit[], date: Date): DayLog {
  * - good habit: completed === true
  * - bad habit: completed === false (successfully avoided)
  *
- * Logs before a habit's creation date are ignored so calendar markers stay aligned
- * with day-detail visibility.
+ * Manual backfills for dates prior to creation are valid and stay visible: explicit
+ * log entries are the source of truth for calendar highlighting.
  */
-export function getCompletedDatesSet(habits: Habit[]): Set<string> {
+export function getCompletedDatesSet(habits: Habit[], rollup: DailyRollupResult = buildDailyRollup(habits)): Set<string> {
   const dates = new Set<string>();
-  for (const habit of habits) {
-    const logs = getAllHabitLogs(habit.id);
-    for (const log of logs) {
-      // Manual backfills for dates prior to creation are valid and should be visible.
-      // Treat explicit log entries as source of truth for calendar highlighting.
-      const isPositiveOutcome = habit.type === 'good' ? log.completed === true : log.completed === false;
-      if (isPositiveOutcome) {
-        dates.add(log.date);
-      }
-    }
+  if (!rollup.series) return dates;
+  const from = toEpochDay(rollup.from);
+  for (let i = 0; i < rollup.series.goodDone.length; i++) {
+    if (isPositiveDay(rollup.series, i)) dates.add(fromEpochDay(from + i));
   }
   return dates;
 }
 
 /**
- * Get dates that should be highlighted as negative days.
+ * Get dates that should be highlighted as negative days, up to today:
+ * - a habit that existed on the day (or has a log for it) was left untracked
  * - good habit: completed === false (missed)
  * - bad habit: completed === true (did the bad habit)
  */
-export function getNegativeDatesSet(habits: Habit[]): Set<string> {
+export function getNegativeDatesSet(habits: Habit[], rollup: DailyRollupResult = buildDailyRollup(habits)): Set<string> {
   const dates = new Set<string>();
-  if (habits.length === 0) return dates;
-
-  const today = startOfDay(new Date());
-  const earliestHabitDate = habits
-    .map((habit) => startOfDay(habit.createdAt))
-    .reduce((min, date) => (date < min ? date : min), startOfDay(habits[0].createdAt));
-
-  const logsByHabit = new Map<string, Map<string, { completed: boolean }>>();
-  let earliestLoggedDate: Date | null = null;
-
-  for (const habit of habits) {
-    const logs = getAllHabitLogs(habit.id);
-    const byDate = new Map<string, { completed: boolean }>();
-    for (const log of logs) {
-      byDate.set(log.date, { completed: log.completed });
-      const logDate = startOfDay(new Date(`${log.date}T00:00:00`));
-      if (!earliestLoggedDate || logDate < earliestLoggedDate) {
-        earliestLoggedDate = logDate;
-      }
-    }
-    logsByHabit.set(habit.id, byDate);
-  }
-
-  const start = earliestLoggedDate && earliestLoggedDate < earliestHabitDate
-    ? earliestLoggedDate
-    : earliestHabitDate;
-
-  const range = eachDayOfInterval({ start, end: today });
-
-  for (const day of range) {
-    const dayKey = formatLocalDate(day);
-
-    const hasUntracked = habits.some((habit) => {
-      const byDate = logsByHabit.get(habit.id);
-      const log = byDate?.get(dayKey);
-      const createdAtOrBefore = startOfDay(habit.createdAt) <= startOfDay(day);
-      const includedForDay = createdAtOrBefore || !!log;
-      return includedForDay && !log;
-    });
-
-    if (hasUntracked) {
-      dates.add(dayKey);
-      continue;
-    }
-
-    const hasNegativeOutcome = habits.some((habit) => {
-      const log = logsByHabit.get(habit.id)?.get(dayKey);
-      if (!log) return false;
-      return habit.type === 'good' ? log.completed === false : log.completed === true;
-    });
-
-    if (hasNegativeOutcome) {
-      dates.add(dayKey);
-    }
+  if (habits.length === 0 || !rollup.series) return dates;
+  const from = toEpochDay(rollup.from);
+  const last = toEpochDay(rollup.today) - from;
+  for (let i = 0; i <= last && i < rollup.series.goodDone.length; i++) {
+    if (isNegativeDay(rollup.series, i)) dates.add(fromEpochDay(from + i));
   }
-
   return dates;
 }
@@ -0,0 +1,27 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface KvStorePlugin {
+  get(options: { key: string }): Promise<{ value: string | null }>;
+  /** One bridge crossing for many keys; missing keys come back as null. */
+  getMany(options: { keys: string[] }): Promise<{ values: Record<string, string | null> }>;
+  /** Resolves once the write is fsynced; concurrent writes share one fsync. */
+  set(options: { key: string; value: string }): Promise<void>;
+  remove(options: { key: string }): Promise<void>;
+  /** Atomic per account namespace (the `::account` suffix of `scopedKey()`). */
+  setMany(options: { entries?: Record<string, string>; remove?: string[] }): Promise<void>;
+  /** Keys of one account namespace; `_global` holds keys without a `::` suffix. */
+  keys(options?: { namespace?: string }): Promise<{ keys: string[] }>;
+  getStats(options?: { namespace?: string }): Promise<{
+    namespace: string;
+    keys: number;
+    walBytes: number;
+    generation: number;
+    fsyncs: number;
+    recoveredTruncatedBytes: number;
+    /** The snapshot was unreadable; values were rebuilt from the logs and the Preferences copy. */
+    recoveredCorruptSnapshot: boolean;
+  }>;
+}
+
+/** Native key-value store backing `PlatformStorage` on Android (migrated from Preferences). */
+export const KvStore = registerPlugin<KvStorePlugin>("KvStore");
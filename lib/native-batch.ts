@@ -0,0 +1,88 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { HapticEvent, HapticProfile } from "@/lib/haptics";
+import type { NativeHabitLog } from "@/lib/habit-log-store-plugin";
+
+export type NativeBatchOperation =
+  | { target: "NativeBatch.echo"; args?: Record<string, unknown> }
+  | { target: "PremiumHaptics.play"; args: { event: HapticEvent; profile?: HapticProfile } }
+  | { target: "PremiumHaptics.playPattern"; args: { id: string; priority?: number } }
+  | { target: "SystemUi.refreshInsets"; args?: Record<string, never> }
+  | { target: "KvStore.get"; args: { key: string } }
+  | { target: "KvStore.set"; args: { key: string; value: string } }
+  | { target: "KvStore.remove"; args: { key: string } }
+  | { target: "HabitLogStore.put"; args: { scope?: string; logs: NativeHabitLog[] } };
+
+export interface NativeBatchResult {
+  target: string;
+  ok: boolean;
+  value?: unknown;
+  error?: string;
+  durationUs: number;
+}
+
+export interface NativeBatchPlugin {
+  /** Runs operations in order in one bridge call; failures are reported per slot. */
+  run(options: { operations: NativeBatchOperation[]; stopOnError?: boolean }): Promise<{ results: NativeBatchResult[]; totalUs: number }>;
+  ping(options?: Record<string, unknown>): Promise<Record<string, unknown>>;
+}
+
+export const NativeBatch = registerPlugin<NativeBatchPlugin>("NativeBatch");
+
+export function isNativeBatchAvailable(): boolean {
+  return Capacitor.getPlatform() === "android";
+}
+
+export interface NativeBatchBenchmark {
+  iterations: number;
+  opsPerBatch: number;
+  /** Median wall time of `opsPerBatch` sequential `ping` calls. */
+  unbatchedP50Ms: number;
+  /** Median wall time of one `run` carrying `opsPerBatch` echo operations. */
+  batchedP50Ms: number;
+  speedup: number;
+}
+
+function median(samples: number[]): number {
+  const sorted = [...samples].sort((a, b) => a - b);
+  return sorted[Math.floor((sorted.length - 1) / 2)] ?? 0;
+}
+
+/**
+ * Micro-benchmark of bridge round-trips: N separate calls vs one batch of N no-op
+ * operations with the same payload. Run from the dev console on a device.
+ */
+export async function benchmarkNativeBatch(iterations = 30, opsPerBatch = 4): Promise<NativeBatchBenchmark> {
+  const payload = { key: "tgatb_bench", value: "x".repeat(64) };
+  const operations: NativeBatchOperation[] = Array.from({ length: opsPerBatch }, () => ({
+    target: "NativeBatch.echo" as const,
+    args: payload,
+  }));
+
+  // Warm both paths so the first JIT/bridge setup does not skew the samples.
+  await NativeBatch.ping(payload);
+  await NativeBatch.run({ operations });
+
+  const unbatched: number[] = [];
+  const batched: number[] = [];
+  for (let i = 0; i < iterations; i++) {
+    let t = performance.now();
+    for (let j = 0; j < opsPerBatch; j++) {
+      await NativeBatch.ping(payload);
+    }
+    unbatched.push(performance.now() - t);
+
+    t = performance.now();
+    await NativeBatch.run({ operations });
+    batched.push(performance.now() - t);
+  }
+
+  const unbatchedP50Ms = median(unbatched);
+  const batchedP50Ms = median(batched);
+  return {
+    iterations,
+    opsPerBatch,
+    unbatchedP50Ms,
+    batchedP50Ms,
+    speedup: batchedP50Ms > 0 ? unbatchedP50Ms / batchedP50Ms : 0,
+  };
+}
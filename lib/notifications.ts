@@ -3,7 +3,9 @@
  *
  * Platform-abstracted daily reminder notification scheduling.
  *
- * - Android (Capacitor): Uses @capacitor/local-notifications for reliable OS-level alarms.
+ * - Android (Capacitor): Uses the native `Reminders` plugin (AlarmManager + BroadcastReceiver),
+ *   which fires and reschedules without booting the WebView. @capacitor/local-notifications
+ *   is only used for the permission prompt and to clear reminders from earlier releases.
  * - Web: Uses the Notification API as best-effort (only fires when browser/PWA is active).
  *
  * Notification messages are sourced from the "reminder" context in the
@@ -31,6 +33,7 @@
 import type { MotivatorPersonality } from "@shared/schema";
 import { motivatorMessages } from "./motivator-messages";
 import { getSettings } from "./platform-storage";
+import { getActiveAccountId } from "./account-scope";
 
 const REMINDER_NOTIFICATION_ID = 42001;
 const DEFAULT_PERSONALITY: MotivatorPersonality = "positive";
@@ -81,7 +84,7 @@ async function isNativePlatform(): Promise<boolean> {
 }
 
 // ---------------------------------------------------------------------------
-// Android (Capacitor)  local notifications via OS alarm
+// Android (Capacitor)  native alarm via the Reminders plugin
 // ---------------------------------------------------------------------------
 
 async function requestAndroidPermission(): Promise<boolean> {
@@ -100,69 +103,53 @@ async function checkAndroidPermission(): Promise<boolean> {
   return perm.display === "granted";
 }
 
-/** Currently stored Android reminder config for re-scheduling with rotated messages. */
-let androidReminderConfig: { timeStr: string; personality: MotivatorPersonality } | null = null;
-
-
-
 /**
- * Schedule a single notification for the next reminder time.
- * No repeats: notification will only fire once at the scheduled time.
+ * Hand the reminder to the native alarm (`Reminders` plugin). It fires, picks the day's
+ * message from the mirrored pool and re-arms itself without loading the WebView, and
+ * only posts while habits are still due today.
  */
 async function scheduleAndroidReminder(
   timeStr: string,
   personality: MotivatorPersonality = DEFAULT_PERSONALITY,
 ): Promise<void> {
-  const { LocalNotifications } = await import("@capacitor/local-notifications");
-  // Cancel any existing reminder first (by ID)
-  await cancelAndroidReminder();
-
-  // Store config so we can re-schedule with a fresh message
-  androidReminderConfig = { timeStr, personality };
-
-  const [hours, minutes] = timeStr.split(":").map(Number);
-  const now = new Date();
-  const next = new Date();
-  next.setHours(hours, minutes, 0, 0);
-  if (next <= now) {
-    next.setDate(next.getDate() + 1);
-  }
-
+  await cancelLegacyAndroidReminder();
+  const { Reminders } = await import("./reminder-plugin");
   const copy = await getNotificationCopy();
-
-  await LocalNotifications.schedule({
-    notifications: [
-      {
-        id: REMINDER_NOTIFICATION_ID,
-        title: copy.title,
-        body: pickReminderMessage(personality, copy.fallbackBody),
-        schedule: {
-          at: next,
-          // CRITICAL: no repeats, only one fire
-          allowWhileIdle: true,
-        },
-        sound: undefined, // default system sound
-        smallIcon: "ic_notification",
-        largeIcon: "ic_launcher",
-        actionTypeId: "OPEN_APP",
-      },
-    ],
+  const pool = motivatorMessages[personality]?.reminder ?? [];
+  await Reminders.configure({
+    enabled: true,
+    time: timeStr,
+    title: copy.title,
+    messages: [...pool],
+    fallbackBody: copy.fallbackBody,
+    scope: getActiveAccountId(),
   });
 }
 
 /**
- * Re-schedule the Android reminder with a fresh rotated message.
- * Call this on app resume / visibility change so the notification body
- * isn't frozen from the original schedule time.
+ * Re-arm the native reminder from its stored settings. The message rotates natively
+ * each day, so this only refreshes the copy (language may have changed).
  */
-export async function refreshAndroidReminder(): Promise<void> {
-  if (!androidReminderConfig) return;
+export async function refreshAndroidReminder(
+  timeStr: string,
+  personality: MotivatorPersonality = DEFAULT_PERSONALITY,
+): Promise<void> {
   if (!(await isNativePlatform())) return;
-  const { timeStr, personality } = androidReminderConfig;
   await scheduleAndroidReminder(timeStr, personality);
 }
 
 async function cancelAndroidReminder(): Promise<void> {
+  await cancelLegacyAndroidReminder();
+  try {
+    const { Reminders } = await import("./reminder-plugin");
+    await Reminders.cancel();
+  } catch {
+    // Ignore if nothing was scheduled
+  }
+}
+
+/** Reminders scheduled through local-notifications by earlier releases. */
+async function cancelLegacyAndroidReminder(): Promise<void> {
   const { LocalNotifications } = await import(
     "@capacitor/local-notifications"
   );
@@ -340,8 +327,8 @@ export async function reestablishReminder(
   if (!enabled || !timeStr) return;
 
   if (await isNativePlatform()) {
-    // Re-schedule with fresh rotated message
-    await refreshAndroidReminder();
+    // Re-arm the native alarm with fresh copy
+    await refreshAndroidReminder(timeStr, personality);
   } else {
     // On web, scheduleWebReminder is idempotent (cancels old timer first)
     scheduleWebReminder(timeStr, personality);
@@ -1,11 +1,14 @@
 /**
  * @module platform-storage
  *
- * Thin abstraction over Capacitor Preferences (native) and
- * localStorage (web) for key-value persistence.
+ * Thin abstraction over native key-value storage and localStorage (web)
+ * for key-value persistence. On Android the `KvStore` plugin (write-ahead
+ * logged, one-time migrated from Capacitor Preferences) is used; other native
+ * platforms keep Capacitor Preferences.
  *
  * Responsibilities:
- *   - Provide a unified async `getItem` / `setItem` / `removeItem` API.
+ *   - Provide a unified async `getItem` / `setItem` / `removeItem` API,
+ *     plus `getItems` / `setItems` that cross the bridge once per call.
  *   - Read/write user settings with account-scoped keys.
  *
  * Invariants:
@@ -43,7 +46,15 @@ const defaultSettings = (): UserSettings => ({
   celebrationConfettiIntensity: 'medium',
 });
 
-// Generic platform storage helper (Preferences on native, localStorage on web)
+type NativeBackend = "kv" | "preferences" | null;
+
+async function nativeBackend(): Promise<NativeBackend> {
+  const { Capacitor } = await import('@capacitor/core');
+  if (!Capacitor.isNativePlatform()) return null;
+  return Capacitor.getPlatform() === 'android' ? 'kv' : 'preferences';
+}
+
+// Generic platform storage helper (native KV store / Preferences, localStorage on web)
 const _inMemory = new Map<string, string>();
 export const PlatformStorage = {
   async getItem(key: string): Promise<string | null> {
@@ -51,14 +62,15 @@ export const PlatformStorage = {
       // Server-side/testing fallback to in-memory store
       return _inMemory.get(key) ?? null;
     }
-    const { Capacitor } = await import('@capacitor/core');
-    if (Capacitor.isNativePlatform()) {
-      const { Preferences } = await import('@capacitor/preferences');
-      const res = await Preferences.get({ key });
+    const backend = await nativeBackend();
+    if (backend) {
+      const res = backend === 'kv'
+        ? await (await import('./kv-store-plugin')).KvStore.get({ key })
+        : await (await import('@capacitor/preferences')).Preferences.get({ key });
       if (res.value != null) {
         return res.value;
       }
-      // Bootstrap compatibility: fall back to localStorage mirror when Preferences has no value yet.
+      // Bootstrap compatibility: fall back to localStorage mirror when the native store has no value yet.
       return localStorage.getItem(key);
     }
     return localStorage.getItem(key);
@@ -68,14 +80,15 @@ export const PlatformStorage = {
       _inMemory.set(key, value);
       return;
     }
-    const { Capacitor } = await import('@capacitor/core');
-    if (Capacitor.isNativePlatform()) {
+    const backend = await nativeBackend();
+    if (backend === 'kv') {
+      const { KvStore } = await import('./kv-store-plugin');
+      await KvStore.set({ key, value });
+    } else if (backend) {
       const { Preferences } = await import('@capacitor/preferences');
       await Preferences.set({ key, value });
-      // Keep a synchronous mirror for early bootstrap scripts (theme, locale).
-      localStorage.setItem(key, value);
-      return;
     }
+    // On native this is the synchronous mirror for early bootstrap scripts (theme, locale).
     localStorage.setItem(key, value);
   },
   async removeItem(key: string): Promise<void> {
@@ -83,15 +96,48 @@ export const PlatformStorage = {
       _inMemory.delete(key);
       return;
     }
-    const { Capacitor } = await import('@capacitor/core');
-    if (Capacitor.isNativePlatform()) {
+    const backend = await nativeBackend();
+    if (backend === 'kv') {
+      const { KvStore } = await import('./kv-store-plugin');
+      await KvStore.remove({ key });
+    } else if (backend) {
       const { Preferences } = await import('@capacitor/preferences');
       await Preferences.remove({ key });
-      localStorage.removeItem(key);
-      return;
     }
     localStorage.removeItem(key);
-  }
+  },
+  /** Reads several keys; on Android in a single bridge call. */
+  async getItems(keys: string[]): Promise<Record<string, string | null>> {
+    const out: Record<string, string | null> = {};
+    if (typeof window !== 'undefined' && (await nativeBackend()) === 'kv') {
+      const { KvStore } = await import('./kv-store-plugin');
+      const { values } = await KvStore.getMany({ keys });
+      for (const key of keys) {
+        out[key] = values[key] ?? localStorage.getItem(key);
+      }
+      return out;
+    }
+    for (const key of keys) {
+      out[key] = await PlatformStorage.getItem(key);
+    }
+    return out;
+  },
+  /** Writes and removes several keys; on Android atomically per account in one bridge call. */
+  async setItems(entries: Record<string, string>, remove: string[] = []): Promise<void> {
+    if (typeof window !== 'undefined' && (await nativeBackend()) === 'kv') {
+      const { KvStore } = await import('./kv-store-plugin');
+      await KvStore.setMany({ entries, remove });
+      for (const [key, value] of Object.entries(entries)) localStorage.setItem(key, value);
+      for (const key of remove) localStorage.removeItem(key);
+      return;
+    }
+    for (const [key, value] of Object.entries(entries)) {
+      await PlatformStorage.setItem(key, value);
+    }
+    for (const key of remove) {
+      await PlatformStorage.removeItem(key);
+    }
+  },
 };
 
 export async function getSettings(): Promise<UserSettings> {
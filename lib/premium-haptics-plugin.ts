@@ -1,11 +1,26 @@
 import { registerPlugin } from "@capacitor/core";
 import type { HapticEvent, HapticProfile } from "@/lib/haptics";
 
+export interface HapticSequenceStep {
+  event: HapticEvent;
+  delayMs: number;
+  profile?: HapticProfile;
+}
+
 export interface PremiumHapticsPlugin {
   isSupported(): Promise<{ supported: boolean }>;
   setProfile(options: { profile: HapticProfile }): Promise<void>;
   warmup(): Promise<void>;
   play(options: { event: HapticEvent; profile?: HapticProfile }): Promise<void>;
+  /** Compiles a custom waveform once on the native side; replay it with `playPattern`. */
+  registerPattern(options: { id: string; timings: number[]; amplitudes: number[] }): Promise<{ id: string; durationMs: number }>;
+  unregisterPattern(options: { id: string }): Promise<{ removed: boolean }>;
+  /** `priority` follows the native ladder: 0 ambient, 1 action (default), 2 alert, 3 critical. */
+  playPattern(options: { id: string; priority?: number }): Promise<void>;
+  /** Schedules up to 32 events natively; delays are relative to the call (max 10 s). */
+  playSequence(options: { steps: HapticSequenceStep[] }): Promise<{ steps: number; durationMs: number }>;
+  /** Drops queued and scheduled events that have not played yet. */
+  cancel(): Promise<void>;
 }
 
 export const PremiumHaptics = registerPlugin<PremiumHapticsPlugin>("PremiumHaptics");
@@ -0,0 +1,64 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { Habit, HabitLog } from "@shared/schema";
+import { getActiveAccountId } from "@/lib/account-scope";
+import { AutoFinalize } from "@/lib/auto-finalize-plugin";
+import { flushHistoryMirror } from "@/lib/daily-rollup-plugin";
+
+export interface ReminderStatus {
+  enabled: boolean;
+  time?: string;
+  /** False when the exact-alarm grant is revoked (Android 12+); the reminder may drift a few minutes. */
+  exact: boolean;
+  nextTriggerAt?: number;
+  lastPostedDate?: string;
+  /** Habits still due when the last alarm fired. */
+  lastDueCount?: number;
+  /** Native time spent handling the last alarm. */
+  lastRunMs?: number;
+}
+
+export interface RemindersPlugin {
+  /**
+   * Mirrors the reminder settings and copy; the native alarm then fires, picks the day's
+   * message and posts only while habits are still due, without starting the WebView.
+   */
+  configure(options: {
+    enabled: boolean;
+    time: string;
+    title: string;
+    messages: string[];
+    fallbackBody: string;
+    scope?: string;
+  }): Promise<ReminderStatus>;
+  cancel(): Promise<void>;
+  getStatus(): Promise<ReminderStatus>;
+}
+
+export const Reminders = registerPlugin<RemindersPlugin>("Reminders");
+
+/**
+ * Gives the native reminder what it needs to tell which habits are still due today: the
+ * habit list, and the logs through the history mirror (same queue and first-log-per-day
+ * rule as the rollup, sending only what changed). Best-effort; a failed mirror only means
+ * the reminder may be posted when nothing is left.
+ */
+export async function mirrorReminderState(habits: Habit[], logs: HabitLog[]): Promise<void> {
+  if (Capacitor.getPlatform() !== "android") return;
+  const scope = getActiveAccountId();
+  try {
+    await AutoFinalize.syncHabits({
+      scope,
+      habits: habits.map((habit) => ({
+        id: habit.id,
+        name: habit.name,
+        type: habit.type,
+        createdAt: new Date(habit.createdAt).getTime(),
+        intervalStartDate: habit.intervalStartDate ? new Date(habit.intervalStartDate).getTime() : undefined,
+        schedule: habit.schedule,
+      })),
+    });
+    await flushHistoryMirror(() => ({ habits, logs }));
+  } catch {
+    // Native mirror unavailable; the reminder falls back to posting unconditionally.
+  }
+}
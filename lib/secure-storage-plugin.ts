@@ -0,0 +1,27 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+
+export interface SecureStoragePlugin {
+  get(options: { key: string }): Promise<{ value: string | null }>;
+  /** One bridge crossing for many keys; missing keys come back as null. */
+  getMany(options: { keys: string[] }): Promise<{ values: Record<string, string | null> }>;
+  /** Resolves once the re-encrypted file is fsynced. */
+  set(options: { key: string; value: string }): Promise<void>;
+  remove(options: { key: string }): Promise<void>;
+  /** Atomic: one encryption and one file write for the whole batch. */
+  setMany(options: { entries?: Record<string, string>; remove?: string[] }): Promise<void>;
+  clear(): Promise<void>;
+  getStats(): Promise<{
+    keys: number;
+    fileBytes: number;
+    writes: number;
+    /** The file could not be decrypted (e.g. restored without its Keystore key) and was reset. */
+    recoveredUnreadable: boolean;
+  }>;
+}
+
+/** Keystore-encrypted key-value store backing `SecureStorage` on Android. */
+export const SecureStorage = registerPlugin<SecureStoragePlugin>("SecureStorage");
+
+export function isSecureStorageAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
@@ -1,127 +1,126 @@
-// Optional Secure Storage adapter
-// Tries to use a Capacitor secure storage plugin when available; falls back to PlatformStorage.
+// Secure Storage adapter
+// Uses the native SecureStorage plugin (Android Keystore, AES-GCM) when available; falls back to PlatformStorage.
 
-// Typed interface for the optional Capacitor secure storage plugin
-type SecureStoragePlugin = {
-  get?: (args: { key: string }) => Promise<{ value?: string } | undefined>;
-  set?: (args: { key: string; value: string }) => Promise<void>;
-  remove?: (args: { key: string }) => Promise<void>;
-};
+import { PlatformStorage } from './platform-storage';
+import type { SecureStoragePlugin } from './secure-storage-plugin';
 
-export const SecureStorage = {
-  async getItem(key: string): Promise<string | null> {
-    try {
-      const { Capacitor } = await import('@capacitor/core');
-      if (Capacitor.isNativePlatform()) {
-        try {
-          const pkg = '@capacitor/secure-storage';
-          // eslint-disable-next-line @typescript-eslint/ban-ts-comment
-          // @ts-ignore
-          const plugin = await import(/* webpackIgnore: true */ pkg) as unknown as SecureStoragePlugin;
-          if (plugin && typeof plugin.get === 'function') {
-            const res = await plugin.get({ key }) as { value?: string } | undefined;
-            return (res && res.value) ?? null;
-          }
-        } catch {
-          // plugin not available, fall through to PlatformStorage
-        }
-      }
-    } catch { /* plugin path error - silent */ }
+// Resolved once per session: which backend to use never changes while the app runs.
+let nativePlugin: Promise<SecureStoragePlugin | null> | null = null;
 
-    // Fallback to platform storage
-    try {
+function native(): Promise<SecureStoragePlugin | null> {
+  if (!nativePlugin) {
+    nativePlugin = (async () => {
+      if (typeof window === 'undefined') return null;
       try {
-        const { PlatformStorage } = await import('./platform-storage');
-        return await PlatformStorage.getItem(key);
+        const { SecureStorage, isSecureStorageAvailable } = await import('./secure-storage-plugin');
+        return isSecureStorageAvailable() ? SecureStorage : null;
       } catch {
-        try {
-          const alt = './platform-storage.ts';
-          // eslint-disable-next-line @typescript-eslint/ban-ts-comment
-          // @ts-ignore
-          const { PlatformStorage } = await import(/* webpackIgnore: true */ alt);
-          return await PlatformStorage.getItem(key);
-        } catch {
-          // final fallback
-        }
+        return null;
       }
-    } catch { return null; }
+    })();
+  }
+  return nativePlugin;
+}
+
+// Values written before the native store existed live in PlatformStorage. Each key is
+// checked there at most once per session, then moved into the native store.
+const legacyChecked = new Set<string>();
 
-    // Ensure we always return a value in all code paths
+async function takeLegacy(plugin: SecureStoragePlugin, key: string): Promise<string | null> {
+  if (legacyChecked.has(key)) return null;
+  legacyChecked.add(key);
+  try {
+    const legacy = await PlatformStorage.getItem(key);
+    if (legacy == null) return null;
+    await plugin.set({ key, value: legacy });
+    await PlatformStorage.removeItem(key);
+    return legacy;
+  } catch {
     return null;
-  },
+  }
+}
 
+// A native write or remove supersedes any legacy copy, which must not come back later.
+async function dropLegacy(keys: string[]): Promise<void> {
+  for (const key of keys) {
+    if (legacyChecked.has(key)) continue;
+    legacyChecked.add(key);
+    try { await PlatformStorage.removeItem(key); } catch { /* best effort */ }
+  }
+}
 
-  async setItem(key: string, value: string): Promise<void> {
-    try {
-      const { Capacitor } = await import('@capacitor/core');
-      if (Capacitor.isNativePlatform()) {
-        try {
-          const pkg = '@capacitor/secure-storage';
-          // eslint-disable-next-line @typescript-eslint/ban-ts-comment
-          // @ts-ignore
-          const plugin = await import(/* webpackIgnore: true */ pkg) as unknown as SecureStoragePlugin;
-          if (plugin && typeof plugin.set === 'function') {
-            await plugin.set({ key, value });
-            return;
-          }
-        } catch {
-          // plugin not available, fall through
-        }
+export const SecureStorage = {
+  async getItem(key: string): Promise<string | null> {
+    const plugin = await native();
+    if (plugin) {
+      try {
+        const { value } = await plugin.get({ key });
+        return value ?? await takeLegacy(plugin, key);
+      } catch {
+        // native store unreadable, fall through to PlatformStorage
       }
-    } catch { /* plugin path/set error - silent */ }
+    }
+    try { return await PlatformStorage.getItem(key); } catch { return null; }
+  },
 
-    try {
+  async setItem(key: string, value: string): Promise<void> {
+    const plugin = await native();
+    if (plugin) {
       try {
-        const { PlatformStorage } = await import('./platform-storage');
-        await PlatformStorage.setItem(key, value);
+        await plugin.set({ key, value });
+        await dropLegacy([key]);
+        return;
       } catch {
-        try {
-          const alt = './platform-storage.ts';
-          // eslint-disable-next-line @typescript-eslint/ban-ts-comment
-          // @ts-ignore
-          const { PlatformStorage } = await import(/* webpackIgnore: true */ alt);
-          await PlatformStorage.setItem(key, value);
-        } catch {
-          // final fallback
-        }
+        // fall through
       }
-    } catch { /* fallback setItem error - silent */ }
+    }
+    try { await PlatformStorage.setItem(key, value); } catch { /* fallback setItem error - silent */ }
   },
 
   async removeItem(key: string): Promise<void> {
-    try {
-      const { Capacitor } = await import('@capacitor/core');
-      if (Capacitor.isNativePlatform()) {
-        try {
-          const pkg = '@capacitor/secure-storage';
-          // eslint-disable-next-line @typescript-eslint/ban-ts-comment
-          // @ts-ignore
-          const plugin = await import(/* webpackIgnore: true */ pkg) as unknown as SecureStoragePlugin;
-          if (plugin && typeof plugin.remove === 'function') {
-            await plugin.remove({ key });
-            return;
-          }
-        } catch {
-          // plugin not available, fall through
+    const plugin = await native();
+    if (plugin) {
+      try {
+        await plugin.remove({ key });
+        await dropLegacy([key]);
+        return;
+      } catch {
+        // fall through
+      }
+    }
+    try { await PlatformStorage.removeItem(key); } catch { /* fallback removeItem error - silent */ }
+  },
+
+  /** Several keys in one native call; missing keys come back as null. */
+  async getItems(keys: string[]): Promise<Record<string, string | null>> {
+    const plugin = await native();
+    if (plugin) {
+      try {
+        const { values } = await plugin.getMany({ keys });
+        const out: Record<string, string | null> = {};
+        for (const key of keys) {
+          out[key] = values[key] ?? await takeLegacy(plugin, key);
         }
+        return out;
+      } catch {
+        // fall through
       }
-    } catch { /* plugin path/remove error - silent */ }
+    }
+    try { return await PlatformStorage.getItems(keys); } catch { return Object.fromEntries(keys.map((k) => [k, null])); }
+  },
 
-    try {
+  /** Writes and removes atomically on native (one encryption, one file write). */
+  async setItems(entries: Record<string, string>, remove: string[] = []): Promise<void> {
+    const plugin = await native();
+    if (plugin) {
       try {
-        const { PlatformStorage } = await import('./platform-storage');
-        await PlatformStorage.removeItem(key);
+        await plugin.setMany({ entries, remove });
+        await dropLegacy([...Object.keys(entries), ...remove]);
+        return;
       } catch {
-        try {
-          const alt = './platform-storage.ts';
-          // eslint-disable-next-line @typescript-eslint/ban-ts-comment
-          // @ts-ignore
-          const { PlatformStorage } = await import(/* webpackIgnore: true */ alt);
-          await PlatformStorage.removeItem(key);
-        } catch {
-          // final fallback
-        }
+        // fall through
       }
-    } catch { /* fallback removeItem error - silent */ }
+    }
+    try { await PlatformStorage.setItems(entries, remove); } catch { /* fallback setItems error - silent */ }
   }
-};
\ No newline at end of file
+};
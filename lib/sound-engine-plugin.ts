@@ -0,0 +1,73 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { HapticEvent, HapticProfile } from "@/lib/haptics";
+import type { SoundEvent } from "@/lib/sound";
+
+export interface SoundLatency {
+  samples: number;
+  /** Trigger-to-output latency over the recent window; -1 before the first sample. */
+  p50Ms: number;
+  p90Ms: number;
+  maxMs: number;
+  /** Event id of the latest measured play. */
+  lastId: number;
+  lastMs: number;
+}
+
+export interface SoundEnginePlugin {
+  isSupported(): Promise<{ supported: boolean; sampleRate: number; lowLatency: boolean }>;
+  /**
+   * Plays the sound and the haptic in one call under one event id. The haptic waits for
+   * the measured audio latency (`hapticDelayMs`) so both land together.
+   */
+  play(options: { sound?: SoundEvent; haptic?: HapticEvent; profile?: HapticProfile }): Promise<{
+    id: number;
+    sound: boolean;
+    haptic: boolean;
+    hapticDelayMs: number;
+  }>;
+  setAlignHaptics(options: { enabled: boolean }): Promise<void>;
+  getLatency(options?: { reset?: boolean }): Promise<SoundLatency>;
+}
+
+/** Pre-rendered semantic sounds on the native low-latency audio path (Android only). */
+export const SoundEngine = registerPlugin<SoundEnginePlugin>("SoundEngine");
+
+const READY_RETRY_MS = 2000;
+
+let _ready: boolean | null = null;
+let _checkedAt = 0;
+
+export function isSoundEngineAvailable(): boolean {
+  return Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android";
+}
+
+/**
+ * Whether the native bank has loaded. The first calls answer false while the check is
+ * in flight; a negative answer is re-checked every couple of seconds.
+ */
+function isSoundEngineReady(): boolean {
+  if (_ready) return true;
+  if (!isSoundEngineAvailable()) return false;
+  const now = Date.now();
+  if (_ready === null || now - _checkedAt > READY_RETRY_MS) {
+    _checkedAt = now;
+    _ready = false;
+    SoundEngine.isSupported()
+      .then((result) => { _ready = !!result.supported; })
+      .catch(() => { _ready = false; });
+  }
+  return false;
+}
+
+/**
+ * Fire-and-forget: plays `sound` (and `haptic`, if given) natively. Returns false when
+ * the native engine cannot take it, so the caller falls back to lib/sound.ts and
+ * lib/haptics.ts.
+ */
+export function playNativeFeedback(sound: SoundEvent, haptic: HapticEvent | undefined, profile: HapticProfile): boolean {
+  if (!isSoundEngineReady()) return false;
+  SoundEngine.play({ sound, haptic, profile }).catch(() => {
+    _ready = false;
+  });
+  return true;
+}
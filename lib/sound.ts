@@ -18,11 +18,24 @@
  *   - All public functions are wrapped in try/catch (never throw).
  *   - No haptic logic here — this module is sound only.
  *
+ * Android plays the same tones natively (see `lib/sound-engine-plugin.ts`);
+ * `lib/feedback.ts` picks that path when it is loaded and falls back here.
+ *
  * Allowed callers:
  *   - `lib/feedback.ts` (composite feedback orchestrator)
  *   - Unit tests
  */
 
+/** Semantic sound ids, shared with the native SoundEngine plugin. */
+export type SoundEvent =
+  | "success"
+  | "streak"
+  | "victory"
+  | "failure"
+  | "error"
+  | "undo"
+  | "button";
+
 // ---------------------------------------------------------------------------
 // Audio context singleton (lazy)
 // ---------------------------------------------------------------------------
@@ -0,0 +1,38 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface StartupSpan {
+  name: string;
+  /** Milliseconds since process start. */
+  startMs: number;
+  durationMs: number;
+}
+
+export interface StartupTimeline {
+  cold: boolean;
+  finished: boolean;
+  originUptimeMs: number;
+  totalMs: number;
+  spans: StartupSpan[];
+}
+
+export interface StartupRun {
+  release: string;
+  recordedAt: number;
+  cold: boolean;
+  totalMs: number;
+  spans: StartupSpan[];
+}
+
+export interface StartupTracePlugin {
+  getTimeline(): Promise<StartupTimeline>;
+  /** Adds a JS milestone to the native timeline as `js.<name>`. */
+  mark(options: { name: string }): Promise<{ elapsedMs: number }>;
+  /** Closes the trace and appends it to the rolling on-device log; later calls are no-ops. */
+  markReady(): Promise<StartupTimeline>;
+  getHistory(options?: { release?: string; limit?: number }): Promise<{ runs: StartupRun[] }>;
+  /** Cold-start p50/p95; defaults to the installed release (`versionName+versionCode`). */
+  getStats(options?: { release?: string }): Promise<{ release: string; runs: number; p50Ms: number; p95Ms: number }>;
+  clearHistory(): Promise<void>;
+}
+
+export const StartupTrace = registerPlugin<StartupTracePlugin>("StartupTrace");
@@ -0,0 +1,36 @@
+import { registerPlugin } from "@capacitor/core";
+import type { HabitSchedule, HabitType } from "@shared/schema";
+
+/** Habit shape on the native side; instants are epoch millis. */
+export interface NativeStreakHabit {
+  id: string;
+  type: HabitType;
+  createdAt: number;
+  intervalStartDate?: number;
+  schedule?: HabitSchedule;
+}
+
+export interface HabitStreaks {
+  habitId: string;
+  current: number;
+  longest: number;
+}
+
+export interface StreakEnginePlugin {
+  load(options: {
+    habits: NativeStreakHabit[];
+    logs?: { habitId: string; date: string; completed: boolean }[];
+  }): Promise<{ streaks: HabitStreaks[] }>;
+  setHabit(options: { habit: NativeStreakHabit }): Promise<HabitStreaks>;
+  removeHabit(options: { habitId: string }): Promise<void>;
+  putLog(options: { habitId: string; date: string; completed: boolean }): Promise<HabitStreaks>;
+  removeLog(options: { habitId: string; date: string }): Promise<HabitStreaks>;
+  getStreaks(options: { habitId: string }): Promise<HabitStreaks>;
+  getLastExpectedCheck(options: { habitId: string; date?: string }): Promise<{
+    date?: string;
+    logged?: boolean;
+    completed?: boolean;
+  }>;
+}
+
+export const StreakEngine = registerPlugin<StreakEnginePlugin>("StreakEngine");
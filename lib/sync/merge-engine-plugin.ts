@@ -0,0 +1,52 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+import type { Habit, HabitLog } from "@shared/schema";
+import { mergeDataset, type DatasetConflicts } from "@/lib/sync/merge";
+
+type Side = { habits?: Habit[]; logs?: HabitLog[] };
+
+export interface MergeEnginePlugin {
+  /**
+   * `mergeByTimestamp` over whole collections in one call: fields are compared by
+   * precomputed 64-bit hashes and records are merged in parallel chunks.
+   */
+  mergeDataset(options: { local: Side; remote: Side; base?: Side }): Promise<{
+    habits: Habit[];
+    logs: HabitLog[];
+    conflicts: { habits: DatasetConflicts; logs: DatasetConflicts };
+    conflict: boolean;
+    durationMs: number;
+  }>;
+}
+
+export const MergeEngine = registerPlugin<MergeEnginePlugin>("MergeEngine");
+
+export type SyncMergeResult = {
+  habits: Habit[];
+  logs: HabitLog[];
+  conflicts: { habits: DatasetConflicts; logs: DatasetConflicts };
+};
+
+// Dates cross the bridge as ISO strings; restore the fields the rest of the app reads as Date.
+function reviveHabit(h: Habit): Habit {
+  const raw = h as unknown as Record<string, unknown>;
+  return {
+    ...h,
+    createdAt: new Date(String(raw.createdAt)),
+    lastCompletedDate: raw.lastCompletedDate ? new Date(String(raw.lastCompletedDate)) : undefined,
+  };
+}
+
+function reviveLog(l: HabitLog): HabitLog {
+  return { ...l, timestamp: new Date(String((l as unknown as Record<string, unknown>).timestamp)) };
+}
+
+/** Native merge on Android, the TypeScript merge elsewhere (same semantics). */
+export async function mergeSyncData(local: Side, remote: Side, base: Side = {}): Promise<SyncMergeResult> {
+  if (Capacitor.isNativePlatform() && Capacitor.getPlatform() === "android") {
+    const res = await MergeEngine.mergeDataset({ local, remote, base });
+    return { habits: res.habits.map(reviveHabit), logs: res.logs.map(reviveLog), conflicts: res.conflicts };
+  }
+  const habits = mergeDataset<Habit>(local.habits || [], remote.habits || [], base.habits || []);
+  const logs = mergeDataset<HabitLog>(local.logs || [], remote.logs || [], base.logs || []);
+  return { habits: habits.merged, logs: logs.merged, conflicts: { habits: habits.conflicts, logs: logs.conflicts } };
+}
@@ -80,5 +80,35 @@ export function mergeLog(local: HabitLog | null, remote: HabitLog | null, base?:
   return mergeByTimestamp<HabitLog>(local, remote, base);
 }
 
-const MergeUtils = { mergeByTimestamp, mergeHabit, mergeLog };
+export type DatasetConflicts = Record<string, Record<string, MergeConflictEntry>>;
+
+export type DatasetMergeResult<T> = { merged: T[]; conflicts: DatasetConflicts };
+
+// Whole-collection merge in the shape of the sync pull loop: every remote record is merged
+// with the local/base record of the same id, then local-only records are appended.
+export function mergeDataset<T extends { id: string; updatedAt?: string | number | Date }>(
+  local: T[],
+  remote: T[],
+  base: T[] = []
+): DatasetMergeResult<T> {
+  const localMap = new Map<string, T>(local.map((l) => [l.id, l]));
+  const baseMap = new Map<string, T>(base.map((b) => [b.id, b]));
+  const merged: T[] = [];
+  const ids = new Set<string>();
+  const conflicts: DatasetConflicts = {};
+  for (const r of remote) {
+    const res = mergeByTimestamp<T>(localMap.get(r.id) || null, r, baseMap.get(r.id) || null);
+    merged.push(res.merged);
+    ids.add(res.merged.id);
+    if (res.conflict && res.conflicts) conflicts[r.id] = res.conflicts;
+  }
+  for (const l of local) {
+    if (ids.has(l.id)) continue;
+    ids.add(l.id);
+    merged.push(l);
+  }
+  return { merged, conflicts };
+}
+
+const MergeUtils = { mergeByTimestamp, mergeHabit, mergeLog, mergeDataset };
 export default MergeUtils;
@@ -0,0 +1,21 @@
+import { registerPlugin, type PluginListenerHandle } from "@capacitor/core";
+
+export interface ImeInsets {
+  /** Keyboard height above the system bars, in CSS px; follows the animation. */
+  bottom: number;
+  /** Bottom padding the WebView currently has (changes once, at animation end). */
+  committedBottom: number;
+  visible: boolean;
+  animating: boolean;
+}
+
+export interface SystemUiPlugin {
+  setFullscreen(options: { enabled: boolean; darkMode?: boolean }): Promise<{ enabled: boolean; darkMode: boolean }>;
+  getFullscreen(): Promise<{ enabled: boolean }>;
+  refreshInsets(): Promise<void>;
+  getImeInsets(): Promise<ImeInsets>;
+  /** Emitted at most once per frame while the keyboard moves, and once when it settles. */
+  addListener(eventName: "imeInsets", listener: (insets: ImeInsets) => void): Promise<PluginListenerHandle>;
+}
+
+export const SystemUi = registerPlugin<SystemUiPlugin>("SystemUi");
@@ -0,0 +1,50 @@
+import { Capacitor, registerPlugin } from "@capacitor/core";
+
+export interface WebAssetUpgradeSummary {
+  /**
+   * "unchanged": no web asset changed, the WebView cache was kept; "changed" and "full":
+   * the WebView cache was cleared (after a diff, or because no diff was possible).
+   */
+  mode?: "unchanged" | "changed" | "full" | "install";
+  keptCount?: number;
+  evictedCount?: number;
+  addedCount?: number;
+  durationMs?: number;
+  at?: number;
+  error?: string;
+}
+
+export interface WebAssetCachePlugin {
+  /** Request URLs of assets whose content hash changed in the last upgrade(s), plus the pass summary. */
+  getPendingEvictions(): Promise<{ paths: string[]; lastUpgrade: WebAssetUpgradeSummary }>;
+  ackEvictions(): Promise<void>;
+}
+
+export const WebAssetCache = registerPlugin<WebAssetCachePlugin>("WebAssetCache");
+
+/**
+ * Deletes stale entries (per the native manifest diff) from every Cache Storage cache.
+ * The WebView HTTP cache, which holds the assets on Android, is cleared natively; this
+ * only covers entries an earlier build's service worker may have left. Safe to call on
+ * every launch.
+ */
+export async function applyWebAssetEvictions(): Promise<number> {
+  if (Capacitor.getPlatform() !== "android" || typeof caches === "undefined") return 0;
+  try {
+    const { paths } = await WebAssetCache.getPendingEvictions();
+    if (paths.length === 0) return 0;
+    let evicted = 0;
+    for (const name of await caches.keys()) {
+      const cache = await caches.open(name);
+      for (const path of paths) {
+        if (await cache.delete(new URL(path, window.location.origin).toString(), { ignoreSearch: true })) {
+          evicted++;
+        }
+      }
+    }
+    await WebAssetCache.ackEvictions();
+    return evicted;
+  } catch {
+    return 0;
+  }
+}
@@ -43,9 +43,17 @@ export async function uploadDataToDrive(jsonData: string, accessToken: string):
 import type { ExportBundle } from '../shared/schema';
 import { TokenStorage } from '../lib/utils';
 
-// Download the latest habits backup from Drive (checks app folder first, then root)
+// Download the latest habits backup from Drive (checks app folder first, then root).
+// Throws ChunkedRestoreError when the newest backup is chunked and cannot be restored.
 export async function downloadLatestHabitsFromDrive(accessToken: string): Promise<ExportBundle | null> {
 	 try {
+		 // Chunked backup first when it is the newest; null falls through to the legacy file.
+		 // A chunked backup that fails to restore is not replaced by the older legacy file.
+		 const { isDeltaBackupAvailable, restoreFromDriveDelta } = await import('../lib/delta-backup-plugin');
+		 if (isDeltaBackupAvailable()) {
+			 const restored = await restoreFromDriveDelta(accessToken);
+			 if (restored) return restored;
+		 }
 		 // List files in app folder with root fallback for legacy uploads
 		 const files = await listAppFiles('habits-backup.json', accessToken, { withRootFallback: true });
 		 if (!files.length) throw new Error("No backup file found in Drive");
@@ -70,7 +78,8 @@ export async function downloadLatestHabitsFromDrive(accessToken: string): Promis
 		 }
 			 const validated = await importBundleFromJson(cloudJson);
 		 return validated;
-	 } catch {
+	 } catch (err) {
+		 if (err instanceof Error && err.name === 'ChunkedRestoreError') throw err;
 		 return null;
 	 }
 }
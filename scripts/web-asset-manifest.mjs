@@ -0,0 +1,44 @@
+import { createHash } from "node:crypto";
+import { existsSync, readdirSync, readFileSync, statSync, writeFileSync } from "node:fs";
+import { join, relative, sep } from "node:path";
+
+// Writes out/asset-manifest.tsv: one "hash<TAB>size<TAB>/path" line per exported file.
+// The Android app diffs this against the previous release's copy on upgrade and keeps
+// the WebView cache when no file changed (see WebAssetCachePlugin.java).
+
+const OUT_DIR = join(process.cwd(), "out");
+const MANIFEST_NAME = "asset-manifest.tsv";
+const HEADER = "# tgatb-asset-manifest v1";
+
+function walk(dir, files = []) {
+  for (const name of readdirSync(dir)) {
+    const full = join(dir, name);
+    if (statSync(full).isDirectory()) {
+      walk(full, files);
+    } else if (name !== MANIFEST_NAME) {
+      files.push(full);
+    }
+  }
+  return files;
+}
+
+if (!existsSync(OUT_DIR)) {
+  console.error(`[asset-manifest] ${OUT_DIR} not found; run "npm run build" first.`);
+  process.exit(1);
+}
+
+const files = walk(OUT_DIR).sort();
+let totalBytes = 0;
+const lines = [HEADER];
+for (const file of files) {
+  const data = readFileSync(file);
+  // 64-bit prefix of SHA-256 is plenty to detect content changes.
+  const hash = createHash("sha256").update(data).digest("hex").slice(0, 16);
+  const path = "/" + relative(OUT_DIR, file).split(sep).join("/");
+  if (path.includes("\t") || path.includes("\n")) continue;
+  lines.push(`${hash}\t${data.length}\t${path}`);
+  totalBytes += data.length;
+}
+
+writeFileSync(join(OUT_DIR, MANIFEST_NAME), lines.join("\n") + "\n");
+console.log(`[asset-manifest] ${files.length} files, ${(totalBytes / 1024).toFixed(1)} KiB -> out/${MANIFEST_NAME}`);
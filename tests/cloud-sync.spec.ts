@@ -0,0 +1,58 @@
+import { describe, it, expect, beforeEach, afterEach } from 'vitest';
+import { renderHook } from '@testing-library/react';
+import { useCloudSync } from '@/hooks/use-cloud-sync';
+import { HabitStorage } from '@/lib/habit-storage';
+import { TokenStorage } from '@/lib/utils';
+import * as deltaBackup from '@/lib/delta-backup-plugin';
+import type { Habit, HabitLog } from '@shared/schema';
+
+vi.mock('@/hooks/use-toast', () => ({ useToast: () => ({ toast: vi.fn() }) }));
+vi.mock('@/hooks/use-loading', () => ({ useLoading: () => ({ show: vi.fn(), hide: vi.fn() }) }));
+vi.mock('@/lib/delta-backup-plugin', async (importOriginal) => ({
+  ...(await importOriginal<typeof import('@/lib/delta-backup-plugin')>()),
+  downloadLatestBackupJson: vi.fn(async () => null),
+}));
+
+function makeHabit(id: string): Habit {
+  return { id, name: `habit-${id}`, type: 'good', streak: 0, createdAt: new Date('2026-03-01T00:00:00.000Z') };
+}
+
+function makeLog(habitId: string, date: string): HabitLog {
+  return { id: `${habitId}-${date}`, habitId, date, completed: true, timestamp: new Date(`${date}T12:00:00.000Z`) };
+}
+
+const remoteBundle = {
+  version: '1',
+  meta: { exportedAt: '2026-03-10T00:00:00.000Z', counts: { habits: 1, logs: 1 } },
+  habits: [{ id: 'h-remote', name: 'habit-h-remote', type: 'good', streak: 0, createdAt: '2026-03-01T00:00:00.000Z' }],
+  logs: [{ id: 'h-remote-2026-03-09', habitId: 'h-remote', date: '2026-03-09', completed: true, timestamp: '2026-03-09T12:00:00.000Z' }],
+  settings: { darkMode: false, language: 'en', motivatorPersonality: 'positive', fullscreenMode: false },
+};
+
+describe('pullOnce', () => {
+  beforeEach(() => {
+    localStorage.clear();
+    vi.spyOn(TokenStorage, 'getAccessToken').mockResolvedValue('fake-token');
+    vi.mocked(deltaBackup.downloadLatestBackupJson).mockResolvedValue(JSON.stringify(remoteBundle));
+  });
+
+  afterEach(() => {
+    vi.restoreAllMocks();
+  });
+
+  it('imports the merged data, so local-only habits and logs survive a pull', async () => {
+    HabitStorage.saveHabits([makeHabit('h-local')]);
+    HabitStorage.saveLogs([makeLog('h-local', '2026-03-08')]);
+
+    const { result } = renderHook(() => useCloudSync());
+    const imported: string[] = [];
+    const ok = await result.current.pullOnce((json) => { imported.push(json); });
+
+    expect(ok).toBe(true);
+    expect(imported).toHaveLength(1);
+    // use-habits imports what it is handed; that must not drop the local records
+    await HabitStorage.importData(imported[0]);
+    expect(HabitStorage.getHabits().map((h) => h.id).sort()).toEqual(['h-local', 'h-remote']);
+    expect(HabitStorage.getLogs().map((l) => l.id).sort()).toEqual(['h-local-2026-03-08', 'h-remote-2026-03-09']);
+  });
+});
@@ -1,5 +1,5 @@
 import { describe, it, expect, beforeEach } from 'vitest';
-import { getCompletedDatesSet } from '@/lib/history';
+import { buildDailyRollup, getCompletedDatesSet, getNegativeDatesSet } from '@/lib/history';
 import { HabitStorage } from '@/lib/habit-storage';
 import type { Habit, HabitLog } from '@shared/schema';
 
@@ -91,3 +91,51 @@ describe('getCompletedDatesSet', () => {
     expect(completedDates.has('2026-03-19')).toBe(true);
   });
 });
+
+describe('buildDailyRollup', () => {
+  it('counts outcomes, untracked habits and completions per day', () => {
+    const habits = [
+      makeHabit('h-good', 'good', '2026-03-10'),
+      makeHabit('h-bad', 'bad', '2026-03-11'),
+    ];
+    const logs = [
+      makeLog('h-good', '2026-03-09', true), // backfill before creation
+      makeLog('h-good', '2026-03-10', false),
+      makeLog('h-bad', '2026-03-11', false),
+      makeLog('h-bad', '2026-03-12', true),
+      makeLog('deleted-habit', '2026-03-12', true),
+    ];
+
+    const rollup = buildDailyRollup(habits, logs, new Date('2026-03-12T09:00:00'));
+
+    expect(rollup.from).toBe('2026-03-09');
+    expect(rollup.to).toBe('2026-03-12');
+    expect(rollup.series?.goodDone).toEqual([1, 0, 0, 0]);
+    expect(rollup.series?.missed).toEqual([0, 1, 0, 0]);
+    expect(rollup.series?.badAvoided).toEqual([0, 0, 1, 0]);
+    expect(rollup.series?.badDone).toEqual([0, 0, 0, 1]);
+    expect(rollup.series?.untracked).toEqual([0, 0, 1, 1]);
+    expect(rollup.series?.completions).toEqual([0, 0, 1, 0]);
+    expect(rollup.totals.positiveDays).toBe(2);
+    expect(rollup.totals.negativeDays).toBe(3);
+  });
+});
+
+describe('getNegativeDatesSet', () => {
+  beforeEach(() => {
+    localStorage.clear();
+  });
+
+  it('marks untracked days and negative outcomes up to today only', () => {
+    const habits = [makeHabit('h-good', 'good', '2026-03-01')];
+    const rollup = buildDailyRollup(habits, [
+      makeLog('h-good', '2026-03-01', true),
+      makeLog('h-good', '2026-03-02', false),
+      makeLog('h-good', '2026-03-05', false),
+    ], new Date('2026-03-03T09:00:00'));
+
+    const negativeDates = getNegativeDatesSet(habits, rollup);
+
+    expect([...negativeDates].sort()).toEqual(['2026-03-02', '2026-03-03']);
+  });
+});
@@ -1,6 +1,14 @@
 import { downloadLatestHabitsFromDrive } from '../../mobile/drive-sync';
 import { resetAppFolderCache } from '../../lib/drive-folder';
 import { TokenStorage } from '../../lib/utils';
+import * as deltaBackup from '../../lib/delta-backup-plugin';
+
+// Chunked restores are Android-only; tests opt in per case
+vi.mock('../../lib/delta-backup-plugin', async (importOriginal) => ({
+  ...(await importOriginal<typeof import('../../lib/delta-backup-plugin')>()),
+  isDeltaBackupAvailable: vi.fn(() => false),
+  restoreFromDriveDelta: vi.fn(async () => null),
+}));
 
 const DRIVE_API = 'https://www.googleapis.com/drive/v3/files';
 const TEST_FOLDER_ID = 'test-folder-id';
@@ -122,3 +130,18 @@ test('clears token on 401 and returns null', async () => {
   expect(removeSpy).toHaveBeenCalled();
   removeSpy.mockRestore();
 });
+
+test('reports a failed chunked restore instead of falling back to the older legacy file', async () => {
+  vi.mocked(deltaBackup.isDeltaBackupAvailable).mockReturnValueOnce(true);
+  vi.mocked(deltaBackup.restoreFromDriveDelta).mockRejectedValueOnce(
+    new deltaBackup.ChunkedRestoreError(new Error('Chunk abc is corrupt')),
+  );
+  const fetchMock = mockDriveFetch({
+    folderFiles: [{ id: 'abc', name: 'habits-backup.json' }],
+    onDownload: () => new Response(JSON.stringify(validBundle), { status: 200 }),
+  });
+  vi.stubGlobal('fetch', fetchMock);
+
+  await expect(downloadLatestHabitsFromDrive('fake-token')).rejects.toThrow(/could not be restored/);
+  expect(fetchMock).not.toHaveBeenCalled();
+});